@@ -0,0 +1,155 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.d2.perf;
+
+
+import com.linkedin.d2.balancer.ServiceUnavailableException;
+import com.linkedin.d2.balancer.util.MapKeyIndexResult;
+import com.linkedin.d2.balancer.util.MapKeyResult;
+import com.linkedin.d2.balancer.util.hashing.BucketedConsistentHashRing;
+import com.linkedin.d2.balancer.util.hashing.ConsistentHashKeyMapper;
+import com.linkedin.d2.balancer.util.hashing.ConsistentHashRing;
+import com.linkedin.d2.balancer.util.hashing.HashFunction;
+import com.linkedin.d2.balancer.util.hashing.KeyHashingRing;
+import com.linkedin.d2.balancer.util.hashing.MD5Hash;
+import com.linkedin.d2.balancer.util.hashing.Ring;
+import com.linkedin.d2.balancer.util.hashing.StaticRingProvider;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the MD5 {@link ConsistentHashRing} with the murmur3 {@link BucketedConsistentHashRing}:
+ * building the ring, looking up hashes and mapping a batch of keys to hosts with
+ * {@link ConsistentHashKeyMapper#mapKeysV2} and {@link ConsistentHashKeyMapper#mapKeyIndexes}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HashRingBenchmark
+{
+  private static final int POINTS_PER_HOST = 100;
+  private static final int KEYS = 1000;
+
+  @Param({ "md5", "murmur3" })
+  public String algorithm;
+
+  @Param({ "10", "100", "1000" })
+  public int hosts;
+
+  private Map<URI, Integer> _pointsMap;
+  private Ring<URI> _ring;
+  private HashFunction<String[]> _keyHashFunction;
+  private ConsistentHashKeyMapper _keyMapper;
+  private URI _serviceUri;
+  private int[] _hashes;
+  private List<String> _keys;
+  private String[] _keyArray;
+
+  @Setup
+  public void setup() throws Exception
+  {
+    _pointsMap = new HashMap<URI, Integer>();
+    for (int i = 0; i < hosts; i++)
+    {
+      _pointsMap.put(new URI("http://host" + i + ".example.com:1234/service"), POINTS_PER_HOST);
+    }
+    _ring = createRing(_pointsMap);
+    _keyHashFunction = _ring instanceof KeyHashingRing ? ((KeyHashingRing<URI>) _ring).getKeyHashFunction()
+                                                       : new MD5Hash();
+    _keyMapper = new ConsistentHashKeyMapper(new StaticRingProvider(_ring));
+    _serviceUri = new URI("d2://service");
+
+    Random random = new Random(1);
+    _hashes = new int[KEYS];
+    _keys = new ArrayList<String>(KEYS);
+    for (int i = 0; i < KEYS; i++)
+    {
+      _hashes[i] = random.nextInt();
+      // StaticRingProvider expects numeric keys
+      _keys.add(Long.toString(random.nextInt(Integer.MAX_VALUE)));
+    }
+    _keyArray = _keys.toArray(new String[KEYS]);
+  }
+
+  @Benchmark
+  public Ring<URI> buildRing()
+  {
+    return createRing(_pointsMap);
+  }
+
+  @Benchmark
+  public void lookup(Blackhole blackhole)
+  {
+    for (int hash : _hashes)
+    {
+      blackhole.consume(_ring.get(hash));
+    }
+  }
+
+  @Benchmark
+  public void hashKeys(Blackhole blackhole)
+  {
+    String[] keyTokens = new String[1];
+    for (String key : _keys)
+    {
+      keyTokens[0] = key;
+      blackhole.consume(_keyHashFunction.hash(keyTokens));
+    }
+  }
+
+  @Benchmark
+  public MapKeyResult<URI, String> mapKeys() throws ServiceUnavailableException
+  {
+    return _keyMapper.mapKeysV2(_serviceUri, _keys);
+  }
+
+  @Benchmark
+  public MapKeyIndexResult<URI> mapKeyIndexes() throws ServiceUnavailableException
+  {
+    return _keyMapper.mapKeyIndexes(_serviceUri, _keyArray);
+  }
+
+  private Ring<URI> createRing(Map<URI, Integer> pointsMap)
+  {
+    if ("murmur3".equals(algorithm))
+    {
+      return new BucketedConsistentHashRing<URI>(pointsMap);
+    }
+    return new ConsistentHashRing<URI>(pointsMap);
+  }
+}
@@ -0,0 +1,61 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.d2.balancer;
+
+import com.linkedin.d2.balancer.util.MapKeyIndexResult;
+
+import java.net.URI;
+import java.util.Arrays;
+
+/**
+ * Base class for {@link KeyMapper} implementations, which adds {@link #mapKeyIndexes(URI, Object[])}
+ * with a default implementation built on {@link KeyMapper#mapKeysV2(URI, Iterable)}.
+ */
+public abstract class AbstractKeyMapper implements KeyMapper
+{
+  /**
+   * Maps an array of keys to hosts like {@link #mapKeysV2(URI, Iterable)}, but the result identifies
+   * the keys by their index in the array and groups the indexes by host in a compact structure.
+   *
+   * Duplicate keys are allowed; equal keys are mapped to the same host.
+   *
+   * @param serviceUri The URI for the service to which requests will be issued
+   * @param keys The array of keys to be mapped
+   * @param <K> The key type
+   * @return @link MapKeyIndexResult contains the key indexes of each host and the unmapped key indexes
+   */
+  public <K> MapKeyIndexResult<URI> mapKeyIndexes(URI serviceUri, K[] keys)
+      throws ServiceUnavailableException
+  {
+    return MapKeyIndexResult.fromMapKeyResult(mapKeysV2(serviceUri, Arrays.asList(keys)), keys);
+  }
+
+  /**
+   * Maps an array of keys with the given mapper, using {@link #mapKeyIndexes(URI, Object[])} if the
+   * mapper is an {@link AbstractKeyMapper} and {@link KeyMapper#mapKeysV2(URI, Iterable)} otherwise.
+   */
+  public static <K> MapKeyIndexResult<URI> mapKeyIndexes(KeyMapper mapper, URI serviceUri, K[] keys)
+      throws ServiceUnavailableException
+  {
+    if (mapper instanceof AbstractKeyMapper)
+    {
+      return ((AbstractKeyMapper) mapper).mapKeyIndexes(serviceUri, keys);
+    }
+    return MapKeyIndexResult.fromMapKeyResult(mapper.mapKeysV2(serviceUri, Arrays.asList(keys)), keys);
+  }
+}
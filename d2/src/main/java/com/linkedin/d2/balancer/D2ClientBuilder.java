@@ -73,7 +73,9 @@ public class D2ClientBuilder
                   _config.sslParameters,
                   _config.isSSLEnabled,
                   _config.shutdownAsynchronously,
-                  _config.clientServicesConfig);
+                  _config.clientServicesConfig,
+                  _config.eventPartitions,
+                  _config.binaryFileStores);
 
     final LoadBalancerWithFacilities loadBalancer = loadBalancerFactory.create(cfg);
 
@@ -169,6 +171,27 @@ public class D2ClientBuilder
     return this;
   }
 
+  /**
+   * Deliver the property events of different services and clusters concurrently, on the given
+   * number of partitions, instead of one at a time. 0, the default, keeps a single event thread.
+   */
+  public D2ClientBuilder setEventPartitions(int eventPartitions)
+  {
+    _config.eventPartitions = eventPartitions;
+    return this;
+  }
+
+  /**
+   * Write the backup file stores in a compact binary form, which is faster to read back, in their
+   * own directory under the fs base path. The json file stores, the default, are left for the
+   * other clients sharing the fs base path, which may not parse the binary form.
+   */
+  public D2ClientBuilder setBinaryFileStores(boolean binaryFileStores)
+  {
+    _config.binaryFileStores = binaryFileStores;
+    return this;
+  }
+
   /**
    * Specify {@link TransportClientFactory} to generate the client for specific protocol.
    * Caller is responsible to maintain the life cycle of the factories.
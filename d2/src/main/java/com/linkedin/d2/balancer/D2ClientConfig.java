@@ -44,6 +44,8 @@ public class D2ClientConfig
   boolean isSSLEnabled = false;
   boolean shutdownAsynchronously = false;
   Map<String, Map<String, Object>> clientServicesConfig = Collections.<String, Map<String, Object>>emptyMap();
+  int eventPartitions = 0;
+  boolean binaryFileStores = false;
 
   public D2ClientConfig()
   {
@@ -134,6 +136,82 @@ public class D2ClientConfig
                         boolean isSSLEnabled,
                         boolean shutdownAsynchronously,
                         Map<String, Map<String, Object>> clientServicesConfig)
+  {
+    this(zkHosts,
+         zkSessionTimeoutInMs,
+         zkStartupTimeoutInMs,
+         lbWaitTimeout,
+         lbWaitUnit,
+         flagFile,
+         basePath,
+         fsBasePath,
+         componentFactory,
+         clientFactories,
+         lbWithFacilitiesFactory,
+         sslContext,
+         sslParameters,
+         isSSLEnabled,
+         shutdownAsynchronously,
+         clientServicesConfig,
+         0);
+  }
+
+  public D2ClientConfig(String zkHosts,
+                        long zkSessionTimeoutInMs,
+                        long zkStartupTimeoutInMs,
+                        long lbWaitTimeout,
+                        TimeUnit lbWaitUnit,
+                        String flagFile,
+                        String basePath,
+                        String fsBasePath,
+                        ComponentFactory componentFactory,
+                        Map<String, TransportClientFactory> clientFactories,
+                        LoadBalancerWithFacilitiesFactory lbWithFacilitiesFactory,
+                        SSLContext sslContext,
+                        SSLParameters sslParameters,
+                        boolean isSSLEnabled,
+                        boolean shutdownAsynchronously,
+                        Map<String, Map<String, Object>> clientServicesConfig,
+                        int eventPartitions)
+  {
+    this(zkHosts,
+         zkSessionTimeoutInMs,
+         zkStartupTimeoutInMs,
+         lbWaitTimeout,
+         lbWaitUnit,
+         flagFile,
+         basePath,
+         fsBasePath,
+         componentFactory,
+         clientFactories,
+         lbWithFacilitiesFactory,
+         sslContext,
+         sslParameters,
+         isSSLEnabled,
+         shutdownAsynchronously,
+         clientServicesConfig,
+         eventPartitions,
+         false);
+  }
+
+  public D2ClientConfig(String zkHosts,
+                        long zkSessionTimeoutInMs,
+                        long zkStartupTimeoutInMs,
+                        long lbWaitTimeout,
+                        TimeUnit lbWaitUnit,
+                        String flagFile,
+                        String basePath,
+                        String fsBasePath,
+                        ComponentFactory componentFactory,
+                        Map<String, TransportClientFactory> clientFactories,
+                        LoadBalancerWithFacilitiesFactory lbWithFacilitiesFactory,
+                        SSLContext sslContext,
+                        SSLParameters sslParameters,
+                        boolean isSSLEnabled,
+                        boolean shutdownAsynchronously,
+                        Map<String, Map<String, Object>> clientServicesConfig,
+                        int eventPartitions,
+                        boolean binaryFileStores)
   {
     this.zkHosts = zkHosts;
     this.zkSessionTimeoutInMs = zkSessionTimeoutInMs;
@@ -151,6 +229,8 @@ public class D2ClientConfig
     this.isSSLEnabled = isSSLEnabled;
     this.shutdownAsynchronously = shutdownAsynchronously;
     this.clientServicesConfig = clientServicesConfig;
+    this.eventPartitions = eventPartitions;
+    this.binaryFileStores = binaryFileStores;
   }
 
 }
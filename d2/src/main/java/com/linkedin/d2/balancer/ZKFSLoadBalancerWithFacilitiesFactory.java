@@ -75,7 +75,9 @@ public class ZKFSLoadBalancerWithFacilitiesFactory implements LoadBalancerWithFa
                                                    config.sslContext,
                                                    config.sslParameters,
                                                    config.isSSLEnabled,
-                                                   config.clientServicesConfig);
+                                                   config.clientServicesConfig,
+                                                   config.eventPartitions,
+                                                   config.binaryFileStores);
   }
 
   private Map<String, LoadBalancerStrategyFactory<? extends LoadBalancerStrategy>> createDefaultLoadBalancerStrategyFactories()
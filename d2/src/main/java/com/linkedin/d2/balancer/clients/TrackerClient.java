@@ -44,6 +44,7 @@ import com.linkedin.util.degrader.DegraderControl;
 import com.linkedin.util.degrader.DegraderImpl;
 import com.linkedin.util.degrader.DegraderImpl.Config;
 import com.linkedin.util.degrader.ErrorType;
+import com.linkedin.util.degrader.StripedCallTrackerImpl;
 import java.net.ConnectException;
 import java.nio.channels.ClosedChannelException;
 import org.slf4j.Logger;
@@ -86,13 +87,16 @@ public class TrackerClient implements LoadBalancerClient
     {
       _uri = uri;
       _wrappedClient = wrappedClient;
-      _callTracker = new CallTrackerImpl(interval, clock);
 
       if (config == null)
       {
         config = new Config();
       }
 
+      _callTracker = config.isStripedCallTracker() ?
+          new StripedCallTrackerImpl(interval, clock, config.isCallTimeHistogram()) :
+          new CallTrackerImpl(interval, clock, config.isCallTimeHistogram());
+
       config.setCallTracker(_callTracker);
       config.setClock(clock);
       // The overrideDropRate will be globally determined by the DegraderLoadBalancerStrategy.
@@ -0,0 +1,349 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.d2.balancer.properties;
+
+
+import com.linkedin.d2.balancer.util.JacksonUtil;
+import com.linkedin.d2.discovery.ByteBufferPropertySerializer;
+import com.linkedin.d2.discovery.PropertySerializationException;
+import com.linkedin.d2.discovery.PropertySerializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base class of the compact binary serializers of the d2 properties.<p/>
+ *
+ * The binary form starts with {@link #BINARY_FORMAT_HEADER}, which can not start a json
+ * document, followed by the version of the format. {@link #fromBytes(byte[])} reads the bytes
+ * without this header with the json serializer of the property, so that the properties written
+ * by the json serializers are still read. Readers of the json format can not read the binary
+ * form, so it should only be written where every reader uses a binary serializer, such as the
+ * local {@link com.linkedin.d2.discovery.stores.file.FileStore} of a client.
+ */
+public abstract class BinaryPropertySerializer<T> implements ByteBufferPropertySerializer<T>
+{
+  public static final byte BINARY_FORMAT_HEADER = (byte) 0xD2;
+  public static final byte BINARY_FORMAT_VERSION = 1;
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  // tags of the values written by writeValue
+  private static final byte NULL = 0;
+  private static final byte STRING = 1;
+  private static final byte INTEGER = 2;
+  private static final byte LONG = 3;
+  private static final byte DOUBLE = 4;
+  private static final byte BOOLEAN = 5;
+  private static final byte LIST = 6;
+  private static final byte MAP = 7;
+
+  private final PropertySerializer<T> _jsonSerializer;
+
+  /**
+   * @param jsonSerializer reads the properties which are not in the binary form.
+   */
+  protected BinaryPropertySerializer(PropertySerializer<T> jsonSerializer)
+  {
+    _jsonSerializer = jsonSerializer;
+  }
+
+  @Override
+  public byte[] toBytes(T property)
+  {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    try
+    {
+      out.writeByte(BINARY_FORMAT_HEADER);
+      out.writeByte(BINARY_FORMAT_VERSION);
+      write(property, out);
+      out.flush();
+    }
+    catch (IOException e)
+    {
+      throw new IllegalArgumentException("Unable to serialize property: " + property, e);
+    }
+    return bytes.toByteArray();
+  }
+
+  @Override
+  public T fromBytes(byte[] bytes) throws PropertySerializationException
+  {
+    if (bytes.length == 0 || bytes[0] != BINARY_FORMAT_HEADER)
+    {
+      return _jsonSerializer.fromBytes(bytes);
+    }
+    if (bytes.length < 2 || bytes[1] != BINARY_FORMAT_VERSION)
+    {
+      throw new PropertySerializationException("Unsupported binary property format version");
+    }
+
+    try
+    {
+      return read(new DataInputStream(new ByteArrayInputStream(bytes, 2, bytes.length - 2)));
+    }
+    catch (Exception e)
+    {
+      throw new PropertySerializationException(e);
+    }
+  }
+
+  /**
+   * Reads the binary form straight from the buffer; the json form is copied to an array for the
+   * json serializer.
+   */
+  @Override
+  public T fromBytes(ByteBuffer bytes) throws PropertySerializationException
+  {
+    if (!bytes.hasRemaining() || bytes.get(bytes.position()) != BINARY_FORMAT_HEADER)
+    {
+      byte[] json = new byte[bytes.remaining()];
+      bytes.get(json);
+      return _jsonSerializer.fromBytes(json);
+    }
+    if (bytes.remaining() < 2 || bytes.get(bytes.position() + 1) != BINARY_FORMAT_VERSION)
+    {
+      throw new PropertySerializationException("Unsupported binary property format version");
+    }
+
+    bytes.position(bytes.position() + 2);
+    try
+    {
+      return read(new DataInputStream(new ByteBufferInputStream(bytes)));
+    }
+    catch (Exception e)
+    {
+      throw new PropertySerializationException(e);
+    }
+  }
+
+  /**
+   * Writes the property, without the header.
+   */
+  protected abstract void write(T property, DataOutput out) throws IOException;
+
+  /**
+   * Reads a property written by {@link #write(Object, DataOutput)}.
+   */
+  protected abstract T read(DataInput in) throws IOException;
+
+  /**
+   * Writes a string, which may be null and longer than {@link DataOutput#writeUTF(String)}
+   * allows.
+   */
+  protected static void writeString(DataOutput out, String s) throws IOException
+  {
+    if (s == null)
+    {
+      out.writeInt(-1);
+    }
+    else
+    {
+      byte[] bytes = s.getBytes(UTF8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  protected static String readString(DataInput in) throws IOException
+  {
+    int length = in.readInt();
+    if (length < 0)
+    {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, UTF8);
+  }
+
+  /**
+   * Writes the map of a property serialized as json, which is read back by
+   * {@link #readMap(DataInput)} as the same map as the one the json serializer would parse.
+   */
+  protected static void writeJsonMap(DataOutput out, byte[] json) throws IOException
+  {
+    if (json == null)
+    {
+      throw new IllegalArgumentException("Unable to serialize the property to json");
+    }
+    writeValue(out, JacksonUtil.getObjectMapper().readValue(json, HashMap.class));
+  }
+
+  @SuppressWarnings("unchecked")
+  protected static Map<String, Object> readMap(DataInput in) throws IOException
+  {
+    return (Map<String, Object>) readValue(in);
+  }
+
+  /**
+   * Writes a value of a map parsed from json: a null, string, number, boolean, or a list or a
+   * map of such values.
+   */
+  protected static void writeValue(DataOutput out, Object value) throws IOException
+  {
+    if (value == null)
+    {
+      out.writeByte(NULL);
+    }
+    else if (value instanceof String)
+    {
+      out.writeByte(STRING);
+      writeString(out, (String) value);
+    }
+    else if (value instanceof Integer || value instanceof Short || value instanceof Byte)
+    {
+      out.writeByte(INTEGER);
+      out.writeInt(((Number) value).intValue());
+    }
+    else if (value instanceof Long)
+    {
+      out.writeByte(LONG);
+      out.writeLong((Long) value);
+    }
+    else if (value instanceof Number)
+    {
+      out.writeByte(DOUBLE);
+      out.writeDouble(((Number) value).doubleValue());
+    }
+    else if (value instanceof Boolean)
+    {
+      out.writeByte(BOOLEAN);
+      out.writeBoolean((Boolean) value);
+    }
+    else if (value instanceof List)
+    {
+      List<?> list = (List<?>) value;
+      out.writeByte(LIST);
+      out.writeInt(list.size());
+      for (Object element : list)
+      {
+        writeValue(out, element);
+      }
+    }
+    else if (value instanceof Map)
+    {
+      Map<?, ?> map = (Map<?, ?>) value;
+      out.writeByte(MAP);
+      out.writeInt(map.size());
+      for (Map.Entry<?, ?> entry : map.entrySet())
+      {
+        writeString(out, String.valueOf(entry.getKey()));
+        writeValue(out, entry.getValue());
+      }
+    }
+    else
+    {
+      throw new IllegalArgumentException("Unsupported property value type: " + value.getClass());
+    }
+  }
+
+  protected static Object readValue(DataInput in) throws IOException
+  {
+    byte tag = in.readByte();
+    switch (tag)
+    {
+      case NULL:
+        return null;
+      case STRING:
+        return readString(in);
+      case INTEGER:
+        return in.readInt();
+      case LONG:
+        return in.readLong();
+      case DOUBLE:
+        return in.readDouble();
+      case BOOLEAN:
+        return in.readBoolean();
+      case LIST:
+      {
+        int size = in.readInt();
+        List<Object> list = new ArrayList<Object>(size);
+        for (int i = 0; i < size; i++)
+        {
+          list.add(readValue(in));
+        }
+        return list;
+      }
+      case MAP:
+      {
+        int size = in.readInt();
+        Map<String, Object> map = new HashMap<String, Object>(size * 2);
+        for (int i = 0; i < size; i++)
+        {
+          String key = readString(in);
+          map.put(key, readValue(in));
+        }
+        return map;
+      }
+      default:
+        throw new IOException("Unknown property value tag: " + tag);
+    }
+  }
+
+  private static class ByteBufferInputStream extends InputStream
+  {
+    private final ByteBuffer _buffer;
+
+    private ByteBufferInputStream(ByteBuffer buffer)
+    {
+      _buffer = buffer;
+    }
+
+    @Override
+    public int read()
+    {
+      return _buffer.hasRemaining() ? _buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len)
+    {
+      if (len == 0)
+      {
+        return 0;
+      }
+      if (!_buffer.hasRemaining())
+      {
+        return -1;
+      }
+      int count = Math.min(len, _buffer.remaining());
+      _buffer.get(b, off, count);
+      return count;
+    }
+
+    @Override
+    public int available()
+    {
+      return _buffer.remaining();
+    }
+  }
+}
@@ -0,0 +1,56 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.d2.balancer.properties;
+
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Binary serializer of the {@link ClusterProperties}, which writes the map of the json form of the
+ * properties, so that it is read without parsing json. Reads the json form with
+ * {@link ClusterPropertiesJsonSerializer}.
+ */
+public class ClusterPropertiesBinarySerializer extends BinaryPropertySerializer<ClusterProperties>
+{
+  private final ClusterPropertiesJsonSerializer _jsonSerializer;
+
+  public ClusterPropertiesBinarySerializer()
+  {
+    this(new ClusterPropertiesJsonSerializer());
+  }
+
+  private ClusterPropertiesBinarySerializer(ClusterPropertiesJsonSerializer jsonSerializer)
+  {
+    super(jsonSerializer);
+    _jsonSerializer = jsonSerializer;
+  }
+
+  @Override
+  protected void write(ClusterProperties property, DataOutput out) throws IOException
+  {
+    writeJsonMap(out, _jsonSerializer.toBytes(property));
+  }
+
+  @Override
+  protected ClusterProperties read(DataInput in) throws IOException
+  {
+    return _jsonSerializer.fromMap(readMap(in));
+  }
+}
@@ -48,6 +48,8 @@ public class PropertyKeys
   public static final String DEGRADER_LOW_OUTSTANDING = "degrader.lowOutstanding";
   public static final String DEGRADER_MIN_OUTSTANDING_COUNT = "degrader.minOutstandingCount";
   public static final String DEGRADER_OVERRIDE_MIN_CALL_COUNT = "degrader.overrideMinCallCount";
+  public static final String DEGRADER_STRIPED_CALL_TRACKER = "degrader.stripedCallTracker";
+  public static final String DEGRADER_CALL_TIME_HISTOGRAM = "degrader.callTimeHistogram";
 
   //used by service properties
   public static final String PATH = "path";
@@ -69,6 +71,7 @@ public class PropertyKeys
   //load balancer specific properties to replace the old ones
   public static final String HTTP_LB_HASH_METHOD = "http.loadBalancer.hashMethod";
   public static final String HTTP_LB_HASH_CONFIG = "http.loadBalancer.hashConfig";
+  public static final String HTTP_LB_CONSISTENT_HASH_ALGORITHM = "http.loadBalancer.consistentHashAlgorithm";
   public static final String HTTP_LB_STRATEGY_PROPERTIES_UPDATE_INTERVAL_MS = "http.loadBalancer.updateIntervalMs";
   public static final String HTTP_LB_STRATEGY_PROPERTIES_MAX_CLUSTER_LATENCY_WITHOUT_DEGRADING = "http.loadBalancer.maxClusterLatencyWithoutDegrading";
   public static final String HTTP_LB_STRATEGY_PROPERTIES_DEFAULT_SUCCESSFUL_TRANSMISSION_WEIGHT = "http.loadBalancer.defaultSuccessfulTransmissionWeight";
@@ -108,6 +111,10 @@ public class PropertyKeys
   public static final String HTTP_SSL_PARAMS = HttpClientFactory.HTTP_SSL_PARAMS;
   public static final String HTTP_RESPONSE_COMPRESSION_OPERATIONS = HttpClientFactory.HTTP_RESPONSE_COMPRESSION_OPERATIONS;
   public static final String HTTP_QUERY_POST_THRESHOLD = HttpClientFactory.HTTP_QUERY_POST_THRESHOLD;
+  public static final String HTTP_MAX_PIPELINED_REQUESTS = HttpClientFactory.HTTP_MAX_PIPELINED_REQUESTS;
+  public static final String HTTP_POOL_SHARDS = HttpClientFactory.HTTP_POOL_SHARDS;
+  public static final String HTTP_MAX_CONCURRENT_REQUESTS = HttpClientFactory.HTTP_MAX_CONCURRENT_REQUESTS;
+  public static final String HTTP_STREAMING_TIMEOUT = HttpClientFactory.HTTP_STREAMING_TIMEOUT;
 
   //used for multi colo
   public static final String DEFAULT_COLO = "defaultColo";
@@ -0,0 +1,77 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.d2.balancer.properties;
+
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Binary serializer of the {@link UriProperties}, which writes the partition data of each uri
+ * directly rather than as json maps. Reads the json form with {@link UriPropertiesJsonSerializer}.
+ */
+public class UriPropertiesBinarySerializer extends BinaryPropertySerializer<UriProperties>
+{
+  public UriPropertiesBinarySerializer()
+  {
+    super(new UriPropertiesJsonSerializer());
+  }
+
+  @Override
+  protected void write(UriProperties property, DataOutput out) throws IOException
+  {
+    writeString(out, property.getClusterName());
+    Map<URI, Map<Integer, PartitionData>> partitionDesc = property.getPartitionDesc();
+    out.writeInt(partitionDesc.size());
+    for (Map.Entry<URI, Map<Integer, PartitionData>> entry : partitionDesc.entrySet())
+    {
+      writeString(out, entry.getKey().toString());
+      out.writeInt(entry.getValue().size());
+      for (Map.Entry<Integer, PartitionData> partitionEntry : entry.getValue().entrySet())
+      {
+        out.writeInt(partitionEntry.getKey());
+        out.writeDouble(partitionEntry.getValue().getWeight());
+      }
+    }
+  }
+
+  @Override
+  protected UriProperties read(DataInput in) throws IOException
+  {
+    String clusterName = readString(in);
+    int uriCount = in.readInt();
+    Map<URI, Map<Integer, PartitionData>> partitionDesc = new HashMap<URI, Map<Integer, PartitionData>>(uriCount * 2);
+    for (int i = 0; i < uriCount; i++)
+    {
+      URI uri = URI.create(readString(in));
+      int partitionCount = in.readInt();
+      Map<Integer, PartitionData> partitionDataMap = new HashMap<Integer, PartitionData>(partitionCount * 2);
+      for (int j = 0; j < partitionCount; j++)
+      {
+        int partitionId = in.readInt();
+        partitionDataMap.put(partitionId, new PartitionData(in.readDouble()));
+      }
+      partitionDesc.put(uri, partitionDataMap);
+    }
+    return new UriProperties(clusterName, partitionDesc);
+  }
+}
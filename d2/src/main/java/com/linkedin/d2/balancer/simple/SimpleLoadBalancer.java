@@ -35,8 +35,9 @@ import com.linkedin.d2.balancer.properties.UriProperties;
 import com.linkedin.d2.balancer.strategies.LoadBalancerStrategy;
 import com.linkedin.d2.balancer.util.ClientFactoryProvider;
 import com.linkedin.d2.balancer.util.LoadBalancerUtil;
+import com.linkedin.d2.balancer.util.MapKeyIndexResult;
 import com.linkedin.d2.balancer.util.MapKeyResult;
-import com.linkedin.d2.balancer.util.hashing.HashRingProvider;
+import com.linkedin.d2.balancer.util.hashing.AbstractHashRingProvider;
 import com.linkedin.d2.balancer.util.hashing.Ring;
 import com.linkedin.d2.balancer.util.partitions.PartitionAccessException;
 import com.linkedin.d2.balancer.util.partitions.PartitionAccessor;
@@ -67,7 +68,7 @@ import static com.linkedin.d2.discovery.util.LogUtil.debug;
 import static com.linkedin.d2.discovery.util.LogUtil.info;
 import static com.linkedin.d2.discovery.util.LogUtil.warn;
 
-public class SimpleLoadBalancer implements LoadBalancer, HashRingProvider, ClientFactoryProvider
+public class SimpleLoadBalancer extends AbstractHashRingProvider implements LoadBalancer, ClientFactoryProvider
 {
   private static final Logger     _log =
                                            LoggerFactory.getLogger(SimpleLoadBalancer.class);
@@ -301,6 +302,62 @@ public class SimpleLoadBalancer implements LoadBalancer, HashRingProvider, Clien
     }
   }
 
+  @Override
+  public <K> MapKeyIndexResult<Ring<URI>> getRingIndexes(URI serviceUri, K[] keys) throws ServiceUnavailableException
+  {
+    ServiceProperties service = listenToServiceAndCluster(serviceUri);
+    String serviceName = service.getServiceName();
+    String clusterName = service.getClusterName();
+    ClusterProperties cluster = getClusterProperties(serviceName, clusterName);
+    LoadBalancerStateItem<UriProperties> uriItem = getUriItem(serviceName, clusterName, cluster);
+    UriProperties uris = uriItem.getProperty();
+
+    List<LoadBalancerState.SchemeStrategyPair> orderedStrategies =
+        _state.getStrategiesForService(serviceName, service.getPrioritizedSchemes());
+
+    if (! orderedStrategies.isEmpty())
+    {
+      LoadBalancerState.SchemeStrategyPair pair = orderedStrategies.get(0);
+      PartitionAccessor accessor = getPartitionAccessor(serviceName, clusterName);
+
+      // distribute keys to the rings of their partitions, creating each ring once
+      List<Ring<URI>> rings = new ArrayList<Ring<URI>>();
+      Map<Integer, Integer> partitionRingIndexes = new HashMap<Integer, Integer>();
+      int[] keyRings = new int[keys.length];
+      MapKeyResult.ErrorType[] keyErrorTypes = new MapKeyResult.ErrorType[keys.length];
+      for (int i = 0; i < keys.length; i++)
+      {
+        int partitionId;
+        try
+        {
+          partitionId = accessor.getPartitionId(keys[i].toString());
+        }
+        catch (PartitionAccessException e)
+        {
+          keyRings[i] = -1;
+          keyErrorTypes[i] = MapKeyResult.ErrorType.FAIL_TO_FIND_PARTITION;
+          continue;
+        }
+
+        Integer ringIndex = partitionRingIndexes.get(partitionId);
+        if (ringIndex == null)
+        {
+          List<TrackerClient> clients = getPotentialClients(serviceName, service, uris, pair.getScheme(), partitionId);
+          ringIndex = rings.size();
+          rings.add(pair.getStrategy().getRing(uriItem.getVersion(), partitionId, clients));
+          partitionRingIndexes.put(partitionId, ringIndex);
+        }
+        keyRings[i] = ringIndex;
+      }
+
+      return new MapKeyIndexResult<Ring<URI>>(rings, keyRings, keyErrorTypes);
+    }
+    else
+    {
+      throw new ServiceUnavailableException(serviceName, "Unable to find a load balancer strategy");
+    }
+  }
+
   private void listenToService(String serviceName)
           throws ServiceUnavailableException
   {
@@ -39,12 +39,15 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -104,6 +107,13 @@ public class SimpleLoadBalancerState implements LoadBalancerState, ClientFactory
   private final List<SimpleLoadBalancerStateListener>                                    _listeners;
 
   private volatile long                                                                  _delayedExecution;
+
+  /**
+   * Map from cluster name => lock held by the event bus callbacks updating the state of the
+   * cluster or of its services.
+   */
+  private final ConcurrentMap<String, Lock>                                              _clusterLocks =
+      new ConcurrentHashMap<String, Lock>();
   /**
    * Map from service name => uri => tracker client.
    */
@@ -191,8 +201,11 @@ public class SimpleLoadBalancerState implements LoadBalancerState, ClientFactory
    *
    * Immutable: _clientFactories _loadBalancerStrategyFactories
    *
-   * All event bus callbacks occur on a single thread. The following are mutated only
-   * within event bus callbacks, but may be read from any thread at any time:
+   * The event bus callbacks of a property occur one at a time, but the buses may deliver
+   * the events of different properties concurrently (see PartitionedPropertyEventExecutor).
+   * The callbacks updating the uris or the services of a cluster hold the lock of the
+   * cluster in _clusterLocks. The following are mutated only within event bus callbacks,
+   * but may be read from any thread at any time:
    * _uriProperties _clusterProperties _serviceProperties _servicesPerCluster
    * _trackerClients _serviceStrategies
    */
@@ -767,7 +780,7 @@ public class SimpleLoadBalancerState implements LoadBalancerState, ClientFactory
     {
       trace(_log, _name, ".onAdd: ", propertyName, ": ", propertyValue);
 
-      handlePut(propertyName, propertyValue);
+      lockedHandlePut(propertyName, propertyValue);
 
       // if bad properties are received, then onInitialize()::handlePut might throw an exception and
       // the queue might not be closed. If the queue is not closed, then even if the underlying
@@ -790,7 +803,7 @@ public class SimpleLoadBalancerState implements LoadBalancerState, ClientFactory
     {
       trace(_log, _name, ".onInitialize: ", propertyName, ": ", propertyValue);
 
-      handlePut(propertyName, propertyValue);
+      lockedHandlePut(propertyName, propertyValue);
 
       for (LoadBalancerStateListenerCallback waiter : _waiters.get(propertyName).close())
       {
@@ -803,7 +816,15 @@ public class SimpleLoadBalancerState implements LoadBalancerState, ClientFactory
     {
       trace(_log, _name, ".onRemove: ", propertyName);
 
-      handleRemove(propertyName);
+      List<Lock> locks = lockClusters(getClusterNames(propertyName, null));
+      try
+      {
+        handleRemove(propertyName);
+      }
+      finally
+      {
+        unlock(locks);
+      }
 
       // if we are removing this property, ensure that its corresponding queue is closed and
       // remove it's entry from _waiters. We are invoking down on the callbacks to indicate we
@@ -819,6 +840,28 @@ public class SimpleLoadBalancerState implements LoadBalancerState, ClientFactory
       }
     }
 
+    private void lockedHandlePut(String propertyName, T propertyValue)
+    {
+      List<Lock> locks = lockClusters(getClusterNames(propertyName, propertyValue));
+      try
+      {
+        handlePut(propertyName, propertyValue);
+      }
+      finally
+      {
+        unlock(locks);
+      }
+    }
+
+    /**
+     * @return the names of the clusters whose state is updated by the event, locked while the
+     *         event is handled. The property value is null for a remove.
+     */
+    protected String[] getClusterNames(String propertyName, T propertyValue)
+    {
+      return new String[0];
+    }
+
     protected abstract void handlePut(String propertyName, T propertyValue);
 
     protected abstract void handleRemove(String name);
@@ -832,13 +875,21 @@ public class SimpleLoadBalancerState implements LoadBalancerState, ClientFactory
       super(LoadBalancerStateListenerCallback.CLUSTER, uPropertyEventBus);
     }
 
+    @Override
+    protected String[] getClusterNames(String listenTo, UriProperties discoveryProperties)
+    {
+      return new String[] { listenTo };
+    }
+
     @Override
     protected void handlePut(final String listenTo, final UriProperties discoveryProperties)
     {
-      // add tracker clients for uris that we aren't already tracking
+      // add tracker clients for uris that we aren't already tracking, and replace the tracker
+      // clients of the uris whose partitions or weights changed
       if (discoveryProperties != null)
       {
         String clusterName = discoveryProperties.getClusterName();
+        Set<URI> reweightedUris = getReweightedUris(_uriProperties.get(listenTo), discoveryProperties);
 
         Set<String> serviceNames = _servicesPerCluster.get(clusterName);
         //updates all the services that these uris provide
@@ -871,7 +922,7 @@ public class SimpleLoadBalancerState implements LoadBalancerState, ClientFactory
             long trackerClientInterval = getTrackerClientInterval (serviceProperties.getProperty());
             for (URI uri : discoveryProperties.Uris())
             {
-              if (!trackerClients.containsKey(uri))
+              if (!trackerClients.containsKey(uri) || reweightedUris.contains(uri))
               {
                 TrackerClient client = getTrackerClient(serviceName,
                     uri,
@@ -891,7 +942,16 @@ public class SimpleLoadBalancerState implements LoadBalancerState, ClientFactory
                     listener.onClientAdded(serviceName, client);
                   }
 
-                  trackerClients.put(uri, client);
+                  TrackerClient oldClient = trackerClients.put(uri, client);
+                  if (oldClient != null)
+                  {
+                    info(_log, "replaced reweighted tracker client: ", oldClient);
+
+                    for (SimpleLoadBalancerStateListener listener : _listeners)
+                    {
+                      listener.onClientRemoved(serviceName, oldClient);
+                    }
+                  }
                 }
               }
             }
@@ -950,6 +1010,30 @@ public class SimpleLoadBalancerState implements LoadBalancerState, ClientFactory
       }
     }
 
+    /**
+     * Returns the uris of the new properties whose partition data differs from their partition
+     * data in the old properties. The uris which were added or removed are not included.
+     */
+    private Set<URI> getReweightedUris(LoadBalancerStateItem<UriProperties> oldItem, UriProperties newProperties)
+    {
+      if (oldItem == null || oldItem.getProperty() == null)
+      {
+        return Collections.emptySet();
+      }
+
+      UriProperties oldProperties = oldItem.getProperty();
+      Set<URI> reweightedUris = new HashSet<URI>();
+      for (URI uri : newProperties.Uris())
+      {
+        Map<Integer, PartitionData> oldPartitionData = oldProperties.getPartitionDataMap(uri);
+        if (oldPartitionData != null && !oldPartitionData.equals(newProperties.getPartitionDataMap(uri)))
+        {
+          reweightedUris.add(uri);
+        }
+      }
+      return reweightedUris;
+    }
+
     @Override
     protected void handleRemove(final String listenTo)
     {
@@ -959,6 +1043,48 @@ public class SimpleLoadBalancerState implements LoadBalancerState, ClientFactory
     }
   }
 
+  /**
+   * Locks the given clusters, in name order so that two handlers locking the same clusters
+   * cannot deadlock. The null names are ignored.
+   */
+  private List<Lock> lockClusters(String[] clusterNames)
+  {
+    Set<String> names = new TreeSet<String>();
+    for (String clusterName : clusterNames)
+    {
+      if (clusterName != null)
+      {
+        names.add(clusterName);
+      }
+    }
+
+    List<Lock> locks = new ArrayList<Lock>(names.size());
+    for (String name : names)
+    {
+      Lock lock = _clusterLocks.get(name);
+      if (lock == null)
+      {
+        Lock newLock = new ReentrantLock();
+        lock = _clusterLocks.putIfAbsent(name, newLock);
+        if (lock == null)
+        {
+          lock = newLock;
+        }
+      }
+      lock.lock();
+      locks.add(lock);
+    }
+    return locks;
+  }
+
+  private static void unlock(List<Lock> locks)
+  {
+    for (int i = locks.size() - 1; i >= 0; i--)
+    {
+      locks.get(i).unlock();
+    }
+  }
+
   private void removeTrackerClients(String clusterName)
   {
     // uri properties was null, so remove all tracker clients
@@ -1024,6 +1150,17 @@ public class SimpleLoadBalancerState implements LoadBalancerState, ClientFactory
       super(LoadBalancerStateListenerCallback.SERVICE, eventBus);
     }
 
+    @Override
+    protected String[] getClusterNames(String listenTo, ServiceProperties discoveryProperties)
+    {
+      // a service moving to another cluster updates the state of both clusters
+      LoadBalancerStateItem<ServiceProperties> oldServicePropertiesItem = _serviceProperties.get(listenTo);
+      return new String[] {
+          oldServicePropertiesItem == null || oldServicePropertiesItem.getProperty() == null ?
+              null : oldServicePropertiesItem.getProperty().getClusterName(),
+          discoveryProperties == null ? null : discoveryProperties.getClusterName() };
+    }
+
     @Override
     protected void handlePut(final String listenTo, final ServiceProperties discoveryProperties)
     {
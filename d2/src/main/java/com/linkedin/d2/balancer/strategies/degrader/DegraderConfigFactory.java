@@ -114,6 +114,14 @@ public class DegraderConfigFactory
       config.setOverrideMinCallCount(MapUtil.getWithDefault(properties,
                                                             PropertyKeys.DEGRADER_OVERRIDE_MIN_CALL_COUNT,
                                                             DegraderImpl.DEFAULT_OVERRIDE_MIN_CALL_COUNT));
+
+      config.setStripedCallTracker(MapUtil.getWithDefault(properties,
+                                                          PropertyKeys.DEGRADER_STRIPED_CALL_TRACKER,
+                                                          DegraderImpl.DEFAULT_STRIPED_CALL_TRACKER));
+
+      config.setCallTimeHistogram(MapUtil.getWithDefault(properties,
+                                                         PropertyKeys.DEGRADER_CALL_TIME_HISTOGRAM,
+                                                         DegraderImpl.DEFAULT_CALL_TIME_HISTOGRAM));
     }
     return config;
   }
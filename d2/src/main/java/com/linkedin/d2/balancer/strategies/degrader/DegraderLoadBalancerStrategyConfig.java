@@ -33,6 +33,7 @@ public class DegraderLoadBalancerStrategyConfig
   private final int    _pointsPerWeight;
   private final String _hashMethod;
   private final Map<String,Object> _hashConfig;
+  private final String _consistentHashAlgorithm;
   private final Clock _clock;
   private static final Logger _log = LoggerFactory.getLogger(DegraderLoadBalancerStrategyConfig.class);
 
@@ -100,7 +101,8 @@ public class DegraderLoadBalancerStrategyConfig
          config.getGlobalStepUp(),
          config.getGlobalStepDown(),
          config.getMinClusterCallCountHighWaterMark(),
-         config.getMinClusterCallCountLowWaterMark());
+         config.getMinClusterCallCountLowWaterMark(),
+         config.getConsistentHashAlgorithm());
   }
 
   public DegraderLoadBalancerStrategyConfig(long updateIntervalMs,
@@ -116,6 +118,26 @@ public class DegraderLoadBalancerStrategyConfig
                                             double globalStepDown,
                                             long minCallCountHighWaterMark,
                                             long minCallCountLowWaterMark)
+  {
+    this(updateIntervalMs, pointsPerWeight, hashMethod, hashConfig, clock, initialRecoveryLevel, ringRampFactor,
+         highWaterMark, lowWaterMark, globalStepUp, globalStepDown, minCallCountHighWaterMark,
+         minCallCountLowWaterMark, null);
+  }
+
+  public DegraderLoadBalancerStrategyConfig(long updateIntervalMs,
+                                            int pointsPerWeight,
+                                            String hashMethod,
+                                            Map<String,Object> hashConfig,
+                                            Clock clock,
+                                            double initialRecoveryLevel,
+                                            double ringRampFactor,
+                                            double highWaterMark,
+                                            double lowWaterMark,
+                                            double globalStepUp,
+                                            double globalStepDown,
+                                            long minCallCountHighWaterMark,
+                                            long minCallCountLowWaterMark,
+                                            String consistentHashAlgorithm)
   {
     _updateIntervalMs = updateIntervalMs;
     _pointsPerWeight = pointsPerWeight;
@@ -130,6 +152,7 @@ public class DegraderLoadBalancerStrategyConfig
     _globalStepDown = globalStepDown;
     _minClusterCallCountHighWaterMark = minCallCountHighWaterMark;
     _minClusterCallCountLowWaterMark = minCallCountLowWaterMark;
+    _consistentHashAlgorithm = consistentHashAlgorithm;
   }
 
   /**
@@ -164,6 +187,9 @@ public class DegraderLoadBalancerStrategyConfig
 
     String hashMethod = MapUtil.getWithDefault(map, PropertyKeys.HTTP_LB_HASH_METHOD, null, String.class);
 
+    String consistentHashAlgorithm = MapUtil.getWithDefault(map, PropertyKeys.HTTP_LB_CONSISTENT_HASH_ALGORITHM,
+                                                            null, String.class);
+
     Long minClusterCallCountHighWaterMark = MapUtil.getWithDefault(map, PropertyKeys.HTTP_LB_CLUSTER_MIN_CALL_COUNT_HIGH_WATER_MARK,
                                                       DEFAULT_CLUSTER_MIN_CALL_COUNT_HIGH_WATER_MARK, Long.class);
 
@@ -198,7 +224,7 @@ public class DegraderLoadBalancerStrategyConfig
         updateIntervalMs, pointsPerWeight, hashMethod, hashConfig,
         clock, initialRecoveryLevel, ringRampFactor, highWaterMark, lowWaterMark,
         globalStepUp, globalStepDown, minClusterCallCountHighWaterMark,
-        minClusterCallCountLowWaterMark);
+        minClusterCallCountLowWaterMark, consistentHashAlgorithm);
   }
 
   /**
@@ -232,6 +258,14 @@ public class DegraderLoadBalancerStrategyConfig
     return _hashConfig;
   }
 
+  /**
+   * @return The algorithm of the consistent hash ring, null for the default MD5 ring.
+   */
+  public String getConsistentHashAlgorithm()
+  {
+    return _consistentHashAlgorithm;
+  }
+
   public long getMinClusterCallCountLowWaterMark()
   {
     return _minClusterCallCountLowWaterMark;
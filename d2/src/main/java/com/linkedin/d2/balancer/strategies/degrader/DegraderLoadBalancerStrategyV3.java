@@ -19,8 +19,10 @@ package com.linkedin.d2.balancer.strategies.degrader;
 import com.linkedin.d2.balancer.KeyMapper;
 import com.linkedin.d2.balancer.clients.TrackerClient;
 import com.linkedin.d2.balancer.strategies.LoadBalancerStrategy;
+import com.linkedin.d2.balancer.util.hashing.BucketedConsistentHashRing;
 import com.linkedin.d2.balancer.util.hashing.ConsistentHashRing;
 import com.linkedin.d2.balancer.util.hashing.HashFunction;
+import com.linkedin.d2.balancer.util.hashing.KeyHashingRing;
 import com.linkedin.d2.balancer.util.hashing.RandomHash;
 import com.linkedin.d2.balancer.util.hashing.Ring;
 import com.linkedin.d2.balancer.util.hashing.URIRegexHash;
@@ -62,6 +64,8 @@ public class DegraderLoadBalancerStrategyV3 implements LoadBalancerStrategy
 {
   public static final String HASH_METHOD_NONE = "none";
   public static final String HASH_METHOD_URI_REGEX = "uriRegex";
+  public static final String CONSISTENT_HASH_ALGORITHM_MD5 = "md5";
+  public static final String CONSISTENT_HASH_ALGORITHM_MURMUR3 = "murmur3";
   public static final double EPSILON = 10e-6;
 
   private static final Logger                         _log =
@@ -117,13 +121,10 @@ public class DegraderLoadBalancerStrategyV3 implements LoadBalancerStrategy
     //no valid target host header was found in the request
     if (targetHostUri == null)
     {
-      // Compute the hash code
-      int hashCode = _hashFunction.hash(request);
-
       // we operate only on URIs to ensure that we never hold on to an old tracker client
       // that the cluster manager has removed
       Ring<URI> ring = _state.getRing(partitionId);
-      targetHostUri = (ring == null) ? null : ring.get(hashCode);
+      targetHostUri = (ring == null) ? null : ring.get(hash(request, ring));
     }
     else
     {
@@ -605,7 +606,9 @@ public class DegraderLoadBalancerStrategyV3 implements LoadBalancerStrategy
                                         newRecoveryMap,
                                         oldState.getServiceName(),
                                         oldState.getDegraderProperties(),
-                                        totalClusterCallCount);
+                                        totalClusterCallCount,
+                                        config.getConsistentHashAlgorithm(),
+                                        oldState);
 
       logState(oldState, newState, partitionId, config, trackerClientUpdaters);
     }
@@ -679,7 +682,9 @@ public class DegraderLoadBalancerStrategyV3 implements LoadBalancerStrategy
                                             oldRecoveryMap,
                                             oldState.getServiceName(),
                                             oldState.getDegraderProperties(),
-                                            oldState.getCurrentClusterCallCount());
+                                            oldState.getCurrentClusterCallCount(),
+                                            config.getConsistentHashAlgorithm(),
+                                            oldState);
 
       logState(oldState, newState, partitionId, config, trackerClientUpdaters);
 
@@ -795,6 +800,22 @@ public class DegraderLoadBalancerStrategyV3 implements LoadBalancerStrategy
     return _state;
   }
 
+  /**
+   * Hashes the request for the given ring. The key tokens of a ring with its own key hash
+   * function are hashed with it, so that a key is mapped to the same host as by
+   * {@link com.linkedin.d2.balancer.util.hashing.ConsistentHashKeyMapper}.
+   */
+  @SuppressWarnings("unchecked")
+  private int hash(Request request, Ring<URI> ring)
+  {
+    HashFunction<Request> hashFunction = _hashFunction;
+    if (ring instanceof KeyHashingRing && hashFunction instanceof URIRegexHash)
+    {
+      return ((URIRegexHash) hashFunction).hash(request, ((KeyHashingRing<URI>) ring).getKeyHashFunction());
+    }
+    return hashFunction.hash(request);
+  }
+
   public DegraderLoadBalancerStrategyConfig getConfig()
   {
     return _config;
@@ -818,6 +839,41 @@ public class DegraderLoadBalancerStrategyV3 implements LoadBalancerStrategy
       _log.warn("Unknown hash method {}, falling back to random", hashMethod);
       _hashFunction = new RandomHash();
     }
+    String consistentHashAlgorithm = _config.getConsistentHashAlgorithm();
+    if (consistentHashAlgorithm != null && !CONSISTENT_HASH_ALGORITHM_MD5.equals(consistentHashAlgorithm)
+        && !CONSISTENT_HASH_ALGORITHM_MURMUR3.equals(consistentHashAlgorithm))
+    {
+      _log.warn("Unknown consistent hash algorithm {}, falling back to md5", consistentHashAlgorithm);
+    }
+  }
+
+  /**
+   * Creates the ring of a new state. The ring of the previous state is reused when the points
+   * are unchanged, and an md5 ring is built from the previous one otherwise, so that only the
+   * points of the hosts that were added or reweighted are hashed.
+   */
+  @SuppressWarnings("unchecked")
+  private static Ring<URI> createRing(String consistentHashAlgorithm, Map<URI, Integer> pointsMap,
+                                      PartitionDegraderLoadBalancerState previousState)
+  {
+    Ring<URI> previousRing = previousState != null ? previousState._ring : null;
+    if (CONSISTENT_HASH_ALGORITHM_MURMUR3.equals(consistentHashAlgorithm))
+    {
+      if (previousRing instanceof BucketedConsistentHashRing && previousState._pointsMap.equals(pointsMap))
+      {
+        return previousRing;
+      }
+      return new BucketedConsistentHashRing<URI>(pointsMap);
+    }
+    if (previousRing instanceof ConsistentHashRing)
+    {
+      if (previousState._pointsMap.equals(pointsMap))
+      {
+        return previousRing;
+      }
+      return new ConsistentHashRing<URI>(pointsMap, (ConsistentHashRing<URI>) previousRing);
+    }
+    return new ConsistentHashRing<URI>(pointsMap);
   }
 
   @Override
@@ -859,7 +915,9 @@ public class DegraderLoadBalancerStrategyV3 implements LoadBalancerStrategy
                                              oldState.getRecoveryMap(),
                                              oldState.getServiceName(),
                                              oldState.getDegraderProperties(),
-                                             oldState.getCurrentClusterCallCount());
+                                             oldState.getCurrentClusterCallCount(),
+                                             _config.getConsistentHashAlgorithm(),
+                                             oldState);
 
     partition.setState(newState);
   }
@@ -958,7 +1016,7 @@ public class DegraderLoadBalancerStrategyV3 implements LoadBalancerStrategy
                                                                    0, 0,
                                                                    new HashMap<TrackerClient, Double>(),
                                                                    _serviceName, _degraderProperties,
-                                                                   0));
+                                                                   0, _config.getConsistentHashAlgorithm()));
         Partition oldValue = _partitions.putIfAbsent(partitionId, newValue);
         if (oldValue == null)
           partition = newValue;
@@ -1072,9 +1130,55 @@ public class DegraderLoadBalancerStrategyV3 implements LoadBalancerStrategy
                                          String serviceName,
                                          Map<String, String> degraderProperties,
                                          long currentClusterCallCount)
+    {
+      this(clusterGenerationId, lastUpdated, initState, pointsMap, strategy, currentOverrideDropRate,
+           currentAvgClusterLatency, recoveryMap, serviceName, degraderProperties, currentClusterCallCount, null);
+    }
+
+    /**
+     * @param consistentHashAlgorithm of the ring built from the points map, see
+     *                                {@link DegraderLoadBalancerStrategyConfig#getConsistentHashAlgorithm()}.
+     */
+    public PartitionDegraderLoadBalancerState(long clusterGenerationId,
+                                         long lastUpdated,
+                                         boolean initState,
+                                         Map<URI,Integer> pointsMap,
+                                         Strategy strategy,
+                                         double currentOverrideDropRate,
+                                         double currentAvgClusterLatency,
+                                         Map<TrackerClient,Double> recoveryMap,
+                                         String serviceName,
+                                         Map<String, String> degraderProperties,
+                                         long currentClusterCallCount,
+                                         String consistentHashAlgorithm)
+    {
+      this(clusterGenerationId, lastUpdated, initState, pointsMap, strategy, currentOverrideDropRate,
+           currentAvgClusterLatency, recoveryMap, serviceName, degraderProperties, currentClusterCallCount,
+           consistentHashAlgorithm, null);
+    }
+
+    /**
+     * @param previousState the state replaced by this state, whose ring is reused to build the
+     *                      ring of this state, or null.
+     */
+    public PartitionDegraderLoadBalancerState(long clusterGenerationId,
+                                         long lastUpdated,
+                                         boolean initState,
+                                         Map<URI,Integer> pointsMap,
+                                         Strategy strategy,
+                                         double currentOverrideDropRate,
+                                         double currentAvgClusterLatency,
+                                         Map<TrackerClient,Double> recoveryMap,
+                                         String serviceName,
+                                         Map<String, String> degraderProperties,
+                                         long currentClusterCallCount,
+                                         String consistentHashAlgorithm,
+                                         PartitionDegraderLoadBalancerState previousState)
     {
       _clusterGenerationId = clusterGenerationId;
-      _ring = new ConsistentHashRing<URI>(pointsMap);
+      _ring = createRing(consistentHashAlgorithm,
+                         pointsMap != null ? pointsMap : Collections.<URI, Integer>emptyMap(),
+                         previousState);
       _pointsMap = (pointsMap != null) ?
             Collections.unmodifiableMap(new HashMap<URI,Integer>(pointsMap)) :
             Collections.<URI,Integer>emptyMap();
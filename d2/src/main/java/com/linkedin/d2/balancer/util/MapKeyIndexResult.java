@@ -0,0 +1,229 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.d2.balancer.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of mapping an array of keys, like {@link MapKeyResult} but the keys are identified
+ * by their index in the array. The key indexes of all of the hosts are kept in a single int array,
+ * grouped by host and in increasing order within a host, so that no collection is created per host
+ * or per key.
+ *
+ * Each key index is either mapped to exactly one host or is unmapped with an error type.
+ */
+public class MapKeyIndexResult<T>
+{
+  private final List<T> _hosts;
+  // the key indexes of host i are _keyIndexes[_hostOffsets[i]] to _keyIndexes[_hostOffsets[i + 1] - 1]
+  private final int[] _hostOffsets;
+  private final int[] _keyIndexes;
+  private final int[] _unmappedKeyIndexes;
+  private final MapKeyResult.ErrorType[] _unmappedErrorTypes;
+
+  /**
+   * @param hosts the hosts that keys are mapped to.
+   * @param keyHosts for each key index, the index of its host in hosts, or a negative value if the key is unmapped.
+   * @param keyErrorTypes for each key index, the error type of the key if it is unmapped.
+   */
+  public MapKeyIndexResult(List<T> hosts, int[] keyHosts, MapKeyResult.ErrorType[] keyErrorTypes)
+  {
+    _hosts = Collections.unmodifiableList(new ArrayList<T>(hosts));
+
+    int hostCount = hosts.size();
+    int[] hostOffsets = new int[hostCount + 1];
+    int unmappedCount = 0;
+    for (int keyHost : keyHosts)
+    {
+      if (keyHost < 0)
+      {
+        unmappedCount++;
+      }
+      else
+      {
+        hostOffsets[keyHost + 1]++;
+      }
+    }
+    for (int i = 0; i < hostCount; i++)
+    {
+      hostOffsets[i + 1] += hostOffsets[i];
+    }
+
+    int[] keyIndexes = new int[keyHosts.length - unmappedCount];
+    int[] nextKeyIndex = Arrays.copyOf(hostOffsets, hostCount);
+    _unmappedKeyIndexes = new int[unmappedCount];
+    _unmappedErrorTypes = new MapKeyResult.ErrorType[unmappedCount];
+    int unmapped = 0;
+    for (int i = 0; i < keyHosts.length; i++)
+    {
+      int keyHost = keyHosts[i];
+      if (keyHost < 0)
+      {
+        _unmappedKeyIndexes[unmapped] = i;
+        _unmappedErrorTypes[unmapped] = keyErrorTypes[i];
+        unmapped++;
+      }
+      else
+      {
+        keyIndexes[nextKeyIndex[keyHost]++] = i;
+      }
+    }
+
+    _hostOffsets = hostOffsets;
+    _keyIndexes = keyIndexes;
+  }
+
+  public int getHostCount()
+  {
+    return _hosts.size();
+  }
+
+  public T getHost(int hostIndex)
+  {
+    return _hosts.get(hostIndex);
+  }
+
+  public List<T> getHosts()
+  {
+    return _hosts;
+  }
+
+  /**
+   * @return the number of keys mapped to the host.
+   */
+  public int getKeyCount(int hostIndex)
+  {
+    return _hostOffsets[hostIndex + 1] - _hostOffsets[hostIndex];
+  }
+
+  /**
+   * @return the index in the key array of the i-th key mapped to the host.
+   */
+  public int getKeyIndex(int hostIndex, int i)
+  {
+    if (i < 0 || i >= getKeyCount(hostIndex))
+    {
+      throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + getKeyCount(hostIndex));
+    }
+    return _keyIndexes[_hostOffsets[hostIndex] + i];
+  }
+
+  /**
+   * @return a copy of the indexes in the key array of the keys mapped to the host.
+   */
+  public int[] getKeyIndexes(int hostIndex)
+  {
+    return Arrays.copyOfRange(_keyIndexes, _hostOffsets[hostIndex], _hostOffsets[hostIndex + 1]);
+  }
+
+  public int getUnmappedKeyCount()
+  {
+    return _unmappedKeyIndexes.length;
+  }
+
+  /**
+   * @return the index in the key array of the i-th unmapped key.
+   */
+  public int getUnmappedKeyIndex(int i)
+  {
+    return _unmappedKeyIndexes[i];
+  }
+
+  public MapKeyResult.ErrorType getUnmappedKeyErrorType(int i)
+  {
+    return _unmappedErrorTypes[i];
+  }
+
+  /**
+   * Converts a {@link MapKeyResult} of the keys in an array to the key indexes of the array. Equal keys
+   * are given the host or the error type of the key in the {@link MapKeyResult}, and keys missing from
+   * it are unmapped with {@link MapKeyResult.ErrorType#FAIL_TO_FIND_PARTITION}.
+   *
+   * @param mapKeyResult the mapping of the keys.
+   * @param keys the key array that was mapped.
+   */
+  public static <T, K> MapKeyIndexResult<T> fromMapKeyResult(MapKeyResult<T, K> mapKeyResult, K[] keys)
+  {
+    Map<T, Collection<K>> mapResult = mapKeyResult.getMapResult();
+    List<T> hosts = new ArrayList<T>(mapResult.size());
+    Map<K, Integer> keyHostIndexes = new HashMap<K, Integer>(keys.length * 2);
+    for (Map.Entry<T, Collection<K>> entry : mapResult.entrySet())
+    {
+      Integer hostIndex = hosts.size();
+      hosts.add(entry.getKey());
+      for (K key : entry.getValue())
+      {
+        keyHostIndexes.put(key, hostIndex);
+      }
+    }
+
+    Map<K, MapKeyResult.ErrorType> unmappedErrorTypes = new HashMap<K, MapKeyResult.ErrorType>();
+    for (MapKeyResult.UnmappedKey<K> unmappedKey : mapKeyResult.getUnmappedKeys())
+    {
+      unmappedErrorTypes.put(unmappedKey.getKey(), unmappedKey.getErrorType());
+    }
+
+    int[] keyHosts = new int[keys.length];
+    MapKeyResult.ErrorType[] keyErrorTypes = new MapKeyResult.ErrorType[keys.length];
+    for (int i = 0; i < keys.length; i++)
+    {
+      Integer hostIndex = keyHostIndexes.get(keys[i]);
+      if (hostIndex != null)
+      {
+        keyHosts[i] = hostIndex;
+      }
+      else
+      {
+        MapKeyResult.ErrorType errorType = unmappedErrorTypes.get(keys[i]);
+        keyHosts[i] = -1;
+        keyErrorTypes[i] = errorType == null ? MapKeyResult.ErrorType.FAIL_TO_FIND_PARTITION : errorType;
+      }
+    }
+    return new MapKeyIndexResult<T>(hosts, keyHosts, keyErrorTypes);
+  }
+
+  /**
+   * @param keys the key array that was mapped.
+   * @return the same mapping as a {@link MapKeyResult} of the keys.
+   */
+  public <K> MapKeyResult<T, K> toMapKeyResult(K[] keys)
+  {
+    Map<T, Collection<K>> mapResult = new HashMap<T, Collection<K>>(_hosts.size() * 2);
+    for (int hostIndex = 0; hostIndex < _hosts.size(); hostIndex++)
+    {
+      List<K> hostKeys = new ArrayList<K>(getKeyCount(hostIndex));
+      for (int i = _hostOffsets[hostIndex]; i < _hostOffsets[hostIndex + 1]; i++)
+      {
+        hostKeys.add(keys[_keyIndexes[i]]);
+      }
+      mapResult.put(_hosts.get(hostIndex), hostKeys);
+    }
+
+    List<MapKeyResult.UnmappedKey<K>> unmappedKeys = new ArrayList<MapKeyResult.UnmappedKey<K>>(_unmappedKeyIndexes.length);
+    for (int i = 0; i < _unmappedKeyIndexes.length; i++)
+    {
+      unmappedKeys.add(new MapKeyResult.UnmappedKey<K>(keys[_unmappedKeyIndexes[i]], _unmappedErrorTypes[i]));
+    }
+    return new MapKeyResult<T, K>(mapResult, unmappedKeys);
+  }
+}
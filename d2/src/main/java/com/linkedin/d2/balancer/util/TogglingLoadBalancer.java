@@ -25,6 +25,7 @@ import com.linkedin.common.callback.Callbacks;
 import com.linkedin.common.util.None;
 import com.linkedin.d2.balancer.LoadBalancer;
 import com.linkedin.d2.balancer.ServiceUnavailableException;
+import com.linkedin.d2.balancer.util.hashing.AbstractHashRingProvider;
 import com.linkedin.d2.balancer.util.hashing.HashRingProvider;
 import com.linkedin.d2.balancer.util.hashing.Ring;
 import com.linkedin.d2.discovery.event.PropertyEventThread;
@@ -44,7 +45,7 @@ import java.util.Map;
  * @version $Revision: $
  */
 
-public class TogglingLoadBalancer implements LoadBalancer, HashRingProvider, ClientFactoryProvider
+public class TogglingLoadBalancer extends AbstractHashRingProvider implements LoadBalancer, ClientFactoryProvider
 {
   private final LoadBalancer _balancer;
   private final TogglingPublisher<?>[] _toggles;
@@ -105,6 +106,13 @@ public class TogglingLoadBalancer implements LoadBalancer, HashRingProvider, Cli
     return ((HashRingProvider)_balancer).getRings(serviceUri);
   }
 
+  @Override
+  public <K> MapKeyIndexResult<Ring<URI>> getRingIndexes(URI serviceUri, K[] keys) throws ServiceUnavailableException
+  {
+    checkLoadBalancer();
+    return AbstractHashRingProvider.getRingIndexes((HashRingProvider)_balancer, serviceUri, keys);
+  }
+
   private void checkLoadBalancer()
   {
     if (_balancer == null || !(_balancer instanceof HashRingProvider))
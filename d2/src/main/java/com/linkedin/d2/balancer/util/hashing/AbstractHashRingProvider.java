@@ -0,0 +1,63 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.d2.balancer.util.hashing;
+
+import com.linkedin.d2.balancer.ServiceUnavailableException;
+import com.linkedin.d2.balancer.util.MapKeyIndexResult;
+
+import java.net.URI;
+import java.util.Arrays;
+
+/**
+ * Base class for {@link HashRingProvider} implementations, which adds
+ * {@link #getRingIndexes(URI, Object[])} with a default implementation built on
+ * {@link HashRingProvider#getRings(URI, Iterable)}.
+ */
+public abstract class AbstractHashRingProvider implements HashRingProvider
+{
+  /**
+   * Maps an array of keys to the rings of their partitions like {@link #getRings(URI, Iterable)}, but
+   * the result identifies the keys by their index in the array. All of the keys are mapped against
+   * one snapshot of the partitions and rings of the service.
+   *
+   * @param serviceUri - the URI of the service for which the rings are being requested.
+   * @param keys - the array of keys to be mapped.
+   * @return the key indexes of each ring, and the unmapped key indexes
+   * @throws ServiceUnavailableException - if the service identified by the given URI is not available.
+   */
+  public <K> MapKeyIndexResult<Ring<URI>> getRingIndexes(URI serviceUri, K[] keys)
+      throws ServiceUnavailableException
+  {
+    return MapKeyIndexResult.fromMapKeyResult(getRings(serviceUri, Arrays.asList(keys)), keys);
+  }
+
+  /**
+   * Maps an array of keys with the given provider, using {@link #getRingIndexes(URI, Object[])} if the
+   * provider is an {@link AbstractHashRingProvider} and {@link HashRingProvider#getRings(URI, Iterable)}
+   * otherwise.
+   */
+  public static <K> MapKeyIndexResult<Ring<URI>> getRingIndexes(HashRingProvider provider, URI serviceUri, K[] keys)
+      throws ServiceUnavailableException
+  {
+    if (provider instanceof AbstractHashRingProvider)
+    {
+      return ((AbstractHashRingProvider) provider).getRingIndexes(serviceUri, keys);
+    }
+    return MapKeyIndexResult.fromMapKeyResult(provider.getRings(serviceUri, Arrays.asList(keys)), keys);
+  }
+}
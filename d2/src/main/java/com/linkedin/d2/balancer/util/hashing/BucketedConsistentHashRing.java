@@ -0,0 +1,188 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.d2.balancer.util.hashing;
+
+import static com.linkedin.d2.discovery.util.LogUtil.debug;
+import static com.linkedin.d2.discovery.util.LogUtil.warn;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A point-based consistent hash ring with the same semantics as {@link ConsistentHashRing}:
+ * an object is picked with probability based on the number of points it has relative to the
+ * total amount of points in the ring, and "get" returns the object of the first point whose
+ * hash is greater than or equal to the key, wrapping around to the first point.
+ *
+ * <p>
+ * The points of an object are the {@link MurmurHash3} hashes of its string value with the
+ * point number as the seed. Instead of a binary search over all of the points, the 32 bit key
+ * space is split into a power of two number of buckets, about one per point, and a lookup
+ * table gives the first point of each bucket. "get" starts from the first point of the
+ * bucket of the key and scans the few points in that bucket, which is constant time on
+ * average. Keys should be hashed with {@link #getKeyHashFunction()}.
+ *
+ * @param <T>
+ */
+public class BucketedConsistentHashRing<T> implements KeyHashingRing<T>
+{
+  private static final Logger _log = LoggerFactory.getLogger(BucketedConsistentHashRing.class);
+  private static final int MAX_BUCKET_BITS = 16;
+  private static final HashFunction<String[]> KEY_HASH_FUNCTION = new MurmurHash3();
+
+  private final T[] _objects;
+  private final int[] _ring;
+  private final int _bucketShift;
+  private final int[] _buckets;
+
+  @SuppressWarnings("unchecked")
+  public BucketedConsistentHashRing(Map<T, Integer> pointMap)
+  {
+    int totalPoints = 0;
+    for (Entry<T, Integer> point : pointMap.entrySet())
+    {
+      if (point.getKey() == null)
+      {
+        warn(_log, "tried to add a null value to consistent hash ring");
+
+        throw new NullPointerException("null values in hash ring are unsupported");
+      }
+      totalPoints += Math.max(0, point.getValue());
+    }
+
+    // sort the points by hash and then by the string value of their object, so that the ring
+    // does not depend on the iteration order of the map
+    Point[] points = new Point[totalPoints];
+    int n = 0;
+    for (Entry<T, Integer> point : pointMap.entrySet())
+    {
+      String s = point.getKey().toString();
+      for (int i = 0; i < point.getValue(); ++i)
+      {
+        points[n++] = new Point(point.getKey(), s, MurmurHash3.hash32(s, i));
+      }
+    }
+    Arrays.sort(points);
+
+    _objects = (T[]) new Object[totalPoints];
+    _ring = new int[totalPoints];
+    for (int i = 0; i < totalPoints; ++i)
+    {
+      _objects[i] = (T) points[i]._t;
+      _ring[i] = points[i]._hash;
+    }
+
+    int bucketBits = 1;
+    while (bucketBits < MAX_BUCKET_BITS && (1 << bucketBits) < totalPoints)
+    {
+      ++bucketBits;
+    }
+    _bucketShift = 32 - bucketBits;
+    _buckets = new int[1 << bucketBits];
+    int index = 0;
+    for (int bucket = 0; bucket < _buckets.length; ++bucket)
+    {
+      int bucketStart = (bucket << _bucketShift) ^ Integer.MIN_VALUE;
+      while (index < totalPoints && _ring[index] < bucketStart)
+      {
+        ++index;
+      }
+      _buckets[bucket] = index;
+    }
+
+    debug(_log, "initializing bucketed consistent hash ring with items: ", _objects);
+  }
+
+  /**
+   * Deterministically pick an object in the ring based on the specified key. As long as
+   * the ring doesn't change, the same key will always yield the same object.
+   */
+  @Override
+  public T get(int key)
+  {
+    if (_objects.length <= 0)
+    {
+      debug(_log, "get called on a hash ring with nothing in it");
+
+      return null;
+    }
+
+    // flipping the sign bit maps the signed key order to the unsigned bucket order
+    int index = _buckets[(key ^ Integer.MIN_VALUE) >>> _bucketShift];
+    while (index < _ring.length && _ring[index] < key)
+    {
+      ++index;
+    }
+
+    return _objects[index % _objects.length];
+  }
+
+  @Override
+  public HashFunction<String[]> getKeyHashFunction()
+  {
+    return KEY_HASH_FUNCTION;
+  }
+
+  public Object[] getObjects()
+  {
+    return _objects;
+  }
+
+  public int[] getRing()
+  {
+    return _ring;
+  }
+
+  int getBucketCount()
+  {
+    return _buckets.length;
+  }
+
+  @Override
+  public String toString()
+  {
+    return "BucketedConsistentHashRing [_objects=" + Arrays.toString(_objects) + ", _buckets=" + _buckets.length + "]";
+  }
+
+  private static class Point implements Comparable<Point>
+  {
+    private final Object _t;
+    private final String _string;
+    private final int _hash;
+
+    private Point(Object t, String string, int hash)
+    {
+      _t = t;
+      _string = string;
+      _hash = hash;
+    }
+
+    @Override
+    public int compareTo(Point o)
+    {
+      if (_hash != o._hash)
+      {
+        return _hash < o._hash ? -1 : 1;
+      }
+      return _string.compareTo(o._string);
+    }
+  }
+}
@@ -20,9 +20,10 @@
 
 package com.linkedin.d2.balancer.util.hashing;
 
-import com.linkedin.d2.balancer.KeyMapper;
+import com.linkedin.d2.balancer.AbstractKeyMapper;
 import com.linkedin.d2.balancer.ServiceUnavailableException;
 import com.linkedin.d2.balancer.util.AllPartitionsResult;
+import com.linkedin.d2.balancer.util.MapKeyIndexResult;
 import com.linkedin.d2.balancer.util.MapKeyResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,7 +43,7 @@ import java.util.Set;
  */
 
 public class ConsistentHashKeyMapper
-        implements KeyMapper
+        extends AbstractKeyMapper
 {
   private final HashFunction<String[]> _hashFunction;
   private final HashRingProvider _ringProvider;
@@ -165,16 +166,67 @@ public class ConsistentHashKeyMapper
     return new MapKeyResult<URI, K>(result, unmappedKeys);
   }
 
+  @Override
+  public <K> MapKeyIndexResult<URI> mapKeyIndexes(URI serviceUri, K[] keys)
+      throws ServiceUnavailableException
+  {
+    // distribute the keys to the rings of their partitions with one snapshot of the rings
+    MapKeyIndexResult<Ring<URI>> ringResult = AbstractHashRingProvider.getRingIndexes(_ringProvider, serviceUri, keys);
+
+    int[] keyHosts = new int[keys.length];
+    MapKeyResult.ErrorType[] keyErrorTypes = new MapKeyResult.ErrorType[keys.length];
+    for (int i = 0; i < ringResult.getUnmappedKeyCount(); i++)
+    {
+      int keyIndex = ringResult.getUnmappedKeyIndex(i);
+      keyHosts[keyIndex] = -1;
+      keyErrorTypes[keyIndex] = ringResult.getUnmappedKeyErrorType(i);
+    }
+
+    // then look up the host of each key in the ring of its partition
+    List<URI> hosts = new ArrayList<URI>();
+    Map<URI, Integer> hostIndexes = new HashMap<URI, Integer>();
+    String[] keyTokens = new String[1];
+    for (int ringIndex = 0; ringIndex < ringResult.getHostCount(); ringIndex++)
+    {
+      Ring<URI> ring = ringResult.getHost(ringIndex);
+      HashFunction<String[]> hashFunction = getKeyHashFunction(ring);
+      for (int i = 0; i < ringResult.getKeyCount(ringIndex); i++)
+      {
+        int keyIndex = ringResult.getKeyIndex(ringIndex, i);
+        keyTokens[0] = keys[keyIndex].toString();
+        URI uri = ring.get(hashFunction.hash(keyTokens));
+        if (uri == null)
+        {
+          keyHosts[keyIndex] = -1;
+          keyErrorTypes[keyIndex] = MapKeyResult.ErrorType.NO_HOST_AVAILABLE_IN_PARTITION;
+          continue;
+        }
+
+        Integer hostIndex = hostIndexes.get(uri);
+        if (hostIndex == null)
+        {
+          hostIndex = hosts.size();
+          hosts.add(uri);
+          hostIndexes.put(uri, hostIndex);
+        }
+        keyHosts[keyIndex] = hostIndex;
+      }
+    }
+
+    return new MapKeyIndexResult<URI>(hosts, keyHosts, keyErrorTypes);
+  }
+
   private <K> MapKeyResult<URI, K> doMapKeys(Ring<URI> ring, Iterable<K> keys)
       throws ServiceUnavailableException
   {
+    HashFunction<String[]> hashFunction = getKeyHashFunction(ring);
     String[] keyTokens = new String[1];
     List<MapKeyResult.UnmappedKey<K>> unmappedKeys = new ArrayList<MapKeyResult.UnmappedKey<K>>();
     Map<URI, Collection<K>> result = new HashMap<URI, Collection<K>>();
     for (K key : keys)
     {
       keyTokens[0] = key.toString();
-      int hashCode = _hashFunction.hash(keyTokens);
+      int hashCode = hashFunction.hash(keyTokens);
 
       URI uri = ring.get(hashCode);
       if (uri == null)
@@ -194,4 +246,12 @@ public class ConsistentHashKeyMapper
     return new MapKeyResult<URI, K>(result, unmappedKeys);
   }
 
+  private HashFunction<String[]> getKeyHashFunction(Ring<URI> ring)
+  {
+    if (ring instanceof KeyHashingRing)
+    {
+      return ((KeyHashingRing<URI>) ring).getKeyHashFunction();
+    }
+    return _hashFunction;
+  }
 }
@@ -23,12 +23,18 @@ import static com.linkedin.d2.discovery.util.LogUtil.warn;
 import java.nio.charset.Charset;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.AbstractSet;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.SortedSet;
-import java.util.TreeSet;
 import java.util.Map.Entry;
 
 import org.slf4j.Logger;
@@ -40,6 +46,12 @@ import org.slf4j.LoggerFactory;
  * given. Based on the key, the algorithm will deterministically pick an object in the
  * ring with probability based on the number of points it has relative to the total amount
  * points in the ring.
+ * <p/>
+ * A ring can be built from a previous ring, in which case only the points of the objects
+ * that were added, or whose number of points grew, are hashed. The resulting ring is the same
+ * as a ring built from scratch with the same points.
+ * <p/>
+ * Points with the same hash are kept once, for the object that was added to the ring first.
  *
  * @param <T>
  */
@@ -49,47 +61,98 @@ public class ConsistentHashRing<T> implements Ring<T>
   private static final Charset UTF8 = Charset.forName("UTF-8");
 
   private final MessageDigest  _md;
-  private final SortedSet<Point<T>> _points;
+  // the hashes of the points of each object in the ring, in the order they were generated;
+  // the objects are iterated in the order they were added to the ring
+  private final Map<T, int[]>  _hashes;
+
+  // all the points of the objects, sorted by hash, including the points whose hash is
+  // taken by the point of another object
+  private T[]                  _allObjects;
+  private int[]                _allRing;
 
   private T[]                  _objects;
   private int[]                _ring;
 
   public ConsistentHashRing(Map<T, Integer> pointMap)
   {
-    _points = new TreeSet<Point<T>>();
+    this(pointMap, messageDigest("MD5"));
+  }
+
+  @SuppressWarnings("unchecked")
+  public ConsistentHashRing(Map<T, Integer> pointMap, MessageDigest md)
+  {
+    _hashes = new LinkedHashMap<T, int[]>();
+    _md = md;
+    _allObjects = (T[]) new Object[0];
+    _allRing = new int[0];
 
+    add(pointMap);
+  }
+
+  /**
+   * Builds a ring with the specified points, reusing the points of the previous ring for the
+   * objects that are in both rings. The points of an object are a prefix of its points for
+   * any larger number of points, so only the objects that were added, or whose number of
+   * points grew, are hashed with the same hash function as the previous ring. The previous
+   * ring is not modified.
+   */
+  public ConsistentHashRing(Map<T, Integer> pointMap, ConsistentHashRing<T> previous)
+  {
+    _hashes = new LinkedHashMap<T, int[]>();
+    _md = messageDigest(previous._md.getAlgorithm());
+
+    build(pointMap, previous._hashes, previous._allObjects, previous._allRing);
+  }
+
+  private static MessageDigest messageDigest(String algorithm)
+  {
     try
     {
-      _md = MessageDigest.getInstance("MD5");
+      return MessageDigest.getInstance(algorithm);
     }
     catch (NoSuchAlgorithmException e)
     {
-      error(_log, "unable to get md5 hash function");
+      error(_log, "unable to get ", algorithm, " hash function");
 
       throw new RuntimeException(e);
     }
-
-    add(pointMap);
   }
 
-  public ConsistentHashRing(Map<T, Integer> pointMap, MessageDigest md)
+  /**
+   * Add objects to the ring with the specified number of points. The objects already in
+   * the ring keep their points, and an object which is already in the ring keeps the larger
+   * of its numbers of points.
+   */
+  protected void add(Map<T, Integer> pointMap)
   {
-    _points = new TreeSet<Point<T>>();
-    _md = md;
+    Map<T, int[]> previousHashes = new HashMap<T, int[]>(_hashes);
+    Map<T, Integer> points = new LinkedHashMap<T, Integer>();
+    for (Entry<T, int[]> hashes : _hashes.entrySet())
+    {
+      points.put(hashes.getKey(), hashes.getValue().length);
+    }
+    for (Entry<T, Integer> point : pointMap.entrySet())
+    {
+      Integer previousPoints = points.get(point.getKey());
+      points.put(point.getKey(),
+                 previousPoints != null ? Math.max(previousPoints, point.getValue()) : point.getValue());
+    }
+    _hashes.clear();
 
-    add(pointMap);
+    build(points, previousHashes, _allObjects, _allRing);
   }
 
-  /**
-   * Add objects to the ring with the specified number of points.
-   */
   @SuppressWarnings("unchecked")
-  protected void add(Map<T, Integer> pointMap)
+  private void build(Map<T, Integer> pointMap, Map<T, int[]> previousHashes, T[] previousObjects, int[] previousRing)
   {
+    // the points of the objects which are unchanged are already sorted in the previous ring,
+    // so only the points of the other objects need to be sorted and merged in
+    List<Point<T>> newPoints = new ArrayList<Point<T>>();
+    Set<T> unchanged = new HashSet<T>();
     for (Entry<T, Integer> point : pointMap.entrySet())
     {
       T t = point.getKey();
-      int points = point.getValue();
+      int points = Math.max(0, point.getValue());
 
       if (t == null)
       {
@@ -98,48 +161,152 @@ public class ConsistentHashRing<T> implements Ring<T>
         throw new NullPointerException("null values in hash ring are unsupported");
       }
 
-      byte[] bytesToHash = t.toString().getBytes(UTF8);
+      int[] hashes = previousHashes.get(t);
+      if (hashes != null && hashes.length == points)
+      {
+        unchanged.add(t);
+      }
+      else
+      {
+        hashes = hashes != null && hashes.length > points ? Arrays.copyOf(hashes, points) : hash(t, points);
+        for (int hash : hashes)
+        {
+          newPoints.add(new Point<T>(t, hash));
+        }
+      }
+      _hashes.put(t, hashes);
+    }
+    Collections.sort(newPoints);
+
+    // the objects of the previous ring which were removed, or whose points changed
+    Set<T> stale = new HashSet<T>();
+    int size = newPoints.size();
+    for (Entry<T, int[]> hashes : previousHashes.entrySet())
+    {
+      if (unchanged.contains(hashes.getKey()))
+      {
+        size += hashes.getValue().length;
+      }
+      else
+      {
+        stale.add(hashes.getKey());
+      }
+    }
 
-      // start the bytes to hash as the node's uri
-      byte[] hash = null;
+    _allObjects = (T[]) new Object[size];
+    _allRing = new int[size];
 
-      for (int i = 0; i < points; ++i)
+    int i = 0;
+    int j = 0;
+    for (int n = 0; n < size; ++n)
+    {
+      while (i < previousRing.length && !stale.isEmpty() && stale.contains(previousObjects[i]))
       {
-        int iMod4 = i % 4;
-        int iMod4TimesFour = iMod4 * 4;
+        ++i;
+      }
 
-        // if we've used the same hash 4 times, reset it
-        if (iMod4 == 0)
-        {
-          hash = _md.digest(bytesToHash);
+      if (j == newPoints.size() || (i < previousRing.length && previousRing[i] <= newPoints.get(j).getHash()))
+      {
+        _allObjects[n] = previousObjects[i];
+        _allRing[n] = previousRing[i];
+        ++i;
+      }
+      else
+      {
+        _allObjects[n] = newPoints.get(j).getT();
+        _allRing[n] = newPoints.get(j).getHash();
+        ++j;
+      }
+    }
 
-          // Roll the new hash as the next set of bytes to hash. This way we continue
-          // generating unique hashes for a given client URI.
-          bytesToHash = hash;
-        }
+    removeDuplicateHashes();
 
-        // compute a hash from MIN_INT to MAX_INT
-        int hashInt =
-            hash[iMod4TimesFour] + (hash[iMod4TimesFour + 1] << 8)
-                + (hash[iMod4TimesFour + 2] << 16) + (hash[iMod4TimesFour + 3] << 24);
+    debug(_log, "re-initializing consistent hash ring with items: ", _objects);
+  }
 
-        _points.add(new Point<T>(t, hashInt));
+  /**
+   * Keeps a single point for each hash in the ring. Of the points with the same hash, the
+   * point of the object that was added to the ring first is kept, as if the points were added
+   * to a set ordered by hash in the order of their objects. Collisions are rare, so the ring
+   * usually shares the arrays of all the points.
+   */
+  @SuppressWarnings("unchecked")
+  private void removeDuplicateHashes()
+  {
+    int duplicates = 0;
+    for (int n = 1; n < _allRing.length; ++n)
+    {
+      if (_allRing[n] == _allRing[n - 1])
+      {
+        ++duplicates;
       }
     }
+    if (duplicates == 0)
+    {
+      _objects = _allObjects;
+      _ring = _allRing;
+      return;
+    }
 
-    _objects = (T[]) new Object[_points.size()];
-    _ring = new int[_points.size()];
+    Map<T, Integer> order = new HashMap<T, Integer>();
+    for (T t : _hashes.keySet())
+    {
+      order.put(t, order.size());
+    }
 
-    int i = 0;
+    _objects = (T[]) new Object[_allRing.length - duplicates];
+    _ring = new int[_allRing.length - duplicates];
+    int n = -1;
+    for (int i = 0; i < _allRing.length; ++i)
+    {
+      if (n >= 0 && _ring[n] == _allRing[i])
+      {
+        if (order.get(_allObjects[i]) < order.get(_objects[n]))
+        {
+          _objects[n] = _allObjects[i];
+        }
+      }
+      else
+      {
+        ++n;
+        _objects[n] = _allObjects[i];
+        _ring[n] = _allRing[i];
+      }
+    }
+  }
+
+  /**
+   * Returns the hashes of the given number of points of an object.
+   */
+  private int[] hash(T t, int points)
+  {
+    // start the bytes to hash as the node's uri
+    byte[] bytesToHash = t.toString().getBytes(UTF8);
+    byte[] hash = null;
+    int[] hashes = new int[points];
 
-    for (Point<T> point : _points)
+    for (int i = 0; i < points; ++i)
     {
-      _objects[i] = point.getT();
-      _ring[i] = point.getHash();
-      ++i;
+      int iMod4 = i % 4;
+      int iMod4TimesFour = iMod4 * 4;
+
+      // if we've used the same hash 4 times, reset it
+      if (iMod4 == 0)
+      {
+        hash = _md.digest(bytesToHash);
+
+        // Roll the new hash as the next set of bytes to hash. This way we continue
+        // generating unique hashes for a given client URI.
+        bytesToHash = hash;
+      }
+
+      // compute a hash from MIN_INT to MAX_INT
+      hashes[i] =
+          hash[iMod4TimesFour] + (hash[iMod4TimesFour + 1] << 8)
+              + (hash[iMod4TimesFour + 2] << 16) + (hash[iMod4TimesFour + 3] << 24);
     }
 
-    debug(_log, "re-initializing consistent hash ring with items: ", _objects);
+    return hashes;
   }
 
   /**
@@ -169,9 +336,55 @@ public class ConsistentHashRing<T> implements Ring<T>
     return _objects[index % _objects.length];
   }
 
+  /**
+   * Returns the points of the ring, iterated in the order of their hashes. The set is a read-only
+   * view of the ring, its points are created as they are iterated.
+   */
   public Set<Point<T>> getPoints()
   {
-    return _points;
+    return new AbstractSet<Point<T>>()
+    {
+      @Override
+      public Iterator<Point<T>> iterator()
+      {
+        final T[] objects = _objects;
+        final int[] ring = _ring;
+        return new Iterator<Point<T>>()
+        {
+          private int _index = 0;
+
+          @Override
+          public boolean hasNext()
+          {
+            return _index < ring.length;
+          }
+
+          @Override
+          public Point<T> next()
+          {
+            if (_index >= ring.length)
+            {
+              throw new NoSuchElementException();
+            }
+            Point<T> point = new Point<T>(objects[_index], ring[_index]);
+            ++_index;
+            return point;
+          }
+
+          @Override
+          public void remove()
+          {
+            throw new UnsupportedOperationException();
+          }
+        };
+      }
+
+      @Override
+      public int size()
+      {
+        return _ring.length;
+      }
+    };
   }
 
   public Object[] getObjects()
@@ -186,13 +399,13 @@ public class ConsistentHashRing<T> implements Ring<T>
 
   String printRingArea()
   {
-    if (_points != null && !_points.isEmpty())
+    if (_ring.length > 0)
     {
       Map<T, Double> coverageMap = new HashMap<T, Double>();
       Double curr = new Double(Integer.MIN_VALUE);
       T firstElement = null;
       //we know points are sortedSet and the iterator is iterating from low to high
-      for (Point<T> point : _points)
+      for (Point<T> point : getPoints())
       {
         if (firstElement == null)
         {
@@ -0,0 +1,30 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.d2.balancer.util.hashing;
+
+
+/**
+ * A {@link Ring} whose points are spread for a particular key hash function. Keys looked up
+ * in the ring should be hashed with {@link #getKeyHashFunction()}.
+ */
+public interface KeyHashingRing<T> extends Ring<T>
+{
+  /**
+   * @return the function to hash key tokens with before calling {@link #get(int)}.
+   */
+  HashFunction<String[]> getKeyHashFunction();
+}
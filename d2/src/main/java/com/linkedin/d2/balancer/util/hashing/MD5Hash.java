@@ -33,6 +33,22 @@ public class MD5Hash implements HashFunction<String[]>
 {
   private static final Charset UTF8 = Charset.forName("UTF8");
   private static final byte[] ONE_NULL = new byte[] { 0x00 };
+  // MessageDigest.getInstance looks up the provider on every call, so keep one per thread
+  private static final ThreadLocal<MessageDigest> MD5 = new ThreadLocal<MessageDigest>()
+  {
+    @Override
+    protected MessageDigest initialValue()
+    {
+      try
+      {
+        return MessageDigest.getInstance("MD5");
+      }
+      catch (NoSuchAlgorithmException e)
+      {
+        throw new IllegalStateException(e);
+      }
+    }
+  };
 
   public int hash(String[] keyTokens)
   {
@@ -52,20 +68,14 @@ public class MD5Hash implements HashFunction<String[]>
 
   private byte[] getMD5Digest(String [] keyTokens)
   {
-    try
-    {
-      MessageDigest md = MessageDigest.getInstance("MD5");
-      for (int i = 0; i < keyTokens.length; i++)
-      {
-        md.update(keyTokens[i].getBytes(UTF8));
-        // Boundary between fields; 0x00 byte does not occur in UTF8 strings
-        md.update(ONE_NULL);
-      }
-      return md.digest();
-    }
-    catch (NoSuchAlgorithmException e)
+    MessageDigest md = MD5.get();
+    md.reset();
+    for (int i = 0; i < keyTokens.length; i++)
     {
-      throw new IllegalStateException(e);
+      md.update(keyTokens[i].getBytes(UTF8));
+      // Boundary between fields; 0x00 byte does not occur in UTF8 strings
+      md.update(ONE_NULL);
     }
+    return md.digest();
   }
 }
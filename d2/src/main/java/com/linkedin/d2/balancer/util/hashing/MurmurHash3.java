@@ -0,0 +1,124 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.d2.balancer.util.hashing;
+
+
+/**
+ * 32 bit MurmurHash3 (x86_32) of the UTF-16LE code units of strings. Unlike {@link MD5Hash}
+ * it is not a cryptographic hash, but it is well distributed, much faster and does not
+ * allocate.
+ *
+ * <p>
+ * The tokens are hashed as if each of them was followed by a '\u0000' character, so that the
+ * boundaries between tokens are part of the hash, as in {@link MD5Hash}.
+ */
+public class MurmurHash3 implements HashFunction<String[]>
+{
+  private static final int C1 = 0xcc9e2d51;
+  private static final int C2 = 0x1b873593;
+
+  private final int _seed;
+
+  public MurmurHash3()
+  {
+    this(0);
+  }
+
+  public MurmurHash3(int seed)
+  {
+    _seed = seed;
+  }
+
+  @Override
+  public int hash(String[] keyTokens)
+  {
+    int h1 = _seed;
+    int block = 0;
+    boolean halfBlock = false;
+    int length = 0;
+    for (String token : keyTokens)
+    {
+      int tokenLength = token.length();
+      // i == tokenLength is the '\u0000' boundary after the token
+      for (int i = 0; i <= tokenLength; i++)
+      {
+        int c = i < tokenLength ? token.charAt(i) : 0;
+        if (halfBlock)
+        {
+          h1 = mixH1(h1, mixK1(block | (c << 16)));
+        }
+        else
+        {
+          block = c;
+        }
+        halfBlock = !halfBlock;
+      }
+      length += tokenLength + 1;
+    }
+    if (halfBlock)
+    {
+      h1 ^= mixK1(block);
+    }
+    return fmix(h1, 2 * length);
+  }
+
+  /**
+   * @return the hash of the UTF-16LE code units of the string with the given seed.
+   */
+  public static int hash32(CharSequence s, int seed)
+  {
+    int h1 = seed;
+    int length = s.length();
+    int i = 1;
+    for (; i < length; i += 2)
+    {
+      h1 = mixH1(h1, mixK1(s.charAt(i - 1) | (s.charAt(i) << 16)));
+    }
+    if ((length & 1) == 1)
+    {
+      h1 ^= mixK1(s.charAt(length - 1));
+    }
+    return fmix(h1, 2 * length);
+  }
+
+  private static int mixK1(int k1)
+  {
+    k1 *= C1;
+    k1 = Integer.rotateLeft(k1, 15);
+    k1 *= C2;
+    return k1;
+  }
+
+  private static int mixH1(int h1, int k1)
+  {
+    h1 ^= k1;
+    h1 = Integer.rotateLeft(h1, 13);
+    h1 = h1 * 5 + 0xe6546b64;
+    return h1;
+  }
+
+  private static int fmix(int h1, int length)
+  {
+    h1 ^= length;
+    h1 ^= h1 >>> 16;
+    h1 *= 0x85ebca6b;
+    h1 ^= h1 >>> 13;
+    h1 *= 0xc2b2ae35;
+    h1 ^= h1 >>> 16;
+    return h1;
+  }
+}
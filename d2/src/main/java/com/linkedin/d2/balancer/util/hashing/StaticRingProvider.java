@@ -36,7 +36,7 @@ import java.util.Map;
 * @author Josh Walker
 * @version $Revision: $
 */
-public class StaticRingProvider implements HashRingProvider
+public class StaticRingProvider extends AbstractHashRingProvider
 {
   private final List<Ring<URI>> _rings;
 
@@ -99,5 +99,4 @@ public class StaticRingProvider implements HashRingProvider
     }
     return ringMap;
   }
-
 }
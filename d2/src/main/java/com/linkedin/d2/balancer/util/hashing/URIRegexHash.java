@@ -84,6 +84,15 @@ public class URIRegexHash implements HashFunction<Request>
 
   @Override
   public int hash(Request request)
+  {
+    return hash(request, _md5);
+  }
+
+  /**
+   * Same as {@link #hash(Request)}, with the key tokens captured from the request URI hashed by
+   * the given function instead of MD5, e.g. the key hash function of a {@link KeyHashingRing}.
+   */
+  public int hash(Request request, HashFunction<String[]> keyHashFunction)
   {
     String uriString = request.getURI().toString();
     for (Pattern p : _patterns)
@@ -110,7 +119,7 @@ public class URIRegexHash implements HashFunction<Request>
             keyTokens[i] = matcher.group(i + 1);
           }
 
-          return _md5.hash(keyTokens);
+          return keyHashFunction.hash(keyTokens);
         }
         LOG.warn("Ignoring pattern '{}' which matched but produced no capture groups for URI '{}'",
                  p, uriString);
@@ -31,8 +31,10 @@ import com.linkedin.d2.balancer.ServiceUnavailableException;
 import com.linkedin.d2.balancer.util.ClientFactoryProvider;
 import com.linkedin.d2.balancer.util.DirectoryProvider;
 import com.linkedin.d2.balancer.util.KeyMapperProvider;
+import com.linkedin.d2.balancer.util.MapKeyIndexResult;
 import com.linkedin.d2.balancer.util.MapKeyResult;
 import com.linkedin.d2.balancer.util.TogglingLoadBalancer;
+import com.linkedin.d2.balancer.util.hashing.AbstractHashRingProvider;
 import com.linkedin.d2.balancer.util.hashing.ConsistentHashKeyMapper;
 import com.linkedin.d2.balancer.util.hashing.HashRingProvider;
 import com.linkedin.d2.balancer.util.hashing.Ring;
@@ -66,8 +68,8 @@ import java.util.concurrent.atomic.AtomicReference;
  */
 
 public class ZKFSLoadBalancer
-        implements LoadBalancerWithFacilities, DirectoryProvider, KeyMapperProvider, HashRingProvider,
-        ClientFactoryProvider
+        extends AbstractHashRingProvider
+        implements LoadBalancerWithFacilities, DirectoryProvider, KeyMapperProvider, ClientFactoryProvider
 {
   private static final Logger LOG = LoggerFactory.getLogger(ZKFSLoadBalancer.class);
 
@@ -334,6 +336,13 @@ public class ZKFSLoadBalancer
     return ((HashRingProvider)_currentLoadBalancer).getRings(serviceUri);
   }
 
+  @Override
+  public <K> MapKeyIndexResult<Ring<URI>> getRingIndexes(URI serviceUri, K[] keys) throws ServiceUnavailableException
+  {
+    checkLoadBalancer();
+    return AbstractHashRingProvider.getRingIndexes((HashRingProvider)_currentLoadBalancer, serviceUri, keys);
+  }
+
   public void checkLoadBalancer()
   {
     if (_currentLoadBalancer==null ||
@@ -21,10 +21,13 @@
 package com.linkedin.d2.balancer.zkfs;
 
 import com.linkedin.d2.balancer.properties.ClusterProperties;
+import com.linkedin.d2.balancer.properties.ClusterPropertiesBinarySerializer;
 import com.linkedin.d2.balancer.properties.ClusterPropertiesJsonSerializer;
 import com.linkedin.d2.balancer.properties.ServiceProperties;
+import com.linkedin.d2.balancer.properties.ServicePropertiesBinarySerializer;
 import com.linkedin.d2.balancer.properties.ServicePropertiesJsonSerializer;
 import com.linkedin.d2.balancer.properties.UriProperties;
+import com.linkedin.d2.balancer.properties.UriPropertiesBinarySerializer;
 import com.linkedin.d2.balancer.properties.UriPropertiesJsonSerializer;
 import com.linkedin.d2.balancer.properties.UriPropertiesMerger;
 import com.linkedin.d2.balancer.simple.SimpleLoadBalancer;
@@ -33,6 +36,7 @@ import com.linkedin.d2.balancer.strategies.LoadBalancerStrategy;
 import com.linkedin.d2.balancer.strategies.LoadBalancerStrategyFactory;
 import com.linkedin.d2.balancer.util.TogglingLoadBalancer;
 import com.linkedin.d2.discovery.PropertySerializer;
+import com.linkedin.d2.discovery.event.PartitionedPropertyEventExecutor;
 import com.linkedin.d2.discovery.event.PropertyEventBus;
 import com.linkedin.d2.discovery.event.PropertyEventBusImpl;
 import com.linkedin.d2.discovery.stores.file.FileStore;
@@ -76,6 +80,15 @@ public class ZKFSTogglingLoadBalancerFactoryImpl implements ZKFSLoadBalancer.Tog
   private final SSLParameters _sslParameters;
   private final boolean _isSSLEnabled;
   private final Map<String, Map<String, Object>> _clientServicesConfig;
+  private final PartitionedPropertyEventExecutor _eventExecutor;
+  private final boolean _binaryFileStores;
+
+  /**
+   * Directory, under the filesystem directory, of the file stores written in the binary form.
+   * They are kept apart from the json file stores, which other clients sharing the directory
+   * may read and can not parse the binary form.
+   */
+  public static final String BINARY_FILE_STORE_DIR = "binary";
 
   private static final Logger _log = LoggerFactory.getLogger(ZKFSTogglingLoadBalancerFactoryImpl.class);
 
@@ -172,6 +185,79 @@ public class ZKFSTogglingLoadBalancerFactoryImpl implements ZKFSLoadBalancer.Tog
                                              SSLParameters sslParameters,
                                              boolean isSSLEnabled,
                                              Map<String, Map<String, Object>> clientServicesConfig)
+  {
+    this(factory,
+         timeout,
+         timeoutUnit,
+         baseZKPath,
+         fsDir,
+         clientFactories,
+         loadBalancerStrategyFactories,
+         d2ServicePath,
+         sslContext,
+         sslParameters,
+         isSSLEnabled,
+         clientServicesConfig,
+         0);
+  }
+
+  /**
+   * @param eventPartitions number of partitions delivering the property events of different
+   *                        services and clusters concurrently, or 0 to deliver all the events
+   *                        on the executor of the load balancer, one at a time.
+   */
+  public ZKFSTogglingLoadBalancerFactoryImpl(ComponentFactory factory,
+                                             long timeout,
+                                             TimeUnit timeoutUnit,
+                                             String baseZKPath,
+                                             String fsDir,
+                                             Map<String, TransportClientFactory> clientFactories,
+                                             Map<String, LoadBalancerStrategyFactory<? extends LoadBalancerStrategy>> loadBalancerStrategyFactories,
+                                             String d2ServicePath,
+                                             SSLContext sslContext,
+                                             SSLParameters sslParameters,
+                                             boolean isSSLEnabled,
+                                             Map<String, Map<String, Object>> clientServicesConfig,
+                                             int eventPartitions)
+  {
+    this(factory,
+         timeout,
+         timeoutUnit,
+         baseZKPath,
+         fsDir,
+         clientFactories,
+         loadBalancerStrategyFactories,
+         d2ServicePath,
+         sslContext,
+         sslParameters,
+         isSSLEnabled,
+         clientServicesConfig,
+         eventPartitions,
+         false);
+  }
+
+  /**
+   * @param eventPartitions number of partitions delivering the property events of different
+   *                        services and clusters concurrently, or 0 to deliver all the events
+   *                        on the executor of the load balancer, one at a time.
+   * @param binaryFileStores whether the backup file stores are written in the binary form, in
+   *                         the {@link #BINARY_FILE_STORE_DIR} directory under fsDir, instead of
+   *                         in json.
+   */
+  public ZKFSTogglingLoadBalancerFactoryImpl(ComponentFactory factory,
+                                             long timeout,
+                                             TimeUnit timeoutUnit,
+                                             String baseZKPath,
+                                             String fsDir,
+                                             Map<String, TransportClientFactory> clientFactories,
+                                             Map<String, LoadBalancerStrategyFactory<? extends LoadBalancerStrategy>> loadBalancerStrategyFactories,
+                                             String d2ServicePath,
+                                             SSLContext sslContext,
+                                             SSLParameters sslParameters,
+                                             boolean isSSLEnabled,
+                                             Map<String, Map<String, Object>> clientServicesConfig,
+                                             int eventPartitions,
+                                             boolean binaryFileStores)
   {
     _factory = factory;
     _lbTimeout = timeout;
@@ -193,6 +279,19 @@ public class ZKFSTogglingLoadBalancerFactoryImpl implements ZKFSLoadBalancer.Tog
     _sslParameters = sslParameters;
     _isSSLEnabled = isSSLEnabled;
     _clientServicesConfig = clientServicesConfig;
+    // shared by the load balancers created for each zookeeper connection; its idle threads time out
+    _eventExecutor = eventPartitions > 0 ?
+        new PartitionedPropertyEventExecutor("D2 PropertyEventExecutor", eventPartitions) : null;
+    _binaryFileStores = binaryFileStores;
+  }
+
+  /**
+   * @return the executor delivering the property events, to monitor it, or null if the events
+   *         are delivered on the executor of the load balancer.
+   */
+  public PartitionedPropertyEventExecutor getEventExecutor()
+  {
+    return _eventExecutor;
   }
 
   @Override
@@ -206,13 +305,38 @@ public class ZKFSTogglingLoadBalancerFactoryImpl implements ZKFSLoadBalancer.Tog
     ZooKeeperEphemeralStore<UriProperties> zkUriRegistry =  createEphemeralStore(
             zkConnection, ZKFSUtil.uriPath(_baseZKPath), new UriPropertiesJsonSerializer(), new UriPropertiesMerger());
 
-    FileStore<ClusterProperties> fsClusterStore = createFileStore("clusters", new ClusterPropertiesJsonSerializer());
-    FileStore<ServiceProperties> fsServiceStore = createFileStore(_d2ServicePath, new ServicePropertiesJsonSerializer());
-    FileStore<UriProperties> fsUriStore = createFileStore("uris", new UriPropertiesJsonSerializer());
+    FileStore<ClusterProperties> fsClusterStore;
+    FileStore<ServiceProperties> fsServiceStore;
+    FileStore<UriProperties> fsUriStore;
+    if (_binaryFileStores)
+    {
+      String binaryDir = BINARY_FILE_STORE_DIR + File.separator;
+      fsClusterStore = createFileStore(binaryDir + "clusters", new ClusterPropertiesBinarySerializer());
+      fsServiceStore = createFileStore(binaryDir + _d2ServicePath, new ServicePropertiesBinarySerializer());
+      fsUriStore = createFileStore(binaryDir + "uris", new UriPropertiesBinarySerializer());
+    }
+    else
+    {
+      fsClusterStore = createFileStore("clusters", new ClusterPropertiesJsonSerializer());
+      fsServiceStore = createFileStore(_d2ServicePath, new ServicePropertiesJsonSerializer());
+      fsUriStore = createFileStore("uris", new UriPropertiesJsonSerializer());
+    }
 
-    PropertyEventBus<ClusterProperties> clusterBus = new PropertyEventBusImpl<ClusterProperties>(executorService);
-    PropertyEventBus<ServiceProperties> serviceBus = new PropertyEventBusImpl<ServiceProperties>(executorService);
-    PropertyEventBus<UriProperties> uriBus = new PropertyEventBusImpl<UriProperties>(executorService);
+    PropertyEventBus<ClusterProperties> clusterBus;
+    PropertyEventBus<ServiceProperties> serviceBus;
+    PropertyEventBus<UriProperties> uriBus;
+    if (_eventExecutor != null)
+    {
+      clusterBus = new PropertyEventBusImpl<ClusterProperties>(_eventExecutor);
+      serviceBus = new PropertyEventBusImpl<ServiceProperties>(_eventExecutor);
+      uriBus = new PropertyEventBusImpl<UriProperties>(_eventExecutor);
+    }
+    else
+    {
+      clusterBus = new PropertyEventBusImpl<ClusterProperties>(executorService);
+      serviceBus = new PropertyEventBusImpl<ServiceProperties>(executorService);
+      uriBus = new PropertyEventBusImpl<UriProperties>(executorService);
+    }
 
     // This ensures the filesystem store receives the events from the event bus so that
     // it can keep a local backup.
@@ -0,0 +1,32 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.d2.discovery;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link PropertySerializer} which also reads a property from a {@link ByteBuffer}, such as a
+ * slice of a memory-mapped file, without copying it to an array first.
+ */
+public interface ByteBufferPropertySerializer<T> extends PropertySerializer<T>
+{
+  /**
+   * Reads a property from the remaining bytes of the buffer. The position of the buffer may be
+   * changed.
+   */
+  T fromBytes(ByteBuffer bytes) throws PropertySerializationException;
+}
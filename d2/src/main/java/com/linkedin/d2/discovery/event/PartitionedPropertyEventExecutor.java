@@ -0,0 +1,390 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.d2.discovery.event;
+
+import com.linkedin.d2.discovery.event.PropertyEventThread.PropertyEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Runs {@link PropertyEvent}s on a pool of threads, partitioned by key. The events sent with the
+ * same key run one at a time, in the order they were sent; the events of different partitions
+ * run concurrently.<p/>
+ *
+ * An event sent without a key is a barrier: it runs once all the events sent before it have
+ * run, and no event sent after it runs before it is done.<p/>
+ *
+ * A partition runs at most {@link #MAX_EVENTS_PER_RUN} events before giving its thread to the
+ * other partitions, so that a burst of events for one key does not starve the others.
+ */
+public class PartitionedPropertyEventExecutor
+{
+  private static final Logger _log = LoggerFactory.getLogger(PartitionedPropertyEventExecutor.class);
+
+  private static final int MAX_EVENTS_PER_RUN = 64;
+
+  private final Executor _executor;
+  // the pool created by this executor, if any, shut down by shutdown()
+  private final ExecutorService _ownedExecutor;
+  private final Partition[] _partitions;
+  // held while events are added to the partitions
+  private final Object _sendLock = new Object();
+
+  private final AtomicLong _processedCount = new AtomicLong();
+  private final AtomicLong _totalLagNanos = new AtomicLong();
+  private final AtomicLong _maxLagNanos = new AtomicLong();
+
+  /**
+   * Creates an executor running its partitions on a pool of daemon threads, one per partition.
+   * The idle threads of the pool time out, so an executor which is not shut down does not hold
+   * on to its threads.
+   *
+   * @param name the prefix of the names of the threads.
+   * @param partitions the number of partitions.
+   */
+  public PartitionedPropertyEventExecutor(String name, int partitions)
+  {
+    this(newThreadPool(name, partitions), partitions, true);
+  }
+
+  /**
+   * Creates an executor running its partitions on the given executor. The events of a partition
+   * run one at a time whatever the number of threads of the executor.
+   *
+   * @param executor the executor running the partitions.
+   * @param partitions the number of partitions.
+   */
+  public PartitionedPropertyEventExecutor(Executor executor, int partitions)
+  {
+    this(executor, partitions, false);
+  }
+
+  private PartitionedPropertyEventExecutor(Executor executor, int partitions, boolean owned)
+  {
+    if (partitions < 1)
+    {
+      throw new IllegalArgumentException("partitions must be positive: " + partitions);
+    }
+
+    _executor = executor;
+    _ownedExecutor = owned ? (ExecutorService) executor : null;
+    _partitions = new Partition[partitions];
+    for (int i = 0; i < partitions; i++)
+    {
+      _partitions[i] = new Partition();
+    }
+  }
+
+  private static ThreadPoolExecutor newThreadPool(final String name, int partitions)
+  {
+    ThreadPoolExecutor pool = new ThreadPoolExecutor(partitions, partitions,
+                                                     60, TimeUnit.SECONDS,
+                                                     new LinkedBlockingQueue<Runnable>(),
+                                                     new ThreadFactory()
+                                                     {
+                                                       private final AtomicInteger _threadNumber = new AtomicInteger();
+
+                                                       @Override
+                                                       public Thread newThread(Runnable runnable)
+                                                       {
+                                                         Thread thread = new Thread(runnable,
+                                                                                    name + "-" + _threadNumber.incrementAndGet());
+                                                         thread.setDaemon(true);
+                                                         return thread;
+                                                       }
+                                                     });
+    pool.allowCoreThreadTimeOut(true);
+    return pool;
+  }
+
+  /**
+   * Sends an event to the partition of the given key.
+   *
+   * @param key the key of the event, usually the name of the property it is about.
+   * @param event the event to run.
+   */
+  public void send(String key, PropertyEvent event)
+  {
+    Partition partition = _partitions[(key.hashCode() & Integer.MAX_VALUE) % _partitions.length];
+    boolean schedule;
+    synchronized (_sendLock)
+    {
+      schedule = partition.enqueue(new QueuedEvent(event, null));
+    }
+    if (schedule)
+    {
+      execute(partition);
+    }
+  }
+
+  /**
+   * Sends an event which runs alone, after all the events sent before it.
+   *
+   * @param event the event to run.
+   */
+  public void send(PropertyEvent event)
+  {
+    Barrier barrier = new Barrier();
+    QueuedEvent queuedEvent = new QueuedEvent(event, barrier);
+    boolean[] schedule = new boolean[_partitions.length];
+    // the barrier is queued by all the partitions at once, otherwise two barriers sent concurrently
+    // could be queued in different orders by different partitions, each waiting for the other
+    synchronized (_sendLock)
+    {
+      for (int i = 0; i < _partitions.length; i++)
+      {
+        schedule[i] = _partitions[i].enqueue(queuedEvent);
+      }
+    }
+    for (int i = 0; i < _partitions.length; i++)
+    {
+      if (schedule[i])
+      {
+        execute(_partitions[i]);
+      }
+    }
+  }
+
+  /**
+   * Shuts down the threads created by this executor, once the events already sent have run.
+   * Nothing is shut down if the executor was given to the constructor.
+   */
+  public void shutdown()
+  {
+    if (_ownedExecutor != null)
+    {
+      _ownedExecutor.shutdown();
+    }
+  }
+
+  public int getPartitionCount()
+  {
+    return _partitions.length;
+  }
+
+  /**
+   * @return the number of events waiting to run, a barrier counting once per partition.
+   */
+  public int getQueuedEventCount()
+  {
+    int count = 0;
+    for (Partition partition : _partitions)
+    {
+      count += partition._size.get();
+    }
+    return count;
+  }
+
+  public int getMaxPartitionQueueDepth()
+  {
+    int max = 0;
+    for (Partition partition : _partitions)
+    {
+      max = Math.max(max, partition._size.get());
+    }
+    return max;
+  }
+
+  /**
+   * @return how long the oldest event waiting to run has been waiting, in milliseconds.
+   */
+  public long getOldestEventAgeMs()
+  {
+    long now = System.nanoTime();
+    long max = 0;
+    for (Partition partition : _partitions)
+    {
+      QueuedEvent event = partition._queue.peek();
+      if (event != null)
+      {
+        max = Math.max(max, now - event._enqueuedNanos);
+      }
+    }
+    return TimeUnit.NANOSECONDS.toMillis(max);
+  }
+
+  public long getProcessedEventCount()
+  {
+    return _processedCount.get();
+  }
+
+  /**
+   * @return the average time between sending an event and running it, in milliseconds.
+   */
+  public double getAverageEventLagMs()
+  {
+    long count = _processedCount.get();
+    return count == 0 ? 0 : (double) _totalLagNanos.get() / count / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  /**
+   * @return the longest time between sending an event and running it, in milliseconds.
+   */
+  public long getMaxEventLagMs()
+  {
+    return TimeUnit.NANOSECONDS.toMillis(_maxLagNanos.get());
+  }
+
+  private void execute(Partition partition)
+  {
+    try
+    {
+      _executor.execute(partition);
+    }
+    catch (RejectedExecutionException e)
+    {
+      _log.error("Dropping the events of a partition, the executor is shut down", e);
+    }
+  }
+
+  private class QueuedEvent
+  {
+    private final PropertyEvent _event;
+    private final Barrier _barrier;
+    private final long _enqueuedNanos = System.nanoTime();
+
+    private QueuedEvent(PropertyEvent event, Barrier barrier)
+    {
+      _event = event;
+      _barrier = barrier;
+    }
+
+    /**
+     * @return false if the partition must stop, having reached a barrier the other partitions
+     *         have not reached yet.
+     */
+    private boolean run(Partition partition)
+    {
+      List<Partition> parked = null;
+      if (_barrier != null)
+      {
+        parked = _barrier.arrive(partition);
+        if (parked == null)
+        {
+          return false;
+        }
+      }
+
+      long lag = System.nanoTime() - _enqueuedNanos;
+      _totalLagNanos.addAndGet(lag);
+      long max = _maxLagNanos.get();
+      while (lag > max && !_maxLagNanos.compareAndSet(max, lag))
+      {
+        max = _maxLagNanos.get();
+      }
+
+      try
+      {
+        _event.run();
+      }
+      finally
+      {
+        _processedCount.incrementAndGet();
+        if (parked != null)
+        {
+          for (Partition other : parked)
+          {
+            execute(other);
+          }
+        }
+      }
+      return true;
+    }
+  }
+
+  private class Barrier
+  {
+    private final List<Partition> _parked = new ArrayList<Partition>();
+
+    /**
+     * @return the partitions which reached the barrier before, if the given partition is the
+     *         last one to reach it, or null if the partition must wait for the others.
+     */
+    private synchronized List<Partition> arrive(Partition partition)
+    {
+      if (_parked.size() + 1 < _partitions.length)
+      {
+        _parked.add(partition);
+        return null;
+      }
+      return _parked;
+    }
+  }
+
+  private class Partition implements Runnable
+  {
+    private final Queue<QueuedEvent> _queue = new ConcurrentLinkedQueue<QueuedEvent>();
+    private final AtomicInteger _size = new AtomicInteger();
+    // true while the partition is submitted to the executor, running, or waiting at a barrier
+    private final AtomicBoolean _scheduled = new AtomicBoolean();
+
+    /**
+     * @return true if the partition must be given to the executor to run the event.
+     */
+    private boolean enqueue(QueuedEvent event)
+    {
+      _size.incrementAndGet();
+      _queue.add(event);
+      return _scheduled.compareAndSet(false, true);
+    }
+
+    @Override
+    public void run()
+    {
+      for (int i = 0; i < MAX_EVENTS_PER_RUN; i++)
+      {
+        QueuedEvent event = _queue.poll();
+        if (event == null)
+        {
+          _scheduled.set(false);
+          // an event added between the poll and the reset of the flag did not schedule the partition
+          if (_queue.isEmpty() || !_scheduled.compareAndSet(false, true))
+          {
+            return;
+          }
+          continue;
+        }
+
+        _size.decrementAndGet();
+        if (!event.run(this))
+        {
+          // resumed by the last partition reaching the barrier
+          return;
+        }
+      }
+
+      // let the other partitions run
+      execute(this);
+    }
+  }
+}
@@ -23,10 +23,12 @@ package com.linkedin.d2.discovery.event;
 import com.linkedin.d2.discovery.event.PropertyEventThread.PropertyEvent;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,21 +42,27 @@ import org.slf4j.LoggerFactory;
 public class PropertyEventBusImpl<T> implements PropertyEventBus<T>
 {
   private final PropertyEventThread _thread;
-  private PropertyEventPublisher<T> _publisher;
-  private final Map<String,T> _properties = new HashMap<String,T>();
-  private final Map<String,List<PropertyEventSubscriber<T>>> _subscribers = new HashMap<String,List<PropertyEventSubscriber<T>>>();
-  private final List<PropertyEventSubscriber<T>> _allPropertySubscribers = new ArrayList<PropertyEventSubscriber<T>>();
+  private final PartitionedPropertyEventExecutor _partitionedExecutor;
+  private volatile PropertyEventPublisher<T> _publisher;
+  private final Map<String,T> _properties = Collections.synchronizedMap(new HashMap<String,T>());
+  private final Map<String,List<PropertyEventSubscriber<T>>> _subscribers =
+      Collections.synchronizedMap(new HashMap<String,List<PropertyEventSubscriber<T>>>());
+  private final List<PropertyEventSubscriber<T>> _allPropertySubscribers = new CopyOnWriteArrayList<PropertyEventSubscriber<T>>();
   private static final Logger _log = LoggerFactory.getLogger(PropertyEventBusImpl.class);
   /*
    * Concurrency considerations:
    *
-   * All data structures are unsynchronized. They are manipulated only by tasks submitted
-   * to the executor, which is assumed to be single-threaded.
+   * All data structures are manipulated only by tasks submitted to the executor. A plain
+   * executor is assumed to be single-threaded. A PartitionedPropertyEventExecutor runs the
+   * tasks of a property one at a time but the tasks of different properties concurrently, so
+   * the maps are synchronized; the tasks touching all the properties are sent as barriers,
+   * which run alone.
    */
   @Deprecated
   public PropertyEventBusImpl(PropertyEventThread thread)
   {
       _thread = thread;
+      _partitionedExecutor = null;
   }
 
   @Deprecated
@@ -68,6 +76,7 @@ public class PropertyEventBusImpl<T> implements PropertyEventBus<T>
   public PropertyEventBusImpl(ExecutorService executorService)
   {
     _thread = new PropertyEventExecutor("PropertyEventBusImpl PropertyEventThread", executorService);
+    _partitionedExecutor = null;
   }
 
   public PropertyEventBusImpl(ExecutorService executorService, PropertyEventPublisher<T> publisher)
@@ -77,10 +86,27 @@ public class PropertyEventBusImpl<T> implements PropertyEventBus<T>
     _publisher.setBus(this);
   }
 
+  /**
+   * Creates a bus delivering the events of different properties concurrently, the events of
+   * each property being delivered in order. The subscribers must be thread-safe.
+   */
+  public PropertyEventBusImpl(PartitionedPropertyEventExecutor executor)
+  {
+    _thread = null;
+    _partitionedExecutor = executor;
+  }
+
+  public PropertyEventBusImpl(PartitionedPropertyEventExecutor executor, PropertyEventPublisher<T> publisher)
+  {
+    this(executor);
+    _publisher = publisher;
+    _publisher.setBus(this);
+  }
+
   @Override
   public void register(final PropertyEventSubscriber<T> listener)
   {
-    _thread.send(new PropertyEvent("PropertyEventBus.registerAll")
+    send(null, new PropertyEvent("PropertyEventBus.registerAll")
     {
       @Override
       public void innerRun()
@@ -93,7 +119,7 @@ public class PropertyEventBusImpl<T> implements PropertyEventBus<T>
   @Override
   public void unregister(final PropertyEventSubscriber<T> listener)
   {
-    _thread.send(new PropertyEvent("PropertyEventBus.unregisterAll")
+    send(null, new PropertyEvent("PropertyEventBus.unregisterAll")
     {
       @Override
       public void innerRun()
@@ -107,11 +133,11 @@ public class PropertyEventBusImpl<T> implements PropertyEventBus<T>
   public void register(final Set<String> propertyNames,
                        final PropertyEventSubscriber<T> subscriber)
   {
-    _thread.send(new PropertyEvent("PropertyEventBus.register " + propertyNames)
+    for (final String prop : propertyNames)
     {
-      public void innerRun()
+      send(prop, new PropertyEvent("PropertyEventBus.register " + prop)
       {
-        for (final String prop : propertyNames)
+        public void innerRun()
         {
           boolean initialized;
           boolean notifyPublisher = false;
@@ -136,19 +162,19 @@ public class PropertyEventBusImpl<T> implements PropertyEventBus<T>
             _publisher.startPublishing(prop);
           }
         }
-      }
-    });
+      });
+    }
   }
 
   @Override
   public void unregister(final Set<String> propertyNames,
                          final PropertyEventSubscriber<T> subscriber)
   {
-    _thread.send(new PropertyEvent("PropertyEventBus.unregister " + propertyNames)
+    for (final String prop : propertyNames)
     {
-      public void innerRun()
+      send(prop, new PropertyEvent("PropertyEventBus.unregister " + prop)
       {
-        for (final String prop : propertyNames)
+        public void innerRun()
         {
           List<PropertyEventSubscriber<T>> subscribers = _subscribers.get(prop);
           if (subscribers != null)
@@ -161,15 +187,15 @@ public class PropertyEventBusImpl<T> implements PropertyEventBus<T>
             }
           }
         }
-      }
-    });
+      });
+    }
   }
 
   @Override
   public void setPublisher(final PropertyEventPublisher<T> publisher)
   {
 
-    _thread.send(new PropertyEvent("PropertyEventBus.setPublisher")
+    send(null, new PropertyEvent("PropertyEventBus.setPublisher")
     {
       public void innerRun()
       {
@@ -198,7 +224,7 @@ public class PropertyEventBusImpl<T> implements PropertyEventBus<T>
       _log.warn("Received a null event during publishInitialize for String prop = " + prop +
                     ". Still publishing the null event.");
     }
-    _thread.send(new PropertyEvent("PropertyEventBus.publishInitialize " + prop)
+    send(prop, new PropertyEvent("PropertyEventBus.publishInitialize " + prop)
     {
       public void innerRun()
       {
@@ -231,7 +257,7 @@ public class PropertyEventBusImpl<T> implements PropertyEventBus<T>
       _log.warn("Received a null event during publishAdd for String prop = " + prop +
                     ". Still publishing the null event.");
     }
-    _thread.send(new PropertyEvent("PropertyEventBus.publishAdd " + prop)
+    send(prop, new PropertyEvent("PropertyEventBus.publishAdd " + prop)
     {
       public void innerRun()
       {
@@ -251,7 +277,7 @@ public class PropertyEventBusImpl<T> implements PropertyEventBus<T>
   @Override
   public void publishRemove(final String prop)
   {
-    _thread.send(new PropertyEvent("PropertyEventBus.publishRemove " + prop)
+    send(prop, new PropertyEvent("PropertyEventBus.publishRemove " + prop)
     {
       public void innerRun()
       {
@@ -268,6 +294,26 @@ public class PropertyEventBusImpl<T> implements PropertyEventBus<T>
     });
   }
 
+  /**
+   * Sends the event of the given property, or the event touching all the properties if the
+   * property is null.
+   */
+  private void send(String prop, PropertyEvent event)
+  {
+    if (_partitionedExecutor == null)
+    {
+      _thread.send(event);
+    }
+    else if (prop == null)
+    {
+      _partitionedExecutor.send(event);
+    }
+    else
+    {
+      _partitionedExecutor.send(prop, event);
+    }
+  }
+
   private List<PropertyEventSubscriber<T>> subscribers(String prop)
   {
     List<PropertyEventSubscriber<T>> subscribers = _subscribers.get(prop);
@@ -21,11 +21,18 @@ import static com.linkedin.d2.discovery.util.LogUtil.error;
 import static com.linkedin.d2.discovery.util.LogUtil.info;
 import static com.linkedin.d2.discovery.util.LogUtil.warn;
 
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.linkedin.d2.discovery.ByteBufferPropertySerializer;
 
 import com.linkedin.d2.discovery.PropertySerializationException;
 import com.linkedin.common.callback.Callback;
@@ -39,17 +46,46 @@ import com.linkedin.d2.discovery.event.PropertyEventThread.PropertyEventShutdown
 import com.linkedin.d2.discovery.stores.PropertyStore;
 import com.linkedin.d2.discovery.util.Stats;
 
+/**
+ * A {@link PropertyStore} keeping each property in a file.<p/>
+ *
+ * The store also keeps the serialized properties it wrote or read, with the last modified time
+ * of their files, and writes them to a snapshot file next to its directory on shutdown. A new
+ * store on the same path maps the snapshot, and reads its properties from the mapped file
+ * without opening the file of each of them. A kept property is only used while its file has
+ * the same last modified time and length, and only if the file was last modified at least
+ * {@link #MODIFIED_TIME_RESOLUTION_MS} before the property was read from it, so that a later
+ * change of the file, even in place, gives it another last modified time. Otherwise the
+ * property is read from its file.
+ */
 public class FileStore<T> implements PropertyStore<T>, PropertyEventSubscriber<T>
 {
   private static final Logger         _log = LoggerFactory.getLogger(FileStore.class);
 
+  /**
+   * Suffix of the snapshot file, which is next to the directory of the store.
+   */
+  public static final String          SNAPSHOT_SUFFIX = ".snapshot";
+
+  /**
+   * The resolution of {@link File#lastModified()}, which is a second on some platforms.
+   */
+  public static final long            MODIFIED_TIME_RESOLUTION_MS = 1000;
+
   private final String                _path;
   private final String                _extension;
   private final PropertySerializer<T> _serializer;
+  private final ByteBufferPropertySerializer<T> _byteBufferSerializer;
   private final Stats                 _getStats;
   private final Stats                 _putStats;
   private final Stats                 _removeStats;
+  private final File                  _snapshotFile;
 
+  // the serialized properties which were the content of their files when last checked
+  private final Map<String, FileStoreSnapshot.Property> _snapshot =
+      new ConcurrentHashMap<String, FileStoreSnapshot.Property>();
+
+  @SuppressWarnings("unchecked")
   public FileStore(String path, String extension, PropertySerializer<T> serializer)
   {
     _getStats = new Stats(60000);
@@ -58,6 +94,8 @@ public class FileStore<T> implements PropertyStore<T>, PropertyEventSubscriber<T
     _path = path;
     _extension = extension;
     _serializer = serializer;
+    _byteBufferSerializer = serializer instanceof ByteBufferPropertySerializer ?
+        (ByteBufferPropertySerializer<T>) serializer : null;
 
     File file = new File(_path);
 
@@ -68,6 +106,21 @@ public class FileStore<T> implements PropertyStore<T>, PropertyEventSubscriber<T
         error(_log, "unable to create file path: " + _path);
       }
     }
+
+    _snapshotFile = new File(file.getPath() + SNAPSHOT_SUFFIX);
+    try
+    {
+      Map<String, FileStoreSnapshot.Property> snapshot = FileStoreSnapshot.read(_snapshotFile);
+      if (snapshot != null)
+      {
+        _snapshot.putAll(snapshot);
+        info(_log, "read snapshot of ", snapshot.size(), " properties from ", _snapshotFile);
+      }
+    }
+    catch (IOException e)
+    {
+      _log.warn("Unable to read snapshot, reading the property files instead", e);
+    }
   }
 
   @Override
@@ -94,10 +147,25 @@ public class FileStore<T> implements PropertyStore<T>, PropertyEventSubscriber<T
 
     File file = getFile(listenTo);
 
+    FileStoreSnapshot.Property property = _snapshot.get(listenTo);
+    if (property != null && isContentOf(property, file))
+    {
+      try
+      {
+        return fromBytes(property.getBytes());
+      }
+      catch (PropertySerializationException e)
+      {
+        _log.error("Error deserializing property " + listenTo + " from snapshot " + _snapshotFile, e);
+      }
+    }
+
     if (file.exists())
     {
       try
       {
+        long readAt = System.currentTimeMillis();
+        long lastModified = file.lastModified();
         byte content[] = new byte[(int) file.length()];
         int offset = 0;
         int read = 0;
@@ -111,7 +179,20 @@ public class FileStore<T> implements PropertyStore<T>, PropertyEventSubscriber<T
 
         inputStream.close();
 
-        return _serializer.fromBytes(content);
+        T value = _serializer.fromBytes(content);
+
+        // keep the property unless the file changed while it was read
+        if (offset == length && file.length() == length && file.lastModified() == lastModified)
+        {
+          _snapshot.put(listenTo, new FileStoreSnapshot.Property(ByteBuffer.wrap(content), lastModified,
+                                                                 readAt - lastModified >= MODIFIED_TIME_RESOLUTION_MS));
+        }
+        else
+        {
+          _snapshot.remove(listenTo);
+        }
+
+        return value;
       }
       catch (IOException e)
       {
@@ -140,19 +221,28 @@ public class FileStore<T> implements PropertyStore<T>, PropertyEventSubscriber<T
       _putStats.inc();
 
       File file = getFile(listenTo);
+      byte[] bytes = _serializer.toBytes(discoveryProperties);
+
+      _snapshot.remove(listenTo);
 
       try
       {
         File tempFile = getTempFile(listenTo);
         FileOutputStream outputStream = new FileOutputStream(tempFile);
 
-        outputStream.write(_serializer.toBytes(discoveryProperties));
+        outputStream.write(bytes);
         outputStream.close();
 
         if (!tempFile.renameTo(file))
         {
           error(_log, "unable to move temp file ", tempFile, " to ", file);
         }
+        else
+        {
+          // the file was just written, so the property is not used until it is read from the
+          // file again, or checked against the file when the snapshot is written
+          _snapshot.put(listenTo, new FileStoreSnapshot.Property(ByteBuffer.wrap(bytes), file.lastModified(), false));
+        }
       }
       catch (FileNotFoundException e)
       {
@@ -172,6 +262,8 @@ public class FileStore<T> implements PropertyStore<T>, PropertyEventSubscriber<T
 
     File file = getFile(listenTo);
 
+    _snapshot.remove(listenTo);
+
     if (file.exists())
     {
       file.delete();
@@ -200,6 +292,109 @@ public class FileStore<T> implements PropertyStore<T>, PropertyEventSubscriber<T
     remove(propertyName);
   }
 
+  private T fromBytes(ByteBuffer bytes) throws PropertySerializationException
+  {
+    if (_byteBufferSerializer != null)
+    {
+      return _byteBufferSerializer.fromBytes(bytes);
+    }
+
+    if (bytes.hasArray() && bytes.arrayOffset() == 0 && bytes.position() == 0
+        && bytes.remaining() == bytes.array().length)
+    {
+      return _serializer.fromBytes(bytes.array());
+    }
+    byte[] content = new byte[bytes.remaining()];
+    bytes.get(content);
+    return _serializer.fromBytes(content);
+  }
+
+  /**
+   * Returns whether the kept property is the content of the file, which is the case if the file
+   * still has the last modified time and length it had when the property was read from it, and
+   * was last modified at least {@link #MODIFIED_TIME_RESOLUTION_MS} before that.
+   */
+  private static boolean isContentOf(FileStoreSnapshot.Property property, File file)
+  {
+    return property.isSettled()
+        && file.lastModified() == property.getLastModified()
+        && file.length() == property.getBytes().remaining();
+  }
+
+  /**
+   * Writes the kept properties to the snapshot file, which is read when a store is next created
+   * on the same path. A kept property which can not be shown to be the content of its file from
+   * the last modified time and length of the file is compared with the content of the file
+   * instead, and left out if it differs or if the file was modified too recently.
+   */
+  public synchronized void writeSnapshot()
+  {
+    Map<String, FileStoreSnapshot.Property> snapshot = new HashMap<String, FileStoreSnapshot.Property>();
+    for (Map.Entry<String, FileStoreSnapshot.Property> entry : _snapshot.entrySet())
+    {
+      FileStoreSnapshot.Property property = entry.getValue();
+      File file = getFile(entry.getKey());
+      if (!isContentOf(property, file))
+      {
+        property = settle(property, file);
+      }
+      if (property != null)
+      {
+        snapshot.put(entry.getKey(), property);
+      }
+    }
+
+    try
+    {
+      FileStoreSnapshot.write(_snapshotFile, snapshot);
+      info(_log, "wrote snapshot of ", snapshot.size(), " properties to ", _snapshotFile);
+    }
+    catch (IOException e)
+    {
+      _log.warn("Unable to write snapshot " + _snapshotFile, e);
+    }
+  }
+
+  /**
+   * Returns the property as a settled property if it is the content of the file, which was last
+   * modified at least {@link #MODIFIED_TIME_RESOLUTION_MS} ago, or null otherwise.
+   */
+  private static FileStoreSnapshot.Property settle(FileStoreSnapshot.Property property, File file)
+  {
+    long readAt = System.currentTimeMillis();
+    long lastModified = file.lastModified();
+    ByteBuffer bytes = property.getBytes();
+    if (readAt - lastModified < MODIFIED_TIME_RESOLUTION_MS || file.length() != bytes.remaining())
+    {
+      return null;
+    }
+
+    try
+    {
+      DataInputStream inputStream = new DataInputStream(new FileInputStream(file));
+      byte[] content = new byte[bytes.remaining()];
+      try
+      {
+        inputStream.readFully(content);
+      }
+      finally
+      {
+        inputStream.close();
+      }
+      if (!bytes.equals(ByteBuffer.wrap(content)) || file.lastModified() != lastModified)
+      {
+        return null;
+      }
+    }
+    catch (IOException e)
+    {
+      debug(_log, "unable to read file ", file, " for the snapshot: ", e);
+      return null;
+    }
+
+    return new FileStoreSnapshot.Property(bytes, lastModified, true);
+  }
+
   private File getFile(String listenTo)
   {
     return new File(_path + File.separatorChar + listenTo + _extension);
@@ -215,6 +410,7 @@ public class FileStore<T> implements PropertyStore<T>, PropertyEventSubscriber<T
   {
     info(_log, "shutting down");
 
+    writeSnapshot();
     shutdown.done();
   }
 
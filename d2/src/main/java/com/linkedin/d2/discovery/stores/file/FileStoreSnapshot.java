@@ -0,0 +1,185 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.d2.discovery.stores.file;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The serialized properties of a {@link FileStore} in a single file, which is memory mapped so
+ * that a new store reads its properties without opening the file of each of them.<p/>
+ *
+ * The snapshot starts with {@link #MAGIC} and the number of properties, followed by the name,
+ * the last modified time of the file and the serialized bytes of each property. The store only
+ * uses a property of the snapshot while its file has the same last modified time and length.
+ */
+/* package private */ class FileStoreSnapshot
+{
+  // "d2" and the version of the format
+  static final int MAGIC = 0xD2000001;
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private FileStoreSnapshot()
+  {
+  }
+
+  /**
+   * A serialized property with the last modified time of its file when it was read from or
+   * written to the file.
+   */
+  static class Property
+  {
+    private final ByteBuffer _bytes;
+    private final long _lastModified;
+    private final boolean _settled;
+
+    /**
+     * @param settled whether the file was last modified at least
+     *                {@link FileStore#MODIFIED_TIME_RESOLUTION_MS} before the property was read
+     *                from it, so that any later change of the file changes its last modified time.
+     */
+    Property(ByteBuffer bytes, long lastModified, boolean settled)
+    {
+      _bytes = bytes;
+      _lastModified = lastModified;
+      _settled = settled;
+    }
+
+    ByteBuffer getBytes()
+    {
+      return _bytes.duplicate();
+    }
+
+    long getLastModified()
+    {
+      return _lastModified;
+    }
+
+    boolean isSettled()
+    {
+      return _settled;
+    }
+  }
+
+  /**
+   * Maps the snapshot file and returns the properties, by name, as slices of the mapped file.
+   *
+   * @return the settled properties, or null if the file does not exist.
+   * @throws IOException if the file can not be read or is not a snapshot.
+   */
+  static Map<String, Property> read(File file) throws IOException
+  {
+    if (!file.exists())
+    {
+      return null;
+    }
+
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+    MappedByteBuffer buffer;
+    try
+    {
+      buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, randomAccessFile.length());
+    }
+    finally
+    {
+      // the mapping stays valid after the channel is closed
+      randomAccessFile.close();
+    }
+
+    try
+    {
+      if (buffer.getInt() != MAGIC)
+      {
+        throw new IOException("Not a file store snapshot: " + file);
+      }
+      int count = buffer.getInt();
+      Map<String, Property> properties = new HashMap<String, Property>(count * 2);
+      for (int i = 0; i < count; i++)
+      {
+        byte[] name = new byte[buffer.getInt()];
+        buffer.get(name);
+        long lastModified = buffer.getLong();
+        int length = buffer.getInt();
+        ByteBuffer bytes = buffer.slice();
+        bytes.limit(length);
+        properties.put(new String(name, UTF8), new Property(bytes, lastModified, true));
+        buffer.position(buffer.position() + length);
+      }
+      return properties;
+    }
+    catch (RuntimeException e)
+    {
+      throw new IOException("Corrupted file store snapshot: " + file, e);
+    }
+  }
+
+  /**
+   * Writes a snapshot of the given settled properties, by name. The snapshot is written to a
+   * temporary file first, which replaces the snapshot file once complete.
+   */
+  static void write(File file, Map<String, Property> properties) throws IOException
+  {
+    File tempFile = File.createTempFile(file.getName(), "tmp", file.getAbsoluteFile().getParentFile());
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+    try
+    {
+      out.writeInt(MAGIC);
+      out.writeInt(properties.size());
+      for (Map.Entry<String, Property> property : properties.entrySet())
+      {
+        byte[] name = property.getKey().getBytes(UTF8);
+        ByteBuffer bytes = property.getValue().getBytes();
+        out.writeInt(name.length);
+        out.write(name);
+        out.writeLong(property.getValue().getLastModified());
+        out.writeInt(bytes.remaining());
+        if (bytes.hasArray())
+        {
+          out.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+        }
+        else
+        {
+          byte[] content = new byte[bytes.remaining()];
+          bytes.get(content);
+          out.write(content);
+        }
+      }
+    }
+    finally
+    {
+      out.close();
+    }
+
+    if (!tempFile.renameTo(file))
+    {
+      tempFile.delete();
+      throw new IOException("Unable to move temp file " + tempFile + " to " + file);
+    }
+  }
+}
@@ -16,10 +16,15 @@
 
 package com.linkedin.d2.discovery.stores.zk;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -27,6 +32,7 @@ import org.apache.zookeeper.AsyncCallback;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
 import org.apache.zookeeper.ZooDefs;
 import org.apache.zookeeper.data.Stat;
 import org.slf4j.Logger;
@@ -53,6 +59,13 @@ public class ZooKeeperEphemeralStore<T> extends ZooKeeperStore<T>
   private final boolean _watchChildNodes;
   private static final Pattern PATH_PATTERN    = Pattern.compile("(.*)/(.*)$");
 
+  // the data of the children of the published properties, by property path, so that only the
+  // children added since the last read of a property are read
+  private final ConcurrentMap<String, ChildDataCache> _childDataCaches =
+      new ConcurrentHashMap<String, ChildDataCache>();
+  private final AtomicLong _childReadCount = new AtomicLong();
+  private final AtomicLong _childReadSavedCount = new AtomicLong();
+
   public ZooKeeperEphemeralStore(ZKConnection client,
                                  PropertySerializer<T> serializer,
                                  ZooKeeperPropertyMerger<T> merger,
@@ -179,6 +192,7 @@ public class ZooKeeperEphemeralStore<T> extends ZooKeeperStore<T>
             if (children.size() > 0)
             {
               ChildCollector collector = new ChildCollector(children.size(), childrenCallback);
+              _childReadCount.addAndGet(children.size());
               for (String child : children)
               {
                 _zk.getData(path + "/" + child, false, collector, null);
@@ -218,7 +232,7 @@ public class ZooKeeperEphemeralStore<T> extends ZooKeeperStore<T>
             break;
 
           case OK:
-            getMergedChildren(path, children, null, callback);
+            getMergedChildren(path, children, callback);
             break;
 
           default:
@@ -230,7 +244,7 @@ public class ZooKeeperEphemeralStore<T> extends ZooKeeperStore<T>
     _zk.getChildren(path, null, zkCallback, null);
   }
 
-  private void getMergedChildren(String path, List<String> children, ZKStoreWatcher watcher, final Callback<T> callback)
+  private void getMergedChildren(String path, List<String> children, final Callback<T> callback)
   {
     final String propertyName = getPropertyForPath(path);
     if (children.size() > 0)
@@ -244,9 +258,10 @@ public class ZooKeeperEphemeralStore<T> extends ZooKeeperStore<T>
           return _merger.merge(propertyName, response.values());
         }
       });
+      _childReadCount.addAndGet(children.size());
       for (String child : children)
       {
-        _zk.getData(path + "/" + child, (_watchChildNodes) ? watcher : null, collector, null);
+        _zk.getData(path + "/" + child, false, collector, null);
       }
     }
     else
@@ -256,6 +271,111 @@ public class ZooKeeperEphemeralStore<T> extends ZooKeeperStore<T>
     }
   }
 
+  /**
+   * Merges the children of a published property, only reading the data of the children which
+   * are not in the cache of the property. The store never updates the data of an ephemeral
+   * child, so the data of a cached child is only read again when a child watch reports that it
+   * changed.
+   */
+  private void getCachedMergedChildren(String path, final List<String> children, ZKStoreWatcher watcher,
+                                       final Callback<T> callback)
+  {
+    final String propertyName = getPropertyForPath(path);
+    final ChildDataCache cache = getChildDataCache(path);
+    cache._children.keySet().retainAll(children);
+
+    List<String> newChildren = new ArrayList<String>();
+    for (String child : children)
+    {
+      if (!cache._children.containsKey(child))
+      {
+        newChildren.add(child);
+      }
+    }
+    _childReadSavedCount.addAndGet(children.size() - newChildren.size());
+
+    final Callback<Map<String,T>> mergeCallback = new CallbackAdapter<T,Map<String,T>>(callback)
+    {
+      @Override
+      protected T convertResponse(Map<String,T> response) throws Exception
+      {
+        List<T> values = new ArrayList<T>(children.size());
+        for (String child : children)
+        {
+          T value = cache._children.get(child);
+          if (value == null)
+          {
+            value = response.get(child);
+          }
+          if (value != null)
+          {
+            values.add(value);
+          }
+        }
+        return _merger.merge(propertyName, values);
+      }
+    };
+
+    if (!newChildren.isEmpty())
+    {
+      _log.debug("getMergedChildren: collecting {}", newChildren);
+      cache._pendingReads.incrementAndGet();
+      ChildCollector collector = new ChildCollector(newChildren.size(), new Callback<Map<String,T>>()
+      {
+        @Override
+        public void onSuccess(Map<String,T> response)
+        {
+          cache._pendingReads.decrementAndGet();
+          mergeCallback.onSuccess(response);
+        }
+
+        @Override
+        public void onError(Throwable e)
+        {
+          cache._pendingReads.decrementAndGet();
+          mergeCallback.onError(e);
+        }
+      }, cache._children);
+      _childReadCount.addAndGet(newChildren.size());
+      for (String child : newChildren)
+      {
+        _zk.getData(path + "/" + child, (_watchChildNodes) ? watcher : null, collector, null);
+      }
+    }
+    else if (cache._pendingReads.get() > 0)
+    {
+      // ZooKeeper answers the requests of a session in order, so waiting for this request
+      // publishes the value after the values of the reads still in flight
+      _zk.exists(path, false, new AsyncCallback.StatCallback()
+      {
+        @Override
+        public void processResult(int rc, String path, Object ctx, Stat stat)
+        {
+          mergeCallback.onSuccess(Collections.<String,T>emptyMap());
+        }
+      }, null);
+    }
+    else
+    {
+      mergeCallback.onSuccess(Collections.<String,T>emptyMap());
+    }
+  }
+
+  private ChildDataCache getChildDataCache(String path)
+  {
+    ChildDataCache cache = _childDataCaches.get(path);
+    if (cache == null)
+    {
+      cache = new ChildDataCache();
+      ChildDataCache existing = _childDataCaches.putIfAbsent(path, cache);
+      if (existing != null)
+      {
+        cache = existing;
+      }
+    }
+    return cache;
+  }
+
   @Override
   public void startPublishing(final String prop)
   {
@@ -287,6 +407,7 @@ public class ZooKeeperEphemeralStore<T> extends ZooKeeperStore<T>
     trace(_log, "unregister: ", prop);
 
     _zkStoreWatcher.cancelWatch(prop);
+    _childDataCaches.remove(getPath(prop));
   }
 
   public int getListenerCount()
@@ -294,6 +415,23 @@ public class ZooKeeperEphemeralStore<T> extends ZooKeeperStore<T>
     return _zkStoreWatcher.getWatchCount();
   }
 
+  /**
+   * @return the number of child data reads issued to ZooKeeper.
+   */
+  public long getChildReadCount()
+  {
+    return _childReadCount.get();
+  }
+
+  /**
+   * @return the number of child data reads saved by the cache of the children of the published
+   * properties.
+   */
+  public long getChildReadSavedCount()
+  {
+    return _childReadSavedCount.get();
+  }
+
   // Note ChildrenCallback is compatible with a ZK 3.2 server; Children2Callback is
   // compatible only with ZK 3.3+ server.
   private class ZKStoreWatcher extends ZooKeeperStore<T>.ZKStoreWatcher
@@ -350,8 +488,29 @@ public class ZooKeeperEphemeralStore<T> extends ZooKeeperStore<T>
     @Override
     public void processWatch(final String propertyName, WatchedEvent watchedEvent)
     {
+      String path = getPath(propertyName);
+      if (!path.equals(watchedEvent.getPath()))
+      {
+        // the data of a child changed, so it is read again
+        ChildDataCache cache = _childDataCaches.get(path);
+        if (cache != null)
+        {
+          cache._children.remove(watchedEvent.getPath().substring(path.length() + 1));
+        }
+      }
+
       // Reset the watch
-      _zk.getChildren(getPath(propertyName), this, this, false);
+      _zk.getChildren(path, this, this, false);
+    }
+
+    @Override
+    protected void processSessionEvent(WatchedEvent watchedEvent)
+    {
+      // the child watches are lost with the session
+      if (watchedEvent.getState() == Watcher.Event.KeeperState.Expired)
+      {
+        _childDataCaches.clear();
+      }
     }
 
     @Override
@@ -364,7 +523,7 @@ public class ZooKeeperEphemeralStore<T> extends ZooKeeperStore<T>
       switch (code)
       {
         case OK:
-          getMergedChildren(path, children, this, new Callback<T>()
+          getCachedMergedChildren(path, children, this, new Callback<T>()
           {
             @Override
             public void onSuccess(T value)
@@ -443,17 +602,37 @@ public class ZooKeeperEphemeralStore<T> extends ZooKeeperStore<T>
     }
   }
 
+  /**
+   * The data of the children of a published property, by child name.
+   */
+  private class ChildDataCache
+  {
+    private final Map<String,T> _children = new ConcurrentHashMap<String,T>();
+    // the number of reads of children of the property in flight
+    private final AtomicInteger _pendingReads = new AtomicInteger();
+  }
+
   private class ChildCollector implements AsyncCallback.DataCallback
   {
     private int _count;
     private final Map<String,T> _properties;
     private final Callback<Map<String,T>> _callback;
+    private final Map<String,T> _cache;
 
     private ChildCollector(int count, Callback<Map<String,T>> callback)
+    {
+      this(count, callback, null);
+    }
+
+    /**
+     * @param cache also receives the data of the children read, if not null.
+     */
+    private ChildCollector(int count, Callback<Map<String,T>> callback, Map<String,T> cache)
     {
       _count = count;
       _properties = new HashMap<String,T>(_count);
       _callback = callback;
+      _cache = cache;
     }
 
     @Override
@@ -469,6 +648,10 @@ public class ZooKeeperEphemeralStore<T> extends ZooKeeperStore<T>
             String childPath = s.substring(s.lastIndexOf('/') + 1);
             T value = _serializer.fromBytes(bytes);
             _properties.put(childPath, value);
+            if (_cache != null && value != null)
+            {
+              _cache.put(childPath, value);
+            }
             if (_count == 0)
             {
               _callback.onSuccess(_properties);
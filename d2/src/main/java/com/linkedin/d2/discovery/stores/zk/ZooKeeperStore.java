@@ -250,6 +250,20 @@ public abstract class ZooKeeperStore<T> extends AbstractPropertyStoreAsync<T>
         _log.debug("processing watch for path: {}", path);
         processWatch(getPropertyForPath(path), watchedEvent);
       }
+      else
+      {
+        processSessionEvent(watchedEvent);
+      }
+    }
+
+    /**
+     * Called for the events about the state of the session rather than a path. Does nothing by
+     * default.
+     *
+     * @param event
+     */
+    protected void processSessionEvent(WatchedEvent event)
+    {
     }
 
     /**
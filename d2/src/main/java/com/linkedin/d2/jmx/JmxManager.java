@@ -24,6 +24,7 @@ import com.linkedin.d2.balancer.strategies.LoadBalancerStrategy;
 import com.linkedin.d2.balancer.strategies.degrader.DegraderLoadBalancerStrategyV2;
 import com.linkedin.d2.balancer.strategies.degrader.DegraderLoadBalancerStrategyV2_1;
 import com.linkedin.d2.balancer.strategies.degrader.DegraderLoadBalancerStrategyV3;
+import com.linkedin.d2.discovery.event.PartitionedPropertyEventExecutor;
 import com.linkedin.d2.discovery.event.PropertyEventThread;
 import com.linkedin.d2.discovery.stores.file.FileStore;
 import com.linkedin.d2.discovery.stores.zk.ZooKeeperEphemeralStore;
@@ -104,6 +105,14 @@ public class JmxManager
     return this;
   }
 
+  public synchronized JmxManager registerPartitionedPropertyEventExecutor(String name,
+                                                                         PartitionedPropertyEventExecutor executor)
+  {
+    checkReg(new PartitionedPropertyEventExecutorJmx(executor), name);
+
+    return this;
+  }
+
   public synchronized JmxManager registerScheduledThreadPoolExecutor(String name,
                                                                      ScheduledThreadPoolExecutor executor)
   {
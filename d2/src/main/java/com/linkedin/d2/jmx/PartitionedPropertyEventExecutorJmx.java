@@ -0,0 +1,72 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.d2.jmx;
+
+import com.linkedin.d2.discovery.event.PartitionedPropertyEventExecutor;
+
+public class PartitionedPropertyEventExecutorJmx implements PartitionedPropertyEventExecutorJmxMBean
+{
+  private final PartitionedPropertyEventExecutor _executor;
+
+  public PartitionedPropertyEventExecutorJmx(PartitionedPropertyEventExecutor executor)
+  {
+    _executor = executor;
+  }
+
+  @Override
+  public int getPartitionCount()
+  {
+    return _executor.getPartitionCount();
+  }
+
+  @Override
+  public int getQueuedEventCount()
+  {
+    return _executor.getQueuedEventCount();
+  }
+
+  @Override
+  public int getMaxPartitionQueueDepth()
+  {
+    return _executor.getMaxPartitionQueueDepth();
+  }
+
+  @Override
+  public long getOldestEventAgeMs()
+  {
+    return _executor.getOldestEventAgeMs();
+  }
+
+  @Override
+  public long getProcessedEventCount()
+  {
+    return _executor.getProcessedEventCount();
+  }
+
+  @Override
+  public double getAverageEventLagMs()
+  {
+    return _executor.getAverageEventLagMs();
+  }
+
+  @Override
+  public long getMaxEventLagMs()
+  {
+    return _executor.getMaxEventLagMs();
+  }
+}
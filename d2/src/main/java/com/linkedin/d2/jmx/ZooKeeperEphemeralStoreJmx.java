@@ -40,6 +40,18 @@ public class ZooKeeperEphemeralStoreJmx<T> extends ZooKeeperStoreJmx<T> implemen
     return _store.getListenerCount();
   }
 
+  @Override
+  public long getChildReadCount()
+  {
+    return _store.getChildReadCount();
+  }
+
+  @Override
+  public long getChildReadSavedCount()
+  {
+    return _store.getChildReadSavedCount();
+  }
+
   @Override
   public void removePartial(String listenTo, String discoveryProperties) throws
           PropertyStoreException
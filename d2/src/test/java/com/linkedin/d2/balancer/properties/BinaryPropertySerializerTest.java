@@ -0,0 +1,117 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.d2.balancer.properties;
+
+import com.linkedin.d2.discovery.PropertySerializationException;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+public class BinaryPropertySerializerTest
+{
+  @Test(groups = { "small", "back-end" })
+  public void testUriProperties() throws PropertySerializationException
+  {
+    UriPropertiesBinarySerializer serializer = new UriPropertiesBinarySerializer();
+    Map<Integer, PartitionData> partitionData = new HashMap<Integer, PartitionData>();
+    partitionData.put(0, new PartitionData(1d));
+    partitionData.put(5, new PartitionData(0.5d));
+    Map<URI, Map<Integer, PartitionData>> partitionDesc = new HashMap<URI, Map<Integer, PartitionData>>();
+    partitionDesc.put(URI.create("http://host1:1234/test"), partitionData);
+    partitionDesc.put(URI.create("http://host2:1234/test"), Collections.singletonMap(0, new PartitionData(2d)));
+
+    UriProperties property = new UriProperties("test", partitionDesc);
+    byte[] bytes = serializer.toBytes(property);
+    assertEquals(bytes[0], BinaryPropertySerializer.BINARY_FORMAT_HEADER);
+    assertEquals(serializer.fromBytes(bytes), property);
+
+    // the json form is still read
+    assertEquals(serializer.fromBytes(new UriPropertiesJsonSerializer().toBytes(property)), property);
+
+    // from a slice of a larger buffer, like the snapshot of a file store
+    ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length + 8);
+    buffer.putInt(42).put(bytes).putInt(42);
+    buffer.position(4);
+    ByteBuffer slice = buffer.slice();
+    slice.limit(bytes.length);
+    assertEquals(serializer.fromBytes(slice), property);
+    assertEquals(serializer.fromBytes(ByteBuffer.wrap(new UriPropertiesJsonSerializer().toBytes(property))), property);
+
+    property = new UriProperties("empty", new HashMap<URI, Map<Integer, PartitionData>>());
+    assertEquals(serializer.fromBytes(serializer.toBytes(property)), property);
+  }
+
+  @Test(groups = { "small", "back-end" })
+  public void testClusterProperties() throws PropertySerializationException
+  {
+    ClusterPropertiesBinarySerializer serializer = new ClusterPropertiesBinarySerializer();
+    List<String> schemes = new ArrayList<String>();
+    schemes.add("http");
+    Map<String, String> supProperties = new HashMap<String, String>();
+    supProperties.put("foo", "bar");
+
+    ClusterProperties property = new ClusterProperties("test", schemes, supProperties);
+    assertEquals(serializer.fromBytes(serializer.toBytes(property)), property);
+
+    RangeBasedPartitionProperties rbp = new RangeBasedPartitionProperties("blah", 0, 5000000000L, 100);
+    property = new ClusterProperties("test", schemes, supProperties, new HashSet<URI>(), rbp);
+    assertEquals(serializer.fromBytes(serializer.toBytes(property)), property);
+    assertEquals(serializer.fromBytes(new ClusterPropertiesJsonSerializer().toBytes(property)), property);
+  }
+
+  @Test(groups = { "small", "back-end" })
+  public void testServiceProperties() throws PropertySerializationException
+  {
+    ServicePropertiesBinarySerializer serializer = new ServicePropertiesBinarySerializer();
+    Map<String, Object> strategyProperties = new HashMap<String, Object>();
+    strategyProperties.put("http.loadBalancer.pointsPerWeight", "100");
+    strategyProperties.put("list", Collections.singletonList("value"));
+
+    ServiceProperties property =
+        new ServiceProperties("servicename", "clustername", "/foo", "degrader", strategyProperties);
+    assertEquals(serializer.fromBytes(serializer.toBytes(property)), property);
+    assertEquals(serializer.fromBytes(new ServicePropertiesJsonSerializer().toBytes(property)), property);
+  }
+
+  @Test(groups = { "small", "back-end" })
+  public void testUnsupportedVersion()
+  {
+    byte[] bytes = new UriPropertiesBinarySerializer().toBytes(
+        new UriProperties("test", new HashMap<URI, Map<Integer, PartitionData>>()));
+    bytes[1] = BinaryPropertySerializer.BINARY_FORMAT_VERSION + 1;
+    try
+    {
+      new UriPropertiesBinarySerializer().fromBytes(bytes);
+      fail("Should not read an unknown version");
+    }
+    catch (PropertySerializationException e)
+    {
+      // expected
+    }
+  }
+}
@@ -76,7 +76,9 @@ import java.util.concurrent.TimeUnit;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
@@ -455,6 +457,49 @@ public class SimpleLoadBalancerStateTest
     assertEquals(client.getUri(), uri);
   }
 
+  @Test(groups = { "small", "back-end" })
+  public void testGetClientAfterReweight() throws URISyntaxException
+  {
+    reset();
+
+    URI uri = URI.create("http://cluster-1/test");
+    URI uri2 = URI.create("http://cluster-1/test2");
+    List<String> schemes = new ArrayList<String>();
+    schemes.add("http");
+    Map<Integer, PartitionData> partitionData = new HashMap<Integer, PartitionData>(1);
+    partitionData.put(DefaultPartitionAccessor.DEFAULT_PARTITION_ID, new PartitionData(1d));
+    Map<URI, Map<Integer, PartitionData>> uriData = new HashMap<URI, Map<Integer, PartitionData>>();
+    uriData.put(uri, partitionData);
+    uriData.put(uri2, partitionData);
+
+    _state.listenToCluster("cluster-1", new NullStateListenerCallback());
+    _state.listenToService("service-1", new NullStateListenerCallback());
+    _serviceRegistry.put("service-1", new ServiceProperties("service-1", "cluster-1",
+                                                            "/test", "random", null,
+                                                            Collections.<String, Object>emptyMap(),
+                                                            null, null, schemes, null));
+    _uriRegistry.put("cluster-1", new UriProperties("cluster-1", uriData));
+
+    TrackerClient client = _state.getClient("service-1", uri);
+    TrackerClient client2 = _state.getClient("service-1", uri2);
+    assertEquals(client.getPartitionWeight(DefaultPartitionAccessor.DEFAULT_PARTITION_ID), 1d);
+
+    // only the tracker client of the reweighted uri is replaced
+    Map<Integer, PartitionData> newPartitionData = new HashMap<Integer, PartitionData>(1);
+    newPartitionData.put(DefaultPartitionAccessor.DEFAULT_PARTITION_ID, new PartitionData(2d));
+    uriData.put(uri, newPartitionData);
+    _uriRegistry.put("cluster-1", new UriProperties("cluster-1", uriData));
+
+    TrackerClient newClient = _state.getClient("service-1", uri);
+    assertNotSame(newClient, client);
+    assertEquals(newClient.getPartitionWeight(DefaultPartitionAccessor.DEFAULT_PARTITION_ID), 2d);
+    assertSame(_state.getClient("service-1", uri2), client2);
+
+    // the same properties again do not replace any tracker client
+    _uriRegistry.put("cluster-1", new UriProperties("cluster-1", uriData));
+    assertSame(_state.getClient("service-1", uri), newClient);
+  }
+
   @Test(groups = { "small", "back-end" })
   public void testGetStrategy() throws URISyntaxException
   {
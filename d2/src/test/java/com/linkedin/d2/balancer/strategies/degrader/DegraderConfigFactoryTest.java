@@ -52,6 +52,8 @@ public class DegraderConfigFactoryTest
     Long lowOutstanding = 3000l;
     Integer minOutstandingCount = 10;
     Integer overrideMinCallCount = 5;
+    Boolean stripedCallTracker = true;
+    Boolean callTimeHistogram = true;
     properties.put(PropertyKeys.DEGRADER_LOG_ENABLED, logEnabled.toString());
     properties.put(PropertyKeys.DEGRADER_LATENCY_TO_USE, latencyToUse.toString());
     properties.put(PropertyKeys.DEGRADER_MAX_DROP_RATE, maxDropRate.toString());
@@ -67,6 +69,8 @@ public class DegraderConfigFactoryTest
     properties.put(PropertyKeys.DEGRADER_LOW_OUTSTANDING, lowOutstanding.toString());
     properties.put(PropertyKeys.DEGRADER_MIN_OUTSTANDING_COUNT, minOutstandingCount.toString());
     properties.put(PropertyKeys.DEGRADER_OVERRIDE_MIN_CALL_COUNT, overrideMinCallCount.toString());
+    properties.put(PropertyKeys.DEGRADER_STRIPED_CALL_TRACKER, stripedCallTracker.toString());
+    properties.put(PropertyKeys.DEGRADER_CALL_TIME_HISTOGRAM, callTimeHistogram.toString());
     DegraderImpl.Config config = DegraderConfigFactory.toDegraderConfig(properties);
     assertEquals(config.isLogEnabled(), logEnabled.booleanValue());
     assertEquals(config.getLatencyToUse(), latencyToUse);
@@ -83,5 +87,7 @@ public class DegraderConfigFactoryTest
     assertEquals(config.getLowOutstanding(), lowOutstanding.longValue());
     assertEquals(config.getMinOutstandingCount(), minOutstandingCount.longValue());
     assertEquals(config.getOverrideMinCallCount(), overrideMinCallCount.intValue());
+    assertEquals(config.isStripedCallTracker(), stripedCallTracker.booleanValue());
+    assertEquals(config.isCallTimeHistogram(), callTimeHistogram.booleanValue());
   }
 }
@@ -33,6 +33,7 @@ public class DegraderLoadBalancerStrategyConfigTest
     double httpDefaultSuccessfulTransmissionWeight = 0.88;
     int httpPointsPerWeight = 202;
     String httpHashMethod = "sha1";
+    String httpConsistentHashAlgorithm = "murmur3";
     double httpInitialRecoveryLevel = 0.06;
     double httpRingRampFactor = 1.67;
     double httpHighWaterMark = 1866.2;
@@ -54,6 +55,7 @@ public class DegraderLoadBalancerStrategyConfigTest
     properties.put(PropertyKeys.HTTP_LB_STRATEGY_PROPERTIES_POINTS_PER_WEIGHT,
                    httpPointsPerWeight);
     properties.put(PropertyKeys.HTTP_LB_HASH_METHOD, httpHashMethod);
+    properties.put(PropertyKeys.HTTP_LB_CONSISTENT_HASH_ALGORITHM, httpConsistentHashAlgorithm);
     properties.put(PropertyKeys.HTTP_LB_INITIAL_RECOVERY_LEVEL, httpInitialRecoveryLevel);
     properties.put(PropertyKeys.HTTP_LB_RING_RAMP_FACTOR, httpRingRampFactor);
     properties.put(PropertyKeys.HTTP_LB_HIGH_WATER_MARK, httpHighWaterMark);
@@ -74,6 +76,7 @@ public class DegraderLoadBalancerStrategyConfigTest
     assertEquals(config.getGlobalStepDown(), httpGlobalStepDown);
     assertEquals(config.getGlobalStepUp(), httpGlobalStepUp);
     assertEquals(config.getHashConfig(), httpHashConfig);
+    assertEquals(config.getConsistentHashAlgorithm(), httpConsistentHashAlgorithm);
 
     //test if there's no config, will the default config value set
     properties.clear();
@@ -89,5 +92,6 @@ public class DegraderLoadBalancerStrategyConfigTest
     assertEquals(config.getGlobalStepDown(), DegraderLoadBalancerStrategyConfig.DEFAULT_GLOBAL_STEP_DOWN);
     assertEquals(config.getGlobalStepUp(), DegraderLoadBalancerStrategyConfig.DEFAULT_GLOBAL_STEP_UP);
     assertEquals(config.getHashConfig(), Collections.emptyMap());
+    assertNull(config.getConsistentHashAlgorithm());
   }
 }
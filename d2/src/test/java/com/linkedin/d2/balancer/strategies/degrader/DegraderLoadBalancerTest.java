@@ -26,9 +26,11 @@ import com.linkedin.d2.balancer.properties.PartitionData;
 import com.linkedin.d2.balancer.properties.PropertyKeys;
 import com.linkedin.d2.balancer.strategies.LoadBalancerStrategy;
 import com.linkedin.d2.balancer.util.URIRequest;
+import com.linkedin.d2.balancer.util.hashing.ConsistentHashKeyMapper;
 import com.linkedin.d2.balancer.util.hashing.ConsistentHashRing;
 import com.linkedin.d2.balancer.util.hashing.ConsistentHashRing.Point;
 import com.linkedin.d2.balancer.util.hashing.Ring;
+import com.linkedin.d2.balancer.util.hashing.StaticRingProvider;
 import com.linkedin.d2.balancer.util.hashing.URIRegexHash;
 import com.linkedin.d2.balancer.util.partitions.DefaultPartitionAccessor;
 import com.linkedin.r2.message.Request;
@@ -1901,6 +1903,56 @@ public class DegraderLoadBalancerTest
 
   }
 
+  @Test(groups = { "small", "back-end" })
+  public void testRegexHashingMatchesKeyMapper() throws Exception
+  {
+    for (String algorithm : new String[] { DegraderLoadBalancerStrategyV3.CONSISTENT_HASH_ALGORITHM_MD5,
+                                           DegraderLoadBalancerStrategyV3.CONSISTENT_HASH_ALGORITHM_MURMUR3 })
+    {
+      DegraderLoadBalancerStrategyV3 strategy = new DegraderLoadBalancerStrategyV3(
+              new DegraderLoadBalancerStrategyConfig(
+                      5000, 100, DegraderLoadBalancerStrategyV3.HASH_METHOD_URI_REGEX,
+                      Collections.<String,Object>singletonMap(URIRegexHash.KEY_REGEXES,
+                      Collections.singletonList("/greetings/([^/?]*)")), SystemClock.instance(),
+                      DegraderLoadBalancerStrategyConfig.DEFAULT_INITIAL_RECOVERY_LEVEL,
+                      DegraderLoadBalancerStrategyConfig.DEFAULT_RAMP_FACTOR,
+                      DegraderLoadBalancerStrategyConfig.DEFAULT_HIGH_WATER_MARK,
+                      DegraderLoadBalancerStrategyConfig.DEFAULT_LOW_WATER_MARK,
+                      DegraderLoadBalancerStrategyConfig.DEFAULT_GLOBAL_STEP_UP,
+                      DegraderLoadBalancerStrategyConfig.DEFAULT_GLOBAL_STEP_DOWN,
+                      DegraderLoadBalancerStrategyConfig.DEFAULT_CLUSTER_MIN_CALL_COUNT_HIGH_WATER_MARK,
+                      DegraderLoadBalancerStrategyConfig.DEFAULT_CLUSTER_MIN_CALL_COUNT_LOW_WATER_MARK,
+                      algorithm),
+              "DegraderLoadBalancerTest", null);
+      List<TrackerClient> clients = new ArrayList<TrackerClient>();
+      for (int i = 0; i < 20; i++)
+      {
+        clients.add(getClient(URI.create("http://server" + i + ".testing:9876/foobar")));
+      }
+
+      Ring<URI> ring = strategy.getRing(0, DEFAULT_PARTITION_ID, clients);
+      ConsistentHashKeyMapper keyMapper = new ConsistentHashKeyMapper(new StaticRingProvider(ring));
+      List<Integer> keys = new ArrayList<Integer>();
+      for (int i = 0; i < 100; i++)
+      {
+        keys.add(i);
+      }
+      Map<URI, Collection<Integer>> mappedKeys =
+          keyMapper.mapKeysV2(URI.create("d2://fooService"), keys).getMapResult();
+
+      for (Map.Entry<URI, Collection<Integer>> entry : mappedKeys.entrySet())
+      {
+        for (Integer key : entry.getValue())
+        {
+          URIRequest request = new URIRequest("d2://fooService/greetings/" + key + "?param=value");
+          TrackerClient client = getTrackerClient(strategy, request, new RequestContext(), 0, clients);
+          assertNotNull(client);
+          assertEquals(client.getUri(), entry.getKey(), algorithm + " key " + key);
+        }
+      }
+    }
+  }
+
   @Test
   public void testTargetHostHeaderBinding()
   {
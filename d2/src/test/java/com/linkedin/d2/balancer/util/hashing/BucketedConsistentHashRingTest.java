@@ -0,0 +1,216 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.d2.balancer.util.hashing;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import com.linkedin.d2.balancer.util.MapKeyResult;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+public class BucketedConsistentHashRingTest
+{
+  @Test(groups = { "small", "back-end" })
+  public void testZeroItems()
+  {
+    Map<String, Integer> zero = new HashMap<String, Integer>();
+    BucketedConsistentHashRing<String> test = new BucketedConsistentHashRing<String>(zero);
+
+    assertNull(test.get(0));
+
+    zero.put("test", 0);
+    test = new BucketedConsistentHashRing<String>(zero);
+
+    assertNull(test.get(100));
+  }
+
+  @Test(groups = { "small", "back-end" })
+  public void testOneItem()
+  {
+    Map<String, Integer> one = new HashMap<String, Integer>();
+    one.put("test", 100);
+    BucketedConsistentHashRing<String> test = new BucketedConsistentHashRing<String>(one);
+
+    assertEquals(test.get(0), "test");
+    assertEquals(test.get(Integer.MIN_VALUE), "test");
+    assertEquals(test.get(Integer.MAX_VALUE), "test");
+
+    int[] ring = test.getRing();
+    assertEquals(ring.length, 100);
+    for (int i = 1; i < ring.length; ++i)
+    {
+      assertTrue(ring[i - 1] <= ring[i]);
+    }
+  }
+
+  @Test(groups = { "small", "back-end" })
+  public void testManyItemsUnequalWeight()
+  {
+    Map<Integer, Integer> many = new HashMap<Integer, Integer>();
+    Map<Integer, AtomicInteger> counts = new HashMap<Integer, AtomicInteger>();
+
+    for (int i = 0; i < 100; ++i)
+    {
+      many.put(i, i);
+      counts.put(i, new AtomicInteger());
+    }
+
+    BucketedConsistentHashRing<Integer> test = new BucketedConsistentHashRing<Integer>(many);
+
+    for (Object object : test.getObjects())
+    {
+      counts.get(object).incrementAndGet();
+    }
+
+    for (Entry<Integer, AtomicInteger> count : counts.entrySet())
+    {
+      assertEquals(count.getValue().get(), count.getKey().intValue());
+    }
+  }
+
+  @Test(groups = { "small", "back-end" })
+  public void testSameAsBinarySearch()
+  {
+    Random random = new Random(42);
+    for (int hosts : new int[] { 1, 2, 3, 10, 100, 1000 })
+    {
+      Map<String, Integer> pointsMap = new HashMap<String, Integer>();
+      for (int i = 0; i < hosts; ++i)
+      {
+        pointsMap.put("http://host" + i + ".linkedin.com:1234/service", random.nextInt(100) + 1);
+      }
+      BucketedConsistentHashRing<String> test = new BucketedConsistentHashRing<String>(pointsMap);
+      int[] ring = test.getRing();
+      Object[] objects = test.getObjects();
+      assertTrue(test.getBucketCount() >= Math.min(ring.length, 1 << 16));
+
+      List<Integer> keys = new ArrayList<Integer>();
+      keys.add(Integer.MIN_VALUE);
+      keys.add(Integer.MAX_VALUE);
+      keys.add(0);
+      for (int point : ring)
+      {
+        keys.add(point);
+        keys.add(point - 1);
+        keys.add(point + 1);
+      }
+      for (int i = 0; i < 10000; ++i)
+      {
+        keys.add(random.nextInt());
+      }
+
+      for (int key : keys)
+      {
+        int index = Arrays.binarySearch(ring, key);
+        if (index < 0)
+        {
+          index = -(index + 1);
+        }
+        else
+        {
+          // the ring keeps equal hashes, the first of them is picked
+          while (index > 0 && ring[index - 1] == key)
+          {
+            --index;
+          }
+        }
+        assertEquals(test.get(key), objects[index % objects.length], "key " + key);
+      }
+    }
+  }
+
+  @Test(groups = { "small", "back-end" })
+  public void testIndependentOfMapOrder()
+  {
+    Map<String, Integer> forward = new LinkedHashMap<String, Integer>();
+    Map<String, Integer> backward = new LinkedHashMap<String, Integer>();
+    for (int i = 0; i < 50; ++i)
+    {
+      forward.put("host" + i, 100);
+      backward.put("host" + (49 - i), 100);
+    }
+    BucketedConsistentHashRing<String> forwardRing = new BucketedConsistentHashRing<String>(forward);
+    BucketedConsistentHashRing<String> backwardRing = new BucketedConsistentHashRing<String>(backward);
+
+    assertEquals(forwardRing.getRing(), backwardRing.getRing());
+    assertEquals(forwardRing.getObjects(), backwardRing.getObjects());
+  }
+
+  @Test(groups = { "small", "back-end" })
+  public void testMurmurHash3()
+  {
+    // reference values of MurmurHash3_x86_32 over the little endian bytes of the code units
+    assertEquals(MurmurHash3.hash32("", 0), 0);
+    assertEquals(MurmurHash3.hash32("", 1), 0x514E28B7);
+    assertEquals(MurmurHash3.hash32("", 0xffffffff), 0x81F16F39);
+    assertEquals(MurmurHash3.hash32("\u0000\u0000", 0), 0x2362F9DE);
+    assertEquals(MurmurHash3.hash32("\u4321", 0), 0xA0F7B07A);
+    assertEquals(MurmurHash3.hash32("\u4321\u8765", 0), 0xF55B516B);
+
+    // tokens are hashed as if followed by a null character
+    MurmurHash3 hash = new MurmurHash3(7);
+    assertEquals(hash.hash(new String[] { "abc", "de" }), MurmurHash3.hash32("abc\u0000de\u0000", 7));
+    assertEquals(hash.hash(new String[] { "ab" }), MurmurHash3.hash32("ab\u0000", 7));
+    assertEquals(hash.hash(new String[0]), MurmurHash3.hash32("", 7));
+    assertTrue(hash.hash(new String[] { "ab", "c" }) != hash.hash(new String[] { "a", "bc" }));
+  }
+
+  @Test(groups = { "small", "back-end" })
+  public void testKeyMapperUsesRingKeyHashFunction() throws Exception
+  {
+    Map<URI, Integer> pointsMap = new HashMap<URI, Integer>();
+    for (int i = 0; i < 10; ++i)
+    {
+      pointsMap.put(new URI("http://host" + i + ".linkedin.com:1234/service"), 100);
+    }
+    BucketedConsistentHashRing<URI> ring = new BucketedConsistentHashRing<URI>(pointsMap);
+    ConsistentHashKeyMapper mapper = new ConsistentHashKeyMapper(new StaticRingProvider(ring));
+
+    List<Integer> keys = new ArrayList<Integer>();
+    for (int i = 0; i < 1000; ++i)
+    {
+      keys.add(i);
+    }
+    MapKeyResult<URI, Integer> result = mapper.mapKeysV2(new URI("d2://service"), keys);
+    assertTrue(result.getUnmappedKeys().isEmpty());
+
+    int mapped = 0;
+    for (Map.Entry<URI, Collection<Integer>> entry : result.getMapResult().entrySet())
+    {
+      for (Integer key : entry.getValue())
+      {
+        assertEquals(ring.get(ring.getKeyHashFunction().hash(new String[] { key.toString() })), entry.getKey());
+        ++mapped;
+      }
+    }
+    assertEquals(mapped, keys.size());
+  }
+}
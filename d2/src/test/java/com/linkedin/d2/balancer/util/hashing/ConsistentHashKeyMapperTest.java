@@ -23,6 +23,7 @@ package com.linkedin.d2.balancer.util.hashing;
 import com.linkedin.d2.balancer.KeyMapper;
 import com.linkedin.d2.balancer.ServiceUnavailableException;
 import com.linkedin.d2.balancer.util.AllPartitionsResult;
+import com.linkedin.d2.balancer.util.MapKeyIndexResult;
 import com.linkedin.d2.balancer.util.MapKeyResult;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -30,6 +31,7 @@ import org.testng.annotations.Test;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -257,6 +259,124 @@ public class ConsistentHashKeyMapperTest
 
   }
 
+  @Test
+  public void testMapKeyIndexesSameAsMapKeysV2() throws URISyntaxException, ServiceUnavailableException
+  {
+    ConsistentHashKeyMapper batcher = getKeyToHostMapper(createEndpoints(300), 3);
+    Set<Integer> keySet = getRandomKeys(3000);
+    Integer[] keys = keySet.toArray(new Integer[keySet.size()]);
+
+    MapKeyIndexResult<URI> indexResult = batcher.mapKeyIndexes(URI.create("d2://fooservice"), keys);
+    Map<URI, Set<Integer>> batchedKeys = mapKeys(batcher, URI.create("d2://fooservice"), keySet);
+
+    Assert.assertEquals(indexResult.getUnmappedKeyCount(), 0);
+    Assert.assertEquals(indexResult.getHostCount(), batchedKeys.size());
+    int mapped = 0;
+    for (int hostIndex = 0; hostIndex < indexResult.getHostCount(); hostIndex++)
+    {
+      Set<Integer> hostKeys = new HashSet<Integer>();
+      int[] keyIndexes = indexResult.getKeyIndexes(hostIndex);
+      Assert.assertEquals(keyIndexes.length, indexResult.getKeyCount(hostIndex));
+      for (int i = 0; i < keyIndexes.length; i++)
+      {
+        // key indexes are in increasing order
+        Assert.assertTrue(i == 0 || keyIndexes[i - 1] < keyIndexes[i]);
+        Assert.assertEquals(indexResult.getKeyIndex(hostIndex, i), keyIndexes[i]);
+        hostKeys.add(keys[keyIndexes[i]]);
+      }
+      Assert.assertEquals(hostKeys, batchedKeys.get(indexResult.getHost(hostIndex)));
+      mapped += keyIndexes.length;
+    }
+    Assert.assertEquals(mapped, keys.length);
+
+    Map<URI, Collection<Integer>> converted = indexResult.toMapKeyResult(keys).getMapResult();
+    Assert.assertEquals(converted.size(), batchedKeys.size());
+    for (Map.Entry<URI, Collection<Integer>> entry : converted.entrySet())
+    {
+      Assert.assertEquals(new HashSet<Integer>(entry.getValue()), batchedKeys.get(entry.getKey()));
+    }
+  }
+
+  @Test
+  public void testMapKeyIndexesUnmappedKeys() throws URISyntaxException, ServiceUnavailableException
+  {
+    List<Ring<URI>> rings = new ArrayList<Ring<URI>>();
+    rings.add(new ConsistentHashRing<URI>(createEndpoints(10)));
+    rings.add(new ConsistentHashRing<URI>(new HashMap<URI, Integer>()));
+    ConsistentHashKeyMapper batcher = new ConsistentHashKeyMapper(new StaticRingProvider(rings));
+
+    // 1 is in the empty partition, "foo" can not be partitioned
+    Object[] keys = { 2, 1, "foo", 4, 2 };
+    MapKeyIndexResult<URI> result = batcher.mapKeyIndexes(URI.create("d2://fooservice"), keys);
+
+    Assert.assertEquals(result.getUnmappedKeyCount(), 2);
+    Assert.assertEquals(result.getUnmappedKeyIndex(0), 1);
+    Assert.assertEquals(result.getUnmappedKeyErrorType(0), MapKeyResult.ErrorType.NO_HOST_AVAILABLE_IN_PARTITION);
+    Assert.assertEquals(result.getUnmappedKeyIndex(1), 2);
+    Assert.assertEquals(result.getUnmappedKeyErrorType(1), MapKeyResult.ErrorType.FAIL_TO_FIND_PARTITION);
+
+    // equal keys are mapped to the same host
+    int mapped = 0;
+    for (int hostIndex = 0; hostIndex < result.getHostCount(); hostIndex++)
+    {
+      for (int keyIndex : result.getKeyIndexes(hostIndex))
+      {
+        Assert.assertTrue(keyIndex == 0 || keyIndex == 3 || keyIndex == 4);
+        if (keyIndex == 0)
+        {
+          Assert.assertTrue(Arrays.binarySearch(result.getKeyIndexes(hostIndex), 4) >= 0);
+        }
+        mapped++;
+      }
+    }
+    Assert.assertEquals(mapped, 3);
+
+    MapKeyResult<URI, Object> mapKeyResult = result.toMapKeyResult(keys);
+    Assert.assertEquals(mapKeyResult.getUnmappedKeys().size(), 2);
+  }
+
+  @Test
+  public void testMapKeyIndexesWithHashRingProvider() throws URISyntaxException, ServiceUnavailableException
+  {
+    List<Ring<URI>> rings = new ArrayList<Ring<URI>>();
+    rings.add(new ConsistentHashRing<URI>(createEndpoints(10)));
+    rings.add(new ConsistentHashRing<URI>(new HashMap<URI, Integer>()));
+    final StaticRingProvider ringProvider = new StaticRingProvider(rings);
+    // a provider which only implements the HashRingProvider interface
+    HashRingProvider plainProvider = new HashRingProvider()
+    {
+      @Override
+      public <K> MapKeyResult<Ring<URI>, K> getRings(URI serviceUri, Iterable<K> keys)
+          throws ServiceUnavailableException
+      {
+        return ringProvider.getRings(serviceUri, keys);
+      }
+
+      @Override
+      public Map<Integer, Ring<URI>> getRings(URI serviceUri)
+      {
+        return ringProvider.getRings(serviceUri);
+      }
+    };
+
+    Object[] keys = { 2, 1, "foo", 4, 2 };
+    MapKeyIndexResult<URI> expected =
+        new ConsistentHashKeyMapper(ringProvider).mapKeyIndexes(URI.create("d2://fooservice"), keys);
+    MapKeyIndexResult<URI> result =
+        new ConsistentHashKeyMapper(plainProvider).mapKeyIndexes(URI.create("d2://fooservice"), keys);
+
+    Assert.assertEquals(result.getHosts(), expected.getHosts());
+    for (int hostIndex = 0; hostIndex < result.getHostCount(); hostIndex++)
+    {
+      Assert.assertEquals(result.getKeyIndexes(hostIndex), expected.getKeyIndexes(hostIndex));
+    }
+    Assert.assertEquals(result.getUnmappedKeyCount(), 2);
+    Assert.assertEquals(result.getUnmappedKeyIndex(0), 1);
+    Assert.assertEquals(result.getUnmappedKeyErrorType(0), MapKeyResult.ErrorType.NO_HOST_AVAILABLE_IN_PARTITION);
+    Assert.assertEquals(result.getUnmappedKeyIndex(1), 2);
+    Assert.assertEquals(result.getUnmappedKeyErrorType(1), MapKeyResult.ErrorType.FAIL_TO_FIND_PARTITION);
+  }
+
   ConsistentHashKeyMapper getKeyToHostMapper() throws URISyntaxException, ServiceUnavailableException
   {
     Map<URI, Integer> one = new HashMap<URI, Integer>();
@@ -23,11 +23,16 @@ import static org.testng.Assert.assertTrue;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.security.MessageDigest;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import com.linkedin.d2.balancer.util.hashing.ConsistentHashRing.Point;
 import org.testng.annotations.Test;
 
 public class ConsistentHashRingTest
@@ -164,4 +169,141 @@ public class ConsistentHashRingTest
     assertEquals(midURI, uri2);
 
   }
+
+  @Test(groups = { "small", "back-end" })
+  public void testGetPoints()
+  {
+    Map<String, Integer> points = new HashMap<String, Integer>();
+    points.put("a", 10);
+    points.put("b", 20);
+    ConsistentHashRing<String> test = new ConsistentHashRing<String>(points);
+
+    Set<Point<String>> ringPoints = test.getPoints();
+    assertEquals(ringPoints.size(), 30);
+    int i = 0;
+    for (Point<String> point : ringPoints)
+    {
+      assertEquals(point.getHash(), test.getRing()[i]);
+      assertEquals(point.getT(), test.getObjects()[i]);
+      ++i;
+    }
+    assertEquals(i, 30);
+  }
+
+  @Test(groups = { "small", "back-end" })
+  public void testRingFromPreviousRing()
+  {
+    Map<String, Integer> pointsMap = new HashMap<String, Integer>();
+    for (int i = 0; i < 50; ++i)
+    {
+      pointsMap.put("test" + i, 10 + i);
+    }
+    ConsistentHashRing<String> ring = new ConsistentHashRing<String>(pointsMap);
+
+    Random random = new Random(42);
+    for (int change = 0; change < 100; ++change)
+    {
+      String host = "test" + random.nextInt(60);
+      switch (random.nextInt(3))
+      {
+        case 0:
+          pointsMap.remove(host);
+          break;
+        case 1:
+          pointsMap.put(host, random.nextInt(100));
+          break;
+        default:
+          pointsMap.put(host, 0);
+      }
+
+      ConsistentHashRing<String> newRing = new ConsistentHashRing<String>(pointsMap, ring);
+      ConsistentHashRing<String> freshRing = new ConsistentHashRing<String>(pointsMap);
+      assertEquals(newRing.getRing(), freshRing.getRing());
+      assertEquals(newRing.getObjects(), freshRing.getObjects());
+      ring = newRing;
+    }
+  }
+
+  @Test(groups = { "small", "back-end" })
+  public void testIncrementalRingKeepsHashFunction() throws Exception
+  {
+    Map<String, Integer> pointsMap = new HashMap<String, Integer>();
+    pointsMap.put("test1", 10);
+    ConsistentHashRing<String> ring = new ConsistentHashRing<String>(pointsMap, MessageDigest.getInstance("SHA-1"));
+
+    pointsMap.put("test2", 20);
+    ConsistentHashRing<String> newRing = new ConsistentHashRing<String>(pointsMap, ring);
+    ConsistentHashRing<String> freshRing = new ConsistentHashRing<String>(pointsMap, MessageDigest.getInstance("SHA-1"));
+    assertEquals(newRing.getRing(), freshRing.getRing());
+    assertEquals(newRing.getObjects(), freshRing.getObjects());
+  }
+
+  @Test(groups = { "small", "back-end" })
+  public void testDuplicateHashes()
+  {
+    Map<String, Integer> pointsMap = new LinkedHashMap<String, Integer>();
+    pointsMap.put("b", 1);
+    pointsMap.put("a", 1);
+
+    // every object gets the same hashes, the point of the object added first is kept
+    ConsistentHashRing<String> ring = new ConsistentHashRing<String>(pointsMap, new ConstantDigest());
+    assertEquals(ring.getPoints().size(), 1);
+    assertEquals(ring.get(0), "b");
+
+    // the points already in the ring are kept
+    Map<String, Integer> added = new HashMap<String, Integer>();
+    added.put("c", 2);
+    ring.add(added);
+    assertEquals(ring.getRing().length, 2);
+    assertEquals(ring.getObjects()[0], "b");
+    assertEquals(ring.getObjects()[1], "c");
+  }
+
+  @Test(groups = { "small", "back-end" })
+  public void testAddIsAdditive()
+  {
+    Map<String, Integer> pointsMap = new LinkedHashMap<String, Integer>();
+    pointsMap.put("test1", 10);
+    ConsistentHashRing<String> ring = new ConsistentHashRing<String>(pointsMap);
+
+    Map<String, Integer> added = new HashMap<String, Integer>();
+    added.put("test2", 20);
+    added.put("test1", 5);
+    ring.add(added);
+
+    pointsMap.put("test2", 20);
+    ConsistentHashRing<String> freshRing = new ConsistentHashRing<String>(pointsMap);
+    assertEquals(ring.getRing(), freshRing.getRing());
+    assertEquals(ring.getObjects(), freshRing.getObjects());
+    assertEquals(ring.getRing().length, 30);
+  }
+
+  private static class ConstantDigest extends MessageDigest
+  {
+    private ConstantDigest()
+    {
+      super("constant");
+    }
+
+    @Override
+    protected void engineUpdate(byte input)
+    {
+    }
+
+    @Override
+    protected void engineUpdate(byte[] input, int offset, int len)
+    {
+    }
+
+    @Override
+    protected byte[] engineDigest()
+    {
+      return new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16 };
+    }
+
+    @Override
+    protected void engineReset()
+    {
+    }
+  }
 }
@@ -0,0 +1,65 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.d2.discovery.event;
+
+import com.linkedin.d2.discovery.stores.mock.MockStore;
+import org.testng.annotations.Test;
+
+
+/**
+ * Runs the tests of {@link PropertyEventBusTest} on a bus delivering its events through a
+ * {@link PartitionedPropertyEventExecutor}.
+ */
+public class PartitionedPropertyEventBusImplTest extends PropertyEventBusTest
+{
+  @Override
+  public PropertyEventBus<String> getBus()
+  {
+    // the partitions run synchronously, so that the tests in the parent class see the events
+    PartitionedPropertyEventExecutor executor =
+        new PartitionedPropertyEventExecutor(new SynchronousExecutorService(), 4);
+    PropertyEventPublisher<String> publisher = new MockStore<String>();
+    return new PropertyEventBusImpl<String>(executor, publisher);
+  }
+
+  @Override
+  public void put(PropertyEventBus<String> registry,
+                  String listenTo,
+                  String discoveryProperties)
+  {
+    getStore(registry).put(listenTo, discoveryProperties);
+  }
+
+  @Override
+  public void remove(PropertyEventBus<String> registry, String listenTo)
+  {
+    getStore(registry).remove(listenTo);
+  }
+
+  private MockStore<String> getStore(PropertyEventBus<String> registry)
+  {
+    PropertyEventBusImpl<String> bus = (PropertyEventBusImpl<String>) registry;
+    return (MockStore<String>) bus.getPublisher();
+  }
+
+  @Test
+  public void testNothing()
+  {
+    // this gets Gradle/TestNG to notice this class and run the tests in the superclass
+  }
+}
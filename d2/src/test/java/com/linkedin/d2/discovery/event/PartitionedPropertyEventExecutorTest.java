@@ -0,0 +1,321 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.d2.discovery.event;
+
+import com.linkedin.d2.discovery.event.PropertyEventThread.PropertyEvent;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+
+public class PartitionedPropertyEventExecutorTest
+{
+  private PartitionedPropertyEventExecutor _executor;
+
+  @BeforeMethod
+  public void createExecutor()
+  {
+    _executor = new PartitionedPropertyEventExecutor("test", 4);
+  }
+
+  @AfterMethod
+  public void shutdownExecutor()
+  {
+    _executor.shutdown();
+  }
+
+  @Test(groups = { "small", "back-end" })
+  public void testEventsOfKeyRunInOrder() throws InterruptedException
+  {
+    final int keys = 8;
+    final int events = 1000;
+    final CountDownLatch done = new CountDownLatch(keys * events);
+    final List<List<Integer>> runs = new ArrayList<List<Integer>>();
+    for (int k = 0; k < keys; k++)
+    {
+      runs.add(new ArrayList<Integer>());
+    }
+
+    for (int i = 0; i < events; i++)
+    {
+      for (int k = 0; k < keys; k++)
+      {
+        final List<Integer> run = runs.get(k);
+        final int event = i;
+        _executor.send("key" + k, new PropertyEvent("event " + i)
+        {
+          @Override
+          public void innerRun()
+          {
+            run.add(event);
+            done.countDown();
+          }
+        });
+      }
+    }
+
+    Assert.assertTrue(done.await(30, TimeUnit.SECONDS));
+    for (List<Integer> run : runs)
+    {
+      Assert.assertEquals(run.size(), events);
+      for (int i = 0; i < events; i++)
+      {
+        Assert.assertEquals(run.get(i).intValue(), i);
+      }
+    }
+    Assert.assertEquals(_executor.getProcessedEventCount(), keys * events);
+  }
+
+  @Test(groups = { "small", "back-end" })
+  public void testPartitionsRunConcurrently() throws InterruptedException
+  {
+    final CountDownLatch otherRan = new CountDownLatch(1);
+    final AtomicBoolean sawOther = new AtomicBoolean();
+    final CountDownLatch done = new CountDownLatch(2);
+
+    // the first event waits for an event of another partition, which would never run if the
+    // partitions ran one at a time
+    _executor.send(keyOfPartition(0), new PropertyEvent("waiting")
+    {
+      @Override
+      public void innerRun()
+      {
+        try
+        {
+          sawOther.set(otherRan.await(30, TimeUnit.SECONDS));
+        }
+        catch (InterruptedException e)
+        {
+          Thread.currentThread().interrupt();
+        }
+        done.countDown();
+      }
+    });
+    _executor.send(keyOfPartition(1), new PropertyEvent("other")
+    {
+      @Override
+      public void innerRun()
+      {
+        otherRan.countDown();
+        done.countDown();
+      }
+    });
+
+    Assert.assertTrue(done.await(30, TimeUnit.SECONDS));
+    Assert.assertTrue(sawOther.get());
+  }
+
+  @Test(groups = { "small", "back-end" })
+  public void testBarrier() throws InterruptedException
+  {
+    final AtomicInteger before = new AtomicInteger();
+    final AtomicInteger seenByBarrier = new AtomicInteger(-1);
+    final AtomicBoolean barrierRan = new AtomicBoolean();
+    final AtomicInteger afterSawBarrier = new AtomicInteger();
+    final CountDownLatch done = new CountDownLatch(8);
+
+    for (int k = 0; k < 8; k++)
+    {
+      _executor.send("key" + k, new PropertyEvent("before")
+      {
+        @Override
+        public void innerRun()
+        {
+          try
+          {
+            Thread.sleep(10);
+          }
+          catch (InterruptedException e)
+          {
+            Thread.currentThread().interrupt();
+          }
+          before.incrementAndGet();
+        }
+      });
+    }
+    _executor.send(new PropertyEvent("barrier")
+    {
+      @Override
+      public void innerRun()
+      {
+        seenByBarrier.set(before.get());
+        barrierRan.set(true);
+      }
+    });
+    for (int k = 0; k < 8; k++)
+    {
+      _executor.send("key" + k, new PropertyEvent("after")
+      {
+        @Override
+        public void innerRun()
+        {
+          if (barrierRan.get())
+          {
+            afterSawBarrier.incrementAndGet();
+          }
+          done.countDown();
+        }
+      });
+    }
+
+    Assert.assertTrue(done.await(30, TimeUnit.SECONDS));
+    Assert.assertEquals(seenByBarrier.get(), 8);
+    Assert.assertEquals(afterSawBarrier.get(), 8);
+  }
+
+  @Test(groups = { "small", "back-end" })
+  public void testConcurrentBarriers() throws InterruptedException
+  {
+    final int threads = 8;
+    final int barriers = 200;
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(threads * barriers * 2);
+
+    List<Thread> senders = new ArrayList<Thread>();
+    for (int t = 0; t < threads; t++)
+    {
+      final int thread = t;
+      Thread sender = new Thread()
+      {
+        @Override
+        public void run()
+        {
+          try
+          {
+            start.await();
+          }
+          catch (InterruptedException e)
+          {
+            return;
+          }
+          for (int i = 0; i < barriers; i++)
+          {
+            _executor.send(new PropertyEvent("barrier")
+            {
+              @Override
+              public void innerRun()
+              {
+                done.countDown();
+              }
+            });
+            _executor.send("key" + thread + "-" + i, new PropertyEvent("keyed")
+            {
+              @Override
+              public void innerRun()
+              {
+                done.countDown();
+              }
+            });
+          }
+        }
+      };
+      sender.start();
+      senders.add(sender);
+    }
+
+    start.countDown();
+    for (Thread sender : senders)
+    {
+      sender.join();
+    }
+
+    // barriers queued in different orders by different partitions would never run
+    Assert.assertTrue(done.await(30, TimeUnit.SECONDS));
+  }
+
+  @Test(groups = { "small", "back-end" })
+  public void testMetrics()
+  {
+    ManualExecutor manual = new ManualExecutor();
+    PartitionedPropertyEventExecutor executor = new PartitionedPropertyEventExecutor(manual, 2);
+    final AtomicInteger runs = new AtomicInteger();
+    PropertyEvent event = new PropertyEvent("count")
+    {
+      @Override
+      public void innerRun()
+      {
+        runs.incrementAndGet();
+      }
+    };
+
+    executor.send(keyOfPartition(0), event);
+    executor.send(keyOfPartition(0), event);
+    executor.send(keyOfPartition(0), event);
+    executor.send(keyOfPartition(1), event);
+
+    Assert.assertEquals(executor.getPartitionCount(), 2);
+    Assert.assertEquals(executor.getQueuedEventCount(), 4);
+    Assert.assertEquals(executor.getMaxPartitionQueueDepth(), 3);
+    Assert.assertEquals(executor.getProcessedEventCount(), 0);
+    Assert.assertTrue(executor.getOldestEventAgeMs() >= 0);
+
+    manual.runAll();
+
+    Assert.assertEquals(runs.get(), 4);
+    Assert.assertEquals(executor.getQueuedEventCount(), 0);
+    Assert.assertEquals(executor.getMaxPartitionQueueDepth(), 0);
+    Assert.assertEquals(executor.getProcessedEventCount(), 4);
+    Assert.assertEquals(executor.getOldestEventAgeMs(), 0);
+    Assert.assertTrue(executor.getAverageEventLagMs() >= 0);
+    Assert.assertTrue(executor.getMaxEventLagMs() >= 0);
+  }
+
+  /**
+   * @return a key of the given partition, for an executor with 2 or 4 partitions.
+   */
+  private static String keyOfPartition(int partition)
+  {
+    for (int i = 0; ; i++)
+    {
+      String key = "key" + i;
+      if ((key.hashCode() & Integer.MAX_VALUE) % 4 == partition)
+      {
+        return key;
+      }
+    }
+  }
+
+  private static class ManualExecutor implements Executor
+  {
+    private final Queue<Runnable> _tasks = new LinkedList<Runnable>();
+
+    @Override
+    public void execute(Runnable task)
+    {
+      _tasks.add(task);
+    }
+
+    private void runAll()
+    {
+      for (Runnable task = _tasks.poll(); task != null; task = _tasks.poll())
+      {
+        task.run();
+      }
+    }
+  }
+}
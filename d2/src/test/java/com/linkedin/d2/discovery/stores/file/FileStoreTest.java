@@ -16,9 +16,13 @@
 
 package com.linkedin.d2.discovery.stores.file;
 
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 
 import org.testng.annotations.Test;
@@ -51,6 +55,95 @@ public class FileStoreTest extends PropertyStoreTest
   {
   }
 
+  @Test(groups = { "small", "back-end" })
+  public void testSnapshot() throws IOException
+  {
+    File directory = createTempDirectory("file-store-snapshot-test");
+    String path = directory.toString();
+    FileStore<String> store = new FileStore<String>(path, ".ini", new PropertyStringSerializer());
+    store.put("service-1", "value-1");
+    store.put("service-2", "value-2");
+    store.put("service-3", "value-3");
+    store.remove("service-3");
+
+    // the files were modified too recently to tell a later change in place from their last
+    // modified time, so they are not in the snapshot
+    store.writeSnapshot();
+    assertTrue(new File(path + FileStore.SNAPSHOT_SUFFIX).exists());
+    long lastModified = new File(directory, "service-1.ini").lastModified();
+    overwrite(new File(directory, "service-1.ini"), "value-A", lastModified);
+    store = new FileStore<String>(path, ".ini", new PropertyStringSerializer());
+    assertEquals(store.get("service-1"), "value-A");
+
+    // the properties read from their files and the properties written by the store, which are
+    // checked against their files, are in the snapshot once the files are old enough
+    lastModified = age(new File(directory, "service-1.ini"));
+    store = new FileStore<String>(path, ".ini", new PropertyStringSerializer());
+    assertEquals(store.get("service-1"), "value-A");
+    store.put("service-2", "value-2");
+    store.put("service-4", "value-4");
+    age(new File(directory, "service-2.ini"));
+    age(new File(directory, "service-4.ini"));
+    store.writeSnapshot();
+    assertEquals(directory.list().length, 3);
+
+    // a property is read from the snapshot while its file has the same last modified time and
+    // length, which shows when the file is changed in place with the same last modified time
+    long lastModified4 = new File(directory, "service-4.ini").lastModified();
+    overwrite(new File(directory, "service-4.ini"), "value-B", lastModified4);
+    store = new FileStore<String>(path, ".ini", new PropertyStringSerializer());
+    assertEquals(store.get("service-4"), "value-4");
+    assertNull(store.get("service-3"));
+
+    // a property of the snapshot whose file changed is read from the file
+    assertEquals(store.get("service-1"), "value-A");
+    overwrite(new File(directory, "service-1.ini"), "value-1b", lastModified);
+    assertEquals(store.get("service-1"), "value-1b");
+    long lastModified2 = new File(directory, "service-2.ini").lastModified();
+    overwrite(new File(directory, "service-2.ini"), "value-C", lastModified2 + FileStore.MODIFIED_TIME_RESOLUTION_MS);
+    assertEquals(store.get("service-2"), "value-C");
+    new File(directory, "service-4.ini").delete();
+    assertNull(store.get("service-4"));
+
+    // the properties read from their files are kept in the snapshot too
+    store.writeSnapshot();
+    overwrite(new File(directory, "service-2.ini"), "value-D", lastModified2 + FileStore.MODIFIED_TIME_RESOLUTION_MS);
+    store = new FileStore<String>(path, ".ini", new PropertyStringSerializer());
+    assertEquals(store.get("service-1"), "value-1b");
+    assertEquals(store.get("service-2"), "value-C");
+    assertNull(store.get("service-4"));
+  }
+
+  /**
+   * Sets the last modified time of the file to well before now, and returns it.
+   */
+  private static long age(File file)
+  {
+    long lastModified = System.currentTimeMillis() - 10 * FileStore.MODIFIED_TIME_RESOLUTION_MS;
+    lastModified -= lastModified % FileStore.MODIFIED_TIME_RESOLUTION_MS;
+    assertTrue(file.setLastModified(lastModified));
+    return lastModified;
+  }
+
+  private static void overwrite(File file, String content, long lastModified) throws IOException
+  {
+    overwrite(file, content);
+    assertTrue(file.setLastModified(lastModified));
+  }
+
+  private static void overwrite(File file, String content) throws IOException
+  {
+    FileOutputStream outputStream = new FileOutputStream(file);
+    try
+    {
+      outputStream.write(content.getBytes("UTF-8"));
+    }
+    finally
+    {
+      outputStream.close();
+    }
+  }
+
   public static File createTempDirectory(String name) throws IOException
   {
     final File temp;
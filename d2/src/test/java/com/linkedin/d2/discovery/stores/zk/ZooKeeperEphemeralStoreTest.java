@@ -23,16 +23,25 @@ import static org.testng.Assert.fail;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import org.testng.annotations.AfterSuite;
 import org.testng.annotations.BeforeSuite;
 import org.testng.annotations.Test;
 
+import com.linkedin.d2.discovery.event.PropertyEventBus;
+import com.linkedin.d2.discovery.event.PropertyEventBusImpl;
+import com.linkedin.d2.discovery.event.PropertyEventSubscriber;
 import com.linkedin.d2.discovery.event.PropertyEventThread.PropertyEventShutdownCallback;
 import com.linkedin.d2.discovery.stores.PropertyStore;
 import com.linkedin.d2.discovery.stores.PropertyStoreException;
@@ -136,6 +145,71 @@ public class ZooKeeperEphemeralStoreTest
     }
   }
 
+  @Test(groups = { "small", "back-end" })
+  public void testPublishReadsNewChildrenOnly()
+          throws InterruptedException, IOException, PropertyStoreException, ExecutionException
+  {
+    ZooKeeperEphemeralStore<String> store = getStore();
+    store.put("service-4", "1");
+    store.put("service-4", "2");
+
+    final BlockingQueue<String> published = new LinkedBlockingQueue<String>();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    PropertyEventBus<String> bus = new PropertyEventBusImpl<String>(executor, store);
+    bus.register(Collections.singleton("service-4"), new PropertyEventSubscriber<String>()
+    {
+      @Override
+      public void onInitialize(String propertyName, String propertyValue)
+      {
+        published.add(propertyValue);
+      }
+
+      @Override
+      public void onAdd(String propertyName, String propertyValue)
+      {
+        published.add(propertyValue);
+      }
+
+      @Override
+      public void onRemove(String propertyName)
+      {
+      }
+    });
+
+    assertEquals(sorted(published.poll(5, TimeUnit.SECONDS)), "1,2");
+    assertEquals(store.getChildReadCount(), 2);
+
+    // only the new child is read
+    store.put("service-4", "3");
+    assertEquals(sorted(published.poll(5, TimeUnit.SECONDS)), "1,2,3");
+    assertEquals(store.getChildReadCount(), 3);
+    assertEquals(store.getChildReadSavedCount(), 2);
+
+    // removing a child reads nothing to publish, but removePartial reads the three children
+    store.removePartial("service-4", "1");
+    assertEquals(sorted(published.poll(5, TimeUnit.SECONDS)), "2,3");
+    assertEquals(store.getChildReadCount(), 6);
+    assertEquals(store.getChildReadSavedCount(), 4);
+
+    executor.shutdown();
+  }
+
+  private static String sorted(String mergedValue)
+  {
+    String[] values = mergedValue.split(",");
+    Arrays.sort(values);
+    StringBuilder sb = new StringBuilder();
+    for (String value : values)
+    {
+      if (sb.length() > 0)
+      {
+        sb.append(',');
+      }
+      sb.append(value);
+    }
+    return sb.toString();
+  }
+
   @Test(groups = { "small", "back-end" })
   public void testShutdown()
           throws InterruptedException, IOException, PropertyStoreException, ExecutionException
@@ -0,0 +1,110 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.perf;
+
+
+import com.linkedin.data.DataMap;
+import com.linkedin.data.codec.BsonDataCodec;
+import com.linkedin.data.codec.DataCodec;
+import com.linkedin.data.codec.JacksonDataCodec;
+import com.linkedin.data.codec.PsonDataCodec;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures encoding and decoding of {@link DataMap}'s by the {@link DataCodec}'s.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodecBenchmark
+{
+  public enum Codec
+  {
+    JSON
+    {
+      @Override
+      DataCodec create()
+      {
+        return new JacksonDataCodec();
+      }
+    },
+    PSON
+    {
+      @Override
+      DataCodec create()
+      {
+        return new PsonDataCodec();
+      }
+    },
+    BSON
+    {
+      @Override
+      DataCodec create()
+      {
+        return new BsonDataCodec();
+      }
+    };
+
+    abstract DataCodec create();
+  }
+
+  @Param
+  public DataPayloads.Shape shape;
+
+  @Param
+  public Codec codec;
+
+  private DataCodec _codec;
+  private DataMap _map;
+  private byte[] _bytes;
+
+  @Setup
+  public void setup() throws IOException
+  {
+    _codec = codec.create();
+    _map = DataPayloads.create(shape);
+    _bytes = _codec.mapToBytes(_map);
+  }
+
+  @Benchmark
+  public byte[] encode() throws IOException
+  {
+    return _codec.mapToBytes(_map);
+  }
+
+  @Benchmark
+  public DataMap decode() throws IOException
+  {
+    return _codec.bytesToMap(_bytes);
+  }
+}
@@ -0,0 +1,135 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.perf;
+
+
+import com.linkedin.data.DataMap;
+import com.linkedin.data.collections.CowMap;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures put, get and clone of {@link DataMap} and of the underlying {@link CowMap}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataCollectionsBenchmark
+{
+  @Param({"16", "1024"})
+  public int size;
+
+  private String[] _keys;
+  private Integer[] _values;
+  private DataMap _dataMap;
+  private CowMap<String, Object> _cowMap;
+
+  @Setup
+  public void setup()
+  {
+    _keys = new String[size];
+    _values = new Integer[size];
+    for (int i = 0; i < size; i++)
+    {
+      _keys[i] = "key" + i;
+      _values[i] = i;
+    }
+    _dataMap = new DataMap();
+    _cowMap = new CowMap<String, Object>();
+    for (int i = 0; i < size; i++)
+    {
+      _dataMap.put(_keys[i], _values[i]);
+      _cowMap.put(_keys[i], _values[i]);
+    }
+  }
+
+  @Benchmark
+  public DataMap dataMapPut()
+  {
+    DataMap map = new DataMap();
+    for (int i = 0; i < size; i++)
+    {
+      map.put(_keys[i], _values[i]);
+    }
+    return map;
+  }
+
+  @Benchmark
+  public void dataMapGet(Blackhole blackhole)
+  {
+    for (int i = 0; i < size; i++)
+    {
+      blackhole.consume(_dataMap.get(_keys[i]));
+    }
+  }
+
+  @Benchmark
+  public DataMap dataMapClone() throws CloneNotSupportedException
+  {
+    return _dataMap.clone();
+  }
+
+  @Benchmark
+  public DataMap dataMapCloneThenPut() throws CloneNotSupportedException
+  {
+    // clone is copy-on-write, the first put after a clone pays for the copy.
+    DataMap map = _dataMap.clone();
+    map.put(_keys[0], _values[size - 1]);
+    return map;
+  }
+
+  @Benchmark
+  public CowMap<String, Object> cowMapPut()
+  {
+    CowMap<String, Object> map = new CowMap<String, Object>();
+    for (int i = 0; i < size; i++)
+    {
+      map.put(_keys[i], _values[i]);
+    }
+    return map;
+  }
+
+  @Benchmark
+  public void cowMapGet(Blackhole blackhole)
+  {
+    for (int i = 0; i < size; i++)
+    {
+      blackhole.consume(_cowMap.get(_keys[i]));
+    }
+  }
+
+  @Benchmark
+  public CowMap<String, Object> cowMapClone() throws CloneNotSupportedException
+  {
+    return _cowMap.clone();
+  }
+}
@@ -0,0 +1,76 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.perf;
+
+
+import com.linkedin.data.DataMap;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures deep copy and shallow clone of {@link DataMap}'s.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataCopyBenchmark
+{
+  @Param
+  public DataPayloads.Shape shape;
+
+  private DataMap _map;
+
+  @Setup
+  public void setup()
+  {
+    _map = DataPayloads.create(shape);
+  }
+
+  @Benchmark
+  public DataMap copy() throws CloneNotSupportedException
+  {
+    return _map.copy();
+  }
+
+  @Benchmark
+  public DataMap copyReadOnly() throws CloneNotSupportedException
+  {
+    DataMap map = _map.copy();
+    map.makeReadOnly();
+    return map;
+  }
+
+  @Benchmark
+  public DataMap shallowClone() throws CloneNotSupportedException
+  {
+    return _map.clone();
+  }
+}
@@ -0,0 +1,174 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.perf;
+
+
+import com.linkedin.data.ByteString;
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+
+import java.util.Random;
+
+/**
+ * Representative {@link DataMap} payloads used by the benchmarks.
+ *
+ * <p>
+ * Payloads are generated from a fixed seed so that every run and every
+ * benchmark sees exactly the same data.
+ */
+public class DataPayloads
+{
+  public enum Shape
+  {
+    /**
+     * A single record with many fields of mixed primitive types.
+     */
+    WIDE_RECORD,
+    /**
+     * Maps nested many levels deep, each level with a few fields and a short list.
+     */
+    DEEP_NESTING,
+    /**
+     * A large array of longs and a large array of small records.
+     */
+    BIG_ARRAY,
+    /**
+     * A few very large strings, mostly ASCII with some multi-byte characters.
+     */
+    LARGE_STRING
+  }
+
+  public static final int WIDE_RECORD_FIELDS = 1000;
+  public static final int DEEP_NESTING_DEPTH = 64;
+  public static final int BIG_ARRAY_LONGS = 100000;
+  public static final int BIG_ARRAY_RECORDS = 10000;
+  public static final int LARGE_STRING_LENGTH = 1 << 20;
+  public static final int LARGE_STRING_COUNT = 4;
+
+  private static final long SEED = 20140101L;
+
+  public static DataMap create(Shape shape)
+  {
+    Random random = new Random(SEED);
+    switch (shape)
+    {
+      case WIDE_RECORD:
+        return wideRecord(random);
+      case DEEP_NESTING:
+        return deepNesting(random);
+      case BIG_ARRAY:
+        return bigArray(random);
+      case LARGE_STRING:
+        return largeString(random);
+      default:
+        throw new IllegalArgumentException("Unknown shape " + shape);
+    }
+  }
+
+  private static DataMap wideRecord(Random random)
+  {
+    DataMap map = new DataMap();
+    for (int i = 0; i < WIDE_RECORD_FIELDS; i++)
+    {
+      map.put("field" + i, primitive(random, i));
+    }
+    return map;
+  }
+
+  private static DataMap deepNesting(Random random)
+  {
+    DataMap root = new DataMap();
+    DataMap current = root;
+    for (int depth = 0; depth < DEEP_NESTING_DEPTH; depth++)
+    {
+      current.put("depth", depth);
+      current.put("name", "level" + depth);
+      DataList list = new DataList();
+      for (int i = 0; i < 4; i++)
+      {
+        list.add(random.nextLong());
+      }
+      current.put("values", list);
+      DataMap child = new DataMap();
+      current.put("child", child);
+      current = child;
+    }
+    return root;
+  }
+
+  private static DataMap bigArray(Random random)
+  {
+    DataList longs = new DataList(BIG_ARRAY_LONGS);
+    for (int i = 0; i < BIG_ARRAY_LONGS; i++)
+    {
+      longs.add(random.nextLong());
+    }
+    DataList records = new DataList(BIG_ARRAY_RECORDS);
+    for (int i = 0; i < BIG_ARRAY_RECORDS; i++)
+    {
+      DataMap record = new DataMap();
+      record.put("id", i);
+      record.put("score", random.nextDouble());
+      record.put("name", "record" + i);
+      records.add(record);
+    }
+    DataMap map = new DataMap();
+    map.put("longs", longs);
+    map.put("records", records);
+    return map;
+  }
+
+  private static DataMap largeString(Random random)
+  {
+    DataMap map = new DataMap();
+    for (int i = 0; i < LARGE_STRING_COUNT; i++)
+    {
+      StringBuilder sb = new StringBuilder(LARGE_STRING_LENGTH);
+      while (sb.length() < LARGE_STRING_LENGTH)
+      {
+        // about one in 64 characters is outside of ASCII
+        int r = random.nextInt(64);
+        sb.append(r == 0 ? (char) (0x00c0 + random.nextInt(0x0100)) : (char) ('a' + random.nextInt(26)));
+      }
+      map.put("string" + i, sb.toString());
+    }
+    return map;
+  }
+
+  private static Object primitive(Random random, int i)
+  {
+    switch (i % 7)
+    {
+      case 0:
+        return random.nextInt();
+      case 1:
+        return random.nextLong();
+      case 2:
+        return random.nextFloat();
+      case 3:
+        return random.nextDouble();
+      case 4:
+        return random.nextBoolean();
+      case 5:
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        return ByteString.copy(bytes);
+      default:
+        return "value" + random.nextInt(1000);
+    }
+  }
+}
@@ -0,0 +1,103 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.perf;
+
+
+import com.linkedin.data.DataMap;
+import com.linkedin.data.codec.JacksonDataCodec;
+import com.linkedin.data.codec.NonBlockingDataCodec;
+import com.linkedin.data.codec.NonBlockingDataDecoder;
+import com.linkedin.data.codec.PsonDataCodec;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures decoding of {@link DataMap}'s fed in fixed size chunks to a
+ * {@link NonBlockingDataDecoder}, comparable to {@link CodecBenchmark#decode()}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NonBlockingDecoderBenchmark
+{
+  public enum Codec
+  {
+    JSON
+    {
+      @Override
+      NonBlockingDataCodec create()
+      {
+        return new JacksonDataCodec();
+      }
+    },
+    PSON
+    {
+      @Override
+      NonBlockingDataCodec create()
+      {
+        return new PsonDataCodec();
+      }
+    };
+
+    abstract NonBlockingDataCodec create();
+  }
+
+  @Param
+  public DataPayloads.Shape shape;
+
+  @Param
+  public Codec codec;
+
+  @Param({"1024", "8192", "65536"})
+  public int chunkSize;
+
+  private NonBlockingDataCodec _codec;
+  private byte[] _bytes;
+
+  @Setup
+  public void setup() throws IOException
+  {
+    _codec = codec.create();
+    _bytes = _codec.mapToBytes(DataPayloads.create(shape));
+  }
+
+  @Benchmark
+  public DataMap decode() throws IOException
+  {
+    NonBlockingDataDecoder<DataMap> decoder = _codec.createMapDecoder();
+    for (int offset = 0; offset < _bytes.length; offset += chunkSize)
+    {
+      decoder.feed(_bytes, offset, Math.min(chunkSize, _bytes.length - offset));
+    }
+    return decoder.complete();
+  }
+}
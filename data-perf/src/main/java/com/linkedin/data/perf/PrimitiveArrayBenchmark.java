@@ -0,0 +1,132 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.perf;
+
+
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+import com.linkedin.data.codec.DataCodec;
+import com.linkedin.data.codec.JacksonDataCodec;
+import com.linkedin.data.codec.PsonDataCodec;
+import com.linkedin.data.template.LongArray;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link DataList}s of longs with boxed storage and with primitive storage,
+ * see {@link DataList#withPrimitiveStorage(int)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrimitiveArrayBenchmark
+{
+  private static final long SEED = 20140101L;
+
+  public enum Codec
+  {
+    JSON
+    {
+      @Override
+      DataCodec create(boolean primitiveListStorage)
+      {
+        JacksonDataCodec codec = new JacksonDataCodec();
+        codec.setPrimitiveListStorage(primitiveListStorage);
+        return codec;
+      }
+    },
+    PSON
+    {
+      @Override
+      DataCodec create(boolean primitiveListStorage)
+      {
+        return new PsonDataCodec().setOptions(new PsonDataCodec.Options().setPrimitiveListStorage(primitiveListStorage));
+      }
+    };
+
+    abstract DataCodec create(boolean primitiveListStorage);
+  }
+
+  @Param
+  public Codec codec;
+
+  @Param({"false", "true"})
+  public boolean primitiveListStorage;
+
+  private DataCodec _codec;
+  private DataMap _map;
+  private LongArray _array;
+  private byte[] _bytes;
+
+  @Setup
+  public void setup() throws IOException
+  {
+    _codec = codec.create(primitiveListStorage);
+    Random random = new Random(SEED);
+    DataList list = primitiveListStorage ?
+      DataList.withPrimitiveStorage(DataPayloads.BIG_ARRAY_LONGS) :
+      new DataList(DataPayloads.BIG_ARRAY_LONGS);
+    for (int i = 0; i < DataPayloads.BIG_ARRAY_LONGS; i++)
+    {
+      list.addLong(random.nextLong());
+    }
+    _map = new DataMap();
+    _map.put("longs", list);
+    _array = new LongArray(list);
+    _bytes = _codec.mapToBytes(_map);
+  }
+
+  @Benchmark
+  public byte[] encode() throws IOException
+  {
+    return _codec.mapToBytes(_map);
+  }
+
+  @Benchmark
+  public DataMap decode() throws IOException
+  {
+    return _codec.bytesToMap(_bytes);
+  }
+
+  @Benchmark
+  public long sum()
+  {
+    long sum = 0;
+    int size = _array.size();
+    for (int i = 0; i < size; i++)
+    {
+      sum += _array.getLong(i);
+    }
+    return sum;
+  }
+}
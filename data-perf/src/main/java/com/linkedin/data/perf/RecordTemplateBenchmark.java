@@ -0,0 +1,211 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.perf;
+
+
+import com.linkedin.data.DataMap;
+import com.linkedin.data.schema.RecordDataSchema;
+import com.linkedin.data.template.DataTemplateUtil;
+import com.linkedin.data.template.GetMode;
+import com.linkedin.data.template.IntegerArray;
+import com.linkedin.data.template.RecordTemplate;
+import com.linkedin.data.template.SetMode;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures getters and setters of {@link RecordTemplate}'s, using record classes
+ * written the same way as the ones generated by the data template generator.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecordTemplateBenchmark
+{
+  private Foo _foo;
+  private Bar _bar;
+  private IntegerArray _array;
+
+  @Setup
+  public void setup()
+  {
+    _bar = new Bar().setInt(54);
+    _array = new IntegerArray();
+    for (int i = 0; i < 16; i++)
+    {
+      _array.add(i);
+    }
+    _foo = new Foo().setInt(42).setString("foo").setRecord(_bar).setArray(_array);
+  }
+
+  @Benchmark
+  public Integer getInt()
+  {
+    return _foo.getInt();
+  }
+
+  @Benchmark
+  public String getString()
+  {
+    return _foo.getString();
+  }
+
+  @Benchmark
+  public Bar getRecord()
+  {
+    return _foo.getRecord();
+  }
+
+  @Benchmark
+  public IntegerArray getArray()
+  {
+    return _foo.getArray();
+  }
+
+  @Benchmark
+  public Foo setInt()
+  {
+    return _foo.setInt(43);
+  }
+
+  @Benchmark
+  public Foo setString()
+  {
+    return _foo.setString("bar");
+  }
+
+  @Benchmark
+  public Foo newRecordSetAll()
+  {
+    return new Foo().setInt(42).setString("foo").setRecord(new Bar().setInt(54)).setArray(_array);
+  }
+
+  @Benchmark
+  public int getRecordThenInt()
+  {
+    return new Foo(_foo.data()).getRecord().getInt();
+  }
+
+  public static class Foo extends RecordTemplate
+  {
+    public static final RecordDataSchema SCHEMA = (RecordDataSchema) DataTemplateUtil.parseSchema(
+        "{ \"type\" : \"record\", \"name\" : \"Foo\", \"fields\" : [\n" +
+            "{ \"name\" : \"int\", \"type\" : \"int\" },\n" +
+            "{ \"name\" : \"string\", \"type\" : \"string\" },\n" +
+            "{ \"name\" : \"record\", \"type\" : { \"type\" : \"record\", \"name\" : \"Bar\", \"fields\" : [ { \"name\" : \"int\", \"type\" : \"int\" } ] } },\n" +
+            "{ \"name\" : \"array\", \"type\" : { \"type\" : \"array\", \"items\" : \"int\" } }\n" +
+            "] }");
+    private static final RecordDataSchema.Field FIELD_int = SCHEMA.getField("int");
+    private static final RecordDataSchema.Field FIELD_string = SCHEMA.getField("string");
+    private static final RecordDataSchema.Field FIELD_record = SCHEMA.getField("record");
+    private static final RecordDataSchema.Field FIELD_array = SCHEMA.getField("array");
+
+    public Foo()
+    {
+      super(new DataMap(), SCHEMA);
+    }
+
+    public Foo(DataMap data)
+    {
+      super(data, SCHEMA);
+    }
+
+    public Integer getInt()
+    {
+      return obtainDirect(FIELD_int, Integer.class, GetMode.STRICT);
+    }
+
+    public Foo setInt(int value)
+    {
+      putDirect(FIELD_int, Integer.class, Integer.class, value, SetMode.DISALLOW_NULL);
+      return this;
+    }
+
+    public String getString()
+    {
+      return obtainDirect(FIELD_string, String.class, GetMode.STRICT);
+    }
+
+    public Foo setString(String value)
+    {
+      putDirect(FIELD_string, String.class, String.class, value, SetMode.DISALLOW_NULL);
+      return this;
+    }
+
+    public Bar getRecord()
+    {
+      return obtainWrapped(FIELD_record, Bar.class, GetMode.STRICT);
+    }
+
+    public Foo setRecord(Bar value)
+    {
+      putWrapped(FIELD_record, Bar.class, value, SetMode.DISALLOW_NULL);
+      return this;
+    }
+
+    public IntegerArray getArray()
+    {
+      return obtainWrapped(FIELD_array, IntegerArray.class, GetMode.STRICT);
+    }
+
+    public Foo setArray(IntegerArray value)
+    {
+      putWrapped(FIELD_array, IntegerArray.class, value, SetMode.DISALLOW_NULL);
+      return this;
+    }
+  }
+
+  public static class Bar extends RecordTemplate
+  {
+    public static final RecordDataSchema SCHEMA = (RecordDataSchema) Foo.SCHEMA.getField("record").getType();
+    private static final RecordDataSchema.Field FIELD_int = SCHEMA.getField("int");
+
+    public Bar()
+    {
+      super(new DataMap(), SCHEMA);
+    }
+
+    public Bar(DataMap data)
+    {
+      super(data, SCHEMA);
+    }
+
+    public Integer getInt()
+    {
+      return obtainDirect(FIELD_int, Integer.class, GetMode.STRICT);
+    }
+
+    public Bar setInt(int value)
+    {
+      putDirect(FIELD_int, Integer.class, Integer.class, value, SetMode.DISALLOW_NULL);
+      return this;
+    }
+  }
+}
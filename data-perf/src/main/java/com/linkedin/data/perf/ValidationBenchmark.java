@@ -0,0 +1,138 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.perf;
+
+
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+import com.linkedin.data.schema.DataSchema;
+import com.linkedin.data.schema.validation.ValidateDataAgainstSchema;
+import com.linkedin.data.schema.validation.ValidationOptions;
+import com.linkedin.data.schema.validation.ValidationPlan;
+import com.linkedin.data.schema.validation.ValidationResult;
+import com.linkedin.data.template.DataTemplateUtil;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link ValidateDataAgainstSchema} and {@link ValidationPlan} on a record
+ * containing an array of records.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark
+{
+  public static final DataSchema SCHEMA = DataTemplateUtil.parseSchema(
+      "{ \"type\" : \"record\", \"name\" : \"Container\", \"namespace\" : \"com.linkedin.data.perf\", \"fields\" : [\n" +
+      "  { \"name\" : \"name\", \"type\" : \"string\" },\n" +
+      "  { \"name\" : \"items\", \"type\" : { \"type\" : \"array\", \"items\" : {\n" +
+      "    \"type\" : \"record\", \"name\" : \"Item\", \"fields\" : [\n" +
+      "      { \"name\" : \"id\", \"type\" : \"long\" },\n" +
+      "      { \"name\" : \"title\", \"type\" : \"string\" },\n" +
+      "      { \"name\" : \"score\", \"type\" : \"double\" },\n" +
+      "      { \"name\" : \"tags\", \"type\" : { \"type\" : \"array\", \"items\" : \"string\" } },\n" +
+      "      { \"name\" : \"kind\", \"type\" : { \"type\" : \"enum\", \"name\" : \"Kind\", \"symbols\" : [ \"SMALL\", \"MEDIUM\", \"LARGE\" ] } },\n" +
+      "      { \"name\" : \"value\", \"type\" : [ \"int\", \"string\" ] },\n" +
+      "      { \"name\" : \"note\", \"type\" : \"string\", \"optional\" : true }\n" +
+      "    ] } } }\n" +
+      "] }");
+
+  private static final String[] KINDS = { "SMALL", "MEDIUM", "LARGE" };
+
+  @Param({"10", "1000"})
+  public int itemCount;
+
+  private DataMap _data;
+  private ValidationOptions _options;
+  private ValidationPlan _plan;
+
+  @Setup
+  public void setup()
+  {
+    Random random = new Random(itemCount);
+    DataList items = new DataList(itemCount);
+    for (int i = 0; i < itemCount; i++)
+    {
+      DataMap item = new DataMap();
+      item.put("id", random.nextLong());
+      item.put("title", "title" + i);
+      item.put("score", random.nextDouble());
+      DataList tags = new DataList();
+      for (int t = 0; t < 3; t++)
+      {
+        tags.add("tag" + random.nextInt(100));
+      }
+      item.put("tags", tags);
+      item.put("kind", KINDS[i % KINDS.length]);
+      DataMap value = new DataMap();
+      if (random.nextBoolean())
+      {
+        value.put("int", random.nextInt());
+      }
+      else
+      {
+        value.put("string", "value" + i);
+      }
+      item.put("value", value);
+      items.add(item);
+    }
+    _data = new DataMap();
+    _data.put("name", "container");
+    _data.put("items", items);
+    _data.makeReadOnly();
+    _options = new ValidationOptions();
+    _plan = ValidationPlan.compile(SCHEMA, _options);
+
+    ValidationResult result = validate();
+    if (result.isValid() == false)
+    {
+      throw new IllegalStateException(result.getMessages().toString());
+    }
+    if (validatePlan().toString().equals(result.toString()) == false)
+    {
+      throw new IllegalStateException("ValidationPlan result differs from ValidateDataAgainstSchema result");
+    }
+  }
+
+  @Benchmark
+  public ValidationResult validate()
+  {
+    return ValidateDataAgainstSchema.validate(_data, SCHEMA, _options);
+  }
+
+  @Benchmark
+  public ValidationResult validatePlan()
+  {
+    return _plan.validate(_data, _options);
+  }
+}
@@ -0,0 +1,697 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.data.transform.filter;
+
+
+import com.linkedin.data.Data;
+import com.linkedin.data.DataComplex;
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+import com.linkedin.data.collections.CheckedUtil;
+import com.linkedin.data.transform.DataComplexProcessor;
+import com.linkedin.data.transform.DataProcessingException;
+import com.linkedin.data.transform.Escaper;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static com.linkedin.data.transform.filter.FilterConstants.COUNT;
+import static com.linkedin.data.transform.filter.FilterConstants.NEGATIVE;
+import static com.linkedin.data.transform.filter.FilterConstants.POSITIVE;
+import static com.linkedin.data.transform.filter.FilterConstants.START;
+import static com.linkedin.data.transform.filter.FilterConstants.WILDCARD;
+import static com.linkedin.data.transform.filter.FilterUtil.getIntegerWithDefaultValue;
+
+
+/**
+ * Projection compiled from a mask, which projects data the same way as {@link CopyFilter} and
+ * {@link Filter} do.
+ * <p>
+ * Compiling a mask computes once what the filters compute for every node of the data: the default
+ * mode of each mask node, the composition of masks with wildcards and what to do with each field,
+ * with the fields not present in the mask, and with the elements of arrays. Projecting then only
+ * looks up the action of each field. When the fields not present in a mask node are filtered out,
+ * which is the case of positive masks, only the fields of the mask are looked up in the data.
+ * <p>
+ * A projector is immutable and can be shared by threads, e.g. through a {@link MaskProjectorCache}.
+ * Errors in the mask or in the data, e.g. a complex mask for a primitive value, are reported with
+ * an {@link IllegalArgumentException} when data is projected.
+ */
+public class MaskProjector
+{
+  /**
+   * Compile the given mask.
+   *
+   * @param mask to compile, it is not referenced by the returned projector
+   * @return projector of the mask
+   */
+  public static MaskProjector compile(DataMap mask)
+  {
+    if (mask == null)
+    {
+      throw new IllegalArgumentException("Mask must not be null");
+    }
+    return new MaskProjector(new Compiler().compile(mask));
+  }
+
+  private MaskProjector(Node root)
+  {
+    _root = root;
+  }
+
+  /**
+   * Returns the projection of the given data. The data is not modified, the projection shares the
+   * values of the data which are not projected.
+   *
+   * @param data {@link DataMap} or {@link DataList} to project
+   * @return projected data
+   */
+  public Object project(Object data)
+  {
+    if (data == null)
+    {
+      throw error("Either data or operation is null");
+    }
+    return _root.project(data);
+  }
+
+  /**
+   * Traverse the projection of the given data, without building it.
+   *
+   * @param data {@link DataMap} or {@link DataList} to project
+   * @param callback to receive the events of the projected data
+   */
+  public void traverse(Object data, Data.TraverseCallback callback) throws IOException
+  {
+    if (data == null)
+    {
+      throw error("Either data or operation is null");
+    }
+    _root.traverse(data, callback);
+  }
+
+  private static IllegalArgumentException error(String format, Object... args)
+  {
+    return new IllegalArgumentException(String.format(format, args));
+  }
+
+  /**
+   * What to do with a value.
+   */
+  private static final class Action
+  {
+    private static final int KEEP = 0;
+    private static final int DROP = 1;
+    private static final int PROJECT = 2;
+    private static final int ERROR = 3;
+
+    private static final Action KEEP_ACTION = new Action(KEEP, null, null);
+    private static final Action DROP_ACTION = new Action(DROP, null, null);
+
+    private final int _kind;
+    private final Node _node;
+    // error message, a format taking the value if the error depends on it
+    private final String _error;
+
+    private Action(int kind, Node node, String error)
+    {
+      _kind = kind;
+      _node = node;
+      _error = error;
+    }
+
+    private static Action project(Node node)
+    {
+      return new Action(PROJECT, node, null);
+    }
+
+    private static Action error(String format, Object... args)
+    {
+      return new Action(ERROR, null, String.format(format, args).replace("%", "%%"));
+    }
+
+    private static Action primitiveValueError(DataMap mask)
+    {
+      return new Action(ERROR,
+                        null,
+                        "data is of primitve value: %1$s, but filter: " + mask.toString().replace("%", "%%") + " is complex");
+    }
+  }
+
+  /**
+   * Actions for the complex and for the primitive values of a field.
+   */
+  private static final class Rule
+  {
+    private static final Rule KEEP_RULE = new Rule(Action.KEEP_ACTION, Action.KEEP_ACTION);
+    private static final Rule DROP_RULE = new Rule(Action.DROP_ACTION, Action.DROP_ACTION);
+
+    private final Action _complex;
+    private final Action _primitive;
+
+    private Rule(Action complex, Action primitive)
+    {
+      _complex = complex;
+      _primitive = primitive;
+    }
+
+    private static Rule error(String format, Object... args)
+    {
+      final Action error = Action.error(format, args);
+      return new Rule(error, error);
+    }
+
+    private Action select(Object value)
+    {
+      final Action action = value instanceof DataComplex ? _complex : _primitive;
+      if (action._kind == Action.ERROR)
+      {
+        throw MaskProjector.error(action._error, value);
+      }
+      return action;
+    }
+  }
+
+  /**
+   * Compiled mask node, projecting either a {@link DataMap} or a {@link DataList}.
+   */
+  private static final class Node
+  {
+    // rules of the fields present in the mask, by unescaped field name
+    private final Map<String, Rule> _fieldRules = new HashMap<String, Rule>();
+    private Rule _defaultRule;
+    // true if the fields not present in the mask are filtered out
+    private boolean _namedFieldsOnly;
+
+    private int _start;
+    private int _count;
+    private String _rangeError;
+    private Action _elementAction;
+
+    private Rule rule(String name)
+    {
+      final Rule rule = _fieldRules.get(name);
+      return rule == null ? _defaultRule : rule;
+    }
+
+    private boolean iterateMask(DataMap data)
+    {
+      return _namedFieldsOnly && _fieldRules.size() < data.size();
+    }
+
+    private Object project(Object data)
+    {
+      final Class<?> clas = data.getClass();
+      if (clas == DataMap.class)
+      {
+        return projectMap((DataMap) data);
+      }
+      else if (clas == DataList.class)
+      {
+        return projectList((DataList) data);
+      }
+      else
+      {
+        throw error("Data type in instruction must be DataMap or DataList, but is: %1$s", clas.getName());
+      }
+    }
+
+    private void traverse(Object data, Data.TraverseCallback callback) throws IOException
+    {
+      final Class<?> clas = data.getClass();
+      if (clas == DataMap.class)
+      {
+        traverseMap((DataMap) data, callback);
+      }
+      else if (clas == DataList.class)
+      {
+        traverseList((DataList) data, callback);
+      }
+      else
+      {
+        throw error("Data type in instruction must be DataMap or DataList, but is: %1$s", clas.getName());
+      }
+    }
+
+    private DataMap projectMap(DataMap data)
+    {
+      final DataMap result = new DataMap();
+      if (iterateMask(data))
+      {
+        for (Map.Entry<String, Rule> entry : _fieldRules.entrySet())
+        {
+          final Object value = data.get(entry.getKey());
+          if (value != null)
+          {
+            projectField(result, entry.getKey(), value, entry.getValue().select(value));
+          }
+        }
+      }
+      else
+      {
+        for (Map.Entry<String, Object> entry : data.entrySet())
+        {
+          final Object value = entry.getValue();
+          projectField(result, entry.getKey(), value, rule(entry.getKey()).select(value));
+        }
+      }
+      return result;
+    }
+
+    private static void projectField(DataMap result, String name, Object value, Action action)
+    {
+      if (action._kind == Action.KEEP)
+      {
+        CheckedUtil.putWithoutChecking(result, name, value);
+      }
+      else if (action._kind == Action.PROJECT)
+      {
+        CheckedUtil.putWithoutChecking(result, name, action._node.project(value));
+      }
+    }
+
+    private void traverseMap(DataMap data, Data.TraverseCallback callback) throws IOException
+    {
+      int selected = 0;
+      if (iterateMask(data))
+      {
+        for (Map.Entry<String, Rule> entry : _fieldRules.entrySet())
+        {
+          final Object value = data.get(entry.getKey());
+          if (value != null && entry.getValue().select(value)._kind != Action.DROP)
+          {
+            ++selected;
+          }
+        }
+      }
+      else
+      {
+        for (Map.Entry<String, Object> entry : data.entrySet())
+        {
+          if (rule(entry.getKey()).select(entry.getValue())._kind != Action.DROP)
+          {
+            ++selected;
+          }
+        }
+      }
+
+      if (selected == 0)
+      {
+        callback.emptyMap();
+        return;
+      }
+
+      // the callbacks are given a map of the selected fields, e.g. for the count of the encoded entries
+      final DataMap selectedMap;
+      if (selected == data.size())
+      {
+        selectedMap = data;
+      }
+      else
+      {
+        selectedMap = new DataMap((int) Math.ceil(selected / 0.75f));
+        if (iterateMask(data))
+        {
+          for (Map.Entry<String, Rule> entry : _fieldRules.entrySet())
+          {
+            final Object value = data.get(entry.getKey());
+            if (value != null && entry.getValue().select(value)._kind != Action.DROP)
+            {
+              CheckedUtil.putWithoutChecking(selectedMap, entry.getKey(), value);
+            }
+          }
+        }
+        else
+        {
+          for (Map.Entry<String, Object> entry : data.entrySet())
+          {
+            final Object value = entry.getValue();
+            if (rule(entry.getKey()).select(value)._kind != Action.DROP)
+            {
+              CheckedUtil.putWithoutChecking(selectedMap, entry.getKey(), value);
+            }
+          }
+        }
+      }
+
+      callback.startMap(selectedMap);
+      for (Map.Entry<String, Object> entry : callback.orderMap(selectedMap))
+      {
+        final Object value = entry.getValue();
+        final Action action = rule(entry.getKey()).select(value);
+        callback.key(entry.getKey());
+        if (action._kind == Action.PROJECT)
+        {
+          action._node.traverse(value, callback);
+        }
+        else
+        {
+          Data.traverse(value, callback);
+        }
+      }
+      callback.endMap();
+    }
+
+    /**
+     * Validates the range and the wildcard of the mask for the given list.
+     *
+     * @return the end index of the projected elements
+     */
+    private int checkList(DataList data)
+    {
+      if (_rangeError != null)
+      {
+        throw error(_rangeError);
+      }
+      if (_elementAction._kind == Action.ERROR)
+      {
+        throw error(_elementAction._error);
+      }
+      if (_elementAction._kind == Action.PROJECT)
+      {
+        for (int i = 0; i < data.size(); ++i)
+        {
+          final Object element = data.get(i);
+          if (!(element instanceof DataComplex))
+          {
+            throw error("complex filter defined for array element, which is not an object nor an array, " +
+                            "but it is of type: %1$s, with value: %2$s",
+                        element.getClass().getName(),
+                        element.toString());
+          }
+        }
+      }
+      return (int) Math.min(data.size(), (long) _start + _count);
+    }
+
+    private DataList projectList(DataList data)
+    {
+      final int end = checkList(data);
+      if (_elementAction._kind == Action.DROP || end <= _start)
+      {
+        return new DataList();
+      }
+
+      final DataList result = new DataList(end - _start);
+      for (int i = _start; i < end; ++i)
+      {
+        final Object value = data.get(i);
+        CheckedUtil.addWithoutChecking(result,
+                                       _elementAction._kind == Action.PROJECT ? _elementAction._node.project(value) : value);
+      }
+      return result;
+    }
+
+    private void traverseList(DataList data, Data.TraverseCallback callback) throws IOException
+    {
+      final int end = checkList(data);
+      if (_elementAction._kind == Action.DROP || end <= _start)
+      {
+        callback.emptyList();
+        return;
+      }
+
+      final DataList selectedList;
+      if (_start == 0 && end == data.size())
+      {
+        selectedList = data;
+      }
+      else
+      {
+        selectedList = new DataList(end - _start);
+        for (int i = _start; i < end; ++i)
+        {
+          CheckedUtil.addWithoutChecking(selectedList, data.get(i));
+        }
+      }
+
+      if (_elementAction._kind == Action.KEEP)
+      {
+        Data.traverse(selectedList, callback);
+        return;
+      }
+
+      callback.startList(selectedList);
+      for (int i = 0; i < selectedList.size(); ++i)
+      {
+        callback.index(i);
+        _elementAction._node.traverse(selectedList.get(i), callback);
+      }
+      callback.endList();
+    }
+  }
+
+  /**
+   * Compiles the nodes of a mask with the rules of {@link AbstractFilter}.
+   */
+  private static final class Compiler
+  {
+    private final DefaultNodeModeCalculator _nodeModeCalculator = new DefaultNodeModeCalculator();
+    private final Map<DataMap, Node> _nodes = new IdentityHashMap<DataMap, Node>();
+
+    private Node compile(DataMap opNode)
+    {
+      Node node = _nodes.get(opNode);
+      if (node != null)
+      {
+        return node;
+      }
+
+      node = new Node();
+      _nodes.put(opNode, node);
+
+      final NodeMode defaultMode = _nodeModeCalculator.getDefaultNodeMode(opNode);
+      final Object rawWildcard = opNode.get(WILDCARD);
+      final DataMap complexWildcard = rawWildcard != null && rawWildcard.getClass() == DataMap.class ?
+          (DataMap) rawWildcard : null;
+
+      compileFields(node, opNode, defaultMode, rawWildcard, complexWildcard);
+      compileList(node, opNode, rawWildcard, complexWildcard);
+      return node;
+    }
+
+    private void compileFields(Node node,
+                               DataMap opNode,
+                               NodeMode defaultMode,
+                               Object rawWildcard,
+                               DataMap complexWildcard)
+    {
+      // fields which are not present in the mask
+      if (defaultMode == NodeMode.HIDE_HIGH || areFieldsImplicitlyRemoved(defaultMode, complexWildcard))
+      {
+        node._defaultRule = Rule.DROP_RULE;
+      }
+      else if (complexWildcard != null)
+      {
+        node._defaultRule = new Rule(Action.project(compile(complexWildcard)),
+                                     needsRemoving(defaultMode, complexWildcard) ? Action.DROP_ACTION : Action.KEEP_ACTION);
+      }
+      else
+      {
+        node._defaultRule = Rule.KEEP_RULE;
+      }
+      node._namedFieldsOnly = node._defaultRule == Rule.DROP_RULE;
+
+      for (Map.Entry<String, Object> entry : opNode.entrySet())
+      {
+        final String name = toFieldName(entry.getKey());
+        if (name != null)
+        {
+          node._fieldRules.put(name, compileField(name, entry.getValue(), defaultMode, rawWildcard, complexWildcard));
+        }
+      }
+    }
+
+    private Rule compileField(String name,
+                              Object mask,
+                              NodeMode defaultMode,
+                              Object rawWildcard,
+                              DataMap complexWildcard)
+    {
+      if (mask.getClass() == Integer.class)
+      {
+        final NodeMode explicitMode = NodeMode.fromRepresentation((Integer) mask);
+        if (explicitMode == null)
+        {
+          return Rule.error("mask value for field %1$s should be 0 or 1, instead it is: %2$s", name, mask);
+        }
+        else if (explicitMode == NodeMode.HIDE_HIGH)
+        {
+          // if item was explicitly hidden, filter it out with all descendants
+          return Rule.DROP_RULE;
+        }
+        else if (complexWildcard != null)
+        {
+          // field selected explicitly, complex values are also masked by the wildcard
+          final Object composed = compose(complexWildcard, wildcard(POSITIVE));
+          final Action complex = composed instanceof DataMap ?
+              Action.project(compile((DataMap) composed)) : Action.error("%1$s", composed);
+          return new Rule(complex, Action.KEEP_ACTION);
+        }
+        else
+        {
+          return Rule.KEEP_RULE;
+        }
+      }
+      else if (mask.getClass() == DataMap.class)
+      {
+        final Object effectiveMask;
+        if (rawWildcard == null)
+        {
+          effectiveMask = mask;
+        }
+        else if (rawWildcard.equals(POSITIVE))
+        {
+          effectiveMask = compose((DataMap) mask, wildcard(POSITIVE));
+        }
+        else if (rawWildcard.getClass() == DataMap.class)
+        {
+          effectiveMask = compose((DataMap) mask, (DataMap) rawWildcard);
+        }
+        else
+        {
+          effectiveMask = String.format("complex mask for field %1$s can not be composed with wildcard: %2$s",
+                                        name, rawWildcard);
+        }
+
+        if (!(effectiveMask instanceof DataMap))
+        {
+          return Rule.error("%1$s", effectiveMask);
+        }
+        else if (needsRemoving(defaultMode, (DataMap) effectiveMask))
+        {
+          return Rule.DROP_RULE;
+        }
+        else
+        {
+          return new Rule(Action.project(compile((DataMap) effectiveMask)),
+                          Action.primitiveValueError((DataMap) mask));
+        }
+      }
+      else
+      {
+        return Rule.error("mask value for field %2$s should be of type Integer or DataMap, instead it is of type: %1$s, ",
+                          mask, name);
+      }
+    }
+
+    private void compileList(Node node, DataMap opNode, Object rawWildcard, DataMap complexWildcard)
+    {
+      final Integer start = getIntegerWithDefaultValue(opNode, START, 0);
+      final Integer count = getIntegerWithDefaultValue(opNode, COUNT, Integer.MAX_VALUE);
+      if (start == null || start < 0)
+      {
+        node._rangeError = String.format("value of %1$s must be positive integer but is equal to %2$d", START, start)
+            .replace("%", "%%");
+      }
+      else if (count == null || count < 0)
+      {
+        node._rangeError = String.format("value of %1$s must be positive integer but is equal to %2$d", COUNT, count)
+            .replace("%", "%%");
+      }
+      else
+      {
+        node._start = start;
+        node._count = count;
+      }
+
+      if (rawWildcard == null || rawWildcard.equals(POSITIVE))
+      {
+        node._elementAction = Action.KEEP_ACTION;
+      }
+      else if (rawWildcard.equals(NEGATIVE))
+      {
+        node._elementAction = Action.DROP_ACTION;
+      }
+      else if (complexWildcard != null)
+      {
+        node._elementAction = Action.project(compile(complexWildcard));
+      }
+      else
+      {
+        node._elementAction = Action.error(
+            "wildcard can be either 0, 1 or DataMap instance, but it is of type: %1$s, equal to: %2$s",
+            rawWildcard.getClass().getName(),
+            rawWildcard.toString());
+      }
+    }
+
+    /**
+     * Field needs to be removed if it was explicitly filtered out with 0 or if default mode
+     * is hide_low and effectiveMask does not contain any positive mask.
+     */
+    private boolean needsRemoving(NodeMode defaultMode, DataMap effectiveMask)
+    {
+      final NodeMode maskMode = _nodeModeCalculator.getDefaultNodeMode(effectiveMask);
+      return defaultMode == NodeMode.HIDE_HIGH
+          || (defaultMode == NodeMode.HIDE_LOW && (maskMode == NodeMode.SHOW_LOW || maskMode == NodeMode.HIDE_HIGH));
+    }
+
+    private boolean areFieldsImplicitlyRemoved(NodeMode defaultMode, DataMap complexWildcard)
+    {
+      return defaultMode == NodeMode.HIDE_LOW
+          && (complexWildcard == null || _nodeModeCalculator.getDefaultNodeMode(complexWildcard) != NodeMode.HIDE_LOW);
+    }
+
+    /**
+     * Returns the composition of the two masks, or the error message if they can not be composed.
+     */
+    private static Object compose(DataMap mask1, DataMap mask2)
+    {
+      try
+      {
+        final DataMap clone = mask1.copy();
+        new DataComplexProcessor(new MaskComposition(), mask2, clone).run(true);
+        return clone;
+      }
+      catch (CloneNotSupportedException e)
+      {
+        return String.format("could not clone mask: %1$s, exception: %2$s", mask1, e);
+      }
+      catch (DataProcessingException e)
+      {
+        return String.format("error composing mask %1$s with %2$s, exception: %3$s", mask1, mask2, e);
+      }
+    }
+
+    private static DataMap wildcard(Integer value)
+    {
+      final DataMap wildcardMap = new DataMap();
+      wildcardMap.put(WILDCARD, value);
+      return wildcardMap;
+    }
+
+    /**
+     * Returns the name of the field masked by the given mask key, or null if the key is not an
+     * escaped field name, e.g. <code>$*</code> or <code>$start</code>.
+     */
+    private static String toFieldName(String key)
+    {
+      if (key.indexOf('$') < 0)
+      {
+        return key;
+      }
+      final String name = Escaper.replaceAll(key, "$$", "$");
+      return Escaper.replaceAll(name, "$", "$$").equals(key) ? name : null;
+    }
+  }
+
+  private final Node _root;
+}
@@ -0,0 +1,85 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.data.transform.filter;
+
+
+import com.linkedin.data.DataMap;
+import com.linkedin.util.LruCache;
+
+
+/**
+ * Cache of {@link MaskProjector}s, keyed by their mask.
+ * <p>
+ * {@link DataMap}s are compared by content, so equal masks built for different requests share the
+ * same projector, and looking a mask up neither encodes nor copies it. The cache keeps a read-only
+ * copy of each mask it caches a projector for, so that changes to the mask passed in do not affect
+ * the cache. Once the cache holds its maximum number of projectors, caching a new one evicts the
+ * least recently used projector.
+ */
+public class MaskProjectorCache
+{
+  /**
+   * @param maxSize maximum number of projectors kept by this cache
+   */
+  public MaskProjectorCache(int maxSize)
+  {
+    _projectors = new LruCache<DataMap, MaskProjector>(maxSize);
+  }
+
+  /**
+   * Returns the projector of the given mask, compiling it if necessary.
+   *
+   * @param mask mask to project data with
+   * @return projector of the mask
+   */
+  public MaskProjector getProjector(DataMap mask)
+  {
+    MaskProjector projector = _projectors.get(mask);
+    if (projector == null)
+    {
+      final DataMap key;
+      try
+      {
+        key = mask.copy();
+      }
+      catch (CloneNotSupportedException e)
+      {
+        throw new IllegalArgumentException("Cannot copy mask: " + mask, e);
+      }
+      key.makeReadOnly();
+
+      projector = MaskProjector.compile(key);
+      final MaskProjector existing = _projectors.putIfAbsent(key, projector);
+      if (existing != null)
+      {
+        projector = existing;
+      }
+    }
+    return projector;
+  }
+
+  /**
+   * @return number of projectors in this cache
+   */
+  public int size()
+  {
+    return _projectors.size();
+  }
+
+  private final LruCache<DataMap, MaskProjector> _projectors;
+}
@@ -0,0 +1,151 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.data.transform.filter;
+
+
+import com.linkedin.data.Data;
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+
+/**
+ * {@link Data.Traverser} that applies masks to some of the {@link DataMap}s of the traversed object,
+ * so that a projected object can be encoded without first being copied by {@link CopyFilter}.
+ * <p>
+ * The projection of a {@link DataMap} is the same as the one of {@link CopyFilter}. Masks are applied
+ * by their {@link MaskProjector} while traversing: the fields which are not selected are not visited
+ * at all, and the projected object is not copied.
+ * <p>
+ * Instances are not thread-safe; they are meant to be created for each object to encode.
+ */
+public class ProjectingTraverser implements Data.Traverser
+{
+  /**
+   * Project the given {@link DataMap} with the given mask whenever it is traversed.
+   *
+   * @param data {@link DataMap} to be projected
+   * @param mask mask to apply to the data
+   */
+  public void project(DataMap data, DataMap mask)
+  {
+    project(data, MaskProjector.compile(mask));
+  }
+
+  /**
+   * Project the given {@link DataMap} with the given projector whenever it is traversed.
+   *
+   * @param data {@link DataMap} to be projected
+   * @param projector projector to apply to the data, e.g. from a {@link MaskProjectorCache}
+   */
+  public void project(DataMap data, MaskProjector projector)
+  {
+    _projectors.put(data, projector);
+  }
+
+  /**
+   * @return true if no {@link DataMap} is projected by this traverser.
+   */
+  public boolean isEmpty()
+  {
+    return _projectors.isEmpty();
+  }
+
+  @Override
+  public void traverse(Object obj, Data.TraverseCallback callback) throws IOException
+  {
+    if (_projectors.isEmpty())
+    {
+      Data.traverse(obj, callback);
+    }
+    else
+    {
+      traverseUnprojected(obj, callback);
+    }
+  }
+
+  private void traverseUnprojected(Object obj, Data.TraverseCallback callback) throws IOException
+  {
+    if (obj == null)
+    {
+      callback.nullValue();
+      return;
+    }
+
+    final Class<?> clas = obj.getClass();
+    if (clas == DataMap.class)
+    {
+      final DataMap map = (DataMap) obj;
+      final MaskProjector projector = _projectors.get(map);
+      if (projector != null)
+      {
+        try
+        {
+          projector.traverse(map, callback);
+        }
+        catch (IllegalArgumentException e)
+        {
+          throw new IOException("Error projecting fields", e);
+        }
+      }
+      else if (map.isEmpty())
+      {
+        callback.emptyMap();
+      }
+      else
+      {
+        callback.startMap(map);
+        for (Map.Entry<String, Object> entry : callback.orderMap(map))
+        {
+          callback.key(entry.getKey());
+          traverseUnprojected(entry.getValue(), callback);
+        }
+        callback.endMap();
+      }
+    }
+    else if (clas == DataList.class)
+    {
+      final DataList list = (DataList) obj;
+      if (list.isEmpty())
+      {
+        callback.emptyList();
+      }
+      else
+      {
+        callback.startList(list);
+        int index = 0;
+        for (Object o : list)
+        {
+          callback.index(index);
+          ++index;
+          traverseUnprojected(o, callback);
+        }
+        callback.endList();
+      }
+    }
+    else
+    {
+      Data.traverse(obj, callback);
+    }
+  }
+
+  private final Map<DataMap, MaskProjector> _projectors = new IdentityHashMap<DataMap, MaskProjector>();
+}
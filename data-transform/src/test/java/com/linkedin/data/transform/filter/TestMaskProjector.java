@@ -0,0 +1,117 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.data.transform.filter;
+
+
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+import com.linkedin.data.transform.DataProcessingException;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+
+import static com.linkedin.data.TestUtil.dataMapFromString;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+
+public class TestMaskProjector extends TestFilterOnData
+{
+  @Override
+  protected void genericFilterTest(DataMap data, DataMap filter, DataMap expected, String description) throws DataProcessingException
+  {
+    final String dataBefore = data.toString();
+    final String filterBefore = filter.toString();
+    final Object result = MaskProjector.compile(filter).project(data);
+    assertEquals(result, expected, "The following test failed: \n" + description  +
+        "\nData: " + dataBefore + "\nFilter: " + filter +
+        "\nExpected: " + expected + "\nActual result: " + result);
+    assertEquals(data.toString(), dataBefore, "Data should not be modified");
+    assertEquals(filter.toString(), filterBefore, "Filter should not be modified");
+  }
+
+  @Test
+  public void testProjectList() throws IOException
+  {
+    final DataList data = new DataList();
+    data.add(dataMapFromString("{'a': 1, 'b': 2}".replace('\'', '"')));
+    data.add(dataMapFromString("{'a': 3, 'b': 4}".replace('\'', '"')));
+    data.add(dataMapFromString("{'a': 5, 'b': 6}".replace('\'', '"')));
+
+    final MaskProjector projector = MaskProjector.compile(
+        dataMapFromString("{'$start': 1, '$*': {'a': 1}}".replace('\'', '"')));
+    final DataList expected = new DataList();
+    expected.add(dataMapFromString("{'a': 3}".replace('\'', '"')));
+    expected.add(dataMapFromString("{'a': 5}".replace('\'', '"')));
+    assertEquals(projector.project(data), expected);
+  }
+
+  @Test
+  public void testRangeDoesNotOverflow() throws IOException
+  {
+    final DataMap data = dataMapFromString("{'a': [1, 2, 3]}".replace('\'', '"'));
+    final MaskProjector projector = MaskProjector.compile(
+        dataMapFromString(("{'a': {'$start': 1, '$count': " + Integer.MAX_VALUE + "}}").replace('\'', '"')));
+    assertEquals(projector.project(data), dataMapFromString("{'a': [2, 3]}".replace('\'', '"')));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testComplexMaskOnPrimitive() throws IOException
+  {
+    final DataMap data = dataMapFromString("{'a': 1, 'b': 'x'}".replace('\'', '"'));
+    MaskProjector.compile(dataMapFromString("{'b': {'c': 1}}".replace('\'', '"'))).project(data);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInvalidMaskValue() throws IOException
+  {
+    final DataMap data = dataMapFromString("{'a': 1, 'b': 'x'}".replace('\'', '"'));
+    MaskProjector.compile(dataMapFromString("{'b': 'y'}".replace('\'', '"'))).project(data);
+  }
+
+  @Test
+  public void testCache() throws IOException
+  {
+    final MaskProjectorCache cache = new MaskProjectorCache(1);
+    final MaskProjector projector = cache.getProjector(dataMapFromString("{'a': 1, 'b': {'c': 1}}".replace('\'', '"')));
+    assertSame(cache.getProjector(dataMapFromString("{'a': 1, 'b': {'c': 1}}".replace('\'', '"'))), projector);
+    assertEquals(cache.size(), 1);
+
+    // the cache is full, a new mask evicts the least recently used one
+    final DataMap other = dataMapFromString("{'a': 1}".replace('\'', '"'));
+    assertSame(cache.getProjector(other), cache.getProjector(other));
+    assertEquals(cache.size(), 1);
+    assertNotSame(cache.getProjector(dataMapFromString("{'a': 1, 'b': {'c': 1}}".replace('\'', '"'))), projector);
+    assertEquals(cache.size(), 1);
+  }
+
+  @Test
+  public void testCacheKeepsCopyOfMask() throws IOException
+  {
+    final MaskProjectorCache cache = new MaskProjectorCache(2);
+    final DataMap mask = dataMapFromString("{'a': 1}".replace('\'', '"'));
+    final MaskProjector projector = cache.getProjector(mask);
+
+    // changing the mask after its projector is cached neither changes nor finds the cached projector
+    mask.put("b", 1);
+    assertNotSame(cache.getProjector(mask), projector);
+    assertSame(cache.getProjector(dataMapFromString("{'a': 1}".replace('\'', '"'))), projector);
+    assertEquals(cache.size(), 2);
+  }
+}
@@ -0,0 +1,99 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.data.transform.filter;
+
+
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+import com.linkedin.data.codec.JacksonDataCodec;
+import com.linkedin.data.codec.PsonDataCodec;
+import com.linkedin.data.transform.DataProcessingException;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+
+import static com.linkedin.data.TestUtil.dataMapFromString;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+
+public class TestProjectingTraverser extends TestFilterOnData
+{
+  @Override
+  protected void genericFilterTest(DataMap data, DataMap filter, DataMap expected, String description) throws DataProcessingException
+  {
+    final String dataBefore = data.toString();
+    final ProjectingTraverser traverser = new ProjectingTraverser();
+    traverser.project(data, filter);
+
+    try
+    {
+      final DataMap json = JSON_CODEC.bytesToMap(JSON_CODEC.mapToBytes(data, traverser));
+      final DataMap pson = PSON_CODEC.bytesToMap(PSON_CODEC.mapToBytes(data, traverser));
+      final String message = "The following test failed: \n" + description  +
+          "\nData: " + dataBefore + "\nFilter: " + filter + "\nExpected: " + expected;
+      assertEquals(json, expected, message + "\nActual JSON result: " + json);
+      assertEquals(pson, expected, message + "\nActual PSON result: " + pson);
+      assertEquals(data.toString(), dataBefore, "Data should not be modified");
+    }
+    catch (IOException e)
+    {
+      fail("The following test failed: \n" + description, e);
+    }
+  }
+
+  @Test
+  public void testProjectedElements() throws IOException
+  {
+    final DataMap first = dataMapFromString("{'a': 1, 'b': {'c': 'x', 'd': [1, 2]}, 'e': 'y'}".replace('\'', '"'));
+    final DataMap second = dataMapFromString("{'a': 2, 'e': 'z'}".replace('\'', '"'));
+    final DataMap mask = dataMapFromString("{'a': 1, 'b': {'d': 1}}".replace('\'', '"'));
+
+    final DataList elements = new DataList();
+    elements.add(first);
+    elements.add(second);
+    final DataMap envelope = new DataMap();
+    envelope.put("elements", elements);
+    envelope.put("paging", dataMapFromString("{'a': 3, 'e': 'w'}".replace('\'', '"')));
+
+    final ProjectingTraverser traverser = new ProjectingTraverser();
+    assertTrue(traverser.isEmpty());
+    traverser.project(first, mask);
+    traverser.project(second, mask);
+
+    final DataMap expected = dataMapFromString(
+        "{'elements': [{'a': 1, 'b': {'d': [1, 2]}}, {'a': 2}], 'paging': {'a': 3, 'e': 'w'}}".replace('\'', '"'));
+    assertEquals(JSON_CODEC.bytesToMap(JSON_CODEC.mapToBytes(envelope, traverser)), expected);
+    assertEquals(PSON_CODEC.bytesToMap(PSON_CODEC.mapToBytes(envelope, traverser)), expected);
+  }
+
+  @Test(expectedExceptions = IOException.class)
+  public void testComplexMaskOnPrimitive() throws IOException
+  {
+    final DataMap data = dataMapFromString("{'a': 1, 'b': 'x'}".replace('\'', '"'));
+    final ProjectingTraverser traverser = new ProjectingTraverser();
+    traverser.project(data, dataMapFromString("{'b': {'c': 1}}".replace('\'', '"')));
+    JSON_CODEC.mapToBytes(data, traverser);
+  }
+
+  private static final JacksonDataCodec JSON_CODEC = new JacksonDataCodec();
+  // the entry counts of the encoded maps must be the ones of the projected maps
+  private static final PsonDataCodec PSON_CODEC =
+      new PsonDataCodec().setOptions(new PsonDataCodec.Options().setEncodeCollectionCount(true));
+}
@@ -25,19 +25,36 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * An immutable sequence of bytes.
  *
+ * <p>
+ * The bytes may be held in a single array or in a chain of segments, where each segment
+ * is a heap or direct {@link ByteBuffer}. Segmented {@link ByteString}'s are created by
+ * {@link #unsafeWrap(ByteBuffer...)}, {@link #concat(ByteString...)} and {@link #slice(int, int)}
+ * without copying the underlying bytes.
+ *
  * @author Chris Pettitt
  * @version $Revision$
  */
 public final class ByteString
 {
-  private static final ByteString EMPTY = new ByteString(new byte[0]);
+  private static final ByteBuffer[] NO_SEGMENTS = new ByteBuffer[0];
+  private static final ByteString EMPTY = new ByteString(NO_SEGMENTS, 0);
+  private static final int WRITE_BUFFER_SIZE = 8192;
 
-  private final byte[] _bytes;
+  /**
+   * Each segment is a slice, i.e. position is 0 and limit is the number of bytes in the segment.
+   * Segments are never empty and are only accessed with absolute gets or through duplicates,
+   * so that a {@link ByteString} may be safely shared between threads.
+   */
+  private final ByteBuffer[] _segments;
+  private final int _length;
 
   /**
    * Returns an empty {@link ByteString}.
@@ -84,6 +101,78 @@ public final class ByteString
     return new ByteString(bytes);
   }
 
+  /**
+   * Returns a new {@link ByteString} that wraps the supplied range of bytes without copying.
+   *
+   * <p>
+   * The caller must not modify the supplied bytes after this method is called, otherwise
+   * the returned {@link ByteString} is no longer immutable.
+   *
+   * @param bytes the bytes to wrap.
+   * @param offset the index of the first byte to wrap.
+   * @param length the number of bytes to wrap.
+   * @return a {@link ByteString} that wraps the supplied range of bytes.
+   * @throws NullPointerException if {@code bytes} is {@code null}.
+   * @throws IndexOutOfBoundsException if the range is not within {@code bytes}.
+   */
+  public static ByteString unsafeWrap(byte[] bytes, int offset, int length)
+  {
+    ArgumentUtil.notNull(bytes, "bytes");
+    return unsafeWrap(ByteBuffer.wrap(bytes, offset, length));
+  }
+
+  /**
+   * Returns a new {@link ByteString} that wraps the remaining bytes of each of the supplied
+   * {@link ByteBuffer}'s, in order, without copying. The buffers may be heap or direct buffers.
+   * The positions and limits of the supplied buffers are not changed.
+   *
+   * <p>
+   * The caller must not modify the wrapped bytes after this method is called, otherwise
+   * the returned {@link ByteString} is no longer immutable.
+   *
+   * @param byteBuffers the {@link ByteBuffer}'s to wrap.
+   * @return a {@link ByteString} that wraps the remaining bytes of the supplied {@link ByteBuffer}'s.
+   * @throws NullPointerException if {@code byteBuffers} or any of its elements is {@code null}.
+   */
+  public static ByteString unsafeWrap(ByteBuffer... byteBuffers)
+  {
+    ArgumentUtil.notNull(byteBuffers, "byteBuffers");
+    List<ByteBuffer> segments = new ArrayList<ByteBuffer>(byteBuffers.length);
+    int length = 0;
+    for (ByteBuffer byteBuffer : byteBuffers)
+    {
+      ArgumentUtil.notNull(byteBuffer, "byteBuffer");
+      if (byteBuffer.hasRemaining())
+      {
+        segments.add(byteBuffer.slice());
+        length = addLength(length, byteBuffer.remaining());
+      }
+    }
+    return newByteString(segments, length);
+  }
+
+  /**
+   * Returns a {@link ByteString} that is the concatenation of the supplied {@link ByteString}'s.
+   * The bytes of the supplied {@link ByteString}'s are not copied.
+   *
+   * @param byteStrings the {@link ByteString}'s to concatenate.
+   * @return a {@link ByteString} that is the concatenation of the supplied {@link ByteString}'s.
+   * @throws NullPointerException if {@code byteStrings} or any of its elements is {@code null}.
+   */
+  public static ByteString concat(ByteString... byteStrings)
+  {
+    ArgumentUtil.notNull(byteStrings, "byteStrings");
+    List<ByteBuffer> segments = new ArrayList<ByteBuffer>(byteStrings.length);
+    int length = 0;
+    for (ByteString byteString : byteStrings)
+    {
+      ArgumentUtil.notNull(byteString, "byteString");
+      segments.addAll(Arrays.asList(byteString._segments));
+      length = addLength(length, byteString._length);
+    }
+    return newByteString(segments, length);
+  }
+
   /**
    * Returns a new {@link ByteString} that wraps the bytes generated from the supplied string with the
    * given charset.
@@ -176,10 +265,32 @@ public final class ByteString
     return new ByteString(buf);
   }
 
+  private static ByteString newByteString(List<ByteBuffer> segments, int length)
+  {
+    return length == 0 ? empty() : new ByteString(segments.toArray(new ByteBuffer[segments.size()]), length);
+  }
+
+  private static int addLength(int length, int more)
+  {
+    int sum = length + more;
+    if (sum < 0)
+    {
+      throw new IllegalArgumentException("ByteString cannot be longer than " + Integer.MAX_VALUE + " bytes");
+    }
+    return sum;
+  }
+
   private ByteString(byte[] bytes)
   {
     assert bytes != null;
-    _bytes = bytes;
+    _segments = (bytes.length == 0 ? NO_SEGMENTS : new ByteBuffer[] { ByteBuffer.wrap(bytes) });
+    _length = bytes.length;
+  }
+
+  private ByteString(ByteBuffer[] segments, int length)
+  {
+    _segments = segments;
+    _length = length;
   }
 
   /**
@@ -189,7 +300,49 @@ public final class ByteString
    */
   public int length()
   {
-    return _bytes.length;
+    return _length;
+  }
+
+  /**
+   * Returns a {@link ByteString} view of a range of the bytes in this {@link ByteString}.
+   * This method makes no copy.
+   *
+   * @param offset the index of the first byte in the range.
+   * @param length the number of bytes in the range.
+   * @return a {@link ByteString} view of the range of bytes.
+   * @throws IndexOutOfBoundsException if the range is not within this {@link ByteString}.
+   */
+  public ByteString slice(int offset, int length)
+  {
+    if (offset < 0 || length < 0 || offset > _length - length)
+    {
+      throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", ByteString length " + _length);
+    }
+    if (offset == 0 && length == _length)
+    {
+      return this;
+    }
+    List<ByteBuffer> segments = new ArrayList<ByteBuffer>();
+    int start = offset;
+    int remaining = length;
+    for (int i = 0; i < _segments.length && remaining > 0; i++)
+    {
+      ByteBuffer segment = _segments[i];
+      int size = segment.limit();
+      if (start >= size)
+      {
+        start -= size;
+        continue;
+      }
+      int count = Math.min(size - start, remaining);
+      ByteBuffer view = segment.duplicate();
+      view.position(start);
+      view.limit(start + count);
+      segments.add(view.slice());
+      remaining -= count;
+      start = 0;
+    }
+    return newByteString(segments, length);
   }
 
   /**
@@ -205,7 +358,9 @@ public final class ByteString
    */
   public byte[] copyBytes()
   {
-    return Arrays.copyOf(_bytes, _bytes.length);
+    byte[] bytes = new byte[_length];
+    copyBytes(bytes, 0);
+    return bytes;
   }
 
   /**
@@ -221,17 +376,60 @@ public final class ByteString
    */
   public void copyBytes(byte[] dest, int offset)
   {
-    System.arraycopy(_bytes, 0, dest, offset, _bytes.length);
+    if (offset < 0 || offset > dest.length - _length)
+    {
+      throw new IndexOutOfBoundsException("offset " + offset + ", length " + _length + ", destination length " + dest.length);
+    }
+    int destOffset = offset;
+    for (ByteBuffer segment : _segments)
+    {
+      int size = segment.limit();
+      if (segment.hasArray())
+      {
+        System.arraycopy(segment.array(), segment.arrayOffset(), dest, destOffset, size);
+      }
+      else
+      {
+        segment.duplicate().get(dest, destOffset, size);
+      }
+      destOffset += size;
+    }
   }
 
   /**
-   * Returns a read only {@link ByteBuffer} view of this {@link ByteString}. This method makes no copy.
+   * Returns a read only {@link ByteBuffer} view of this {@link ByteString}. This method makes no copy
+   * unless this {@link ByteString} is made of more than one segment, in which case the bytes are copied
+   * into a single buffer. Use {@link #asByteBuffers()} to access the segments without copying.
    *
    * @return read only {@link ByteBuffer} view of this {@link ByteString}.
    */
   public ByteBuffer asByteBuffer()
   {
-    return ByteBuffer.wrap(_bytes).asReadOnlyBuffer();
+    switch (_segments.length)
+    {
+      case 0:
+        return ByteBuffer.wrap(new byte[0]).asReadOnlyBuffer();
+      case 1:
+        return _segments[0].asReadOnlyBuffer();
+      default:
+        return ByteBuffer.wrap(copyBytes()).asReadOnlyBuffer();
+    }
+  }
+
+  /**
+   * Returns read only {@link ByteBuffer} views of the segments of this {@link ByteString}, in order.
+   * This method makes no copy.
+   *
+   * @return read only {@link ByteBuffer} views of the segments of this {@link ByteString}.
+   */
+  public List<ByteBuffer> asByteBuffers()
+  {
+    List<ByteBuffer> buffers = new ArrayList<ByteBuffer>(_segments.length);
+    for (ByteBuffer segment : _segments)
+    {
+      buffers.add(segment.asReadOnlyBuffer());
+    }
+    return Collections.unmodifiableList(buffers);
   }
 
   /**
@@ -255,7 +453,12 @@ public final class ByteString
    */
   public String asString(Charset charset)
   {
-    return new String(_bytes, charset);
+    if (_segments.length == 1 && _segments[0].hasArray())
+    {
+      ByteBuffer segment = _segments[0];
+      return new String(segment.array(), segment.arrayOffset(), _length, charset);
+    }
+    return new String(copyBytes(), charset);
   }
 
   /**
@@ -265,7 +468,17 @@ public final class ByteString
    */
   public String asAvroString()
   {
-    return Data.bytesToString(_bytes);
+    char[] charArray = new char[_length];
+    int index = 0;
+    for (ByteBuffer segment : _segments)
+    {
+      int size = segment.limit();
+      for (int i = 0; i < size; ++i)
+      {
+        charArray[index++] = (char) (((char) segment.get(i)) & 0x00ff);
+      }
+    }
+    return new String(charArray);
   }
 
   /**
@@ -275,11 +488,17 @@ public final class ByteString
    */
   public InputStream asInputStream()
   {
-    return new ByteArrayInputStream(_bytes);
+    if (_segments.length == 1 && _segments[0].hasArray())
+    {
+      ByteBuffer segment = _segments[0];
+      return new ByteArrayInputStream(segment.array(), segment.arrayOffset(), _length);
+    }
+    return new SegmentsInputStream(_segments, _length);
   }
 
   /**
    * Writes this {@link ByteString} to a stream without copying the underlying byte[].
+   * Bytes held in direct buffers are written through a bounded intermediate buffer.
    *
    * @param out the stream to write the bytes to
    *
@@ -287,7 +506,29 @@ public final class ByteString
    */
   public void write(OutputStream out) throws IOException
   {
-    out.write(_bytes);
+    byte[] writeBuffer = null;
+    for (ByteBuffer segment : _segments)
+    {
+      int size = segment.limit();
+      if (segment.hasArray())
+      {
+        out.write(segment.array(), segment.arrayOffset(), size);
+      }
+      else
+      {
+        if (writeBuffer == null)
+        {
+          writeBuffer = new byte[Math.min(WRITE_BUFFER_SIZE, _length)];
+        }
+        ByteBuffer view = segment.duplicate();
+        while (view.hasRemaining())
+        {
+          int count = Math.min(writeBuffer.length, view.remaining());
+          view.get(writeBuffer, 0, count);
+          out.write(writeBuffer, 0, count);
+        }
+      }
+    }
   }
 
   @Override
@@ -304,13 +545,61 @@ public final class ByteString
     }
 
     ByteString that = (ByteString) o;
-    return Arrays.equals(_bytes, that._bytes);
+    if (_length != that._length)
+    {
+      return false;
+    }
+
+    int thisIndex = 0;
+    int thisPosition = 0;
+    int thatIndex = 0;
+    int thatPosition = 0;
+    int remaining = _length;
+    while (remaining > 0)
+    {
+      ByteBuffer thisSegment = _segments[thisIndex];
+      ByteBuffer thatSegment = that._segments[thatIndex];
+      int count = Math.min(thisSegment.limit() - thisPosition, thatSegment.limit() - thatPosition);
+      for (int i = 0; i < count; i++)
+      {
+        if (thisSegment.get(thisPosition + i) != thatSegment.get(thatPosition + i))
+        {
+          return false;
+        }
+      }
+      thisPosition += count;
+      thatPosition += count;
+      remaining -= count;
+      if (thisPosition == thisSegment.limit())
+      {
+        thisIndex++;
+        thisPosition = 0;
+      }
+      if (thatPosition == thatSegment.limit())
+      {
+        thatIndex++;
+        thatPosition = 0;
+      }
+    }
+    return true;
   }
 
+  /**
+   * Returns the same hash code as {@link Arrays#hashCode(byte[])} of the bytes in this {@link ByteString}.
+   */
   @Override
   public int hashCode()
   {
-    return Arrays.hashCode(_bytes);
+    int result = 1;
+    for (ByteBuffer segment : _segments)
+    {
+      int size = segment.limit();
+      for (int i = 0; i < size; i++)
+      {
+        result = 31 * result + segment.get(i);
+      }
+    }
+    return result;
   }
 
   /**
@@ -326,23 +615,120 @@ public final class ByteString
     StringBuilder sb = new StringBuilder();
     sb.append("ByteString(length=");
     sb.append(length());
-    if (_bytes.length > 0)
+    if (_length > 0)
     {
       sb.append(",bytes=");
-      for (int i = 0; i < Math.min(_bytes.length, NUM_BYTES); i++)
+      for (int i = 0; i < Math.min(_length, NUM_BYTES); i++)
       {
-        sb.append(String.format("%02x", (int) _bytes[i] & 0xff));
+        sb.append(String.format("%02x", (int) byteAt(i) & 0xff));
       }
-      if (_bytes.length > NUM_BYTES * 2)
+      if (_length > NUM_BYTES * 2)
       {
         sb.append("...");
       }
-      for (int i = Math.max(NUM_BYTES, _bytes.length - NUM_BYTES); i < _bytes.length; i++)
+      for (int i = Math.max(NUM_BYTES, _length - NUM_BYTES); i < _length; i++)
       {
-        sb.append(String.format("%02x", (int)_bytes[i] & 0xff));
+        sb.append(String.format("%02x", (int) byteAt(i) & 0xff));
       }
     }
     sb.append(")");
     return sb.toString();
   }
+
+  private byte byteAt(int index)
+  {
+    int position = index;
+    for (ByteBuffer segment : _segments)
+    {
+      int size = segment.limit();
+      if (position < size)
+      {
+        return segment.get(position);
+      }
+      position -= size;
+    }
+    throw new IndexOutOfBoundsException("index " + index + ", length " + _length);
+  }
+
+  /**
+   * {@link InputStream} over the segments of a {@link ByteString}.
+   */
+  private static class SegmentsInputStream extends InputStream
+  {
+    private SegmentsInputStream(ByteBuffer[] segments, int length)
+    {
+      _segments = segments;
+      _available = length;
+      _current = (segments.length > 0 ? segments[0].duplicate() : null);
+    }
+
+    @Override
+    public int read()
+    {
+      if (!advance())
+      {
+        return -1;
+      }
+      _available--;
+      return _current.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte[] dest, int offset, int length)
+    {
+      if (length == 0)
+      {
+        return 0;
+      }
+      int count = 0;
+      while (count < length && advance())
+      {
+        int n = Math.min(length - count, _current.remaining());
+        _current.get(dest, offset + count, n);
+        count += n;
+      }
+      _available -= count;
+      return count == 0 ? -1 : count;
+    }
+
+    @Override
+    public long skip(long n)
+    {
+      long skipped = 0;
+      while (skipped < n && advance())
+      {
+        int count = (int) Math.min(n - skipped, _current.remaining());
+        _current.position(_current.position() + count);
+        skipped += count;
+      }
+      _available -= skipped;
+      return skipped;
+    }
+
+    @Override
+    public int available()
+    {
+      return _available;
+    }
+
+    /**
+     * Make the current segment one that has remaining bytes.
+     *
+     * @return false if there are no more bytes.
+     */
+    private boolean advance()
+    {
+      while (_current != null && !_current.hasRemaining())
+      {
+        _index++;
+        _current = (_index < _segments.length ? _segments[_index].duplicate() : null);
+      }
+      return _current != null;
+    }
+
+    private final ByteBuffer[] _segments;
+    private ByteBuffer _current;
+    private int _index;
+    private int _available;
+  }
 }
@@ -260,6 +260,36 @@ public class Data
     void endList() throws IOException;
   }
 
+  /**
+   * Drives a {@link TraverseCallback} over a Data object.
+   *
+   * {@link #DEFAULT_TRAVERSER} invokes the callback for every value of the object.
+   * Other traversers may skip values, e.g. to apply a projection while
+   * the object is being encoded.
+   */
+  public interface Traverser
+  {
+    /**
+     * Traverse object and invoke the callback object with parse events.
+     *
+     * @param obj object to parse
+     * @param callback to receive parse events.
+     */
+    void traverse(Object obj, TraverseCallback callback) throws IOException;
+  }
+
+  /**
+   * {@link Traverser} that invokes {@link #traverse(Object, TraverseCallback)}.
+   */
+  public static final Traverser DEFAULT_TRAVERSER = new Traverser()
+  {
+    @Override
+    public void traverse(Object obj, TraverseCallback callback) throws IOException
+    {
+      Data.traverse(obj, callback);
+    }
+  };
+
   /**
    * Traverse object and invoke the callback object with parse events.
    *
@@ -314,12 +344,20 @@ public class Data
       else
       {
         callback.startList(list);
-        int index = 0;
-        for (Object o : list)
+        PrimitiveListStorage storage = list.primitiveStorage();
+        if (storage != null)
         {
-          callback.index(index);
-          ++index;
-          traverse(o, callback);
+          storage.traverse(callback);
+        }
+        else
+        {
+          int index = 0;
+          for (Object o : list)
+          {
+            callback.index(index);
+            ++index;
+            traverse(o, callback);
+          }
         }
         callback.endList();
       }
@@ -83,6 +83,28 @@ public final class DataList extends CheckedList<Object> implements DataComplex
     super(initialCapacity, _checker);
   }
 
+  private DataList(PrimitiveListStorage storage)
+  {
+    super(storage, _checker);
+  }
+
+  /**
+   * Construct an empty {@link DataList} that stores {@link Integer}, {@link Long},
+   * {@link Float}, {@link Double} or {@link Boolean} elements without boxing them
+   * if all its elements have the same class.
+   * <p>
+   *
+   * The list behaves like any other {@link DataList}. If an element of a different
+   * class is added, the list falls back to storing boxed elements.
+   *
+   * @param initialCapacity provides the initial capacity of the {@link DataList}.
+   * @return an empty {@link DataList} with primitive storage.
+   */
+  public static DataList withPrimitiveStorage(int initialCapacity)
+  {
+    return new DataList(new PrimitiveListStorage(initialCapacity));
+  }
+
   @Override
   public Object get(int index)
   {
@@ -109,6 +131,11 @@ public final class DataList extends CheckedList<Object> implements DataComplex
   @Override
   public void copyReferencedObjects(IdentityHashMap<DataComplex, DataComplex> alreadyCopied) throws CloneNotSupportedException
   {
+    if (getPrimitiveElementClass() != null)
+    {
+      // primitive elements are immutable and have already been copied by clone()
+      return;
+    }
     int count = size();
     for (int i = 0; i < count; ++i)
     {
@@ -130,9 +157,12 @@ public final class DataList extends CheckedList<Object> implements DataComplex
   @Override
   public void makeReadOnly()
   {
-    for (Object o : this)
+    if (getPrimitiveElementClass() == null)
     {
-      Data.makeReadOnly(o);
+      for (Object o : this)
+      {
+        Data.makeReadOnly(o);
+      }
     }
     setReadOnly();
     _madeReadOnly = true;
@@ -166,6 +196,208 @@ public final class DataList extends CheckedList<Object> implements DataComplex
     return (DataMap) get(index);
   }
 
+  /**
+   * Returns the element at the specified position as an int.
+   *
+   * The element is not boxed if the list has primitive storage for {@link Integer} elements.
+   *
+   * @param index of the element to return.
+   * @return the element at the specified position as an int.
+   * @throws ClassCastException if the element is not an {@link Integer}.
+   */
+  public int getInt(int index)
+  {
+    PrimitiveListStorage storage = primitiveStorage();
+    if (storage != null)
+    {
+      return storage.getInt(index);
+    }
+    return (Integer) get(index);
+  }
+
+  /**
+   * Returns the element at the specified position as a long.
+   *
+   * The element is not boxed if the list has primitive storage for {@link Long} elements.
+   *
+   * @param index of the element to return.
+   * @return the element at the specified position as a long.
+   * @throws ClassCastException if the element is not a {@link Long}.
+   */
+  public long getLong(int index)
+  {
+    PrimitiveListStorage storage = primitiveStorage();
+    if (storage != null)
+    {
+      return storage.getLong(index);
+    }
+    return (Long) get(index);
+  }
+
+  /**
+   * Returns the element at the specified position as a float.
+   *
+   * The element is not boxed if the list has primitive storage for {@link Float} elements.
+   *
+   * @param index of the element to return.
+   * @return the element at the specified position as a float.
+   * @throws ClassCastException if the element is not a {@link Float}.
+   */
+  public float getFloat(int index)
+  {
+    PrimitiveListStorage storage = primitiveStorage();
+    if (storage != null)
+    {
+      return storage.getFloat(index);
+    }
+    return (Float) get(index);
+  }
+
+  /**
+   * Returns the element at the specified position as a double.
+   *
+   * The element is not boxed if the list has primitive storage for {@link Double} elements.
+   *
+   * @param index of the element to return.
+   * @return the element at the specified position as a double.
+   * @throws ClassCastException if the element is not a {@link Double}.
+   */
+  public double getDouble(int index)
+  {
+    PrimitiveListStorage storage = primitiveStorage();
+    if (storage != null)
+    {
+      return storage.getDouble(index);
+    }
+    return (Double) get(index);
+  }
+
+  /**
+   * Returns the element at the specified position as a boolean.
+   *
+   * The element is not boxed if the list has primitive storage for {@link Boolean} elements.
+   *
+   * @param index of the element to return.
+   * @return the element at the specified position as a boolean.
+   * @throws ClassCastException if the element is not a {@link Boolean}.
+   */
+  public boolean getBoolean(int index)
+  {
+    PrimitiveListStorage storage = primitiveStorage();
+    if (storage != null)
+    {
+      return storage.getBoolean(index);
+    }
+    return (Boolean) get(index);
+  }
+
+  /**
+   * Appends an int to the end of the list, without boxing it if the list has primitive storage.
+   *
+   * @param value to be appended.
+   * @throws UnsupportedOperationException if the list is read-only.
+   */
+  public void addInt(int value)
+  {
+    PrimitiveListStorage storage = mutablePrimitiveStorage();
+    if (storage != null)
+    {
+      storage.addInt(value);
+    }
+    else
+    {
+      addWithoutChecking(value);
+    }
+  }
+
+  /**
+   * Appends a long to the end of the list, without boxing it if the list has primitive storage.
+   *
+   * @param value to be appended.
+   * @throws UnsupportedOperationException if the list is read-only.
+   */
+  public void addLong(long value)
+  {
+    PrimitiveListStorage storage = mutablePrimitiveStorage();
+    if (storage != null)
+    {
+      storage.addLong(value);
+    }
+    else
+    {
+      addWithoutChecking(value);
+    }
+  }
+
+  /**
+   * Appends a float to the end of the list, without boxing it if the list has primitive storage.
+   *
+   * @param value to be appended.
+   * @throws UnsupportedOperationException if the list is read-only.
+   */
+  public void addFloat(float value)
+  {
+    PrimitiveListStorage storage = mutablePrimitiveStorage();
+    if (storage != null)
+    {
+      storage.addFloat(value);
+    }
+    else
+    {
+      addWithoutChecking(value);
+    }
+  }
+
+  /**
+   * Appends a double to the end of the list, without boxing it if the list has primitive storage.
+   *
+   * @param value to be appended.
+   * @throws UnsupportedOperationException if the list is read-only.
+   */
+  public void addDouble(double value)
+  {
+    PrimitiveListStorage storage = mutablePrimitiveStorage();
+    if (storage != null)
+    {
+      storage.addDouble(value);
+    }
+    else
+    {
+      addWithoutChecking(value);
+    }
+  }
+
+  /**
+   * Appends a boolean to the end of the list, without boxing it if the list has primitive storage.
+   *
+   * @param value to be appended.
+   * @throws UnsupportedOperationException if the list is read-only.
+   */
+  public void addBoolean(boolean value)
+  {
+    PrimitiveListStorage storage = mutablePrimitiveStorage();
+    if (storage != null)
+    {
+      storage.addBoolean(value);
+    }
+    else
+    {
+      addWithoutChecking(value);
+    }
+  }
+
+  /**
+   * Returns the class of the elements of this list if they are stored without boxing.
+   *
+   * @return {@link Integer}, {@link Long}, {@link Float}, {@link Double} or {@link Boolean}
+   *         class if the elements of this list are stored without boxing, else null.
+   */
+  public Class<?> getPrimitiveElementClass()
+  {
+    List<Object> storage = getObject();
+    return storage instanceof PrimitiveListStorage ? ((PrimitiveListStorage) storage).getElementClass() : null;
+  }
+
   @Override
   public void startInstrumentingAccess()
   {
@@ -231,6 +463,31 @@ public final class DataList extends CheckedList<Object> implements DataComplex
     return getObject();
   }
 
+  /**
+   * Returns the primitive storage of this list if reading from it does not need to be
+   * instrumented and its elements are stored without boxing, else null.
+   */
+  PrimitiveListStorage primitiveStorage()
+  {
+    if (_instrumented)
+    {
+      return null;
+    }
+    List<Object> storage = getObject();
+    if (storage instanceof PrimitiveListStorage && ((PrimitiveListStorage) storage).getElementClass() != null)
+    {
+      return (PrimitiveListStorage) storage;
+    }
+    return null;
+  }
+
+  private PrimitiveListStorage mutablePrimitiveStorage()
+  {
+    checkMutability();
+    List<Object> storage = getObject();
+    return storage instanceof PrimitiveListStorage ? (PrimitiveListStorage) storage : null;
+  }
+
   private void instrumentAccess(int index)
   {
     if (_instrumented)
@@ -0,0 +1,462 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data;
+
+
+import com.linkedin.data.collections.ListStorage;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+
+/**
+ * {@link ListStorage} for a {@link DataList} that stores {@link Integer}, {@link Long},
+ * {@link Float}, {@link Double} or {@link Boolean} elements without boxing them.
+ *
+ * <p>
+ * All elements have the same class, which is the class of the first element added.
+ * Element values are stored as the bits of a long, ints are sign extended, floats
+ * and doubles are stored using their raw bits and booleans are 0 or 1. Elements are
+ * boxed when accessed through the {@link java.util.List} interface.
+ *
+ * <p>
+ * If an element of another class is added or set, the storage is converted to
+ * boxed storage in an {@link ArrayList} and stays boxed.
+ */
+final class PrimitiveListStorage extends AbstractList<Object> implements ListStorage<Object>
+{
+  private static final int DEFAULT_CAPACITY = 10;
+
+  PrimitiveListStorage(int initialCapacity)
+  {
+    if (initialCapacity < 0)
+    {
+      throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+    }
+    _bits = new long[initialCapacity];
+  }
+
+  /**
+   * Return the class of the elements if they are stored unboxed.
+   *
+   * @return the class of the elements, or null if no element class has been
+   *         determined yet or the storage has been converted to boxed storage.
+   */
+  Class<?> getElementClass()
+  {
+    return _boxed == null ? _elementClass : null;
+  }
+
+  int getInt(int index)
+  {
+    if (_boxed == null && _elementClass == Integer.class)
+    {
+      rangeCheck(index);
+      return (int) _bits[index];
+    }
+    return (Integer) get(index);
+  }
+
+  long getLong(int index)
+  {
+    if (_boxed == null && _elementClass == Long.class)
+    {
+      rangeCheck(index);
+      return _bits[index];
+    }
+    return (Long) get(index);
+  }
+
+  float getFloat(int index)
+  {
+    if (_boxed == null && _elementClass == Float.class)
+    {
+      rangeCheck(index);
+      return Float.intBitsToFloat((int) _bits[index]);
+    }
+    return (Float) get(index);
+  }
+
+  double getDouble(int index)
+  {
+    if (_boxed == null && _elementClass == Double.class)
+    {
+      rangeCheck(index);
+      return Double.longBitsToDouble(_bits[index]);
+    }
+    return (Double) get(index);
+  }
+
+  boolean getBoolean(int index)
+  {
+    if (_boxed == null && _elementClass == Boolean.class)
+    {
+      rangeCheck(index);
+      return _bits[index] != 0;
+    }
+    return (Boolean) get(index);
+  }
+
+  void addInt(int value)
+  {
+    if (acceptClass(Integer.class))
+    {
+      appendBits(value);
+    }
+    else
+    {
+      add(Integer.valueOf(value));
+    }
+  }
+
+  void addLong(long value)
+  {
+    if (acceptClass(Long.class))
+    {
+      appendBits(value);
+    }
+    else
+    {
+      add(Long.valueOf(value));
+    }
+  }
+
+  void addFloat(float value)
+  {
+    if (acceptClass(Float.class))
+    {
+      appendBits(Float.floatToRawIntBits(value));
+    }
+    else
+    {
+      add(Float.valueOf(value));
+    }
+  }
+
+  void addDouble(double value)
+  {
+    if (acceptClass(Double.class))
+    {
+      appendBits(Double.doubleToRawLongBits(value));
+    }
+    else
+    {
+      add(Double.valueOf(value));
+    }
+  }
+
+  void addBoolean(boolean value)
+  {
+    if (acceptClass(Boolean.class))
+    {
+      appendBits(value ? 1L : 0L);
+    }
+    else
+    {
+      add(Boolean.valueOf(value));
+    }
+  }
+
+  /**
+   * Invoke the {@link Data.TraverseCallback} for each element, without boxing.
+   *
+   * Must only be called if the element class is not null.
+   */
+  void traverse(Data.TraverseCallback callback) throws IOException
+  {
+    Class<?> elementClass = _elementClass;
+    long[] bits = _bits;
+    int size = _size;
+    if (elementClass == Integer.class)
+    {
+      for (int i = 0; i < size; i++)
+      {
+        callback.index(i);
+        callback.integerValue((int) bits[i]);
+      }
+    }
+    else if (elementClass == Long.class)
+    {
+      for (int i = 0; i < size; i++)
+      {
+        callback.index(i);
+        callback.longValue(bits[i]);
+      }
+    }
+    else if (elementClass == Float.class)
+    {
+      for (int i = 0; i < size; i++)
+      {
+        callback.index(i);
+        callback.floatValue(Float.intBitsToFloat((int) bits[i]));
+      }
+    }
+    else if (elementClass == Double.class)
+    {
+      for (int i = 0; i < size; i++)
+      {
+        callback.index(i);
+        callback.doubleValue(Double.longBitsToDouble(bits[i]));
+      }
+    }
+    else
+    {
+      for (int i = 0; i < size; i++)
+      {
+        callback.index(i);
+        callback.booleanValue(bits[i] != 0);
+      }
+    }
+  }
+
+  @Override
+  public Object get(int index)
+  {
+    if (_boxed != null)
+    {
+      return _boxed.get(index);
+    }
+    rangeCheck(index);
+    return box(_bits[index]);
+  }
+
+  @Override
+  public Object set(int index, Object element)
+  {
+    if (_boxed == null)
+    {
+      rangeCheck(index);
+      if (acceptClass(element.getClass()))
+      {
+        Object previous = box(_bits[index]);
+        _bits[index] = toBits(element);
+        return previous;
+      }
+      toBoxed();
+    }
+    return _boxed.set(index, element);
+  }
+
+  @Override
+  public void add(int index, Object element)
+  {
+    if (_boxed == null)
+    {
+      if (index < 0 || index > _size)
+      {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + _size);
+      }
+      if (acceptClass(element.getClass()))
+      {
+        ensureCapacity(_size + 1);
+        System.arraycopy(_bits, index, _bits, index + 1, _size - index);
+        _bits[index] = toBits(element);
+        _size++;
+        modCount++;
+        return;
+      }
+      toBoxed();
+    }
+    _boxed.add(index, element);
+  }
+
+  @Override
+  public Object remove(int index)
+  {
+    if (_boxed != null)
+    {
+      return _boxed.remove(index);
+    }
+    rangeCheck(index);
+    Object previous = box(_bits[index]);
+    System.arraycopy(_bits, index + 1, _bits, index, _size - index - 1);
+    _size--;
+    modCount++;
+    return previous;
+  }
+
+  @Override
+  public void removeRange(int fromIndex, int toIndex)
+  {
+    if (_boxed != null)
+    {
+      _boxed.subList(fromIndex, toIndex).clear();
+      return;
+    }
+    if (fromIndex < 0 || toIndex > _size || fromIndex > toIndex)
+    {
+      throw new IndexOutOfBoundsException("From index: " + fromIndex + ", to index: " + toIndex + ", Size: " + _size);
+    }
+    System.arraycopy(_bits, toIndex, _bits, fromIndex, _size - toIndex);
+    _size -= (toIndex - fromIndex);
+    modCount++;
+  }
+
+  @Override
+  public void clear()
+  {
+    if (_boxed != null)
+    {
+      _boxed.clear();
+    }
+    else
+    {
+      _size = 0;
+      modCount++;
+    }
+  }
+
+  @Override
+  public int size()
+  {
+    return _boxed == null ? _size : _boxed.size();
+  }
+
+  @Override
+  public PrimitiveListStorage clone() throws CloneNotSupportedException
+  {
+    PrimitiveListStorage o = (PrimitiveListStorage) super.clone();
+    if (_boxed == null)
+    {
+      o._bits = Arrays.copyOf(_bits, Math.max(_size, DEFAULT_CAPACITY));
+    }
+    else
+    {
+      o._boxed = new ArrayList<Object>(_boxed);
+    }
+    return o;
+  }
+
+  /**
+   * Return whether an element of the specified class can be stored unboxed, the
+   * element class of an empty storage becomes the specified class if it can be
+   * stored unboxed.
+   */
+  private boolean acceptClass(Class<?> clazz)
+  {
+    if (_boxed != null)
+    {
+      return false;
+    }
+    if (clazz == _elementClass)
+    {
+      return true;
+    }
+    if (_size == 0 && (clazz == Integer.class || clazz == Long.class || clazz == Float.class ||
+                       clazz == Double.class || clazz == Boolean.class))
+    {
+      _elementClass = clazz;
+      return true;
+    }
+    return false;
+  }
+
+  private void appendBits(long bits)
+  {
+    ensureCapacity(_size + 1);
+    _bits[_size++] = bits;
+    modCount++;
+  }
+
+  private void ensureCapacity(int minCapacity)
+  {
+    if (minCapacity > _bits.length)
+    {
+      int newCapacity = Math.max(Math.max(_bits.length + (_bits.length >> 1), minCapacity), DEFAULT_CAPACITY);
+      _bits = Arrays.copyOf(_bits, newCapacity);
+    }
+  }
+
+  private void rangeCheck(int index)
+  {
+    if (index < 0 || index >= _size)
+    {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + _size);
+    }
+  }
+
+  private Object box(long bits)
+  {
+    Class<?> elementClass = _elementClass;
+    if (elementClass == Integer.class)
+    {
+      return Integer.valueOf((int) bits);
+    }
+    else if (elementClass == Long.class)
+    {
+      return Long.valueOf(bits);
+    }
+    else if (elementClass == Float.class)
+    {
+      return Float.intBitsToFloat((int) bits);
+    }
+    else if (elementClass == Double.class)
+    {
+      return Double.longBitsToDouble(bits);
+    }
+    else
+    {
+      return bits != 0 ? Boolean.TRUE : Boolean.FALSE;
+    }
+  }
+
+  private long toBits(Object element)
+  {
+    Class<?> elementClass = _elementClass;
+    if (elementClass == Integer.class)
+    {
+      return (Integer) element;
+    }
+    else if (elementClass == Long.class)
+    {
+      return (Long) element;
+    }
+    else if (elementClass == Float.class)
+    {
+      return Float.floatToRawIntBits((Float) element);
+    }
+    else if (elementClass == Double.class)
+    {
+      return Double.doubleToRawLongBits((Double) element);
+    }
+    else
+    {
+      return ((Boolean) element) ? 1L : 0L;
+    }
+  }
+
+  private void toBoxed()
+  {
+    ArrayList<Object> boxed = new ArrayList<Object>(Math.max(_size + (_size >> 1), DEFAULT_CAPACITY));
+    for (int i = 0; i < _size; i++)
+    {
+      boxed.add(box(_bits[i]));
+    }
+    _boxed = boxed;
+    _bits = null;
+    _elementClass = null;
+    _size = 0;
+    modCount++;
+  }
+
+  private long[] _bits;
+  private int _size;
+  private Class<?> _elementClass;
+  private ArrayList<Object> _boxed;
+}
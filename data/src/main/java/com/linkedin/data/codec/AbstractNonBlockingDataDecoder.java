@@ -0,0 +1,266 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.codec;
+
+
+import com.linkedin.data.DataComplex;
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+import com.linkedin.data.collections.CheckedUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * Common implementation for {@link NonBlockingDataDecoder}'s.
+ *
+ * <p>
+ * Maintains the stack of {@link DataComplex}'s that are being built and
+ * adapts {@link ByteBuffer} input to byte array input.
+ *
+ * @param <T> the type of the {@link DataComplex} to decode.
+ */
+public abstract class AbstractNonBlockingDataDecoder<T extends DataComplex> implements NonBlockingDataDecoder<T>
+{
+  private static final int DIRECT_BUFFER_COPY_SIZE = 8192;
+  private static final int DEFAULT_LIST_CAPACITY = 10;
+
+  protected AbstractNonBlockingDataDecoder(Class<T> expectType)
+  {
+    this(expectType, false);
+  }
+
+  /**
+   * @param expectType provides the type of the {@link DataComplex} to decode.
+   * @param primitiveListStorage true to decode into {@link DataList}s with primitive storage,
+   *                             see {@link DataList#withPrimitiveStorage(int)}.
+   */
+  protected AbstractNonBlockingDataDecoder(Class<T> expectType, boolean primitiveListStorage)
+  {
+    if (expectType != DataMap.class && expectType != DataList.class)
+    {
+      throw new IllegalArgumentException("Expected type must be either DataMap or DataList.");
+    }
+    _expectType = expectType;
+    _primitiveListStorage = primitiveListStorage;
+  }
+
+  @Override
+  public final void feed(byte[] bytes, int offset, int length) throws IOException
+  {
+    checkNotCompleted();
+    if (offset < 0 || length < 0 || offset + length > bytes.length)
+    {
+      throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", array length " + bytes.length);
+    }
+    if (length > 0)
+    {
+      parse(bytes, offset, offset + length);
+    }
+  }
+
+  @Override
+  public final void feed(ByteBuffer buffer) throws IOException
+  {
+    checkNotCompleted();
+    if (buffer.hasArray())
+    {
+      int position = buffer.position();
+      int limit = buffer.limit();
+      if (position < limit)
+      {
+        int start = buffer.arrayOffset() + position;
+        parse(buffer.array(), start, start + limit - position);
+      }
+      buffer.position(limit);
+    }
+    else
+    {
+      // direct or read-only buffer, copy through a bounded scratch array.
+      if (_copyBuffer == null)
+      {
+        _copyBuffer = new byte[Math.min(DIRECT_BUFFER_COPY_SIZE, Math.max(buffer.remaining(), 1))];
+      }
+      while (buffer.hasRemaining())
+      {
+        int length = Math.min(_copyBuffer.length, buffer.remaining());
+        buffer.get(_copyBuffer, 0, length);
+        parse(_copyBuffer, 0, length);
+      }
+    }
+  }
+
+  @Override
+  public final T complete() throws IOException
+  {
+    checkNotCompleted();
+    _completed = true;
+    finish();
+    if (_result == null || _stack.isEmpty() == false)
+    {
+      throw new DataDecodingException("Unexpected end of input");
+    }
+    return _expectType.cast(_result);
+  }
+
+  /**
+   * Parse bytes from {@code start} (inclusive) to {@code end} (exclusive).
+   */
+  protected abstract void parse(byte[] bytes, int start, int end) throws IOException;
+
+  /**
+   * Called when there is no more input.
+   *
+   * @throws IOException if the input ended before the Data object is complete.
+   */
+  protected abstract void finish() throws IOException;
+
+  protected Class<T> getExpectType()
+  {
+    return _expectType;
+  }
+
+  protected T getResult()
+  {
+    return _result == null ? null : _expectType.cast(_result);
+  }
+
+  /**
+   * @return a new empty {@link DataList}, with primitive storage if it is enabled.
+   */
+  protected DataList newDataList()
+  {
+    return _primitiveListStorage ? DataList.withPrimitiveStorage(DEFAULT_LIST_CAPACITY) : new DataList();
+  }
+
+  /**
+   * @param initialCapacity provides the initial capacity of the {@link DataList}.
+   * @return a new empty {@link DataList}, with primitive storage if it is enabled.
+   */
+  protected DataList newDataList(int initialCapacity)
+  {
+    return _primitiveListStorage ? DataList.withPrimitiveStorage(initialCapacity) : new DataList(initialCapacity);
+  }
+
+  /**
+   * @return the {@link DataList} at the top of the stack if primitive storage is enabled,
+   *         so that numbers can be added to it without boxing them, {@code null} otherwise.
+   */
+  protected DataList currentPrimitiveList()
+  {
+    return _primitiveListStorage && _current instanceof DataList ? (DataList) _current : null;
+  }
+
+  /**
+   * @return the {@link DataComplex} at the top of the stack, {@code null} if the stack is empty.
+   */
+  protected DataComplex currentComplex()
+  {
+    return _current;
+  }
+
+  /**
+   * @return whether the stack is empty.
+   */
+  protected boolean isStackEmpty()
+  {
+    return _current == null;
+  }
+
+  /**
+   * Add the new {@link DataComplex} to its parent and make it the top of the stack.
+   *
+   * @param complex provides the new {@link DataComplex}.
+   * @param key provides the key in the parent {@link DataMap}, ignored if the parent is a {@link DataList}.
+   * @return the previous value of the key if the parent is a {@link DataMap}.
+   */
+  protected Object pushComplex(DataComplex complex, String key) throws DataDecodingException
+  {
+    Object replaced = null;
+    if (_current == null)
+    {
+      if (_result != null)
+      {
+        throw new DataDecodingException("Unexpected content after end of input");
+      }
+      if (complex.getClass() != _expectType)
+      {
+        throw new DataDecodingException("Input must be a " + _expectType.getSimpleName() + " but is a " + complex.getClass().getSimpleName());
+      }
+      _result = complex;
+    }
+    else
+    {
+      replaced = addValue(key, complex);
+    }
+    _stack.add(complex);
+    _current = complex;
+    return replaced;
+  }
+
+  /**
+   * Remove the {@link DataComplex} at the top of the stack.
+   */
+  protected void popComplex()
+  {
+    int size = _stack.size();
+    _stack.remove(size - 1);
+    _current = (size > 1 ? _stack.get(size - 2) : null);
+  }
+
+  /**
+   * Add a value to the {@link DataComplex} at the top of the stack.
+   *
+   * @param key provides the key if the top of the stack is a {@link DataMap},
+   *            ignored if the top of the stack is a {@link DataList}.
+   * @param value provides the value to add.
+   * @return the previous value of the key if the top of the stack is a {@link DataMap}.
+   */
+  protected Object addValue(String key, Object value) throws DataDecodingException
+  {
+    if (_current == null)
+    {
+      throw new DataDecodingException("Input must be a " + _expectType.getSimpleName());
+    }
+    if (_current instanceof DataMap)
+    {
+      return CheckedUtil.putWithoutChecking((DataMap) _current, key, value);
+    }
+    else
+    {
+      CheckedUtil.addWithoutChecking((DataList) _current, value);
+      return null;
+    }
+  }
+
+  private void checkNotCompleted()
+  {
+    if (_completed)
+    {
+      throw new IllegalStateException("Decoder has already been completed");
+    }
+  }
+
+  private final Class<T> _expectType;
+  private final boolean _primitiveListStorage;
+  private final ArrayList<DataComplex> _stack = new ArrayList<DataComplex>();
+  private DataComplex _current;
+  private DataComplex _result;
+  private boolean _completed;
+  private byte[] _copyBuffer;
+}
@@ -52,7 +52,7 @@ import java.util.TreeMap;
  *
  * @author slim
  */
-public class JacksonDataCodec implements TextDataCodec
+public class JacksonDataCodec implements TextDataCodec, NonBlockingDataCodec
 {
   public JacksonDataCodec()
   {
@@ -72,6 +72,17 @@ public class JacksonDataCodec implements TextDataCodec
     _allowComments = allowComments;
   }
 
+  /**
+   * Set whether decoded {@link DataList}s store int, long, float, double and boolean
+   * elements without boxing them, see {@link DataList#withPrimitiveStorage(int)}.
+   *
+   * @param primitiveListStorage true to decode into {@link DataList}s with primitive storage.
+   */
+  public void setPrimitiveListStorage(boolean primitiveListStorage)
+  {
+    _primitiveListStorage = primitiveListStorage;
+  }
+
   public PrettyPrinter getPrettyPrinter()
   {
     return _prettyPrinter;
@@ -112,6 +123,22 @@ public class JacksonDataCodec implements TextDataCodec
     return objectToString(list);
   }
 
+  /**
+   * Encode the {@link DataMap} with the given {@link Data.Traverser}, which may skip some of
+   * the values of the map. The map is written with
+   * {@link #writeObject(Object, JsonGenerator, Data.Traverser)}.
+   *
+   * @param map to encode
+   * @param traverser invoking the callbacks that encode the map
+   * @return the encoded bytes
+   */
+  public byte[] mapToBytes(DataMap map, Data.Traverser traverser) throws IOException
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(_defaultBufferSize);
+    writeObject(map, createJsonGenerator(out), traverser);
+    return out.toByteArray();
+  }
+
   protected byte[] objectToBytes(Object object) throws IOException
   {
     ByteArrayOutputStream out = new ByteArrayOutputStream(_defaultBufferSize);
@@ -129,7 +156,7 @@ public class JacksonDataCodec implements TextDataCodec
   @Override
   public DataMap bytesToMap(byte[] input) throws IOException
   {
-    final Parser parser = new Parser();
+    final Parser parser = new Parser(false, _primitiveListStorage);
     JsonParser jsonParser = null;
     try
     {
@@ -149,7 +176,7 @@ public class JacksonDataCodec implements TextDataCodec
   @Override
   public DataMap stringToMap(String input) throws IOException
   {
-    final Parser parser = new Parser();
+    final Parser parser = new Parser(false, _primitiveListStorage);
     JsonParser jsonParser = null;
     try
     {
@@ -169,7 +196,7 @@ public class JacksonDataCodec implements TextDataCodec
   @Override
   public DataList bytesToList(byte[] input) throws IOException
   {
-    final Parser parser = new Parser();
+    final Parser parser = new Parser(false, _primitiveListStorage);
     JsonParser jsonParser = null;
     try
     {
@@ -189,7 +216,7 @@ public class JacksonDataCodec implements TextDataCodec
   @Override
   public DataList stringToList(String input) throws IOException
   {
-    final Parser parser = new Parser();
+    final Parser parser = new Parser(false, _primitiveListStorage);
     JsonParser jsonParser = null;
     try
     {
@@ -250,12 +277,31 @@ public class JacksonDataCodec implements TextDataCodec
     return generator;
   }
 
+  /**
+   * Write the object with {@link Data#DEFAULT_TRAVERSER}.
+   *
+   * @deprecated override {@link #writeObject(Object, JsonGenerator, Data.Traverser)} instead, which this
+   *             method delegates to. {@link #mapToBytes(DataMap, Data.Traverser)} does not call this
+   *             method, so an override of it does not apply to projected responses.
+   */
+  @Deprecated
   protected void writeObject(Object object, JsonGenerator generator) throws IOException
+  {
+    writeObject(object, generator, Data.DEFAULT_TRAVERSER);
+  }
+
+  /**
+   * Write the object with the given {@link Data.Traverser} and close the generator.
+   * <p/>
+   * Every encoding of this codec goes through this method. Subclasses changing how objects are
+   * written override it.
+   */
+  protected void writeObject(Object object, JsonGenerator generator, Data.Traverser traverser) throws IOException
   {
     try
     {
       JsonTraverseCallback callback = new JsonTraverseCallback(generator);
-      Data.traverse(object, callback);
+      traverser.traverse(object, callback);
       generator.flush();
     }
     catch (IOException e)
@@ -278,7 +324,7 @@ public class JacksonDataCodec implements TextDataCodec
   @Override
   public DataMap readMap(InputStream in) throws IOException
   {
-    final Parser parser = new Parser();
+    final Parser parser = new Parser(false, _primitiveListStorage);
     JsonParser jsonParser = null;
     try
     {
@@ -298,7 +344,7 @@ public class JacksonDataCodec implements TextDataCodec
   @Override
   public DataMap readMap(Reader in) throws IOException
   {
-    final Parser parser = new Parser();
+    final Parser parser = new Parser(false, _primitiveListStorage);
     JsonParser jsonParser = null;
     try
     {
@@ -319,7 +365,7 @@ public class JacksonDataCodec implements TextDataCodec
   @Override
   public DataList readList(InputStream in) throws IOException
   {
-    final Parser parser = new Parser();
+    final Parser parser = new Parser(false, _primitiveListStorage);
     JsonParser jsonParser = null;
     try
     {
@@ -339,7 +385,7 @@ public class JacksonDataCodec implements TextDataCodec
   @Override
   public DataList readList(Reader in) throws IOException
   {
-    final Parser parser = new Parser();
+    final Parser parser = new Parser(false, _primitiveListStorage);
     JsonParser jsonParser = null;
     try
     {
@@ -356,6 +402,18 @@ public class JacksonDataCodec implements TextDataCodec
     }
   }
 
+  @Override
+  public NonBlockingDataDecoder<DataMap> createMapDecoder()
+  {
+    return new JsonNonBlockingDataDecoder<DataMap>(DataMap.class, _allowComments, _primitiveListStorage);
+  }
+
+  @Override
+  public NonBlockingDataDecoder<DataList> createListDecoder()
+  {
+    return new JsonNonBlockingDataDecoder<DataList>(DataList.class, _allowComments, _primitiveListStorage);
+  }
+
   @Deprecated
   public List<Object> parse(InputStream in, StringBuilder mesg) throws IOException
   {
@@ -584,11 +642,14 @@ public class JacksonDataCodec implements TextDataCodec
 
   private static class Parser
   {
+    private static final int DEFAULT_LIST_CAPACITY = 10;
+
     private StringBuilder _errorBuilder = null;
     private JsonParser _parser = null;
     private boolean _debug = false;
     private Deque<Object> _nameStack = null;
     private Map<Object, DataLocation> _locationMap = null;
+    private final boolean _primitiveListStorage;
 
     Parser()
     {
@@ -596,8 +657,14 @@ public class JacksonDataCodec implements TextDataCodec
     }
 
     Parser(boolean debug)
+    {
+      this(debug, false);
+    }
+
+    Parser(boolean debug, boolean primitiveListStorage)
     {
       _debug = debug;
+      _primitiveListStorage = primitiveListStorage;
     }
 
     /**
@@ -674,7 +741,7 @@ public class JacksonDataCodec implements TextDataCodec
           throw new DataDecodingException("JSON text for array must start with \"[\".\"");
         }
 
-        final DataList list = new DataList();
+        final DataList list = newDataList();
         parseDataList(list);
         if (_errorBuilder != null)
         {
@@ -721,7 +788,7 @@ public class JacksonDataCodec implements TextDataCodec
           parseDataMap(childMap);
           break;
         case START_ARRAY:
-          DataList childList = new DataList();
+          DataList childList = newDataList();
           value = childList;
           updateParent(parentList, parentMap, name, childList);
           parseDataList(childList);
@@ -829,10 +896,21 @@ public class JacksonDataCodec implements TextDataCodec
       }
     }
 
+    private DataList newDataList()
+    {
+      return usePrimitiveListStorage() ? DataList.withPrimitiveStorage(DEFAULT_LIST_CAPACITY) : new DataList();
+    }
+
+    private boolean usePrimitiveListStorage()
+    {
+      return _primitiveListStorage && _locationMap == null;
+    }
+
     private void parseDataList(DataList list) throws IOException
     {
       JsonToken token;
       int index = 0;
+      final boolean primitive = usePrimitiveListStorage();
       while ((token = _parser.nextToken()) != JsonToken.END_ARRAY)
       {
         if (_debug)
@@ -840,7 +918,10 @@ public class JacksonDataCodec implements TextDataCodec
           _nameStack.addLast(index);
           index++;
         }
-        parse(list, null, null, token);
+        if (!primitive || !parsePrimitiveListElement(list, token))
+        {
+          parse(list, null, null, token);
+        }
         if (_debug)
         {
           _nameStack.removeLast();
@@ -848,6 +929,46 @@ public class JacksonDataCodec implements TextDataCodec
       }
     }
 
+    /**
+     * Add the value of a number or boolean token to the list without boxing it.
+     *
+     * @return true if the value has been added, false if the token has to be parsed
+     *         by {@link #parse(DataList, DataMap, String, JsonToken)}.
+     */
+    private boolean parsePrimitiveListElement(DataList list, JsonToken token) throws IOException
+    {
+      switch (token)
+      {
+        case VALUE_NUMBER_INT:
+        case VALUE_NUMBER_FLOAT:
+          switch (_parser.getNumberType())
+          {
+            case INT:
+              list.addInt(_parser.getIntValue());
+              return true;
+            case LONG:
+              list.addLong(_parser.getLongValue());
+              return true;
+            case FLOAT:
+              list.addFloat(_parser.getFloatValue());
+              return true;
+            case DOUBLE:
+              list.addDouble(_parser.getDoubleValue());
+              return true;
+            default:
+              return false;
+          }
+        case VALUE_TRUE:
+          list.addBoolean(true);
+          return true;
+        case VALUE_FALSE:
+          list.addBoolean(false);
+          return true;
+        default:
+          return false;
+      }
+    }
+
     private void error(JsonToken token, JsonParser.NumberType type) throws IOException
     {
       if (_errorBuilder == null)
@@ -886,6 +1007,7 @@ public class JacksonDataCodec implements TextDataCodec
   }
 
   protected boolean _allowComments;
+  private boolean _primitiveListStorage;
   protected PrettyPrinter _prettyPrinter;
   protected JsonFactory _jsonFactory;
   protected int _defaultBufferSize = 4096;
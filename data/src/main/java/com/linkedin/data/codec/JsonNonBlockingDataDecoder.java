@@ -0,0 +1,865 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.codec;
+
+
+import com.linkedin.data.Data;
+import com.linkedin.data.DataComplex;
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * A {@link NonBlockingDataDecoder} for UTF-8 encoded JSON text.
+ *
+ * <p>
+ * The decoder is a state machine driven by the bytes fed to it, so tokens
+ * such as strings and numbers may be split across chunks. The Data objects
+ * produced are the same as those produced by {@link JacksonDataCodec}, i.e.
+ * integral numbers become {@link Integer}'s or {@link Long}'s, other numbers
+ * become {@link Double}'s, integral numbers that do not fit in a long are
+ * reported as errors and duplicate keys are reported as errors on the
+ * resulting {@link DataMap}.
+ *
+ * @param <T> the type of the {@link DataComplex} to decode.
+ */
+public class JsonNonBlockingDataDecoder<T extends DataComplex> extends AbstractNonBlockingDataDecoder<T>
+{
+  // parser states
+  private static final int START = 0;
+  private static final int MAP_KEY_OR_END = 1;
+  private static final int MAP_KEY = 2;
+  private static final int MAP_COLON = 3;
+  private static final int MAP_VALUE = 4;
+  private static final int MAP_COMMA_OR_END = 5;
+  private static final int LIST_VALUE_OR_END = 6;
+  private static final int LIST_VALUE = 7;
+  private static final int LIST_COMMA_OR_END = 8;
+  private static final int DONE = 9;
+
+  // token modes
+  private static final int TOKEN_NONE = 0;
+  private static final int TOKEN_STRING = 1;
+  private static final int TOKEN_NUMBER = 2;
+  private static final int TOKEN_LITERAL = 3;
+  private static final int TOKEN_COMMENT_START = 4;
+  private static final int TOKEN_LINE_COMMENT = 5;
+  private static final int TOKEN_BLOCK_COMMENT = 6;
+  private static final int TOKEN_BLOCK_COMMENT_STAR = 7;
+
+  // escape states within a string
+  private static final int ESCAPE_NONE = 0;
+  private static final int ESCAPE_START = 1;
+  private static final int ESCAPE_UNICODE = 2;
+
+  private static final String TRUE = "true";
+  private static final String FALSE = "false";
+  private static final String NULL = "null";
+
+  public JsonNonBlockingDataDecoder(Class<T> expectType, boolean allowComments)
+  {
+    this(expectType, allowComments, false);
+  }
+
+  /**
+   * @param expectType provides the type of the {@link DataComplex} to decode.
+   * @param allowComments true to allow comments in the input.
+   * @param primitiveListStorage true to decode into {@link DataList}s with primitive storage.
+   */
+  public JsonNonBlockingDataDecoder(Class<T> expectType, boolean allowComments, boolean primitiveListStorage)
+  {
+    super(expectType, primitiveListStorage);
+    _allowComments = allowComments;
+  }
+
+  @Override
+  protected void parse(byte[] bytes, int start, int end) throws IOException
+  {
+    int i = start;
+    while (i < end)
+    {
+      switch (_token)
+      {
+        case TOKEN_STRING:
+          i = parseString(bytes, i, end);
+          continue;
+        case TOKEN_NUMBER:
+          i = parseNumber(bytes, i, end);
+          continue;
+        case TOKEN_LITERAL:
+          parseLiteral(bytes[i]);
+          break;
+        case TOKEN_COMMENT_START:
+        case TOKEN_LINE_COMMENT:
+        case TOKEN_BLOCK_COMMENT:
+        case TOKEN_BLOCK_COMMENT_STAR:
+          parseComment(bytes[i]);
+          break;
+        default:
+          parseStructural(bytes[i]);
+          break;
+      }
+      advanceLocation(bytes[i]);
+      i++;
+    }
+  }
+
+  @Override
+  protected void finish() throws IOException
+  {
+    if (_token == TOKEN_LINE_COMMENT)
+    {
+      _token = TOKEN_NONE;
+    }
+    if (_token != TOKEN_NONE || _state != DONE)
+    {
+      throw new DataDecodingException(location() + ": Unexpected end of JSON input");
+    }
+    if (_errorBuilder != null)
+    {
+      DataComplex result = getResult();
+      if (result instanceof DataMap)
+      {
+        ((DataMap) result).addError(_errorBuilder.toString());
+      }
+    }
+  }
+
+  private void parseStructural(byte b) throws IOException
+  {
+    switch (b)
+    {
+      case ' ':
+      case '\t':
+      case '\r':
+      case '\n':
+        return;
+      case '/':
+        if (_allowComments)
+        {
+          _token = TOKEN_COMMENT_START;
+          return;
+        }
+        break;
+      default:
+        break;
+    }
+
+    _tokenLine = _line;
+    _tokenColumn = _column + 1;
+    switch (_state)
+    {
+      case START:
+        if (b == '{' && getExpectType() == DataMap.class)
+        {
+          startMap();
+        }
+        else if (b == '[' && getExpectType() == DataList.class)
+        {
+          startList();
+        }
+        else if (getExpectType() == DataMap.class)
+        {
+          throw new DataDecodingException("JSON text for object must start with \"{\".\"");
+        }
+        else
+        {
+          throw new DataDecodingException("JSON text for array must start with \"[\".\"");
+        }
+        break;
+      case MAP_KEY_OR_END:
+        if (b == '}')
+        {
+          endComplex();
+        }
+        else if (b == '"')
+        {
+          startString(true);
+        }
+        else
+        {
+          unexpected(b, "field name or '}'");
+        }
+        break;
+      case MAP_KEY:
+        if (b == '"')
+        {
+          startString(true);
+        }
+        else
+        {
+          unexpected(b, "field name");
+        }
+        break;
+      case MAP_COLON:
+        if (b == ':')
+        {
+          _state = MAP_VALUE;
+        }
+        else
+        {
+          unexpected(b, "':'");
+        }
+        break;
+      case MAP_VALUE:
+      case LIST_VALUE:
+        startValue(b);
+        break;
+      case LIST_VALUE_OR_END:
+        if (b == ']')
+        {
+          endComplex();
+        }
+        else
+        {
+          startValue(b);
+        }
+        break;
+      case MAP_COMMA_OR_END:
+        if (b == ',')
+        {
+          _state = MAP_KEY;
+        }
+        else if (b == '}')
+        {
+          endComplex();
+        }
+        else
+        {
+          unexpected(b, "',' or '}'");
+        }
+        break;
+      case LIST_COMMA_OR_END:
+        if (b == ',')
+        {
+          _state = LIST_VALUE;
+        }
+        else if (b == ']')
+        {
+          endComplex();
+        }
+        else
+        {
+          unexpected(b, "',' or ']'");
+        }
+        break;
+      default:
+        unexpected(b, "end of input");
+        break;
+    }
+  }
+
+  private void startValue(byte b) throws IOException
+  {
+    switch (b)
+    {
+      case '{':
+        startMap();
+        break;
+      case '[':
+        startList();
+        break;
+      case '"':
+        startString(false);
+        break;
+      case 't':
+        startLiteral(TRUE);
+        break;
+      case 'f':
+        startLiteral(FALSE);
+        break;
+      case 'n':
+        startLiteral(NULL);
+        break;
+      default:
+        if (b == '-' || (b >= '0' && b <= '9'))
+        {
+          _token = TOKEN_NUMBER;
+          _text.setLength(0);
+          _text.append((char) b);
+        }
+        else
+        {
+          unexpected(b, "value");
+        }
+        break;
+    }
+  }
+
+  private void startMap() throws DataDecodingException
+  {
+    pushName();
+    checkDuplicate(pushComplex(new DataMap(), _key));
+    _state = MAP_KEY_OR_END;
+  }
+
+  private void startList() throws DataDecodingException
+  {
+    pushName();
+    checkDuplicate(pushComplex(newDataList(), _key));
+    _state = LIST_VALUE_OR_END;
+  }
+
+  private void endComplex()
+  {
+    popComplex();
+    DataComplex current = currentComplex();
+    if (current == null)
+    {
+      _state = DONE;
+    }
+    else
+    {
+      _names.remove(_names.size() - 1);
+      _state = (current instanceof DataMap ? MAP_COMMA_OR_END : LIST_COMMA_OR_END);
+    }
+  }
+
+  private void value(Object value) throws DataDecodingException
+  {
+    checkDuplicate(addValue(_key, value));
+    _state = (_state == MAP_VALUE ? MAP_COMMA_OR_END : LIST_COMMA_OR_END);
+  }
+
+  /**
+   * Push the name of the value about to be added to the current {@link DataComplex}, if any,
+   * onto the path of names used in error messages.
+   */
+  private void pushName()
+  {
+    if (currentComplex() != null)
+    {
+      _names.add(currentName());
+    }
+  }
+
+  /**
+   * Return the name of the value about to be added to the current {@link DataComplex},
+   * i.e. its key in a {@link DataMap} or its index in a {@link DataList}.
+   */
+  private Object currentName()
+  {
+    DataComplex current = currentComplex();
+    return current instanceof DataList ? Integer.valueOf(((DataList) current).size()) : _key;
+  }
+
+  private void checkDuplicate(Object replaced)
+  {
+    if (replaced != null)
+    {
+      error().append(tokenLocation()).append(": \"").append(_key).append("\" defined more than once.\n");
+    }
+  }
+
+  private void startString(boolean isKey)
+  {
+    _token = TOKEN_STRING;
+    _stringIsKey = isKey;
+    _escape = ESCAPE_NONE;
+    _utf8Remaining = 0;
+    _text.setLength(0);
+  }
+
+  /**
+   * Consume bytes of a string token, returns the index of the first byte not consumed.
+   */
+  private int parseString(byte[] bytes, int start, int end) throws IOException
+  {
+    int i = start;
+    while (i < end)
+    {
+      byte b = bytes[i];
+      i++;
+      if (_utf8Remaining > 0)
+      {
+        continueUtf8(b);
+      }
+      else if (_escape != ESCAPE_NONE)
+      {
+        _column++;
+        parseEscape(b);
+      }
+      else if (b == '"')
+      {
+        _column++;
+        _token = TOKEN_NONE;
+        endString();
+        return i;
+      }
+      else if (b == '\\')
+      {
+        _column++;
+        _escape = ESCAPE_START;
+      }
+      else if (b >= 0x20)
+      {
+        // ASCII, the common case.
+        _column++;
+        _text.append((char) b);
+      }
+      else if (b >= 0)
+      {
+        throw new DataDecodingException(location() + ": Illegal unquoted character " + b + " in string");
+      }
+      else
+      {
+        _column++;
+        startUtf8(b);
+      }
+    }
+    return i;
+  }
+
+  private void endString() throws DataDecodingException
+  {
+    String s = _text.toString();
+    if (_stringIsKey)
+    {
+      _key = s;
+      _state = MAP_COLON;
+    }
+    else
+    {
+      value(s);
+    }
+  }
+
+  private void parseEscape(byte b) throws DataDecodingException
+  {
+    if (_escape == ESCAPE_UNICODE)
+    {
+      int digit = Character.digit((char) b, 16);
+      if (digit < 0)
+      {
+        throw new DataDecodingException(location() + ": Illegal character in \\u escape sequence");
+      }
+      _unicode = (_unicode << 4) | digit;
+      _unicodeDigits++;
+      if (_unicodeDigits == 4)
+      {
+        _text.append((char) _unicode);
+        _escape = ESCAPE_NONE;
+      }
+      return;
+    }
+
+    _escape = ESCAPE_NONE;
+    switch (b)
+    {
+      case '"':
+        _text.append('"');
+        break;
+      case '\\':
+        _text.append('\\');
+        break;
+      case '/':
+        _text.append('/');
+        break;
+      case 'b':
+        _text.append('\b');
+        break;
+      case 'f':
+        _text.append('\f');
+        break;
+      case 'n':
+        _text.append('\n');
+        break;
+      case 'r':
+        _text.append('\r');
+        break;
+      case 't':
+        _text.append('\t');
+        break;
+      case 'u':
+        _escape = ESCAPE_UNICODE;
+        _unicode = 0;
+        _unicodeDigits = 0;
+        break;
+      default:
+        throw new DataDecodingException(location() + ": Unrecognized character escape " + (char) (b & 0xff));
+    }
+  }
+
+  private void startUtf8(byte b) throws DataDecodingException
+  {
+    int c = b & 0xff;
+    if ((c & 0xe0) == 0xc0)
+    {
+      _utf8CodePoint = c & 0x1f;
+      _utf8Remaining = 1;
+      _utf8Minimum = 0x80;
+    }
+    else if ((c & 0xf0) == 0xe0)
+    {
+      _utf8CodePoint = c & 0x0f;
+      _utf8Remaining = 2;
+      _utf8Minimum = 0x800;
+    }
+    else if ((c & 0xf8) == 0xf0)
+    {
+      _utf8CodePoint = c & 0x07;
+      _utf8Remaining = 3;
+      _utf8Minimum = 0x10000;
+    }
+    else
+    {
+      throw new DataDecodingException(location() + ": Invalid UTF-8 start byte 0x" + Integer.toHexString(c));
+    }
+  }
+
+  private void continueUtf8(byte b) throws DataDecodingException
+  {
+    if ((b & 0xc0) != 0x80)
+    {
+      throw new DataDecodingException(location() + ": Invalid UTF-8 middle byte 0x" + Integer.toHexString(b & 0xff));
+    }
+    _utf8CodePoint = (_utf8CodePoint << 6) | (b & 0x3f);
+    _utf8Remaining--;
+    if (_utf8Remaining == 0)
+    {
+      if (_utf8CodePoint < _utf8Minimum || _utf8CodePoint > Character.MAX_CODE_POINT)
+      {
+        throw new DataDecodingException(location() + ": Invalid UTF-8 code point 0x" + Integer.toHexString(_utf8CodePoint));
+      }
+      _text.appendCodePoint(_utf8CodePoint);
+    }
+  }
+
+  /**
+   * Consume bytes of a number token, returns the index of the first byte not consumed.
+   */
+  private int parseNumber(byte[] bytes, int start, int end) throws IOException
+  {
+    int i = start;
+    while (i < end)
+    {
+      byte b = bytes[i];
+      if ((b >= '0' && b <= '9') || b == '.' || b == 'e' || b == 'E' || b == '-' || b == '+')
+      {
+        _text.append((char) b);
+        _column++;
+        i++;
+      }
+      else
+      {
+        _token = TOKEN_NONE;
+        endNumber();
+        return i;
+      }
+    }
+    return i;
+  }
+
+  private void endNumber() throws DataDecodingException
+  {
+    boolean integral = checkNumber();
+    if (integral)
+    {
+      long value = parseLong();
+      if (_numberOverflow)
+      {
+        StringBuilder error = error().append(tokenLocation()).append(": name: ");
+        _names.add(currentName());
+        Data.appendNames(error, _names);
+        _names.remove(_names.size() - 1);
+        error.append(", value: ").append(_text)
+          .append(", token: VALUE_NUMBER_INT, number type: BIG_INTEGER not parsed.\n");
+        _state = (_state == MAP_VALUE ? MAP_COMMA_OR_END : LIST_COMMA_OR_END);
+      }
+      else if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE)
+      {
+        DataList list = currentPrimitiveList();
+        if (list != null)
+        {
+          list.addInt((int) value);
+          _state = LIST_COMMA_OR_END;
+        }
+        else
+        {
+          value(Integer.valueOf((int) value));
+        }
+      }
+      else
+      {
+        DataList list = currentPrimitiveList();
+        if (list != null)
+        {
+          list.addLong(value);
+          _state = LIST_COMMA_OR_END;
+        }
+        else
+        {
+          value(Long.valueOf(value));
+        }
+      }
+    }
+    else
+    {
+      DataList list = currentPrimitiveList();
+      if (list != null)
+      {
+        list.addDouble(Double.parseDouble(_text.toString()));
+        _state = LIST_COMMA_OR_END;
+      }
+      else
+      {
+        value(Double.valueOf(_text.toString()));
+      }
+    }
+  }
+
+  /**
+   * Validate the number in {@code _text} according to the JSON grammar.
+   *
+   * @return true if the number is integral.
+   */
+  private boolean checkNumber() throws DataDecodingException
+  {
+    int length = _text.length();
+    int i = 0;
+    if (_text.charAt(i) == '-')
+    {
+      i++;
+    }
+    int digitsStart = i;
+    while (i < length && isDigit(_text.charAt(i)))
+    {
+      i++;
+    }
+    if (i == digitsStart || (_text.charAt(digitsStart) == '0' && i - digitsStart > 1))
+    {
+      throw invalidNumber();
+    }
+    if (i == length)
+    {
+      return true;
+    }
+    if (_text.charAt(i) == '.')
+    {
+      i++;
+      int fractionStart = i;
+      while (i < length && isDigit(_text.charAt(i)))
+      {
+        i++;
+      }
+      if (i == fractionStart)
+      {
+        throw invalidNumber();
+      }
+    }
+    if (i < length && (_text.charAt(i) == 'e' || _text.charAt(i) == 'E'))
+    {
+      i++;
+      if (i < length && (_text.charAt(i) == '+' || _text.charAt(i) == '-'))
+      {
+        i++;
+      }
+      int exponentStart = i;
+      while (i < length && isDigit(_text.charAt(i)))
+      {
+        i++;
+      }
+      if (i == exponentStart)
+      {
+        throw invalidNumber();
+      }
+    }
+    if (i != length)
+    {
+      throw invalidNumber();
+    }
+    return false;
+  }
+
+  /**
+   * Parse the validated integral number in {@code _text} without allocating,
+   * sets {@code _numberOverflow} if it does not fit in a long.
+   */
+  private long parseLong()
+  {
+    int length = _text.length();
+    boolean negative = (_text.charAt(0) == '-');
+    long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+    long multiplyMin = limit / 10;
+    long result = 0;
+    _numberOverflow = false;
+    for (int i = negative ? 1 : 0; i < length; i++)
+    {
+      int digit = _text.charAt(i) - '0';
+      if (result < multiplyMin)
+      {
+        _numberOverflow = true;
+        return 0;
+      }
+      result *= 10;
+      if (result < limit + digit)
+      {
+        _numberOverflow = true;
+        return 0;
+      }
+      result -= digit;
+    }
+    return negative ? result : -result;
+  }
+
+  private DataDecodingException invalidNumber()
+  {
+    return new DataDecodingException(tokenLocation() + ": Invalid number " + _text);
+  }
+
+  private static boolean isDigit(char c)
+  {
+    return c >= '0' && c <= '9';
+  }
+
+  private void startLiteral(String literal)
+  {
+    _token = TOKEN_LITERAL;
+    _literal = literal;
+    _literalIndex = 1;
+  }
+
+  private void parseLiteral(byte b) throws DataDecodingException
+  {
+    if (b != _literal.charAt(_literalIndex))
+    {
+      throw new DataDecodingException(tokenLocation() + ": Unrecognized token, expecting " + _literal);
+    }
+    _literalIndex++;
+    if (_literalIndex == _literal.length())
+    {
+      _token = TOKEN_NONE;
+      if (_literal == TRUE)
+      {
+        value(Boolean.TRUE);
+      }
+      else if (_literal == FALSE)
+      {
+        value(Boolean.FALSE);
+      }
+      else
+      {
+        value(Data.NULL);
+      }
+    }
+  }
+
+  private void parseComment(byte b) throws DataDecodingException
+  {
+    switch (_token)
+    {
+      case TOKEN_COMMENT_START:
+        if (b == '/')
+        {
+          _token = TOKEN_LINE_COMMENT;
+        }
+        else if (b == '*')
+        {
+          _token = TOKEN_BLOCK_COMMENT;
+        }
+        else
+        {
+          throw new DataDecodingException(location() + ": Unexpected character after '/', expecting '/' or '*'");
+        }
+        break;
+      case TOKEN_LINE_COMMENT:
+        if (b == '\n' || b == '\r')
+        {
+          _token = TOKEN_NONE;
+        }
+        break;
+      case TOKEN_BLOCK_COMMENT:
+        if (b == '*')
+        {
+          _token = TOKEN_BLOCK_COMMENT_STAR;
+        }
+        break;
+      default:
+        if (b == '/')
+        {
+          _token = TOKEN_NONE;
+        }
+        else if (b != '*')
+        {
+          _token = TOKEN_BLOCK_COMMENT;
+        }
+        break;
+    }
+  }
+
+  private void unexpected(byte b, String expecting) throws DataDecodingException
+  {
+    throw new DataDecodingException(location() + ": Unexpected character '" + (char) (b & 0xff) + "', expecting " + expecting);
+  }
+
+  private void advanceLocation(byte b)
+  {
+    if (b == '\n')
+    {
+      _line++;
+      _column = 0;
+    }
+    else if ((b & 0xc0) != 0x80)
+    {
+      _column++;
+    }
+  }
+
+  private String location()
+  {
+    return _line + "," + (_column + 1);
+  }
+
+  private String tokenLocation()
+  {
+    return _tokenLine + "," + _tokenColumn;
+  }
+
+  private StringBuilder error()
+  {
+    if (_errorBuilder == null)
+    {
+      _errorBuilder = new StringBuilder();
+    }
+    return _errorBuilder;
+  }
+
+  private final boolean _allowComments;
+  private final StringBuilder _text = new StringBuilder();
+  private int _state = START;
+  private int _token = TOKEN_NONE;
+  private String _key;
+  // the names of the DataComplex's being decoded below the root, for error messages
+  private final ArrayList<Object> _names = new ArrayList<Object>();
+  private boolean _stringIsKey;
+  private int _escape;
+  private int _unicode;
+  private int _unicodeDigits;
+  private int _utf8Remaining;
+  private int _utf8CodePoint;
+  private int _utf8Minimum;
+  private boolean _numberOverflow;
+  private String _literal;
+  private int _literalIndex;
+  private int _line = 1;
+  private int _column = 0;
+  private int _tokenLine = 1;
+  private int _tokenColumn = 1;
+  private StringBuilder _errorBuilder;
+}
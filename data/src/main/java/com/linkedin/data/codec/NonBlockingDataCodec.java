@@ -0,0 +1,43 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.codec;
+
+
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+
+/**
+ * Interface for a {@link DataCodec} that can also de-serialize
+ * {@link DataMap}'s or {@link DataList}'s incrementally from input
+ * that arrives in chunks, see {@link NonBlockingDataDecoder}.
+ */
+public interface NonBlockingDataCodec extends DataCodec
+{
+  /**
+   * Create a new decoder that de-serializes a {@link DataMap}.
+   *
+   * @return a new {@link NonBlockingDataDecoder} for a {@link DataMap}.
+   */
+  NonBlockingDataDecoder<DataMap> createMapDecoder();
+
+  /**
+   * Create a new decoder that de-serializes a {@link DataList}.
+   *
+   * @return a new {@link NonBlockingDataDecoder} for a {@link DataList}.
+   */
+  NonBlockingDataDecoder<DataList> createListDecoder();
+}
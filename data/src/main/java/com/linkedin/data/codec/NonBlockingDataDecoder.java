@@ -0,0 +1,73 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.codec;
+
+
+import com.linkedin.data.DataComplex;
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Push-based decoder that de-serializes a {@link DataMap} or {@link DataList}
+ * from binary data that arrives in chunks.
+ *
+ * <p>
+ * Each chunk is parsed as soon as it is fed to the decoder, and the resulting
+ * Data objects are built incrementally. The decoder never blocks waiting for
+ * more input and does not retain references to the chunks it has been fed,
+ * so the caller is free to release or reuse a chunk once {@code feed} returns.
+ *
+ * <p>
+ * A decoder instance decodes exactly one {@link DataComplex} and is not thread-safe.
+ * Once {@link #feed} or {@link #complete()} has thrown an exception, the decoder
+ * must be discarded.
+ *
+ * @param <T> the type of the {@link DataComplex} to decode.
+ */
+public interface NonBlockingDataDecoder<T extends DataComplex>
+{
+  /**
+   * Parse the next chunk of input.
+   *
+   * @param bytes provides the chunk of input.
+   * @param offset provides the index of the first byte of the chunk.
+   * @param length provides the number of bytes in the chunk.
+   * @throws IOException if the input is not valid.
+   */
+  void feed(byte[] bytes, int offset, int length) throws IOException;
+
+  /**
+   * Parse the remaining bytes of the {@link ByteBuffer}.
+   *
+   * <p>
+   * On return, the position of the {@link ByteBuffer} will be equal to its limit.
+   *
+   * @param buffer provides the chunk of input.
+   * @throws IOException if the input is not valid.
+   */
+  void feed(ByteBuffer buffer) throws IOException;
+
+  /**
+   * Signal the end of input and return the decoded Data object.
+   *
+   * @return the {@link DataComplex} decoded from the input.
+   * @throws IOException if the input is incomplete or not valid.
+   */
+  T complete() throws IOException;
+}
@@ -60,7 +60,7 @@ import java.util.Map;
  *
  * @author slim
  */
-public class PsonDataCodec implements DataCodec
+public class PsonDataCodec implements NonBlockingDataCodec
 {
   private static final byte[] HEADER = { 0x23, 0x21, 0x50, 0x53, 0x4f, 0x4e, 0x31, 0x0a };  // #!PSON1\n
 
@@ -102,13 +102,29 @@ public class PsonDataCodec implements DataCodec
       return _bufferSize;
     }
 
+    /**
+     * Set whether decoded {@link DataList}s store int, long, float, double and boolean
+     * elements without boxing them, see {@link DataList#withPrimitiveStorage(int)}.
+     */
+    public Options setPrimitiveListStorage(boolean value)
+    {
+      _primitiveListStorage = value;
+      return this;
+    }
+
+    public boolean getPrimitiveListStorage()
+    {
+      return _primitiveListStorage;
+    }
+
     @Override
     public String toString()
     {
       return
         "encodeCollectionCount=" + _encodeCollectionCount +
         ", encodeStringLength=" + _encodeStringLength +
-        (_bufferSize != null ? ", bufferSize=" + _bufferSize : "");
+        (_bufferSize != null ? ", bufferSize=" + _bufferSize : "") +
+        (_primitiveListStorage ? ", primitiveListStorage=true" : "");
     }
 
     @Override
@@ -124,6 +140,7 @@ public class PsonDataCodec implements DataCodec
       return
         (_encodeCollectionCount == other._encodeCollectionCount) &&
         (_encodeStringLength == other._encodeStringLength) &&
+        (_primitiveListStorage == other._primitiveListStorage) &&
         (_bufferSize == null ? _bufferSize == other._bufferSize : _bufferSize.equals(other._bufferSize));
     }
 
@@ -132,13 +149,15 @@ public class PsonDataCodec implements DataCodec
     {
       return
         ((_encodeCollectionCount ? 3131 : 0) +
-         (_encodeStringLength ? 31310000 : 0)) ^
+         (_encodeStringLength ? 31310000 : 0) +
+         (_primitiveListStorage ? 313 : 0)) ^
         (_bufferSize != null ? _bufferSize.hashCode() : 0);
     }
 
     private boolean _encodeStringLength = true;
     private boolean _encodeCollectionCount = false;
     private Integer _bufferSize = null;
+    private boolean _primitiveListStorage = false;
   }
 
   public PsonDataCodec()
@@ -162,17 +181,27 @@ public class PsonDataCodec implements DataCodec
   }
 
   private PsonSerializer serialize(DataComplex map) throws IOException
+  {
+    return serialize(map, Data.DEFAULT_TRAVERSER);
+  }
+
+  private PsonSerializer serialize(DataComplex map, Data.Traverser traverser) throws IOException
   {
     PsonSerializer serializer = new PsonSerializer();
-    serializer.serialize(map);
+    serializer.serialize(map, traverser);
     return serializer;
   }
 
   protected byte[] complexToBytes(DataComplex complex) throws IOException
+  {
+    return complexToBytes(complex, Data.DEFAULT_TRAVERSER);
+  }
+
+  protected byte[] complexToBytes(DataComplex complex, Data.Traverser traverser) throws IOException
   {
     try
     {
-      byte[] bytes = serialize(complex).toBytes();
+      byte[] bytes = serialize(complex, traverser).toBytes();
       return bytes;
     }
     catch (RuntimeException exc)
@@ -191,7 +220,7 @@ public class PsonDataCodec implements DataCodec
         (_testMode && _options.getBufferSize() != null) ?
           new BufferChain(ByteOrder.LITTLE_ENDIAN, input, _options.getBufferSize()) :
           new BufferChain(ByteOrder.LITTLE_ENDIAN, input);
-      PsonParser psonParser = new PsonParser(buffer);
+      PsonParser psonParser = new PsonParser(buffer, _options.getPrimitiveListStorage());
       return clazz.cast(psonParser.read());
     }
     catch (RuntimeException exc)
@@ -208,6 +237,19 @@ public class PsonDataCodec implements DataCodec
     return complexToBytes(map);
   }
 
+  /**
+   * Encode the {@link DataMap} with the given {@link Data.Traverser}, which may skip some of
+   * the values of the map.
+   *
+   * @param map to encode
+   * @param traverser invoking the callbacks that encode the map
+   * @return the encoded bytes
+   */
+  public byte[] mapToBytes(DataMap map, Data.Traverser traverser) throws IOException
+  {
+    return complexToBytes(map, traverser);
+  }
+
   @Override
   public byte[] listToBytes(DataList list) throws IOException
   {
@@ -262,7 +304,7 @@ public class PsonDataCodec implements DataCodec
           new BufferChain(ByteOrder.LITTLE_ENDIAN);
       buffer.readFromInputStream(in);
       buffer.rewind();
-      PsonParser psonParser = new PsonParser(buffer);
+      PsonParser psonParser = new PsonParser(buffer, _options.getPrimitiveListStorage());
       return clazz.cast(psonParser.read());
     }
     catch (RuntimeException exc)
@@ -285,6 +327,18 @@ public class PsonDataCodec implements DataCodec
     return readComplex(in, DataList.class);
   }
 
+  @Override
+  public NonBlockingDataDecoder<DataMap> createMapDecoder()
+  {
+    return new PsonNonBlockingDataDecoder<DataMap>(DataMap.class, _options.getPrimitiveListStorage());
+  }
+
+  @Override
+  public NonBlockingDataDecoder<DataList> createListDecoder()
+  {
+    return new PsonNonBlockingDataDecoder<DataList>(DataList.class, _options.getPrimitiveListStorage());
+  }
+
   @Override
   public String toString()
   {
@@ -516,10 +570,10 @@ public class PsonDataCodec implements DataCodec
       }
     }
 
-    private void serialize(DataComplex map) throws IOException
+    private void serialize(DataComplex map, Data.Traverser traverser) throws IOException
     {
       _buffer.put(HEADER, 0, HEADER.length);
-      Data.traverse(map, this);
+      traverser.traverse(map, this);
     }
 
     private final byte[] toBytes()
@@ -542,8 +596,14 @@ public class PsonDataCodec implements DataCodec
   {
 
     PsonParser(BufferChain buffer)
+    {
+      this(buffer, false);
+    }
+
+    PsonParser(BufferChain buffer, boolean primitiveListStorage)
     {
       _buffer = buffer;
+      _primitiveListStorage = primitiveListStorage;
     }
 
     static final String HEX = "0123456789ABCDEF";
@@ -576,6 +636,10 @@ public class PsonDataCodec implements DataCodec
     DataList parseArray(boolean withCount) throws IOException
     {
       int size = (withCount ? _buffer.getVarUnsignedInt() : -1);
+      if (_primitiveListStorage)
+      {
+        return parsePrimitiveArray(size);
+      }
       DataList list = (size >= 0 ? new DataList(size) : new DataList());
       int count = 0;
       for (count = 0; ; count++)
@@ -596,6 +660,49 @@ public class PsonDataCodec implements DataCodec
       return list;
     }
 
+    private DataList parsePrimitiveArray(int size) throws IOException
+    {
+      DataList list = DataList.withPrimitiveStorage(size >= 0 ? size : DEFAULT_LIST_CAPACITY);
+      int count = 0;
+      for (count = 0; ; count++)
+      {
+        byte psonType = _buffer.get();
+        switch (psonType)
+        {
+          case PSON_INT:
+            list.addInt(_buffer.getInt());
+            continue;
+          case PSON_LONG:
+            list.addLong(_buffer.getLong());
+            continue;
+          case PSON_FLOAT:
+            list.addFloat(_buffer.getFloat());
+            continue;
+          case PSON_DOUBLE:
+            list.addDouble(_buffer.getDouble());
+            continue;
+          case PSON_BOOLEAN:
+            list.addBoolean(_buffer.get() != ZERO_BYTE);
+            continue;
+          default:
+            break;
+        }
+        Object item = parseValue(psonType);
+        if (item == null)
+        {
+          break;
+        }
+        CheckedUtil.addWithoutChecking(list, item);
+      }
+
+      if (size >= 0 && count != size)
+      {
+        throw new IOException("Actual number array items (" + count + ") is not the same as expected (" + size + ")");
+      }
+
+      return list;
+    }
+
     DataMap parseMap(boolean withCount) throws IOException
     {
       int size = (withCount ? _buffer.getVarUnsignedInt() : -1);
@@ -655,8 +762,11 @@ public class PsonDataCodec implements DataCodec
 
     Object parseValue() throws IOException
     {
-      byte psonType = _buffer.get();
+      return parseValue(_buffer.get());
+    }
 
+    private Object parseValue(byte psonType) throws IOException
+    {
       Object o = null;
       boolean valid = true;
       switch (psonType)
@@ -671,7 +781,7 @@ public class PsonDataCodec implements DataCodec
           o = parseMap(true);
           break;
         case PSON_ARRAY_EMPTY:
-          o = new DataList();
+          o = _primitiveListStorage ? DataList.withPrimitiveStorage(DEFAULT_LIST_CAPACITY) : new DataList();
           break;
         case PSON_ARRAY:
           o = parseArray(false);
@@ -737,7 +847,10 @@ public class PsonDataCodec implements DataCodec
       return _buffer.getUtf8CString(length);
     }
 
+    private static final int DEFAULT_LIST_CAPACITY = 10;
+
     private final BufferChain _buffer;
+    private final boolean _primitiveListStorage;
     private String _keyArray[] = new String[100];
     private int _expectedKeyIndex = 1;
   }
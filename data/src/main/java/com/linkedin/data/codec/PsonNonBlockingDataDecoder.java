@@ -0,0 +1,590 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.codec;
+
+
+import com.linkedin.data.ByteString;
+import com.linkedin.data.Data;
+import com.linkedin.data.DataComplex;
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static com.linkedin.data.codec.PsonDataCodec.*;
+
+/**
+ * A {@link NonBlockingDataDecoder} for the {@link PsonDataCodec} format.
+ *
+ * <p>
+ * Each element of the PSON input is read as one of three kinds of fields,
+ * a fixed number of bytes, a variable length encoded integer or a null-terminated
+ * string. Only the bytes of a field that is split across chunks are buffered,
+ * fields that are fully contained in a chunk are decoded directly from the chunk.
+ *
+ * @param <T> the type of the {@link DataComplex} to decode.
+ */
+public class PsonNonBlockingDataDecoder<T extends DataComplex> extends AbstractNonBlockingDataDecoder<T>
+{
+  // kinds of fields
+  private static final int READ_FIXED = 0;
+  private static final int READ_VAR_INT = 1;
+  private static final int READ_C_STRING = 2;
+
+  // what the field being read is
+  private static final int HEADER = 0;
+  private static final int TYPE = 1;
+  private static final int BOOLEAN_VALUE = 2;
+  private static final int INT_VALUE = 3;
+  private static final int LONG_VALUE = 4;
+  private static final int FLOAT_VALUE = 5;
+  private static final int DOUBLE_VALUE = 6;
+  private static final int STRING_VALUE = 7;
+  private static final int STRING_LENGTH_4 = 8;
+  private static final int STRING_LENGTH_2 = 9;
+  private static final int STRING_WITH_LENGTH = 10;
+  private static final int BINARY_LENGTH = 11;
+  private static final int BINARY_VALUE = 12;
+  private static final int MAP_COUNT = 13;
+  private static final int LIST_COUNT = 14;
+  private static final int KEY_INDEX = 15;
+  private static final int KEY = 16;
+  private static final int DONE = 17;
+
+  private static final byte[] HEADER_BYTES = { 0x23, 0x21, 0x50, 0x53, 0x4f, 0x4e, 0x31, 0x0a };  // #!PSON1\n
+
+  public PsonNonBlockingDataDecoder(Class<T> expectType)
+  {
+    this(expectType, false);
+  }
+
+  /**
+   * @param expectType provides the type of the {@link DataComplex} to decode.
+   * @param primitiveListStorage true to decode into {@link DataList}s with primitive storage.
+   */
+  public PsonNonBlockingDataDecoder(Class<T> expectType, boolean primitiveListStorage)
+  {
+    super(expectType, primitiveListStorage);
+    readFixed(HEADER, HEADER_BYTES.length);
+  }
+
+  @Override
+  protected void parse(byte[] bytes, int start, int end) throws IOException
+  {
+    int i = start;
+    while (i < end)
+    {
+      if (_field == DONE)
+      {
+        throw new DataDecodingException("Unexpected content after end of PSON input");
+      }
+      switch (_read)
+      {
+        case READ_FIXED:
+          i = readFixed(bytes, i, end);
+          break;
+        case READ_VAR_INT:
+          i = readVarInt(bytes, i, end);
+          break;
+        default:
+          i = readCString(bytes, i, end);
+          break;
+      }
+    }
+  }
+
+  @Override
+  protected void finish() throws IOException
+  {
+    if (_field != DONE)
+    {
+      throw new DataDecodingException("Unexpected end of PSON input");
+    }
+  }
+
+  private int readFixed(byte[] bytes, int start, int end) throws IOException
+  {
+    int available = end - start;
+    if (_scratchLength == 0 && available >= _need)
+    {
+      // entire field is in this chunk, decode in place.
+      int next = start + _need;
+      onField(bytes, start, _need);
+      return next;
+    }
+    int length = Math.min(_need - _scratchLength, available);
+    appendScratch(bytes, start, length);
+    if (_scratchLength == _need)
+    {
+      _scratchLength = 0;
+      onField(_scratch, 0, _need);
+    }
+    return start + length;
+  }
+
+  private int readVarInt(byte[] bytes, int start, int end) throws IOException
+  {
+    int i = start;
+    while (i < end)
+    {
+      byte b = bytes[i];
+      i++;
+      if ((b & 0x80) == 0)
+      {
+        // there are more more significant bits
+        _varInt |= (b << _varIntShift);
+        _varIntShift += 7;
+        if (_varIntShift > 28)
+        {
+          throw new DataDecodingException("Variable length integer is too long");
+        }
+      }
+      else
+      {
+        _varInt |= ((b & 0x7f) << _varIntShift);
+        int value = _varInt;
+        _varInt = 0;
+        _varIntShift = 0;
+        onVarInt(value);
+        return i;
+      }
+    }
+    return i;
+  }
+
+  private int readCString(byte[] bytes, int start, int end) throws IOException
+  {
+    int i = start;
+    while (i < end && bytes[i] != ZERO_BYTE)
+    {
+      i++;
+    }
+    if (i == end)
+    {
+      appendScratch(bytes, start, i - start);
+      return i;
+    }
+    if (_scratchLength == 0)
+    {
+      onCString(new String(bytes, start, i - start, Data.UTF_8_CHARSET));
+    }
+    else
+    {
+      appendScratch(bytes, start, i - start);
+      int length = _scratchLength;
+      _scratchLength = 0;
+      onCString(new String(_scratch, 0, length, Data.UTF_8_CHARSET));
+    }
+    // skip terminating zero byte
+    return i + 1;
+  }
+
+  private void onField(byte[] bytes, int offset, int length) throws IOException
+  {
+    DataList list;
+    switch (_field)
+    {
+      case HEADER:
+        for (int i = 0; i < length; i++)
+        {
+          if (bytes[offset + i] != HEADER_BYTES[i])
+          {
+            throw new DataDecodingException("Expecting header " + Arrays.toString(HEADER_BYTES) + " but got " +
+                                            Arrays.toString(Arrays.copyOfRange(bytes, offset, offset + length)));
+          }
+        }
+        readFixed(TYPE, 1);
+        break;
+      case TYPE:
+        onType(bytes[offset]);
+        break;
+      case BOOLEAN_VALUE:
+        value(bytes[offset] != ZERO_BYTE ? Boolean.TRUE : Boolean.FALSE);
+        break;
+      case INT_VALUE:
+        if ((list = currentPrimitiveList()) != null)
+        {
+          list.addInt(getInt(bytes, offset));
+          listValue();
+        }
+        else
+        {
+          value(Integer.valueOf(getInt(bytes, offset)));
+        }
+        break;
+      case LONG_VALUE:
+        if ((list = currentPrimitiveList()) != null)
+        {
+          list.addLong(getLong(bytes, offset));
+          listValue();
+        }
+        else
+        {
+          value(Long.valueOf(getLong(bytes, offset)));
+        }
+        break;
+      case FLOAT_VALUE:
+        if ((list = currentPrimitiveList()) != null)
+        {
+          list.addFloat(Float.intBitsToFloat(getInt(bytes, offset)));
+          listValue();
+        }
+        else
+        {
+          value(Float.valueOf(Float.intBitsToFloat(getInt(bytes, offset))));
+        }
+        break;
+      case DOUBLE_VALUE:
+        if ((list = currentPrimitiveList()) != null)
+        {
+          list.addDouble(Double.longBitsToDouble(getLong(bytes, offset)));
+          listValue();
+        }
+        else
+        {
+          value(Double.valueOf(Double.longBitsToDouble(getLong(bytes, offset))));
+        }
+        break;
+      case STRING_LENGTH_4:
+        readStringWithLength(getInt(bytes, offset));
+        break;
+      case STRING_LENGTH_2:
+        readStringWithLength(getShort(bytes, offset));
+        break;
+      case STRING_WITH_LENGTH:
+        if (bytes[offset + length - 1] != ZERO_BYTE)
+        {
+          throw new DataDecodingException("C string not terminated with null");
+        }
+        value(new String(bytes, offset, length - 1, Data.UTF_8_CHARSET));
+        break;
+      case BINARY_LENGTH:
+        int binaryLength = getInt(bytes, offset);
+        if (binaryLength < 0)
+        {
+          throw new DataDecodingException("Illegal binary length " + binaryLength);
+        }
+        else if (binaryLength == 0)
+        {
+          value(ByteString.empty());
+        }
+        else
+        {
+          readFixed(BINARY_VALUE, binaryLength);
+        }
+        break;
+      case BINARY_VALUE:
+        value(ByteString.copy(ByteBuffer.wrap(bytes, offset, length)));
+        break;
+      default:
+        throw new IllegalStateException("Unexpected field " + _field);
+    }
+  }
+
+  private void onType(byte psonType) throws IOException
+  {
+    switch (psonType)
+    {
+      case PSON_OBJECT_EMPTY:
+        value(new DataMap());
+        break;
+      case PSON_OBJECT:
+        push(new DataMap(), -1);
+        break;
+      case PSON_OBJECT_WITH_COUNT:
+        readVarInt(MAP_COUNT);
+        break;
+      case PSON_ARRAY_EMPTY:
+        value(newDataList());
+        break;
+      case PSON_ARRAY:
+        push(newDataList(), -1);
+        break;
+      case PSON_ARRAY_WITH_COUNT:
+        readVarInt(LIST_COUNT);
+        break;
+      case PSON_INT:
+        readFixed(INT_VALUE, 4);
+        break;
+      case PSON_LONG:
+        readFixed(LONG_VALUE, 8);
+        break;
+      case PSON_FLOAT:
+        readFixed(FLOAT_VALUE, 4);
+        break;
+      case PSON_DOUBLE:
+        readFixed(DOUBLE_VALUE, 8);
+        break;
+      case PSON_STRING_EMPTY:
+        value("");
+        break;
+      case PSON_STRING:
+        readCString(STRING_VALUE);
+        break;
+      case PSON_STRING_WITH_LENGTH_4:
+        readFixed(STRING_LENGTH_4, 4);
+        break;
+      case PSON_STRING_WITH_LENGTH_2:
+        readFixed(STRING_LENGTH_2, 2);
+        break;
+      case PSON_BOOLEAN:
+        readFixed(BOOLEAN_VALUE, 1);
+        break;
+      case PSON_BINARY:
+        readFixed(BINARY_LENGTH, 4);
+        break;
+      case PSON_NULL:
+        value(Data.NULL);
+        break;
+      case PSON_LAST:
+        if (currentComplex() instanceof DataList == false)
+        {
+          throw new DataDecodingException("Unexpected end of array");
+        }
+        pop();
+        break;
+      default:
+        throw new DataDecodingException("Illegal PSON element code " + psonType);
+    }
+  }
+
+  private void onVarInt(int value) throws IOException
+  {
+    switch (_field)
+    {
+      case MAP_COUNT:
+        push(new DataMap((int) ((value * 1.5) + 0.5)), value);
+        break;
+      case LIST_COUNT:
+        push(newDataList(value), value);
+        break;
+      case KEY_INDEX:
+        int keyIndex = (value >> 1) ^ (-(value & 1));
+        if (keyIndex == PSON_INVALID_KEY_INDEX)
+        {
+          pop();
+        }
+        else if (keyIndex < 0)
+        {
+          keyIndex = -keyIndex;
+          if (keyIndex != _expectedKeyIndex)
+          {
+            throw new DataDecodingException("Received new key index " + keyIndex + " but expecting " + _expectedKeyIndex);
+          }
+          _expectedKeyIndex++;
+          readCString(KEY);
+        }
+        else
+        {
+          if (keyIndex >= _expectedKeyIndex)
+          {
+            throw new DataDecodingException("Received undefined key index " + keyIndex);
+          }
+          _key = _keyArray[keyIndex];
+          readFixed(TYPE, 1);
+        }
+        break;
+      default:
+        throw new IllegalStateException("Unexpected field " + _field);
+    }
+  }
+
+  private void onCString(String s) throws IOException
+  {
+    switch (_field)
+    {
+      case STRING_VALUE:
+        value(s);
+        break;
+      case KEY:
+        int keyIndex = _expectedKeyIndex - 1;
+        if (keyIndex >= _keyArray.length)
+        {
+          _keyArray = Arrays.copyOf(_keyArray, _keyArray.length * 2);
+        }
+        _keyArray[keyIndex] = s;
+        _key = s;
+        readFixed(TYPE, 1);
+        break;
+      default:
+        throw new IllegalStateException("Unexpected field " + _field);
+    }
+  }
+
+  private void readStringWithLength(int length) throws DataDecodingException
+  {
+    if (length <= 0)
+    {
+      throw new DataDecodingException("String size should not be " + length);
+    }
+    readFixed(STRING_WITH_LENGTH, length);
+  }
+
+  private void value(Object value) throws DataDecodingException
+  {
+    if (isStackEmpty())
+    {
+      if (value instanceof DataComplex)
+      {
+        // empty map or list as the top level value
+        pushComplex((DataComplex) value, null);
+        popComplex();
+        _field = DONE;
+        return;
+      }
+      throw new DataDecodingException("Input must be a " + getExpectType().getSimpleName());
+    }
+    addValue(_key, value);
+    _count++;
+    next();
+  }
+
+  /**
+   * Count a value that has been added to the {@link DataList} at the top of the stack.
+   */
+  private void listValue()
+  {
+    _count++;
+    next();
+  }
+
+  private void push(DataComplex complex, int expectedCount) throws DataDecodingException
+  {
+    if (isStackEmpty() == false)
+    {
+      _count++;
+    }
+    _countStack = growIfNeeded(_countStack, _depth);
+    _countStack[_depth * 2] = _count;
+    _countStack[_depth * 2 + 1] = _expectedCount;
+    _depth++;
+    pushComplex(complex, _key);
+    _count = 0;
+    _expectedCount = expectedCount;
+    next();
+  }
+
+  private void pop() throws DataDecodingException
+  {
+    if (_expectedCount >= 0 && _count != _expectedCount)
+    {
+      String what = (currentComplex() instanceof DataMap ? "object fields" : "array items");
+      throw new DataDecodingException("Actual number " + what + " (" + _count + ") is not the same as expected (" + _expectedCount + ")");
+    }
+    popComplex();
+    _depth--;
+    _count = _countStack[_depth * 2];
+    _expectedCount = _countStack[_depth * 2 + 1];
+    if (isStackEmpty())
+    {
+      _field = DONE;
+    }
+    else
+    {
+      next();
+    }
+  }
+
+  /**
+   * Set up to read the next element of the {@link DataComplex} at the top of the stack.
+   */
+  private void next()
+  {
+    if (currentComplex() instanceof DataMap)
+    {
+      readVarInt(KEY_INDEX);
+    }
+    else
+    {
+      readFixed(TYPE, 1);
+    }
+  }
+
+  private void readFixed(int field, int need)
+  {
+    _read = READ_FIXED;
+    _field = field;
+    _need = need;
+  }
+
+  private void readVarInt(int field)
+  {
+    _read = READ_VAR_INT;
+    _field = field;
+  }
+
+  private void readCString(int field)
+  {
+    _read = READ_C_STRING;
+    _field = field;
+  }
+
+  private void appendScratch(byte[] bytes, int offset, int length)
+  {
+    int newLength = _scratchLength + length;
+    if (newLength > _scratch.length)
+    {
+      _scratch = Arrays.copyOf(_scratch, Math.max(newLength, _scratch.length * 2));
+    }
+    System.arraycopy(bytes, offset, _scratch, _scratchLength, length);
+    _scratchLength = newLength;
+  }
+
+  private static int[] growIfNeeded(int[] array, int depth)
+  {
+    if (depth * 2 + 2 > array.length)
+    {
+      return Arrays.copyOf(array, array.length * 2);
+    }
+    return array;
+  }
+
+  private static short getShort(byte[] bytes, int offset)
+  {
+    return (short) ((bytes[offset] & 0xff) | ((bytes[offset + 1] & 0xff) << 8));
+  }
+
+  private static int getInt(byte[] bytes, int offset)
+  {
+    return (bytes[offset] & 0xff) |
+           ((bytes[offset + 1] & 0xff) << 8) |
+           ((bytes[offset + 2] & 0xff) << 16) |
+           ((bytes[offset + 3] & 0xff) << 24);
+  }
+
+  private static long getLong(byte[] bytes, int offset)
+  {
+    return (getInt(bytes, offset) & 0xffffffffL) | (((long) getInt(bytes, offset + 4)) << 32);
+  }
+
+  private int _read;
+  private int _field;
+  private int _need;
+  private byte[] _scratch = new byte[16];
+  private int _scratchLength;
+  private int _varInt;
+  private int _varIntShift;
+  private String _key;
+  private String[] _keyArray = new String[100];
+  private int _expectedKeyIndex = 1;
+  private int _count;
+  private int _expectedCount = -1;
+  private int[] _countStack = new int[32];
+  private int _depth;
+}
@@ -115,6 +115,20 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
     _list = new InternalList<E>(initialCapacity);
   }
 
+  /**
+   * Construct a checked list that stores its elements in the provided {@link ListStorage}.
+   *
+   * The elements already in the storage are not checked.
+   *
+   * @param storage provides the storage of the elements of the list.
+   * @param checker provides the checker.
+   */
+  protected CheckedList(ListStorage<E> storage, ListChecker<E> checker)
+  {
+    _checker = checker;
+    _list = storage;
+  }
+
   @Override
   public boolean add(E e)
   {
@@ -159,7 +173,7 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
   public CheckedList<E> clone() throws CloneNotSupportedException
   {
     CheckedList<E> o = (CheckedList<E>) super.clone();
-    o._list = (InternalList<E>) _list.clone();
+    o._list = _list.clone();
     o._readOnly = false;
     return o;
   }
@@ -339,7 +353,7 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
     return setWithoutChecking(index, element);
   }
 
-  private final void checkMutability()
+  protected final void checkMutability()
   {
     if (_readOnly)
     {
@@ -390,7 +404,7 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
   }
 
   @SuppressWarnings("serial")
-  private static class InternalList<E> extends ArrayList<E>
+  private static class InternalList<E> extends ArrayList<E> implements ListStorage<E>
   {
     public InternalList()
     {
@@ -408,9 +422,15 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
     {
       super.removeRange(fromIndex, toIndex);
     }
+    @Override
+    @SuppressWarnings("unchecked")
+    public InternalList<E> clone()
+    {
+      return (InternalList<E>) super.clone();
+    }
   }
 
   protected ListChecker<E> _checker;
   private boolean _readOnly = false;
-  private InternalList<E> _list;
+  private ListStorage<E> _list;
 }
@@ -0,0 +1,49 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.collections;
+
+import java.util.List;
+
+/**
+ * Storage of the elements of a {@link CheckedList}.
+ *
+ * <p>
+ * By default, a {@link CheckedList} stores its elements in an {@link java.util.ArrayList}.
+ * Sub-classes may provide a different storage, for example one that does
+ * not box primitive values.
+ *
+ * @param <E> is the element type of the list.
+ */
+public interface ListStorage<E> extends List<E>, Cloneable
+{
+  /**
+   * Removes the elements whose index is between {@code fromIndex}, inclusive,
+   * and {@code toIndex}, exclusive.
+   *
+   * @param fromIndex index of first element to be removed.
+   * @param toIndex index after last element to be removed.
+   */
+  void removeRange(int fromIndex, int toIndex);
+
+  /**
+   * Shallow copy of the storage.
+   *
+   * @return a shallow copy of the storage.
+   * @throws CloneNotSupportedException if the storage cannot be cloned.
+   */
+  ListStorage<E> clone() throws CloneNotSupportedException;
+}
@@ -63,7 +63,7 @@ public final class ValidateDataAgainstSchema
   }
 
   @SuppressWarnings("serial")
-  private static final HashMap<DataSchema.Type, Class<?>> _primitiveTypeToClassMap = new HashMap<DataSchema.Type, Class<?>>()
+  static final HashMap<DataSchema.Type, Class<?>> _primitiveTypeToClassMap = new HashMap<DataSchema.Type, Class<?>>()
   {
     {
       put(DataSchema.Type.INT, Integer.class);
@@ -113,6 +113,66 @@ public final class ValidateDataAgainstSchema
     return state;
   }
 
+  static Object fixupPrimitive(DataSchema.Type schemaType, Object object, CoercionMode coercionMode)
+  {
+    try
+    {
+      switch (schemaType)
+      {
+        case INT:
+          return
+            (object instanceof Number) ?
+              (((Number) object).intValue()) :
+              (object.getClass() == String.class && coercionMode == CoercionMode.STRING_TO_PRIMITIVE) ?
+                (new BigDecimal((String) object)).intValue() :
+                object;
+        case LONG:
+          return
+            (object instanceof Number) ?
+              (((Number) object).longValue()) :
+              (object.getClass() == String.class && coercionMode == CoercionMode.STRING_TO_PRIMITIVE) ?
+                (new BigDecimal((String) object)).longValue() :
+                object;
+        case FLOAT:
+          return
+            (object instanceof Number) ?
+              (((Number) object).floatValue()) :
+              (object.getClass() == String.class && coercionMode == CoercionMode.STRING_TO_PRIMITIVE) ?
+                (new BigDecimal((String) object)).floatValue() :
+                object;
+        case DOUBLE:
+          return
+            (object instanceof Number) ?
+              (((Number) object).doubleValue()) :
+              (object.getClass() == String.class && coercionMode == CoercionMode.STRING_TO_PRIMITIVE) ?
+                (new BigDecimal((String) object)).doubleValue() :
+                object;
+        case BOOLEAN:
+          if (object.getClass() == String.class && coercionMode == CoercionMode.STRING_TO_PRIMITIVE)
+          {
+            String string = (String) object;
+            if ("true".equalsIgnoreCase(string))
+            {
+              return Boolean.TRUE;
+            }
+            if ("false".equalsIgnoreCase(string))
+            {
+              return Boolean.FALSE;
+            }
+          }
+          return object;
+        case STRING:
+        case NULL:
+        default:
+          return object;
+      }
+    }
+    catch (NumberFormatException exc)
+    {
+      return object;
+    }
+  }
+
   private static class State implements ValidationResult
   {
     private boolean _recursive;
@@ -609,66 +669,9 @@ public final class ValidateDataAgainstSchema
 
     protected Object fixupPrimitive(DataSchema schema, Object object)
     {
-      DataSchema.Type schemaType = schema.getType();
-
-      try
-      {
-        switch (schemaType)
-        {
-          case INT:
-            return
-              (object instanceof Number) ?
-                (((Number) object).intValue()) :
-                (object.getClass() == String.class && _options.getCoercionMode() == CoercionMode.STRING_TO_PRIMITIVE) ?
-                  (new BigDecimal((String) object)).intValue() :
-                  object;
-          case LONG:
-            return
-              (object instanceof Number) ?
-                (((Number) object).longValue()) :
-                (object.getClass() == String.class && _options.getCoercionMode() == CoercionMode.STRING_TO_PRIMITIVE) ?
-                  (new BigDecimal((String) object)).longValue() :
-                  object;
-          case FLOAT:
-            return
-              (object instanceof Number) ?
-                (((Number) object).floatValue()) :
-                (object.getClass() == String.class && _options.getCoercionMode() == CoercionMode.STRING_TO_PRIMITIVE) ?
-                  (new BigDecimal((String) object)).floatValue() :
-                  object;
-          case DOUBLE:
-            return
-              (object instanceof Number) ?
-                (((Number) object).doubleValue()) :
-                (object.getClass() == String.class && _options.getCoercionMode() == CoercionMode.STRING_TO_PRIMITIVE) ?
-                  (new BigDecimal((String) object)).doubleValue() :
-                  object;
-          case BOOLEAN:
-            if (object.getClass() == String.class && _options.getCoercionMode() == CoercionMode.STRING_TO_PRIMITIVE)
-            {
-              String string = (String) object;
-              if ("true".equalsIgnoreCase(string))
-              {
-                return Boolean.TRUE;
-              }
-              if ("false".equalsIgnoreCase(string))
-              {
-                return Boolean.FALSE;
-              }
-            }
-            return object;
-          case STRING:
-          case NULL:
-          default:
-            return object;
-        }
-      }
-      catch (NumberFormatException exc)
-      {
-        return object;
-      }
+      return ValidateDataAgainstSchema.fixupPrimitive(schema.getType(), object, _options.getCoercionMode());
     }
-    
+
     protected void addMessage(DataElement element, String format, Object... args)
     {
       _messages.add(new Message(element.path(), format, args));
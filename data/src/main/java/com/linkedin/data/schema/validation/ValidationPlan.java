@@ -0,0 +1,1017 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.schema.validation;
+
+
+import com.linkedin.data.ByteString;
+import com.linkedin.data.Data;
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+import com.linkedin.data.element.DataElement;
+import com.linkedin.data.element.MutableDataElement;
+import com.linkedin.data.element.SimpleDataElement;
+import com.linkedin.data.message.Message;
+import com.linkedin.data.message.MessageList;
+import com.linkedin.data.schema.ArrayDataSchema;
+import com.linkedin.data.schema.DataSchema;
+import com.linkedin.data.schema.DataSchemaConstants;
+import com.linkedin.data.schema.EnumDataSchema;
+import com.linkedin.data.schema.FixedDataSchema;
+import com.linkedin.data.schema.MapDataSchema;
+import com.linkedin.data.schema.RecordDataSchema;
+import com.linkedin.data.schema.TyperefDataSchema;
+import com.linkedin.data.schema.UnionDataSchema;
+import com.linkedin.data.schema.validator.Validator;
+import com.linkedin.data.schema.validator.ValidatorContext;
+import com.linkedin.data.template.DataTemplate;
+import com.linkedin.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * A {@link DataSchema} and the schema related {@link ValidationOptions} compiled into
+ * a validation plan that can be executed repeatedly against Data objects.
+ *
+ * <p>
+ * Validating with a plan gives the same {@link ValidationResult} as
+ * {@link ValidateDataAgainstSchema}, i.e. the same messages in the same order,
+ * the same fix-ups and the same calls to a {@link Validator}. The difference is
+ * that the schema tree is only walked once, when the plan is compiled. Each
+ * schema becomes a node that holds what is needed to check a value against it,
+ * e.g. record fields indexed by name, the required fields to check for the
+ * required mode of the options, enum symbols in a hash set and union members
+ * indexed by member key.
+ *
+ * <p>
+ * The coercion mode and the required mode of the options are compiled into the plan.
+ * The {@link ValidationOptions} passed to {@link #validate(Object, ValidationOptions, Validator)}
+ * is only used to provide validator parameters to the {@link Validator}, and must have
+ * the same coercion mode and required mode as the options used to compile the plan.
+ * Avro union mode is not compiled, plans compiled with Avro union mode delegate to
+ * {@link ValidateDataAgainstSchema}.
+ *
+ * <p>
+ * A plan is immutable and thread-safe.
+ */
+public final class ValidationPlan
+{
+  /**
+   * Maximum number of plans kept by {@link #forSchema(DataSchema, ValidationOptions)}.
+   * Once reached, the least recently used plan is evicted when a new plan is cached.
+   */
+  public static final int MAX_CACHED_PLANS = 1024;
+
+  private static final LruCache<CacheKey, ValidationPlan> _cache = new LruCache<CacheKey, ValidationPlan>(MAX_CACHED_PLANS);
+
+  /**
+   * Return a cached plan for the specified schema and options, compiling it if necessary.
+   *
+   * <p>
+   * Plans are cached by schema identity, coercion mode, required mode and Avro union mode.
+   * This is intended for schemas that live as long as the application, such as the
+   * schemas of generated data templates. At most {@link #MAX_CACHED_PLANS} plans are kept,
+   * the least recently used plans and their schemas are evicted first.
+   *
+   * @param schema provides the {@link DataSchema} to validate against.
+   * @param options provides the {@link ValidationOptions}.
+   * @return the plan.
+   */
+  public static ValidationPlan forSchema(DataSchema schema, ValidationOptions options)
+  {
+    CacheKey key = new CacheKey(schema, options);
+    ValidationPlan plan = _cache.get(key);
+    if (plan == null)
+    {
+      plan = compile(schema, options);
+      ValidationPlan existing = _cache.putIfAbsent(key, plan);
+      if (existing != null)
+      {
+        plan = existing;
+      }
+    }
+    return plan;
+  }
+
+  /**
+   * Compile a new plan for the specified schema and options.
+   *
+   * @param schema provides the {@link DataSchema} to validate against,
+   *               if null, validation always succeeds without fix-up.
+   * @param options provides the {@link ValidationOptions}.
+   * @return the plan.
+   */
+  public static ValidationPlan compile(DataSchema schema, ValidationOptions options)
+  {
+    return new ValidationPlan(schema, options);
+  }
+
+  private ValidationPlan(DataSchema schema, ValidationOptions options)
+  {
+    _schema = schema;
+    _coercionMode = options.getCoercionMode();
+    _requiredMode = options.getRequiredMode();
+    _avroUnionMode = options.isAvroUnionMode();
+    _root = (_avroUnionMode || schema == null) ? null : new Compiler().compile(schema);
+  }
+
+  /**
+   * @return the {@link DataSchema} of this plan.
+   */
+  public DataSchema getSchema()
+  {
+    return _schema;
+  }
+
+  public ValidationResult validate(DataTemplate<?> dataTemplate, ValidationOptions options)
+  {
+    return validate(dataTemplate.data(), options, null);
+  }
+
+  public ValidationResult validate(DataTemplate<?> dataTemplate, ValidationOptions options, Validator validator)
+  {
+    return validate(dataTemplate.data(), options, validator);
+  }
+
+  public ValidationResult validate(Object object, ValidationOptions options)
+  {
+    return validate(object, options, null);
+  }
+
+  /**
+   * Validate a Data object against the schema of this plan.
+   *
+   * @param object provides the Data object to validate.
+   * @param options provides the {@link ValidationOptions} passed to the {@link Validator}.
+   * @param validator provides the {@link Validator} to invoke, may be null.
+   * @return the {@link ValidationResult}.
+   * @throws IllegalArgumentException if the options do not match the options used to compile the plan.
+   */
+  public ValidationResult validate(Object object, ValidationOptions options, Validator validator)
+  {
+    if (options.getCoercionMode() != _coercionMode ||
+        options.getRequiredMode() != _requiredMode ||
+        options.isAvroUnionMode() != _avroUnionMode)
+    {
+      throw new IllegalArgumentException("Options " + options + " do not match options the plan is compiled with");
+    }
+    if (_avroUnionMode)
+    {
+      return ValidateDataAgainstSchema.validate(object, _schema, options, validator);
+    }
+    Execution execution = new Execution(options, validator, object);
+    if (_root != null)
+    {
+      execution.visit(_root, new SimpleDataElement(object, _schema), object, 0);
+    }
+    return execution;
+  }
+
+  private final DataSchema _schema;
+  private final CoercionMode _coercionMode;
+  private final RequiredMode _requiredMode;
+  private final boolean _avroUnionMode;
+  private final Node _root;
+
+  private static final class CacheKey
+  {
+    private CacheKey(DataSchema schema, ValidationOptions options)
+    {
+      _schema = schema;
+      _coercionMode = options.getCoercionMode();
+      _requiredMode = options.getRequiredMode();
+      _avroUnionMode = options.isAvroUnionMode();
+    }
+
+    @Override
+    public boolean equals(Object other)
+    {
+      if (other == null || other.getClass() != CacheKey.class)
+      {
+        return false;
+      }
+      CacheKey otherKey = (CacheKey) other;
+      return (otherKey._schema == _schema
+          && otherKey._coercionMode == _coercionMode
+          && otherKey._requiredMode == _requiredMode
+          && otherKey._avroUnionMode == _avroUnionMode);
+    }
+
+    @Override
+    public int hashCode()
+    {
+      int code = System.identityHashCode(_schema);
+      code = code * 31 + _coercionMode.hashCode();
+      code = code * 31 + _requiredMode.hashCode();
+      code = code * 31 + (_avroUnionMode ? 0 : 53);
+      return code;
+    }
+
+    private final DataSchema _schema;
+    private final CoercionMode _coercionMode;
+    private final RequiredMode _requiredMode;
+    private final boolean _avroUnionMode;
+  }
+
+  /**
+   * Builds the node for each schema reachable from the root schema.
+   *
+   * Nodes are created before their children are resolved so that recursive
+   * schemas compile to a cyclic graph of nodes.
+   */
+  private class Compiler
+  {
+    private Node compile(DataSchema schema)
+    {
+      Node node = _nodes.get(schema);
+      if (node != null)
+      {
+        return node;
+      }
+      switch (schema.getType())
+      {
+        case ARRAY:
+          ArrayNode arrayNode = new ArrayNode(schema);
+          _nodes.put(schema, arrayNode);
+          arrayNode._items = compile(((ArrayDataSchema) schema).getItems());
+          return arrayNode;
+        case BYTES:
+          node = new BytesNode(schema, _coercionMode);
+          break;
+        case ENUM:
+          node = new EnumNode((EnumDataSchema) schema);
+          break;
+        case FIXED:
+          node = new FixedNode((FixedDataSchema) schema, _coercionMode);
+          break;
+        case MAP:
+          MapNode mapNode = new MapNode(schema);
+          _nodes.put(schema, mapNode);
+          mapNode._values = compile(((MapDataSchema) schema).getValues());
+          return mapNode;
+        case RECORD:
+          return compileRecord((RecordDataSchema) schema);
+        case TYPEREF:
+          TyperefNode typerefNode = new TyperefNode(schema);
+          _nodes.put(schema, typerefNode);
+          typerefNode._ref = compile(((TyperefDataSchema) schema).getRef());
+          return typerefNode;
+        case UNION:
+          UnionNode unionNode = new UnionNode((UnionDataSchema) schema);
+          _nodes.put(schema, unionNode);
+          for (DataSchema memberSchema : ((UnionDataSchema) schema).getTypes())
+          {
+            unionNode._members.put(memberSchema.getUnionMemberKey(), compile(memberSchema));
+          }
+          return unionNode;
+        default:
+          node = new PrimitiveNode(schema, _coercionMode);
+          break;
+      }
+      _nodes.put(schema, node);
+      return node;
+    }
+
+    private Node compileRecord(RecordDataSchema schema)
+    {
+      List<RecordDataSchema.Field> requiredFields = new ArrayList<RecordDataSchema.Field>();
+      if (_requiredMode != RequiredMode.IGNORE)
+      {
+        for (RecordDataSchema.Field field : schema.getFields())
+        {
+          if (field.getOptional() == false &&
+              (_requiredMode != RequiredMode.CAN_BE_ABSENT_IF_HAS_DEFAULT || field.getDefault() == null))
+          {
+            requiredFields.add(field);
+          }
+        }
+      }
+      RecordNode recordNode = new RecordNode(schema, _requiredMode,
+                                             requiredFields.toArray(new RecordDataSchema.Field[requiredFields.size()]));
+      _nodes.put(schema, recordNode);
+      for (RecordDataSchema.Field field : schema.getFields())
+      {
+        recordNode._fields.put(field.getName(), compile(field.getType()));
+      }
+      return recordNode;
+    }
+
+    private final IdentityHashMap<DataSchema, Node> _nodes = new IdentityHashMap<DataSchema, Node>();
+  }
+
+  /**
+   * A compiled {@link DataSchema}.
+   */
+  private abstract static class Node
+  {
+    protected Node(DataSchema schema)
+    {
+      _schema = schema;
+    }
+
+    /**
+     * Check a value against the schema of this node, without visiting its children.
+     *
+     * @return the fixed value, or the value if it has not been fixed.
+     */
+    protected abstract Object check(Execution execution, DataElement element, Object value);
+
+    /**
+     * @return whether the entries of a {@link DataMap} value are validated against child nodes.
+     */
+    protected boolean hasMapChildren()
+    {
+      return false;
+    }
+
+    /**
+     * @return the node for an entry of a {@link DataMap} value, null if the entry is not validated.
+     */
+    protected Node mapChild(String key)
+    {
+      throw new IllegalStateException("Unknown dereferenced type " + _schema.getDereferencedType() + " for DataMap's schema " + _schema);
+    }
+
+    /**
+     * @return the node for the items of a {@link DataList} value, null if the items are not validated.
+     */
+    protected Node listChild()
+    {
+      return null;
+    }
+
+    protected final DataSchema _schema;
+  }
+
+  private static final class PrimitiveNode extends Node
+  {
+    private PrimitiveNode(DataSchema schema, CoercionMode coercionMode)
+    {
+      super(schema);
+      _type = schema.getType();
+      _primitiveClass = ValidateDataAgainstSchema._primitiveTypeToClassMap.get(_type);
+      _coercionMode = coercionMode;
+    }
+
+    @Override
+    protected Object check(Execution execution, DataElement element, Object value)
+    {
+      Object fixed = value;
+      if (value.getClass() != _primitiveClass)
+      {
+        if (_coercionMode != CoercionMode.OFF)
+        {
+          fixed = ValidateDataAgainstSchema.fixupPrimitive(_type, value, _coercionMode);
+          if (fixed == value)
+          {
+            execution.addMessage(element, "%1$s cannot be coerced to %2$s", String.valueOf(value), _primitiveClass.getSimpleName());
+          }
+        }
+        else
+        {
+          execution.addMessage(element, "%1$s is not backed by a %2$s", String.valueOf(value), _primitiveClass.getSimpleName());
+        }
+      }
+      return fixed;
+    }
+
+    private final DataSchema.Type _type;
+    private final Class<?> _primitiveClass;
+    private final CoercionMode _coercionMode;
+  }
+
+  private static final class BytesNode extends Node
+  {
+    private BytesNode(DataSchema schema, CoercionMode coercionMode)
+    {
+      super(schema);
+      _coercionMode = coercionMode;
+    }
+
+    @Override
+    protected Object check(Execution execution, DataElement element, Object value)
+    {
+      Object fixed = value;
+      Class<?> clazz = value.getClass();
+      if (clazz == String.class)
+      {
+        fixed = execution.checkStringAsBytes(element, (String) value, _coercionMode);
+      }
+      else if (clazz != ByteString.class)
+      {
+        execution.addMessage(element, "bytes type is not backed by a String or ByteString");
+      }
+      return fixed;
+    }
+
+    private final CoercionMode _coercionMode;
+  }
+
+  private static final class FixedNode extends Node
+  {
+    private FixedNode(FixedDataSchema schema, CoercionMode coercionMode)
+    {
+      super(schema);
+      _size = schema.getSize();
+      _coercionMode = coercionMode;
+    }
+
+    @Override
+    protected Object check(Execution execution, DataElement element, Object value)
+    {
+      Object fixed = value;
+      Class<?> clazz = value.getClass();
+      if (clazz == String.class)
+      {
+        String str = (String) value;
+        if (str.length() != _size)
+        {
+          execution.addMessage(element,
+                               "\"%1$s\" length (%2$d) is inconsistent with expected fixed size of %3$d",
+                               str,
+                               str.length(),
+                               _size);
+        }
+        else
+        {
+          fixed = execution.checkStringAsBytes(element, str, _coercionMode);
+        }
+      }
+      else if (clazz == ByteString.class)
+      {
+        ByteString bytes = (ByteString) value;
+        if (bytes.length() != _size)
+        {
+          execution.addMessage(element, "\"%1$s\" length (%2$d) is inconsistent with expected fixed size of %3$d", bytes, bytes.length(), _size);
+        }
+      }
+      else
+      {
+        execution.addMessage(element, "fixed type is not backed by a String or ByteString");
+      }
+      return fixed;
+    }
+
+    private final int _size;
+    private final CoercionMode _coercionMode;
+  }
+
+  private static final class EnumNode extends Node
+  {
+    private EnumNode(EnumDataSchema schema)
+    {
+      super(schema);
+      _symbols = new HashSet<String>(schema.getSymbols());
+    }
+
+    @Override
+    protected Object check(Execution execution, DataElement element, Object value)
+    {
+      if (value instanceof String)
+      {
+        if (_symbols.contains(value) == false)
+        {
+          execution.addMessage(element, "\"%1$s\" is not an enum symbol", value);
+        }
+      }
+      else
+      {
+        execution.addMessage(element, "enum type is not backed by a String");
+      }
+      return value;
+    }
+
+    private final Set<String> _symbols;
+  }
+
+  private static final class ArrayNode extends Node
+  {
+    private ArrayNode(DataSchema schema)
+    {
+      super(schema);
+    }
+
+    @Override
+    protected Object check(Execution execution, DataElement element, Object value)
+    {
+      if ((value instanceof DataList) == false)
+      {
+        execution.addMessage(element, "array type is not backed by a DataList");
+      }
+      return value;
+    }
+
+    @Override
+    protected Node listChild()
+    {
+      return _items;
+    }
+
+    private Node _items;
+  }
+
+  private static final class MapNode extends Node
+  {
+    private MapNode(DataSchema schema)
+    {
+      super(schema);
+    }
+
+    @Override
+    protected Object check(Execution execution, DataElement element, Object value)
+    {
+      if ((value instanceof DataMap) == false)
+      {
+        execution.addMessage(element, "map type is not backed by a DataMap");
+      }
+      return value;
+    }
+
+    @Override
+    protected boolean hasMapChildren()
+    {
+      return true;
+    }
+
+    @Override
+    protected Node mapChild(String key)
+    {
+      return _values;
+    }
+
+    private Node _values;
+  }
+
+  private static final class RecordNode extends Node
+  {
+    private RecordNode(RecordDataSchema schema, RequiredMode requiredMode, RecordDataSchema.Field[] requiredFields)
+    {
+      super(schema);
+      _requiredMode = requiredMode;
+      _requiredFields = requiredFields;
+    }
+
+    @Override
+    protected Object check(Execution execution, DataElement element, Object value)
+    {
+      if (value instanceof DataMap)
+      {
+        DataMap map = (DataMap) value;
+        for (RecordDataSchema.Field field : _requiredFields)
+        {
+          if (map.containsKey(field.getName()) == false)
+          {
+            checkAbsentField(execution, element, map, field);
+          }
+        }
+      }
+      else
+      {
+        execution.addMessage(element, "record type is not backed by a DataMap");
+      }
+      return value;
+    }
+
+    private void checkAbsentField(Execution execution, DataElement element, DataMap map, RecordDataSchema.Field field)
+    {
+      switch (_requiredMode)
+      {
+        case MUST_BE_PRESENT:
+          execution.addIsRequiredMessage(element, field, "field is required but not found");
+          break;
+        case CAN_BE_ABSENT_IF_HAS_DEFAULT:
+          // only fields without default value are compiled into the required fields
+          execution.addIsRequiredMessage(element, field, "field is required but not found and has no default value");
+          break;
+        case FIXUP_ABSENT_WITH_DEFAULT:
+          Object defaultValue = field.getDefault();
+          if (defaultValue == null)
+          {
+            execution.addIsRequiredMessage(element, field, "field is required but not found and has no default value");
+          }
+          else if (map.isReadOnly())
+          {
+            execution._hasFix = true;
+            execution._hasFixupReadOnlyError = true;
+            execution.addIsRequiredMessage(
+              element, field,
+              "field is required and has default value but not found and cannot be fixed because DataMap of record is read-only"
+            );
+          }
+          else
+          {
+            execution._hasFix = true;
+            map.put(field.getName(), defaultValue);
+          }
+          break;
+        default:
+          break;
+      }
+    }
+
+    @Override
+    protected boolean hasMapChildren()
+    {
+      return true;
+    }
+
+    @Override
+    protected Node mapChild(String key)
+    {
+      return _fields.get(key);
+    }
+
+    private final RequiredMode _requiredMode;
+    private final RecordDataSchema.Field[] _requiredFields;
+    private final Map<String, Node> _fields = new HashMap<String, Node>();
+  }
+
+  private static final class UnionNode extends Node
+  {
+    private UnionNode(UnionDataSchema schema)
+    {
+      super(schema);
+      _hasNullMember = schema.getType(DataSchemaConstants.NULL_TYPE) != null;
+    }
+
+    @Override
+    protected Object check(Execution execution, DataElement element, Object value)
+    {
+      if (value == Data.NULL)
+      {
+        if (_hasNullMember == false)
+        {
+          execution.addMessage(element, "null is not a member type of union %1$s", _schema);
+        }
+      }
+      else if (value instanceof DataMap)
+      {
+        DataMap map = (DataMap) value;
+        if (map.size() != 1)
+        {
+          execution.addMessage(element, "DataMap should have exactly one entry for a union type");
+        }
+        else
+        {
+          String key = map.keySet().iterator().next();
+          if (_members.containsKey(key) == false)
+          {
+            execution.addMessage(element, "\"%1$s\" is not a member type of union %2$s", key, _schema);
+          }
+        }
+      }
+      else
+      {
+        execution.addMessage(element, "union type is not backed by a DataMap or null");
+      }
+      return value;
+    }
+
+    @Override
+    protected boolean hasMapChildren()
+    {
+      return true;
+    }
+
+    @Override
+    protected Node mapChild(String key)
+    {
+      return _members.get(key);
+    }
+
+    private final boolean _hasNullMember;
+    private final Map<String, Node> _members = new HashMap<String, Node>();
+  }
+
+  private static final class TyperefNode extends Node
+  {
+    private TyperefNode(DataSchema schema)
+    {
+      super(schema);
+    }
+
+    @Override
+    protected Object check(Execution execution, DataElement element, Object value)
+    {
+      // like ValidateDataAgainstSchema, each typeref level applies the fix-up of the referenced type.
+      return execution.checkAndFix(_ref, element, value);
+    }
+
+    @Override
+    protected boolean hasMapChildren()
+    {
+      return _ref.hasMapChildren();
+    }
+
+    @Override
+    protected Node mapChild(String key)
+    {
+      return _ref.hasMapChildren() ? _ref.mapChild(key) : super.mapChild(key);
+    }
+
+    // items of a DataList are not validated if its schema is a typeref, same as ObjectIterator.
+
+    private Node _ref;
+  }
+
+  /**
+   * State of a single validation, which is also its {@link ValidationResult}.
+   */
+  private static final class Execution implements ValidationResult
+  {
+    private Execution(ValidationOptions options, Validator validator, Object object)
+    {
+      _options = options;
+      _validator = validator;
+      _context = (validator == null ? null : new Context());
+      _fixed = object;
+    }
+
+    /**
+     * Validate the children of a value then the value itself, in the same
+     * post-order as {@link com.linkedin.data.it.ObjectIterator}.
+     *
+     * @param depth provides the depth of the element, 0 for the root.
+     */
+    private void visit(Node node, DataElement element, Object value, int depth)
+    {
+      Class<?> clazz = value.getClass();
+      if (clazz == DataMap.class)
+      {
+        MutableDataElement childElement = null;
+        for (Map.Entry<String, Object> entry : ((DataMap) value).entrySet())
+        {
+          String key = entry.getKey();
+          Node childNode = node.mapChild(key);
+          if (childNode != null)
+          {
+            if (childElement == null)
+            {
+              childElement = childElement(element, depth + 1);
+            }
+            Object childValue = entry.getValue();
+            childElement.setValueNameSchema(childValue, key, childNode._schema);
+            visit(childNode, childElement, childValue, depth + 1);
+          }
+        }
+      }
+      else if (clazz == DataList.class)
+      {
+        Node childNode = node.listChild();
+        if (childNode != null)
+        {
+          DataList list = (DataList) value;
+          int size = list.size();
+          if (size > 0)
+          {
+            MutableDataElement childElement = childElement(element, depth + 1);
+            for (int index = 0; index < size; index++)
+            {
+              Object childValue = list.get(index);
+              childElement.setValueNameSchema(childValue, index, childNode._schema);
+              visit(childNode, childElement, childValue, depth + 1);
+            }
+          }
+        }
+      }
+
+      Object fixed = checkAndFix(node, element, value);
+      if (_validator != null)
+      {
+        DataElement validatorElement;
+        if (fixed == value)
+        {
+          validatorElement = element;
+        }
+        else if (element instanceof MutableDataElement)
+        {
+          ((MutableDataElement) element).setValue(fixed);
+          validatorElement = element;
+        }
+        else
+        {
+          validatorElement = new SimpleDataElement(fixed, element.getName(), node._schema, element.getParent());
+        }
+        _context._dataElement = validatorElement;
+        _validator.validate(_context);
+      }
+    }
+
+    /**
+     * Return the reusable element for the children of the element at {@code depth - 1}.
+     * Like {@link com.linkedin.data.it.ObjectIterator}, siblings share the same element.
+     */
+    private MutableDataElement childElement(DataElement parent, int depth)
+    {
+      int index = depth - 1;
+      if (index == _childElements.size())
+      {
+        _childElements.add(new MutableDataElement(parent));
+      }
+      return _childElements.get(index);
+    }
+
+    private Object checkAndFix(Node node, DataElement element, Object value)
+    {
+      Object fixed = node.check(this, element, value);
+      if (fixed != value)
+      {
+        fixValue(element, fixed);
+      }
+      return fixed;
+    }
+
+    private Object checkStringAsBytes(DataElement element, String str, CoercionMode coercionMode)
+    {
+      Object fixed = str;
+      boolean error = false;
+      if (coercionMode != CoercionMode.OFF)
+      {
+        ByteString bytes = ByteString.copyAvroString(str, true);
+        if (bytes != null)
+        {
+          _hasFix = true;
+          fixed = bytes;
+        }
+        else
+        {
+          error = true;
+        }
+      }
+      else
+      {
+        error = ! Data.validStringAsBytes(str);
+      }
+      if (error)
+      {
+        addMessage(element, "\"%1$s\" is not a valid string representation of bytes", str);
+      }
+      return fixed;
+    }
+
+    private void fixValue(DataElement element, Object fixed)
+    {
+      _hasFix = true;
+      DataElement parentElement = element.getParent();
+      if (parentElement == null)
+      {
+        _fixed = fixed;
+      }
+      else
+      {
+        Object parent = parentElement.getValue();
+        if (parent.getClass() == DataMap.class)
+        {
+          DataMap map = (DataMap) parent;
+          if (map.isReadOnly())
+          {
+            _hasFixupReadOnlyError = true;
+            addMessage(element, "cannot be fixed because DataMap backing %1$s type is read-only", parentElement.getSchema().getUnionMemberKey());
+          }
+          else
+          {
+            map.put((String) element.getName(), fixed);
+          }
+        }
+        else if (parent.getClass() == DataList.class)
+        {
+          DataList list = (DataList) parent;
+          if (list.isReadOnly())
+          {
+            _hasFixupReadOnlyError = true;
+            addMessage(element, "cannot be fixed because DataList backing an array type is read-only");
+          }
+          else
+          {
+            list.set((Integer) element.getName(), fixed);
+          }
+        }
+      }
+    }
+
+    private void addMessage(DataElement element, String format, Object... args)
+    {
+      _messages.add(new Message(element.path(), format, args));
+      _valid = false;
+    }
+
+    private void addIsRequiredMessage(DataElement element, RecordDataSchema.Field field, String msg)
+    {
+      _messages.add(new Message(element.path(field.getName()), msg));
+      _valid = false;
+    }
+
+    @Override
+    public boolean hasFix()
+    {
+      return _hasFix;
+    }
+
+    @Override
+    public boolean hasFixupReadOnlyError()
+    {
+      return _hasFixupReadOnlyError;
+    }
+
+    @Override
+    public Object getFixed()
+    {
+      return _fixed;
+    }
+
+    @Override
+    public boolean isValid()
+    {
+      return _valid;
+    }
+
+    @Override
+    public Collection<Message> getMessages()
+    {
+      return Collections.unmodifiableList(_messages);
+    }
+
+    @Override
+    public String toString()
+    {
+      StringBuilder sb = new StringBuilder();
+      sb.append("hasFix=").append(_hasFix)
+        .append(", hasFixupReadOnlyError=").append(_hasFixupReadOnlyError)
+        .append(", valid=").append(_valid).append("\n")
+        .append("fixed=").append(_fixed).append("\n");
+      _messages.appendTo(sb);
+      return sb.toString();
+    }
+
+    private final ValidationOptions _options;
+    private final Validator _validator;
+    private final Context _context;
+    private final List<MutableDataElement> _childElements = new ArrayList<MutableDataElement>(4);
+    private final MessageList<Message> _messages = new MessageList<Message>();
+    private boolean _hasFix = false;
+    private boolean _hasFixupReadOnlyError = false;
+    private Object _fixed;
+    private boolean _valid = true;
+
+    private class Context implements ValidatorContext
+    {
+      private DataElement _dataElement;
+
+      @Override
+      public DataElement dataElement()
+      {
+        return _dataElement;
+      }
+
+      @Override
+      public void addResult(Message message)
+      {
+        _messages.add(message);
+        if (message.isError())
+        {
+          _valid = false;
+        }
+      }
+
+      @Override
+      public void setHasFix(boolean value)
+      {
+        _hasFix = value;
+      }
+
+      @Override
+      public void setHasFixupReadOnlyError(boolean value)
+      {
+        _hasFixupReadOnlyError = value;
+      }
+
+      @Override
+      public ValidationOptions validationOptions()
+      {
+        return _options;
+      }
+    }
+  }
+}
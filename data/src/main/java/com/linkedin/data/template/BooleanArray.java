@@ -44,11 +44,51 @@ public final class BooleanArray extends DirectArrayTemplate<Boolean>
     addAll(c);
   }
 
+  /**
+   * Construct an array with the specified values, the values are stored without boxing.
+   *
+   * @param values provides the initial values of the array.
+   */
+  public BooleanArray(boolean[] values)
+  {
+    this(DataList.withPrimitiveStorage(values.length));
+    for (boolean value : values)
+    {
+      _list.addBoolean(value);
+    }
+  }
+
   public BooleanArray(DataList list)
   {
     super(list, SCHEMA, Boolean.class, Boolean.class);
   }
 
+  /**
+   * Returns the element at the specified position as a boolean.
+   *
+   * The element is not boxed if the underlying {@link DataList} stores its elements
+   * without boxing, see {@link DataList#withPrimitiveStorage(int)}.
+   *
+   * @param index of the element to return.
+   * @return the element at the specified position as a boolean.
+   * @throws TemplateOutputCastException if the element cannot be coerced to a boolean.
+   */
+  public boolean getBoolean(int index) throws TemplateOutputCastException
+  {
+    return _list.getPrimitiveElementClass() == Boolean.class ? _list.getBoolean(index) : get(index);
+  }
+
+  /**
+   * Appends a boolean to the end of the array, without boxing it if the underlying
+   * {@link DataList} stores its elements without boxing.
+   *
+   * @param value to be appended.
+   */
+  public void addBoolean(boolean value)
+  {
+    _list.addBoolean(value);
+  }
+
   @Override
   public BooleanArray clone() throws CloneNotSupportedException
   {
@@ -44,11 +44,69 @@ public final class DoubleArray extends DirectArrayTemplate<Double>
     addAll(c);
   }
 
+  /**
+   * Construct an array with the specified values, the values are stored without boxing.
+   *
+   * @param values provides the initial values of the array.
+   */
+  public DoubleArray(double[] values)
+  {
+    this(DataList.withPrimitiveStorage(values.length));
+    for (double value : values)
+    {
+      _list.addDouble(value);
+    }
+  }
+
   public DoubleArray(DataList list)
   {
     super(list, SCHEMA, Double.class, Double.class);
   }
 
+  /**
+   * Returns the element at the specified position as a double.
+   *
+   * The element is not boxed if the underlying {@link DataList} stores its elements
+   * without boxing, see {@link DataList#withPrimitiveStorage(int)}. This includes float,
+   * int and long elements, which are coerced to a double like {@link #get(int)} does.
+   *
+   * @param index of the element to return.
+   * @return the element at the specified position as a double.
+   * @throws TemplateOutputCastException if the element cannot be coerced to a double.
+   */
+  public double getDouble(int index) throws TemplateOutputCastException
+  {
+    Class<?> elementClass = _list.getPrimitiveElementClass();
+    if (elementClass == Double.class)
+    {
+      return _list.getDouble(index);
+    }
+    else if (elementClass == Float.class)
+    {
+      return _list.getFloat(index);
+    }
+    else if (elementClass == Integer.class)
+    {
+      return _list.getInt(index);
+    }
+    else if (elementClass == Long.class)
+    {
+      return _list.getLong(index);
+    }
+    return get(index);
+  }
+
+  /**
+   * Appends a double to the end of the array, without boxing it if the underlying
+   * {@link DataList} stores its elements without boxing.
+   *
+   * @param value to be appended.
+   */
+  public void addDouble(double value)
+  {
+    _list.addDouble(value);
+  }
+
   @Override
   public DoubleArray clone() throws CloneNotSupportedException
   {
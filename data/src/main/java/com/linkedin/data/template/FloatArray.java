@@ -44,11 +44,70 @@ public final class FloatArray extends DirectArrayTemplate<Float>
     addAll(c);
   }
 
+  /**
+   * Construct an array with the specified values, the values are stored without boxing.
+   *
+   * @param values provides the initial values of the array.
+   */
+  public FloatArray(float[] values)
+  {
+    this(DataList.withPrimitiveStorage(values.length));
+    for (float value : values)
+    {
+      _list.addFloat(value);
+    }
+  }
+
   public FloatArray(DataList list)
   {
     super(list, SCHEMA, Float.class, Float.class);
   }
 
+  /**
+   * Returns the element at the specified position as a float.
+   *
+   * The element is not boxed if the underlying {@link DataList} stores its elements
+   * without boxing, see {@link DataList#withPrimitiveStorage(int)}. This includes double,
+   * int and long elements, such as those decoded from JSON, which are coerced to a float
+   * like {@link #get(int)} does.
+   *
+   * @param index of the element to return.
+   * @return the element at the specified position as a float.
+   * @throws TemplateOutputCastException if the element cannot be coerced to a float.
+   */
+  public float getFloat(int index) throws TemplateOutputCastException
+  {
+    Class<?> elementClass = _list.getPrimitiveElementClass();
+    if (elementClass == Float.class)
+    {
+      return _list.getFloat(index);
+    }
+    else if (elementClass == Double.class)
+    {
+      return (float) _list.getDouble(index);
+    }
+    else if (elementClass == Integer.class)
+    {
+      return _list.getInt(index);
+    }
+    else if (elementClass == Long.class)
+    {
+      return _list.getLong(index);
+    }
+    return get(index);
+  }
+
+  /**
+   * Appends a float to the end of the array, without boxing it if the underlying
+   * {@link DataList} stores its elements without boxing.
+   *
+   * @param value to be appended.
+   */
+  public void addFloat(float value)
+  {
+    _list.addFloat(value);
+  }
+
   @Override
   public FloatArray clone() throws CloneNotSupportedException
   {
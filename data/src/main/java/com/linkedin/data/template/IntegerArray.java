@@ -44,11 +44,51 @@ public final class IntegerArray extends DirectArrayTemplate<Integer>
     addAll(c);
   }
 
+  /**
+   * Construct an array with the specified values, the values are stored without boxing.
+   *
+   * @param values provides the initial values of the array.
+   */
+  public IntegerArray(int[] values)
+  {
+    this(DataList.withPrimitiveStorage(values.length));
+    for (int value : values)
+    {
+      _list.addInt(value);
+    }
+  }
+
   public IntegerArray(DataList list)
   {
     super(list, SCHEMA, Integer.class, Integer.class);
   }
 
+  /**
+   * Returns the element at the specified position as an int.
+   *
+   * The element is not boxed if the underlying {@link DataList} stores its elements
+   * without boxing, see {@link DataList#withPrimitiveStorage(int)}.
+   *
+   * @param index of the element to return.
+   * @return the element at the specified position as an int.
+   * @throws TemplateOutputCastException if the element cannot be coerced to an int.
+   */
+  public int getInt(int index) throws TemplateOutputCastException
+  {
+    return _list.getPrimitiveElementClass() == Integer.class ? _list.getInt(index) : get(index);
+  }
+
+  /**
+   * Appends an int to the end of the array, without boxing it if the underlying
+   * {@link DataList} stores its elements without boxing.
+   *
+   * @param value to be appended.
+   */
+  public void addInt(int value)
+  {
+    _list.addInt(value);
+  }
+
   @Override
   public IntegerArray clone() throws CloneNotSupportedException
   {
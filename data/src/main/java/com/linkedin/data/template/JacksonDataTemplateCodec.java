@@ -55,6 +55,7 @@ public class JacksonDataTemplateCodec extends JacksonDataCodec
     super(jsonFactory);
   }
 
+  @SuppressWarnings("deprecation")
   protected void writeDataTemplate(Object data,
                                    DataSchema schema,
                                    JsonGenerator generator,
@@ -101,11 +102,13 @@ public class JacksonDataTemplateCodec extends JacksonDataCodec
     writeDataTemplate(data, schema, generator, order);
   }
 
+  @SuppressWarnings("deprecation")
   public void writeDataTemplate(DataTemplate<?> template, OutputStream out) throws IOException
   {
     writeObject(template.data(), createJsonGenerator(out));
   }
 
+  @SuppressWarnings("deprecation")
   public void writeDataTemplate(DataTemplate<?> template, Writer out) throws IOException
   {
     writeObject(template.data(), createJsonGenerator(out));
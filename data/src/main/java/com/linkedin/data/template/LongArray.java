@@ -44,11 +44,62 @@ public final class LongArray extends DirectArrayTemplate<Long>
     addAll(c);
   }
 
+  /**
+   * Construct an array with the specified values, the values are stored without boxing.
+   *
+   * @param values provides the initial values of the array.
+   */
+  public LongArray(long[] values)
+  {
+    this(DataList.withPrimitiveStorage(values.length));
+    for (long value : values)
+    {
+      _list.addLong(value);
+    }
+  }
+
   public LongArray(DataList list)
   {
     super(list, SCHEMA, Long.class, Long.class);
   }
 
+  /**
+   * Returns the element at the specified position as a long.
+   *
+   * The element is not boxed if the underlying {@link DataList} stores its elements
+   * without boxing, see {@link DataList#withPrimitiveStorage(int)}. This includes int
+   * elements, such as those decoded from JSON values that fit in an int, which are
+   * coerced to a long like {@link #get(int)} does.
+   *
+   * @param index of the element to return.
+   * @return the element at the specified position as a long.
+   * @throws TemplateOutputCastException if the element cannot be coerced to a long.
+   */
+  public long getLong(int index) throws TemplateOutputCastException
+  {
+    Class<?> elementClass = _list.getPrimitiveElementClass();
+    if (elementClass == Long.class)
+    {
+      return _list.getLong(index);
+    }
+    else if (elementClass == Integer.class)
+    {
+      return _list.getInt(index);
+    }
+    return get(index);
+  }
+
+  /**
+   * Appends a long to the end of the array, without boxing it if the underlying
+   * {@link DataList} stores its elements without boxing.
+   *
+   * @param value to be appended.
+   */
+  public void addLong(long value)
+  {
+    _list.addLong(value);
+  }
+
   @Override
   public LongArray clone() throws CloneNotSupportedException
   {
@@ -0,0 +1,184 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.util;
+
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * A thread-safe cache holding at most a given number of entries. Once full, adding an entry
+ * evicts the least recently used entries, down to 90% of the maximum size, so that finding them
+ * is amortized over the additions until the cache is full again. A cache of fewer than 10
+ * entries evicts a single entry.
+ *
+ * <p>
+ * Reads do not lock. Each entry is stamped with a clock that only advances when an entry
+ * is added, and a read restamps the entry with the current clock. The entry evicted is one
+ * with the oldest stamp, so recency is exact with respect to additions, while the entries read
+ * between two additions are considered equally recent. A read of an entry that has not become
+ * older since it was last read does not write at all, which keeps the steady state, where all
+ * the entries are cached, free of writes to shared memory.
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the values.
+ */
+public class LruCache<K, V>
+{
+  /**
+   * @param maxSize the maximum number of entries kept by the cache.
+   */
+  public LruCache(final int maxSize)
+  {
+    if (maxSize < 0)
+    {
+      throw new IllegalArgumentException("maxSize must not be negative: " + maxSize);
+    }
+    _maxSize = maxSize;
+    _trimmedSize = maxSize - maxSize / 10;
+    _entries = new ConcurrentHashMap<K, Entry<V>>();
+  }
+
+  /**
+   * @return the value of the key, or null if it is not cached.
+   */
+  public V get(K key)
+  {
+    Entry<V> entry = _entries.get(key);
+    if (entry == null)
+    {
+      return null;
+    }
+    long now = _clock.get();
+    if (entry._stamp != now)
+    {
+      entry._stamp = now;
+    }
+    return entry._value;
+  }
+
+  /**
+   * Caches the value of the key, unless the key already has a value. A cache with a maximum size
+   * of 0 caches nothing, and returns the given value.
+   *
+   * @return the value already cached for the key, null if the given value was cached, or the given
+   *         value if the cache keeps no entries.
+   */
+  public V putIfAbsent(K key, V value)
+  {
+    if (_maxSize == 0)
+    {
+      return value;
+    }
+    Entry<V> existing = _entries.putIfAbsent(key, new Entry<V>(value, _clock.getAndIncrement()));
+    if (existing != null)
+    {
+      return existing._value;
+    }
+    if (_entries.size() > _maxSize)
+    {
+      evict();
+    }
+    return null;
+  }
+
+  /**
+   * @return the number of entries in the cache.
+   */
+  public int size()
+  {
+    return _entries.size();
+  }
+
+  /**
+   * @return the maximum number of entries kept by the cache.
+   */
+  public int getMaxSize()
+  {
+    return _maxSize;
+  }
+
+  private synchronized void evict()
+  {
+    int size = _entries.size();
+    if (size <= _maxSize)
+    {
+      // trimmed by a concurrent addition
+      return;
+    }
+
+    long[] stamps = new long[size];
+    int count = 0;
+    for (Entry<V> entry : _entries.values())
+    {
+      if (count == stamps.length)
+      {
+        stamps = Arrays.copyOf(stamps, count * 2);
+      }
+      stamps[count++] = entry._stamp;
+    }
+    int evictions = count - _trimmedSize;
+    if (evictions <= 0)
+    {
+      return;
+    }
+    Arrays.sort(stamps, 0, count);
+    long newest = stamps[evictions - 1];
+
+    // the entries older than the newest one evicted, then as many entries of its stamp as
+    // needed; entries read meanwhile are restamped and kept
+    for (Iterator<Entry<V>> it = _entries.values().iterator(); it.hasNext() && evictions > 0;)
+    {
+      if (it.next()._stamp < newest)
+      {
+        it.remove();
+        evictions--;
+      }
+    }
+    for (Iterator<Entry<V>> it = _entries.values().iterator(); it.hasNext() && evictions > 0;)
+    {
+      if (it.next()._stamp == newest)
+      {
+        it.remove();
+        evictions--;
+      }
+    }
+  }
+
+  private static final class Entry<V>
+  {
+    private Entry(V value, long stamp)
+    {
+      _value = value;
+      _stamp = stamp;
+    }
+
+    private final V _value;
+    private volatile long _stamp;
+  }
+
+  private final int _maxSize;
+  // the number of entries kept by an eviction
+  private final int _trimmedSize;
+  private final ConcurrentMap<K, Entry<V>> _entries;
+  private final AtomicLong _clock = new AtomicLong();
+}
@@ -257,4 +257,100 @@ public class TestByteString
     // large byte strings should have constant size toString()
     Assert.assertTrue(ByteString.copy(bytes).toString().length() < 100);
   }
+
+  @Test
+  public void testUnsafeWrap()
+  {
+    final byte[] bytes = new byte[] {0,1,2,3,4,5};
+    final ByteString bs = ByteString.unsafeWrap(bytes, 1, 4);
+    Assert.assertEquals(bs.length(), 4);
+    Assert.assertEquals(bs, ByteString.copy(new byte[] {1,2,3,4}));
+    Assert.assertEquals(bs.hashCode(), Arrays.hashCode(new byte[] {1,2,3,4}));
+
+    // wrapped bytes are not copied
+    bytes[1] = 50;
+    Assert.assertEquals(bs.copyBytes(), new byte[] {50,2,3,4});
+
+    Assert.assertSame(ByteString.unsafeWrap(bytes, 3, 0), ByteString.empty());
+  }
+
+  @Test
+  public void testUnsafeWrapDirectBuffer() throws IOException
+  {
+    final ByteBuffer direct = ByteBuffer.allocateDirect(4);
+    direct.put(new byte[] {1,2,3,4});
+    direct.flip();
+    final ByteString bs = ByteString.unsafeWrap(direct);
+
+    // position of the supplied buffer is not changed
+    Assert.assertEquals(direct.remaining(), 4);
+
+    Assert.assertEquals(bs, ByteString.copy(new byte[] {1,2,3,4}));
+    Assert.assertEquals(bs.asString(Data.UTF_8_CHARSET), new String(new byte[] {1,2,3,4}, Data.UTF_8_CHARSET));
+    Assert.assertTrue(bs.asByteBuffer().isReadOnly());
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    bs.write(out);
+    Assert.assertEquals(out.toByteArray(), new byte[] {1,2,3,4});
+  }
+
+  @Test
+  public void testConcat() throws IOException
+  {
+    final ByteBuffer direct = ByteBuffer.allocateDirect(2);
+    direct.put(new byte[] {3,4});
+    direct.flip();
+    final ByteString bs = ByteString.concat(ByteString.copy(new byte[] {1,2}),
+                                            ByteString.empty(),
+                                            ByteString.unsafeWrap(direct),
+                                            ByteString.unsafeWrap(new byte[] {0,5,6}, 1, 2));
+    final byte[] expected = new byte[] {1,2,3,4,5,6};
+
+    Assert.assertEquals(bs.length(), expected.length);
+    Assert.assertEquals(bs.asByteBuffers().size(), 3);
+    Assert.assertEquals(bs, ByteString.copy(expected));
+    Assert.assertEquals(ByteString.copy(expected), bs);
+    Assert.assertEquals(bs.hashCode(), ByteString.copy(expected).hashCode());
+    Assert.assertEquals(bs.copyBytes(), expected);
+    Assert.assertEquals(bs.asAvroString(), ByteString.copy(expected).asAvroString());
+    Assert.assertEquals(bs.toString(), ByteString.copy(expected).toString());
+
+    final ByteBuffer buf = bs.asByteBuffer();
+    Assert.assertTrue(buf.isReadOnly());
+    final byte[] fromBuffer = new byte[buf.remaining()];
+    buf.get(fromBuffer);
+    Assert.assertEquals(fromBuffer, expected);
+
+    final InputStream in = bs.asInputStream();
+    Assert.assertEquals(in.available(), expected.length);
+    final byte[] fromStream = new byte[expected.length];
+    Assert.assertEquals(in.read(fromStream, 0, 3), 3);
+    Assert.assertEquals(in.read(), 4);
+    Assert.assertEquals(in.read(fromStream, 4, 10), 2);
+    Assert.assertEquals(in.read(), -1);
+    fromStream[3] = 4;
+    Assert.assertEquals(fromStream, expected);
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    bs.write(out);
+    Assert.assertEquals(out.toByteArray(), expected);
+  }
+
+  @Test
+  public void testSlice()
+  {
+    final ByteString bs = ByteString.concat(ByteString.copy(new byte[] {1,2,3}), ByteString.copy(new byte[] {4,5,6}));
+
+    Assert.assertSame(bs.slice(0, 6), bs);
+    Assert.assertSame(bs.slice(2, 0), ByteString.empty());
+    Assert.assertEquals(bs.slice(1, 4), ByteString.copy(new byte[] {2,3,4,5}));
+    Assert.assertEquals(bs.slice(3, 3), ByteString.copy(new byte[] {4,5,6}));
+    Assert.assertEquals(bs.slice(3, 3).asByteBuffers().size(), 1);
+  }
+
+  @Test(expectedExceptions = IndexOutOfBoundsException.class)
+  public void testSliceOutOfBounds()
+  {
+    ByteString.copy(new byte[] {1,2,3}).slice(2, 2);
+  }
 }
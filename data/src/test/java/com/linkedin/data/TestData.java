@@ -22,6 +22,8 @@ import com.linkedin.data.codec.BsonDataCodec;
 import com.linkedin.data.codec.DataCodec;
 import com.linkedin.data.codec.DataDecodingException;
 import com.linkedin.data.codec.JacksonDataCodec;
+import com.linkedin.data.codec.NonBlockingDataCodec;
+import com.linkedin.data.codec.NonBlockingDataDecoder;
 import com.linkedin.data.codec.PsonDataCodec;
 import com.linkedin.data.codec.TextDataCodec;
 import com.linkedin.data.collections.CheckedMap;
@@ -40,6 +42,7 @@ import java.io.StringReader;
 import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -1168,6 +1171,18 @@ public class TestData
     assertEquivalent(map3, map);
     assertEquivalent(map3, map2);
 
+    // test non-blocking decoding
+
+    if (codec instanceof NonBlockingDataCodec)
+    {
+      NonBlockingDataCodec nonBlockingCodec = (NonBlockingDataCodec) codec;
+      for (int chunkSize : NON_BLOCKING_CHUNK_SIZES)
+      {
+        DataMap map6 = feedInChunks(nonBlockingCodec.createMapDecoder(), bytes, chunkSize);
+        assertEquivalent(map6, map);
+      }
+    }
+
     if (codec instanceof TextDataCodec)
     {
       TextDataCodec textCodec = (TextDataCodec) codec;
@@ -1235,6 +1250,17 @@ public class TestData
 
     assertEquals(sb3.toString(), sb1.toString());
 
+    // test non-blocking decoding
+
+    if (codec instanceof NonBlockingDataCodec)
+    {
+      NonBlockingDataCodec nonBlockingCodec = (NonBlockingDataCodec) codec;
+      for (int chunkSize : NON_BLOCKING_CHUNK_SIZES)
+      {
+        DataList list6 = feedInChunks(nonBlockingCodec.createListDecoder(), bytes, chunkSize);
+        assertEquivalent(list6, list);
+      }
+    }
 
     if (codec instanceof TextDataCodec)
     {
@@ -1267,6 +1293,36 @@ public class TestData
     }
   }
 
+  private static final int[] NON_BLOCKING_CHUNK_SIZES = { 1, 2, 3, 7, 64, Integer.MAX_VALUE };
+
+  /**
+   * Feed the bytes to the decoder in chunks of the given size, alternating between
+   * byte array and direct {@link ByteBuffer} input.
+   */
+  private static <T extends DataComplex> T feedInChunks(NonBlockingDataDecoder<T> decoder, byte[] bytes, int chunkSize)
+    throws IOException
+  {
+    boolean useByteBuffer = false;
+    for (int offset = 0; offset < bytes.length; offset += chunkSize)
+    {
+      int length = Math.min(chunkSize, bytes.length - offset);
+      if (useByteBuffer)
+      {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+        buffer.put(bytes, offset, length);
+        buffer.flip();
+        decoder.feed(buffer);
+        assertFalse(buffer.hasRemaining());
+      }
+      else
+      {
+        decoder.feed(bytes, offset, length);
+      }
+      useByteBuffer = !useByteBuffer;
+    }
+    return decoder.complete();
+  }
+
   public void testDataCodec(DataCodec codec) throws IOException
   {
     // out.println(codec.getClass().getName());
@@ -1325,6 +1381,56 @@ public class TestData
     assertEquals(encoding, JsonEncoding.UTF8.getJavaName());
   }
 
+  @Test
+  public void testJacksonNonBlockingDecoder() throws IOException
+  {
+    JacksonDataCodec codec = new JacksonDataCodec();
+
+    String json = "/* abc */ { \"a\" : null, \"b\" : 123456789012345678901234567890, // def\n" +
+      "\"c\" : [ true, false, -1.5e3, 2147483648, \"\\u00e9\u00e9\\\"\" ], \"a\" : 1, " +
+      "\"d\" : { \"e\" : [ 1, 123456789012345678901234567890 ] } }";
+    byte[] bytes = json.getBytes(Data.UTF_8_CHARSET);
+    for (int chunkSize : NON_BLOCKING_CHUNK_SIZES)
+    {
+      DataMap map = feedInChunks(codec.createMapDecoder(), bytes, chunkSize);
+      assertEquals(map.get("a"), 1);
+      assertFalse(map.containsKey("b"));
+      assertEquals(map.getDataList("c"), new DataList(Arrays.asList(true, false, -1500.0, 2147483648L, "\u00e9\u00e9\"")));
+      assertEquals(map.getDataMap("d").getDataList("e"), new DataList(Arrays.asList(1)));
+      assertTrue(map.getError().indexOf(" name: b, value: 123456789012345678901234567890, token: VALUE_NUMBER_INT, number type: BIG_INTEGER not parsed.") != -1);
+      assertTrue(map.getError().indexOf(" name: d.e[1], value: 123456789012345678901234567890, token: VALUE_NUMBER_INT, number type: BIG_INTEGER not parsed.") != -1);
+      assertTrue(map.getError().indexOf(": \"a\" defined more than once.") != -1);
+    }
+
+    String[] invalidInputs =
+      {
+        "",
+        "[ 1 ]",
+        "{",
+        "{ \"a\" 1 }",
+        "{ \"a\" : 01 }",
+        "{ \"a\" : tru }",
+        "{ \"a\" : 1, }",
+        "{ \"a\" : \"b }",
+        "{ \"a\" : - }",
+        "{ \"a\" : 1 } 2",
+      };
+    for (String input : invalidInputs)
+    {
+      try
+      {
+        feedInChunks(codec.createMapDecoder(), input.getBytes(Data.UTF_8_CHARSET), 1);
+        fail("Expected DataDecodingException for " + input);
+      }
+      catch (DataDecodingException e)
+      {
+      }
+    }
+
+    DataList list = feedInChunks(codec.createListDecoder(), "[7,27,279]".getBytes(), 2);
+    assertEquals(list, new DataList(Arrays.asList(7, 27, 279)));
+  }
+
   @Test
   public void testJacksonCodecNumbers() throws IOException
   {
@@ -0,0 +1,365 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data;
+
+
+import com.linkedin.data.codec.BsonDataCodec;
+import com.linkedin.data.codec.JacksonDataCodec;
+import com.linkedin.data.codec.NonBlockingDataCodec;
+import com.linkedin.data.codec.NonBlockingDataDecoder;
+import com.linkedin.data.codec.PsonDataCodec;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+
+/**
+ * Tests for {@link DataList}s with primitive storage.
+ */
+public class TestPrimitiveListStorage
+{
+  @DataProvider
+  public Object[][] elements()
+  {
+    return new Object[][]
+    {
+      { Arrays.<Object>asList(1, -2, Integer.MAX_VALUE, Integer.MIN_VALUE) },
+      { Arrays.<Object>asList(1L, -2L, Long.MAX_VALUE, Long.MIN_VALUE) },
+      { Arrays.<Object>asList(1.5f, -2.0f, Float.MAX_VALUE, Float.NaN) },
+      { Arrays.<Object>asList(1.5, -2.0, Double.MAX_VALUE, Double.NEGATIVE_INFINITY) },
+      { Arrays.<Object>asList(true, false, false, true) }
+    };
+  }
+
+  @Test(dataProvider = "elements")
+  public void testSameAsBoxedList(List<Object> elements)
+  {
+    DataList list = DataList.withPrimitiveStorage(0);
+    DataList expected = new DataList();
+    for (Object e : elements)
+    {
+      list.add(e);
+      expected.add(e);
+    }
+    assertEquals(list.getPrimitiveElementClass(), elements.get(0).getClass());
+    assertEquals(list, expected);
+    assertEquals(expected, list);
+    assertEquals(list.hashCode(), expected.hashCode());
+    assertEquals(list.toString(), expected.toString());
+
+    list.add(1, elements.get(3));
+    expected.add(1, elements.get(3));
+    list.set(0, elements.get(2));
+    expected.set(0, elements.get(2));
+    assertEquals(list.remove(2), expected.remove(2));
+    assertEquals(list.remove(elements.get(3)), expected.remove(elements.get(3)));
+    assertEquals(list, expected);
+    assertEquals(list.getPrimitiveElementClass(), elements.get(0).getClass());
+
+    list.subList(0, 2).clear();
+    expected.subList(0, 2).clear();
+    assertEquals(list, expected);
+
+    list.clear();
+    assertTrue(list.isEmpty());
+    assertEquals(list.getPrimitiveElementClass(), elements.get(0).getClass());
+  }
+
+  @Test
+  public void testTypedAccessors()
+  {
+    DataList ints = DataList.withPrimitiveStorage(1);
+    ints.addInt(1);
+    ints.addInt(2);
+    assertEquals(ints.getInt(1), 2);
+    assertEquals(ints.get(0), 1);
+    assertEquals(ints.getPrimitiveElementClass(), Integer.class);
+
+    DataList longs = DataList.withPrimitiveStorage(1);
+    longs.addLong(Long.MAX_VALUE);
+    assertEquals(longs.getLong(0), Long.MAX_VALUE);
+    assertEquals(longs.get(0), Long.MAX_VALUE);
+
+    DataList floats = DataList.withPrimitiveStorage(1);
+    floats.addFloat(1.25f);
+    assertEquals(floats.getFloat(0), 1.25f);
+    assertEquals(floats.get(0), 1.25f);
+
+    DataList doubles = DataList.withPrimitiveStorage(1);
+    doubles.addDouble(-0.0);
+    assertEquals(doubles.getDouble(0), -0.0);
+    assertEquals(doubles.get(0), -0.0);
+
+    DataList booleans = DataList.withPrimitiveStorage(1);
+    booleans.addBoolean(true);
+    assertTrue(booleans.getBoolean(0));
+    assertEquals(booleans.get(0), Boolean.TRUE);
+
+    // typed accessors also work on lists without primitive storage
+    DataList boxed = new DataList();
+    boxed.addLong(3L);
+    assertEquals(boxed.getLong(0), 3L);
+    assertNull(boxed.getPrimitiveElementClass());
+
+    try
+    {
+      longs.getInt(0);
+      fail("Expected ClassCastException");
+    }
+    catch (ClassCastException e)
+    {
+    }
+
+    try
+    {
+      ints.getInt(2);
+      fail("Expected IndexOutOfBoundsException");
+    }
+    catch (IndexOutOfBoundsException e)
+    {
+    }
+  }
+
+  @Test
+  public void testFallbackToBoxedStorage()
+  {
+    DataList list = DataList.withPrimitiveStorage(4);
+    list.addLong(1L);
+    list.addLong(2L);
+    list.addInt(3);
+    assertNull(list.getPrimitiveElementClass());
+    assertEquals(list, new DataList(Arrays.<Object>asList(1L, 2L, 3)));
+    assertEquals(list.getLong(1), 2L);
+    assertEquals(list.getInt(2), 3);
+
+    list.add("string");
+    list.add(new DataMap());
+    assertEquals(list.size(), 5);
+    list.clear();
+    list.addLong(1L);
+    assertNull(list.getPrimitiveElementClass());
+
+    DataList set = DataList.withPrimitiveStorage(4);
+    set.addDouble(1.0);
+    set.addDouble(2.0);
+    set.set(1, "string");
+    assertEquals(set, new DataList(Arrays.<Object>asList(1.0, "string")));
+
+    // class of the first element determines the storage
+    DataList strings = DataList.withPrimitiveStorage(4);
+    strings.add("string");
+    strings.add(1);
+    assertNull(strings.getPrimitiveElementClass());
+    assertEquals(strings, new DataList(Arrays.<Object>asList("string", 1)));
+  }
+
+  @Test
+  public void testCloneCopyAndReadOnly() throws CloneNotSupportedException
+  {
+    DataList list = DataList.withPrimitiveStorage(1);
+    list.addDouble(1.0);
+    list.addDouble(2.0);
+
+    DataList clone = list.clone();
+    clone.addDouble(3.0);
+    assertEquals(list.size(), 2);
+    assertEquals(clone.size(), 3);
+    assertEquals(clone.getPrimitiveElementClass(), Double.class);
+
+    DataList copy = list.copy();
+    copy.set(0, 5.0);
+    assertEquals(list.getDouble(0), 1.0);
+    assertEquals(copy.getDouble(0), 5.0);
+
+    list.makeReadOnly();
+    assertTrue(list.isReadOnly());
+    try
+    {
+      list.addDouble(3.0);
+      fail("Expected UnsupportedOperationException");
+    }
+    catch (UnsupportedOperationException e)
+    {
+    }
+    assertEquals(list.size(), 2);
+  }
+
+  @Test
+  public void testInstrumentedAccess()
+  {
+    DataList list = DataList.withPrimitiveStorage(1);
+    list.addInt(1);
+    list.addInt(2);
+    DataMap map = new DataMap();
+    map.put("list", list);
+    map.startInstrumentingAccess();
+    assertEquals(map.getDataList("list").getInt(1), 2);
+
+    Map<String, Map<String, Object>> data = new HashMap<String, Map<String, Object>>();
+    map.collectInstrumentedData(new StringBuilder(), data, false);
+    assertEquals(data.get(".list[1]").get(Instrumentable.TIMES_ACCESSED), 1);
+    assertFalse(data.containsKey(".list[0]"));
+  }
+
+  @Test
+  public void testPsonRoundTrip() throws IOException
+  {
+    DataMap map = new DataMap();
+    for (Object[] row : elements())
+    {
+      @SuppressWarnings("unchecked")
+      List<Object> elements = (List<Object>) row[0];
+      DataList list = DataList.withPrimitiveStorage(elements.size());
+      list.addAll(elements);
+      map.put(elements.get(0).getClass().getSimpleName(), list);
+    }
+    map.put("empty", DataList.withPrimitiveStorage(0));
+    map.put("mixed", new DataList(Arrays.<Object>asList(1, 2L, 3.5f, 4.5, true, "x", new DataMap(), new DataList())));
+    map.put("nested", new DataList(Arrays.<Object>asList(new DataList(Arrays.<Object>asList(1, 2)))));
+
+    for (boolean encodeCollectionCount : new boolean[] { false, true })
+    {
+      PsonDataCodec.Options options =
+        new PsonDataCodec.Options().setPrimitiveListStorage(true).setEncodeCollectionCount(encodeCollectionCount);
+      PsonDataCodec codec = new PsonDataCodec().setOptions(options);
+      byte[] bytes = codec.mapToBytes(map);
+      DataMap decoded = codec.bytesToMap(bytes);
+      assertEquals(decoded, map);
+      for (Object[] row : elements())
+      {
+        Class<?> elementClass = ((List<?>) row[0]).get(0).getClass();
+        assertEquals(decoded.getDataList(elementClass.getSimpleName()).getPrimitiveElementClass(), elementClass);
+      }
+      assertEquals(decoded.getDataList("nested").getDataList(0).getPrimitiveElementClass(), Integer.class);
+      assertNull(decoded.getDataList("mixed").getPrimitiveElementClass());
+
+      DataMap fed = decodeInChunks(codec, bytes);
+      assertEquals(fed, map);
+      for (Object[] row : elements())
+      {
+        Class<?> elementClass = ((List<?>) row[0]).get(0).getClass();
+        assertEquals(fed.getDataList(elementClass.getSimpleName()).getPrimitiveElementClass(), elementClass);
+      }
+      assertNull(fed.getDataList("mixed").getPrimitiveElementClass());
+
+      decoded.getDataList("empty").addInt(1);
+      assertEquals(decoded.getDataList("empty").getPrimitiveElementClass(), Integer.class);
+
+      // encoding from primitive storage is the same as encoding from boxed storage
+      assertEquals(codec.mapToBytes(boxedCopy(map)), bytes);
+    }
+  }
+
+  @Test
+  public void testJsonRoundTrip() throws IOException
+  {
+    DataMap map = new DataMap();
+    DataList ints = DataList.withPrimitiveStorage(2);
+    ints.addInt(1);
+    ints.addInt(-2);
+    map.put("ints", ints);
+    DataList longs = DataList.withPrimitiveStorage(2);
+    longs.addLong(Long.MAX_VALUE);
+    longs.addLong(Long.MIN_VALUE);
+    map.put("longs", longs);
+    DataList doubles = DataList.withPrimitiveStorage(2);
+    doubles.addDouble(1.5);
+    doubles.addDouble(-2.25);
+    map.put("doubles", doubles);
+    DataList booleans = DataList.withPrimitiveStorage(2);
+    booleans.addBoolean(true);
+    booleans.addBoolean(false);
+    map.put("booleans", booleans);
+    map.put("mixed", new DataList(Arrays.<Object>asList(1, 2.5, true, "x", Data.NULL, new DataMap(), new DataList())));
+    map.put("nested", new DataList(Arrays.<Object>asList(new DataList(Arrays.<Object>asList(1, 2)))));
+
+    JacksonDataCodec codec = new JacksonDataCodec();
+    codec.setPrimitiveListStorage(true);
+    byte[] bytes = codec.mapToBytes(map);
+    assertEquals(codec.mapToBytes(boxedCopy(map)), bytes);
+    assertEquals(new BsonDataCodec().mapToBytes(boxedCopy(map)), new BsonDataCodec().mapToBytes(map));
+
+    DataMap decoded = codec.bytesToMap(bytes);
+    assertEquals(decoded, map);
+    assertEquals(decoded.getDataList("ints").getPrimitiveElementClass(), Integer.class);
+    assertEquals(decoded.getDataList("longs").getPrimitiveElementClass(), Long.class);
+    assertEquals(decoded.getDataList("doubles").getPrimitiveElementClass(), Double.class);
+    assertEquals(decoded.getDataList("booleans").getPrimitiveElementClass(), Boolean.class);
+    assertEquals(decoded.getDataList("nested").getDataList(0).getPrimitiveElementClass(), Integer.class);
+    assertNull(decoded.getDataList("mixed").getPrimitiveElementClass());
+
+    DataMap fed = decodeInChunks(codec, bytes);
+    assertEquals(fed, map);
+    assertEquals(fed.getDataList("ints").getPrimitiveElementClass(), Integer.class);
+    assertEquals(fed.getDataList("longs").getPrimitiveElementClass(), Long.class);
+    assertEquals(fed.getDataList("doubles").getPrimitiveElementClass(), Double.class);
+    assertEquals(fed.getDataList("booleans").getPrimitiveElementClass(), Boolean.class);
+    assertEquals(fed.getDataList("nested").getDataList(0).getPrimitiveElementClass(), Integer.class);
+    assertNull(fed.getDataList("mixed").getPrimitiveElementClass());
+
+    DataList list = codec.bytesToList(codec.listToBytes(ints));
+    assertEquals(list, ints);
+    assertEquals(list.getPrimitiveElementClass(), Integer.class);
+  }
+
+  @Test
+  public void testDefaultCodecsDecodeBoxed() throws IOException
+  {
+    DataList list = DataList.withPrimitiveStorage(2);
+    list.addLong(1L);
+    list.addLong(2L);
+    DataMap map = new DataMap();
+    map.put("list", list);
+    JacksonDataCodec jsonCodec = new JacksonDataCodec();
+    DataMap decoded = jsonCodec.bytesToMap(jsonCodec.mapToBytes(map));
+    assertEquals(decoded, new DataMap(Collections.<String, Object>singletonMap("list", new DataList(Arrays.<Object>asList(1, 2)))));
+    assertNull(decoded.getDataList("list").getPrimitiveElementClass());
+
+    PsonDataCodec psonCodec = new PsonDataCodec();
+    decoded = psonCodec.bytesToMap(psonCodec.mapToBytes(map));
+    assertEquals(decoded, map);
+    assertNull(decoded.getDataList("list").getPrimitiveElementClass());
+  }
+
+  private static DataMap decodeInChunks(NonBlockingDataCodec codec, byte[] bytes) throws IOException
+  {
+    NonBlockingDataDecoder<DataMap> decoder = codec.createMapDecoder();
+    for (int offset = 0; offset < bytes.length; offset += 7)
+    {
+      decoder.feed(bytes, offset, Math.min(7, bytes.length - offset));
+    }
+    return decoder.complete();
+  }
+
+  private static DataMap boxedCopy(DataMap map)
+  {
+    DataMap boxed = new DataMap();
+    for (Map.Entry<String, Object> e : map.entrySet())
+    {
+      boxed.put(e.getKey(), new DataList((DataList) e.getValue()));
+    }
+    return boxed;
+  }
+}
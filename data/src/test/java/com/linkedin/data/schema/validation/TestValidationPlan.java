@@ -0,0 +1,199 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.data.schema.validation;
+
+
+import com.linkedin.data.DataMap;
+import com.linkedin.data.schema.DataSchema;
+import com.linkedin.data.schema.validator.VisitedTrackingValidator;
+
+import java.io.IOException;
+import java.util.Collections;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static com.linkedin.data.TestUtil.dataMapFromString;
+import static com.linkedin.data.TestUtil.dataSchemaFromString;
+import static org.testng.Assert.*;
+
+
+/**
+ * Test {@link ValidationPlan} gives the same results as {@link ValidateDataAgainstSchema}.
+ */
+public class TestValidationPlan
+{
+  private static final String SCHEMA =
+    "{ \"type\" : \"record\", \"name\" : \"Foo\", \"fields\" : [\n" +
+    "  { \"name\" : \"int\", \"type\" : \"int\" },\n" +
+    "  { \"name\" : \"long\", \"type\" : \"long\", \"optional\" : true },\n" +
+    "  { \"name\" : \"withDefault\", \"type\" : \"string\", \"default\" : \"default\" },\n" +
+    "  { \"name\" : \"bytes\", \"type\" : \"bytes\", \"optional\" : true },\n" +
+    "  { \"name\" : \"fixed\", \"type\" : { \"type\" : \"fixed\", \"name\" : \"Fixed\", \"size\" : 2 }, \"optional\" : true },\n" +
+    "  { \"name\" : \"enum\", \"type\" : { \"type\" : \"enum\", \"name\" : \"Fruits\", \"symbols\" : [ \"APPLE\", \"ORANGE\" ] }, \"optional\" : true },\n" +
+    "  { \"name\" : \"union\", \"type\" : [ \"null\", \"int\", \"Foo\" ], \"optional\" : true },\n" +
+    "  { \"name\" : \"array\", \"type\" : { \"type\" : \"array\", \"items\" : \"Foo\" }, \"optional\" : true },\n" +
+    "  { \"name\" : \"map\", \"type\" : { \"type\" : \"map\", \"values\" : \"double\" }, \"optional\" : true },\n" +
+    "  { \"name\" : \"typeref\", \"type\" : { \"type\" : \"typeref\", \"name\" : \"IntRef\", \"ref\" : \"int\" }, \"optional\" : true },\n" +
+    "  { \"name\" : \"arrayRef\", \"type\" : { \"type\" : \"typeref\", \"name\" : \"ArrayRef\", \"ref\" : { \"type\" : \"array\", \"items\" : \"int\" } }, \"optional\" : true },\n" +
+    "  { \"name\" : \"recordRef\", \"type\" : { \"type\" : \"typeref\", \"name\" : \"FooRef\", \"ref\" : \"Foo\" }, \"optional\" : true }\n" +
+    "] }";
+
+  private static final String[] INPUTS =
+  {
+    "{ \"int\" : 1 }",
+    "{ \"int\" : 1, \"withDefault\" : \"x\" }",
+    "{ }",
+    "{ \"int\" : \"1\", \"long\" : 2 }",
+    "{ \"int\" : 1.5, \"long\" : \"abc\", \"unknown\" : { \"a\" : [ 1, 2 ] } }",
+    "{ \"int\" : 1, \"bytes\" : \"\\u0000\\u00ff\", \"fixed\" : \"ab\" }",
+    "{ \"int\" : 1, \"bytes\" : \"\\u0100\", \"fixed\" : \"abc\" }",
+    "{ \"int\" : 1, \"enum\" : \"APPLE\", \"union\" : null }",
+    "{ \"int\" : 1, \"enum\" : \"BANANA\", \"union\" : { \"int\" : \"2\" } }",
+    "{ \"int\" : 1, \"enum\" : 3, \"union\" : { \"string\" : \"x\" } }",
+    "{ \"int\" : 1, \"union\" : { \"int\" : 1, \"Foo\" : { } } }",
+    "{ \"int\" : 1, \"union\" : { \"Foo\" : { \"int\" : \"x\", \"union\" : { \"Foo\" : { } } } } }",
+    "{ \"int\" : 1, \"array\" : [ { \"int\" : 2 }, { }, { \"int\" : 3.0, \"array\" : [ { \"long\" : 4 } ] } ] }",
+    "{ \"int\" : 1, \"array\" : 5, \"recordRef\" : [ 1 ] }",
+    "{ \"int\" : 1, \"map\" : { \"a\" : 1, \"b\" : 2.5, \"c\" : \"3\", \"d\" : false } }",
+    "{ \"int\" : 1, \"map\" : [ 1, 2 ] }",
+    "{ \"int\" : 1, \"typeref\" : 2, \"arrayRef\" : [ 1, \"x\", 2.0 ] }",
+    "{ \"int\" : 1, \"typeref\" : 2.0, \"recordRef\" : { \"long\" : 1.0 } }",
+    "{ \"int\" : 1, \"typeref\" : \"x\", \"recordRef\" : 5 }"
+  };
+
+  @DataProvider
+  public Object[][] options()
+  {
+    return new Object[][]
+    {
+      { new ValidationOptions(RequiredMode.IGNORE, CoercionMode.OFF) },
+      { new ValidationOptions(RequiredMode.MUST_BE_PRESENT, CoercionMode.NORMAL) },
+      { new ValidationOptions(RequiredMode.CAN_BE_ABSENT_IF_HAS_DEFAULT, CoercionMode.NORMAL) },
+      { new ValidationOptions(RequiredMode.FIXUP_ABSENT_WITH_DEFAULT, CoercionMode.STRING_TO_PRIMITIVE) }
+    };
+  }
+
+  @Test(dataProvider = "options")
+  public void testSameResult(ValidationOptions options) throws IOException
+  {
+    DataSchema schema = dataSchemaFromString(SCHEMA);
+    ValidationPlan plan = ValidationPlan.compile(schema, options);
+    for (String input : INPUTS)
+    {
+      for (boolean readOnly : new boolean[] { false, true })
+      {
+        DataMap expectedMap = dataMapFromString(input);
+        DataMap actualMap = dataMapFromString(input);
+        if (readOnly)
+        {
+          expectedMap.makeReadOnly();
+          actualMap.makeReadOnly();
+        }
+
+        VisitedTrackingValidator expectedValidator = new VisitedTrackingValidator(null);
+        ValidationResult expected = ValidateDataAgainstSchema.validate(expectedMap, schema, options, expectedValidator);
+        VisitedTrackingValidator actualValidator = new VisitedTrackingValidator(null);
+        ValidationResult actual = plan.validate(actualMap, options, actualValidator);
+
+        assertEquals(actual.toString(), expected.toString(), input);
+        assertEquals(actual.isValid(), expected.isValid());
+        assertEquals(actual.hasFix(), expected.hasFix());
+        assertEquals(actual.hasFixupReadOnlyError(), expected.hasFixupReadOnlyError());
+        assertEquals(actual.getFixed(), expected.getFixed());
+        assertEquals(actualMap, expectedMap);
+        assertEquals(actualValidator.getVisited(), expectedValidator.getVisited());
+        assertEquals(actualValidator.getVisitedMoreThanOnce(), Collections.EMPTY_SET);
+      }
+    }
+  }
+
+  @Test
+  public void testUnknownDereferencedType() throws IOException
+  {
+    DataSchema schema = dataSchemaFromString(SCHEMA);
+    ValidationOptions options = new ValidationOptions();
+    DataMap map = dataMapFromString("{ \"int\" : 1, \"typeref\" : { \"a\" : 1 } }");
+
+    String expected = null;
+    try
+    {
+      ValidateDataAgainstSchema.validate(map, schema, options);
+    }
+    catch (IllegalStateException e)
+    {
+      expected = e.getMessage();
+    }
+    assertNotNull(expected);
+
+    try
+    {
+      ValidationPlan.compile(schema, options).validate(map, options);
+      fail("Expected IllegalStateException");
+    }
+    catch (IllegalStateException e)
+    {
+      assertEquals(e.getMessage(), expected);
+    }
+  }
+
+  @Test
+  public void testForSchemaCachesBySchemaAndOptions() throws IOException
+  {
+    DataSchema schema = dataSchemaFromString(SCHEMA);
+    ValidationPlan plan = ValidationPlan.forSchema(schema, new ValidationOptions());
+    assertSame(plan.getSchema(), schema);
+    assertSame(ValidationPlan.forSchema(schema, new ValidationOptions()), plan);
+    assertNotSame(ValidationPlan.forSchema(schema, new ValidationOptions(RequiredMode.IGNORE)), plan);
+    assertNotSame(ValidationPlan.forSchema(dataSchemaFromString(SCHEMA), new ValidationOptions()), plan);
+  }
+
+  @Test
+  public void testForSchemaEvictsLeastRecentlyUsedPlans() throws IOException
+  {
+    DataSchema schema = dataSchemaFromString(SCHEMA);
+    ValidationPlan plan = ValidationPlan.forSchema(schema, new ValidationOptions());
+    for (int i = 0; i < ValidationPlan.MAX_CACHED_PLANS; i++)
+    {
+      ValidationPlan.forSchema(dataSchemaFromString(SCHEMA), new ValidationOptions());
+    }
+    // the plan was evicted by the plans of the other schemas
+    assertNotSame(ValidationPlan.forSchema(schema, new ValidationOptions()), plan);
+
+    ValidationPlan recent = ValidationPlan.forSchema(dataSchemaFromString(SCHEMA), new ValidationOptions());
+    assertSame(ValidationPlan.forSchema(recent.getSchema(), new ValidationOptions()), recent);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testOptionsMismatch() throws IOException
+  {
+    DataSchema schema = dataSchemaFromString(SCHEMA);
+    ValidationPlan plan = ValidationPlan.compile(schema, new ValidationOptions());
+    plan.validate(dataMapFromString("{ \"int\" : 1 }"), new ValidationOptions(RequiredMode.IGNORE));
+  }
+
+  @Test
+  public void testAvroUnionMode() throws IOException
+  {
+    DataSchema schema = dataSchemaFromString(SCHEMA);
+    ValidationOptions options = new ValidationOptions();
+    options.setAvroUnionMode(true);
+    DataMap map = dataMapFromString("{ \"int\" : \"x\", \"union\" : 1 }");
+    ValidationResult expected = ValidateDataAgainstSchema.validate(map, schema, options);
+    ValidationResult actual = ValidationPlan.compile(schema, options).validate(map, options);
+    assertEquals(actual.toString(), expected.toString());
+  }
+}
@@ -22,9 +22,12 @@ import com.linkedin.data.DataComplex;
 import com.linkedin.data.DataList;
 import com.linkedin.data.DataMap;
 import com.linkedin.data.TestUtil;
+import com.linkedin.data.codec.JacksonDataCodec;
+import com.linkedin.data.codec.PsonDataCodec;
 import com.linkedin.data.schema.ArrayDataSchema;
 import com.linkedin.data.schema.DataSchema;
 import com.linkedin.data.schema.RecordDataSchema;
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -870,6 +873,76 @@ public class TestArrayTemplate
     testNumberArray(DoubleArray.class, schema, input, castFrom);
   }
 
+  @Test
+  public void testPrimitiveArrays()
+  {
+    IntegerArray intArray = new IntegerArray(new int[] { 1, 3, 5 });
+    intArray.addInt(7);
+    assertEquals(intArray, new IntegerArray(Arrays.asList(1, 3, 5, 7)));
+    assertEquals(intArray.getInt(3), 7);
+    assertEquals(intArray.data().getPrimitiveElementClass(), Integer.class);
+
+    LongArray longArray = new LongArray(new long[] { 1L, Long.MAX_VALUE });
+    longArray.addLong(-1L);
+    assertEquals(longArray, new LongArray(Arrays.asList(1L, Long.MAX_VALUE, -1L)));
+    assertEquals(longArray.getLong(1), Long.MAX_VALUE);
+    assertEquals(longArray.data().getPrimitiveElementClass(), Long.class);
+
+    FloatArray floatArray = new FloatArray(new float[] { 1.0f, 3.5f });
+    floatArray.addFloat(-2.0f);
+    assertEquals(floatArray, new FloatArray(Arrays.asList(1.0f, 3.5f, -2.0f)));
+    assertEquals(floatArray.getFloat(1), 3.5f);
+
+    DoubleArray doubleArray = new DoubleArray(new double[] { 1.0, 3.5 });
+    doubleArray.addDouble(-2.0);
+    assertEquals(doubleArray, new DoubleArray(Arrays.asList(1.0, 3.5, -2.0)));
+    assertEquals(doubleArray.getDouble(1), 3.5);
+
+    BooleanArray booleanArray = new BooleanArray(new boolean[] { true, false });
+    booleanArray.addBoolean(true);
+    assertEquals(booleanArray, new BooleanArray(Arrays.asList(true, false, true)));
+    assertFalse(booleanArray.getBoolean(1));
+
+    // accessors coerce elements that are not stored without boxing
+    LongArray coerced = new LongArray(new DataList(Arrays.<Object>asList(1, 2.0f)));
+    assertNull(coerced.data().getPrimitiveElementClass());
+    assertEquals(coerced.getLong(0), 1L);
+    assertEquals(coerced.getLong(1), 2L);
+    DoubleArray fromInts = new DoubleArray(DataList.withPrimitiveStorage(2));
+    fromInts.data().addInt(1);
+    assertEquals(fromInts.data().getPrimitiveElementClass(), Integer.class);
+    assertEquals(fromInts.getDouble(0), 1.0);
+  }
+
+  @Test
+  public void testDecodedPrimitiveArrays() throws IOException
+  {
+    JacksonDataCodec codec = new JacksonDataCodec();
+    codec.setPrimitiveListStorage(true);
+    DataMap map = codec.stringToMap("{ \"longs\" : [ 1, 2, 3 ], \"floats\" : [ 1.5, -2.25 ] }");
+
+    // JSON numbers are decoded to the narrowest class, the accessors coerce them without boxing
+    LongArray longArray = new LongArray(map.getDataList("longs"));
+    assertEquals(longArray.data().getPrimitiveElementClass(), Integer.class);
+    assertEquals(longArray.getLong(0), 1L);
+    assertEquals(longArray.getLong(2), 3L);
+    assertEquals(longArray, new LongArray(new long[] { 1L, 2L, 3L }));
+
+    FloatArray floatArray = new FloatArray(map.getDataList("floats"));
+    assertEquals(floatArray.data().getPrimitiveElementClass(), Double.class);
+    assertEquals(floatArray.getFloat(0), 1.5f);
+    assertEquals(floatArray.getFloat(1), -2.25f);
+
+    DoubleArray doubleArray = new DoubleArray(map.getDataList("longs"));
+    assertEquals(doubleArray.getDouble(1), 2.0);
+
+    PsonDataCodec psonCodec = new PsonDataCodec().setOptions(new PsonDataCodec.Options().setPrimitiveListStorage(true));
+    DataMap psonMap = psonCodec.bytesToMap(psonCodec.mapToBytes(map));
+    LongArray psonLongArray = new LongArray(psonMap.getDataList("longs"));
+    assertEquals(psonLongArray.data().getPrimitiveElementClass(), Integer.class);
+    assertEquals(psonLongArray.getLong(1), 2L);
+  }
+
   @Test
   public void testStringArray()
   {
@@ -0,0 +1,146 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.util;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+
+public class TestLruCache
+{
+  @Test
+  public void testEvictsLeastRecentlyUsed()
+  {
+    LruCache<String, Integer> cache = new LruCache<String, Integer>(2);
+    assertNull(cache.putIfAbsent("a", 1));
+    assertNull(cache.putIfAbsent("b", 2));
+    assertEquals(cache.get("a"), Integer.valueOf(1));
+
+    // "b" is the least recently used entry
+    assertNull(cache.putIfAbsent("c", 3));
+    assertEquals(cache.size(), 2);
+    assertNull(cache.get("b"));
+    assertEquals(cache.get("a"), Integer.valueOf(1));
+    assertEquals(cache.get("c"), Integer.valueOf(3));
+  }
+
+  @Test
+  public void testEvictsInBatches()
+  {
+    LruCache<Integer, Integer> cache = new LruCache<Integer, Integer>(20);
+    for (int i = 0; i < 20; i++)
+    {
+      assertNull(cache.putIfAbsent(i, i));
+    }
+    for (int i = 0; i < 10; i++)
+    {
+      assertEquals(cache.get(i), Integer.valueOf(i));
+    }
+
+    // trimmed to 90% of the maximum size, evicting the least recently used entries
+    assertNull(cache.putIfAbsent(20, 20));
+    assertEquals(cache.size(), 18);
+    for (int i = 0; i <= 20; i++)
+    {
+      if (i >= 10 && i < 13)
+      {
+        assertNull(cache.get(i));
+      }
+      else
+      {
+        assertEquals(cache.get(i), Integer.valueOf(i));
+      }
+    }
+
+    // and filled up again without evicting
+    assertNull(cache.putIfAbsent(21, 21));
+    assertNull(cache.putIfAbsent(22, 22));
+    assertEquals(cache.size(), 20);
+  }
+
+  @Test
+  public void testPutIfAbsent()
+  {
+    LruCache<String, Integer> cache = new LruCache<String, Integer>(2);
+    assertNull(cache.putIfAbsent("a", 1));
+    assertEquals(cache.putIfAbsent("a", 2), Integer.valueOf(1));
+    assertEquals(cache.get("a"), Integer.valueOf(1));
+  }
+
+  @Test
+  public void testZeroSize()
+  {
+    LruCache<String, Integer> cache = new LruCache<String, Integer>(0);
+    assertEquals(cache.putIfAbsent("a", 1), Integer.valueOf(1));
+    assertNull(cache.get("a"));
+    assertEquals(cache.size(), 0);
+  }
+
+  @Test
+  public void testConcurrentAccess() throws Exception
+  {
+    final LruCache<Integer, Integer> cache = new LruCache<Integer, Integer>(8);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try
+    {
+      List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (int t = 0; t < 4; t++)
+      {
+        futures.add(executor.submit(new Callable<Void>()
+        {
+          @Override
+          public Void call()
+          {
+            for (int i = 0; i < 10000; i++)
+            {
+              Integer key = i % 32;
+              Integer value = cache.get(key);
+              if (value == null)
+              {
+                Integer existing = cache.putIfAbsent(key, key);
+                value = (existing == null) ? key : existing;
+              }
+              assertEquals(value, key);
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> future : futures)
+      {
+        future.get();
+      }
+    }
+    finally
+    {
+      executor.shutdown();
+    }
+    assertTrue(cache.size() <= cache.getMaxSize());
+  }
+}
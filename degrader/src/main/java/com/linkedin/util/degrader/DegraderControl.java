@@ -120,6 +120,30 @@ public class DegraderControl implements DegraderControlMBean
     return _degrader.getStats().getOutstandingCount();
   }
 
+  @Override
+  public long getCallTime50Pct()
+  {
+    return _degrader.getStats().getCallTimeStats().get50Pct();
+  }
+
+  @Override
+  public long getCallTime90Pct()
+  {
+    return _degrader.getStats().getCallTimeStats().get90Pct();
+  }
+
+  @Override
+  public long getCallTime95Pct()
+  {
+    return _degrader.getStats().getCallTimeStats().get95Pct();
+  }
+
+  @Override
+  public long getCallTime99Pct()
+  {
+    return _degrader.getStats().getCallTimeStats().get99Pct();
+  }
+
   @Override
   public String getName()
   {
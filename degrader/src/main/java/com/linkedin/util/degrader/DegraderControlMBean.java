@@ -48,6 +48,10 @@ public interface DegraderControlMBean
   double getErrorRate();
   long   getOutstandingLatency();
   int    getOutstandingCount();
+  long   getCallTime50Pct();
+  long   getCallTime90Pct();
+  long   getCallTime95Pct();
+  long   getCallTime99Pct();
 
   // Control attributes
 
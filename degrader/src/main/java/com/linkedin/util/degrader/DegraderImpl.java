@@ -36,6 +36,7 @@ import com.linkedin.util.clock.Clock;
 import com.linkedin.util.clock.SystemClock;
 import com.linkedin.util.clock.Time;
 import com.linkedin.common.util.ConfigHelper;
+import com.linkedin.common.stats.LongStats;
 
 /**
  * A Degrader that uses completed call latencies, error rate and outstanding requests
@@ -141,6 +142,8 @@ public class DegraderImpl implements Degrader
   public static final long     DEFAULT_LOW_OUTSTANDING  = Time.milliseconds(  500);
   public static final Integer  DEFAULT_MIN_OUTSTANDING_COUNT = 5;
   public static final Integer  DEFAULT_OVERRIDE_MIN_CALL_COUNT = -1;
+  public static final Boolean  DEFAULT_STRIPED_CALL_TRACKER = false;
+  public static final Boolean  DEFAULT_CALL_TIME_HISTOGRAM = false;
 
   private ImmutableConfig _config;
   private String _name;
@@ -288,7 +291,8 @@ public class DegraderImpl implements Degrader
                      _callTrackerStats.getCallCount(),
                      _latency, _callTrackerStats.getErrorRate(),
                      _outstandingLatency, _callTrackerStats.getOutstandingCount(),
-                     _callTrackerStats.getErrorTypeCounts());
+                     _callTrackerStats.getErrorTypeCounts(),
+                     _callTrackerStats.getCallTimeStats());
   }
 
   /**
@@ -540,6 +544,7 @@ public class DegraderImpl implements Degrader
     private final long   _outstandingLatency;
     private final int    _outstandingCount;
     private final Map<ErrorType, Integer> _errorCountsMap;
+    private final LongStats _callTimeStats;
 
 
     private Stats(double currentDropRate, double currentComputedDropRate,
@@ -551,7 +556,8 @@ public class DegraderImpl implements Degrader
                   int callCount,
                   long latency,
                   double errorRate,
-                  long outstandingLatency, int outstandingCount, Map<ErrorType,Integer> errorCountsMap)
+                  long outstandingLatency, int outstandingCount, Map<ErrorType,Integer> errorCountsMap,
+                  LongStats callTimeStats)
     {
       _currentDropRate = currentDropRate;
       _currentComputedDropRate = currentComputedDropRate;
@@ -568,6 +574,7 @@ public class DegraderImpl implements Degrader
       _outstandingLatency = outstandingLatency;
       _outstandingCount = outstandingCount;
       _errorCountsMap = errorCountsMap;
+      _callTimeStats = callTimeStats;
     }
 
     public double getCurrentDropRate()
@@ -630,6 +637,10 @@ public class DegraderImpl implements Degrader
     {
       return _errorCountsMap;
     }
+    public LongStats getCallTimeStats()
+    {
+      return _callTimeStats;
+    }
   }
 
   public static class ImmutableConfig
@@ -653,6 +664,8 @@ public class DegraderImpl implements Degrader
     protected long _lowOutstanding = DEFAULT_LOW_OUTSTANDING;
     protected int _minOutstandingCount = DEFAULT_MIN_OUTSTANDING_COUNT;
     protected int _overrideMinCallCount = DEFAULT_OVERRIDE_MIN_CALL_COUNT;
+    protected boolean _stripedCallTracker = DEFAULT_STRIPED_CALL_TRACKER;
+    protected boolean _callTimeHistogram = DEFAULT_CALL_TIME_HISTOGRAM;
 
     public ImmutableConfig()
     {
@@ -679,6 +692,8 @@ public class DegraderImpl implements Degrader
       this._lowOutstanding = config._lowOutstanding;
       this._minOutstandingCount = config._minOutstandingCount;
       this._overrideMinCallCount = config._overrideMinCallCount;
+      this._stripedCallTracker = config._stripedCallTracker;
+      this._callTimeHistogram = config._callTimeHistogram;
     }
 
     public String getName()
@@ -775,6 +790,24 @@ public class DegraderImpl implements Degrader
     {
       return _overrideMinCallCount;
     }
+
+    /**
+     * @return whether the owner of the degrader should track calls with a
+     *         {@link StripedCallTrackerImpl} instead of a {@link CallTrackerImpl}.
+     */
+    public boolean isStripedCallTracker()
+    {
+      return _stripedCallTracker;
+    }
+
+    /**
+     * @return whether the owner of the degrader should compute call time statistics with a
+     *         {@link com.linkedin.common.stats.LongHistogram}.
+     */
+    public boolean isCallTimeHistogram()
+    {
+      return _callTimeHistogram;
+    }
   }
 
   public static class Config extends ImmutableConfig
@@ -883,5 +916,15 @@ public class DegraderImpl implements Degrader
     {
       _overrideMinCallCount = overrideMinCallCount;
     }
+
+    public void setStripedCallTracker(Boolean stripedCallTracker)
+    {
+      _stripedCallTracker = stripedCallTracker;
+    }
+
+    public void setCallTimeHistogram(Boolean callTimeHistogram)
+    {
+      _callTimeHistogram = callTimeHistogram;
+    }
   }
 }
@@ -0,0 +1,905 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.util.degrader;
+
+
+import com.linkedin.common.stats.LongHistogram;
+import com.linkedin.common.stats.LongStats;
+import com.linkedin.util.clock.Clock;
+import com.linkedin.util.clock.SystemClock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+
+/**
+ * A {@link CallTracker} that does not serialize calls on a lock.
+ *
+ * <p>
+ * Most of what is updated by every call is striped by thread: counters, sums, minimums
+ * and maximums, error type counts, the sum of outstanding start times and the time of the
+ * last call start. Each thread updates the cells of its stripe and the stripes are summed
+ * when the statistics of an interval are rolled over. The statistics of the current interval are kept in an
+ * {@link Interval} object, rollover installs a new {@link Interval} and waits for the
+ * calls that are still updating the previous {@link Interval} before computing its
+ * statistics. Only one thread rolls over at a time, other threads do not wait for it
+ * and update the interval that is current when they get to it.
+ *
+ * <p>
+ * The statistics are the same as the statistics produced by {@link CallTrackerImpl} for the
+ * same sequence of calls, including the call time percentiles. The sequence is the order in
+ * which the calls are numbered: each completed call of an interval gets an ordinal from a
+ * counter shared by all threads. {@link CallTrackerImpl} computes percentiles from the samples
+ * kept by a {@link com.linkedin.common.stats.LongTracking} with the default capacity. Which
+ * samples are kept only depends on the number of values added so far, so only the durations
+ * whose ordinal would be kept are stored, and they are replayed in ordinal order when the
+ * interval is rolled over.
+ *
+ * <p>
+ * The concurrency is counted by a single counter, the maximum concurrency of an interval is
+ * updated with the value of the counter when a call starts. The current totals returned while
+ * an interval is being rolled over may be briefly off by the calls of that interval.
+ */
+public class StripedCallTrackerImpl implements CallTracker
+{
+  private static final Clock DEFAULT_CLOCK = SystemClock.instance();
+
+  private static final int STRIPES;
+  private static final int STRIPE_MASK;
+
+  private static final ErrorType[] ERROR_TYPES = ErrorType.values();
+
+  // Each stripe occupies its own cache lines of 8 longs, the first stripe is not used
+  // to avoid false sharing with the array header.
+  // Cells of the stripes of an interval:
+  private static final int WRITERS = 0;
+  private static final int CALL_START_COUNT = 1;
+  private static final int ERROR_COUNT = 2;
+  private static final int CALL_TIME_SUM = 3;
+  private static final int CALL_TIME_SUM_OF_SQUARES = 4;
+  private static final int CALL_TIME_MIN = 5;
+  private static final int CALL_TIME_MAX = 6;
+  private static final int ERROR_TYPE_COUNTS = 7;
+  // Cells of the stripes of the tracker:
+  private static final int OUTSTANDING_START_TIME_SUM = 0;
+  private static final int LAST_START_TIME = 1;
+  private static final int CELLS_PER_STRIPE = ((ERROR_TYPE_COUNTS + ERROR_TYPES.length + 7) / 8) * 8;
+
+  // Samples kept by LongTracking with the default capacity.
+  private static final int SAMPLE_CAPACITY = 4000;
+  private static final int SAMPLE_CHUNK_SHIFT = 10;
+  private static final int SAMPLE_CHUNK_SIZE = 1 << SAMPLE_CHUNK_SHIFT;
+  private static final long[] PHASE_END_ORDINAL;
+  private static final int[] PHASE_START_SLOT;
+  private static final int SAMPLE_CHUNKS;
+
+  static
+  {
+    int stripes = 2;
+    while (stripes < Runtime.getRuntime().availableProcessors() && stripes < 64)
+    {
+      stripes <<= 1;
+    }
+    STRIPES = stripes;
+    STRIPE_MASK = stripes - 1;
+
+    // LongTracking keeps every value until its buffer is full, then drops half of the
+    // buffer and keeps every other value, and so on. Phase p keeps the values whose
+    // ordinal is a multiple of 2^p, the first phase ends with the value that fills the
+    // buffer and every following phase adds half of the buffer.
+    List<Long> phaseEnds = new ArrayList<Long>();
+    List<Integer> phaseStarts = new ArrayList<Integer>();
+    phaseEnds.add((long) SAMPLE_CAPACITY + 1);
+    phaseStarts.add(0);
+    int keptPerPhase = SAMPLE_CAPACITY - (SAMPLE_CAPACITY + 1) / 2;
+    int nextSlot = SAMPLE_CAPACITY + 1;
+    for (int phase = 1; phaseEnds.get(phase - 1) <= Integer.MAX_VALUE; phase++)
+    {
+      long ratio = 1L << phase;
+      long firstOrdinal = (phaseEnds.get(phase - 1) / ratio + 1) * ratio;
+      phaseEnds.add(firstOrdinal + (keptPerPhase - 1) * ratio);
+      phaseStarts.add(nextSlot);
+      nextSlot += keptPerPhase;
+    }
+    PHASE_END_ORDINAL = new long[phaseEnds.size()];
+    PHASE_START_SLOT = new int[phaseStarts.size()];
+    for (int i = 0; i < PHASE_END_ORDINAL.length; i++)
+    {
+      PHASE_END_ORDINAL[i] = phaseEnds.get(i);
+      PHASE_START_SLOT[i] = phaseStarts.get(i);
+    }
+    SAMPLE_CHUNKS = (nextSlot + SAMPLE_CHUNK_SIZE - 1) >>> SAMPLE_CHUNK_SHIFT;
+  }
+
+  private final Clock _clock;
+  private final long _interval;
+  private final boolean _callTimeHistogram;
+
+  // Guards rollover and reset, a thread that cannot acquire it does not wait.
+  private final AtomicBoolean _rolling = new AtomicBoolean();
+  private final Object _listenersLock = new Object();
+
+  // The cells of the tracker, which are not reset.
+  private final AtomicLongArray _trackerCells = newCells();
+  private final AtomicInteger _concurrency = new AtomicInteger();
+
+  private volatile Interval _current;
+  private volatile CallStats _stats;
+
+  private volatile long _lastResetTime;
+
+  // Totals of the intervals that have been rolled over, only updated while rolling over.
+  private volatile long _callCountTotal;
+  private volatile long _callStartCountTotal;
+  private volatile long _errorCountTotal;
+  private volatile Map<ErrorType, Integer> _errorTypeCountsTotal = Collections.emptyMap();
+
+  // This CallTrackerListener list is immutable and copy-on-write.
+  private volatile List<StatsRolloverEventListener> _listeners = Collections.emptyList();
+
+  public StripedCallTrackerImpl(long interval)
+  {
+    this(interval, DEFAULT_CLOCK);
+  }
+
+  public StripedCallTrackerImpl(long interval, Clock clock)
+  {
+    this(interval, clock, false);
+  }
+
+  /**
+   * @param interval is the interval of the call statistics.
+   * @param clock provides the current time.
+   * @param callTimeHistogram if true, the call time statistics are computed with a {@link LongHistogram}
+   *                          and are the same as the statistics of a {@link CallTrackerImpl} with the
+   *                          call time histogram enabled.
+   */
+  public StripedCallTrackerImpl(long interval, Clock clock, boolean callTimeHistogram)
+  {
+    _clock = clock;
+    _interval = interval;
+    _callTimeHistogram = callTimeHistogram;
+    setLastStartTimes(-1);
+    _lastResetTime = _clock.currentTimeMillis();
+    _stats = emptyStats(_lastResetTime, _errorTypeCountsTotal);
+    _current = newInterval(_lastResetTime);
+  }
+
+  @Override
+  public CallCompletion startCall()
+  {
+    long currentTime = _clock.currentTimeMillis();
+    List<PendingEvent> pending = rolloverIfStale(currentTime);
+
+    int stripe = stripe();
+    Interval interval = enter(stripe);
+    interval._cells.getAndIncrement(cell(stripe, CALL_START_COUNT));
+    interval.updateConcurrentMax(_concurrency.incrementAndGet());
+    interval.exit(stripe);
+
+    if (_trackerCells.get(cell(stripe, LAST_START_TIME)) != currentTime)
+    {
+      _trackerCells.set(cell(stripe, LAST_START_TIME), currentTime);
+    }
+    _trackerCells.getAndAdd(cell(stripe, OUTSTANDING_START_TIME_SUM), currentTime);
+
+    deliver(pending);
+    return new CallCompletionImpl(currentTime);
+  }
+
+  @Override
+  public CallStats getCallStats()
+  {
+    long currentTime = _clock.currentTimeMillis();
+    deliver(rolloverIfStale(currentTime));
+    return _stats;
+  }
+
+  @Override
+  public long getInterval()
+  {
+    return _interval;
+  }
+
+  @Override
+  public void addStatsRolloverEventListener(StatsRolloverEventListener listener)
+  {
+    synchronized (_listenersLock)
+    {
+      List<StatsRolloverEventListener> copy = new ArrayList<StatsRolloverEventListener>(_listeners);
+      copy.add(listener);
+      _listeners = Collections.unmodifiableList(copy);
+    }
+  }
+
+  @Override
+  public boolean removeStatsRolloverEventListener(StatsRolloverEventListener listener)
+  {
+    boolean removed = false;
+    synchronized (_listenersLock)
+    {
+      if (_listeners.contains(listener))
+      {
+        List<StatsRolloverEventListener> copy = new ArrayList<StatsRolloverEventListener>(_listeners);
+        removed = copy.remove(listener);
+        _listeners = Collections.unmodifiableList(copy);
+      }
+    }
+    return removed;
+  }
+
+  @Override
+  public long getCurrentCallCountTotal()
+  {
+    return _callCountTotal + _current._callCount.get();
+  }
+
+  @Override
+  public long getCurrentCallStartCountTotal()
+  {
+    return _callStartCountTotal + _current.sum(CALL_START_COUNT);
+  }
+
+  @Override
+  public long getCurrentErrorCountTotal()
+  {
+    return _errorCountTotal + _current.sum(ERROR_COUNT);
+  }
+
+  @Override
+  public Map<ErrorType, Integer> getCurrentErrorTypeCountsTotal()
+  {
+    return Collections.unmodifiableMap(addErrorTypeCounts(_errorTypeCountsTotal, _current));
+  }
+
+  @Override
+  public int getCurrentConcurrency()
+  {
+    return _concurrency.get();
+  }
+
+  @Override
+  public long getTimeSinceLastCallStart()
+  {
+    long lastStartTime = -1;
+    for (int stripe = 0; stripe < STRIPES; stripe++)
+    {
+      lastStartTime = Math.max(lastStartTime, _trackerCells.get(cell(stripe, LAST_START_TIME)));
+    }
+    return lastStartTime == -1 ? -1 : _clock.currentTimeMillis() - lastStartTime;
+  }
+
+  @Override
+  public long getLastResetTime()
+  {
+    return _lastResetTime;
+  }
+
+  @Override
+  public void reset()
+  {
+    while (!_rolling.compareAndSet(false, true))
+    {
+      Thread.yield();
+    }
+    List<PendingEvent> pending = new ArrayList<PendingEvent>(1);
+    try
+    {
+      setLastStartTimes(-1);
+      _lastResetTime = _clock.currentTimeMillis();
+      _callCountTotal = 0;
+      _callStartCountTotal = 0;
+      _errorCountTotal = 0;
+
+      Interval previous = _current;
+      previous._closed = true;
+      _current = newInterval(_lastResetTime);
+      // The calls of the previous interval are discarded, wait for them before
+      // returning so that they are not counted after the reset.
+      previous.awaitWriters();
+
+      // Like CallTrackerImpl, the stats emitted by reset still have the error type counts
+      // total from before the reset.
+      Map<ErrorType, Integer> errorTypeCountsTotal = addErrorTypeCounts(_errorTypeCountsTotal, previous);
+      _errorTypeCountsTotal = Collections.emptyMap();
+
+      _stats = emptyStats(_lastResetTime, errorTypeCountsTotal);
+      addPending(pending, _stats, true);
+    }
+    finally
+    {
+      _rolling.set(false);
+    }
+    // Always deliver events after rolling over to avoid deadlocks.
+    deliver(pending);
+  }
+
+  @Override
+  public void trackCall(long duration)
+  {
+    trackCall(duration, false);
+  }
+
+  @Override
+  public void trackCallWithError(long duration)
+  {
+    trackCall(duration, true);
+  }
+
+  private void trackCall(long duration, boolean hasError)
+  {
+    long currentTime = _clock.currentTimeMillis();
+    List<PendingEvent> pending = rolloverIfStale(currentTime);
+    int stripe = stripe();
+    Interval interval = enter(stripe);
+    interval.addCallData(stripe, duration, hasError, null);
+    interval.exit(stripe);
+    deliver(pending);
+  }
+
+  private void endCall(long start, boolean hasError, ErrorType errorType)
+  {
+    List<PendingEvent> pending = null;
+    int stripe = stripe();
+    if (start >= _lastResetTime)
+    {
+      long currentTime = _clock.currentTimeMillis();
+      pending = rolloverIfStale(currentTime);
+      Interval interval = enter(stripe);
+      // Checked again after entering the interval, reset replaces the interval
+      // after updating the last reset time.
+      if (start >= _lastResetTime)
+      {
+        interval.addCallData(stripe, currentTime - start, hasError, errorType);
+      }
+      interval.exit(stripe);
+    }
+
+    // Concurrency is not reset
+    _concurrency.decrementAndGet();
+
+    // Sum of outstanding start times is not reset
+    _trackerCells.getAndAdd(cell(stripe, OUTSTANDING_START_TIME_SUM), -start);
+
+    deliver(pending);
+  }
+
+  /**
+   * Returns the current interval after registering the calling thread as a writer of
+   * the interval on its stripe.
+   */
+  private Interval enter(int stripe)
+  {
+    while (true)
+    {
+      Interval interval = _current;
+      interval.enter(stripe);
+      if (!interval._closed)
+      {
+        return interval;
+      }
+      interval.exit(stripe);
+    }
+  }
+
+  private List<PendingEvent> rolloverIfStale(long currentTime)
+  {
+    if (!_stats.stale(currentTime) || !_rolling.compareAndSet(false, true))
+    {
+      return null;
+    }
+    List<PendingEvent> pending = null;
+    try
+    {
+      if (_stats.stale(currentTime))
+      {
+        pending = new ArrayList<PendingEvent>(2);
+        long offset = currentTime - _lastResetTime;
+        long currentStartOffset = ((offset / _interval) * _interval);
+        long lastEnd = _lastResetTime + currentStartOffset;
+        long lastStart = lastEnd - _interval;
+        long startTime = _current._startTime;
+        if (startTime == lastStart)
+        {
+          // Current interval has elapsed.
+          // Emit stats and start new current interval.
+          rollover(lastEnd, lastEnd, pending);
+        }
+        else if (startTime < lastStart)
+        {
+          // Current interval is stale, emit stale accumulated stats.
+          rollover(startTime + _interval, lastStart, pending);
+          // Emit the empty interval that has just elapsed and start new interval.
+          rollover(lastEnd, lastEnd, pending);
+        }
+      }
+    }
+    finally
+    {
+      _rolling.set(false);
+    }
+    return pending;
+  }
+
+  /**
+   * Rollover the stats of the current interval and inform all the listeners.
+   *
+   * Must be called while rolling over.
+   *
+   * @param endTime is the end time of the current interval.
+   * @param nextStartTime is the start time of the next interval.
+   * @param pending provides where to add events to be delivered.
+   */
+  private void rollover(long endTime, long nextStartTime, List<PendingEvent> pending)
+  {
+    Interval interval = _current;
+    interval._closed = true;
+    Interval next = newInterval(nextStartTime);
+    _current = next;
+    interval.awaitWriters();
+    // The calls that were starting in the previous interval when the next one was created
+    // are now counted by the concurrency and still outstanding during the next interval.
+    next.updateConcurrentMax(_concurrency.get());
+
+    int callCount = (int) interval._callCount.get();
+    long callStartCount = interval.sum(CALL_START_COUNT);
+    long errorCount = interval.sum(ERROR_COUNT);
+    _callCountTotal += callCount;
+    _callStartCountTotal += callStartCount;
+    _errorCountTotal += errorCount;
+    Map<ErrorType, Integer> errorTypeCounts = addErrorTypeCounts(Collections.<ErrorType, Integer>emptyMap(), interval);
+    if (!errorTypeCounts.isEmpty())
+    {
+      _errorTypeCountsTotal = addErrorTypeCounts(_errorTypeCountsTotal, interval);
+    }
+
+    int concurrency = _concurrency.get();
+    long outstandingStartTimeSum = sum(_trackerCells, OUTSTANDING_START_TIME_SUM);
+    _stats = new CallTrackerImpl.CallTrackerStats(
+      _interval,
+      interval._startTime,
+      endTime,
+      _callCountTotal,
+      (int) callStartCount,
+      _callStartCountTotal,
+      (int) errorCount,
+      _errorCountTotal,
+      interval._concurrentMax.get(),
+      concurrency == 0 ? 0 : (outstandingStartTimeSum / concurrency),
+      concurrency,
+      interval.getCallTimeStats(),
+      errorTypeCounts,
+      _errorTypeCountsTotal);
+
+    addPending(pending, _stats, false);
+  }
+
+  /**
+   * Returns a new interval whose maximum concurrency starts from the current concurrency.
+   */
+  private Interval newInterval(long startTime)
+  {
+    Interval interval = new Interval(startTime, _callTimeHistogram ? new LongHistogram() : null);
+    interval.updateConcurrentMax(_concurrency.get());
+    return interval;
+  }
+
+  private void setLastStartTimes(long lastStartTime)
+  {
+    for (int stripe = 0; stripe < STRIPES; stripe++)
+    {
+      _trackerCells.set(cell(stripe, LAST_START_TIME), lastStartTime);
+    }
+  }
+
+  private CallStats emptyStats(long endTime, Map<ErrorType, Integer> errorTypeCountsTotal)
+  {
+    int concurrency = _concurrency.get();
+    return new CallTrackerImpl.CallTrackerStats(
+      _interval,
+      endTime - _interval,
+      endTime,
+      _callCountTotal,
+      0,
+      _callStartCountTotal,
+      0,
+      _errorCountTotal,
+      concurrency,
+      concurrency == 0 ? 0 : (sum(_trackerCells, OUTSTANDING_START_TIME_SUM) / concurrency),
+      concurrency,
+      new LongStats(),
+      Collections.<ErrorType, Integer>emptyMap(),
+      errorTypeCountsTotal);
+  }
+
+  private void addPending(List<PendingEvent> pending, CallStats stats, boolean reset)
+  {
+    if (!_listeners.isEmpty())
+    {
+      pending.add(new PendingEvent(stats, reset, _listeners));
+    }
+  }
+
+  private static void deliver(List<PendingEvent> pending)
+  {
+    if (pending != null)
+    {
+      for (PendingEvent event : pending)
+      {
+        for (StatsRolloverEventListener listener : event._listeners)
+        {
+          listener.onStatsRollover(event);
+        }
+      }
+    }
+  }
+
+  private static Map<ErrorType, Integer> addErrorTypeCounts(Map<ErrorType, Integer> counts, Interval interval)
+  {
+    Map<ErrorType, Integer> result = new HashMap<ErrorType, Integer>(counts);
+    for (int i = 0; i < ERROR_TYPES.length; i++)
+    {
+      int count = (int) interval.sum(ERROR_TYPE_COUNTS + i);
+      if (count != 0)
+      {
+        Integer previous = result.get(ERROR_TYPES[i]);
+        result.put(ERROR_TYPES[i], previous == null ? count : previous + count);
+      }
+    }
+    return result;
+  }
+
+  private static int stripe()
+  {
+    return (int) Thread.currentThread().getId() & STRIPE_MASK;
+  }
+
+  private static int cell(int stripe, int field)
+  {
+    return (stripe + 1) * CELLS_PER_STRIPE + field;
+  }
+
+  private static AtomicLongArray newCells()
+  {
+    return new AtomicLongArray((STRIPES + 1) * CELLS_PER_STRIPE);
+  }
+
+  private static long sum(AtomicLongArray cells, int field)
+  {
+    long sum = 0;
+    for (int stripe = 0; stripe < STRIPES; stripe++)
+    {
+      sum += cells.get(cell(stripe, field));
+    }
+    return sum;
+  }
+
+  /**
+   * Returns the slot where the call time with the specified ordinal is stored,
+   * or -1 if it would not be kept by {@link com.linkedin.common.stats.LongTracking}.
+   */
+  private static int sampleSlot(int ordinal)
+  {
+    if (ordinal <= PHASE_END_ORDINAL[0])
+    {
+      return ordinal - 1;
+    }
+    int phase = 1;
+    while (ordinal > PHASE_END_ORDINAL[phase])
+    {
+      phase++;
+    }
+    int ratio = 1 << phase;
+    if ((ordinal & (ratio - 1)) != 0)
+    {
+      return -1;
+    }
+    return PHASE_START_SLOT[phase] + (int) (ordinal / ratio - PHASE_END_ORDINAL[phase - 1] / ratio) - 1;
+  }
+
+  /**
+   * Returns the number of call times stored after the specified number of calls.
+   */
+  private static int sampleCount(int callCount)
+  {
+    if (callCount <= PHASE_END_ORDINAL[0])
+    {
+      return callCount;
+    }
+    int phase = 1;
+    while (callCount > PHASE_END_ORDINAL[phase])
+    {
+      phase++;
+    }
+    int ratio = 1 << phase;
+    return PHASE_START_SLOT[phase] + (int) (callCount / ratio - PHASE_END_ORDINAL[phase - 1] / ratio);
+  }
+
+  private class CallCompletionImpl implements CallCompletion
+  {
+    private final AtomicBoolean _done = new AtomicBoolean();
+    private final long _start;
+
+    private CallCompletionImpl(long currentTime)
+    {
+      _start = currentTime;
+    }
+
+    @Override
+    public void endCall()
+    {
+      endCall(false, null);
+    }
+
+    @Override
+    public void endCallWithError()
+    {
+      endCall(true, null);
+    }
+
+    @Override
+    public void endCallWithError(ErrorType errorType)
+    {
+      endCall(true, errorType);
+    }
+
+    private void endCall(boolean hasError, ErrorType errorType)
+    {
+      if (_done.compareAndSet(false, true))
+      {
+        StripedCallTrackerImpl.this.endCall(_start, hasError, errorType);
+      }
+    }
+  }
+
+  /**
+   * The statistics of one interval.
+   */
+  private static class Interval
+  {
+    private final long _startTime;
+    private volatile boolean _closed;
+
+    private final AtomicLongArray _cells = newCells();
+    // the ordinal of the last completed call, shared by all stripes
+    private final AtomicLong _callCount = new AtomicLong();
+    private final AtomicInteger _concurrentMax = new AtomicInteger();
+    // the sample chunks, indexed by the slot of the call ordinal
+    private final AtomicReferenceArray<long[]> _samples;
+    private final LongHistogram _callTimeHistogram;
+
+    private Interval(long startTime, LongHistogram callTimeHistogram)
+    {
+      _startTime = startTime;
+      _callTimeHistogram = callTimeHistogram;
+      _samples = callTimeHistogram == null ? new AtomicReferenceArray<long[]>(SAMPLE_CHUNKS) : null;
+      for (int stripe = 0; stripe < STRIPES; stripe++)
+      {
+        _cells.set(cell(stripe, CALL_TIME_MIN), Long.MAX_VALUE);
+        _cells.set(cell(stripe, CALL_TIME_MAX), Long.MIN_VALUE);
+      }
+    }
+
+    private void enter(int stripe)
+    {
+      _cells.getAndIncrement(cell(stripe, WRITERS));
+    }
+
+    private void exit(int stripe)
+    {
+      _cells.getAndDecrement(cell(stripe, WRITERS));
+    }
+
+    /**
+     * Wait for the threads that have entered this interval before it has been closed.
+     * Writers never block while they have entered an interval.
+     */
+    private void awaitWriters()
+    {
+      for (int stripe = 0; stripe < STRIPES; stripe++)
+      {
+        while (_cells.get(cell(stripe, WRITERS)) != 0)
+        {
+          Thread.yield();
+        }
+      }
+    }
+
+    private long sum(int field)
+    {
+      return StripedCallTrackerImpl.sum(_cells, field);
+    }
+
+    private void updateConcurrentMax(int concurrency)
+    {
+      int max;
+      while (concurrency > (max = _concurrentMax.get()) && !_concurrentMax.compareAndSet(max, concurrency))
+      {
+      }
+    }
+
+    private void updateMax(int stripe, int field, long value)
+    {
+      int index = cell(stripe, field);
+      long max;
+      while (value > (max = _cells.get(index)) && !_cells.compareAndSet(index, max, value))
+      {
+      }
+    }
+
+    private void updateMin(int stripe, int field, long value)
+    {
+      int index = cell(stripe, field);
+      long min;
+      while (value < (min = _cells.get(index)) && !_cells.compareAndSet(index, min, value))
+      {
+      }
+    }
+
+    private void addCallData(int stripe, long duration, boolean hasError, ErrorType errorType)
+    {
+      long ordinal = _callCount.incrementAndGet();
+      if (_callTimeHistogram != null)
+      {
+        _callTimeHistogram.addValue(duration);
+      }
+      else
+      {
+        int slot = ordinal <= Integer.MAX_VALUE ? sampleSlot((int) ordinal) : -1;
+        if (slot >= 0)
+        {
+          sampleChunk(slot >>> SAMPLE_CHUNK_SHIFT)[slot & (SAMPLE_CHUNK_SIZE - 1)] = duration;
+        }
+        _cells.getAndAdd(cell(stripe, CALL_TIME_SUM), duration);
+        _cells.getAndAdd(cell(stripe, CALL_TIME_SUM_OF_SQUARES), duration * duration);
+        updateMin(stripe, CALL_TIME_MIN, duration);
+        updateMax(stripe, CALL_TIME_MAX, duration);
+      }
+
+      if (hasError)
+      {
+        _cells.getAndIncrement(cell(stripe, ERROR_COUNT));
+      }
+      if (errorType != null)
+      {
+        _cells.getAndIncrement(cell(stripe, ERROR_TYPE_COUNTS + errorType.ordinal()));
+      }
+    }
+
+    private long[] sampleChunk(int index)
+    {
+      long[] chunk = _samples.get(index);
+      if (chunk == null)
+      {
+        _samples.compareAndSet(index, null, new long[SAMPLE_CHUNK_SIZE]);
+        chunk = _samples.get(index);
+      }
+      return chunk;
+    }
+
+    /**
+     * Compute the call time statistics the same way as {@link com.linkedin.common.stats.LongTracking},
+     * unless the call time histogram is enabled.
+     *
+     * Must only be called after all writers have exited.
+     */
+    private LongStats getCallTimeStats()
+    {
+      if (_callTimeHistogram != null)
+      {
+        return _callTimeHistogram.getStats();
+      }
+      int count = (int) _callCount.get();
+      if (count == 0)
+      {
+        return new LongStats(0, 0.0, 0.0, 0, 0, 0, 0, 0, 0);
+      }
+      long sum = sum(CALL_TIME_SUM);
+      long sumOfSquares = sum(CALL_TIME_SUM_OF_SQUARES);
+      double average = safeDivide(sum, count);
+      double standardDeviation = Math.sqrt(safeDivide(sumOfSquares - sum * average, count));
+
+      long min = Long.MAX_VALUE;
+      long max = Long.MIN_VALUE;
+      for (int stripe = 0; stripe < STRIPES; stripe++)
+      {
+        min = Math.min(min, _cells.get(cell(stripe, CALL_TIME_MIN)));
+        max = Math.max(max, _cells.get(cell(stripe, CALL_TIME_MAX)));
+      }
+      long[] samples = replaySamples(count);
+      Arrays.sort(samples);
+
+      return new LongStats(count, average, standardDeviation,
+                           min, max,
+                           percentile(samples, 0.50),
+                           percentile(samples, 0.90),
+                           percentile(samples, 0.95),
+                           percentile(samples, 0.99));
+    }
+
+    /**
+     * Replays the stored call times into a buffer managed like the buffer of LongTracking,
+     * and returns the call times kept in the buffer, in ordinal order.
+     */
+    private long[] replaySamples(int count)
+    {
+      long[] buffer = new long[SAMPLE_CAPACITY];
+      int nextIndex = 0;
+      int samples = sampleCount(count);
+      for (int slot = 0; slot < samples; slot++)
+      {
+        if (nextIndex >= SAMPLE_CAPACITY)
+        {
+          nextIndex = (nextIndex + 1) / 2;
+          int destIndex = 1;
+          int lastSrcIndex = 0;
+          while (destIndex < nextIndex)
+          {
+            buffer[destIndex++] = buffer[lastSrcIndex += 2];
+          }
+        }
+        buffer[nextIndex++] = _samples.get(slot >>> SAMPLE_CHUNK_SHIFT)[slot & (SAMPLE_CHUNK_SIZE - 1)];
+      }
+      return Arrays.copyOf(buffer, nextIndex);
+    }
+
+    private static long percentile(long[] sorted, double pct)
+    {
+      return sorted[(int) Math.round(pct * (sorted.length - 1))];
+    }
+
+    private static double safeDivide(final double numerator, final double denominator)
+    {
+      return denominator != 0 ? numerator / denominator : 0;
+    }
+  }
+
+  private static class PendingEvent implements StatsRolloverEvent
+  {
+    private final CallStats _stats;
+    private final boolean _reset;
+    private final List<StatsRolloverEventListener> _listeners;
+
+    PendingEvent(CallStats stats, boolean reset, List<StatsRolloverEventListener> listeners)
+    {
+      _stats = stats;
+      _reset = reset;
+      _listeners = listeners;
+    }
+
+    @Override
+    public CallStats getCallStats()
+    {
+      return _stats;
+    }
+
+    @Override
+    public boolean isReset()
+    {
+      return _reset;
+    }
+  }
+}
@@ -0,0 +1,370 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.util.degrader;
+
+
+import com.linkedin.common.stats.LongStats;
+import com.linkedin.util.clock.Clock;
+import com.linkedin.util.clock.SettableClock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+/**
+ * Runs the {@link TestCallTracker} tests against {@link StripedCallTrackerImpl} and
+ * checks that it produces the same statistics as {@link CallTrackerImpl}.
+ */
+public class TestStripedCallTracker extends TestCallTracker
+{
+  private static final long INTERVAL = 1000;
+
+  @Override
+  protected CallTracker createCallTracker(long interval, Clock clock)
+  {
+    return new StripedCallTrackerImpl(interval, clock);
+  }
+
+  @Test
+  public void testSameStatsAsCallTrackerImpl()
+  {
+    assertSameStatsAsCallTrackerImpl(false);
+  }
+
+  @Test
+  public void testSameStatsAsCallTrackerImplWithHistogram()
+  {
+    assertSameStatsAsCallTrackerImpl(true);
+  }
+
+  private void assertSameStatsAsCallTrackerImpl(boolean callTimeHistogram)
+  {
+    Random random = new Random(20140601L);
+    SettableClock clock = new SettableClock(1000000L);
+    CallTracker expected = new CallTrackerImpl(INTERVAL, clock, callTimeHistogram);
+    CallTracker actual = new StripedCallTrackerImpl(INTERVAL, clock, callTimeHistogram);
+    RecordingListener expectedEvents = new RecordingListener();
+    RecordingListener actualEvents = new RecordingListener();
+    expected.addStatsRolloverEventListener(expectedEvents);
+    actual.addStatsRolloverEventListener(actualEvents);
+
+    List<CallCompletion[]> outstanding = new ArrayList<CallCompletion[]>();
+    // the number of calls per interval crosses the points where the samples kept for
+    // the percentiles are halved
+    int[] callsPerInterval = { 0, 1, 7, 3999, 4000, 4001, 4002, 6001, 8003, 20000, 50000 };
+    for (int round = 0; round < 40; round++)
+    {
+      int calls = callsPerInterval[random.nextInt(callsPerInterval.length)];
+      long roundStart = clock.currentTimeMillis();
+      for (int i = 0; i < calls; i++)
+      {
+        clock.setCurrentTimeMillis(roundStart + (i * INTERVAL) / calls);
+        int op = random.nextInt(10);
+        if (op < 4)
+        {
+          outstanding.add(new CallCompletion[] { expected.startCall(), actual.startCall() });
+        }
+        else if (op < 8 && !outstanding.isEmpty())
+        {
+          CallCompletion[] completions = outstanding.remove(random.nextInt(outstanding.size()));
+          int outcome = random.nextInt(4);
+          if (outcome == 0)
+          {
+            ErrorType errorType = ErrorType.values()[random.nextInt(ErrorType.values().length)];
+            completions[0].endCallWithError(errorType);
+            completions[1].endCallWithError(errorType);
+          }
+          else if (outcome == 1)
+          {
+            completions[0].endCallWithError();
+            completions[1].endCallWithError();
+          }
+          else
+          {
+            completions[0].endCall();
+            completions[1].endCall();
+          }
+        }
+        else
+        {
+          long duration = random.nextInt(10) == 0 ? random.nextInt(100000) : random.nextInt(500);
+          if (random.nextBoolean())
+          {
+            expected.trackCall(duration);
+            actual.trackCall(duration);
+          }
+          else
+          {
+            expected.trackCallWithError(duration);
+            actual.trackCallWithError(duration);
+          }
+        }
+        assertSameCurrentTotals(expected, actual);
+      }
+
+      // move to the next interval, sometimes leaving empty intervals in between
+      clock.setCurrentTimeMillis(roundStart + INTERVAL * (1 + (random.nextInt(4) == 0 ? random.nextInt(3) : 0)));
+      if (random.nextInt(10) == 0)
+      {
+        expected.reset();
+        actual.reset();
+      }
+      assertSameStats(expected.getCallStats(), actual.getCallStats());
+      assertSameCurrentTotals(expected, actual);
+    }
+
+    Assert.assertEquals(actualEvents._events.size(), expectedEvents._events.size());
+    for (int i = 0; i < expectedEvents._events.size(); i++)
+    {
+      CallTracker.StatsRolloverEvent expectedEvent = expectedEvents._events.get(i);
+      CallTracker.StatsRolloverEvent actualEvent = actualEvents._events.get(i);
+      Assert.assertEquals(actualEvent.isReset(), expectedEvent.isReset());
+      assertSameStats(expectedEvent.getCallStats(), actualEvent.getCallStats());
+    }
+  }
+
+  @Test
+  public void testConcurrentCalls() throws Exception
+  {
+    final int threads = 8;
+    final int callsPerThread = 20000;
+    final AtomicLong time = new AtomicLong(1000000L);
+    Clock clock = new Clock()
+    {
+      @Override
+      public long currentTimeMillis()
+      {
+        return time.get();
+      }
+    };
+    final CallTracker tracker = new StripedCallTrackerImpl(INTERVAL, clock);
+    final AtomicLong rolledOverCalls = new AtomicLong();
+    final AtomicLong rolledOverErrors = new AtomicLong();
+    final AtomicLong rolledOverStarts = new AtomicLong();
+    tracker.addStatsRolloverEventListener(new CallTracker.StatsRolloverEventListener()
+    {
+      @Override
+      public void onStatsRollover(CallTracker.StatsRolloverEvent event)
+      {
+        CallTracker.CallStats stats = event.getCallStats();
+        Assert.assertEquals(stats.getCallTimeStats().getCount(), stats.getCallCount());
+        rolledOverCalls.addAndGet(stats.getCallCount());
+        rolledOverErrors.addAndGet(stats.getErrorCount());
+        rolledOverStarts.addAndGet(stats.getCallStartCount());
+      }
+    });
+
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(threads);
+    final List<Throwable> failures = new ArrayList<Throwable>();
+    for (int t = 0; t < threads; t++)
+    {
+      new Thread()
+      {
+        @Override
+        public void run()
+        {
+          try
+          {
+            start.await();
+            for (int i = 0; i < callsPerThread; i++)
+            {
+              CallCompletion completion = tracker.startCall();
+              if (i % 3 == 0)
+              {
+                completion.endCallWithError(ErrorType.CONNECT_EXCEPTION);
+              }
+              else
+              {
+                completion.endCall();
+              }
+              if (i % 1000 == 0)
+              {
+                time.addAndGet(INTERVAL / 4);
+              }
+            }
+          }
+          catch (Throwable e)
+          {
+            synchronized (failures)
+            {
+              failures.add(e);
+            }
+          }
+          finally
+          {
+            done.countDown();
+          }
+        }
+      }.start();
+    }
+    start.countDown();
+    done.await();
+    Assert.assertTrue(failures.isEmpty(), failures.toString());
+
+    long total = (long) threads * callsPerThread;
+    long errors = (long) threads * ((callsPerThread + 2) / 3);
+    Assert.assertEquals(tracker.getCurrentConcurrency(), 0);
+    Assert.assertEquals(tracker.getCurrentCallCountTotal(), total);
+    Assert.assertEquals(tracker.getCurrentCallStartCountTotal(), total);
+    Assert.assertEquals(tracker.getCurrentErrorCountTotal(), errors);
+    Assert.assertEquals(tracker.getCurrentErrorTypeCountsTotal().get(ErrorType.CONNECT_EXCEPTION), Integer.valueOf((int) errors));
+
+    time.addAndGet(INTERVAL * 2);
+    CallTracker.CallStats stats = tracker.getCallStats();
+    Assert.assertEquals(stats.getCallCountTotal(), total);
+    Assert.assertEquals(stats.getErrorCountTotal(), errors);
+    Assert.assertEquals(rolledOverCalls.get(), total);
+    Assert.assertEquals(rolledOverErrors.get(), errors);
+    Assert.assertEquals(rolledOverStarts.get(), total);
+  }
+
+  @Test
+  public void testCallTimesOfSeveralThreads() throws Exception
+  {
+    SettableClock clock = new SettableClock(1000000L);
+    final CallTracker tracker = new StripedCallTrackerImpl(INTERVAL, clock);
+    final int[] calls = { 5000, 8000 };
+    final long[] durations = { 10, 1000 };
+    Thread[] threads = new Thread[calls.length];
+    for (int t = 0; t < threads.length; t++)
+    {
+      final int thread = t;
+      threads[t] = new Thread()
+      {
+        @Override
+        public void run()
+        {
+          for (int i = 0; i < calls[thread]; i++)
+          {
+            tracker.trackCall(durations[thread]);
+          }
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread thread : threads)
+    {
+      thread.join();
+    }
+
+    clock.setCurrentTimeMillis(1000000L + INTERVAL);
+    LongStats stats = tracker.getCallStats().getCallTimeStats();
+    Assert.assertEquals(stats.getCount(), 13000);
+    Assert.assertEquals(stats.getMinimum(), 10);
+    Assert.assertEquals(stats.getMaximum(), 1000);
+    Assert.assertEquals(stats.getAverage(), (5000.0 * 10 + 8000.0 * 1000) / 13000);
+    // the samples are kept by the ordinal of the call, whichever thread tracked it
+    Assert.assertEquals(stats.get50Pct(), 1000);
+    Assert.assertEquals(stats.get99Pct(), 1000);
+  }
+
+  @Test
+  public void testConcurrentMaxOfCallsOnSeveralThreads() throws Exception
+  {
+    SettableClock clock = new SettableClock(1000000L);
+    final CallTracker tracker = new StripedCallTrackerImpl(INTERVAL, clock);
+    // Calls that do not overlap never make the concurrency exceed one, whichever
+    // thread starts them.
+    for (int t = 0; t < 8; t++)
+    {
+      Thread thread = new Thread()
+      {
+        @Override
+        public void run()
+        {
+          tracker.startCall().endCall();
+        }
+      };
+      thread.start();
+      thread.join();
+    }
+    final CallCompletion outstanding = tracker.startCall();
+    Thread thread = new Thread()
+    {
+      @Override
+      public void run()
+      {
+        tracker.startCall().endCall();
+      }
+    };
+    thread.start();
+    thread.join();
+    outstanding.endCall();
+
+    clock.setCurrentTimeMillis(1000000L + INTERVAL);
+    CallTracker.CallStats stats = tracker.getCallStats();
+    Assert.assertEquals(stats.getCallStartCount(), 10);
+    Assert.assertEquals(stats.getConcurrentMax(), 2);
+  }
+
+  private static void assertSameCurrentTotals(CallTracker expected, CallTracker actual)
+  {
+    Assert.assertEquals(actual.getCurrentCallCountTotal(), expected.getCurrentCallCountTotal());
+    Assert.assertEquals(actual.getCurrentCallStartCountTotal(), expected.getCurrentCallStartCountTotal());
+    Assert.assertEquals(actual.getCurrentErrorCountTotal(), expected.getCurrentErrorCountTotal());
+    Assert.assertEquals(actual.getCurrentErrorTypeCountsTotal(), expected.getCurrentErrorTypeCountsTotal());
+    Assert.assertEquals(actual.getCurrentConcurrency(), expected.getCurrentConcurrency());
+    Assert.assertEquals(actual.getTimeSinceLastCallStart(), expected.getTimeSinceLastCallStart());
+    Assert.assertEquals(actual.getLastResetTime(), expected.getLastResetTime());
+  }
+
+  private static void assertSameStats(CallTracker.CallStats expected, CallTracker.CallStats actual)
+  {
+    Assert.assertEquals(actual.getIntervalStartTime(), expected.getIntervalStartTime());
+    Assert.assertEquals(actual.getIntervalEndTime(), expected.getIntervalEndTime());
+    Assert.assertEquals(actual.getCallCount(), expected.getCallCount());
+    Assert.assertEquals(actual.getCallCountTotal(), expected.getCallCountTotal());
+    Assert.assertEquals(actual.getCallStartCount(), expected.getCallStartCount());
+    Assert.assertEquals(actual.getCallStartCountTotal(), expected.getCallStartCountTotal());
+    Assert.assertEquals(actual.getErrorCount(), expected.getErrorCount());
+    Assert.assertEquals(actual.getErrorCountTotal(), expected.getErrorCountTotal());
+    Assert.assertEquals(actual.getConcurrentMax(), expected.getConcurrentMax());
+    Assert.assertEquals(actual.getOutstandingStartTimeAvg(), expected.getOutstandingStartTimeAvg());
+    Assert.assertEquals(actual.getOutstandingCount(), expected.getOutstandingCount());
+    Assert.assertEquals(actual.getErrorTypeCounts(), expected.getErrorTypeCounts());
+    Assert.assertEquals(actual.getErrorTypeCountsTotal(), expected.getErrorTypeCountsTotal());
+
+    LongStats expectedCallTimeStats = expected.getCallTimeStats();
+    LongStats actualCallTimeStats = actual.getCallTimeStats();
+    Assert.assertEquals(actualCallTimeStats.getCount(), expectedCallTimeStats.getCount());
+    Assert.assertEquals(actualCallTimeStats.getAverage(), expectedCallTimeStats.getAverage());
+    Assert.assertEquals(actualCallTimeStats.getStandardDeviation(), expectedCallTimeStats.getStandardDeviation());
+    Assert.assertEquals(actualCallTimeStats.getMinimum(), expectedCallTimeStats.getMinimum());
+    Assert.assertEquals(actualCallTimeStats.getMaximum(), expectedCallTimeStats.getMaximum());
+    Assert.assertEquals(actualCallTimeStats.get50Pct(), expectedCallTimeStats.get50Pct());
+    Assert.assertEquals(actualCallTimeStats.get90Pct(), expectedCallTimeStats.get90Pct());
+    Assert.assertEquals(actualCallTimeStats.get95Pct(), expectedCallTimeStats.get95Pct());
+    Assert.assertEquals(actualCallTimeStats.get99Pct(), expectedCallTimeStats.get99Pct());
+  }
+
+  private static class RecordingListener implements CallTracker.StatsRolloverEventListener
+  {
+    private final List<CallTracker.StatsRolloverEvent> _events = new ArrayList<CallTracker.StatsRolloverEvent>();
+
+    @Override
+    public void onStatsRollover(CallTracker.StatsRolloverEvent event)
+    {
+      _events.add(event);
+    }
+  }
+}
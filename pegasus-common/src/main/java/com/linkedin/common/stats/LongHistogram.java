@@ -0,0 +1,220 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.common.stats;
+
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Maintain counts of values in log-linear buckets and provide the count, average,
+ * standard deviation, minimum, maximum and percentile values of the values added.
+ *
+ * <p>
+ * Unlike {@link LongTracking}, memory does not depend on the number of values added and
+ * adding a value is constant time. Values from 0 to 2<sup>precisionBits</sup> are counted
+ * exactly, larger values are counted in buckets whose width is at most
+ * 2<sup>1-precisionBits</sup> of the values in the bucket. Percentiles are the midpoint
+ * of the bucket they fall in, so their relative error is at most 2<sup>-precisionBits</sup>.
+ * Count, average, standard deviation, minimum and maximum are exact. Negative values are
+ * counted in the bucket of 0 and values larger than the highest trackable value are
+ * counted in the bucket of the highest trackable value, percentiles are always between
+ * the minimum and the maximum.
+ *
+ * <p>
+ * Values may be added concurrently without external synchronization. Statistics read
+ * while values are added, or while the histogram is reset, may not include all of the
+ * values being added.
+ */
+public class LongHistogram implements LongTracker
+{
+  public static final int DEFAULT_PRECISION_BITS = 7;
+
+  private final int _precisionBits;
+  private final int _halfBucketCount;
+  private final long _highestTrackableValue;
+  private final AtomicIntegerArray _counts;
+
+  private final AtomicLong _count = new AtomicLong();
+  private final AtomicLong _sum = new AtomicLong();
+  private final AtomicLong _sumOfSquares = new AtomicLong();
+  private final AtomicLong _min = new AtomicLong(Long.MAX_VALUE);
+  private final AtomicLong _max = new AtomicLong(Long.MIN_VALUE);
+
+  public LongHistogram()
+  {
+    this(DEFAULT_PRECISION_BITS, Long.MAX_VALUE);
+  }
+
+  /**
+   * @param precisionBits is the number of significant bits of the bucket of a value,
+   *                      from 1 to 16.
+   * @param highestTrackableValue is the highest value whose bucket is tracked, must be
+   *                              positive. Fewer buckets are needed for a lower value.
+   */
+  public LongHistogram(int precisionBits, long highestTrackableValue)
+  {
+    if (precisionBits < 1 || precisionBits > 16)
+    {
+      throw new IllegalArgumentException("precisionBits must be from 1 to 16: " + precisionBits);
+    }
+    if (highestTrackableValue <= 0)
+    {
+      throw new IllegalArgumentException("highestTrackableValue must be positive: " + highestTrackableValue);
+    }
+    _precisionBits = precisionBits;
+    _halfBucketCount = 1 << (precisionBits - 1);
+    _highestTrackableValue = highestTrackableValue;
+    _counts = new AtomicIntegerArray(bucketIndex(highestTrackableValue) + 1);
+  }
+
+  @Override
+  public void addValue(long value)
+  {
+    _counts.getAndIncrement(bucketIndex(Math.min(Math.max(value, 0), _highestTrackableValue)));
+    _count.getAndIncrement();
+    _sum.getAndAdd(value);
+    _sumOfSquares.getAndAdd(value * value);
+
+    long min;
+    while (value < (min = _min.get()) && !_min.compareAndSet(min, value))
+    {
+    }
+    long max;
+    while (value > (max = _max.get()) && !_max.compareAndSet(max, value))
+    {
+    }
+  }
+
+  @Override
+  public void reset()
+  {
+    for (int i = 0; i < _counts.length(); i++)
+    {
+      _counts.set(i, 0);
+    }
+    _count.set(0);
+    _sum.set(0);
+    _sumOfSquares.set(0);
+    _min.set(Long.MAX_VALUE);
+    _max.set(Long.MIN_VALUE);
+  }
+
+  @Override
+  public LongStats getStats()
+  {
+    int count = (int) Math.min(_count.get(), Integer.MAX_VALUE);
+    if (count == 0)
+    {
+      return new LongStats();
+    }
+    long sum = _sum.get();
+    double average = safeDivide(sum, count);
+    double standardDeviation = Math.sqrt(safeDivide(_sumOfSquares.get() - sum * average, count));
+    long min = _min.get();
+    long max = _max.get();
+
+    long bucketedCount = 0;
+    for (int i = 0; i < _counts.length(); i++)
+    {
+      bucketedCount += _counts.get(i);
+    }
+    long[] percentiles = percentiles(bucketedCount, min, max, 0.50, 0.90, 0.95, 0.99);
+
+    return new LongStats(count, average, standardDeviation, min, max,
+                         percentiles[0], percentiles[1], percentiles[2], percentiles[3]);
+  }
+
+  public int getPrecisionBits()
+  {
+    return _precisionBits;
+  }
+
+  public long getHighestTrackableValue()
+  {
+    return _highestTrackableValue;
+  }
+
+  /**
+   * @return the number of buckets, which determines the memory used by this histogram.
+   */
+  public int getBucketCount()
+  {
+    return _counts.length();
+  }
+
+  /**
+   * Compute the percentiles from the bucket counts, the percentiles must be in ascending order.
+   * The value at a percentile is the value at the same index as in the sorted values, see
+   * {@link LongTracking}.
+   */
+  private long[] percentiles(long count, long min, long max, double... pcts)
+  {
+    long[] result = new long[pcts.length];
+    int next = 0;
+    long seen = 0;
+    for (int i = 0; i < _counts.length() && next < pcts.length; i++)
+    {
+      seen += _counts.get(i);
+      while (next < pcts.length && seen > Math.round(pcts[next] * (count - 1)))
+      {
+        result[next++] = Math.min(Math.max(bucketValue(i), min), max);
+      }
+    }
+    // the buckets may have been updated concurrently with the count
+    while (next < pcts.length)
+    {
+      result[next++] = max;
+    }
+    return result;
+  }
+
+  /**
+   * Values below 2<sup>precisionBits</sup> have their own bucket. For larger values, the
+   * bucket is determined by the position of the highest bit set and the precisionBits bits
+   * starting at that position.
+   */
+  private int bucketIndex(long value)
+  {
+    int shift = (64 - _precisionBits) - Long.numberOfLeadingZeros(value);
+    if (shift <= 0)
+    {
+      return (int) value;
+    }
+    return shift * _halfBucketCount + (int) (value >>> shift);
+  }
+
+  /**
+   * @return the midpoint of the values in the bucket.
+   */
+  private long bucketValue(int index)
+  {
+    if (index < 2 * _halfBucketCount)
+    {
+      return index;
+    }
+    int shift = index / _halfBucketCount - 1;
+    long lowest = ((long) (index - shift * _halfBucketCount)) << shift;
+    return lowest + ((1L << shift) - 1) / 2;
+  }
+
+  private static double safeDivide(final double numerator, final double denominator)
+  {
+    return denominator != 0 ? numerator / denominator : 0;
+  }
+}
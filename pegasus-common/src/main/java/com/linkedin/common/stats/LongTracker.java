@@ -0,0 +1,45 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.common.stats;
+
+
+/**
+ * Tracks a collection of values and provides their {@link LongStats}.
+ *
+ * @see LongTracking
+ * @see LongHistogram
+ */
+public interface LongTracker
+{
+  /**
+   * Add a value to the collection.
+   *
+   * @param value to add.
+   */
+  void addValue(long value);
+
+  /**
+   * Remove all values from the collection.
+   */
+  void reset();
+
+  /**
+   * @return the count, average, standard deviation, minimum, maximum and percentile
+   *         values of the collection.
+   */
+  LongStats getStats();
+}
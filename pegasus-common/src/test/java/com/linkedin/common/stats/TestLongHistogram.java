@@ -0,0 +1,223 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.common.stats;
+
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TestLongHistogram
+{
+  @Test
+  public void testEmpty()
+  {
+    LongStats stats = new LongHistogram().getStats();
+    Assert.assertEquals(stats.getCount(), 0);
+    Assert.assertEquals(stats.getAverage(), 0.0);
+    Assert.assertEquals(stats.getStandardDeviation(), 0.0);
+    Assert.assertEquals(stats.getMinimum(), 0);
+    Assert.assertEquals(stats.getMaximum(), 0);
+    Assert.assertEquals(stats.get50Pct(), 0);
+    Assert.assertEquals(stats.get99Pct(), 0);
+  }
+
+  @Test
+  public void testSmallValuesAreExact()
+  {
+    LongHistogram histogram = new LongHistogram();
+    LongTracking tracking = new LongTracking();
+    for (long i = 0; i < 100; i++)
+    {
+      histogram.addValue(i);
+      tracking.addValue(i);
+    }
+    assertSameStats(histogram.getStats(), tracking.getStats());
+  }
+
+  @Test
+  public void testSameAsLongTrackingWithinPrecision()
+  {
+    Random random = new Random(1234);
+    for (int precisionBits : new int[] { 4, 7, 10 })
+    {
+      LongHistogram histogram = new LongHistogram(precisionBits, Long.MAX_VALUE);
+      long[] values = new long[100000];
+      for (int i = 0; i < values.length; i++)
+      {
+        // log-uniform from 1 to 2^40
+        values[i] = (long) Math.pow(2, random.nextDouble() * 40);
+        histogram.addValue(values[i]);
+      }
+      long[] sorted = values.clone();
+      Arrays.sort(sorted);
+      LongStats stats = histogram.getStats();
+
+      Assert.assertEquals(stats.getCount(), values.length);
+      Assert.assertEquals(stats.getMinimum(), sorted[0]);
+      Assert.assertEquals(stats.getMaximum(), sorted[sorted.length - 1]);
+      double relativeError = 1.0 / (1 << precisionBits);
+      assertPercentile(stats.get50Pct(), sorted, 0.50, relativeError);
+      assertPercentile(stats.get90Pct(), sorted, 0.90, relativeError);
+      assertPercentile(stats.get95Pct(), sorted, 0.95, relativeError);
+      assertPercentile(stats.get99Pct(), sorted, 0.99, relativeError);
+    }
+  }
+
+  @Test
+  public void testCountAverageAndDeviationAreExact()
+  {
+    Random random = new Random(5678);
+    LongHistogram histogram = new LongHistogram();
+    LongTracking tracking = new LongTracking();
+    for (int i = 0; i < 50000; i++)
+    {
+      long value = random.nextInt(1000000);
+      histogram.addValue(value);
+      tracking.addValue(value);
+    }
+    LongStats expected = tracking.getStats();
+    LongStats actual = histogram.getStats();
+    Assert.assertEquals(actual.getCount(), expected.getCount());
+    Assert.assertEquals(actual.getAverage(), expected.getAverage());
+    Assert.assertEquals(actual.getStandardDeviation(), expected.getStandardDeviation());
+    Assert.assertEquals(actual.getMinimum(), expected.getMinimum());
+    Assert.assertEquals(actual.getMaximum(), expected.getMaximum());
+  }
+
+  @Test
+  public void testValuesOutOfRange()
+  {
+    LongHistogram histogram = new LongHistogram(7, 1000);
+    histogram.addValue(-5);
+    histogram.addValue(-3);
+    histogram.addValue(-1);
+    histogram.addValue(500000);
+    histogram.addValue(Long.MAX_VALUE);
+    LongStats stats = histogram.getStats();
+    Assert.assertEquals(stats.getMinimum(), -5);
+    Assert.assertEquals(stats.getMaximum(), Long.MAX_VALUE);
+    // negative values are counted as 0, large values as the highest trackable value
+    Assert.assertEquals(stats.get50Pct(), 0);
+    Assert.assertTrue(Math.abs(stats.get90Pct() - 1000) <= 1000 / 128, String.valueOf(stats.get90Pct()));
+
+    histogram.addValue(-10);
+    histogram.reset();
+    histogram.addValue(-10);
+    Assert.assertEquals(histogram.getStats().get50Pct(), -10);
+  }
+
+  @Test
+  public void testBucketCount()
+  {
+    Assert.assertEquals(new LongHistogram(7, 127).getBucketCount(), 128);
+    Assert.assertEquals(new LongHistogram(7, 128).getBucketCount(), 129);
+    Assert.assertEquals(new LongHistogram(7, 255).getBucketCount(), 192);
+    Assert.assertTrue(new LongHistogram().getBucketCount() < 4000);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testIllegalPrecision()
+  {
+    new LongHistogram(0, 100);
+  }
+
+  @Test
+  public void testReset()
+  {
+    LongHistogram histogram = new LongHistogram();
+    for (int i = 0; i < 1000; i++)
+    {
+      histogram.addValue(i * 1000);
+    }
+    histogram.reset();
+    histogram.addValue(7);
+    LongStats stats = histogram.getStats();
+    Assert.assertEquals(stats.getCount(), 1);
+    Assert.assertEquals(stats.getMinimum(), 7);
+    Assert.assertEquals(stats.getMaximum(), 7);
+    Assert.assertEquals(stats.get50Pct(), 7);
+    Assert.assertEquals(stats.get99Pct(), 7);
+  }
+
+  @Test
+  public void testConcurrentAdd() throws Exception
+  {
+    final LongHistogram histogram = new LongHistogram();
+    final int threads = 8;
+    final int valuesPerThread = 100000;
+    final CountDownLatch start = new CountDownLatch(1);
+    Thread[] workers = new Thread[threads];
+    for (int t = 0; t < threads; t++)
+    {
+      workers[t] = new Thread()
+      {
+        @Override
+        public void run()
+        {
+          try
+          {
+            start.await();
+          }
+          catch (InterruptedException e)
+          {
+            return;
+          }
+          for (int i = 1; i <= valuesPerThread; i++)
+          {
+            histogram.addValue(i);
+          }
+        }
+      };
+      workers[t].start();
+    }
+    start.countDown();
+    for (Thread worker : workers)
+    {
+      worker.join();
+    }
+    LongStats stats = histogram.getStats();
+    Assert.assertEquals(stats.getCount(), threads * valuesPerThread);
+    Assert.assertEquals(stats.getAverage(), (valuesPerThread + 1) / 2.0);
+    Assert.assertEquals(stats.getMinimum(), 1);
+    Assert.assertEquals(stats.getMaximum(), valuesPerThread);
+    Assert.assertEquals(stats.get50Pct(), valuesPerThread / 2, valuesPerThread / 2 / 128.0);
+  }
+
+  private static void assertPercentile(long actual, long[] sorted, double pct, double relativeError)
+  {
+    long expected = sorted[(int) Math.round(pct * (sorted.length - 1))];
+    Assert.assertTrue(Math.abs(actual - expected) <= Math.max(1, expected * relativeError),
+                      pct + " percentile " + actual + " expected " + expected);
+  }
+
+  private static void assertSameStats(LongStats actual, LongStats expected)
+  {
+    Assert.assertEquals(actual.getCount(), expected.getCount());
+    Assert.assertEquals(actual.getAverage(), expected.getAverage());
+    Assert.assertEquals(actual.getStandardDeviation(), expected.getStandardDeviation());
+    Assert.assertEquals(actual.getMinimum(), expected.getMinimum());
+    Assert.assertEquals(actual.getMaximum(), expected.getMaximum());
+    Assert.assertEquals(actual.get50Pct(), expected.get50Pct());
+    Assert.assertEquals(actual.get90Pct(), expected.get90Pct());
+    Assert.assertEquals(actual.get95Pct(), expected.get95Pct());
+    Assert.assertEquals(actual.get99Pct(), expected.get99Pct());
+  }
+}
@@ -21,6 +21,8 @@ import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.r2.message.rest.RestResponse;
 import com.linkedin.r2.message.rpc.RpcRequest;
 import com.linkedin.r2.message.rpc.RpcResponse;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
 
 import java.util.Map;
 
@@ -56,6 +58,14 @@ import java.util.Map;
  *      ignored.
  *  </dd>
  *
+ *  <dt>Streamed Messages</dt>
+ *  <dd>
+ *      {@link StreamRequest}s and {@link StreamResponse}s only go through the filters which
+ *      implement {@link com.linkedin.r2.filter.message.stream.StreamRequestFilter} or
+ *      {@link com.linkedin.r2.filter.message.stream.StreamResponseFilter}; the other filters
+ *      are skipped, since they would need the whole entity.
+ *  </dd>
+ *
  *  <dt>Wire Attributes</dt>
  *  <dd>
  *      Wire attributes provide a mechanism for sending request or response metadata to the remote
@@ -171,4 +181,43 @@ public interface FilterChain
   void onRestError(Exception ex,
                    RequestContext requestContext,
                    Map<String, String> wireAttrs);
+
+  /**
+   * Runs the request through the stream filters of the chain with the supplied wire attributes
+   * and local attributes. See interface-level documentation for details about wire attributes
+   * and local attributes.
+   *
+   * @param req the request to send through the filter chain
+   * @param requestContext context for the request
+   * @param wireAttrs the initial set of wire attributes
+   */
+  void onStreamRequest(StreamRequest req,
+                       RequestContext requestContext,
+                       Map<String, String> wireAttrs);
+
+  /**
+   * Runs the response through the stream filters of the chain with the supplied wire attributes
+   * and local attributes. See interface-level documentation for details about wire attributes
+   * and local attributes.
+   *
+   * @param res the response to send through the filter chain
+   * @param requestContext context for the request
+   * @param wireAttrs the initial set of wire attributes
+   */
+  void onStreamResponse(StreamResponse res,
+                        RequestContext requestContext,
+                        Map<String, String> wireAttrs);
+
+  /**
+   * Runs the error through the stream filters of the chain with the supplied wire attributes
+   * and local attributes. See interface-level documentation for details about wire attributes
+   * and local attributes.
+   *
+   * @param ex the error to send through the filter chain
+   * @param requestContext context for the request
+   * @param wireAttrs the initial set of wire attributes
+   */
+  void onStreamError(Exception ex,
+                     RequestContext requestContext,
+                     Map<String, String> wireAttrs);
 }
@@ -28,6 +28,8 @@ import com.linkedin.r2.filter.message.rest.RestRequestFilter;
 import com.linkedin.r2.filter.message.rest.RestResponseFilter;
 import com.linkedin.r2.filter.message.rpc.RpcRequestFilter;
 import com.linkedin.r2.filter.message.rpc.RpcResponseFilter;
+import com.linkedin.r2.filter.message.stream.StreamRequestFilter;
+import com.linkedin.r2.filter.message.stream.StreamResponseFilter;
 import com.linkedin.r2.message.Request;
 import com.linkedin.r2.message.RequestContext;
 import com.linkedin.r2.message.Response;
@@ -35,6 +37,8 @@ import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.r2.message.rest.RestResponse;
 import com.linkedin.r2.message.rpc.RpcRequest;
 import com.linkedin.r2.message.rpc.RpcResponse;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
 
 /**
  * @author Chris Pettitt
@@ -43,29 +47,39 @@ import com.linkedin.r2.message.rpc.RpcResponse;
 {
   private final List<MessageFilter> _rpcFilters;
   private final List<MessageFilter> _restFilters;
+  // the filters which implement a stream filter interface
+  private final List<Filter> _streamFilters;
 
   public FilterChainImpl()
   {
     _rpcFilters = Collections.emptyList();
     _restFilters = Collections.emptyList();
+    _streamFilters = Collections.emptyList();
   }
 
-  private FilterChainImpl(List<MessageFilter> rpcFilters, List<MessageFilter> restFilters)
+  private FilterChainImpl(List<MessageFilter> rpcFilters,
+                          List<MessageFilter> restFilters,
+                          List<Filter> streamFilters)
   {
     _rpcFilters = Collections.unmodifiableList(new ArrayList<MessageFilter>(rpcFilters));
     _restFilters = Collections.unmodifiableList(new ArrayList<MessageFilter>(restFilters));
+    _streamFilters = Collections.unmodifiableList(new ArrayList<Filter>(streamFilters));
   }
 
   @Override
   public FilterChain addFirst(Filter filter)
   {
-    return new FilterChainImpl(addFirstRpc(filter), addFirstRest(filter));
+    return new FilterChainImpl(addFirstRpc(filter),
+                               addFirstRest(filter),
+                               isStreamFilter(filter) ? doAddFirst(_streamFilters, filter) : _streamFilters);
   }
 
   @Override
   public FilterChain addLast(Filter filter)
   {
-    return new FilterChainImpl(addLastRpc(filter), addLastRest(filter));
+    return new FilterChainImpl(addLastRpc(filter),
+                               addLastRest(filter),
+                               isStreamFilter(filter) ? doAddLast(_streamFilters, filter) : _streamFilters);
   }
 
   @Override
@@ -117,6 +131,35 @@ import com.linkedin.r2.message.rpc.RpcResponse;
             .onError(ex, requestContext, wireAttrs);
   }
 
+  @Override
+  public void onStreamRequest(StreamRequest req, RequestContext requestContext,
+                              Map<String, String> wireAttrs)
+  {
+    new StreamFilterChainIterator(_streamFilters, 0)
+            .onRequest(req, requestContext, wireAttrs);
+  }
+
+  @Override
+  public void onStreamResponse(StreamResponse res, RequestContext requestContext,
+                               Map<String, String> wireAttrs)
+  {
+    new StreamFilterChainIterator(_streamFilters, _streamFilters.size())
+            .onResponse(res, requestContext, wireAttrs);
+  }
+
+  @Override
+  public void onStreamError(Exception ex, RequestContext requestContext,
+                            Map<String, String> wireAttrs)
+  {
+    new StreamFilterChainIterator(_streamFilters, _streamFilters.size())
+            .onError(ex, requestContext, wireAttrs);
+  }
+
+  private static boolean isStreamFilter(Filter filter)
+  {
+    return filter instanceof StreamRequestFilter || filter instanceof StreamResponseFilter;
+  }
+
   private List<MessageFilter> addFirstRpc(Filter filter)
   {
     return doAddFirst(_rpcFilters, adaptRpcFilter(filter));
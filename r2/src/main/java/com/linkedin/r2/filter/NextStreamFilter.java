@@ -0,0 +1,58 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.r2.filter;
+
+import java.util.Map;
+
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
+
+/**
+ * The next filter in a chain of filters, for streamed messages.
+ *
+ * @see NextFilter
+ */
+public interface NextStreamFilter
+{
+  /**
+   * Invoke the request-handling method of the next filter.
+   *
+   * @param req the request to be filtered.
+   * @param requestContext the {@link RequestContext} for the request.
+   * @param wireAttrs the wire attributes for the request.
+   */
+  void onRequest(StreamRequest req, RequestContext requestContext, Map<String, String> wireAttrs);
+
+  /**
+   * Invoke the response-handling method of the next filter.
+   *
+   * @param res the response to be filtered.
+   * @param requestContext the {@link RequestContext} for the response.
+   * @param wireAttrs the wire attributes for the response.
+   */
+  void onResponse(StreamResponse res, RequestContext requestContext, Map<String, String> wireAttrs);
+
+  /**
+   * Invoke the error-handling method of the next filter.
+   *
+   * @param ex the throwable representation of the error.
+   * @param requestContext the {@link RequestContext} for the error.
+   * @param wireAttrs the wire attributes for the error.
+   */
+  void onError(Throwable ex, RequestContext requestContext, Map<String, String> wireAttrs);
+}
@@ -0,0 +1,105 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.r2.filter;
+
+import java.util.List;
+import java.util.Map;
+
+import com.linkedin.r2.filter.message.stream.StreamRequestFilter;
+import com.linkedin.r2.filter.message.stream.StreamResponseFilter;
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
+
+/**
+ * The {@link FilterChainIterator} of streamed messages. A filter which only processes requests
+ * or only responses is skipped in the other direction.
+ */
+/* package private */ final class StreamFilterChainIterator implements NextStreamFilter
+{
+  private final List<Filter> _filters;
+  private int _cursor;
+
+  public StreamFilterChainIterator(List<Filter> filters, int cursor)
+  {
+    _filters = filters;
+    _cursor = cursor;
+  }
+
+  @Override
+  public void onRequest(StreamRequest req, RequestContext requestContext, Map<String, String> wireAttrs)
+  {
+    while (_cursor < _filters.size())
+    {
+      final Filter filter = _filters.get(_cursor++);
+      if (filter instanceof StreamRequestFilter)
+      {
+        try
+        {
+          ((StreamRequestFilter) filter).onStreamRequest(req, requestContext, wireAttrs, this);
+        }
+        catch (RuntimeException e)
+        {
+          onError(e, requestContext, wireAttrs);
+        }
+        return;
+      }
+    }
+  }
+
+  @Override
+  public void onResponse(StreamResponse res, RequestContext requestContext, Map<String, String> wireAttrs)
+  {
+    while (_cursor > 0)
+    {
+      final Filter filter = _filters.get(--_cursor);
+      if (filter instanceof StreamResponseFilter)
+      {
+        try
+        {
+          ((StreamResponseFilter) filter).onStreamResponse(res, requestContext, wireAttrs, this);
+        }
+        catch (RuntimeException e)
+        {
+          onError(e, requestContext, wireAttrs);
+        }
+        return;
+      }
+    }
+  }
+
+  @Override
+  public void onError(Throwable ex, RequestContext requestContext, Map<String, String> wireAttrs)
+  {
+    while (_cursor > 0)
+    {
+      final Filter filter = _filters.get(--_cursor);
+      if (filter instanceof StreamResponseFilter)
+      {
+        try
+        {
+          ((StreamResponseFilter) filter).onStreamError(ex, requestContext, wireAttrs, this);
+        }
+        catch (RuntimeException e)
+        {
+          onError(e, requestContext, wireAttrs);
+        }
+        return;
+      }
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.filter.compression;
+
+import com.linkedin.data.ByteString;
+
+
+/**
+ * Base class for {@link Compressor}s, which adds compression of {@link ByteString}s. The default
+ * implementations go through the {@link java.io.InputStream} methods of {@link Compressor}.
+ */
+public abstract class AbstractCompressor implements Compressor
+{
+  /** Decompression function working on the entity without copying it.
+   * @param data Data to be decompressed
+   * @return Decompressed data
+   * @throws CompressionException if the data cannot be properly decompressed
+   * */
+  public ByteString inflate(ByteString data) throws CompressionException
+  {
+    byte[] inflated = inflate(data.asInputStream());
+    return ByteString.unsafeWrap(inflated, 0, inflated.length);
+  }
+
+  /** Compress function working on the entity without copying it, which gives up once
+   * the compressed data is known to be larger than {@code maxRatio} times the input.
+   * The default implementation only knows the size of the compressed data at the end.
+   * @param data Data to be compressed
+   * @param maxRatio Largest acceptable ratio of compressed to uncompressed size
+   * @return Compressed data, or null if the compression was given up
+   * @throws CompressionException if the data cannot be properly compressed
+   * */
+  public ByteString deflate(ByteString data, float maxRatio) throws CompressionException
+  {
+    byte[] compressed = deflate(data.asInputStream());
+    if (compressed.length > data.length() * (double) maxRatio)
+    {
+      return null;
+    }
+    return ByteString.unsafeWrap(compressed, 0, compressed.length);
+  }
+
+  /**
+   * Decompresses the data with {@link #inflate(ByteString)} if the compressor is an
+   * {@link AbstractCompressor}, and with {@link Compressor#inflate(java.io.InputStream)} otherwise.
+   */
+  public static ByteString inflate(Compressor compressor, ByteString data) throws CompressionException
+  {
+    if (compressor instanceof AbstractCompressor)
+    {
+      return ((AbstractCompressor) compressor).inflate(data);
+    }
+    byte[] inflated = compressor.inflate(data.asInputStream());
+    return ByteString.unsafeWrap(inflated, 0, inflated.length);
+  }
+
+  /**
+   * Compresses the data with {@link #deflate(ByteString, float)} if the compressor is an
+   * {@link AbstractCompressor}, and with {@link Compressor#deflate(java.io.InputStream)} otherwise.
+   */
+  public static ByteString deflate(Compressor compressor, ByteString data, float maxRatio) throws CompressionException
+  {
+    if (compressor instanceof AbstractCompressor)
+    {
+      return ((AbstractCompressor) compressor).deflate(data, maxRatio);
+    }
+    byte[] compressed = compressor.deflate(data.asInputStream());
+    if (compressed.length > data.length() * (double) maxRatio)
+    {
+      return null;
+    }
+    return ByteString.unsafeWrap(compressed, 0, compressed.length);
+  }
+}
@@ -98,6 +98,22 @@ public class AcceptEncoding implements Comparable<AcceptEncoding>
    * @throws CompressionException
    */
   public static List<AcceptEncoding> parseAcceptEncodingHeader(String headerValue, Set<EncodingType> supportedEncodings) throws CompressionException
+  {
+    return parseAcceptEncodingHeader(headerValue, supportedEncodings, null);
+  }
+
+  /**
+   * Takes the value of Accept-Encoding HTTP header field and returns a list of supported types in
+   * their order of appearance in the HTTP header value (unsupported types are filtered out).
+   * Dictionary entries are only accepted if they name the current dictionary of the given dictionaries.
+   * @param headerValue Http header value of Accept-Encoding field
+   * @param dictionaries dictionaries of the server, null if it has none
+   * @return ArrayList of accepted-encoding entries
+   * @throws CompressionException
+   */
+  public static List<AcceptEncoding> parseAcceptEncodingHeader(String headerValue,
+                                                               Set<EncodingType> supportedEncodings,
+                                                               CompressionDictionaries dictionaries) throws CompressionException
   {
     headerValue = headerValue.toLowerCase();
     String[] entries = headerValue.split(CompressionConstants.ENCODING_DELIMITER);
@@ -107,19 +123,20 @@ public class AcceptEncoding implements Comparable<AcceptEncoding>
     {
       String[] content = entry.trim().split(CompressionConstants.QUALITY_DELIMITER);
 
-      if(content.length < 1 || content.length > 2)
+      if(content.length < 1 || content.length > 3)
       {
         throw new IllegalArgumentException(CompressionConstants.ILLEGAL_FORMAT + entry);
       }
 
       EncodingType type = EncodingType.get(content[0].trim());
       Float quality = 1.0f;
+      String dictionaryId = null;
 
       if (type != null && supportedEncodings.contains(type))
       {
-        if (content.length > 1)
+        for (int i = 1; i < content.length; i++)
         {
-          String acceptEncodingPart = content[1].trim();
+          String acceptEncodingPart = content[i].trim();
           if (acceptEncodingPart.startsWith(CompressionConstants.QUALITY_PREFIX))
           {
             try
@@ -131,12 +148,24 @@ public class AcceptEncoding implements Comparable<AcceptEncoding>
               throw new CompressionException(CompressionConstants.ILLEGAL_FORMAT + entry, e);
             }
           }
+          else if (type == EncodingType.DEFLATE_DICTIONARY
+              && acceptEncodingPart.startsWith(CompressionConstants.DICTIONARY_PREFIX))
+          {
+            dictionaryId = acceptEncodingPart.substring(CompressionConstants.DICTIONARY_PREFIX.length());
+          }
           else
           {
             throw new CompressionException(CompressionConstants.ILLEGAL_FORMAT + entry);
           }
         }
 
+        //The client can only decompress with the dictionary it names
+        if (type == EncodingType.DEFLATE_DICTIONARY && quality > 0.0
+            && (dictionaries == null || !dictionaries.isCurrentDictionary(dictionaryId)))
+        {
+          continue;
+        }
+
         parsedEncodings.add(new AcceptEncoding(type, quality));
       }
     }
@@ -27,7 +27,7 @@ import org.apache.commons.io.IOUtils;
 /**
  * Wrapper class for bzip2 compression
  * */
-public class Bzip2Compressor implements Compressor {
+public class Bzip2Compressor extends AbstractCompressor {
   private static final String HTTP_NAME = "bzip2";
 
   @Override
@@ -17,13 +17,21 @@
 package com.linkedin.r2.filter.compression;
 
 
+import com.linkedin.common.callback.Callback;
+import com.linkedin.data.ByteString;
 import com.linkedin.r2.filter.R2Constants;
 import com.linkedin.r2.filter.Filter;
 import com.linkedin.r2.filter.NextFilter;
+import com.linkedin.r2.filter.NextStreamFilter;
 import com.linkedin.r2.filter.message.rest.RestFilter;
+import com.linkedin.r2.filter.message.stream.StreamFilter;
 import com.linkedin.r2.message.RequestContext;
 import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.streaming.EntityStreams;
+import com.linkedin.r2.message.streaming.Messages;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
 import com.linkedin.r2.transport.http.common.HttpConstants;
 import com.linkedin.r2.util.ConfigValueExtractor;
 import java.util.HashSet;
@@ -34,15 +42,25 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Client filter for compression
+ * Client filter for compression.<p/>
+ *
+ * Streamed requests and responses in the gzip and deflate encodings are compressed and
+ * decompressed a chunk at a time as their entities are read, like the responses of
+ * {@link ServerCompressionFilter}; as the length of a streamed request is unknown, neither the
+ * threshold nor the compression ratio apply to it. The streamed messages in the other encodings
+ * are read fully to be compressed or decompressed, a response up to the maximum response size.
  * */
-public class ClientCompressionFilter implements Filter, RestFilter
+public class ClientCompressionFilter implements Filter, RestFilter, StreamFilter
 {
   private static final Logger LOG = LoggerFactory.getLogger(ClientCompressionFilter.class);
 
   private final EncodingType _requestCompression;
   private final EncodingType[] _acceptCompression;
   private final String _acceptEncodingHeader;
+  private final int _requestCompressionThreshold;
+  private final CompressionDictionaries _dictionaries;
+  private final Compressor _dictionaryCompressor;
+  private final int _maxResponseSize;
 
   /**
    * The set of methods for which response compression will be turned on
@@ -77,6 +95,74 @@ public class ClientCompressionFilter implements Filter, RestFilter
                                  EncodingType[] acceptCompression,
                                  List<String> responseCompressionOperations)
   {
+    this(requestCompression, acceptCompression, responseCompressionOperations, 0);
+  }
+
+  /**
+   * Instantiates a client compression filter
+   * @param requestCompression Specifies which compression encoding
+   * was used to compress requests
+   * @param acceptCompression Specifies which compression encodings
+   * are accepted by the client
+   * @param requestCompressionThreshold Size in bytes below which requests
+   * are not compressed
+   */
+  public ClientCompressionFilter(EncodingType requestCompression,
+                                 EncodingType[] acceptCompression,
+                                 List<String> responseCompressionOperations,
+                                 int requestCompressionThreshold)
+  {
+    this(requestCompression, acceptCompression, responseCompressionOperations, requestCompressionThreshold,
+         new CompressionDictionaries());
+  }
+
+  /**
+   * Instantiates a client compression filter
+   * @param requestCompression Specifies which compression encoding
+   * was used to compress requests
+   * @param acceptCompression Specifies which compression encodings
+   * are accepted by the client
+   * @param requestCompressionThreshold Size in bytes below which requests
+   * are not compressed
+   * @param dictionaries Dictionaries of the {@link EncodingType#DEFLATE_DICTIONARY}
+   * encoding, registered before the filter is instantiated
+   */
+  public ClientCompressionFilter(EncodingType requestCompression,
+                                 EncodingType[] acceptCompression,
+                                 List<String> responseCompressionOperations,
+                                 int requestCompressionThreshold,
+                                 CompressionDictionaries dictionaries)
+  {
+    this(requestCompression, acceptCompression, responseCompressionOperations, requestCompressionThreshold,
+         dictionaries, CompressionConstants.DEFAULT_MAX_RESPONSE_SIZE);
+  }
+
+  /**
+   * Instantiates a client compression filter
+   * @param requestCompression Specifies which compression encoding
+   * was used to compress requests
+   * @param acceptCompression Specifies which compression encodings
+   * are accepted by the client
+   * @param requestCompressionThreshold Size in bytes below which requests
+   * are not compressed
+   * @param dictionaries Dictionaries of the {@link EncodingType#DEFLATE_DICTIONARY}
+   * encoding, registered before the filter is instantiated
+   * @param maxResponseSize Size in bytes above which a streamed response, which
+   * is read fully to be decompressed unless it is in the gzip or deflate encoding, fails
+   */
+  public ClientCompressionFilter(EncodingType requestCompression,
+                                 EncodingType[] acceptCompression,
+                                 List<String> responseCompressionOperations,
+                                 int requestCompressionThreshold,
+                                 CompressionDictionaries dictionaries,
+                                 int maxResponseSize)
+  {
+    if (requestCompressionThreshold < 0)
+    {
+      throw new IllegalArgumentException("requestCompressionThreshold should not be negative: "
+                                         + requestCompressionThreshold);
+    }
+
     if (requestCompression == null)
     {
       throw new IllegalArgumentException(CompressionConstants.NULL_COMPRESSOR_ERROR);
@@ -104,6 +190,10 @@ public class ClientCompressionFilter implements Filter, RestFilter
 
     _requestCompression = requestCompression;
     _acceptCompression = acceptCompression;
+    _requestCompressionThreshold = requestCompressionThreshold;
+    _dictionaries = dictionaries;
+    _dictionaryCompressor = new DictionaryDeflateCompressor(dictionaries);
+    _maxResponseSize = maxResponseSize;
 
     _acceptEncodingHeader = buildAcceptEncodingHeader();
     _responseCompressionMethods = new HashSet<String>();
@@ -119,9 +209,20 @@ public class ClientCompressionFilter implements Filter, RestFilter
    * @param acceptCompression
    */
   public ClientCompressionFilter(String requestCompression, String acceptCompression, List<String> responseCompressionOperations)
+  {
+    this(requestCompression, acceptCompression, responseCompressionOperations, CompressionConstants.DEFAULT_MAX_RESPONSE_SIZE);
+  }
+
+  /**
+   * Same as previous constructor, with the size in bytes above which a streamed response read
+   * fully to be decompressed fails.
+   */
+  public ClientCompressionFilter(String requestCompression, String acceptCompression,
+                                 List<String> responseCompressionOperations, int maxResponseSize)
   {
     this(requestCompression.trim().isEmpty() ? EncodingType.IDENTITY : EncodingType.get(requestCompression.trim().toLowerCase()),
-        AcceptEncoding.parseAcceptEncoding(acceptCompression), responseCompressionOperations);
+        AcceptEncoding.parseAcceptEncoding(acceptCompression), responseCompressionOperations, 0,
+        new CompressionDictionaries(), maxResponseSize);
   }
 
   @Deprecated
@@ -160,6 +261,11 @@ public class ClientCompressionFilter implements Filter, RestFilter
     }
   }
 
+  private Compressor getCompressor(EncodingType encoding)
+  {
+    return encoding == EncodingType.DEFLATE_DICTIONARY ? _dictionaryCompressor : encoding.getCompressor();
+  }
+
   /**
    * Builds the accept encoding header as a string
    * @return string representation of the Accept-Encoding value for this client
@@ -170,17 +276,35 @@ public class ClientCompressionFilter implements Filter, RestFilter
     float delta = 1.0f/(_acceptCompression.length+1);
     float currentQuality = 1.0f;
 
-    //Special case so we don't end with an unnecessary delimiter
     StringBuilder acceptEncodingValue = new StringBuilder();
     for(int i=0; i < _acceptCompression.length; i++)
     {
       EncodingType t = _acceptCompression[i];
 
-      if(i > 0)
+      //The dictionary encoding is only accepted with the dictionary to use
+      String dictionaryId = null;
+      if (t == EncodingType.DEFLATE_DICTIONARY)
+      {
+        dictionaryId = _dictionaries.getCurrentDictionaryId();
+        if (dictionaryId == null)
+        {
+          LOG.warn("No compression dictionary is registered, " + t.getHttpName() + " is not accepted");
+          continue;
+        }
+      }
+
+      //Special case so we don't end with an unnecessary delimiter
+      if(acceptEncodingValue.length() > 0)
       {
         acceptEncodingValue.append(CompressionConstants.ENCODING_DELIMITER);
       }
       acceptEncodingValue.append(t.getHttpName());
+      if (dictionaryId != null)
+      {
+        acceptEncodingValue.append(CompressionConstants.QUALITY_DELIMITER);
+        acceptEncodingValue.append(CompressionConstants.DICTIONARY_PREFIX);
+        acceptEncodingValue.append(dictionaryId);
+      }
       acceptEncodingValue.append(CompressionConstants.QUALITY_DELIMITER);
       acceptEncodingValue.append(CompressionConstants.QUALITY_PREFIX);
       acceptEncodingValue.append(String.format("%.2f", currentQuality));
@@ -197,16 +321,72 @@ public class ClientCompressionFilter implements Filter, RestFilter
   public void onRestRequest(RestRequest req, RequestContext requestContext,
                             Map<String, String> wireAttrs,
                             NextFilter<RestRequest, RestResponse> nextFilter)
+  {
+    //Specify the actual compression algorithm used
+    nextFilter.onRequest(compress(req, requestContext), requestContext, wireAttrs);
+  }
+
+  /**
+   * Optionally compresses outgoing streamed requests, a chunk at a time in the gzip and deflate
+   * encodings, or after reading them fully in the others.
+   */
+  @Override
+  public void onStreamRequest(StreamRequest req, final RequestContext requestContext,
+                              final Map<String, String> wireAttrs,
+                              final NextStreamFilter nextFilter)
+  {
+    if (!_requestCompression.hasCompressor())
+    {
+      // only the headers change
+      nextFilter.onRequest(new StreamRequest(compress(req.getHead(), requestContext), req.getEntityStream()),
+                           requestContext, wireAttrs);
+      return;
+    }
+
+    ZlibCodec codec = ZlibCodec.get(_requestCompression);
+    if (codec != null)
+    {
+      RestRequest head = compress(req.getHead(), requestContext).builder()
+          .setHeader(HttpConstants.CONTENT_ENCODING, _requestCompression.getHttpName())
+          .build();
+      nextFilter.onRequest(new StreamRequest(head,
+                               EntityStreams.newEntityStream(new ZlibEntityWriter(codec.newDeflation(),
+                                                                                  req.getEntityStream()))),
+                           requestContext, wireAttrs);
+      return;
+    }
+
+    Messages.toRestRequest(req, new Callback<RestRequest>()
+    {
+      @Override
+      public void onSuccess(RestRequest restRequest)
+      {
+        nextFilter.onRequest(Messages.toStreamRequest(compress(restRequest, requestContext)),
+                             requestContext, wireAttrs);
+      }
+
+      @Override
+      public void onError(Throwable e)
+      {
+        nextFilter.onError(e, requestContext, wireAttrs);
+      }
+    });
+  }
+
+  private RestRequest compress(RestRequest req, RequestContext requestContext)
   {
     try
     {
       //If request can be compressed, compress
-      if (_requestCompression.hasCompressor())
+      if (_requestCompression.hasCompressor()
+          && req.getEntity().length() > 0
+          && req.getEntity().length() >= _requestCompressionThreshold)
       {
-        Compressor compressor = _requestCompression.getCompressor();
-        byte[] compressed = compressor.deflate(req.getEntity().asInputStream());
+        Compressor compressor = getCompressor(_requestCompression);
+        // gives up as soon as the compressed entity would not be smaller
+        ByteString compressed = AbstractCompressor.deflate(compressor, req.getEntity(), 1.0f);
 
-        if (compressed.length < req.getEntity().length())
+        if (compressed != null && compressed.length() < req.getEntity().length())
         {
           req = req.builder().setEntity(compressed).setHeader(HttpConstants.CONTENT_ENCODING,
                                                               compressor.getContentEncodingName()).build();
@@ -224,9 +404,7 @@ public class ClientCompressionFilter implements Filter, RestFilter
     {
       LOG.error(e.getMessage(), e.getCause());
     }
-
-    //Specify the actual compression algorithm used
-    nextFilter.onRequest(req, requestContext, wireAttrs);
+    return req;
   }
 
   /**
@@ -268,6 +446,63 @@ public class ClientCompressionFilter implements Filter, RestFilter
   public void onRestResponse(RestResponse res, RequestContext requestContext,
                              Map<String, String> wireAttrs,
                              NextFilter<RestRequest, RestResponse> nextFilter)
+  {
+    nextFilter.onResponse(decompress(res), requestContext, wireAttrs);
+  }
+
+  /**
+   * Decompresses streamed server responses, a chunk at a time in the gzip and deflate encodings,
+   * or after reading them fully, up to the maximum response size, in the others.
+   */
+  @Override
+  public void onStreamResponse(StreamResponse res, final RequestContext requestContext,
+                               final Map<String, String> wireAttrs,
+                               final NextStreamFilter nextFilter)
+  {
+    String compressionHeader = res.getHeader(HttpConstants.CONTENT_ENCODING);
+    if (compressionHeader == null)
+    {
+      nextFilter.onResponse(res, requestContext, wireAttrs);
+      return;
+    }
+
+    ZlibCodec codec = ZlibCodec.get(EncodingType.get(compressionHeader.trim().toLowerCase()));
+    if (codec != null)
+    {
+      // the headers are kept, as in decompress(RestResponse)
+      StreamResponse decompressed = new StreamResponse(res.getHead(),
+          EntityStreams.newEntityStream(new ZlibEntityWriter(codec.newInflation(), res.getEntityStream())));
+      nextFilter.onResponse(decompressed, requestContext, wireAttrs);
+      return;
+    }
+
+    Messages.toRestResponse(res, _maxResponseSize, new Callback<RestResponse>()
+    {
+      @Override
+      public void onSuccess(RestResponse restResponse)
+      {
+        StreamResponse decompressed;
+        try
+        {
+          decompressed = Messages.toStreamResponse(decompress(restResponse));
+        }
+        catch (RuntimeException e)
+        {
+          nextFilter.onError(e, requestContext, wireAttrs);
+          return;
+        }
+        nextFilter.onResponse(decompressed, requestContext, wireAttrs);
+      }
+
+      @Override
+      public void onError(Throwable e)
+      {
+        nextFilter.onError(e, requestContext, wireAttrs);
+      }
+    });
+  }
+
+  private RestResponse decompress(RestResponse res)
   {
     try
     {
@@ -285,7 +520,7 @@ public class ClientCompressionFilter implements Filter, RestFilter
 
         if (encoding.hasCompressor())
         {
-          byte[] inflated = encoding.getCompressor().inflate(res.getEntity().asInputStream());
+          ByteString inflated = AbstractCompressor.inflate(getCompressor(encoding), res.getEntity());
           res = res.builder().setEntity(inflated).build();
         }
       }
@@ -296,8 +531,7 @@ public class ClientCompressionFilter implements Filter, RestFilter
       //Will change to proper type when rest.li supports centralized filter exception handling
       throw new RuntimeException(CompressionConstants.SERVER_ENCODING_ERROR, e);
     }
-
-    nextFilter.onResponse(res, requestContext, wireAttrs);
+    return res;
   }
 
   @Override
@@ -308,4 +542,11 @@ public class ClientCompressionFilter implements Filter, RestFilter
     nextFilter.onError(ex, requestContext, wireAttrs);
   }
 
+  @Override
+  public void onStreamError(Throwable ex, RequestContext requestContext,
+                            Map<String, String> wireAttrs,
+                            NextStreamFilter nextFilter)
+  {
+    nextFilter.onError(ex, requestContext, wireAttrs);
+  }
 }
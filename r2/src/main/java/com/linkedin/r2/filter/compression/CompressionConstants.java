@@ -3,6 +3,8 @@ package com.linkedin.r2.filter.compression;
 public class CompressionConstants
 {
   protected static final int BUFFER_SIZE = 4*1024; //NOTE: works reasonably well in most cases.
+  // the default http.maxResponseSize of HttpClientFactory
+  protected static final int DEFAULT_MAX_RESPONSE_SIZE = 2*1024*1024;
 
   protected static final String DECODING_ERROR = "Cannot properly decode stream: ";
   protected static final String BAD_STREAM = "Bad input stream";
@@ -15,8 +17,10 @@ public class CompressionConstants
   protected static final String REQUEST_ANY_ERROR = "ANY may not be used as request encoding type: ";
   protected static final String UNKNOWN_ENCODING = "Unknown client encoding. ";
   protected static final String UNSUPPORTED_SERVER_ENCODING = "Bad encoding used for server compression constructor: ";
+  protected static final String NO_DICTIONARY = "No compression dictionary is registered.";
 
   protected static final String ENCODING_DELIMITER = ",";
   protected static final String QUALITY_DELIMITER = ";";
   protected static final String QUALITY_PREFIX = "q=";
+  protected static final String DICTIONARY_PREFIX = "dict=";
 }
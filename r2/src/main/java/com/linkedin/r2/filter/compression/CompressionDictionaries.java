@@ -0,0 +1,142 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.filter.compression;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.Adler32;
+
+/**
+ * The preset dictionaries of a {@link DictionaryDeflateCompressor}, shared by the compressor and
+ * the compression filters it is given to.<p/>
+ *
+ * Dictionaries are identified by their Adler-32 checksum, which zlib writes in the header of the
+ * compressed data, so any registered dictionary can be used to decompress. Only the current
+ * dictionary is used to compress.
+ */
+public class CompressionDictionaries
+{
+  /**
+   * Deflate only refers to the last 32k of the dictionary.
+   */
+  public static final int MAX_DICTIONARY_SIZE = 32 * 1024;
+
+  private final ConcurrentMap<Integer, byte[]> _dictionaries = new ConcurrentHashMap<Integer, byte[]>();
+  private volatile Dictionary _currentDictionary;
+
+  /**
+   * Registers the dictionary and makes it the one used to compress.
+   *
+   * @param dictionary the dictionary, of at most {@link #MAX_DICTIONARY_SIZE} bytes.
+   * @return the id of the dictionary.
+   */
+  public String setCurrentDictionary(byte[] dictionary)
+  {
+    String id = addDictionary(dictionary);
+    _currentDictionary = new Dictionary(_dictionaries.get(checksum(dictionary)), id);
+    return id;
+  }
+
+  /**
+   * Registers the dictionary to decompress the data compressed with it, such as the previous
+   * dictionary while a new one is rolled out.
+   *
+   * @param dictionary the dictionary, of at most {@link #MAX_DICTIONARY_SIZE} bytes.
+   * @return the id of the dictionary.
+   */
+  public String addDictionary(byte[] dictionary)
+  {
+    if (dictionary.length == 0 || dictionary.length > MAX_DICTIONARY_SIZE)
+    {
+      throw new IllegalArgumentException("Dictionary size should be between 1 and " + MAX_DICTIONARY_SIZE
+                                         + ": " + dictionary.length);
+    }
+    int checksum = checksum(dictionary);
+    _dictionaries.putIfAbsent(checksum, dictionary.clone());
+    return toId(checksum);
+  }
+
+  /**
+   * @return the id of the dictionary used to compress, or null if there is none.
+   */
+  public String getCurrentDictionaryId()
+  {
+    Dictionary current = _currentDictionary;
+    return current == null ? null : current._id;
+  }
+
+  /**
+   * @return true if the id is the one of the dictionary used to compress.
+   */
+  public boolean isCurrentDictionary(String id)
+  {
+    String currentId = getCurrentDictionaryId();
+    return currentId != null && currentId.equalsIgnoreCase(id);
+  }
+
+  /**
+   * @return the id a dictionary has once registered.
+   */
+  public static String getId(byte[] dictionary)
+  {
+    return toId(checksum(dictionary));
+  }
+
+  /**
+   * @return the dictionary used to compress, or null if there is none.
+   */
+  byte[] getCurrentDictionary()
+  {
+    Dictionary current = _currentDictionary;
+    return current == null ? null : current._bytes;
+  }
+
+  /**
+   * @return the registered dictionaries, by Adler-32 checksum.
+   */
+  Map<Integer, byte[]> getDictionaries()
+  {
+    return _dictionaries;
+  }
+
+  private static int checksum(byte[] dictionary)
+  {
+    Adler32 adler = new Adler32();
+    adler.update(dictionary);
+    return (int) adler.getValue();
+  }
+
+  private static String toId(int checksum)
+  {
+    return String.format("%08x", checksum);
+  }
+
+  // the current dictionary and its id are replaced together
+  private static class Dictionary
+  {
+    private final byte[] _bytes;
+    private final String _id;
+
+    private Dictionary(byte[] bytes, String id)
+    {
+      _bytes = bytes;
+      _id = id;
+    }
+  }
+}
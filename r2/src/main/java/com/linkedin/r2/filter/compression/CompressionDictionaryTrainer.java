@@ -0,0 +1,303 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.filter.compression;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linkedin.data.ByteString;
+import com.linkedin.r2.caprep.db.DefaultMessageSerializer;
+import com.linkedin.r2.caprep.db.DirectoryDbUtil;
+import com.linkedin.r2.caprep.db.MessageSerializer;
+import com.linkedin.r2.message.Message;
+
+/**
+ * Trains a dictionary for the {@link DictionaryDeflateCompressor} from sample entities, such as
+ * the messages captured by a {@link com.linkedin.r2.caprep.db.DirectoryDbSink}.<p/>
+ *
+ * The dictionary is made of the segments of the samples with the most content common to many
+ * samples, following the cover algorithm of zstd: the samples are split in epochs, and the
+ * segment of each epoch which covers the most frequent substrings not covered yet is selected.
+ * The best segments are placed at the end of the dictionary, where deflate refers to them with
+ * the shortest distances.<p/>
+ *
+ * Usage: {@code CompressionDictionaryTrainer <caprep directory> <dictionary file> [<dictionary size>]}
+ */
+public class CompressionDictionaryTrainer
+{
+  private static final Logger _log = LoggerFactory.getLogger(CompressionDictionaryTrainer.class);
+
+  public static final int DEFAULT_DICTIONARY_SIZE = CompressionDictionaries.MAX_DICTIONARY_SIZE;
+
+  // the length of the substrings counted across samples, which fit in a long
+  private static final int KMER_SIZE = 8;
+  private static final int SEGMENT_SIZE = 64;
+
+  private CompressionDictionaryTrainer()
+  {
+  }
+
+  public static void main(String[] args) throws IOException
+  {
+    if (args.length < 2 || args.length > 3)
+    {
+      System.err.println("Usage: " + CompressionDictionaryTrainer.class.getSimpleName()
+                             + " <caprep directory> <dictionary file> [<dictionary size>]");
+      System.exit(1);
+    }
+
+    int dictionarySize = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_DICTIONARY_SIZE;
+    List<ByteString> samples = readSamples(new File(args[0]));
+    byte[] dictionary = train(samples, dictionarySize);
+
+    OutputStream out = new FileOutputStream(args[1]);
+    try
+    {
+      out.write(dictionary);
+    }
+    finally
+    {
+      out.close();
+    }
+    System.out.println("Trained a dictionary of " + dictionary.length + " bytes from " + samples.size()
+                           + " samples, id " + CompressionDictionaries.getId(dictionary));
+  }
+
+  /**
+   * Reads the non-empty entities of the REST requests and responses captured in a directory.
+   *
+   * @param dir the directory of a {@link com.linkedin.r2.caprep.db.DirectoryDbSink}.
+   * @return the entities.
+   */
+  public static List<ByteString> readSamples(File dir) throws IOException
+  {
+    final MessageSerializer serializer = new DefaultMessageSerializer();
+    final List<ByteString> samples = new ArrayList<ByteString>();
+    for (String id : DirectoryDbUtil.listRequestIds(dir))
+    {
+      if (!DirectoryDbUtil.isRestId(id))
+      {
+        continue;
+      }
+      try
+      {
+        addSample(samples, readMessage(serializer, DirectoryDbUtil.requestFileName(dir, id), true));
+        addSample(samples, readMessage(serializer, DirectoryDbUtil.responseFileName(dir, id), false));
+      }
+      catch (IOException e)
+      {
+        _log.warn("Failed to parse request or response for: " + id, e);
+      }
+    }
+    return samples;
+  }
+
+  private static Message readMessage(MessageSerializer serializer, File file, boolean request) throws IOException
+  {
+    InputStream in = new FileInputStream(file);
+    try
+    {
+      return request ? serializer.readRestRequest(in) : serializer.readRestResponse(in);
+    }
+    finally
+    {
+      in.close();
+    }
+  }
+
+  private static void addSample(List<ByteString> samples, Message message)
+  {
+    if (message.getEntity().length() > 0)
+    {
+      samples.add(message.getEntity());
+    }
+  }
+
+  /**
+   * Trains a dictionary from the samples.
+   *
+   * @param samples the sample entities.
+   * @param dictionarySize the maximum size of the dictionary.
+   * @return the dictionary, which is smaller than the maximum size if the samples have too little
+   *         common content, and empty if they have none.
+   */
+  public static byte[] train(List<ByteString> samples, int dictionarySize)
+  {
+    if (dictionarySize <= 0 || dictionarySize > CompressionDictionaries.MAX_DICTIONARY_SIZE)
+    {
+      throw new IllegalArgumentException("Dictionary size should be between 1 and "
+                                         + CompressionDictionaries.MAX_DICTIONARY_SIZE + ": " + dictionarySize);
+    }
+
+    // the number of samples in which each substring appears
+    final Map<Long, Integer> frequencies = new HashMap<Long, Integer>();
+    int length = 0;
+    for (ByteString sample : samples)
+    {
+      final byte[] bytes = sample.copyBytes();
+      final Set<Long> kmers = new HashSet<Long>();
+      for (int i = 0; i + KMER_SIZE <= bytes.length; i++)
+      {
+        kmers.add(kmer(bytes, i));
+      }
+      for (Long kmer : kmers)
+      {
+        final Integer frequency = frequencies.get(kmer);
+        frequencies.put(kmer, frequency == null ? 1 : frequency + 1);
+      }
+      length += bytes.length;
+    }
+
+    final byte[] data = new byte[length];
+    int offset = 0;
+    for (ByteString sample : samples)
+    {
+      sample.copyBytes(data, offset);
+      offset += sample.length();
+    }
+
+    final int epochs = Math.max(1, dictionarySize / SEGMENT_SIZE);
+    final int epochSize = Math.max(SEGMENT_SIZE, length / epochs);
+    final List<Segment> segments = new ArrayList<Segment>();
+    int size = 0;
+    for (int epochStart = 0; epochStart + SEGMENT_SIZE <= length && size + SEGMENT_SIZE <= dictionarySize;
+         epochStart += epochSize)
+    {
+      final Segment segment = bestSegment(data, epochStart, Math.min(length, epochStart + epochSize), frequencies);
+      if (segment != null)
+      {
+        segments.add(segment);
+        size += SEGMENT_SIZE;
+        for (int i = segment._offset; i + KMER_SIZE <= segment._offset + SEGMENT_SIZE; i++)
+        {
+          frequencies.remove(kmer(data, i));
+        }
+      }
+    }
+
+    Collections.sort(segments, new Comparator<Segment>()
+    {
+      @Override
+      public int compare(Segment s1, Segment s2)
+      {
+        return s1._score < s2._score ? -1 : (s1._score == s2._score ? 0 : 1);
+      }
+    });
+
+    final byte[] dictionary = new byte[size];
+    offset = 0;
+    for (Segment segment : segments)
+    {
+      System.arraycopy(data, segment._offset, dictionary, offset, SEGMENT_SIZE);
+      offset += SEGMENT_SIZE;
+    }
+    return dictionary;
+  }
+
+  /**
+   * Slides a segment over the epoch, scoring it with the frequencies of the distinct substrings
+   * starting in it.
+   *
+   * @return the best segment, or null if no segment has a substring seen in several samples.
+   */
+  private static Segment bestSegment(byte[] data, int start, int end, Map<Long, Integer> frequencies)
+  {
+    final int kmersPerSegment = SEGMENT_SIZE - KMER_SIZE + 1;
+    final Map<Long, Integer> window = new HashMap<Long, Integer>();
+    long score = 0;
+    Segment best = null;
+    for (int i = start; i + KMER_SIZE <= end && i + KMER_SIZE <= data.length; i++)
+    {
+      final long kmer = kmer(data, i);
+      final Integer count = window.get(kmer);
+      window.put(kmer, count == null ? 1 : count + 1);
+      if (count == null)
+      {
+        score += usefulFrequency(frequencies, kmer);
+      }
+
+      final int segmentStart = i - kmersPerSegment + 1;
+      if (segmentStart > start)
+      {
+        // the substring leaving the window
+        final long leaving = kmer(data, segmentStart - 1);
+        final int leavingCount = window.get(leaving);
+        if (leavingCount == 1)
+        {
+          window.remove(leaving);
+          score -= usefulFrequency(frequencies, leaving);
+        }
+        else
+        {
+          window.put(leaving, leavingCount - 1);
+        }
+      }
+
+      if (segmentStart >= start && segmentStart + SEGMENT_SIZE <= data.length
+          && score > 0 && (best == null || score > best._score))
+      {
+        best = new Segment(segmentStart, score);
+      }
+    }
+    return best;
+  }
+
+  private static int usefulFrequency(Map<Long, Integer> frequencies, long kmer)
+  {
+    // a substring only seen in one sample is not worth a place in the dictionary
+    final Integer frequency = frequencies.get(kmer);
+    return frequency == null || frequency < 2 ? 0 : frequency;
+  }
+
+  private static long kmer(byte[] data, int offset)
+  {
+    long kmer = 0;
+    for (int i = 0; i < KMER_SIZE; i++)
+    {
+      kmer = (kmer << 8) | (data[offset + i] & 0xff);
+    }
+    return kmer;
+  }
+
+  private static class Segment
+  {
+    private final int _offset;
+    private final long _score;
+
+    private Segment(int offset, long score)
+    {
+      _offset = offset;
+      _score = score;
+    }
+  }
+}
@@ -25,10 +25,12 @@ import java.util.zip.Inflater;
 
 import org.apache.commons.io.IOUtils;
 
+import com.linkedin.data.ByteString;
+
 /**
  * Wrapper class for zlib compression.
  * */
-public class DeflateCompressor implements Compressor
+public class DeflateCompressor extends AbstractCompressor
 {
   private final static String HTTP_NAME = "deflate";
 
@@ -133,4 +135,16 @@ public class DeflateCompressor implements Compressor
 
     return output.toByteArray();
   }
+
+  @Override
+  public ByteString inflate(ByteString data) throws CompressionException
+  {
+    return ZlibCodec.DEFLATE.inflate(data);
+  }
+
+  @Override
+  public ByteString deflate(ByteString data, float maxRatio) throws CompressionException
+  {
+    return ZlibCodec.DEFLATE.deflate(data, maxRatio);
+  }
 }
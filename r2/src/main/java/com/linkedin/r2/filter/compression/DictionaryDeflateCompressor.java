@@ -0,0 +1,111 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.filter.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.io.IOUtils;
+
+import com.linkedin.data.ByteString;
+
+/**
+ * Deflate compression with a preset dictionary shared by the clients and the servers, for
+ * small entities which repeat the same content, such as the field names of JSON entities.
+ * See {@link CompressionDictionaryTrainer} to train a dictionary from captured traffic.<p/>
+ *
+ * The dictionaries are held by the {@link CompressionDictionaries} given to the compressor and to
+ * the compression filters. The server only selects this encoding if the client accepts it with the
+ * id of the server's current dictionary, for instance {@code x-deflate-dict;dict=1f2e3d4c;q=1.0}.
+ * Dictionaries must be registered before the compression filters are created.
+ */
+public class DictionaryDeflateCompressor extends AbstractCompressor
+{
+  private static final String HTTP_NAME = "x-deflate-dict";
+
+  private final CompressionDictionaries _dictionaries;
+
+  /**
+   * Instantiates a compressor without dictionaries, which can not compress and can only
+   * decompress data compressed without a dictionary.
+   */
+  public DictionaryDeflateCompressor()
+  {
+    this(new CompressionDictionaries());
+  }
+
+  /**
+   * @param dictionaries the dictionaries to compress and decompress with.
+   */
+  public DictionaryDeflateCompressor(CompressionDictionaries dictionaries)
+  {
+    if (dictionaries == null)
+    {
+      throw new IllegalArgumentException("dictionaries must not be null");
+    }
+    _dictionaries = dictionaries;
+  }
+
+  @Override
+  public String getContentEncodingName()
+  {
+    return HTTP_NAME;
+  }
+
+  @Override
+  public byte[] inflate(InputStream data) throws CompressionException
+  {
+    return inflate(readFully(data)).copyBytes();
+  }
+
+  @Override
+  public byte[] deflate(InputStream data) throws CompressionException
+  {
+    return deflate(readFully(data), Float.MAX_VALUE).copyBytes();
+  }
+
+  @Override
+  public ByteString inflate(ByteString data) throws CompressionException
+  {
+    return ZlibCodec.DEFLATE_DICTIONARY.inflate(data, _dictionaries.getDictionaries());
+  }
+
+  @Override
+  public ByteString deflate(ByteString data, float maxRatio) throws CompressionException
+  {
+    byte[] dictionary = _dictionaries.getCurrentDictionary();
+    if (dictionary == null)
+    {
+      throw new CompressionException(CompressionConstants.NO_DICTIONARY);
+    }
+    return ZlibCodec.DEFLATE_DICTIONARY.deflate(data, maxRatio, dictionary);
+  }
+
+  private ByteString readFully(InputStream data) throws CompressionException
+  {
+    try
+    {
+      byte[] bytes = IOUtils.toByteArray(data);
+      return ByteString.unsafeWrap(bytes, 0, bytes.length);
+    }
+    catch (IOException e)
+    {
+      throw new CompressionException(CompressionConstants.DECODING_ERROR + CompressionConstants.BAD_STREAM, e);
+    }
+  }
+}
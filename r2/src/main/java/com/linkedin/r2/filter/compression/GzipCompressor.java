@@ -24,10 +24,12 @@ import java.util.zip.GZIPOutputStream;
 
 import org.apache.commons.io.IOUtils;
 
+import com.linkedin.data.ByteString;
+
 /**
  * Wrapper class for gzip compression
  * */
-public class GzipCompressor implements Compressor
+public class GzipCompressor extends AbstractCompressor
 {
   private static final String HTTP_NAME = "gzip";
 
@@ -93,4 +95,16 @@ public class GzipCompressor implements Compressor
   {
     return HTTP_NAME;
   }
+
+  @Override
+  public ByteString inflate(ByteString data) throws CompressionException
+  {
+    return ZlibCodec.GZIP.inflate(data);
+  }
+
+  @Override
+  public ByteString deflate(ByteString data, float maxRatio) throws CompressionException
+  {
+    return ZlibCodec.GZIP.deflate(data, maxRatio);
+  }
 }
@@ -25,27 +25,50 @@ import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.linkedin.common.callback.Callback;
+import com.linkedin.data.ByteString;
 import com.linkedin.r2.filter.Filter;
 import com.linkedin.r2.filter.NextFilter;
+import com.linkedin.r2.filter.NextStreamFilter;
 import com.linkedin.r2.filter.message.rest.RestFilter;
+import com.linkedin.r2.filter.message.stream.StreamFilter;
 import com.linkedin.r2.message.RequestContext;
 import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.r2.message.rest.RestResponse;
 import com.linkedin.r2.message.rest.RestResponseBuilder;
+import com.linkedin.r2.message.streaming.EntityStreams;
+import com.linkedin.r2.message.streaming.Messages;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
 import com.linkedin.r2.transport.http.common.HttpConstants;
 
 /**
  *
  * Filter class for server to negotiate acceptable compression formats from clients
- * and compresses the response with the relevant headers accordingly.
+ * and compresses the response with the relevant headers accordingly.<p/>
+ *
+ * Responses smaller than the compression threshold are not compressed, and compression is
+ * given up as soon as it is found not to reduce the size of the entity. Streamed responses
+ * are compressed as they are written for the deflate and gzip encodings.
  * @author erli
  *
  */
-public class ServerCompressionFilter implements Filter, RestFilter
+public class ServerCompressionFilter implements Filter, RestFilter, StreamFilter
 {
   private static final Logger LOG = LoggerFactory.getLogger(ServerCompressionFilter.class);
 
+  /**
+   * The default size in bytes below which responses are not compressed.
+   */
+  public static final int DEFAULT_COMPRESSION_THRESHOLD = 0;
+
+  // compression is only worth it if it makes the entity smaller
+  private static final float MAX_COMPRESSION_RATIO = 1.0f;
+
   private final Set<EncodingType> _supportedEncoding;
+  private final int _compressionThreshold;
+  private final CompressionDictionaries _dictionaries;
+  private final Compressor _dictionaryCompressor;
 
   /**
    * Instantiates an empty compression filter that does no compression.
@@ -65,15 +88,53 @@ public class ServerCompressionFilter implements Filter, RestFilter
     this(AcceptEncoding.parseAcceptEncoding(acceptedFilters));
   }
 
+  /** Same as previous constructor, with a compression threshold.
+   * @param acceptedFilters
+   * @param compressionThreshold size in bytes below which responses are not compressed
+   */
+  public ServerCompressionFilter(String acceptedFilters, int compressionThreshold)
+  {
+    this(AcceptEncoding.parseAcceptEncoding(acceptedFilters), compressionThreshold);
+  }
+
   /** Instantiates a compression filter
    * that supports the compression methods in the given set in argument.
    * @param supportedEncoding
    */
   public ServerCompressionFilter(EncodingType[] supportedEncoding)
   {
+    this(supportedEncoding, DEFAULT_COMPRESSION_THRESHOLD);
+  }
+
+  /** Instantiates a compression filter
+   * that supports the compression methods in the given set in argument.
+   * @param supportedEncoding
+   * @param compressionThreshold size in bytes below which responses are not compressed
+   */
+  public ServerCompressionFilter(EncodingType[] supportedEncoding, int compressionThreshold)
+  {
+    this(supportedEncoding, compressionThreshold, new CompressionDictionaries());
+  }
+
+  /** Instantiates a compression filter
+   * that supports the compression methods in the given set in argument.
+   * @param supportedEncoding
+   * @param compressionThreshold size in bytes below which responses are not compressed
+   * @param dictionaries dictionaries of the {@link EncodingType#DEFLATE_DICTIONARY} encoding
+   */
+  public ServerCompressionFilter(EncodingType[] supportedEncoding, int compressionThreshold,
+                                 CompressionDictionaries dictionaries)
+  {
+    if (compressionThreshold < 0)
+    {
+      throw new IllegalArgumentException("compressionThreshold should not be negative: " + compressionThreshold);
+    }
     _supportedEncoding = new HashSet<EncodingType>(Arrays.asList(supportedEncoding));
     _supportedEncoding.add(EncodingType.IDENTITY);
     _supportedEncoding.add(EncodingType.ANY);
+    _compressionThreshold = compressionThreshold;
+    _dictionaries = dictionaries;
+    _dictionaryCompressor = new DictionaryDeflateCompressor(dictionaries);
   }
 
   /**
@@ -83,6 +144,133 @@ public class ServerCompressionFilter implements Filter, RestFilter
   public void onRestRequest(RestRequest req, RequestContext requestContext,
                             Map<String, String> wireAttrs,
                             NextFilter<RestRequest, RestResponse> nextFilter)
+  {
+    nextFilter.onRequest(decompress(req, requestContext), requestContext, wireAttrs);
+  }
+
+  /**
+   * Optionally compresses outgoing response
+   * */
+  @Override
+  public void onRestResponse(RestResponse res, RequestContext requestContext,
+                             Map<String, String> wireAttrs,
+                             NextFilter<RestRequest, RestResponse> nextFilter)
+  {
+    nextFilter.onResponse(compress(res, requestContext), requestContext, wireAttrs);
+  }
+
+
+  @Override
+  public void onRestError(Throwable ex, RequestContext requestContext,
+                          Map<String, String> wireAttrs,
+                          NextFilter<RestRequest, RestResponse> nextFilter)
+  {
+    nextFilter.onError(ex, requestContext, wireAttrs);
+  }
+
+  /**
+   * Handles compression tasks for incoming streamed requests. A compressed entity is read
+   * fully to be decompressed.
+   */
+  @Override
+  public void onStreamRequest(final StreamRequest req, final RequestContext requestContext,
+                              final Map<String, String> wireAttrs,
+                              final NextStreamFilter nextFilter)
+  {
+    if (req.getHeader(HttpConstants.CONTENT_ENCODING) == null)
+    {
+      putAcceptEncoding(req.getHeader(HttpConstants.ACCEPT_ENCODING), requestContext);
+      nextFilter.onRequest(req, requestContext, wireAttrs);
+      return;
+    }
+
+    Messages.toRestRequest(req, new Callback<RestRequest>()
+    {
+      @Override
+      public void onSuccess(RestRequest restRequest)
+      {
+        nextFilter.onRequest(Messages.toStreamRequest(decompress(restRequest, requestContext)),
+                             requestContext, wireAttrs);
+      }
+
+      @Override
+      public void onError(Throwable e)
+      {
+        nextFilter.onError(e, requestContext, wireAttrs);
+      }
+    });
+  }
+
+  /**
+   * Optionally compresses outgoing streamed response. The deflate and gzip encodings compress
+   * the entity as it is written; the others read it fully to compress it.
+   */
+  @Override
+  public void onStreamResponse(StreamResponse res, final RequestContext requestContext,
+                               final Map<String, String> wireAttrs,
+                               final NextStreamFilter nextFilter)
+  {
+    EncodingType selectedEncoding;
+    try
+    {
+      selectedEncoding = selectEncoding(requestContext);
+    }
+    catch (CompressionException e)
+    {
+      LOG.error(e.getMessage(), e.getCause());
+      nextFilter.onResponse(res, requestContext, wireAttrs);
+      return;
+    }
+
+    if (selectedEncoding != null && !selectedEncoding.hasCompressor())
+    {
+      nextFilter.onResponse(res, requestContext, wireAttrs);
+      return;
+    }
+
+    ZlibCodec codec = ZlibCodec.get(selectedEncoding);
+    if (codec != null)
+    {
+      // the length is unknown, so neither the threshold nor the ratio apply
+      RestResponse head = res.headBuilder()
+          .addHeaderValue(HttpConstants.CONTENT_ENCODING, selectedEncoding.getHttpName())
+          .build();
+      StreamResponse compressed = new StreamResponse(head,
+          EntityStreams.newEntityStream(new ZlibEntityWriter(codec.newDeflation(), res.getEntityStream())));
+      nextFilter.onResponse(compressed, requestContext, wireAttrs);
+      return;
+    }
+
+    Messages.toRestResponse(res, new Callback<RestResponse>()
+    {
+      @Override
+      public void onSuccess(RestResponse restResponse)
+      {
+        nextFilter.onResponse(Messages.toStreamResponse(compress(restResponse, requestContext)),
+                              requestContext, wireAttrs);
+      }
+
+      @Override
+      public void onError(Throwable e)
+      {
+        nextFilter.onError(e, requestContext, wireAttrs);
+      }
+    });
+  }
+
+  @Override
+  public void onStreamError(Throwable ex, RequestContext requestContext,
+                            Map<String, String> wireAttrs,
+                            NextStreamFilter nextFilter)
+  {
+    nextFilter.onError(ex, requestContext, wireAttrs);
+  }
+
+  /**
+   * Decompresses the request if it is compressed, and records the encodings the client accepts
+   * for the response.
+   */
+  private RestRequest decompress(RestRequest req, RequestContext requestContext)
   {
     try
     {
@@ -104,61 +292,72 @@ public class ServerCompressionFilter implements Filter, RestFilter
         //Process the correct compression types only
         if (encoding.hasCompressor())
         {
-          byte[] decompressedContent = encoding.getCompressor().inflate(req.getEntity().asInputStream());
+          ByteString decompressedContent = AbstractCompressor.inflate(getCompressor(encoding), req.getEntity());
           req = req.builder().setEntity(decompressedContent).build();
         }
       }
 
-      //Get client support for compression and flag compress if need be
-      String responseCompression = req.getHeader(HttpConstants.ACCEPT_ENCODING);
-      if (responseCompression == null)
-      {
-        responseCompression = ""; //Only permit identity
-      }
-
-      requestContext.putLocalAttr(HttpConstants.ACCEPT_ENCODING, responseCompression);
+      putAcceptEncoding(req.getHeader(HttpConstants.ACCEPT_ENCODING), requestContext);
     }
     catch (CompressionException e)
     {
       LOG.error(e.getMessage(), e.getCause());
     }
+    return req;
+  }
+
+  private static void putAcceptEncoding(String responseCompression, RequestContext requestContext)
+  {
+    //Get client support for compression and flag compress if need be
+    if (responseCompression == null)
+    {
+      responseCompression = ""; //Only permit identity
+    }
 
-    nextFilter.onRequest(req, requestContext, wireAttrs);
+    requestContext.putLocalAttr(HttpConstants.ACCEPT_ENCODING, responseCompression);
+  }
+
+  private Compressor getCompressor(EncodingType encoding)
+  {
+    return encoding == EncodingType.DEFLATE_DICTIONARY ? _dictionaryCompressor : encoding.getCompressor();
   }
 
   /**
-   * Optionally compresses outgoing response
-   * */
-  @Override
-  public void onRestResponse(RestResponse res, RequestContext requestContext,
-                             Map<String, String> wireAttrs,
-                             NextFilter<RestRequest, RestResponse> nextFilter)
+   * @return the best encoding accepted by the client, or null if none is acceptable.
+   */
+  private EncodingType selectEncoding(RequestContext requestContext) throws CompressionException
+  {
+    String responseCompression = (String) requestContext.getLocalAttr(HttpConstants.ACCEPT_ENCODING);
+    if (responseCompression == null)
+    {
+      throw new CompressionException(CompressionConstants.UNKNOWN_ENCODING);
+    }
+
+    List<AcceptEncoding> parsedEncodings = AcceptEncoding.parseAcceptEncodingHeader(responseCompression, _supportedEncoding, _dictionaries);
+    return AcceptEncoding.chooseBest(parsedEncodings);
+  }
+
+  /**
+   * Compresses the response with the best encoding accepted by the client, if it is at least
+   * as large as the threshold and compression makes it smaller.
+   */
+  private RestResponse compress(RestResponse res, RequestContext requestContext)
   {
     try
     {
       if (res.getEntity().length() > 0)
       {
-        String responseCompression = (String) requestContext.getLocalAttr(HttpConstants.ACCEPT_ENCODING);
-        if (responseCompression == null)
-        {
-          throw new CompressionException(CompressionConstants.UNKNOWN_ENCODING);
-        }
-
-        List<AcceptEncoding> parsedEncodings = AcceptEncoding.parseAcceptEncodingHeader(responseCompression, _supportedEncoding);
-        EncodingType selectedEncoding = AcceptEncoding.chooseBest(parsedEncodings);
+        EncodingType selectedEncoding = selectEncoding(requestContext);
 
         //Check if there exists an acceptable encoding
         if (selectedEncoding != null)
         {
-          //NOTE: this is sort of problematic and is mirrored in 3 other places.
-          //ByteBuffer from res.getEntity() is read only, and it's awkward for
-          //compressor to return a sensible value for identity
-          if (selectedEncoding.hasCompressor())
+          if (selectedEncoding.hasCompressor() && res.getEntity().length() >= _compressionThreshold)
           {
-            Compressor compressor = selectedEncoding.getCompressor();
-            byte[] compressed = compressor.deflate(res.getEntity().asInputStream());
+            Compressor compressor = getCompressor(selectedEncoding);
+            ByteString compressed = AbstractCompressor.deflate(compressor, res.getEntity(), MAX_COMPRESSION_RATIO);
 
-            if (compressed.length < res.getEntity().length())
+            if (compressed != null && compressed.length() < res.getEntity().length())
             {
               RestResponseBuilder resCompress = res.builder();
               resCompress.addHeaderValue(HttpConstants.CONTENT_ENCODING, compressor.getContentEncodingName());
@@ -178,16 +377,6 @@ public class ServerCompressionFilter implements Filter, RestFilter
     {
       LOG.error(e.getMessage(), e.getCause());
     }
-
-    nextFilter.onResponse(res, requestContext, wireAttrs);
-  }
-
-
-  @Override
-  public void onRestError(Throwable ex, RequestContext requestContext,
-                          Map<String, String> wireAttrs,
-                          NextFilter<RestRequest, RestResponse> nextFilter)
-  {
-    nextFilter.onError(ex, requestContext, wireAttrs);
+    return res;
   }
-}
\ No newline at end of file
+}
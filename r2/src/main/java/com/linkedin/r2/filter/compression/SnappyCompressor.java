@@ -18,17 +18,23 @@ package com.linkedin.r2.filter.compression;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 import org.apache.commons.io.IOUtils;
 import org.iq80.snappy.Snappy;
 
+import com.linkedin.data.ByteString;
+
 /**
  * Wrapper for snappy compression algorithm.
  * @author erli
  */
-public class SnappyCompressor implements Compressor
+public class SnappyCompressor extends AbstractCompressor
 {
   private static final String HTTP_NAME = "snappy";
+  private static final int MAX_SCRATCH_SIZE = 1024 * 1024;
+  private static final ThreadLocal<byte[]> INPUT_BUFFER = new ThreadLocal<byte[]>();
+  private static final ThreadLocal<byte[]> OUTPUT_BUFFER = new ThreadLocal<byte[]>();
 
   @Override
   public String getContentEncodingName()
@@ -64,4 +70,64 @@ public class SnappyCompressor implements Compressor
       throw new CompressionException(CompressionConstants.DECODING_ERROR + getContentEncodingName(), e);
     }
   }
+
+  @Override
+  public ByteString inflate(ByteString data) throws CompressionException
+  {
+    try
+    {
+      byte[] input = contiguous(data, INPUT_BUFFER);
+      byte[] output = new byte[Snappy.getUncompressedLength(input, 0)];
+      Snappy.uncompress(input, 0, data.length(), output, 0);
+      return ByteString.unsafeWrap(output, 0, output.length);
+    }
+    catch (RuntimeException e)
+    {
+      // CorruptionException, or an index out of bounds for a bad length
+      throw new CompressionException(CompressionConstants.DECODING_ERROR + getContentEncodingName(), e);
+    }
+  }
+
+  @Override
+  public ByteString deflate(ByteString data, float maxRatio) throws CompressionException
+  {
+    byte[] input = contiguous(data, INPUT_BUFFER);
+    byte[] output = scratch(OUTPUT_BUFFER, Snappy.maxCompressedLength(data.length()));
+    int length = Snappy.compress(input, 0, data.length(), output, 0);
+    if (length > data.length() * (double) maxRatio)
+    {
+      return null;
+    }
+    return ByteString.copy(ByteBuffer.wrap(output, 0, length));
+  }
+
+  /**
+   * Returns the bytes of the data at the start of an array, which is the thread's scratch buffer.
+   */
+  private static byte[] contiguous(ByteString data, ThreadLocal<byte[]> buffer)
+  {
+    byte[] bytes = scratch(buffer, data.length());
+    data.copyBytes(bytes, 0);
+    return bytes;
+  }
+
+  /**
+   * Returns the thread's scratch buffer if it is large enough. Buffers larger than
+   * {@link #MAX_SCRATCH_SIZE} are allocated for the call only, so that an occasional large
+   * entity does not pin its memory to the thread.
+   */
+  private static byte[] scratch(ThreadLocal<byte[]> buffer, int size)
+  {
+    byte[] bytes = buffer.get();
+    if (bytes != null && bytes.length >= size)
+    {
+      return bytes;
+    }
+    bytes = new byte[size];
+    if (size <= MAX_SCRATCH_SIZE)
+    {
+      buffer.set(bytes);
+    }
+    return bytes;
+  }
 }
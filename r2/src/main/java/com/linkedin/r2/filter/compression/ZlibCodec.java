@@ -0,0 +1,734 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.filter.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import com.linkedin.data.ByteString;
+
+/**
+ * Deflate and gzip encoding over {@link ByteString}s with pooled {@link Deflater}s and
+ * {@link Inflater}s. The segments of the {@link ByteString} are fed to zlib directly, and the
+ * output is returned without a final copy.<p/>
+ *
+ * The gzip encoding is implemented over raw deflate, writing and checking its header and
+ * trailer here, so that it can share the pooled instances. A gzip stream made of several
+ * members is inflated to the concatenation of the members.<p/>
+ *
+ * Streams of unknown length are compressed and decompressed a chunk at a time by a
+ * {@link StreamCoding}, see {@link #newDeflation()} and {@link #newInflation()}.
+ */
+/* package private */ final class ZlibCodec
+{
+  /** The running compression ratio is only checked once this much input was compressed. */
+  static final int RATIO_SAMPLE_SIZE = 16 * 1024;
+
+  private static final int GZIP_MAGIC = 0x8b1f;
+  private static final byte[] GZIP_HEADER = {
+      (byte) GZIP_MAGIC, (byte) (GZIP_MAGIC >> 8), Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0
+  };
+  private static final int GZIP_TRAILER_SIZE = 8;
+  private static final int FHCRC = 2;
+  private static final int FEXTRA = 4;
+  private static final int FNAME = 8;
+  private static final int FCOMMENT = 16;
+
+  static final ZlibCodec DEFLATE = new ZlibCodec(ZlibPool.ZLIB, false, "deflate");
+  static final ZlibCodec GZIP = new ZlibCodec(ZlibPool.RAW, true, "gzip");
+  static final ZlibCodec DEFLATE_DICTIONARY = new ZlibCodec(ZlibPool.ZLIB, false, "x-deflate-dict");
+
+  private final ZlibPool _pool;
+  private final boolean _gzip;
+  private final String _name;
+
+  private ZlibCodec(ZlibPool pool, boolean gzip, String name)
+  {
+    _pool = pool;
+    _gzip = gzip;
+    _name = name;
+  }
+
+  /**
+   * @return the codec of the encoding, or null if the encoding is not deflate or gzip.
+   */
+  static ZlibCodec get(EncodingType encoding)
+  {
+    if (encoding == EncodingType.DEFLATE)
+    {
+      return DEFLATE;
+    }
+    if (encoding == EncodingType.GZIP)
+    {
+      return GZIP;
+    }
+    return null;
+  }
+
+  /**
+   * Compresses the data, giving up as soon as the output exceeds {@code maxRatio} times the
+   * input, either in total or in the running ratio checked every {@link #RATIO_SAMPLE_SIZE}
+   * bytes. As the running ratio is an estimate, data compressing to just below the maximum
+   * ratio may also be given up.
+   *
+   * @return the compressed data, or null if compression was abandoned.
+   */
+  ByteString deflate(ByteString data, float maxRatio) throws CompressionException
+  {
+    return deflate(data, maxRatio, null);
+  }
+
+  /**
+   * Same as {@link #deflate(ByteString, float)}, with a preset dictionary. The zlib header of the
+   * output identifies the dictionary by its Adler-32 checksum.
+   */
+  ByteString deflate(ByteString data, float maxRatio, byte[] dictionary) throws CompressionException
+  {
+    Deflation deflation = new Deflation(data.length(), maxRatio, dictionary);
+    try
+    {
+      data.write(deflation);
+      if (deflation.isAbandoned())
+      {
+        return null;
+      }
+      ByteString compressed = deflation.finish();
+      return compressed.length() > deflation._maxSize ? null : compressed;
+    }
+    catch (IOException e)
+    {
+      throw new CompressionException(CompressionConstants.DECODING_ERROR + _name, e);
+    }
+    finally
+    {
+      deflation.release();
+    }
+  }
+
+  /**
+   * Starts compressing a stream of unknown length, which is never abandoned.
+   */
+  Deflation newDeflation()
+  {
+    return new Deflation(-1, Float.MAX_VALUE, null);
+  }
+
+  /**
+   * Starts decompressing a stream of unknown length. The stream has no preset dictionary.
+   */
+  StreamInflation newInflation()
+  {
+    return new StreamInflation();
+  }
+
+  ByteString inflate(ByteString data) throws CompressionException
+  {
+    return inflate(data, Collections.<Integer, byte[]>emptyMap());
+  }
+
+  /**
+   * Same as {@link #inflate(ByteString)}, for data which may need a preset dictionary.
+   *
+   * @param dictionaries the known dictionaries, by Adler-32 checksum.
+   */
+  ByteString inflate(ByteString data, Map<Integer, byte[]> dictionaries) throws CompressionException
+  {
+    Inflater inflater = _pool.acquireInflater();
+    try
+    {
+      Inflation inflation = new Inflation(inflater, dictionaries,
+                                          Math.max(CompressionConstants.BUFFER_SIZE, data.length() * 2));
+      if (_gzip)
+      {
+        inflateGzipMembers(data, inflation);
+      }
+      else
+      {
+        data.write(inflation);
+        if (!inflater.finished() || inflation._unused > 0)
+        {
+          throw new CompressionException(CompressionConstants.DECODING_ERROR + _name);
+        }
+      }
+      return ByteString.unsafeWrap(inflation._buf, 0, inflation._count);
+    }
+    catch (IOException e)
+    {
+      throw new CompressionException(CompressionConstants.DECODING_ERROR + _name, e);
+    }
+    finally
+    {
+      _pool.release(inflater);
+    }
+  }
+
+  /**
+   * Inflates the members of a gzip stream one after the other, see RFC 1952. Each member has its
+   * own header and trailer, and the inflated members are concatenated.
+   */
+  private void inflateGzipMembers(ByteString data, Inflation inflation) throws IOException
+  {
+    Inflater inflater = inflation._inflater;
+    int offset = 0;
+    do
+    {
+      offset += readGzipHeader(data.slice(offset, data.length() - offset).asInputStream());
+      int memberStart = inflation._count;
+      inflater.reset();
+      inflation._unused = 0;
+
+      ByteString remaining = data.slice(offset, data.length() - offset);
+      remaining.write(inflation);
+      if (!inflater.finished())
+      {
+        throw new IOException("Truncated " + _name + " stream");
+      }
+      offset += remaining.length() - inflation._unused;
+
+      if (data.length() - offset < GZIP_TRAILER_SIZE)
+      {
+        throw new IOException("Truncated " + _name + " trailer");
+      }
+      InputStream trailer = data.slice(offset, GZIP_TRAILER_SIZE).asInputStream();
+      CRC32 crc = new CRC32();
+      crc.update(inflation._buf, memberStart, inflation._count - memberStart);
+      if (readInt(trailer) != (int) crc.getValue() || readInt(trailer) != inflation._count - memberStart)
+      {
+        throw new IOException("Corrupt " + _name + " trailer");
+      }
+      offset += GZIP_TRAILER_SIZE;
+    }
+    while (offset < data.length());
+  }
+
+  /**
+   * Skips the gzip header, see RFC 1952.
+   *
+   * @return the size of the header.
+   */
+  private static int readGzipHeader(InputStream in) throws IOException
+  {
+    if (readShort(in) != GZIP_MAGIC || readByte(in) != Deflater.DEFLATED)
+    {
+      throw new IOException("Not in gzip format");
+    }
+    int flags = readByte(in);
+    // mtime, xfl and os
+    skip(in, 6);
+    int size = 10;
+    if ((flags & FEXTRA) != 0)
+    {
+      int extraSize = readShort(in);
+      skip(in, extraSize);
+      size += extraSize + 2;
+    }
+    if ((flags & FNAME) != 0)
+    {
+      size += skipString(in);
+    }
+    if ((flags & FCOMMENT) != 0)
+    {
+      size += skipString(in);
+    }
+    if ((flags & FHCRC) != 0)
+    {
+      skip(in, 2);
+      size += 2;
+    }
+    return size;
+  }
+
+  private static int skipString(InputStream in) throws IOException
+  {
+    int size = 1;
+    while (readByte(in) != 0)
+    {
+      size++;
+    }
+    return size;
+  }
+
+  private static void skip(InputStream in, int count) throws IOException
+  {
+    for (int i = 0; i < count; i++)
+    {
+      readByte(in);
+    }
+  }
+
+  private static int readByte(InputStream in) throws IOException
+  {
+    int b = in.read();
+    if (b < 0)
+    {
+      throw new EOFException("Truncated gzip header");
+    }
+    return b;
+  }
+
+  private static int readShort(InputStream in) throws IOException
+  {
+    return readByte(in) | (readByte(in) << 8);
+  }
+
+  private static int readInt(InputStream in) throws IOException
+  {
+    return readShort(in) | (readShort(in) << 16);
+  }
+
+  /**
+   * Compresses or decompresses a stream a chunk at a time. The pooled zlib instance must be
+   * given back with {@link #release()}, also when the stream fails.
+   */
+  interface StreamCoding
+  {
+    /**
+     * @return the output for the chunk, which may be empty as zlib holds back some input.
+     */
+    ByteString update(ByteString chunk) throws IOException;
+
+    /**
+     * Ends the stream.
+     *
+     * @return the remaining output.
+     */
+    ByteString finish() throws IOException;
+
+    /**
+     * Gives the zlib instance back to the pool. Does nothing if it was already released.
+     */
+    void release();
+  }
+
+  /**
+   * Growable output buffer shared by {@link Deflation}, {@link Inflation} and
+   * {@link StreamInflation}.
+   */
+  private abstract static class ZlibOutputStream extends OutputStream
+  {
+    protected byte[] _buf;
+    protected int _count = 0;
+
+    protected ZlibOutputStream(int initialSize)
+    {
+      _buf = new byte[initialSize];
+    }
+
+    protected void ensureSpace()
+    {
+      if (_count == _buf.length)
+      {
+        byte[] buf = new byte[_buf.length * 2];
+        System.arraycopy(_buf, 0, buf, 0, _count);
+        _buf = buf;
+      }
+    }
+
+    @Override
+    public void write(int b) throws IOException
+    {
+      write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    /**
+     * @return the bytes produced since the last call, which may be empty.
+     */
+    ByteString takeOutput()
+    {
+      if (_count == 0)
+      {
+        return ByteString.empty();
+      }
+      ByteString output = ByteString.unsafeWrap(_buf, 0, _count);
+      _buf = new byte[_buf.length];
+      _count = 0;
+      return output;
+    }
+  }
+
+  /**
+   * Compresses the bytes written to it. The output is taken with {@link #takeOutput()} while
+   * streaming, or with {@link #finish()}. The {@link Deflater} must be given back with
+   * {@link #release()}.
+   */
+  final class Deflation extends ZlibOutputStream implements StreamCoding
+  {
+    private final long _maxSize;
+    private final float _maxRatio;
+    private final CRC32 _crc;
+    private Deflater _deflater;
+    private boolean _abandoned = false;
+
+    private Deflation(int length, float maxRatio, byte[] dictionary)
+    {
+      super(initialSize(length));
+      _maxSize = length < 0 ? Long.MAX_VALUE : (long) (length * (double) maxRatio);
+      _maxRatio = maxRatio;
+      _deflater = _pool.acquireDeflater();
+      if (dictionary != null)
+      {
+        _deflater.setDictionary(dictionary);
+      }
+      if (_gzip)
+      {
+        _crc = new CRC32();
+        System.arraycopy(GZIP_HEADER, 0, _buf, 0, GZIP_HEADER.length);
+        _count = GZIP_HEADER.length;
+      }
+      else
+      {
+        _crc = null;
+      }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len)
+    {
+      // feed the input a sample at a time, so that the ratio is checked while compressing
+      while (len > 0 && !_abandoned)
+      {
+        int size = Math.min(len, RATIO_SAMPLE_SIZE);
+        deflate(b, off, size);
+        off += size;
+        len -= size;
+      }
+    }
+
+    private void deflate(byte[] b, int off, int len)
+    {
+      if (_crc != null)
+      {
+        _crc.update(b, off, len);
+      }
+      _deflater.setInput(b, off, len);
+      while (!_deflater.needsInput())
+      {
+        deflate();
+      }
+
+      // zlib holds back up to about a sample of input before it emits a block, so the output
+      // is compared with the input it can account for
+      long accounted = _deflater.getBytesRead() - RATIO_SAMPLE_SIZE;
+      if (_count > _maxSize || (accounted >= RATIO_SAMPLE_SIZE && _count > accounted * (double) _maxRatio))
+      {
+        _abandoned = true;
+      }
+    }
+
+    boolean isAbandoned()
+    {
+      return _abandoned;
+    }
+
+    @Override
+    public ByteString update(ByteString chunk) throws IOException
+    {
+      chunk.write(this);
+      return takeOutput();
+    }
+
+    /**
+     * Completes the compression.
+     *
+     * @return the remaining compressed bytes.
+     */
+    @Override
+    public ByteString finish()
+    {
+      _deflater.finish();
+      while (!_deflater.finished())
+      {
+        deflate();
+      }
+      if (_crc != null)
+      {
+        writeTrailerInt((int) _crc.getValue());
+        writeTrailerInt((int) _deflater.getBytesRead());
+      }
+      return takeOutput();
+    }
+
+    /**
+     * Gives the {@link Deflater} back to the pool. Does nothing if it was already released.
+     */
+    @Override
+    public void release()
+    {
+      if (_deflater != null)
+      {
+        _pool.release(_deflater);
+        _deflater = null;
+      }
+    }
+
+    private void deflate()
+    {
+      ensureSpace();
+      _count += _deflater.deflate(_buf, _count, _buf.length - _count);
+    }
+
+    private void writeTrailerInt(int value)
+    {
+      for (int i = 0; i < 4; i++)
+      {
+        ensureSpace();
+        _buf[_count++] = (byte) (value >> (8 * i));
+      }
+    }
+  }
+
+  private static int initialSize(int length)
+  {
+    // a stream is emitted in chunks, otherwise assume the usual 2:1 ratio of text
+    return length < 0 ? CompressionConstants.BUFFER_SIZE : Math.max(GZIP_HEADER.length + GZIP_TRAILER_SIZE, length / 2);
+  }
+
+  /**
+   * Inflates the bytes written to it, counting the bytes written after the end of the deflate
+   * stream as unused.
+   */
+  private final class Inflation extends ZlibOutputStream
+  {
+    private final Inflater _inflater;
+    private final Map<Integer, byte[]> _dictionaries;
+    // the number of bytes written after the end of the deflate stream
+    private int _unused = 0;
+
+    private Inflation(Inflater inflater, Map<Integer, byte[]> dictionaries, int initialSize)
+    {
+      super(initialSize);
+      _inflater = inflater;
+      _dictionaries = dictionaries;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+      if (_inflater.finished())
+      {
+        _unused += len;
+        return;
+      }
+      _inflater.setInput(b, off, len);
+      try
+      {
+        while (!_inflater.finished())
+        {
+          ensureSpace();
+          int count = _inflater.inflate(_buf, _count, _buf.length - _count);
+          _count += count;
+          if (count == 0 && _inflater.needsDictionary())
+          {
+            byte[] dictionary = _dictionaries.get(_inflater.getAdler());
+            if (dictionary == null)
+            {
+              throw new IOException("Unknown " + _name + " dictionary " + Integer.toHexString(_inflater.getAdler()));
+            }
+            _inflater.setDictionary(dictionary);
+          }
+          else if (count == 0 && _inflater.needsInput())
+          {
+            break;
+          }
+        }
+        if (_inflater.finished())
+        {
+          _unused += _inflater.getRemaining();
+        }
+      }
+      catch (DataFormatException e)
+      {
+        throw new IOException(e);
+      }
+    }
+  }
+
+  private enum InflationState { HEADER, BODY, TRAILER, END }
+
+  /**
+   * Inflates a stream written to it a chunk at a time. The gzip headers and trailers of the
+   * members of the stream may be split between chunks, so their bytes are kept until they are
+   * complete.
+   */
+  final class StreamInflation extends ZlibOutputStream implements StreamCoding
+  {
+    private final CRC32 _crc;
+    // the bytes of the gzip header or trailer received so far
+    private final ByteArrayOutputStream _pending = new ByteArrayOutputStream(GZIP_HEADER.length);
+    private Inflater _inflater;
+    private InflationState _state;
+    private long _received = 0;
+    // the inflated size of the current gzip member
+    private long _memberSize = 0;
+
+    private StreamInflation()
+    {
+      super(CompressionConstants.BUFFER_SIZE);
+      _inflater = _pool.acquireInflater();
+      _crc = _gzip ? new CRC32() : null;
+      _state = _gzip ? InflationState.HEADER : InflationState.BODY;
+    }
+
+    @Override
+    public ByteString update(ByteString chunk) throws IOException
+    {
+      chunk.write(this);
+      return takeOutput();
+    }
+
+    /**
+     * @throws IOException if the stream is truncated. An empty stream is inflated to an empty
+     *           output, as {@link ClientCompressionFilter} leaves empty entities alone.
+     */
+    @Override
+    public ByteString finish() throws IOException
+    {
+      boolean complete = _gzip ? _state == InflationState.HEADER && _pending.size() == 0
+                               : _state == InflationState.END;
+      if (!complete && _received > 0)
+      {
+        throw new IOException("Truncated " + _name + " stream");
+      }
+      return takeOutput();
+    }
+
+    @Override
+    public void release()
+    {
+      if (_inflater != null)
+      {
+        _pool.release(_inflater);
+        _inflater = null;
+      }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+      _received += len;
+      while (len > 0)
+      {
+        int used;
+        switch (_state)
+        {
+          case HEADER:
+            used = readHeader(b, off, len);
+            break;
+          case BODY:
+            used = inflate(b, off, len);
+            break;
+          case TRAILER:
+            used = readTrailer(b, off, len);
+            break;
+          default:
+            throw new IOException("Unexpected data after the end of the " + _name + " stream");
+        }
+        off += used;
+        len -= used;
+      }
+    }
+
+    private int readHeader(byte[] b, int off, int len) throws IOException
+    {
+      int previous = _pending.size();
+      _pending.write(b, off, len);
+      int size;
+      try
+      {
+        size = readGzipHeader(new ByteArrayInputStream(_pending.toByteArray()));
+      }
+      catch (EOFException e)
+      {
+        // the rest of the header is in the next chunks
+        return len;
+      }
+      _pending.reset();
+      _inflater.reset();
+      _crc.reset();
+      _memberSize = 0;
+      _state = InflationState.BODY;
+      return size - previous;
+    }
+
+    private int inflate(byte[] b, int off, int len) throws IOException
+    {
+      _inflater.setInput(b, off, len);
+      try
+      {
+        while (!_inflater.finished())
+        {
+          ensureSpace();
+          int start = _count;
+          int count = _inflater.inflate(_buf, _count, _buf.length - _count);
+          _count += count;
+          _memberSize += count;
+          if (_crc != null)
+          {
+            _crc.update(_buf, start, count);
+          }
+          if (count == 0 && (_inflater.needsInput() || _inflater.needsDictionary()))
+          {
+            break;
+          }
+        }
+      }
+      catch (DataFormatException e)
+      {
+        throw new IOException(e);
+      }
+      if (_inflater.needsDictionary())
+      {
+        throw new IOException("Unknown " + _name + " dictionary " + Integer.toHexString(_inflater.getAdler()));
+      }
+      if (!_inflater.finished())
+      {
+        return len;
+      }
+      _state = _gzip ? InflationState.TRAILER : InflationState.END;
+      return len - _inflater.getRemaining();
+    }
+
+    private int readTrailer(byte[] b, int off, int len) throws IOException
+    {
+      int used = Math.min(len, GZIP_TRAILER_SIZE - _pending.size());
+      _pending.write(b, off, used);
+      if (_pending.size() == GZIP_TRAILER_SIZE)
+      {
+        InputStream trailer = new ByteArrayInputStream(_pending.toByteArray());
+        if (readInt(trailer) != (int) _crc.getValue() || readInt(trailer) != (int) _memberSize)
+        {
+          throw new IOException("Corrupt " + _name + " trailer");
+        }
+        // another member may follow
+        _pending.reset();
+        _state = InflationState.HEADER;
+      }
+      return used;
+    }
+  }
+}
@@ -0,0 +1,267 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.filter.compression;
+
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.Queue;
+
+import com.linkedin.data.ByteString;
+import com.linkedin.r2.message.streaming.EntityStream;
+import com.linkedin.r2.message.streaming.ReadHandle;
+import com.linkedin.r2.message.streaming.Reader;
+import com.linkedin.r2.message.streaming.WriteHandle;
+import com.linkedin.r2.message.streaming.Writer;
+
+/**
+ * Compresses or decompresses an entity stream as it is read: reads the source stream a chunk at
+ * a time, as the reader of the coded stream requests chunks, so that neither stream is held in
+ * memory. The pooled {@link java.util.zip.Deflater} or {@link java.util.zip.Inflater} is given
+ * back once the stream ends, fails or is cancelled.
+ */
+/* package private */ class ZlibEntityWriter implements Reader, Writer
+{
+  private final EntityStream _source;
+
+  // All members below are protected by this lock
+  private final Object _lock = new Object();
+  private final ZlibCodec.StreamCoding _coding;
+  private final Queue<ByteString> _pending = new LinkedList<ByteString>();
+  private WriteHandle _wh;
+  private ReadHandle _rh;
+  // true while a chunk of the source stream is requested but not yet read
+  private boolean _requested = false;
+  private boolean _sourceDone = false;
+  private Throwable _error;
+  private boolean _closed = false;
+  // true while a thread moves chunks between the streams
+  private boolean _draining = false;
+  // true if there was more to move while draining
+  private boolean _drainAgain = false;
+
+  /**
+   * @param coding the compression or decompression of the stream, see
+   *          {@link ZlibCodec#newDeflation()} and {@link ZlibCodec#newInflation()}.
+   * @param source the stream to code, which is read once this writer is initialized.
+   */
+  ZlibEntityWriter(ZlibCodec.StreamCoding coding, EntityStream source)
+  {
+    _coding = coding;
+    _source = source;
+  }
+
+  @Override
+  public void onInit(WriteHandle wh)
+  {
+    synchronized (_lock)
+    {
+      _wh = wh;
+    }
+    _source.setReader(this);
+  }
+
+  @Override
+  public void onWritePossible()
+  {
+    drain();
+  }
+
+  @Override
+  public void onAbort(Throwable e)
+  {
+    final ReadHandle rh;
+    synchronized (_lock)
+    {
+      if (_closed)
+      {
+        return;
+      }
+      _closed = true;
+      _coding.release();
+      rh = _rh;
+    }
+    if (rh != null)
+    {
+      rh.cancel();
+    }
+  }
+
+  @Override
+  public void onInit(ReadHandle rh)
+  {
+    synchronized (_lock)
+    {
+      _rh = rh;
+    }
+  }
+
+  @Override
+  public void onDataAvailable(ByteString data)
+  {
+    synchronized (_lock)
+    {
+      if (_closed)
+      {
+        return;
+      }
+      _requested = false;
+      try
+      {
+        addPending(_coding.update(data));
+      }
+      catch (IOException e)
+      {
+        _error = e;
+      }
+    }
+    drain();
+  }
+
+  @Override
+  public void onDone()
+  {
+    synchronized (_lock)
+    {
+      if (_closed)
+      {
+        return;
+      }
+      try
+      {
+        addPending(_coding.finish());
+        _sourceDone = true;
+      }
+      catch (IOException e)
+      {
+        _error = e;
+      }
+      _coding.release();
+    }
+    drain();
+  }
+
+  @Override
+  public void onError(Throwable e)
+  {
+    synchronized (_lock)
+    {
+      if (_closed)
+      {
+        return;
+      }
+      _error = e;
+    }
+    drain();
+  }
+
+  private void addPending(ByteString output)
+  {
+    if (output.length() > 0)
+    {
+      _pending.add(output);
+    }
+  }
+
+  /**
+   * Writes the pending coded chunks the reader requested, and requests the next chunk of the
+   * source stream once none is pending. Only one thread drains at a time, so that the chunks are
+   * written in order and a synchronous source stream does not recurse.
+   */
+  private void drain()
+  {
+    synchronized (_lock)
+    {
+      if (_draining)
+      {
+        _drainAgain = true;
+        return;
+      }
+      _draining = true;
+    }
+
+    for (;;)
+    {
+      ByteString chunk = null;
+      boolean request = false;
+      boolean done = false;
+      Throwable error = null;
+      synchronized (_lock)
+      {
+        if (_closed || _wh == null)
+        {
+          _draining = false;
+          return;
+        }
+
+        if (_error != null)
+        {
+          error = _error;
+          _closed = true;
+          _coding.release();
+        }
+        else if (!_pending.isEmpty())
+        {
+          if (_wh.remaining() > 0)
+          {
+            chunk = _pending.poll();
+          }
+        }
+        else if (_sourceDone)
+        {
+          done = true;
+          _closed = true;
+        }
+        else if (!_requested && _wh.remaining() > 0)
+        {
+          _requested = true;
+          request = true;
+        }
+
+        if (chunk == null && !request && !done && error == null)
+        {
+          if (!_drainAgain)
+          {
+            _draining = false;
+            return;
+          }
+          _drainAgain = false;
+          continue;
+        }
+      }
+
+      if (chunk != null)
+      {
+        _wh.write(chunk);
+      }
+      else if (request)
+      {
+        _rh.request(1);
+      }
+      else if (done)
+      {
+        _wh.done();
+      }
+      else
+      {
+        // no-op if the source stream is the one which failed
+        _rh.cancel();
+        _wh.error(error);
+      }
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.filter.compression;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Bounded pools of {@link Deflater}s and {@link Inflater}s of one format. Each instance holds
+ * native zlib memory until it is ended, so reusing them across messages avoids both the
+ * allocation and the wait for finalization to release it.<p/>
+ *
+ * Instances are reset when released. Instances released to a full pool are ended.
+ */
+/* package private */ final class ZlibPool
+{
+  /** Pool of zlib (RFC 1950) instances, for the deflate encoding. */
+  static final ZlibPool ZLIB = new ZlibPool(false);
+  /** Pool of raw deflate (RFC 1951) instances, for the gzip encoding which writes its own header. */
+  static final ZlibPool RAW = new ZlibPool(true);
+
+  private static final int MAX_POOLED = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+  private final boolean _nowrap;
+  private final Queue<Deflater> _deflaters = new ConcurrentLinkedQueue<Deflater>();
+  private final AtomicInteger _deflaterCount = new AtomicInteger();
+  private final Queue<Inflater> _inflaters = new ConcurrentLinkedQueue<Inflater>();
+  private final AtomicInteger _inflaterCount = new AtomicInteger();
+
+  private ZlibPool(boolean nowrap)
+  {
+    _nowrap = nowrap;
+  }
+
+  Deflater acquireDeflater()
+  {
+    Deflater deflater = _deflaters.poll();
+    if (deflater == null)
+    {
+      return new Deflater(Deflater.DEFAULT_COMPRESSION, _nowrap);
+    }
+    _deflaterCount.decrementAndGet();
+    return deflater;
+  }
+
+  void release(Deflater deflater)
+  {
+    if (_deflaterCount.incrementAndGet() <= MAX_POOLED)
+    {
+      deflater.reset();
+      _deflaters.offer(deflater);
+    }
+    else
+    {
+      _deflaterCount.decrementAndGet();
+      deflater.end();
+    }
+  }
+
+  Inflater acquireInflater()
+  {
+    Inflater inflater = _inflaters.poll();
+    if (inflater == null)
+    {
+      return new Inflater(_nowrap);
+    }
+    _inflaterCount.decrementAndGet();
+    return inflater;
+  }
+
+  void release(Inflater inflater)
+  {
+    if (_inflaterCount.incrementAndGet() <= MAX_POOLED)
+    {
+      inflater.reset();
+      _inflaters.offer(inflater);
+    }
+    else
+    {
+      _inflaterCount.decrementAndGet();
+      inflater.end();
+    }
+  }
+}
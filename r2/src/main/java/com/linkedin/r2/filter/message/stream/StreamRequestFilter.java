@@ -0,0 +1,45 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.r2.filter.message.stream;
+
+import java.util.Map;
+
+import com.linkedin.r2.filter.Filter;
+import com.linkedin.r2.filter.NextStreamFilter;
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.streaming.StreamRequest;
+
+/**
+ * A filter that processes {@link StreamRequest}s.
+ */
+public interface StreamRequestFilter extends Filter
+{
+  /**
+   * Method to be invoked for each {@link StreamRequest} message. A filter which reads the entity
+   * stream must pass on a request with a new stream.
+   *
+   * @param req the {@link StreamRequest} message.
+   * @param requestContext the {@link RequestContext} of the request.
+   * @param wireAttrs the wire attributes of the request.
+   * @param nextFilter the next filter in the chain.  Concrete implementations should invoke
+   *                   {@link NextStreamFilter#onRequest} to continue the filter chain.
+   */
+  void onStreamRequest(StreamRequest req,
+                       RequestContext requestContext,
+                       Map<String, String> wireAttrs,
+                       NextStreamFilter nextFilter);
+}
@@ -18,8 +18,10 @@
 package com.linkedin.r2.filter.transport;
 
 import com.linkedin.r2.filter.NextFilter;
+import com.linkedin.r2.filter.NextStreamFilter;
 import com.linkedin.r2.filter.message.rest.RestRequestFilter;
 import com.linkedin.r2.filter.message.rpc.RpcRequestFilter;
+import com.linkedin.r2.filter.message.stream.StreamRequestFilter;
 import com.linkedin.r2.message.Request;
 import com.linkedin.r2.message.RequestContext;
 import com.linkedin.r2.message.Response;
@@ -27,7 +29,10 @@ import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.r2.message.rest.RestResponse;
 import com.linkedin.r2.message.rpc.RpcRequest;
 import com.linkedin.r2.message.rpc.RpcResponse;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
 import com.linkedin.r2.transport.common.bridge.client.TransportClient;
+import com.linkedin.r2.transport.common.bridge.client.TransportClients;
 import com.linkedin.r2.transport.common.bridge.common.TransportCallback;
 import com.linkedin.r2.transport.common.bridge.common.TransportResponse;
 
@@ -40,7 +45,7 @@ import java.util.Map;
  * @author Chris Pettitt
  * @version $Revision$
  */
-public class ClientRequestFilter implements RpcRequestFilter, RestRequestFilter
+public class ClientRequestFilter implements RpcRequestFilter, RestRequestFilter, StreamRequestFilter
 {
   private final TransportClient _client;
 
@@ -85,6 +90,37 @@ public class ClientRequestFilter implements RpcRequestFilter, RestRequestFilter
     }
   }
 
+  @Override
+  public void onStreamRequest(StreamRequest req, final RequestContext requestContext,
+                              Map<String, String> wireAttrs,
+                              final NextStreamFilter nextFilter)
+  {
+    try
+    {
+      TransportClients.streamRequest(_client, req, requestContext, wireAttrs,
+                                     new TransportCallback<StreamResponse>()
+      {
+        @Override
+        public void onResponse(TransportResponse<StreamResponse> res)
+        {
+          final Map<String, String> wireAttrs = new HashMap<String, String>(res.getWireAttributes());
+          if (res.hasError())
+          {
+            nextFilter.onError(res.getError(), requestContext, wireAttrs);
+          }
+          else
+          {
+            nextFilter.onResponse(res.getResponse(), requestContext, wireAttrs);
+          }
+        }
+      });
+    }
+    catch (Exception e)
+    {
+      nextFilter.onError(e, requestContext, new HashMap<String, String>());
+    }
+  }
+
   private <REQ extends Request, RES extends Response> TransportCallback<RES> createCallback(
           final RequestContext requestContext,
           final NextFilter<REQ, RES> nextFilter)
@@ -18,8 +18,10 @@
 package com.linkedin.r2.filter.transport;
 
 import com.linkedin.r2.filter.NextFilter;
+import com.linkedin.r2.filter.NextStreamFilter;
 import com.linkedin.r2.filter.message.rest.RestRequestFilter;
 import com.linkedin.r2.filter.message.rpc.RpcRequestFilter;
+import com.linkedin.r2.filter.message.stream.StreamRequestFilter;
 import com.linkedin.r2.message.Request;
 import com.linkedin.r2.message.RequestContext;
 import com.linkedin.r2.message.Response;
@@ -27,9 +29,12 @@ import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.r2.message.rest.RestResponse;
 import com.linkedin.r2.message.rpc.RpcRequest;
 import com.linkedin.r2.message.rpc.RpcResponse;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
 import com.linkedin.r2.transport.common.bridge.common.TransportCallback;
 import com.linkedin.r2.transport.common.bridge.common.TransportResponse;
 import com.linkedin.r2.transport.common.bridge.server.TransportDispatcher;
+import com.linkedin.r2.transport.common.bridge.server.TransportDispatchers;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -40,7 +45,7 @@ import java.util.Map;
  * @author Chris Pettitt
  * @version $Revision$
  */
-public class DispatcherRequestFilter implements RpcRequestFilter, RestRequestFilter
+public class DispatcherRequestFilter implements RpcRequestFilter, RestRequestFilter, StreamRequestFilter
 {
   private final TransportDispatcher _dispatcher;
 
@@ -86,6 +91,37 @@ public class DispatcherRequestFilter implements RpcRequestFilter, RestRequestFil
     }
   }
 
+  @Override
+  public void onStreamRequest(StreamRequest req, final RequestContext requestContext,
+                              Map<String, String> wireAttrs,
+                              final NextStreamFilter nextFilter)
+  {
+    try
+    {
+      TransportDispatchers.handleStreamRequest(_dispatcher, req, wireAttrs, requestContext,
+                                               new TransportCallback<StreamResponse>()
+      {
+        @Override
+        public void onResponse(TransportResponse<StreamResponse> res)
+        {
+          final Map<String, String> wireAttrs = res.getWireAttributes();
+          if (res.hasError())
+          {
+            nextFilter.onError(res.getError(), requestContext, wireAttrs);
+          }
+          else
+          {
+            nextFilter.onResponse(res.getResponse(), requestContext, wireAttrs);
+          }
+        }
+      });
+    }
+    catch (Exception e)
+    {
+      nextFilter.onError(e, requestContext, new HashMap<String, String>());
+    }
+  }
+
   private <REQ extends Request, RES extends Response> TransportCallback<RES> createCallback(
           final RequestContext requestContext,
           final NextFilter<REQ, RES> nextFilter)
@@ -24,6 +24,9 @@ import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.r2.message.rest.RestResponse;
 import com.linkedin.r2.message.rpc.RpcRequest;
 import com.linkedin.r2.message.rpc.RpcResponse;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
+import com.linkedin.r2.transport.common.bridge.client.StreamTransportClient;
 import com.linkedin.r2.transport.common.bridge.client.TransportClient;
 import com.linkedin.r2.transport.common.bridge.common.TransportCallback;
 import com.linkedin.common.util.None;
@@ -37,7 +40,7 @@ import java.util.Map;
  * @author Chris Pettitt
  * @version $Revision$
  */
-public class FilterChainClient implements TransportClient
+public class FilterChainClient implements StreamTransportClient
 {
   private final TransportClient _client;
   private final FilterChain _filters;
@@ -81,6 +84,16 @@ public class FilterChainClient implements TransportClient
     _filters.onRpcRequest(request, requestContext, wireAttrs);
   }
 
+  @Override
+  public void streamRequest(StreamRequest request,
+                            RequestContext requestContext,
+                            Map<String, String> wireAttrs,
+                            TransportCallback<StreamResponse> callback)
+  {
+    ResponseFilter.registerCallback(callback, requestContext);
+    _filters.onStreamRequest(request, requestContext, wireAttrs);
+  }
+
   @Override
   public void shutdown(Callback<None> callback)
   {
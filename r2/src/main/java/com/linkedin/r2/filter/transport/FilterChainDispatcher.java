@@ -25,7 +25,10 @@ import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.r2.message.rest.RestResponse;
 import com.linkedin.r2.message.rpc.RpcRequest;
 import com.linkedin.r2.message.rpc.RpcResponse;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
 import com.linkedin.r2.transport.common.bridge.common.TransportCallback;
+import com.linkedin.r2.transport.common.bridge.server.StreamTransportDispatcher;
 import com.linkedin.r2.transport.common.bridge.server.TransportDispatcher;
 
 /**
@@ -35,7 +38,7 @@ import com.linkedin.r2.transport.common.bridge.server.TransportDispatcher;
  * @author Chris Pettitt
  * @version $Revision$
  */
-public class FilterChainDispatcher implements TransportDispatcher
+public class FilterChainDispatcher implements StreamTransportDispatcher
 {
   private final FilterChain _filters;
 
@@ -71,4 +74,13 @@ public class FilterChainDispatcher implements TransportDispatcher
     ResponseFilter.registerCallback(callback, requestContext);
     _filters.onRestRequest(req, requestContext, wireAttrs);
   }
+
+  @Override
+  public void handleStreamRequest(StreamRequest req, Map<String, String> wireAttrs,
+                                  RequestContext requestContext,
+                                  TransportCallback<StreamResponse> callback)
+  {
+    ResponseFilter.registerCallback(callback, requestContext);
+    _filters.onStreamRequest(req, requestContext, wireAttrs);
+  }
 }
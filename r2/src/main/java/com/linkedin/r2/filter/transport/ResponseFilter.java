@@ -23,13 +23,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.linkedin.r2.filter.NextFilter;
+import com.linkedin.r2.filter.NextStreamFilter;
 import com.linkedin.r2.filter.message.rest.RestResponseFilter;
 import com.linkedin.r2.filter.message.rpc.RpcResponseFilter;
+import com.linkedin.r2.filter.message.stream.StreamResponseFilter;
 import com.linkedin.r2.message.RequestContext;
 import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.r2.message.rest.RestResponse;
 import com.linkedin.r2.message.rpc.RpcRequest;
 import com.linkedin.r2.message.rpc.RpcResponse;
+import com.linkedin.r2.message.streaming.StreamResponse;
 import com.linkedin.r2.transport.common.bridge.common.NullTransportCallback;
 import com.linkedin.r2.transport.common.bridge.common.TransportCallback;
 import com.linkedin.r2.transport.common.bridge.common.TransportResponseImpl;
@@ -39,7 +42,7 @@ import com.linkedin.r2.transport.common.bridge.common.TransportResponseImpl;
  * @author Chris Pettitt
  * @version $Revision$
  */
-public class ResponseFilter implements RpcResponseFilter, RestResponseFilter
+public class ResponseFilter implements RpcResponseFilter, RestResponseFilter, StreamResponseFilter
 {
   private static final String CALLBACK_ATTR = ResponseFilter.class.getName() + ".callback";
 
@@ -96,6 +99,26 @@ public class ResponseFilter implements RpcResponseFilter, RestResponseFilter
     nextFilter.onError(ex, requestContext, wireAttrs);
   }
 
+  @Override
+  public void onStreamResponse(StreamResponse res, RequestContext requestContext,
+                               Map<String, String> wireAttrs,
+                               NextStreamFilter nextFilter)
+  {
+    final TransportCallback<StreamResponse> callback = getCallback(requestContext);
+    callback.onResponse(TransportResponseImpl.success(res, wireAttrs));
+    nextFilter.onResponse(res, requestContext, wireAttrs);
+  }
+
+  @Override
+  public void onStreamError(Throwable ex, RequestContext requestContext,
+                            Map<String, String> wireAttrs,
+                            NextStreamFilter nextFilter)
+  {
+    final TransportCallback<StreamResponse> callback = getCallback(requestContext);
+    callback.onResponse(TransportResponseImpl.<StreamResponse>error(ex, wireAttrs));
+    nextFilter.onError(ex, requestContext, wireAttrs);
+  }
+
   @SuppressWarnings("unchecked")
   private <T> TransportCallback<T> getCallback(RequestContext context)
   {
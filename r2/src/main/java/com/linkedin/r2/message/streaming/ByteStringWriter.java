@@ -0,0 +1,65 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.r2.message.streaming;
+
+import com.linkedin.data.ByteString;
+
+/**
+ * A {@link Writer} of an entity already in memory, written as a single chunk.
+ */
+public class ByteStringWriter implements Writer
+{
+  private final ByteString _content;
+  private WriteHandle _wh;
+  private boolean _written = false;
+
+  /**
+   * @param content the entity to write.
+   */
+  public ByteStringWriter(ByteString content)
+  {
+    _content = content;
+  }
+
+  @Override
+  public void onInit(WriteHandle wh)
+  {
+    _wh = wh;
+    if (_content.length() == 0)
+    {
+      // an empty entity needs no chunk
+      _written = true;
+      wh.done();
+    }
+  }
+
+  @Override
+  public void onWritePossible()
+  {
+    if (!_written && _wh.remaining() > 0)
+    {
+      _written = true;
+      _wh.write(_content);
+      _wh.done();
+    }
+  }
+
+  @Override
+  public void onAbort(Throwable e)
+  {
+  }
+}
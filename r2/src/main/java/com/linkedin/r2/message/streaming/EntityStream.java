@@ -0,0 +1,34 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.r2.message.streaming;
+
+/**
+ * The entity of a streamed message, which flows in chunks from a single {@link Writer} to a
+ * single {@link Reader} as the reader requests them. Nothing is written before the reader is set.
+ *
+ * @see EntityStreams
+ */
+public interface EntityStream
+{
+  /**
+   * Sets the reader of this stream, which starts the flow of chunks.
+   *
+   * @param reader the reader.
+   * @throws IllegalStateException if the stream already has a reader.
+   */
+  void setReader(Reader reader);
+}
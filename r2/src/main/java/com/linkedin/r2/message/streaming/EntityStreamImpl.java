@@ -0,0 +1,254 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.r2.message.streaming;
+
+import java.util.concurrent.CancellationException;
+
+import com.linkedin.data.ByteString;
+
+/**
+ * The {@link EntityStream} returned by {@link EntityStreams#newEntityStream(Writer)}.<p/>
+ *
+ * The writer is only told that it can write when it is not already writing: the chunks requested
+ * while it writes are counted, and it is told again once it returns if chunks remain. A writer
+ * which writes synchronously to a reader requesting a chunk at a time therefore loops rather
+ * than recursing through the reader.
+ */
+/* package private */ class EntityStreamImpl implements EntityStream
+{
+  private enum State
+  {
+    NO_READER,
+    INITIALIZING,
+    OPEN,
+    CLOSED
+  }
+
+  private final Writer _writer;
+
+  // All members below are protected by this lock
+  private final Object _lock = new Object();
+  private State _state = State.NO_READER;
+  private Reader _reader;
+  private int _remaining = 0;
+  // true while the writer is told that it can write
+  private boolean _notifying = false;
+  // true if more chunks were requested while notifying
+  private boolean _notifyAgain = false;
+  // set if the reader cancelled the stream before the writer was initialized
+  private Throwable _pendingAbort;
+
+  /* package private */ EntityStreamImpl(Writer writer)
+  {
+    _writer = writer;
+  }
+
+  @Override
+  public void setReader(Reader reader)
+  {
+    synchronized (_lock)
+    {
+      if (_state != State.NO_READER)
+      {
+        throw new IllegalStateException("Entity stream already has a reader");
+      }
+      _reader = reader;
+      _state = State.INITIALIZING;
+    }
+
+    reader.onInit(new ReadHandleImpl());
+    _writer.onInit(new WriteHandleImpl());
+
+    final Throwable abort;
+    final boolean notify;
+    synchronized (_lock)
+    {
+      abort = _pendingAbort;
+      _pendingAbort = null;
+      if (_state == State.INITIALIZING)
+      {
+        _state = State.OPEN;
+      }
+      notify = _state == State.OPEN && _remaining > 0;
+      _notifying = notify;
+    }
+
+    if (abort != null)
+    {
+      _writer.onAbort(abort);
+    }
+    else if (notify)
+    {
+      notifyWritePossible();
+    }
+  }
+
+  private void notifyWritePossible()
+  {
+    for (;;)
+    {
+      try
+      {
+        _writer.onWritePossible();
+      }
+      catch (RuntimeException e)
+      {
+        endWithError(e);
+      }
+
+      synchronized (_lock)
+      {
+        if (!_notifyAgain || _state != State.OPEN || _remaining == 0)
+        {
+          _notifying = false;
+          _notifyAgain = false;
+          return;
+        }
+        _notifyAgain = false;
+      }
+    }
+  }
+
+  private void endWithError(Throwable e)
+  {
+    synchronized (_lock)
+    {
+      if (_state == State.CLOSED)
+      {
+        return;
+      }
+      _state = State.CLOSED;
+      _remaining = 0;
+    }
+    _reader.onError(e);
+  }
+
+  private class ReadHandleImpl implements ReadHandle
+  {
+    @Override
+    public void request(int chunks)
+    {
+      if (chunks <= 0)
+      {
+        throw new IllegalArgumentException("chunks must be positive: " + chunks);
+      }
+
+      boolean notify = false;
+      synchronized (_lock)
+      {
+        if (_state == State.CLOSED)
+        {
+          return;
+        }
+        // saturate, so that a reader can request all the chunks
+        _remaining = (int) Math.min((long) _remaining + chunks, Integer.MAX_VALUE);
+        if (_state == State.OPEN)
+        {
+          if (_notifying)
+          {
+            _notifyAgain = true;
+          }
+          else
+          {
+            _notifying = true;
+            notify = true;
+          }
+        }
+      }
+
+      if (notify)
+      {
+        notifyWritePossible();
+      }
+    }
+
+    @Override
+    public void cancel()
+    {
+      final Throwable abort = new CancellationException("Entity stream was cancelled by the reader");
+      synchronized (_lock)
+      {
+        if (_state == State.CLOSED)
+        {
+          return;
+        }
+        final boolean initializing = _state == State.INITIALIZING;
+        _state = State.CLOSED;
+        _remaining = 0;
+        if (initializing)
+        {
+          // the writer is aborted once it is initialized
+          _pendingAbort = abort;
+          return;
+        }
+      }
+      _writer.onAbort(abort);
+    }
+  }
+
+  private class WriteHandleImpl implements WriteHandle
+  {
+    @Override
+    public void write(ByteString data)
+    {
+      synchronized (_lock)
+      {
+        if (_state == State.CLOSED)
+        {
+          // the stream was cancelled while the writer was writing
+          return;
+        }
+        if (_remaining == 0)
+        {
+          throw new IllegalStateException("No chunk requested by the reader");
+        }
+        _remaining--;
+      }
+      _reader.onDataAvailable(data);
+    }
+
+    @Override
+    public void done()
+    {
+      synchronized (_lock)
+      {
+        if (_state == State.CLOSED)
+        {
+          return;
+        }
+        _state = State.CLOSED;
+        _remaining = 0;
+      }
+      _reader.onDone();
+    }
+
+    @Override
+    public void error(Throwable e)
+    {
+      endWithError(e);
+    }
+
+    @Override
+    public int remaining()
+    {
+      synchronized (_lock)
+      {
+        return _remaining;
+      }
+    }
+  }
+}
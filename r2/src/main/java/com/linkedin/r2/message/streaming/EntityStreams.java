@@ -0,0 +1,48 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.r2.message.streaming;
+
+import com.linkedin.data.ByteString;
+
+/**
+ * Factory methods for {@link EntityStream}s.
+ */
+public final class EntityStreams
+{
+  private EntityStreams()
+  {
+  }
+
+  /**
+   * Creates a stream of the chunks written by the writer.
+   *
+   * @param writer the writer of the stream.
+   * @return the new stream.
+   */
+  public static EntityStream newEntityStream(Writer writer)
+  {
+    return new EntityStreamImpl(writer);
+  }
+
+  /**
+   * @return a new stream without chunks.
+   */
+  public static EntityStream emptyStream()
+  {
+    return newEntityStream(new ByteStringWriter(ByteString.empty()));
+  }
+}
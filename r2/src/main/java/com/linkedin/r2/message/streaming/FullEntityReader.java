@@ -0,0 +1,101 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.r2.message.streaming;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.data.ByteString;
+import com.linkedin.r2.SizeLimitExceededException;
+
+/**
+ * A {@link Reader} which aggregates all the chunks of a stream into a single {@link ByteString},
+ * for the code which needs the whole entity. The chunks are not copied.
+ */
+public class FullEntityReader implements Reader
+{
+  private final int _maxLength;
+  private final Callback<ByteString> _callback;
+  private final List<ByteString> _chunks = new ArrayList<ByteString>();
+  private long _length = 0;
+  private boolean _failed = false;
+  private ReadHandle _rh;
+
+  /**
+   * @param callback the callback invoked with the entity, or with the error of the stream.
+   */
+  public FullEntityReader(Callback<ByteString> callback)
+  {
+    this(Integer.MAX_VALUE, callback);
+  }
+
+  /**
+   * @param maxLength the maximum length of the entity; a longer stream is cancelled, and the
+   *          callback gets a {@link SizeLimitExceededException}.
+   * @param callback the callback invoked with the entity, or with the error of the stream.
+   */
+  public FullEntityReader(int maxLength, Callback<ByteString> callback)
+  {
+    _maxLength = maxLength;
+    _callback = callback;
+  }
+
+  @Override
+  public void onInit(ReadHandle rh)
+  {
+    _rh = rh;
+    rh.request(Integer.MAX_VALUE);
+  }
+
+  @Override
+  public void onDataAvailable(ByteString data)
+  {
+    if (_failed)
+    {
+      return;
+    }
+    _length += data.length();
+    if (_length > _maxLength)
+    {
+      _failed = true;
+      _chunks.clear();
+      _rh.cancel();
+      _callback.onError(new SizeLimitExceededException("Entity exceeds " + _maxLength + " bytes"));
+      return;
+    }
+    _chunks.add(data);
+  }
+
+  @Override
+  public void onDone()
+  {
+    if (!_failed)
+    {
+      _callback.onSuccess(ByteString.concat(_chunks.toArray(new ByteString[_chunks.size()])));
+    }
+  }
+
+  @Override
+  public void onError(Throwable e)
+  {
+    if (!_failed)
+    {
+      _callback.onError(e);
+    }
+  }
+}
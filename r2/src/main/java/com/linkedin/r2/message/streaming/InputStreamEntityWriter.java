@@ -0,0 +1,93 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.r2.message.streaming;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.linkedin.data.ByteString;
+
+/**
+ * A {@link Writer} which reads the chunks of the stream from an {@link InputStream} as the reader
+ * requests them, so that at most the requested chunks are held in memory. The input stream is
+ * read from the thread which requests the chunks, and is not closed.
+ */
+public class InputStreamEntityWriter implements Writer
+{
+  public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+  private final InputStream _in;
+  private final int _chunkSize;
+  private WriteHandle _wh;
+  private boolean _done = false;
+
+  /**
+   * @param in the stream to read.
+   * @param chunkSize the maximum size of a chunk.
+   */
+  public InputStreamEntityWriter(InputStream in, int chunkSize)
+  {
+    if (chunkSize <= 0)
+    {
+      throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+    }
+    _in = in;
+    _chunkSize = chunkSize;
+  }
+
+  @Override
+  public void onInit(WriteHandle wh)
+  {
+    _wh = wh;
+  }
+
+  @Override
+  public void onWritePossible()
+  {
+    while (!_done && _wh.remaining() > 0)
+    {
+      byte[] chunk = new byte[_chunkSize];
+      int length;
+      try
+      {
+        length = _in.read(chunk);
+      }
+      catch (IOException e)
+      {
+        _done = true;
+        _wh.error(e);
+        return;
+      }
+
+      if (length < 0)
+      {
+        _done = true;
+        _wh.done();
+      }
+      else if (length > 0)
+      {
+        _wh.write(ByteString.unsafeWrap(chunk, 0, length));
+      }
+    }
+  }
+
+  @Override
+  public void onAbort(Throwable e)
+  {
+    _done = true;
+  }
+}
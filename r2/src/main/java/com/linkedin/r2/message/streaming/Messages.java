@@ -0,0 +1,99 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.r2.message.streaming;
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.data.ByteString;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestRequestBuilder;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.rest.RestResponseBuilder;
+
+/**
+ * Conversions between the REST messages and the streamed messages. A REST message becomes a
+ * stream of a single chunk, without copy; a streamed message becomes a REST message once its
+ * whole entity is read.
+ */
+public final class Messages
+{
+  private Messages()
+  {
+  }
+
+  public static StreamRequest toStreamRequest(RestRequest request)
+  {
+    RestRequest head = new RestRequestBuilder(request).setEntity(ByteString.empty()).build();
+    return new StreamRequest(head, EntityStreams.newEntityStream(new ByteStringWriter(request.getEntity())));
+  }
+
+  public static StreamResponse toStreamResponse(RestResponse response)
+  {
+    RestResponse head = new RestResponseBuilder(response).setEntity(ByteString.empty()).build();
+    return new StreamResponse(head, EntityStreams.newEntityStream(new ByteStringWriter(response.getEntity())));
+  }
+
+  /**
+   * Reads the entity of the request, and invokes the callback with the REST request.
+   */
+  public static void toRestRequest(final StreamRequest request, final Callback<RestRequest> callback)
+  {
+    request.getEntityStream().setReader(new FullEntityReader(new Callback<ByteString>()
+    {
+      @Override
+      public void onSuccess(ByteString entity)
+      {
+        callback.onSuccess(request.headBuilder().setEntity(entity).build());
+      }
+
+      @Override
+      public void onError(Throwable e)
+      {
+        callback.onError(e);
+      }
+    }));
+  }
+
+  /**
+   * Reads the entity of the response, and invokes the callback with the REST response.
+   */
+  public static void toRestResponse(final StreamResponse response, final Callback<RestResponse> callback)
+  {
+    toRestResponse(response, Integer.MAX_VALUE, callback);
+  }
+
+  /**
+   * Same as {@link #toRestResponse(StreamResponse, Callback)}, failing with a
+   * {@link com.linkedin.r2.SizeLimitExceededException} if the entity is longer than maxLength.
+   */
+  public static void toRestResponse(final StreamResponse response, int maxLength, final Callback<RestResponse> callback)
+  {
+    response.getEntityStream().setReader(new FullEntityReader(maxLength, new Callback<ByteString>()
+    {
+      @Override
+      public void onSuccess(ByteString entity)
+      {
+        callback.onSuccess(response.headBuilder().setEntity(entity).build());
+      }
+
+      @Override
+      public void onError(Throwable e)
+      {
+        callback.onError(e);
+      }
+    }));
+  }
+}
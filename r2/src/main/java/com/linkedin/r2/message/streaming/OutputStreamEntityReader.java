@@ -0,0 +1,104 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.r2.message.streaming;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.common.util.None;
+import com.linkedin.data.ByteString;
+
+/**
+ * A {@link Reader} which writes the chunks of the stream to an {@link OutputStream}, requesting a
+ * chunk only once the previous one is written, so that a slow output holds back the writer
+ * instead of piling up chunks in memory. The output stream is flushed but not closed.
+ */
+public class OutputStreamEntityReader implements Reader
+{
+  private final OutputStream _out;
+  private final Callback<None> _callback;
+  private ReadHandle _rh;
+  private boolean _failed = false;
+
+  /**
+   * @param out the stream to write to.
+   * @param callback the callback invoked once the whole entity is written, or with the error of
+   *          the stream or of the output.
+   */
+  public OutputStreamEntityReader(OutputStream out, Callback<None> callback)
+  {
+    _out = out;
+    _callback = callback;
+  }
+
+  @Override
+  public void onInit(ReadHandle rh)
+  {
+    _rh = rh;
+    rh.request(1);
+  }
+
+  @Override
+  public void onDataAvailable(ByteString data)
+  {
+    if (_failed)
+    {
+      return;
+    }
+    try
+    {
+      data.write(_out);
+    }
+    catch (IOException e)
+    {
+      _failed = true;
+      _rh.cancel();
+      _callback.onError(e);
+      return;
+    }
+    _rh.request(1);
+  }
+
+  @Override
+  public void onDone()
+  {
+    if (_failed)
+    {
+      return;
+    }
+    try
+    {
+      _out.flush();
+    }
+    catch (IOException e)
+    {
+      _callback.onError(e);
+      return;
+    }
+    _callback.onSuccess(None.none());
+  }
+
+  @Override
+  public void onError(Throwable e)
+  {
+    if (!_failed)
+    {
+      _callback.onError(e);
+    }
+  }
+}
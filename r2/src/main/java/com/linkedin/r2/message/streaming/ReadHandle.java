@@ -0,0 +1,36 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.r2.message.streaming;
+
+/**
+ * The handle a {@link Reader} uses to control the flow of its {@link EntityStream}.
+ */
+public interface ReadHandle
+{
+  /**
+   * Requests more chunks from the writer. The requests add up, so a reader can request a chunk
+   * each time it is done with one.
+   *
+   * @param chunks the number of chunks, which must be positive.
+   */
+  void request(int chunks);
+
+  /**
+   * Cancels the stream; the writer is aborted and the reader gets no more chunks.
+   */
+  void cancel();
+}
@@ -0,0 +1,56 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.r2.message.streaming;
+
+import com.linkedin.data.ByteString;
+
+/**
+ * The consumer of the chunks of an {@link EntityStream}.<p/>
+ *
+ * The reader controls the flow of the stream: it gets no more chunks than it has requested with
+ * {@link ReadHandle#request(int)}, so a reader requesting a chunk once it is done with the
+ * previous one keeps the memory used by the stream bounded. The methods of a reader are never
+ * invoked concurrently, but they may be invoked from the thread of the writer.
+ */
+public interface Reader
+{
+  /**
+   * Invoked once, when the reader is set on the stream and before any other method.
+   *
+   * @param rh the handle used to request chunks, which the reader should keep.
+   */
+  void onInit(ReadHandle rh);
+
+  /**
+   * Invoked for each chunk written, in order.
+   *
+   * @param data the chunk.
+   */
+  void onDataAvailable(ByteString data);
+
+  /**
+   * Invoked once all the chunks have been read.
+   */
+  void onDone();
+
+  /**
+   * Invoked if the writer fails; no other method is invoked afterwards.
+   *
+   * @param e the error of the writer.
+   */
+  void onError(Throwable e);
+}
@@ -0,0 +1,109 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.r2.message.streaming;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestRequestBuilder;
+
+/**
+ * A REST request whose entity is an {@link EntityStream}, so that it can be processed before it
+ * is entirely received.<p/>
+ *
+ * The URI, method and headers are those of a {@link RestRequest} without entity, the head of the
+ * request. A StreamRequest is immutable, but its entity stream can only be read once: a filter
+ * which reads it must pass on a new request with a new stream.
+ *
+ * @see Messages
+ */
+public final class StreamRequest
+{
+  private final RestRequest _head;
+  private final EntityStream _entityStream;
+
+  /**
+   * @param head the URI, method and headers of the request; its entity must be empty.
+   * @param entityStream the entity of the request.
+   */
+  public StreamRequest(RestRequest head, EntityStream entityStream)
+  {
+    if (head.getEntity().length() != 0)
+    {
+      throw new IllegalArgumentException("The head of a stream request must not have an entity");
+    }
+    _head = head;
+    _entityStream = entityStream;
+  }
+
+  public URI getURI()
+  {
+    return _head.getURI();
+  }
+
+  public String getMethod()
+  {
+    return _head.getMethod();
+  }
+
+  /**
+   * @see RestRequest#getHeader(String)
+   */
+  public String getHeader(String name)
+  {
+    return _head.getHeader(name);
+  }
+
+  /**
+   * @see RestRequest#getHeaderValues(String)
+   */
+  public List<String> getHeaderValues(String name)
+  {
+    return _head.getHeaderValues(name);
+  }
+
+  public Map<String, String> getHeaders()
+  {
+    return _head.getHeaders();
+  }
+
+  public EntityStream getEntityStream()
+  {
+    return _entityStream;
+  }
+
+  /**
+   * @return the head of this request.
+   */
+  public RestRequest getHead()
+  {
+    return _head;
+  }
+
+  /**
+   * Returns a builder of a new head, to build a modified request with
+   * {@link #StreamRequest(RestRequest, EntityStream)}.
+   *
+   * @return a builder initialized with the URI, method and headers of this request.
+   */
+  public RestRequestBuilder headBuilder()
+  {
+    return new RestRequestBuilder(_head);
+  }
+}
@@ -0,0 +1,102 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.r2.message.streaming;
+
+import java.util.List;
+import java.util.Map;
+
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.rest.RestResponseBuilder;
+
+/**
+ * A REST response whose entity is an {@link EntityStream}, so that it can be sent before it is
+ * entirely produced.<p/>
+ *
+ * The status and headers are those of a {@link RestResponse} without entity, the head of the
+ * response. A StreamResponse is immutable, but its entity stream can only be read once.
+ *
+ * @see Messages
+ */
+public final class StreamResponse
+{
+  private final RestResponse _head;
+  private final EntityStream _entityStream;
+
+  /**
+   * @param head the status and headers of the response; its entity must be empty.
+   * @param entityStream the entity of the response.
+   */
+  public StreamResponse(RestResponse head, EntityStream entityStream)
+  {
+    if (head.getEntity().length() != 0)
+    {
+      throw new IllegalArgumentException("The head of a stream response must not have an entity");
+    }
+    _head = head;
+    _entityStream = entityStream;
+  }
+
+  public int getStatus()
+  {
+    return _head.getStatus();
+  }
+
+  /**
+   * @see RestResponse#getHeader(String)
+   */
+  public String getHeader(String name)
+  {
+    return _head.getHeader(name);
+  }
+
+  /**
+   * @see RestResponse#getHeaderValues(String)
+   */
+  public List<String> getHeaderValues(String name)
+  {
+    return _head.getHeaderValues(name);
+  }
+
+  public Map<String, String> getHeaders()
+  {
+    return _head.getHeaders();
+  }
+
+  public EntityStream getEntityStream()
+  {
+    return _entityStream;
+  }
+
+  /**
+   * @return the head of this response.
+   */
+  public RestResponse getHead()
+  {
+    return _head;
+  }
+
+  /**
+   * Returns a builder of a new head, to build a modified response with
+   * {@link #StreamResponse(RestResponse, EntityStream)}.
+   *
+   * @return a builder initialized with the status and headers of this response.
+   */
+  public RestResponseBuilder headBuilder()
+  {
+    return new RestResponseBuilder(_head);
+  }
+}
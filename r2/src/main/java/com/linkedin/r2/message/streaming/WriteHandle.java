@@ -0,0 +1,51 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.r2.message.streaming;
+
+import com.linkedin.data.ByteString;
+
+/**
+ * The handle a {@link Writer} uses to write to its {@link EntityStream}.
+ */
+public interface WriteHandle
+{
+  /**
+   * Writes a chunk to the reader.
+   *
+   * @param data the chunk.
+   * @throws IllegalStateException if no chunk remains requested by the reader.
+   */
+  void write(ByteString data);
+
+  /**
+   * Ends the stream once all the chunks are written.
+   */
+  void done();
+
+  /**
+   * Ends the stream with an error.
+   *
+   * @param e the error, given to the reader.
+   */
+  void error(Throwable e);
+
+  /**
+   * @return the number of chunks which the reader has requested and which have not been written
+   *         yet, 0 once the stream has ended or has been cancelled.
+   */
+  int remaining();
+}
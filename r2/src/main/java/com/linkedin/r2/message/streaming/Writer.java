@@ -0,0 +1,51 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.r2.message.streaming;
+
+/**
+ * The producer of the chunks of an {@link EntityStream}.<p/>
+ *
+ * The writer may only write as many chunks as the reader has requested, which is given by
+ * {@link WriteHandle#remaining()}. {@link #onInit} and {@link #onWritePossible()} are never
+ * invoked concurrently, but {@link #onAbort} may be invoked from the thread of the reader at any
+ * time.
+ */
+public interface Writer
+{
+  /**
+   * Invoked once, when the stream gets its reader and before any other method.
+   *
+   * @param wh the handle used to write chunks, which the writer should keep.
+   */
+  void onInit(WriteHandle wh);
+
+  /**
+   * Invoked when the reader has requested more chunks. The writer should write chunks until
+   * {@link WriteHandle#remaining()} is 0 or it has no more data for now, in which case it writes
+   * again once it has data, as long as chunks remain requested. This method may be invoked
+   * again while chunks remain, and must then just write as usual.
+   */
+  void onWritePossible();
+
+  /**
+   * Invoked when the reader cancels the stream. The writer should release its resources and
+   * stop writing.
+   *
+   * @param e the reason of the cancellation.
+   */
+  void onAbort(Throwable e);
+}
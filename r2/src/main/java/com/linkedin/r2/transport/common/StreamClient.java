@@ -0,0 +1,51 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.transport.common;
+
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
+
+
+/**
+ * A {@link Client} which can also issue streamed requests, whose entities flow in chunks instead
+ * of being held in memory entirely.
+ */
+public interface StreamClient extends Client
+{
+  /**
+   * Asynchronously issues the given request. The given callback is invoked when the head of the
+   * response is received; the entity of the response is then read from its stream.
+   *
+   * @param request the request to issue
+   * @param callback the callback to invoke with the response
+   */
+  void streamRequest(StreamRequest request, Callback<StreamResponse> callback);
+
+  /**
+   * Asynchronously issues the given request. The given callback is invoked when the head of the
+   * response is received; the entity of the response is then read from its stream.
+   *
+   * @param request the request to issue
+   * @param requestContext context for the request
+   * @param callback the callback to invoke with the response
+   */
+  void streamRequest(StreamRequest request, RequestContext requestContext, Callback<StreamResponse> callback);
+}
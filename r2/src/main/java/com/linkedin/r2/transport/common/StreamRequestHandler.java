@@ -0,0 +1,41 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.r2.transport.common;
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
+
+/**
+ * A request handler for {@link StreamRequest}s, for the services which read their request or
+ * write their response as a stream rather than holding the whole entity in memory.
+ *
+ * @see RestRequestHandler
+ */
+public interface StreamRequestHandler
+{
+  /**
+   * Handles the supplied request and notifies the supplied callback with the response as soon as
+   * its head is known; the entity of the response may be written afterwards.
+   *
+   * @param request the request to process
+   * @param requestContext {@link RequestContext} context for the request
+   * @param callback the callback to notify with the response
+   */
+  void handleRequest(StreamRequest request, RequestContext requestContext, Callback<StreamResponse> callback);
+}
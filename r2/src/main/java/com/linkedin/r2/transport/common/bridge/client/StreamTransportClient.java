@@ -0,0 +1,48 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.transport.common.bridge.client;
+
+
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
+import com.linkedin.r2.transport.common.bridge.common.TransportCallback;
+
+import java.util.Map;
+
+
+/**
+ * A {@link TransportClient} which can also issue streamed requests. Streamed requests are issued
+ * to other clients by reading them entirely, see {@link TransportClients#streamRequest}.
+ */
+public interface StreamTransportClient extends TransportClient
+{
+  /**
+   * Asynchronously issues the given request. The given callback is invoked when the head of the
+   * response is received; the entity of the response is then read from its stream.
+   *
+   * @param request the request to issue
+   * @param requestContext context for the request
+   * @param wireAttrs attributes that should be sent over the wire to the server
+   * @param callback the callback to invoke with the response
+   */
+  void streamRequest(StreamRequest request,
+                     RequestContext requestContext,
+                     Map<String, String> wireAttrs,
+                     TransportCallback<StreamResponse> callback);
+}
@@ -23,7 +23,10 @@ import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.r2.message.rest.RestResponse;
 import com.linkedin.r2.message.rpc.RpcRequest;
 import com.linkedin.r2.message.rpc.RpcResponse;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
 import com.linkedin.r2.transport.common.AbstractClient;
+import com.linkedin.r2.transport.common.StreamClient;
 import com.linkedin.common.util.None;
 
 import java.util.HashMap;
@@ -33,7 +36,7 @@ import java.util.Map;
  * @author Chris Pettitt
  * @version $Revision$
  */
-public class TransportClientAdapter extends AbstractClient
+public class TransportClientAdapter extends AbstractClient implements StreamClient
 {
   private final TransportClient _client;
 
@@ -68,6 +71,27 @@ public class TransportClientAdapter extends AbstractClient
     );
   }
 
+  /**
+   * The request is streamed if the {@link TransportClient} is a {@link StreamTransportClient}.
+   * @see TransportClients#streamRequest
+   */
+  @Override
+  public void streamRequest(StreamRequest request,
+                            RequestContext requestContext,
+                            Callback<StreamResponse> callback)
+  {
+    final Map<String, String> wireAttrs = new HashMap<String, String>();
+    //make a copy of the caller's RequestContext to ensure that we have a unique instance per-request
+    TransportClients.streamRequest(_client, request, new RequestContext(requestContext), wireAttrs,
+                                   new TransportCallbackAdapter<StreamResponse>(callback));
+  }
+
+  @Override
+  public void streamRequest(StreamRequest request, Callback<StreamResponse> callback)
+  {
+    streamRequest(request, new RequestContext(), callback);
+  }
+
   @Override
   public void shutdown(Callback<None> callback)
   {
@@ -0,0 +1,81 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.transport.common.bridge.client;
+
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.streaming.Messages;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
+import com.linkedin.r2.transport.common.bridge.common.TransportCallback;
+import com.linkedin.r2.transport.common.bridge.common.TransportResponseImpl;
+import com.linkedin.r2.transport.common.bridge.server.TransportDispatchers;
+
+import java.util.Map;
+
+
+/**
+ * Streamed requests issued through any {@link TransportClient}.
+ */
+public final class TransportClients
+{
+  private TransportClients()
+  {
+  }
+
+  /**
+   * Issues the request as a stream if the client is a {@link StreamTransportClient}, otherwise
+   * reads it entirely and issues it as a {@link RestRequest}, whose response is then streamed as a
+   * single chunk.
+   *
+   * @param client the client.
+   * @param request the request.
+   * @param requestContext context for the request
+   * @param wireAttrs attributes that should be sent over the wire to the server
+   * @param callback the callback to invoke with the response
+   */
+  public static void streamRequest(final TransportClient client,
+                                   StreamRequest request,
+                                   final RequestContext requestContext,
+                                   final Map<String, String> wireAttrs,
+                                   final TransportCallback<StreamResponse> callback)
+  {
+    if (client instanceof StreamTransportClient)
+    {
+      ((StreamTransportClient) client).streamRequest(request, requestContext, wireAttrs, callback);
+      return;
+    }
+
+    Messages.toRestRequest(request, new Callback<RestRequest>()
+    {
+      @Override
+      public void onSuccess(RestRequest restRequest)
+      {
+        client.restRequest(restRequest, requestContext, wireAttrs, TransportDispatchers.restToStreamCallback(callback));
+      }
+
+      @Override
+      public void onError(Throwable e)
+      {
+        callback.onResponse(TransportResponseImpl.<StreamResponse>error(e));
+      }
+    });
+  }
+}
@@ -0,0 +1,43 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.r2.transport.common.bridge.server;
+
+import java.util.Map;
+
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
+import com.linkedin.r2.transport.common.bridge.common.TransportCallback;
+
+/**
+ * A {@link TransportDispatcher} which can also dispatch streamed requests. The servers dispatch
+ * a streamed request to other dispatchers by reading it entirely, see
+ * {@link TransportDispatchers#handleStreamRequest}.
+ */
+public interface StreamTransportDispatcher extends TransportDispatcher
+{
+  /**
+   * Dispatch a {@link StreamRequest}.
+   *
+   * @param req the {@link StreamRequest} to be dispatched.
+   * @param wireAttrs the wire attributes of the request.
+   * @param requestContext {@link RequestContext} context for the request
+   * @param callback a {@link TransportCallback} to be called with the {@link StreamResponse}.
+   */
+  void handleStreamRequest(StreamRequest req, Map<String, String> wireAttrs,
+                           RequestContext requestContext, TransportCallback<StreamResponse> callback);
+}
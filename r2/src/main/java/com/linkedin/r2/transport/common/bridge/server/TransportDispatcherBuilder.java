@@ -23,6 +23,7 @@ import java.util.Map;
 
 import com.linkedin.r2.transport.common.RestRequestHandler;
 import com.linkedin.r2.transport.common.RpcRequestHandler;
+import com.linkedin.r2.transport.common.StreamRequestHandler;
 
 /**
  * Builder for {@link TransportDispatcher} instances.
@@ -34,6 +35,7 @@ public class TransportDispatcherBuilder
 {
   private final Map<URI, RpcRequestHandler> _rpcHandlers = new HashMap<URI, RpcRequestHandler>();
   private final Map<URI, RestRequestHandler> _restHandlers = new HashMap<URI, RestRequestHandler>();
+  private final Map<URI, StreamRequestHandler> _streamHandlers = new HashMap<URI, StreamRequestHandler>();
 
   /**
    * Add an {@link RpcRequestHandler} for the specified URI.
@@ -115,6 +117,32 @@ public class TransportDispatcherBuilder
     return _restHandlers.remove(uri);
   }
 
+  /**
+   * Add a {@link StreamRequestHandler} at the specified URI. A streamed request for a URI without
+   * stream handler is read entirely and dispatched to the {@link RestRequestHandler}.
+   *
+   * @param uri the URI at which the handler is bound.
+   * @param handler the handler to bind to the specified URI.
+   * @return the current Builder object (fluent interface pattern).
+   */
+  public TransportDispatcherBuilder addStreamHandler(URI uri, StreamRequestHandler handler)
+  {
+    _streamHandlers.put(uri, handler);
+    return this;
+  }
+
+  /**
+   * Remove any {@link StreamRequestHandler} bound to the specified URI.
+   *
+   * @param uri the URI for which the handler should be removed.
+   * @return the {@link StreamRequestHandler} which was removed, or null if no handler
+   *         exists.
+   */
+  public StreamRequestHandler removeStreamHandler(URI uri)
+  {
+    return _streamHandlers.remove(uri);
+  }
+
   /**
    * Reset the state of this builder to its initial state.
    *
@@ -124,6 +152,7 @@ public class TransportDispatcherBuilder
   {
     _rpcHandlers.clear();
     _restHandlers.clear();
+    _streamHandlers.clear();
     return this;
   }
 
@@ -134,7 +163,7 @@ public class TransportDispatcherBuilder
    */
   public TransportDispatcher build()
   {
-    return new TransportDispatcherImpl(copy(_rpcHandlers), copy(_restHandlers));
+    return new TransportDispatcherImpl(copy(_rpcHandlers), copy(_restHandlers), copy(_streamHandlers));
   }
 
   private <T> Map<URI, T> copy(Map<URI, T> handlers)
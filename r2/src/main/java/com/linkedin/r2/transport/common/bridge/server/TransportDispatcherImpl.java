@@ -24,28 +24,41 @@ import com.linkedin.r2.message.rest.RestResponse;
 import com.linkedin.r2.message.rest.RestStatus;
 import com.linkedin.r2.message.rpc.RpcRequest;
 import com.linkedin.r2.message.rpc.RpcResponse;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
 import com.linkedin.r2.transport.common.RestRequestHandler;
 import com.linkedin.r2.transport.common.RpcRequestHandler;
+import com.linkedin.r2.transport.common.StreamRequestHandler;
 import com.linkedin.r2.transport.common.bridge.common.TransportCallback;
 import com.linkedin.r2.transport.common.bridge.common.TransportResponseImpl;
 
 import java.net.URI;
+import java.util.Collections;
 import java.util.Map;
 
 /**
  * @author Chris Pettitt
  * @version $Revision$
  */
-/* package private */ class TransportDispatcherImpl implements TransportDispatcher
+/* package private */ class TransportDispatcherImpl implements StreamTransportDispatcher
 {
   private final Map<URI, RpcRequestHandler> _rpcHandlers;
   private final Map<URI, RestRequestHandler> _restHandlers;
+  private final Map<URI, StreamRequestHandler> _streamHandlers;
 
   /* package private */ TransportDispatcherImpl(Map<URI, RpcRequestHandler> rpcDispatcher,
                                                 Map<URI, RestRequestHandler> restDispatcher)
+  {
+    this(rpcDispatcher, restDispatcher, Collections.<URI, StreamRequestHandler>emptyMap());
+  }
+
+  /* package private */ TransportDispatcherImpl(Map<URI, RpcRequestHandler> rpcDispatcher,
+                                                Map<URI, RestRequestHandler> restDispatcher,
+                                                Map<URI, StreamRequestHandler> streamDispatcher)
   {
     _rpcHandlers = rpcDispatcher;
     _restHandlers = restDispatcher;
+    _streamHandlers = streamDispatcher;
   }
 
   @Override
@@ -98,4 +111,50 @@ import java.util.Map;
       callback.onResponse(TransportResponseImpl.<RestResponse>error(ex));
     }
   }
+
+  @Override
+  public void handleStreamRequest(StreamRequest req, Map<String, String> wireAttrs,
+                                  RequestContext requestContext,
+                                  TransportCallback<StreamResponse> callback)
+  {
+    final StreamRequestHandler handler = _streamHandlers.get(req.getURI());
+
+    if (handler == null)
+    {
+      // the REST handlers get the whole request
+      TransportDispatchers.handleStreamRequest(new RestDispatcher(), req, wireAttrs, requestContext, callback);
+      return;
+    }
+
+    try
+    {
+      handler.handleRequest(req, requestContext, new TransportCallbackAdapter<StreamResponse>(callback));
+    }
+    catch (Exception e)
+    {
+      final Exception ex = RestException.forError(RestStatus.INTERNAL_SERVER_ERROR, e);
+      callback.onResponse(TransportResponseImpl.<StreamResponse>error(ex));
+    }
+  }
+
+  /**
+   * This dispatcher seen as a plain {@link TransportDispatcher}.
+   */
+  private class RestDispatcher implements TransportDispatcher
+  {
+    @Override
+    public void handleRpcRequest(RpcRequest req, Map<String, String> wireAttrs,
+                                 TransportCallback<RpcResponse> callback)
+    {
+      TransportDispatcherImpl.this.handleRpcRequest(req, wireAttrs, callback);
+    }
+
+    @Override
+    public void handleRestRequest(RestRequest req, Map<String, String> wireAttrs,
+                                  RequestContext requestContext,
+                                  TransportCallback<RestResponse> callback)
+    {
+      TransportDispatcherImpl.this.handleRestRequest(req, wireAttrs, requestContext, callback);
+    }
+  }
 }
@@ -0,0 +1,106 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.r2.transport.common.bridge.server;
+
+import java.util.Map;
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.streaming.Messages;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
+import com.linkedin.r2.transport.common.bridge.common.TransportCallback;
+import com.linkedin.r2.transport.common.bridge.common.TransportResponse;
+import com.linkedin.r2.transport.common.bridge.common.TransportResponseImpl;
+
+/**
+ * Dispatch of streamed requests to any {@link TransportDispatcher}.
+ */
+public final class TransportDispatchers
+{
+  private TransportDispatchers()
+  {
+  }
+
+  /**
+   * Dispatches the request as a stream if the dispatcher is a {@link StreamTransportDispatcher},
+   * otherwise reads it entirely and dispatches it as a {@link RestRequest}.
+   *
+   * @param dispatcher the dispatcher.
+   * @param req the request.
+   * @param wireAttrs the wire attributes of the request.
+   * @param requestContext {@link RequestContext} context for the request
+   * @param callback the callback to be called with the response.
+   */
+  public static void handleStreamRequest(final TransportDispatcher dispatcher,
+                                         StreamRequest req,
+                                         final Map<String, String> wireAttrs,
+                                         final RequestContext requestContext,
+                                         final TransportCallback<StreamResponse> callback)
+  {
+    if (dispatcher instanceof StreamTransportDispatcher)
+    {
+      ((StreamTransportDispatcher) dispatcher).handleStreamRequest(req, wireAttrs, requestContext, callback);
+      return;
+    }
+
+    Messages.toRestRequest(req, new Callback<RestRequest>()
+    {
+      @Override
+      public void onSuccess(RestRequest restRequest)
+      {
+        dispatcher.handleRestRequest(restRequest, wireAttrs, requestContext, restToStreamCallback(callback));
+      }
+
+      @Override
+      public void onError(Throwable e)
+      {
+        callback.onResponse(TransportResponseImpl.<StreamResponse>error(e, wireAttrs));
+      }
+    });
+  }
+
+  /**
+   * Adapts a callback of {@link StreamResponse}s to {@link RestResponse}s, whose entity is
+   * streamed as a single chunk. Errors are passed as they are.
+   *
+   * @param callback the callback of the streamed responses.
+   * @return the callback of the REST responses.
+   */
+  public static TransportCallback<RestResponse> restToStreamCallback(final TransportCallback<StreamResponse> callback)
+  {
+    return new TransportCallback<RestResponse>()
+    {
+      @Override
+      public void onResponse(TransportResponse<RestResponse> response)
+      {
+        if (response.hasError())
+        {
+          callback.onResponse(TransportResponseImpl.<StreamResponse>error(response.getError(),
+                                                                          response.getWireAttributes()));
+        }
+        else
+        {
+          callback.onResponse(TransportResponseImpl.success(Messages.toStreamResponse(response.getResponse()),
+                                                            response.getWireAttributes()));
+        }
+      }
+    };
+  }
+}
@@ -50,6 +50,18 @@ public class AsyncPoolImpl<T> implements AsyncPool<T>
 {
   private static final Logger LOG = LoggerFactory.getLogger(AsyncPoolImpl.class);
 
+  /**
+   * Returned by {@link #get(Callback, boolean, boolean)} when it does not get an object.
+   */
+  /* package private */ static final Cancellable UNAVAILABLE = new Cancellable()
+  {
+    @Override
+    public boolean cancel()
+    {
+      return false;
+    }
+  };
+
   // Configured
   private final String _poolName;
   private final Lifecycle<T> _lifecycle;
@@ -217,11 +229,25 @@ public class AsyncPoolImpl<T> implements AsyncPool<T>
 
   @Override
   public Cancellable get(final Callback<T> callback)
+  {
+    return get(callback, true, true);
+  }
+
+  /**
+   * Gets an object like {@link #get(Callback)}, unless the callback would have to wait or be
+   * rejected, in which case the callback is not invoked and {@link #UNAVAILABLE} is returned.
+   *
+   * @param wait whether the callback may wait for an object, when the pool has no idle object
+   *             and can not create one.
+   * @param reject whether the callback is rejected when the waiter queue is full, as by
+   *               {@link #get(Callback)}.
+   */
+  /* package private */ Cancellable get(final Callback<T> callback, boolean wait, boolean reject)
   {
     // getter needs to add to wait queue atomically with check for empty pool
     // putter needs to add to pool atomically with check for empty wait queue
     boolean create = false;
-    boolean reject = false;
+    boolean rejected = false;
     final LinkedDeque.Node<Callback<T>> node;
     for (;;)
     {
@@ -235,15 +261,23 @@ public class AsyncPoolImpl<T> implements AsyncPool<T>
           obj = _idle.pollLast();
           if (obj == null)
           {
+            if (!wait && _poolSize >= _maxSize)
+            {
+              return UNAVAILABLE;
+            }
             if (_waiters.size() < _maxWaiters)
             {
               // No objects available and the waiter list is not full; add to waiter list and break out of loop
               node = _waiters.addLastNode(callback);
               create = shouldCreate();
             }
+            else if (!reject)
+            {
+              return UNAVAILABLE;
+            }
             else
             {
-              reject = true;
+              rejected = true;
               node = null;
             }
             break;
@@ -273,7 +307,7 @@ public class AsyncPoolImpl<T> implements AsyncPool<T>
       destroy(rawObj, true);
       trc("dequeued and disposed an invalid idle object");
     }
-    if (reject)
+    if (rejected)
     {
       // This is a recoverable exception. User can simply retry the failed get() operation.
       callback.onError(new SizeLimitExceededException("AsyncPool " + _poolName + " reached maximum waiter size: " + _maxWaiters));
@@ -28,7 +28,7 @@ package com.linkedin.r2.transport.http.client;
  * @version $Revision: $
  */
 
-public class AsyncPoolStats implements PoolStats
+public class AsyncPoolStats implements PoolStats, ConcurrencyLimiterStats
 {
   private final int _totalCreated;
   private final int _totalDestroyed;
@@ -44,6 +44,9 @@ public class AsyncPoolStats implements PoolStats
   private final int _sampleMaxCheckedOut;
   private final int _sampleMaxPoolSize;
 
+  private final int _concurrencyLimit;
+  private final int _totalConcurrencyRejected;
+
   /**
    * This class should be instantiated through a call to
    * getStats() on an AsyncPool.
@@ -63,6 +66,61 @@ public class AsyncPoolStats implements PoolStats
       int sampleMaxCheckedOut,
       int sampleMaxPoolSize
   )
+  {
+    this(totalCreated,
+         totalDestroyed,
+         totalCreateErrors,
+         totalDestroyErrors,
+         totalBadDestroyed,
+         totalTimedOut,
+         checkedOut,
+         maxPoolSize,
+         poolSize,
+         sampleMaxCheckedOut,
+         sampleMaxPoolSize,
+         -1,
+         0);
+  }
+
+  /**
+   * Copies the statistics of a pool, adding the state of the
+   * {@link ConcurrencyLimiter} of its host.
+   */
+  public AsyncPoolStats(PoolStats poolStats, int concurrencyLimit, int totalConcurrencyRejected)
+  {
+    this(poolStats.getTotalCreated(),
+         poolStats.getTotalDestroyed(),
+         poolStats.getTotalCreateErrors(),
+         poolStats.getTotalDestroyErrors(),
+         poolStats.getTotalBadDestroyed(),
+         poolStats.getTotalTimedOut(),
+         poolStats.getCheckedOut(),
+         poolStats.getMaxPoolSize(),
+         poolStats.getPoolSize(),
+         poolStats.getSampleMaxCheckedOut(),
+         poolStats.getSampleMaxPoolSize(),
+         concurrencyLimit,
+         totalConcurrencyRejected);
+  }
+
+  private AsyncPoolStats(
+      int totalCreated,
+      int totalDestroyed,
+      int totalCreateErrors,
+      int totalDestroyErrors,
+      int totalBadDestroyed,
+      int totalTimedOut,
+
+      int checkedOut,
+      int maxPoolSize,
+      int poolSize,
+
+      int sampleMaxCheckedOut,
+      int sampleMaxPoolSize,
+
+      int concurrencyLimit,
+      int totalConcurrencyRejected
+  )
   {
     _totalCreated = totalCreated;
     _totalDestroyed = totalDestroyed;
@@ -77,6 +135,9 @@ public class AsyncPoolStats implements PoolStats
 
     _sampleMaxCheckedOut = sampleMaxCheckedOut;
     _sampleMaxPoolSize = sampleMaxPoolSize;
+
+    _concurrencyLimit = concurrencyLimit;
+    _totalConcurrencyRejected = totalConcurrencyRejected;
   }
 
   /**
@@ -203,6 +264,28 @@ public class AsyncPoolStats implements PoolStats
     return _sampleMaxPoolSize;
   }
 
+  /**
+   * Get the adaptive limit of the requests in flight to the host
+   * of the pool, see {@link ConcurrencyLimiter}.
+   * @return The concurrency limit, or -1 if the requests are not limited
+   */
+  @Override
+  public int getConcurrencyLimit()
+  {
+    return _concurrencyLimit;
+  }
+
+  /**
+   * Get the total number of requests rejected because the
+   * concurrency limit was reached.
+   * @return The total number of rejected requests
+   */
+  @Override
+  public int getTotalConcurrencyRejected()
+  {
+    return _totalConcurrencyRejected;
+  }
+
   @Override
   public String toString()
   {
@@ -216,6 +299,8 @@ public class AsyncPoolStats implements PoolStats
         "\nmaxPoolSize: " + _maxPoolSize +
         "\npoolSize: " + _poolSize +
         "\nsampleMaxCheckedOut: " + _sampleMaxCheckedOut +
-        "\nsampleMaxPoolSize: " + _sampleMaxPoolSize;
+        "\nsampleMaxPoolSize: " + _sampleMaxPoolSize +
+        "\nconcurrencyLimit: " + _concurrencyLimit +
+        "\ntotalConcurrencyRejected: " + _totalConcurrencyRejected;
   }
 }
@@ -44,6 +44,8 @@ class ChannelPoolManager implements PoolStatsProvider
   private static final Logger LOG = LoggerFactory.getLogger(ChannelPoolManager.class);
 
   public static final String BASE_NAME = "ChannelPools";
+  // Each concurrency limiter starts from this limit and adapts from there
+  private static final int INITIAL_CONCURRENCY_LIMIT = 20;
 
   // All modifications of _pool and all access to _state must be locked on _mutex.
   // READS of _pool are allowed without synchronization
@@ -57,6 +59,11 @@ class ChannelPoolManager implements PoolStatsProvider
   private final ChannelPoolFactory _channelPoolFactory;
   private final String _name;
 
+  // The concurrency limiter of each address, if the requests are limited
+  private final int _maxConcurrentRequests;
+  private final ConcurrentMap<SocketAddress,ConcurrencyLimiter> _concurrencyLimiters =
+          new ConcurrentHashMap<SocketAddress,ConcurrencyLimiter>();
+
   public ChannelPoolManager(ChannelPoolFactory channelPoolFactory)
   {
     this(channelPoolFactory,
@@ -65,9 +72,21 @@ class ChannelPoolManager implements PoolStatsProvider
 
   public ChannelPoolManager(ChannelPoolFactory channelPoolFactory,
                             String name)
+  {
+    this(channelPoolFactory, name, 0);
+  }
+
+  /**
+   * @param maxConcurrentRequests the highest adaptive limit of the requests in flight to each
+   *          address, see {@link ConcurrencyLimiter}; 0 if the requests are not limited
+   */
+  public ChannelPoolManager(ChannelPoolFactory channelPoolFactory,
+                            String name,
+                            int maxConcurrentRequests)
   {
     _channelPoolFactory = channelPoolFactory;
     _name = name;
+    _maxConcurrentRequests = maxConcurrentRequests;
   }
 
   public void shutdown(final Callback<None> callback)
@@ -169,6 +188,31 @@ class ChannelPoolManager implements PoolStatsProvider
     return pool;
   }
 
+  /**
+   * @return the concurrency limiter of the requests to the address, or null if the requests
+   *         are not limited.
+   */
+  public ConcurrencyLimiter getConcurrencyLimiter(SocketAddress address)
+  {
+    if (_maxConcurrentRequests <= 0)
+    {
+      return null;
+    }
+    ConcurrencyLimiter limiter = _concurrencyLimiters.get(address);
+    if (limiter == null)
+    {
+      limiter = new ConcurrencyLimiter(Math.min(INITIAL_CONCURRENCY_LIMIT, _maxConcurrentRequests),
+                                       1,
+                                       _maxConcurrentRequests);
+      ConcurrencyLimiter existing = _concurrencyLimiters.putIfAbsent(address, limiter);
+      if (existing != null)
+      {
+        limiter = existing;
+      }
+    }
+    return limiter;
+  }
+
   /**
    * Get statistics from each pool. The map keys represent pool names.
    * The values are the corresponding {@link AsyncPoolStats} objects.
@@ -179,9 +223,16 @@ class ChannelPoolManager implements PoolStatsProvider
   public Map<String, PoolStats> getPoolStats()
   {
     final Map<String, PoolStats> stats = new HashMap<String, PoolStats>();
-    for(AsyncPool<Channel> pool : _pool.values())
+    for(Map.Entry<SocketAddress, AsyncPool<Channel>> entry : _pool.entrySet())
     {
-      stats.put(pool.getName(), pool.getStats());
+      AsyncPool<Channel> pool = entry.getValue();
+      PoolStats poolStats = pool.getStats();
+      ConcurrencyLimiter limiter = _concurrencyLimiters.get(entry.getKey());
+      if (limiter != null)
+      {
+        poolStats = new AsyncPoolStats(poolStats, limiter.getLimit(), limiter.getTotalRejected());
+      }
+      stats.put(pool.getName(), poolStats);
     }
     return stats;
   }
@@ -0,0 +1,174 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.r2.transport.http.client;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive limit of the number of requests in flight to a host.
+ *
+ * The limit follows the gradient between the lowest round trip time observed recently, taken
+ * as the latency of the host when it is not loaded, and the round trip time of each request:
+ * <pre>
+ *   newLimit = limit * min(1, max(0.5, minRtt / rtt)) + sqrt(limit)
+ * </pre>
+ * While the latency stays close to the lowest one, the limit grows by about sqrt(limit) per
+ * request, which leaves room for a small queue. Once the requests start queueing in the host
+ * and its latency grows, the gradient shrinks the limit, and a timed out request halves it.
+ * The new limit is smoothed, and it is only raised while the requests in flight use at least
+ * half of it, so that a lightly loaded client does not build up a large limit. The lowest
+ * round trip time is forgotten every {@link #RTT_RESET_SAMPLES} requests, so that the limit
+ * follows lasting latency changes.
+ *
+ * A request beyond the limit should be failed right away rather than queued, which tells the
+ * caller about the overload long before the request timeout.
+ */
+public class ConcurrencyLimiter
+{
+  static final int RTT_RESET_SAMPLES = 1000;
+  private static final double SMOOTHING = 0.2;
+  private static final double MIN_GRADIENT = 0.5;
+  private static final double TIMEOUT_BACKOFF_RATIO = 0.5;
+
+  private final int _minLimit;
+  private final int _maxLimit;
+  private final AtomicInteger _inFlight = new AtomicInteger();
+  private final AtomicInteger _totalRejected = new AtomicInteger();
+  private volatile int _limit;
+
+  // All members below are protected by this lock
+  private final Object _lock = new Object();
+  private double _estimatedLimit;
+  private long _minRtt = Long.MAX_VALUE;
+  private int _samples = 0;
+
+  /**
+   * @param initialLimit the limit until enough requests have completed.
+   * @param minLimit the lowest limit.
+   * @param maxLimit the highest limit.
+   */
+  public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit)
+  {
+    if (minLimit < 1 || minLimit > maxLimit)
+    {
+      throw new IllegalArgumentException("Invalid limits: min " + minLimit + ", max " + maxLimit);
+    }
+    _minLimit = minLimit;
+    _maxLimit = maxLimit;
+    _estimatedLimit = Math.min(Math.max(initialLimit, minLimit), maxLimit);
+    _limit = (int) _estimatedLimit;
+  }
+
+  /**
+   * Takes a permit for a new request, which must be returned with
+   * {@link #release(long, boolean)} once the request completes.
+   *
+   * @return false if the limit is reached; the request should be rejected.
+   */
+  public boolean tryAcquire()
+  {
+    for (;;)
+    {
+      int inFlight = _inFlight.get();
+      if (inFlight >= _limit)
+      {
+        _totalRejected.incrementAndGet();
+        return false;
+      }
+      if (_inFlight.compareAndSet(inFlight, inFlight + 1))
+      {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Returns the permit of a completed request and adapts the limit.
+   *
+   * @param rttNanos the round trip time of the request, in nanoseconds.
+   * @param dropped true if the request timed out, in which case its round trip time says
+   *          nothing about the latency of the host.
+   */
+  public void release(long rttNanos, boolean dropped)
+  {
+    int inFlight = _inFlight.getAndDecrement();
+    synchronized (_lock)
+    {
+      double estimatedLimit = _estimatedLimit;
+      if (dropped)
+      {
+        estimatedLimit = estimatedLimit * TIMEOUT_BACKOFF_RATIO;
+      }
+      else
+      {
+        if (++_samples >= RTT_RESET_SAMPLES)
+        {
+          _samples = 0;
+          _minRtt = rttNanos;
+        }
+        else
+        {
+          _minRtt = Math.min(_minRtt, rttNanos);
+        }
+
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, (double) _minRtt / Math.max(rttNanos, 1)));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        if (newLimit > estimatedLimit && inFlight * 2 < estimatedLimit)
+        {
+          // the requests did not use the limit, so the host did not show that it can take more
+          return;
+        }
+        estimatedLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+      }
+      _estimatedLimit = Math.min(Math.max(estimatedLimit, _minLimit), _maxLimit);
+      _limit = (int) _estimatedLimit;
+    }
+  }
+
+  /**
+   * Returns the permit of a request without adapting the limit, for a request which was not
+   * sent or which failed without telling the latency of the host.
+   */
+  public void abort()
+  {
+    _inFlight.decrementAndGet();
+  }
+
+  /**
+   * @return the current limit of the requests in flight.
+   */
+  public int getLimit()
+  {
+    return _limit;
+  }
+
+  /**
+   * @return the number of requests in flight.
+   */
+  public int getInFlight()
+  {
+    return _inFlight.get();
+  }
+
+  /**
+   * @return the total number of requests rejected by {@link #tryAcquire()}.
+   */
+  public int getTotalRejected()
+  {
+    return _totalRejected.get();
+  }
+}
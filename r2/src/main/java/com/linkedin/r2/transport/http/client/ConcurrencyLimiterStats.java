@@ -0,0 +1,39 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.r2.transport.http.client;
+
+/**
+ * Statistics of the {@link ConcurrencyLimiter} of the host of a pool, kept apart from
+ * {@link PoolStats} so that other implementations of {@link PoolStats} are not affected.
+ * The {@link AsyncPoolStats} of a pool implement both.
+ */
+public interface ConcurrencyLimiterStats
+{
+  /**
+   * Get the adaptive limit of the requests in flight to the host
+   * of the pool, see {@link ConcurrencyLimiter}.
+   * @return The concurrency limit, or -1 if the requests are not limited
+   */
+  int getConcurrencyLimit();
+
+  /**
+   * Get the total number of requests rejected because the
+   * concurrency limit was reached.
+   * @return The total number of rejected requests
+   */
+  int getTotalConcurrencyRejected();
+}
@@ -50,9 +50,14 @@ import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.r2.message.rest.RestResponse;
 import com.linkedin.r2.message.rpc.RpcRequest;
 import com.linkedin.r2.message.rpc.RpcResponse;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
 import com.linkedin.r2.transport.common.TransportClientFactory;
+import com.linkedin.r2.transport.common.bridge.client.StreamTransportClient;
 import com.linkedin.r2.transport.common.bridge.client.TransportClient;
+import com.linkedin.r2.transport.common.bridge.client.TransportClients;
 import com.linkedin.r2.transport.common.bridge.common.TransportCallback;
+import com.linkedin.r2.util.HashedWheelScheduledExecutor;
 import com.linkedin.r2.util.NamedThreadFactory;
 
 /**
@@ -93,6 +98,20 @@ public class HttpClientFactory implements TransportClientFactory
   public static final String HTTP_SSL_PARAMS = "http.sslParams";
   public static final String HTTP_RESPONSE_COMPRESSION_OPERATIONS = "http.responseCompressionOperations";
   public static final String HTTP_SERVICE_NAME = "http.serviceName";
+  public static final String HTTP_MAX_PIPELINED_REQUESTS = "http.maxPipelinedRequests";
+  /**
+   * Number of {@link ShardedAsyncPool} shards of the connection pool of each host. The pool size
+   * and the pool waiter size are divided between the shards, rounding up; a request takes a
+   * connection from another shard when the shard of its thread is full, but a waiting request
+   * only gets a connection of the shard it waits in.
+   */
+  public static final String HTTP_POOL_SHARDS = "http.poolShards";
+  public static final String HTTP_MAX_CONCURRENT_REQUESTS = "http.maxConcurrentRequests";
+  /**
+   * Timeout, in ms, of a streamed request from writing it to receiving the end of its response.
+   * The request timeout only lasts until the head of the response is received.
+   */
+  public static final String HTTP_STREAMING_TIMEOUT = "http.streamingTimeout";
 
   public static final int DEFAULT_POOL_WAITER_SIZE = Integer.MAX_VALUE;
   public static final int DEFAULT_POOL_SIZE = 200;
@@ -100,6 +119,13 @@ public class HttpClientFactory implements TransportClientFactory
   public static final int DEFAULT_IDLE_TIMEOUT = 30000;
   public static final int DEFAULT_SHUTDOWN_TIMEOUT = 5000;
   public static final int DEFAULT_MAX_RESPONSE_SIZE = 1024 * 1024 * 2;
+  // No pipelining; each connection carries one request at a time
+  public static final int DEFAULT_MAX_PIPELINED_REQUESTS = 1;
+  // A single AsyncPoolImpl per host
+  public static final int DEFAULT_POOL_SHARDS = 1;
+  // No adaptive concurrency limit
+  public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 0;
+  public static final int DEFAULT_STREAMING_TIMEOUT = 60000;
   public static final String DEFAULT_CLIENT_NAME = "noNameSpecifiedClient";
   public static final AbstractJmxManager NULL_JMX_MANAGER = new AbstractJmxManager()
   {
@@ -158,7 +184,7 @@ public class HttpClientFactory implements TransportClientFactory
             Executors.newCachedThreadPool(new NamedThreadFactory("R2 Netty IO Boss")),
             Executors.newCachedThreadPool(new NamedThreadFactory("R2 Netty IO Worker"))),
          true,
-         Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("R2 Netty Scheduler")),
+         new HashedWheelScheduledExecutor(new NamedThreadFactory("R2 Netty Scheduler")),
          true,
          callbackExecutor,
          shutdownCallbackExecutor);
@@ -178,7 +204,7 @@ public class HttpClientFactory implements TransportClientFactory
             Executors.newCachedThreadPool(new NamedThreadFactory("R2 Netty IO Boss")),
             Executors.newCachedThreadPool(new NamedThreadFactory("R2 Netty IO Worker"))),
          true,
-         Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("R2 Netty Scheduler")),
+         new HashedWheelScheduledExecutor(new NamedThreadFactory("R2 Netty Scheduler")),
          true);
   }
 
@@ -320,7 +346,8 @@ public class HttpClientFactory implements TransportClientFactory
     LOG.info("Getting a client with configuration {} and SSLContext {}",
              properties,
              sslContext);
-    TransportClient client = getRawClient(properties, sslContext, sslParameters);
+    HttpNettyClient rawClient = getRawClient(properties, sslContext, sslParameters);
+    TransportClient client = rawClient;
 
     List<String> httpResponseCompressionOperations = ConfigValueExtractor.buildList(properties.remove(HTTP_RESPONSE_COMPRESSION_OPERATIONS),
                                                                                     LIST_SEPARATOR);
@@ -332,7 +359,8 @@ public class HttpClientFactory implements TransportClientFactory
       String responseCompressionSchemaName = buildAcceptEncodingSchemaNames();
       filters = _filters.addLast(new ClientCompressionFilter(requestCompressionSchemaName,
                                                              responseCompressionSchemaName,
-                                                             httpResponseCompressionOperations));
+                                                             httpResponseCompressionOperations,
+                                                             rawClient.getMaxResponseSize()));
     }
     else
     {
@@ -417,6 +445,10 @@ public class HttpClientFactory implements TransportClientFactory
     Integer queryPostThreshold = chooseNewOverDefault(getIntValue(properties, HTTP_QUERY_POST_THRESHOLD), Integer.MAX_VALUE);
     Integer requestTimeout = chooseNewOverDefault(getIntValue(properties, HTTP_REQUEST_TIMEOUT), DEFAULT_REQUEST_TIMEOUT);
     Integer poolWaiterSize = chooseNewOverDefault(getIntValue(properties, HTTP_POOL_WAITER_SIZE), DEFAULT_POOL_WAITER_SIZE);
+    Integer maxPipelinedRequests = chooseNewOverDefault(getIntValue(properties, HTTP_MAX_PIPELINED_REQUESTS), DEFAULT_MAX_PIPELINED_REQUESTS);
+    Integer poolShards = chooseNewOverDefault(getIntValue(properties, HTTP_POOL_SHARDS), DEFAULT_POOL_SHARDS);
+    Integer maxConcurrentRequests = chooseNewOverDefault(getIntValue(properties, HTTP_MAX_CONCURRENT_REQUESTS), DEFAULT_MAX_CONCURRENT_REQUESTS);
+    Integer streamingTimeout = chooseNewOverDefault(getIntValue(properties, HTTP_STREAMING_TIMEOUT), DEFAULT_STREAMING_TIMEOUT);
     String clientName = null;
     if (properties != null && properties.containsKey(HTTP_SERVICE_NAME))
     {
@@ -437,7 +469,11 @@ public class HttpClientFactory implements TransportClientFactory
                                _callbackExecutor,
                                poolWaiterSize,
                                clientName,
-                               _jmxManager);
+                               _jmxManager,
+                               maxPipelinedRequests,
+                               poolShards,
+                               maxConcurrentRequests,
+                               streamingTimeout);
   }
 
   /**
@@ -599,7 +635,7 @@ public class HttpClientFactory implements TransportClientFactory
    * It introduces no synchronization overhead in the per-request code path, only the
    * shutdown code path.
    */
-  private class FactoryClient implements TransportClient
+  private class FactoryClient implements StreamTransportClient
   {
     private final TransportClient _client;
 
@@ -623,6 +659,13 @@ public class HttpClientFactory implements TransportClientFactory
       _client.rpcRequest(request, requestContext, wireAttrs, callback);
     }
 
+    @Override
+    public void streamRequest(StreamRequest request, RequestContext requestContext,
+                              Map<String, String> wireAttrs, TransportCallback<StreamResponse> callback)
+    {
+      TransportClients.streamRequest(_client, request, requestContext, wireAttrs, callback);
+    }
+
     @Override
     public void shutdown(final Callback<None> callback)
     {
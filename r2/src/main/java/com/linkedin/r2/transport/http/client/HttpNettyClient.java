@@ -58,6 +58,7 @@ import org.slf4j.LoggerFactory;
 
 import com.linkedin.common.callback.Callback;
 import com.linkedin.common.util.None;
+import com.linkedin.r2.SizeLimitExceededException;
 import com.linkedin.r2.message.RequestContext;
 import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.r2.message.rest.RestRequestBuilder;
@@ -65,11 +66,16 @@ import com.linkedin.r2.message.rest.RestResponse;
 import com.linkedin.r2.message.rest.QueryTunnelUtil;
 import com.linkedin.r2.message.rpc.RpcRequest;
 import com.linkedin.r2.message.rpc.RpcResponse;
+import com.linkedin.r2.message.streaming.Messages;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
 import com.linkedin.r2.transport.common.MessageType;
 import com.linkedin.r2.transport.common.WireAttributeHelper;
-import com.linkedin.r2.transport.common.bridge.client.TransportClient;
+import com.linkedin.r2.transport.common.bridge.client.StreamTransportClient;
 import com.linkedin.r2.transport.common.bridge.common.TransportCallback;
+import com.linkedin.r2.transport.common.bridge.common.TransportResponse;
 import com.linkedin.r2.transport.common.bridge.common.TransportResponseImpl;
+import com.linkedin.r2.transport.common.bridge.server.TransportDispatchers;
 import com.linkedin.r2.transport.http.common.HttpBridge;
 import com.linkedin.r2.util.Cancellable;
 import com.linkedin.r2.util.TimeoutRunnable;
@@ -79,7 +85,7 @@ import com.linkedin.r2.util.TimeoutRunnable;
  * @version $Revision: $
  */
 
-/* package private */ class HttpNettyClient implements TransportClient
+/* package private */ class HttpNettyClient implements StreamTransportClient
 {
   static final Logger LOG = LoggerFactory.getLogger(HttpNettyClient.class);
   private static final int HTTP_DEFAULT_PORT = 80;
@@ -98,8 +104,12 @@ import com.linkedin.r2.util.TimeoutRunnable;
   private final ExecutorService _callbackExecutor;
 
   private final int _requestTimeout;
+  private final int _streamingTimeout;
   private final int _shutdownTimeout;
   private final int _maxResponseSize;
+  private final int _maxPipelinedRequests;
+  private final int _poolShards;
+  private final int _maxConcurrentRequests;
 
   private final String _requestTimeoutMessage;
   private final int _queryPostThreshold;
@@ -215,8 +225,85 @@ import com.linkedin.r2.util.TimeoutRunnable;
                          int poolWaiterSize,
                          String name,
                          AbstractJmxManager jmxManager)
+  {
+    this(factory,
+        executor,
+        poolSize,
+        requestTimeout,
+        idleTimeout,
+        shutdownTimeout,
+        maxResponseSize,
+        sslContext,
+        sslParameters,
+        queryPostThreshold,
+        callbackExecutor,
+        poolWaiterSize,
+        name,
+        jmxManager,
+        1,
+        1,
+        0,
+        HttpClientFactory.DEFAULT_STREAMING_TIMEOUT);
+  }
+
+  /**
+   * Creates a new HttpNettyClient
+   *
+   * @param factory The ClientSocketChannelFactory; it is the caller's responsibility to
+   *          shut it down
+   * @param executor an executor; it is the caller's responsibility to shut it down
+   * @param poolSize Maximum size of the underlying HTTP connection pool
+   * @param requestTimeout timeout, in ms, to get a connection from the pool or create one
+   * @param idleTimeout interval after which idle connections will be automatically closed
+   * @param shutdownTimeout timeout, in ms, the client should wait after shutdown is
+   *          initiated before terminating outstanding requests
+   * @param maxResponseSize
+   * @param sslContext {@link SSLContext}
+   * @param sslParameters {@link SSLParameters}with overloaded construct
+   * @param queryPostThreshold length of query params above which requests will be tunneled as POSTS
+   * @param callbackExecutor an optional executor to invoke user callback
+   * @param poolWaiterSize Maximum waiters waiting on the HTTP connection pool
+   * @param name Name of the {@link HttpNettyClient}
+   * @param jmxManager A management class that is aware of the creation/shutdown event
+   *          of the underlying {@link ChannelPoolManager}
+   * @param maxPipelinedRequests Maximum number of requests outstanding on a connection at the
+   *          same time. If greater than 1, requests are pipelined on the connections of a
+   *          {@link PipelinedAsyncPool} and the responses are matched to the requests in order,
+   *          which needs a server supporting HTTP/1.1 pipelining
+   * @param poolShards Number of independent shards of the connection pool of each host,
+   *          see {@link ShardedAsyncPool}, each of them with poolSize / poolShards connections and
+   *          poolWaiterSize / poolShards waiters, rounding up. It does not apply to pipelined
+   *          connection pools
+   * @param maxConcurrentRequests If positive, the requests in flight to each host are limited
+   *          by an adaptive {@link ConcurrencyLimiter} up to this number, and the requests
+   *          beyond the limit fail right away with a {@link SizeLimitExceededException}
+   * @param streamingTimeout timeout, in ms, of a streamed request from writing it to receiving
+   *          the end of its response, whose entity must also not stall for longer than the
+   *          requestTimeout; see {@link RAPStreamResponseHandler}
+   */
+  public HttpNettyClient(ClientSocketChannelFactory factory,
+                         ScheduledExecutorService executor,
+                         int poolSize,
+                         int requestTimeout,
+                         int idleTimeout,
+                         int shutdownTimeout,
+                         int maxResponseSize,
+                         SSLContext sslContext,
+                         SSLParameters sslParameters,
+                         int queryPostThreshold,
+                         ExecutorService callbackExecutor,
+                         int poolWaiterSize,
+                         String name,
+                         AbstractJmxManager jmxManager,
+                         int maxPipelinedRequests,
+                         int poolShards,
+                         int maxConcurrentRequests,
+                         int streamingTimeout)
   {
     _maxResponseSize = maxResponseSize;
+    _maxPipelinedRequests = maxPipelinedRequests;
+    _poolShards = poolShards;
+    _maxConcurrentRequests = maxConcurrentRequests;
     _name = name;
     _channelPoolManager =
         new ChannelPoolManager(new ChannelPoolFactoryImpl(new ClientBootstrap(factory),
@@ -224,11 +311,14 @@ import com.linkedin.r2.util.TimeoutRunnable;
             idleTimeout,
             sslContext,
             sslParameters,
-            poolWaiterSize),
-            name + ChannelPoolManager.BASE_NAME);
+            poolWaiterSize,
+            poolShards),
+            name + ChannelPoolManager.BASE_NAME,
+            maxConcurrentRequests);
     _scheduler = executor;
     _callbackExecutor = callbackExecutor;
     _requestTimeout = requestTimeout;
+    _streamingTimeout = streamingTimeout;
     _shutdownTimeout = shutdownTimeout;
     _requestTimeoutMessage = "Exceeded request timeout of " + _requestTimeout + "ms";
     _queryPostThreshold = queryPostThreshold;
@@ -243,10 +333,14 @@ import com.linkedin.r2.util.TimeoutRunnable;
                   int maxResponseSize)
   {
     _maxResponseSize = maxResponseSize;
+    _maxPipelinedRequests = 1;
+    _poolShards = 1;
+    _maxConcurrentRequests = 0;
     _channelPoolManager = new ChannelPoolManager(factory);
     _scheduler = executor;
     _callbackExecutor = executor;
     _requestTimeout = requestTimeout;
+    _streamingTimeout = HttpClientFactory.DEFAULT_STREAMING_TIMEOUT;
     _shutdownTimeout = shutdownTimeout;
     _requestTimeoutMessage = "Exceeded request timeout of " + _requestTimeout + "ms";
     _queryPostThreshold = Integer.MAX_VALUE;
@@ -276,6 +370,46 @@ import com.linkedin.r2.util.TimeoutRunnable;
                             HttpBridge.rpcToHttpCallback(callback, request));
   }
 
+  /**
+   * Streams the entities of the request and of the response instead of aggregating them. The
+   * request timeout applies until the head of the response is received; the entity of the
+   * response is then bounded by the streaming timeout, by the request timeout between its chunks,
+   * and by the maximum response size. The request is not tunnelled as a POST, since its entity is
+   * not read before it is sent. On pipelined connections, whose responses are matched to the
+   * requests after they are aggregated, the request and the response are aggregated.
+   */
+  @Override
+  public void streamRequest(StreamRequest request,
+                            final RequestContext requestContext,
+                            final Map<String, String> wireAttrs,
+                            final TransportCallback<StreamResponse> callback)
+  {
+    if (_maxPipelinedRequests > 1)
+    {
+      Messages.toRestRequest(request, new Callback<RestRequest>()
+      {
+        @Override
+        public void onSuccess(RestRequest restRequest)
+        {
+          restRequest(restRequest, requestContext, wireAttrs, TransportDispatchers.restToStreamCallback(callback));
+        }
+
+        @Override
+        public void onError(Throwable e)
+        {
+          errorResponse(callback, e);
+        }
+      });
+      return;
+    }
+
+    MessageType.setMessageType(MessageType.Type.REST, wireAttrs);
+    TransportCallback<StreamResponse> httpCallback = HttpBridge.streamToHttpCallback(callback, request);
+    ConcurrencyLimitedCallback<StreamResponse> limitedCallback = limitConcurrency(httpCallback);
+    writeStreamRequest(request, wireAttrs, withTimeout(limitedCallback == null ? httpCallback : limitedCallback),
+                       limitedCallback);
+  }
+
   @Override
   public void shutdown(final Callback<None> callback)
   {
@@ -302,6 +436,23 @@ import com.linkedin.r2.util.TimeoutRunnable;
           // Timeout any requests still pending response
           for (Channel c : _allChannels)
           {
+            PipelinedResponseHandler pipelinedHandler = c.getPipeline().get(PipelinedResponseHandler.class);
+            if (pipelinedHandler != null)
+            {
+              for (TransportCallback<RestResponse> callback : pipelinedHandler.removeCallbacks())
+              {
+                errorResponse(callback,
+                              new TimeoutException("Operation did not complete before shutdown"));
+              }
+              continue;
+            }
+            TransportCallback<StreamResponse> streamCallback =
+                c.getPipeline().get(RAPStreamResponseHandler.class).removeCallback();
+            if (streamCallback != null)
+            {
+              errorResponse(streamCallback,
+                            new TimeoutException("Operation did not complete before shutdown"));
+            }
             @SuppressWarnings("unchecked")
             TransportCallback<RestResponse> callback = c.getPipeline().get(RAPResponseHandler.class).removeAttachment(c.getPipeline().getContext(RAPResponseHandler.class));
             if (callback != null)
@@ -359,44 +510,36 @@ import com.linkedin.r2.util.TimeoutRunnable;
 
   private void writeRequestWithTimeout(RestRequest request, Map<String, String> wireAttrs,
                                        TransportCallback<RestResponse> callback)
+  {
+    ConcurrencyLimitedCallback<RestResponse> limitedCallback = limitConcurrency(callback);
+    writeRequest(request, wireAttrs, withTimeout(limitedCallback == null ? callback : limitedCallback),
+                 limitedCallback);
+  }
+
+  private <T> ConcurrencyLimitedCallback<T> limitConcurrency(TransportCallback<T> callback)
+  {
+    // Wrapped inside of the Timeout callback, so that it sees the timeouts too
+    return _maxConcurrentRequests > 0 ? new ConcurrencyLimitedCallback<T>(callback) : null;
+  }
+
+  private <T> TimeoutTransportCallback<T> withTimeout(TransportCallback<T> callback)
   {
     // By wrapping the callback in a Timeout callback before passing it along, we deny the rest
     // of the code access to the unwrapped callback.  This ensures two things:
     // 1. The user callback will always be invoked, since the Timeout will eventually expire
     // 2. The user callback is never invoked more than once
-    TimeoutTransportCallback<RestResponse> timeoutCallback =
-        new TimeoutTransportCallback<RestResponse>(_scheduler,
-                                                   _callbackExecutor,
-                                                   _requestTimeout,
-                                                   TimeUnit.MILLISECONDS,
-                                                   callback,
-                                                   _requestTimeoutMessage);
-    writeRequest(request, wireAttrs, timeoutCallback);
+    return new TimeoutTransportCallback<T>(_scheduler,
+                                           _callbackExecutor,
+                                           _requestTimeout,
+                                           TimeUnit.MILLISECONDS,
+                                           callback,
+                                           _requestTimeoutMessage);
   }
 
   private void writeRequest(RestRequest request, Map<String, String> wireAttrs,
-                            final TimeoutTransportCallback<RestResponse> callback)
+                            final TimeoutTransportCallback<RestResponse> callback,
+                            final ConcurrencyLimitedCallback<RestResponse> limitedCallback)
   {
-    State state = _state.get();
-    if (state != State.RUNNING)
-    {
-      errorResponse(callback, new IllegalStateException("Client is " + state));
-      return;
-    }
-    URI uri = request.getURI();
-    String scheme = uri.getScheme();
-    if (!scheme.equalsIgnoreCase("http") && !scheme.equalsIgnoreCase("https"))
-    {
-      errorResponse(callback, new IllegalArgumentException("Unknown scheme: " + scheme
-          + " (only http/https is supported)"));
-      return;
-    }
-    String host = uri.getHost();
-    int port = uri.getPort();
-    if (port == -1) {
-      port = scheme.equalsIgnoreCase("http") ? HTTP_DEFAULT_PORT : HTTPS_DEFAULT_PORT;
-    }
-
     final RestRequest newRequest;
     try
     {
@@ -421,16 +564,9 @@ import com.linkedin.r2.util.TimeoutRunnable;
       return;
     }
 
-    // TODO investigate DNS resolution and timing
-    SocketAddress address = new InetSocketAddress(host, port);
-    final AsyncPool<Channel> pool;
-    try
+    final AsyncPool<Channel> pool = getPool(request.getURI(), callback, limitedCallback);
+    if (pool == null)
     {
-      pool = _channelPoolManager.getPoolForAddress(address);
-    }
-    catch (IllegalStateException e)
-    {
-      errorResponse(callback, e);
       return;
     }
 
@@ -439,6 +575,17 @@ import com.linkedin.r2.util.TimeoutRunnable;
       @Override
       public void onSuccess(final Channel channel)
       {
+        if (limitedCallback != null)
+        {
+          limitedCallback.channelAcquired();
+        }
+        final PipelinedResponseHandler pipelinedHandler = channel.getPipeline().get(PipelinedResponseHandler.class);
+        if (pipelinedHandler != null)
+        {
+          writePipelinedRequest(channel, pipelinedHandler, pool, newRequest, callback);
+          return;
+        }
+
         // This handler ensures the channel is returned to the pool at the end of the
         // Netty pipeline.
         final ChannelPoolHandler channelPoolHandler = channel.getPipeline().get(ChannelPoolHandler.class);
@@ -497,6 +644,216 @@ import com.linkedin.r2.util.TimeoutRunnable;
     }
   }
 
+  private void writeStreamRequest(StreamRequest request, Map<String, String> wireAttrs,
+                                  final TimeoutTransportCallback<StreamResponse> callback,
+                                  final ConcurrencyLimitedCallback<StreamResponse> limitedCallback)
+  {
+    final StreamRequest newRequest =
+        new StreamRequest(new RestRequestBuilder(request.getHead())
+                              .overwriteHeaders(WireAttributeHelper.toWireAttributes(wireAttrs))
+                              .build(),
+                          request.getEntityStream());
+
+    final AsyncPool<Channel> pool = getPool(request.getURI(), callback, limitedCallback);
+    if (pool == null)
+    {
+      return;
+    }
+
+    final Cancellable pendingGet = pool.get(new Callback<Channel>()
+    {
+      @Override
+      public void onSuccess(Channel channel)
+      {
+        if (limitedCallback != null)
+        {
+          limitedCallback.channelAcquired();
+        }
+        final State state = _state.get();
+        if (state == State.REQUESTS_STOPPING || state == State.SHUTDOWN)
+        {
+          // See writeRequest
+          pool.put(channel);
+          errorResponse(callback,
+                        new TimeoutException("Operation did not complete before shutdown"));
+          return;
+        }
+
+        // This handler invokes the callback with the head of the response, and returns the
+        // channel to the pool once the entity of the response is received.
+        channel.getPipeline().get(RAPStreamResponseHandler.class).writeRequest(channel, pool, newRequest, callback);
+      }
+
+      @Override
+      public void onError(Throwable e)
+      {
+        errorResponse(callback, e);
+      }
+    });
+    if (pendingGet != null)
+    {
+      callback.addTimeoutTask(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          pendingGet.cancel();
+        }
+      });
+    }
+  }
+
+  /**
+   * Returns the connection pool of the host of a request, after acquiring a permit of its
+   * {@link ConcurrencyLimiter} for the request if there is one, or fails the request and
+   * returns null.
+   */
+  private <T> AsyncPool<Channel> getPool(URI uri,
+                                         TransportCallback<T> callback,
+                                         ConcurrencyLimitedCallback<T> limitedCallback)
+  {
+    State state = _state.get();
+    if (state != State.RUNNING)
+    {
+      errorResponse(callback, new IllegalStateException("Client is " + state));
+      return null;
+    }
+    String scheme = uri.getScheme();
+    if (!scheme.equalsIgnoreCase("http") && !scheme.equalsIgnoreCase("https"))
+    {
+      errorResponse(callback, new IllegalArgumentException("Unknown scheme: " + scheme
+          + " (only http/https is supported)"));
+      return null;
+    }
+    String host = uri.getHost();
+    int port = uri.getPort();
+    if (port == -1) {
+      port = scheme.equalsIgnoreCase("http") ? HTTP_DEFAULT_PORT : HTTPS_DEFAULT_PORT;
+    }
+
+    // TODO investigate DNS resolution and timing
+    SocketAddress address = new InetSocketAddress(host, port);
+    final AsyncPool<Channel> pool;
+    try
+    {
+      pool = _channelPoolManager.getPoolForAddress(address);
+    }
+    catch (IllegalStateException e)
+    {
+      errorResponse(callback, e);
+      return null;
+    }
+
+    final ConcurrencyLimiter limiter = _channelPoolManager.getConcurrencyLimiter(address);
+    if (limiter != null && limitedCallback != null)
+    {
+      if (!limiter.tryAcquire())
+      {
+        errorResponse(callback, new SizeLimitExceededException("Exceeded the concurrency limit of "
+            + limiter.getLimit() + " requests to " + address));
+        return null;
+      }
+      limitedCallback.acquired(limiter);
+    }
+    return pool;
+  }
+
+  private void writePipelinedRequest(final Channel channel,
+                                     PipelinedResponseHandler pipelinedHandler,
+                                     final AsyncPool<Channel> pool,
+                                     RestRequest request,
+                                     TimeoutTransportCallback<RestResponse> callback)
+  {
+    // The responses on the channel come back in order, so a request which timed out blocks the
+    // requests queued behind it.  The channel is disposed of, which fails those requests
+    // right away instead of letting them time out too.
+    callback.addTimeoutTask(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        pool.dispose(channel);
+      }
+    });
+
+    final State state = _state.get();
+    if (state == State.REQUESTS_STOPPING || state == State.SHUTDOWN)
+    {
+      // See writeRequest
+      pool.put(channel);
+      errorResponse(callback,
+                    new TimeoutException("Operation did not complete before shutdown"));
+      return;
+    }
+
+    pipelinedHandler.writeRequest(channel, pool, request, callback);
+  }
+
+  /**
+   * Returns the permit of the request to its {@link ConcurrencyLimiter} before invoking the
+   * user callback. Only a successful response gives the limiter a round trip time, measured
+   * from the time the request got its channel, so that neither the wait for a channel nor a
+   * fast failure, e.g. a refused connection or an error status, is taken as the latency of
+   * the host. A timed out request lowers the limit, other failures leave it as it is.
+   */
+  private static class ConcurrencyLimitedCallback<T> implements TransportCallback<T>
+  {
+    private final TransportCallback<T> _callback;
+    // null until a permit is acquired, and after the permit is returned
+    private final AtomicReference<ConcurrencyLimiter> _limiter = new AtomicReference<ConcurrencyLimiter>();
+    private volatile boolean _done;
+    // 0 until the request gets its channel
+    private volatile long _startNanos;
+
+    private ConcurrencyLimitedCallback(TransportCallback<T> callback)
+    {
+      _callback = callback;
+    }
+
+    private void acquired(ConcurrencyLimiter limiter)
+    {
+      _limiter.set(limiter);
+      if (_done)
+      {
+        // The request already completed, e.g. it timed out before it got its permit
+        limiter = _limiter.getAndSet(null);
+        if (limiter != null)
+        {
+          limiter.abort();
+        }
+      }
+    }
+
+    private void channelAcquired()
+    {
+      _startNanos = System.nanoTime();
+    }
+
+    @Override
+    public void onResponse(TransportResponse<T> response)
+    {
+      _done = true;
+      ConcurrencyLimiter limiter = _limiter.getAndSet(null);
+      if (limiter != null)
+      {
+        long startNanos = _startNanos;
+        if (response.hasError() && response.getError() instanceof TimeoutException)
+        {
+          limiter.release(0, true);
+        }
+        else if (!response.hasError() && startNanos != 0)
+        {
+          limiter.release(System.nanoTime() - startNanos, false);
+        }
+        else
+        {
+          limiter.abort();
+        }
+      }
+      _callback.onResponse(response);
+    }
+  }
+
   static <T> void errorResponse(TransportCallback<T> callback, Throwable e)
   {
     callback.onResponse(TransportResponseImpl.<T>error(e));
@@ -597,11 +954,22 @@ import com.linkedin.r2.util.TimeoutRunnable;
       ChannelPipeline pipeline = Channels.pipeline();
 
       pipeline.addLast("codec", new HttpClientCodec());
+      if (_maxPipelinedRequests <= 1)
+      {
+        // Holds the streamed request of the channel, so it cannot be shared either.
+        pipeline.addLast("streamHandler", new RAPStreamResponseHandler(_scheduler,
+                                                                       _streamingTimeout,
+                                                                       _requestTimeout,
+                                                                       _maxResponseSize));
+      }
       pipeline.addLast("dechunker", new HttpChunkAggregator(_maxResponseSize));
       pipeline.addLast("rapiCodec", new RAPClientCodec());
       // Could introduce an ExecutionHandler here (before RAPResponseHandler)
       // to execute the response handling on a different thread.
-      pipeline.addLast("responseHandler", _responseHandler);
+      if (_maxPipelinedRequests <= 1)
+      {
+        pipeline.addLast("responseHandler", _responseHandler);
+      }
       // Add handler to dynamically configure SSL-related handlers depending on
       // the SSL configuration and request URI.
       if (_sslContext != null)
@@ -609,7 +977,15 @@ import com.linkedin.r2.util.TimeoutRunnable;
         pipeline.addLast("sslRequestHandler", new SslRequestHandler(_sslContext,
                                                                     _sslParameters));
       }
-      pipeline.addLast("channelManager", _handler);
+      if (_maxPipelinedRequests <= 1)
+      {
+        pipeline.addLast("channelManager", _handler);
+      }
+      else
+      {
+        // Holds the callbacks of the channel, so it cannot be shared like the handlers above.
+        pipeline.addLast("pipelinedResponseHandler", new PipelinedResponseHandler());
+      }
 
       return pipeline;
     }
@@ -621,13 +997,15 @@ import com.linkedin.r2.util.TimeoutRunnable;
     private final int _maxPoolSize;
     private final int _idleTimeout;
     private final int _maxPoolWaiterSize;
+    private final int _poolShards;
 
     private ChannelPoolFactoryImpl(ClientBootstrap bootstrap,
                                    int maxPoolSize,
                                    int idleTimeout,
                                    SSLContext sslContext,
                                    SSLParameters sslParameters,
-                                   int maxPoolWaiterSize)
+                                   int maxPoolWaiterSize,
+                                   int poolShards)
     {
       _bootstrap = bootstrap;
       _bootstrap.setPipelineFactory(new HttpClientPipelineFactory(sslContext,
@@ -635,11 +1013,42 @@ import com.linkedin.r2.util.TimeoutRunnable;
       _maxPoolSize = maxPoolSize;
       _idleTimeout = idleTimeout;
       _maxPoolWaiterSize = maxPoolWaiterSize;
+      _poolShards = poolShards;
     }
 
     @Override
     public AsyncPool<Channel> getPool(SocketAddress address)
     {
+      if (_maxPipelinedRequests > 1)
+      {
+        return new PipelinedAsyncPool<Channel>(address.toString() + " pipelined HTTP connection pool",
+                                               new ChannelPoolLifecycle(address,
+                                                                        _bootstrap,
+                                                                        _requestTimeout,
+                                                                        _scheduler,
+                                                                        _allChannels),
+                                               _maxPoolSize,
+                                               _maxPipelinedRequests,
+                                               _idleTimeout,
+                                               _scheduler,
+                                               _callbackExecutor,
+                                               _maxPoolWaiterSize);
+      }
+      if (_poolShards > 1)
+      {
+        return new ShardedAsyncPool<Channel>(address.toString() + " HTTP connection pool",
+                                             new ChannelPoolLifecycle(address,
+                                                                      _bootstrap,
+                                                                      _requestTimeout,
+                                                                      _scheduler,
+                                                                      _allChannels),
+                                             _poolShards,
+                                             _maxPoolSize,
+                                             _idleTimeout,
+                                             _scheduler,
+                                             _callbackExecutor,
+                                             _maxPoolWaiterSize);
+      }
       return new AsyncPoolImpl<Channel>(address.toString() + " HTTP connection pool",
                                         new ChannelPoolLifecycle(address,
                                                                  _bootstrap,
@@ -672,6 +1081,11 @@ import com.linkedin.r2.util.TimeoutRunnable;
     return _requestTimeout;
   }
 
+  public int getStreamingTimeout()
+  {
+    return _streamingTimeout;
+  }
+
   public int getShutdownTimeout()
   {
     return _shutdownTimeout;
@@ -681,4 +1095,19 @@ import com.linkedin.r2.util.TimeoutRunnable;
   {
     return _maxResponseSize;
   }
+
+  public int getMaxPipelinedRequests()
+  {
+    return _maxPipelinedRequests;
+  }
+
+  public int getPoolShards()
+  {
+    return _poolShards;
+  }
+
+  public int getMaxConcurrentRequests()
+  {
+    return _maxConcurrentRequests;
+  }
 }
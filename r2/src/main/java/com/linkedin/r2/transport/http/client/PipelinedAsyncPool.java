@@ -0,0 +1,615 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.r2.transport.http.client;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.linkedin.r2.SizeLimitExceededException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.linkedin.common.callback.Callback;
+import com.linkedin.common.util.None;
+import com.linkedin.r2.util.Cancellable;
+import com.linkedin.r2.util.LinkedDeque;
+
+/**
+ * An {@link AsyncPool} whose objects are shared: an object may be checked out by up to
+ * maxOutstanding users at the same time, e.g. a connection carrying several pipelined
+ * requests. Each {@link #get(Callback)} must be matched by exactly one {@link #put(Object)}
+ * or {@link #dispose(Object)} of the object, like {@link AsyncPoolImpl}.
+ *
+ * A get is given the least loaded object that still has room for another user. A new object
+ * is only created when all of the objects are full, so the pool holds as few objects as
+ * possible. Once an object is disposed, the pool forgets about it, and the puts and disposes
+ * of its remaining users are ignored. An object is destroyed after it has had no user for the
+ * idle timeout.
+ */
+public class PipelinedAsyncPool<T> implements AsyncPool<T>
+{
+  private static final Logger LOG = LoggerFactory.getLogger(PipelinedAsyncPool.class);
+
+  // Configured
+  private final String _poolName;
+  private final Lifecycle<T> _lifecycle;
+  private final int _maxSize;
+  private final int _maxOutstanding;
+  private final int _maxWaiters;
+  private final long _idleTimeout;
+  private final ScheduledExecutorService _timeoutExecutor;
+  private final ExecutorService _callbackExecutor;
+  private volatile ScheduledFuture<?> _objectTimeoutFuture;
+
+  private enum State { NOT_YET_STARTED, RUNNING, SHUTTING_DOWN, STOPPED }
+
+  // All members below are protected by this lock
+  // Never call user code (callbacks) while holding this lock
+  private final Object _lock = new Object();
+  // Including creations/destructions in progress
+  private int _poolSize = 0;
+  // The created objects which have not been disposed or timed out
+  private final Map<T, PooledObject<T>> _objects = new IdentityHashMap<T, PooledObject<T>>();
+  // When all objects are full, callbacks live here while they wait for room on an object
+  private final LinkedDeque<Callback<T>> _waiters = new LinkedDeque<Callback<T>>();
+  private State _state = State.NOT_YET_STARTED;
+  private Callback<None> _shutdownCallback = null;
+
+  // Statistics, see AsyncPoolStats for details
+  private int _totalCreated = 0;
+  private int _totalDestroyed = 0;
+  private int _totalCreateErrors = 0;
+  private int _totalDestroyErrors = 0;
+  private int _totalBadDestroyed = 0;
+  private int _totalTimedOut = 0;
+  private int _sampleMaxCheckedOut = 0;
+  private int _sampleMaxPoolSize = 0;
+  // The number of users of all objects
+  private int _checkedOut = 0;
+
+  /**
+   * @param name Pool name, used in logs and statistics.
+   * @param lifecycle The lifecycle used to create and destroy pool objects.
+   * @param maxSize The maximum number of objects in the pool.
+   * @param maxOutstanding The maximum number of users of an object at the same time.
+   * @param idleTimeout The number of milliseconds before an object without users
+   *                    may be destroyed.
+   * @param timeoutExecutor A ScheduledExecutorService that will be used to
+   *                        periodically timeout objects.
+   * @param callbackExecutor The executor used to deny the waiters when a creation fails.
+   * @param maxWaiters The maximum number of callbacks waiting for an object.
+   */
+  public PipelinedAsyncPool(String name,
+                            Lifecycle<T> lifecycle,
+                            int maxSize,
+                            int maxOutstanding,
+                            long idleTimeout,
+                            ScheduledExecutorService timeoutExecutor,
+                            ExecutorService callbackExecutor,
+                            int maxWaiters)
+  {
+    if (maxOutstanding < 1)
+    {
+      throw new IllegalArgumentException("maxOutstanding must be positive: " + maxOutstanding);
+    }
+    _poolName = name;
+    _lifecycle = lifecycle;
+    _maxSize = maxSize;
+    _maxOutstanding = maxOutstanding;
+    _idleTimeout = idleTimeout;
+    _timeoutExecutor = timeoutExecutor;
+    _callbackExecutor = callbackExecutor;
+    _maxWaiters = maxWaiters;
+  }
+
+  @Override
+  public String getName()
+  {
+    return _poolName;
+  }
+
+  @Override
+  public void start()
+  {
+    synchronized (_lock)
+    {
+      if (_state != State.NOT_YET_STARTED)
+      {
+        throw new IllegalStateException(_poolName + " is " + _state);
+      }
+      _state = State.RUNNING;
+      if (_idleTimeout > 0)
+      {
+        long freq = Math.min(_idleTimeout / 10, 1000);
+        _objectTimeoutFuture = _timeoutExecutor.scheduleAtFixedRate(new Runnable() {
+          @Override
+          public void run()
+          {
+            timeoutObjects();
+          }
+        }, freq, freq, TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
+  @Override
+  public void shutdown(Callback<None> callback)
+  {
+    final State state;
+    synchronized (_lock)
+    {
+      state = _state;
+      if (state == State.RUNNING)
+      {
+        _state = State.SHUTTING_DOWN;
+        _shutdownCallback = callback;
+      }
+    }
+    if (state != State.RUNNING)
+    {
+      callback.onError(new IllegalStateException(_poolName + " is " + state));
+      return;
+    }
+    LOG.info("{}: {}", _poolName, "shutdown requested");
+    shutdownIfNeeded();
+  }
+
+  @Override
+  public Collection<Callback<T>> cancelWaiters()
+  {
+    synchronized (_lock)
+    {
+      List<Callback<T>> cancelled = new ArrayList<Callback<T>>(_waiters.size());
+      for (Callback<T> item; (item = _waiters.poll()) != null;)
+      {
+        cancelled.add(item);
+      }
+      return cancelled;
+    }
+  }
+
+  @Override
+  public Cancellable get(final Callback<T> callback)
+  {
+    boolean create = false;
+    boolean reject = false;
+    final LinkedDeque.Node<Callback<T>> node;
+    for (;;)
+    {
+      PooledObject<T> obj = null;
+      final State state;
+      synchronized (_lock)
+      {
+        state = _state;
+        if (state == State.RUNNING)
+        {
+          obj = leastLoaded();
+          if (obj == null)
+          {
+            if (_waiters.size() < _maxWaiters)
+            {
+              node = _waiters.addLastNode(callback);
+              create = shouldCreate();
+            }
+            else
+            {
+              reject = true;
+              node = null;
+            }
+            break;
+          }
+          checkOut(obj);
+        }
+      }
+      if (state != State.RUNNING)
+      {
+        callback.onError(new IllegalStateException(_poolName + " is " + state));
+        return null;
+      }
+      if (_lifecycle.validateGet(obj._obj))
+      {
+        callback.onSuccess(obj._obj);
+        return null;
+      }
+      // Invalid object, discard it and keep trying
+      dispose(obj._obj);
+      trc("disposed an invalid object");
+    }
+    if (reject)
+    {
+      callback.onError(new SizeLimitExceededException("AsyncPool " + _poolName + " reached maximum waiter size: " + _maxWaiters));
+      return null;
+    }
+    trc("enqueued a waiter");
+    if (create)
+    {
+      create();
+    }
+    return new Cancellable()
+    {
+      @Override
+      public boolean cancel()
+      {
+        synchronized (_lock)
+        {
+          return _waiters.removeNode(node) != null;
+        }
+      }
+    };
+  }
+
+  @Override
+  public void put(T obj)
+  {
+    synchronized (_lock)
+    {
+      PooledObject<T> pooled = _objects.get(obj);
+      if (pooled == null)
+      {
+        // the object has already been disposed
+        return;
+      }
+      pooled._outstanding--;
+      _checkedOut--;
+      if (pooled._outstanding == 0)
+      {
+        pooled._idleSince = System.currentTimeMillis();
+      }
+    }
+    if (!_lifecycle.validatePut(obj))
+    {
+      dispose(obj);
+      return;
+    }
+    serveWaiters(obj);
+  }
+
+  @Override
+  public void dispose(T obj)
+  {
+    synchronized (_lock)
+    {
+      PooledObject<T> pooled = _objects.remove(obj);
+      if (pooled == null)
+      {
+        // the object has already been disposed
+        return;
+      }
+      _checkedOut -= pooled._outstanding;
+    }
+    destroy(obj, true);
+  }
+
+  @Override
+  public AsyncPoolStats getStats()
+  {
+    synchronized (_lock)
+    {
+      AsyncPoolStats stats = new AsyncPoolStats(
+        _totalCreated,
+        _totalDestroyed,
+        _totalCreateErrors,
+        _totalDestroyErrors,
+        _totalBadDestroyed,
+        _totalTimedOut,
+        _checkedOut,
+        _maxSize,
+        _poolSize,
+        _sampleMaxCheckedOut,
+        _sampleMaxPoolSize
+      );
+      _sampleMaxCheckedOut = _checkedOut;
+      _sampleMaxPoolSize = _poolSize;
+      return stats;
+    }
+  }
+
+  /**
+   * Must be called while holding the lock.
+   * @return the object with the fewest users, if it has room for another user.
+   */
+  private PooledObject<T> leastLoaded()
+  {
+    PooledObject<T> result = null;
+    for (PooledObject<T> obj : _objects.values())
+    {
+      if (obj._outstanding < _maxOutstanding && (result == null || obj._outstanding < result._outstanding))
+      {
+        result = obj;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Must be called while holding the lock.
+   */
+  private void checkOut(PooledObject<T> obj)
+  {
+    obj._outstanding++;
+    _checkedOut++;
+    _sampleMaxCheckedOut = Math.max(_checkedOut, _sampleMaxCheckedOut);
+  }
+
+  /**
+   * Gives the object to as many waiters as it has room for.
+   * DO NOT call this method while holding the lock!  It invokes user code.
+   */
+  private void serveWaiters(T obj)
+  {
+    final List<Callback<T>> served = new ArrayList<Callback<T>>();
+    final Callback<None> shutdown;
+    synchronized (_lock)
+    {
+      PooledObject<T> pooled = _objects.get(obj);
+      while (pooled != null && pooled._outstanding < _maxOutstanding && !_waiters.isEmpty())
+      {
+        served.add(_waiters.poll());
+        checkOut(pooled);
+      }
+      shutdown = checkShutdownComplete();
+    }
+    for (Callback<T> waiter : served)
+    {
+      trc("dequeued a waiter");
+      waiter.onSuccess(obj);
+    }
+    if (shutdown != null)
+    {
+      finishShutdown(shutdown);
+    }
+  }
+
+  private void destroy(T obj, boolean bad)
+  {
+    if (bad)
+    {
+      synchronized (_lock)
+      {
+        _totalBadDestroyed++;
+      }
+    }
+    trc("disposing a pooled object");
+    _lifecycle.destroy(obj, bad, new Callback<T>() {
+      @Override
+      public void onSuccess(T t) {
+        boolean create;
+        synchronized (_lock)
+        {
+          _totalDestroyed++;
+          create = objectDestroyed();
+        }
+        if (create)
+        {
+          create();
+        }
+      }
+
+      @Override
+      public void onError(Throwable e) {
+        boolean create;
+        synchronized (_lock)
+        {
+          _totalDestroyErrors++;
+          create = objectDestroyed();
+        }
+        if (create)
+        {
+          create();
+        }
+        LOG.warn(_poolName + ": object destruction failed", e);
+      }
+    });
+  }
+
+  /**
+   * This method is safe to call while holding the lock.
+   * @return true if another object creation should be initiated
+   */
+  private boolean objectDestroyed()
+  {
+    boolean create;
+    synchronized (_lock)
+    {
+      _poolSize--;
+      create = shouldCreate();
+      shutdownIfNeeded();
+    }
+    return create;
+  }
+
+  /**
+   * This method is safe to call while holding the lock.  DO NOT
+   * call any callbacks in this method!
+   * @return true if another object creation should be initiated.
+   */
+  private boolean shouldCreate()
+  {
+    synchronized (_lock)
+    {
+      // the objects being created will serve the waiters that fit on them; this also counts
+      // the destructions in progress, which only delays a creation until they complete
+      int creating = _poolSize - _objects.size();
+      if (_state == State.RUNNING && _poolSize < _maxSize && _waiters.size() > (long) creating * _maxOutstanding)
+      {
+        _poolSize++;
+        _sampleMaxPoolSize = Math.max(_poolSize, _sampleMaxPoolSize);
+        return true;
+      }
+      return false;
+    }
+  }
+
+  /**
+   * DO NOT call this method while holding the lock!  It invokes user code.
+   */
+  private void create()
+  {
+    trc("initiating object creation");
+    _lifecycle.create(new Callback<T>() {
+      @Override
+      public void onSuccess(T t)
+      {
+        synchronized (_lock)
+        {
+          _totalCreated++;
+          _objects.put(t, new PooledObject<T>(t));
+        }
+        serveWaiters(t);
+      }
+
+      @Override
+      public void onError(final Throwable e)
+      {
+        boolean create;
+        final Collection<Callback<T>> waitersDenied;
+        synchronized (_lock)
+        {
+          _totalCreateErrors++;
+          create = objectDestroyed();
+          if (!_waiters.isEmpty())
+          {
+            waitersDenied = cancelWaiters();
+          }
+          else
+          {
+            waitersDenied = Collections.emptyList();
+          }
+        }
+        // As in AsyncPoolImpl, deny all waiters with the real reason rather than keep them
+        // around for a timeout, and do it outside of the thread which reported the failure
+        _callbackExecutor.submit(new Runnable() {
+          @Override
+          public void run() {
+            for (Callback<T> denied : waitersDenied)
+            {
+              denied.onError(e);
+            }
+          }
+        });
+        if (create)
+        {
+          create();
+        }
+        LOG.error(_poolName + ": object creation failed", e);
+      }
+    });
+  }
+
+  private void timeoutObjects()
+  {
+    List<T> toReap = new ArrayList<T>();
+    long target = System.currentTimeMillis() - _idleTimeout;
+    synchronized (_lock)
+    {
+      for (Iterator<PooledObject<T>> it = _objects.values().iterator(); it.hasNext(); )
+      {
+        PooledObject<T> obj = it.next();
+        if (obj._outstanding == 0 && obj._idleSince < target)
+        {
+          it.remove();
+          toReap.add(obj._obj);
+          _totalTimedOut++;
+        }
+      }
+    }
+    if (toReap.size() > 0)
+    {
+      LOG.debug("{}: disposing {} objects due to idle timeout", _poolName, toReap.size());
+      for (T obj : toReap)
+      {
+        destroy(obj, false);
+      }
+    }
+  }
+
+  private void shutdownIfNeeded()
+  {
+    Callback<None> shutdown = checkShutdownComplete();
+    if (shutdown != null)
+    {
+      finishShutdown(shutdown);
+    }
+  }
+
+  private Callback<None> checkShutdownComplete()
+  {
+    Callback<None> done = null;
+    final State state;
+    final int waiters;
+    final int checkedOut;
+    final int pending;
+    synchronized (_lock)
+    {
+      state = _state;
+      waiters = _waiters.size();
+      checkedOut = _checkedOut;
+      // creations and destructions in progress
+      pending = _poolSize - _objects.size();
+
+      if (state == State.SHUTTING_DOWN && waiters == 0 && checkedOut == 0 && pending == 0)
+      {
+        _state = State.STOPPED;
+        done = _shutdownCallback;
+        _shutdownCallback = null;
+      }
+    }
+    if (state == State.SHUTTING_DOWN && done == null)
+    {
+      LOG.info("{}: {} waiters and {} users outstanding before shutdown", new Object[]{ _poolName, waiters, checkedOut });
+    }
+    return done;
+  }
+
+  private void finishShutdown(Callback<None> shutdown)
+  {
+    ScheduledFuture<?> future = _objectTimeoutFuture;
+    if (future != null)
+    {
+      future.cancel(false);
+    }
+
+    LOG.info("{}: {}", _poolName, "shutdown complete");
+
+    shutdown.onSuccess(None.none());
+  }
+
+  private static class PooledObject<T>
+  {
+    private final T _obj;
+    private int _outstanding = 0;
+    private long _idleSince = System.currentTimeMillis();
+
+    private PooledObject(T obj)
+    {
+      _obj = obj;
+    }
+  }
+
+  private void trc(Object toLog)
+  {
+    LOG.trace("{}: {}", _poolName, toLog);
+  }
+}
@@ -0,0 +1,165 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.r2.transport.http.client;
+
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.transport.common.bridge.common.TransportCallback;
+import com.linkedin.r2.transport.common.bridge.common.TransportResponseImpl;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.ExceptionEvent;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+
+import static com.linkedin.r2.transport.http.client.HttpNettyClient.LOG;
+
+
+/**
+ * Netty pipeline handler for a channel carrying pipelined HTTP/1.1 requests. The callbacks
+ * of the requests written on the channel are queued in the order of the requests, and since
+ * an HTTP/1.1 server sends the responses in the same order, each received response is given
+ * to the callback at the head of the queue.
+ *
+ * The handler replaces both {@link RAPResponseHandler} and {@link ChannelPoolHandler} in the
+ * pipeline: it returns the channel to its {@link PipelinedAsyncPool} once per response, and
+ * disposes of the channel after any exception or closure, failing all the queued callbacks. The
+ * channel is closed after an exception, even if no request was written on it yet.
+ *
+ * Unlike {@link RAPResponseHandler}, an instance of this class holds the state of a single
+ * channel and must not be shared by several pipelines.
+ */
+class PipelinedResponseHandler extends SimpleChannelUpstreamHandler
+{
+  // Requests are written by any thread while upstream events are sent by the I/O thread
+  private final Object _lock = new Object();
+  private final Queue<TransportCallback<RestResponse>> _callbacks = new LinkedList<TransportCallback<RestResponse>>();
+  private AsyncPool<Channel> _pool;
+  private boolean _closed;
+
+  /**
+   * Writes the request on the channel of this handler, which must have been obtained from the pool.
+   */
+  public void writeRequest(Channel channel,
+                           AsyncPool<Channel> pool,
+                           RestRequest request,
+                           TransportCallback<RestResponse> callback)
+  {
+    boolean closed;
+    synchronized (_lock)
+    {
+      closed = _closed;
+      if (!closed)
+      {
+        _pool = pool;
+        // The request is written while holding the lock so that the requests are written in
+        // the same order as their callbacks are queued
+        _callbacks.add(callback);
+        channel.write(request);
+      }
+    }
+    if (closed)
+    {
+      pool.dispose(channel);
+      HttpNettyClient.errorResponse(callback, new ClosedChannelException());
+    }
+  }
+
+  /**
+   * Removes the callbacks of all the requests waiting for a response on the channel.
+   */
+  public List<TransportCallback<RestResponse>> removeCallbacks()
+  {
+    synchronized (_lock)
+    {
+      List<TransportCallback<RestResponse>> callbacks = new ArrayList<TransportCallback<RestResponse>>(_callbacks);
+      _callbacks.clear();
+      return callbacks;
+    }
+  }
+
+  @Override
+  public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception
+  {
+    RestResponse response = (RestResponse)e.getMessage();
+
+    TransportCallback<RestResponse> callback;
+    AsyncPool<Channel> pool;
+    synchronized (_lock)
+    {
+      callback = _callbacks.poll();
+      pool = _pool;
+    }
+    if (callback != null)
+    {
+      LOG.debug("{}: handling a pipelined response", e.getChannel().getRemoteAddress());
+      callback.onResponse(RAPResponseHandler.toTransportResponse(response));
+      pool.put(e.getChannel());
+    }
+    else
+    {
+      LOG.debug("{}: dropped a response", e.getChannel().getRemoteAddress());
+    }
+  }
+
+  @Override
+  public void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e) throws Exception
+  {
+    LOG.debug(e.getChannel().getRemoteAddress() + ": exception on pipelined channel", e.getCause());
+    // Unlike a channel carrying one request at a time, a pipelined channel is disposed of after
+    // any exception: the responses still to come could not be matched to their requests any more.
+    closed(e.getChannel(), HttpNettyClient.toException(e.getCause()));
+    e.getChannel().close();
+  }
+
+  @Override
+  public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception
+  {
+    LOG.debug("{}: pipelined channel closed", e.getChannel().getRemoteAddress());
+    closed(e.getChannel(), new ClosedChannelException());
+  }
+
+  private void closed(Channel channel, Exception e)
+  {
+    List<TransportCallback<RestResponse>> callbacks;
+    AsyncPool<Channel> pool;
+    synchronized (_lock)
+    {
+      _closed = true;
+      callbacks = new ArrayList<TransportCallback<RestResponse>>(_callbacks);
+      _callbacks.clear();
+      pool = _pool;
+      _pool = null;
+    }
+    for (TransportCallback<RestResponse> callback : callbacks)
+    {
+      callback.onResponse(TransportResponseImpl.<RestResponse>error(e, Collections.<String, String>emptyMap()));
+    }
+    if (pool != null)
+    {
+      pool.dispose(channel);
+    }
+  }
+}
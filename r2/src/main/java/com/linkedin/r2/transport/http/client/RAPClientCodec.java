@@ -20,7 +20,11 @@
 
 package com.linkedin.r2.transport.http.client;
 
+import java.net.MalformedURLException;
+import java.net.URI;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.Map;
 
 import org.jboss.netty.buffer.ChannelBuffer;
@@ -43,6 +47,7 @@ import org.jboss.netty.handler.codec.oneone.OneToOneEncoder;
 import com.linkedin.data.ByteString;
 import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.r2.message.rest.RestResponseBuilder;
+import com.linkedin.r2.message.streaming.StreamRequest;
 
 /**
 * @author Steven Ihde
@@ -71,10 +76,39 @@ class RAPClientCodec implements ChannelUpstreamHandler, ChannelDownstreamHandler
     protected Object encode(ChannelHandlerContext ctx, Channel channel, Object msg)
             throws Exception
     {
+      if (msg instanceof StreamRequest)
+      {
+        // the head of a streamed request, whose entity follows as HttpChunks
+        StreamRequest request = (StreamRequest) msg;
+        HttpRequest nettyRequest = toNettyRequest(request.getMethod(), request.getURI(), request.getHeaders());
+        nettyRequest.removeHeader(HttpHeaders.Names.CONTENT_LENGTH);
+        nettyRequest.setHeader(HttpHeaders.Names.TRANSFER_ENCODING, HttpHeaders.Values.CHUNKED);
+        nettyRequest.setChunked(true);
+        return nettyRequest;
+      }
+      if (!(msg instanceof RestRequest))
+      {
+        // the HttpChunks of a streamed request are passed as they are
+        return msg;
+      }
+
       RestRequest request = (RestRequest) msg;
+      HttpRequest nettyRequest = toNettyRequest(request.getMethod(), request.getURI(), request.getHeaders());
+
+      final ByteString entity = request.getEntity();
+      List<ByteBuffer> segments = entity.asByteBuffers();
+      ChannelBuffer buf = ChannelBuffers.wrappedBuffer(segments.toArray(new ByteBuffer[segments.size()]));
+      nettyRequest.setContent(buf);
+      nettyRequest.setHeader(HttpHeaders.Names.CONTENT_LENGTH, entity.length());
+
+      return nettyRequest;
+    }
 
-      HttpMethod nettyMethod = HttpMethod.valueOf(request.getMethod());
-      URL url = new URL(request.getURI().toString());
+    private HttpRequest toNettyRequest(String method, URI uri, Map<String, String> headers)
+            throws MalformedURLException
+    {
+      HttpMethod nettyMethod = HttpMethod.valueOf(method);
+      URL url = new URL(uri.toString());
       String path = url.getFile();
       // RFC 2616, section 5.1.2:
       //   Note that the absolute path cannot be empty; if none is present in the original URI,
@@ -88,16 +122,10 @@ class RAPClientCodec implements ChannelUpstreamHandler, ChannelDownstreamHandler
           new DefaultHttpRequest(HttpVersion.HTTP_1_1, nettyMethod, path);
 
       nettyRequest.setHeader(HttpHeaders.Names.HOST, url.getAuthority());
-      for (Map.Entry<String, String> e : request.getHeaders().entrySet())
+      for (Map.Entry<String, String> e : headers.entrySet())
       {
         nettyRequest.setHeader(e.getKey(), e.getValue());
       }
-
-      final ByteString entity = request.getEntity();
-      ChannelBuffer buf = ChannelBuffers.wrappedBuffer(entity.asByteBuffer());
-      nettyRequest.setContent(buf);
-      nettyRequest.setHeader(HttpHeaders.Names.CONTENT_LENGTH, entity.length());
-
       return nettyRequest;
     }
   }
@@ -120,10 +148,12 @@ class RAPClientCodec implements ChannelUpstreamHandler, ChannelDownstreamHandler
         builder.unsafeAddHeaderValue(e.getKey(), e.getValue());
       }
 
+      // the aggregated content is owned by this response, wrap it instead of copying.
       ChannelBuffer buf = nettyResponse.getContent();
-      byte[] array = new byte[buf.readableBytes()];
-      buf.readBytes(array);
-      builder.setEntity(array);
+      if (buf.readable())
+      {
+        builder.setEntity(ByteString.unsafeWrap(buf.toByteBuffers()));
+      }
 
       return builder.build();
     }
@@ -0,0 +1,384 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.transport.http.client;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.ExceptionEvent;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+import org.jboss.netty.handler.codec.frame.TooLongFrameException;
+import org.jboss.netty.handler.codec.http.HttpChunk;
+import org.jboss.netty.handler.codec.http.HttpHeaders;
+import org.jboss.netty.handler.codec.http.HttpResponse;
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.common.util.None;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.rest.RestResponseBuilder;
+import com.linkedin.r2.message.streaming.EntityStreams;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
+import com.linkedin.r2.transport.common.bridge.common.TransportCallback;
+import com.linkedin.r2.transport.common.bridge.common.TransportResponse;
+import com.linkedin.r2.transport.common.bridge.common.TransportResponseImpl;
+import com.linkedin.r2.transport.http.common.ChunkedEntityReader;
+import com.linkedin.r2.transport.http.common.ChunkedEntityWriter;
+
+import static com.linkedin.r2.transport.http.client.HttpNettyClient.LOG;
+
+/**
+ * Netty pipeline handler which streams the response to a streamed request: the callback is
+ * invoked with the head of the response once it is received, and the chunks of the response are
+ * written to its entity as they arrive instead of being aggregated. The messages received for
+ * other requests are passed upstream.
+ * <p/>
+ * The request timeout only runs until the head of the response is received, so the exchange is
+ * bounded by three other limits, each of which fails the entity and disposes of the channel: the
+ * streaming timeout, from the time the request is written to the end of the response; the idle
+ * timeout, during which some of the entity must be received unless the reader of the entity
+ * lags behind; and the maximum response size, checked against the Content-Length of the response
+ * and the size of the entity received so far.
+ */
+class RAPStreamResponseHandler extends SimpleChannelUpstreamHandler
+{
+  private final ScheduledExecutorService _scheduler;
+  private final long _streamingTimeout;
+  private final long _idleTimeout;
+  private final long _maxResponseSize;
+  private final String _streamingTimeoutMessage;
+  private final String _idleTimeoutMessage;
+
+  // Unlike RAPResponseHandler, an instance holds the exchange in progress on its channel, so it
+  // cannot be shared by several pipelines. The exchange is set before the request is written,
+  // and the messages of its response are handled by the I/O thread of the channel.
+  private final AtomicReference<Exchange> _exchange = new AtomicReference<Exchange>();
+
+  /**
+   * @param scheduler the scheduler of the timeouts.
+   * @param streamingTimeout the longest time, in ms, from writing a request to receiving the end
+   *          of its response.
+   * @param idleTimeout the longest time, in ms, without receiving any of the entity of a response
+   *          while its reader is not lagging behind.
+   * @param maxResponseSize the largest entity of a response, in bytes.
+   */
+  RAPStreamResponseHandler(ScheduledExecutorService scheduler,
+                           long streamingTimeout,
+                           long idleTimeout,
+                           long maxResponseSize)
+  {
+    _scheduler = scheduler;
+    _streamingTimeout = streamingTimeout;
+    _idleTimeout = idleTimeout;
+    _maxResponseSize = maxResponseSize;
+    _streamingTimeoutMessage = "Exceeded streaming timeout of " + streamingTimeout + "ms";
+    _idleTimeoutMessage = "Exceeded idle timeout of " + idleTimeout + "ms while receiving the response";
+  }
+
+  /**
+   * Writes a streamed request on the channel. The channel is put back to the pool once the
+   * response is entirely received, or disposed of if the exchange fails, times out or exceeds the
+   * maximum response size.
+   *
+   * @param channel the channel, acquired from the pool for this request.
+   * @param pool the pool of the channel.
+   * @param request the request, with its wire attributes in its headers.
+   * @param callback the callback of the response.
+   */
+  void writeRequest(Channel channel,
+                    AsyncPool<Channel> pool,
+                    StreamRequest request,
+                    TimeoutTransportCallback<StreamResponse> callback)
+  {
+    final Exchange exchange = new Exchange(channel, pool, callback);
+    callback.addTimeoutTask(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        // a late response would be taken for the response to the next request of the channel
+        _exchange.compareAndSet(exchange, null);
+        exchange.release(false);
+      }
+    });
+    exchange._streamingTimeout = _scheduler.schedule(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        fail(exchange, new TimeoutException(_streamingTimeoutMessage));
+      }
+    }, _streamingTimeout, TimeUnit.MILLISECONDS);
+
+    _exchange.set(exchange);
+    channel.write(request);
+    request.getEntityStream().setReader(new ChunkedEntityReader(channel, new Callback<None>()
+    {
+      @Override
+      public void onSuccess(None none)
+      {
+        exchange._requestWritten = true;
+      }
+
+      @Override
+      public void onError(Throwable e)
+      {
+        fail(exchange, e);
+      }
+    }));
+  }
+
+  /**
+   * Removes the callback of the exchange in progress, which is not invoked by this handler
+   * anymore.
+   *
+   * @return the callback, or null if there is no exchange in progress or its callback was invoked.
+   */
+  TransportCallback<StreamResponse> removeCallback()
+  {
+    Exchange exchange = _exchange.get();
+    return exchange == null ? null : exchange._callback.getAndSet(null);
+  }
+
+  @Override
+  public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception
+  {
+    Exchange exchange = _exchange.get();
+    Object msg = e.getMessage();
+    if (exchange != null && msg instanceof HttpResponse)
+    {
+      HttpResponse response = (HttpResponse) msg;
+      if (HttpHeaders.getContentLength(response, 0) > _maxResponseSize)
+      {
+        fail(exchange, tooLong());
+        return;
+      }
+      ChunkedEntityWriter writer = new ChunkedEntityWriter(e.getChannel());
+      exchange._writer = writer;
+      exchange._lastReceived = System.nanoTime();
+      checkIdle(exchange);
+      TransportCallback<StreamResponse> callback = exchange._callback.getAndSet(null);
+      if (callback != null)
+      {
+        LOG.debug("{}: handling a streamed response", e.getChannel().getRemoteAddress());
+        callback.onResponse(toTransportResponse(response, writer));
+      }
+      if (!response.isChunked() && receive(exchange, response.getContent()))
+      {
+        complete(exchange);
+      }
+    }
+    else if (exchange != null && msg instanceof HttpChunk)
+    {
+      HttpChunk chunk = (HttpChunk) msg;
+      if (receive(exchange, chunk.getContent()) && chunk.isLast())
+      {
+        complete(exchange);
+      }
+    }
+    else
+    {
+      super.messageReceived(ctx, e);
+    }
+  }
+
+  @Override
+  public void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e) throws Exception
+  {
+    Exchange exchange = _exchange.getAndSet(null);
+    if (exchange != null)
+    {
+      LOG.debug(e.getChannel().getRemoteAddress() + ": exception on streaming channel", e.getCause());
+      exchange.fail(e.getCause());
+    }
+    super.exceptionCaught(ctx, e);
+  }
+
+  @Override
+  public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception
+  {
+    Exchange exchange = _exchange.getAndSet(null);
+    if (exchange != null)
+    {
+      LOG.debug("{}: streaming channel closed", e.getChannel().getRemoteAddress());
+      exchange.fail(new ClosedChannelException());
+    }
+    super.channelClosed(ctx, e);
+  }
+
+  /**
+   * Adds some of the entity of the response to its writer, unless the entity exceeds the maximum
+   * response size, in which case the exchange fails.
+   *
+   * @return false if the exchange failed.
+   */
+  private boolean receive(Exchange exchange, ChannelBuffer content)
+  {
+    exchange._received += content.readableBytes();
+    if (exchange._received > _maxResponseSize)
+    {
+      fail(exchange, tooLong());
+      return false;
+    }
+    exchange._lastReceived = System.nanoTime();
+    exchange._writer.add(content);
+    return true;
+  }
+
+  /**
+   * Fails the exchange if none of its entity was received for the idle timeout while its reader
+   * was not lagging behind, or schedules the next check otherwise.
+   */
+  private void checkIdle(final Exchange exchange)
+  {
+    if (_exchange.get() != exchange)
+    {
+      return;
+    }
+    long now = System.nanoTime();
+    if (exchange._writer.isPaused())
+    {
+      // reading is suspended, the channel is not idle but waits for the reader
+      exchange._lastReceived = now;
+    }
+    long idle = TimeUnit.NANOSECONDS.toMillis(now - exchange._lastReceived);
+    if (idle >= _idleTimeout)
+    {
+      fail(exchange, new TimeoutException(_idleTimeoutMessage));
+      return;
+    }
+    exchange._idleTimeout = _scheduler.schedule(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        checkIdle(exchange);
+      }
+    }, _idleTimeout - idle, TimeUnit.MILLISECONDS);
+  }
+
+  private void fail(Exchange exchange, Throwable e)
+  {
+    if (_exchange.compareAndSet(exchange, null))
+    {
+      LOG.debug(exchange._channel.getRemoteAddress() + ": streamed exchange failed", e);
+      exchange.fail(e);
+    }
+  }
+
+  private TooLongFrameException tooLong()
+  {
+    // the exception HttpChunkAggregator fails aggregated responses with
+    return new TooLongFrameException("HTTP content length exceeded " + _maxResponseSize + " bytes.");
+  }
+
+  private void complete(Exchange exchange)
+  {
+    _exchange.compareAndSet(exchange, null);
+    exchange._writer.done();
+    // a server answering before the request is entirely written leaves the connection in an
+    // unknown state
+    exchange.release(exchange._requestWritten);
+  }
+
+  private static TransportResponse<StreamResponse> toTransportResponse(HttpResponse nettyResponse,
+                                                                       ChunkedEntityWriter writer)
+  {
+    RestResponseBuilder builder = new RestResponseBuilder();
+    builder.setStatus(nettyResponse.getStatus().getCode());
+    for (Map.Entry<String, String> e : nettyResponse.getHeaders())
+    {
+      builder.unsafeAddHeaderValue(e.getKey(), e.getValue());
+    }
+
+    TransportResponse<RestResponse> head = RAPResponseHandler.toTransportResponse(builder.build());
+    return TransportResponseImpl.success(new StreamResponse(head.getResponse(), EntityStreams.newEntityStream(writer)),
+                                         head.getWireAttributes());
+  }
+
+  private static class Exchange
+  {
+    private final Channel _channel;
+    private final AtomicReference<AsyncPool<Channel>> _pool;
+    private final AtomicReference<TransportCallback<StreamResponse>> _callback;
+    private volatile ChunkedEntityWriter _writer;
+    private volatile boolean _requestWritten = false;
+    private volatile long _lastReceived;
+    private volatile ScheduledFuture<?> _streamingTimeout;
+    private volatile ScheduledFuture<?> _idleTimeout;
+    // only accessed by the I/O thread of the channel
+    private long _received = 0;
+
+    private Exchange(Channel channel, AsyncPool<Channel> pool, TransportCallback<StreamResponse> callback)
+    {
+      _channel = channel;
+      _pool = new AtomicReference<AsyncPool<Channel>>(pool);
+      _callback = new AtomicReference<TransportCallback<StreamResponse>>(callback);
+    }
+
+    private void fail(Throwable e)
+    {
+      TransportCallback<StreamResponse> callback = _callback.getAndSet(null);
+      if (callback != null)
+      {
+        HttpNettyClient.errorResponse(callback, HttpNettyClient.toException(e));
+      }
+      else if (_writer != null)
+      {
+        _writer.error(e);
+      }
+      release(false);
+    }
+
+    private void release(boolean reuse)
+    {
+      AsyncPool<Channel> pool = _pool.getAndSet(null);
+      if (pool != null)
+      {
+        cancel(_streamingTimeout);
+        cancel(_idleTimeout);
+        if (reuse)
+        {
+          pool.put(_channel);
+        }
+        else
+        {
+          pool.dispose(_channel);
+        }
+      }
+    }
+
+    private static void cancel(ScheduledFuture<?> timeout)
+    {
+      if (timeout != null)
+      {
+        timeout.cancel(false);
+      }
+    }
+  }
+}
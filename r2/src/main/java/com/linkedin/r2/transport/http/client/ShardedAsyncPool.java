@@ -0,0 +1,288 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.r2.transport.http.client;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.common.callback.MultiCallback;
+import com.linkedin.common.util.None;
+import com.linkedin.r2.util.Cancellable;
+
+/**
+ * An {@link AsyncPool} partitioned into independent {@link AsyncPoolImpl} shards, so that
+ * threads getting and returning objects at the same time mostly contend on different locks.
+ * A thread first gets its objects from its own shard, picked by its thread id, and an object
+ * is always returned to the shard which created it.<p/>
+ *
+ * The maximum pool size and the maximum number of waiters are divided evenly between the
+ * shards, rounding up, so the pool may hold up to shards - 1 more objects and waiters than
+ * configured. A get() takes an idle object of, or creates an object in, its own shard, or else
+ * the first other shard which can, before waiting; it waits in its own shard, or else in the
+ * first other shard whose waiters are not full, and is only rejected once the waiters of
+ * every shard are full.<p/>
+ *
+ * This is not the exact {@link AsyncPoolImpl} semantics: a waiter only gets an object of the
+ * shard it waits in, so it may keep waiting while an object is returned to another shard
+ * without waiters, and the waiters of different shards are not served in the order they
+ * arrived.<p/>
+ *
+ * The objects are tracked in a {@link ConcurrentHashMap}, so they must have identity
+ * equality semantics, as Netty channels do.
+ */
+public class ShardedAsyncPool<T> implements AsyncPool<T>
+{
+  private final String _poolName;
+  private final List<AsyncPoolImpl<T>> _shards;
+  // The shard of each live object
+  private final ConcurrentMap<T, AsyncPool<T>> _objectShards = new ConcurrentHashMap<T, AsyncPool<T>>();
+
+  /**
+   * @param name Pool name, used in logs and statistics.
+   * @param lifecycle The lifecycle used to create and destroy pool objects.
+   * @param shards The number of shards.
+   * @param maxSize The maximum number of objects in the pool.
+   * @param idleTimeout The number of milliseconds before an idle pool object
+   *                    may be destroyed.
+   * @param timeoutExecutor A ScheduledExecutorService that will be used to
+   *                        periodically timeout objects.
+   * @param callbackExecutor The executor used to deny the waiters when a creation fails.
+   * @param maxWaiters The maximum number of callbacks waiting for an object.
+   */
+  public ShardedAsyncPool(String name,
+                          Lifecycle<T> lifecycle,
+                          int shards,
+                          int maxSize,
+                          long idleTimeout,
+                          ScheduledExecutorService timeoutExecutor,
+                          ExecutorService callbackExecutor,
+                          int maxWaiters)
+  {
+    if (shards < 1)
+    {
+      throw new IllegalArgumentException("shards must be positive: " + shards);
+    }
+    _poolName = name;
+    _shards = new ArrayList<AsyncPoolImpl<T>>(shards);
+    for (int i = 0; i < shards; i++)
+    {
+      _shards.add(new AsyncPoolImpl<T>(name + " shard " + i,
+                                       new ShardLifecycle(lifecycle, i),
+                                       divideRoundingUp(maxSize, shards),
+                                       idleTimeout,
+                                       timeoutExecutor,
+                                       callbackExecutor,
+                                       divideRoundingUp(maxWaiters, shards)));
+    }
+  }
+
+  @Override
+  public String getName()
+  {
+    return _poolName;
+  }
+
+  @Override
+  public void start()
+  {
+    for (AsyncPool<T> shard : _shards)
+    {
+      shard.start();
+    }
+  }
+
+  @Override
+  public void shutdown(Callback<None> callback)
+  {
+    Callback<None> shardsShutdown = new MultiCallback(callback, _shards.size());
+    for (AsyncPool<T> shard : _shards)
+    {
+      shard.shutdown(shardsShutdown);
+    }
+  }
+
+  @Override
+  public Collection<Callback<T>> cancelWaiters()
+  {
+    List<Callback<T>> cancelled = new ArrayList<Callback<T>>();
+    for (AsyncPool<T> shard : _shards)
+    {
+      cancelled.addAll(shard.cancelWaiters());
+    }
+    return cancelled;
+  }
+
+  @Override
+  public Cancellable get(Callback<T> callback)
+  {
+    int shards = _shards.size();
+    int home = (int) (Thread.currentThread().getId() % shards);
+
+    // an object available now in any shard, then a waiter slot in any shard
+    for (int i = 0; i < shards; i++)
+    {
+      Cancellable cancellable = _shards.get((home + i) % shards).get(callback, false, false);
+      if (cancellable != AsyncPoolImpl.UNAVAILABLE)
+      {
+        return cancellable;
+      }
+    }
+    for (int i = 0; i < shards; i++)
+    {
+      Cancellable cancellable = _shards.get((home + i) % shards).get(callback, true, false);
+      if (cancellable != AsyncPoolImpl.UNAVAILABLE)
+      {
+        return cancellable;
+      }
+    }
+
+    // every shard is full; rejected by the shard of the thread
+    return _shards.get(home).get(callback);
+  }
+
+  @Override
+  public void put(T obj)
+  {
+    getShard(obj).put(obj);
+  }
+
+  @Override
+  public void dispose(T obj)
+  {
+    getShard(obj).dispose(obj);
+  }
+
+  @Override
+  public AsyncPoolStats getStats()
+  {
+    int totalCreated = 0;
+    int totalDestroyed = 0;
+    int totalCreateErrors = 0;
+    int totalDestroyErrors = 0;
+    int totalBadDestroyed = 0;
+    int totalTimedOut = 0;
+    int checkedOut = 0;
+    int maxPoolSize = 0;
+    int poolSize = 0;
+    int sampleMaxCheckedOut = 0;
+    int sampleMaxPoolSize = 0;
+    for (AsyncPool<T> shard : _shards)
+    {
+      AsyncPoolStats stats = shard.getStats();
+      totalCreated += stats.getTotalCreated();
+      totalDestroyed += stats.getTotalDestroyed();
+      totalCreateErrors += stats.getTotalCreateErrors();
+      totalDestroyErrors += stats.getTotalDestroyErrors();
+      totalBadDestroyed += stats.getTotalBadDestroyed();
+      totalTimedOut += stats.getTotalTimedOut();
+      checkedOut += stats.getCheckedOut();
+      maxPoolSize += stats.getMaxPoolSize();
+      poolSize += stats.getPoolSize();
+      // the maximums of the shards may not have been reached at the same time, so their sum
+      // is an upper bound of the maximum of the pool
+      sampleMaxCheckedOut += stats.getSampleMaxCheckedOut();
+      sampleMaxPoolSize += stats.getSampleMaxPoolSize();
+    }
+    return new AsyncPoolStats(totalCreated,
+                              totalDestroyed,
+                              totalCreateErrors,
+                              totalDestroyErrors,
+                              totalBadDestroyed,
+                              totalTimedOut,
+                              checkedOut,
+                              maxPoolSize,
+                              poolSize,
+                              sampleMaxCheckedOut,
+                              sampleMaxPoolSize);
+  }
+
+  private AsyncPool<T> getShard(T obj)
+  {
+    AsyncPool<T> shard = _objectShards.get(obj);
+    if (shard == null)
+    {
+      throw new IllegalArgumentException(_poolName + ": object was not created by this pool: " + obj);
+    }
+    return shard;
+  }
+
+  private static int divideRoundingUp(int value, int divisor)
+  {
+    // does not overflow for Integer.MAX_VALUE
+    return value <= 0 ? value : (value - 1) / divisor + 1;
+  }
+
+  /**
+   * Records the shard of the objects created by the shard.
+   */
+  private class ShardLifecycle implements Lifecycle<T>
+  {
+    private final Lifecycle<T> _lifecycle;
+    private final int _shard;
+
+    private ShardLifecycle(Lifecycle<T> lifecycle, int shard)
+    {
+      _lifecycle = lifecycle;
+      _shard = shard;
+    }
+
+    @Override
+    public void create(final Callback<T> callback)
+    {
+      _lifecycle.create(new Callback<T>()
+      {
+        @Override
+        public void onSuccess(T obj)
+        {
+          _objectShards.put(obj, _shards.get(_shard));
+          callback.onSuccess(obj);
+        }
+
+        @Override
+        public void onError(Throwable e)
+        {
+          callback.onError(e);
+        }
+      });
+    }
+
+    @Override
+    public boolean validateGet(T obj)
+    {
+      return _lifecycle.validateGet(obj);
+    }
+
+    @Override
+    public boolean validatePut(T obj)
+    {
+      return _lifecycle.validatePut(obj);
+    }
+
+    @Override
+    public void destroy(T obj, boolean error, Callback<T> callback)
+    {
+      _objectShards.remove(obj);
+      _lifecycle.destroy(obj, error, callback);
+    }
+  }
+}
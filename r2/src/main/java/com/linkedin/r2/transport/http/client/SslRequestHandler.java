@@ -26,9 +26,11 @@ import org.jboss.netty.channel.ChannelHandlerContext;
 import org.jboss.netty.channel.ChannelPipeline;
 import org.jboss.netty.channel.MessageEvent;
 import org.jboss.netty.channel.SimpleChannelDownstreamHandler;
+import org.jboss.netty.handler.codec.http.HttpChunk;
 import org.jboss.netty.handler.ssl.SslHandler;
 
 import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.streaming.StreamRequest;
 
 public class SslRequestHandler extends SimpleChannelDownstreamHandler
 {
@@ -80,8 +82,14 @@ public class SslRequestHandler extends SimpleChannelDownstreamHandler
   @Override
   public void writeRequested(ChannelHandlerContext ctx, MessageEvent e) throws Exception
   {
-    RestRequest restRequest = (RestRequest) e.getMessage();
-    URI uri = restRequest.getURI();
+    Object msg = e.getMessage();
+    if (msg instanceof HttpChunk)
+    {
+      // the entity of a streamed request, whose head was checked already
+      super.writeRequested(ctx, e);
+      return;
+    }
+    URI uri = msg instanceof StreamRequest ? ((StreamRequest) msg).getURI() : ((RestRequest) msg).getURI();
     String scheme = uri.getScheme();
     if (_firstTimeScheme == null)
     {
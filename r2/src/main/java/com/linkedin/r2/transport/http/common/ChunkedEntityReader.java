@@ -0,0 +1,120 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.transport.http.common;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.handler.codec.http.DefaultHttpChunk;
+import org.jboss.netty.handler.codec.http.HttpChunk;
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.common.util.None;
+import com.linkedin.data.ByteString;
+import com.linkedin.r2.message.streaming.ReadHandle;
+import com.linkedin.r2.message.streaming.Reader;
+
+/**
+ * A {@link Reader} which writes the entity it reads as {@link HttpChunk}s on a Netty
+ * {@link Channel}, after the head of a chunked message. A chunk is requested once the previous one
+ * is written, so the entity is read no faster than the channel can send it.
+ */
+public class ChunkedEntityReader implements Reader
+{
+  private final Channel _channel;
+  private final Callback<None> _callback;
+  private ReadHandle _rh;
+
+  /**
+   * @param channel the channel to write the chunks on.
+   * @param callback the callback invoked once the last chunk is written, or with the error of the
+   *          stream or of the channel. The channel is left as it is on error.
+   */
+  public ChunkedEntityReader(Channel channel, Callback<None> callback)
+  {
+    _channel = channel;
+    _callback = callback;
+  }
+
+  @Override
+  public void onInit(ReadHandle rh)
+  {
+    _rh = rh;
+    rh.request(1);
+  }
+
+  @Override
+  public void onDataAvailable(ByteString data)
+  {
+    if (data.length() == 0)
+    {
+      // an empty chunk would end the message
+      _rh.request(1);
+      return;
+    }
+    List<ByteBuffer> segments = data.asByteBuffers();
+    HttpChunk chunk =
+        new DefaultHttpChunk(ChannelBuffers.wrappedBuffer(segments.toArray(new ByteBuffer[segments.size()])));
+    _channel.write(chunk).addListener(new ChannelFutureListener()
+    {
+      @Override
+      public void operationComplete(ChannelFuture future) throws Exception
+      {
+        if (future.isSuccess())
+        {
+          _rh.request(1);
+        }
+        else
+        {
+          _rh.cancel();
+          _callback.onError(future.getCause());
+        }
+      }
+    });
+  }
+
+  @Override
+  public void onDone()
+  {
+    _channel.write(HttpChunk.LAST_CHUNK).addListener(new ChannelFutureListener()
+    {
+      @Override
+      public void operationComplete(ChannelFuture future) throws Exception
+      {
+        if (future.isSuccess())
+        {
+          _callback.onSuccess(None.none());
+        }
+        else
+        {
+          _callback.onError(future.getCause());
+        }
+      }
+    });
+  }
+
+  @Override
+  public void onError(Throwable e)
+  {
+    _callback.onError(e);
+  }
+}
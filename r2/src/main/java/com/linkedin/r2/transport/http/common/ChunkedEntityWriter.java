@@ -0,0 +1,248 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.transport.http.common;
+
+import java.util.LinkedList;
+import java.util.Queue;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+
+import com.linkedin.data.ByteString;
+import com.linkedin.r2.message.streaming.WriteHandle;
+import com.linkedin.r2.message.streaming.Writer;
+
+/**
+ * A {@link Writer} of the entity of a message received in chunks on a Netty {@link Channel}.
+ * The chunks are added as they arrive, by the I/O thread of the channel, and written as the reader
+ * requests them. Reading from the channel is suspended while the reader lags behind, so that the
+ * chunks held in memory are bounded by the reads in flight instead of by the size of the entity.
+ */
+public class ChunkedEntityWriter implements Writer
+{
+  private final Channel _channel;
+
+  // All the members below are guarded by _lock. The write handle is never invoked under the lock.
+  private final Object _lock = new Object();
+  private final Queue<ByteString> _chunks = new LinkedList<ByteString>();
+  private WriteHandle _wh;
+  private boolean _ended = false;
+  private boolean _finished = false;
+  private Throwable _error;
+  private boolean _aborted = false;
+  private boolean _paused = false;
+  private boolean _writing = false;
+  private boolean _writeAgain = false;
+
+  /**
+   * @param channel the channel the entity is received on.
+   */
+  public ChunkedEntityWriter(Channel channel)
+  {
+    _channel = channel;
+  }
+
+  /**
+   * Adds a chunk of the entity received on the channel. The buffer is wrapped, not copied, so it
+   * must not be reused by the caller.
+   *
+   * @param content the content of the chunk.
+   */
+  public void add(ChannelBuffer content)
+  {
+    if (!content.readable())
+    {
+      return;
+    }
+    synchronized (_lock)
+    {
+      if (_ended || _aborted)
+      {
+        return;
+      }
+      _chunks.add(ByteString.unsafeWrap(content.toByteBuffers()));
+    }
+    write();
+  }
+
+  /**
+   * Ends the entity after the chunks added so far. The channel is readable again when this method
+   * returns, and is not suspended by this writer anymore, so it can be used for another message.
+   */
+  public void done()
+  {
+    synchronized (_lock)
+    {
+      if (_ended)
+      {
+        return;
+      }
+      _ended = true;
+      resume();
+    }
+    write();
+  }
+
+  /**
+   * Fails the entity, dropping the chunks not written yet.
+   *
+   * @param e the cause of the failure.
+   */
+  public void error(Throwable e)
+  {
+    synchronized (_lock)
+    {
+      if (_ended)
+      {
+        return;
+      }
+      _ended = true;
+      _error = e;
+      _chunks.clear();
+      resume();
+    }
+    write();
+  }
+
+  /**
+   * @return true if reading from the channel is suspended because the reader lags behind.
+   */
+  public boolean isPaused()
+  {
+    synchronized (_lock)
+    {
+      return _paused;
+    }
+  }
+
+  @Override
+  public void onInit(WriteHandle wh)
+  {
+    synchronized (_lock)
+    {
+      _wh = wh;
+    }
+    write();
+  }
+
+  @Override
+  public void onWritePossible()
+  {
+    write();
+  }
+
+  @Override
+  public void onAbort(Throwable e)
+  {
+    boolean receiving;
+    synchronized (_lock)
+    {
+      _aborted = true;
+      _chunks.clear();
+      receiving = !_ended;
+      resume();
+    }
+    if (receiving)
+    {
+      // the rest of the entity cannot be skipped without reading it, the connection is given up
+      _channel.close();
+    }
+  }
+
+  private void resume()
+  {
+    if (_paused)
+    {
+      _paused = false;
+      _channel.setReadable(true);
+    }
+  }
+
+  /**
+   * Writes the chunks the reader asked for. A single thread writes at a time; a call made while
+   * another thread is writing makes that thread check again, instead of waiting for it.
+   */
+  private void write()
+  {
+    synchronized (_lock)
+    {
+      if (_wh == null)
+      {
+        return;
+      }
+      if (_writing)
+      {
+        _writeAgain = true;
+        return;
+      }
+      _writing = true;
+    }
+
+    while (true)
+    {
+      ByteString chunk = null;
+      boolean finish = false;
+      Throwable error = null;
+      synchronized (_lock)
+      {
+        if (!_aborted && !_chunks.isEmpty() && _wh.remaining() > 0)
+        {
+          chunk = _chunks.poll();
+        }
+        else if (!_aborted && _chunks.isEmpty() && _ended && !_finished)
+        {
+          finish = true;
+          _finished = true;
+          error = _error;
+        }
+        else if (_writeAgain)
+        {
+          _writeAgain = false;
+          continue;
+        }
+        else
+        {
+          _writing = false;
+          if (!_ended && !_aborted)
+          {
+            boolean lagging = !_chunks.isEmpty();
+            if (lagging != _paused)
+            {
+              _paused = lagging;
+              _channel.setReadable(!lagging);
+            }
+          }
+          return;
+        }
+      }
+
+      if (chunk != null)
+      {
+        _wh.write(chunk);
+      }
+      else if (error != null)
+      {
+        _wh.error(error);
+      }
+      else if (finish)
+      {
+        _wh.done();
+      }
+    }
+  }
+}
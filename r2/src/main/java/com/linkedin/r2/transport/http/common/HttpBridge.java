@@ -21,6 +21,7 @@ import java.net.URI;
 import java.nio.charset.Charset;
 import java.util.Map;
 
+import com.linkedin.common.callback.Callback;
 import com.linkedin.data.ByteString;
 import com.linkedin.r2.RemoteInvocationException;
 import com.linkedin.r2.message.rest.RestException;
@@ -34,6 +35,9 @@ import com.linkedin.r2.message.rpc.RpcRequest;
 import com.linkedin.r2.message.rpc.RpcRequestBuilder;
 import com.linkedin.r2.message.rpc.RpcResponse;
 import com.linkedin.r2.message.rpc.RpcResponseBuilder;
+import com.linkedin.r2.message.streaming.Messages;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
 import com.linkedin.r2.transport.common.bridge.common.TransportCallback;
 import com.linkedin.r2.transport.common.bridge.common.TransportResponse;
 import com.linkedin.r2.transport.common.bridge.common.TransportResponseImpl;
@@ -86,6 +90,61 @@ public class HttpBridge
     };
   }
 
+  /**
+   * Wrap application callback for incoming StreamResponse with a "generic" HTTP callback. Like
+   * {@link #restToHttpCallback(TransportCallback, RestRequest)}, a response with an error status
+   * is reported as a {@link RestException}, whose entity is read entirely for that purpose.
+   *
+   * @param callback the callback to receive the incoming StreamResponse
+   * @param request the request, used only to provide useful context in case an error
+   *          occurs
+   * @return the callback to receive the incoming HTTP response
+   */
+  public static TransportCallback<StreamResponse> streamToHttpCallback(final TransportCallback<StreamResponse> callback,
+                                                                       StreamRequest request)
+  {
+    final URI uri = request.getURI();
+    return new TransportCallback<StreamResponse>()
+    {
+      @Override
+      public void onResponse(final TransportResponse<StreamResponse> response)
+      {
+        if (response.hasError())
+        {
+          callback.onResponse(TransportResponseImpl.<StreamResponse>error(
+              new RemoteInvocationException("Failed to get response from server for URI " + uri, response.getError()),
+              response.getWireAttributes()));
+        }
+        else if (!RestStatus.isOK(response.getResponse().getStatus()))
+        {
+          Messages.toRestResponse(response.getResponse(), new Callback<RestResponse>()
+          {
+            @Override
+            public void onSuccess(RestResponse restResponse)
+            {
+              callback.onResponse(TransportResponseImpl.<StreamResponse>error(
+                  new RestException(restResponse,
+                                    "Received error " + restResponse.getStatus() + " from server for URI " + uri),
+                  response.getWireAttributes()));
+            }
+
+            @Override
+            public void onError(Throwable e)
+            {
+              callback.onResponse(TransportResponseImpl.<StreamResponse>error(
+                  new RemoteInvocationException("Failed to get response from server for URI " + uri, e),
+                  response.getWireAttributes()));
+            }
+          });
+        }
+        else
+        {
+          callback.onResponse(response);
+        }
+      }
+    };
+  }
+
   /**
    * Combine the specified {@link RestRequest} and map of headers to construct a new
    * {@link RestRequest}.
@@ -132,6 +191,37 @@ public class HttpBridge
     };
   }
 
+  /**
+   * Wrap transport callback for outgoing "generic" http response with a callback to pass
+   * to the application server handling streamed requests.
+   *
+   * @param callback the callback to receive the outgoing HTTP response
+   * @return the callback to receive the outgoing streamed response
+   */
+  public static TransportCallback<StreamResponse> httpToStreamCallback(final TransportCallback<StreamResponse> callback)
+  {
+    return new TransportCallback<StreamResponse>()
+    {
+      @Override
+      public void onResponse(TransportResponse<StreamResponse> response)
+      {
+        if (response.hasError())
+        {
+          final Throwable ex = response.getError();
+          if (ex instanceof RestException)
+          {
+            callback.onResponse(TransportResponseImpl.success(
+                Messages.toStreamResponse(((RestException) ex).getResponse()),
+                response.getWireAttributes()));
+            return;
+          }
+        }
+
+        callback.onResponse(response);
+      }
+    };
+  }
+
   /**
    * Convert incoming "generic" http request to an RPC request.
    *
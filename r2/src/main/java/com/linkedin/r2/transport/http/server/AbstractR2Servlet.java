@@ -25,6 +25,7 @@ import java.net.URISyntaxException;
 import java.util.Enumeration;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.mail.MessagingException;
@@ -36,6 +37,8 @@ import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.linkedin.common.callback.FutureCallback;
+import com.linkedin.common.util.None;
 import com.linkedin.data.ByteString;
 import com.linkedin.r2.message.rest.QueryTunnelUtil;
 import com.linkedin.r2.message.rest.RestException;
@@ -43,6 +46,12 @@ import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.r2.message.rest.RestRequestBuilder;
 import com.linkedin.r2.message.rest.RestResponse;
 import com.linkedin.r2.message.rest.RestStatus;
+import com.linkedin.r2.message.streaming.EntityStreams;
+import com.linkedin.r2.message.streaming.InputStreamEntityWriter;
+import com.linkedin.r2.message.streaming.Messages;
+import com.linkedin.r2.message.streaming.OutputStreamEntityReader;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
 import com.linkedin.r2.transport.common.WireAttributeHelper;
 import com.linkedin.r2.transport.common.bridge.common.TransportCallback;
 import com.linkedin.r2.transport.common.bridge.common.TransportResponse;
@@ -58,6 +67,7 @@ public abstract class AbstractR2Servlet extends HttpServlet
 {
   private static final Logger _log = LoggerFactory.getLogger(AbstractR2Servlet.class);
   private static final long   serialVersionUID = 0L;
+  private static final String HEADER_METHOD_OVERRIDE = "X-HTTP-Method-Override";
 
   /**
    * @deprecated This constructor is deprecated as support for async servlet support
@@ -82,10 +92,28 @@ public abstract class AbstractR2Servlet extends HttpServlet
 
   protected abstract HttpDispatcher getDispatcher();
 
+  /**
+   * Whether request and response entities are streamed between the servlet container and the
+   * dispatcher rather than read fully into memory. Tunnelled requests are always read fully,
+   * as decoding them needs the whole entity.
+   *
+   * @return true to stream entities, false by default.
+   */
+  protected boolean isStreaming()
+  {
+    return false;
+  }
+
   @Override
   protected void service(final HttpServletRequest req, final HttpServletResponse resp)
           throws ServletException, IOException
   {
+    if (isStreaming() && req.getHeader(HEADER_METHOD_OVERRIDE) == null)
+    {
+      serviceStream(req, resp);
+      return;
+    }
+
     RestRequest restRequest;
 
     try
@@ -131,6 +159,109 @@ public abstract class AbstractR2Servlet extends HttpServlet
     writeToServletResponse(result.get(), resp);
   }
 
+  private void serviceStream(final HttpServletRequest req, final HttpServletResponse resp)
+          throws ServletException, IOException
+  {
+    RestRequestBuilder rb;
+    try
+    {
+      rb = readHeadFromServletRequest(req);
+    }
+    catch (URISyntaxException e)
+    {
+      writeToServletError(resp, RestStatus.BAD_REQUEST, e.toString());
+      return;
+    }
+
+    StreamRequest streamRequest = new StreamRequest(rb.build(),
+        EntityStreams.newEntityStream(
+            new InputStreamEntityWriter(req.getInputStream(), InputStreamEntityWriter.DEFAULT_CHUNK_SIZE)));
+
+    final AtomicReference<TransportResponse<StreamResponse>> result =
+        new AtomicReference<TransportResponse<StreamResponse>>();
+    final CountDownLatch latch = new CountDownLatch(1);
+
+    TransportCallback<StreamResponse> callback = new TransportCallback<StreamResponse>()
+    {
+      @Override
+      public void onResponse(TransportResponse<StreamResponse> response)
+      {
+        result.set(response);
+        latch.countDown();
+      }
+    };
+
+    getDispatcher().handleStreamRequest(streamRequest, callback);
+
+    try
+    {
+      latch.await();
+    }
+    catch (InterruptedException e)
+    {
+      throw new ServletException("Interrupted!", e);
+    }
+
+    writeToServletStreamResponse(result.get(), resp);
+  }
+
+  protected void writeToServletStreamResponse(TransportResponse<StreamResponse> response,
+                                              HttpServletResponse resp)
+      throws ServletException, IOException
+  {
+    Map<String, String> wireAttrs = response.getWireAttributes();
+    for (Map.Entry<String, String> e : WireAttributeHelper.toWireAttributes(wireAttrs)
+        .entrySet())
+    {
+      resp.setHeader(e.getKey(), e.getValue());
+    }
+
+    StreamResponse streamResponse;
+    if (response.hasError())
+    {
+      Throwable e = response.getError();
+      RestResponse restResponse = null;
+      if (e instanceof RestException)
+      {
+        restResponse = ((RestException) e).getResponse();
+      }
+      if (restResponse == null)
+      {
+        restResponse = RestStatus.responseForError(RestStatus.INTERNAL_SERVER_ERROR, e);
+      }
+      streamResponse = Messages.toStreamResponse(restResponse);
+    }
+    else
+    {
+      streamResponse = response.getResponse();
+    }
+
+    resp.setStatus(streamResponse.getStatus());
+    Map<String, String> headers = streamResponse.getHeaders();
+    for (Map.Entry<String, String> e : headers.entrySet())
+    {
+      // TODO multi-valued headers
+      resp.setHeader(e.getKey(), e.getValue());
+    }
+
+    FutureCallback<None> written = new FutureCallback<None>();
+    streamResponse.getEntityStream().setReader(new OutputStreamEntityReader(resp.getOutputStream(), written));
+    try
+    {
+      written.get();
+    }
+    catch (InterruptedException e)
+    {
+      throw new ServletException("Interrupted!", e);
+    }
+    catch (ExecutionException e)
+    {
+      throw new IOException("Failed to write the response entity", e.getCause());
+    }
+
+    resp.getOutputStream().close();
+  }
+
   protected void writeToServletResponse(TransportResponse<RestResponse> response,
                                         HttpServletResponse resp)
       throws IOException
@@ -184,6 +315,28 @@ public abstract class AbstractR2Servlet extends HttpServlet
       ServletException,
       URISyntaxException,
       MessagingException
+  {
+    RestRequestBuilder rb = readHeadFromServletRequest(req);
+    int length = req.getContentLength();
+    if (length >= 0)
+    {
+      InputStream in = req.getInputStream();
+      byte[] buf = new byte[length];
+      int offset = 0;
+      for (int r; offset < length && (r = in.read(buf, offset, length - offset)) != -1; offset += r)
+      {
+      }
+
+      rb.setEntity(ByteString.unsafeWrap(buf, 0, buf.length));
+    }
+    return QueryTunnelUtil.decode(rb.build());
+  }
+
+  /**
+   * Reads the URI, method and headers of the servlet request, leaving its entity unread.
+   */
+  private RestRequestBuilder readHeadFromServletRequest(HttpServletRequest req) throws ServletException,
+      URISyntaxException
   {
     StringBuilder sb = new StringBuilder();
     sb.append(extractPathInfo(req));
@@ -205,19 +358,7 @@ public abstract class AbstractR2Servlet extends HttpServlet
       String headerName = headerNames.nextElement();
       rb.setHeader(headerName, req.getHeader(headerName));
     }
-    int length = req.getContentLength();
-    if (length >= 0)
-    {
-      InputStream in = req.getInputStream();
-      byte[] buf = new byte[length];
-      int offset = 0;
-      for (int r; offset < length && (r = in.read(buf, offset, length - offset)) != -1; offset += r)
-      {
-      }
-
-      rb.setEntity(buf);
-    }
-    return QueryTunnelUtil.decode(rb.build());
+    return rb;
   }
 
   /**
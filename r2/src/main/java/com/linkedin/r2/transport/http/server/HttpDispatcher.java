@@ -21,14 +21,19 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
+import com.linkedin.common.callback.Callback;
 import com.linkedin.r2.message.RequestContext;
 import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.streaming.Messages;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
 import com.linkedin.r2.transport.common.MessageType;
 import com.linkedin.r2.transport.common.WireAttributeHelper;
 import com.linkedin.r2.transport.common.bridge.common.TransportCallback;
 import com.linkedin.r2.transport.common.bridge.common.TransportResponseImpl;
 import com.linkedin.r2.transport.common.bridge.server.TransportDispatcher;
+import com.linkedin.r2.transport.common.bridge.server.TransportDispatchers;
 import com.linkedin.r2.transport.http.common.HttpBridge;
 
 /**
@@ -87,4 +92,59 @@ public class HttpDispatcher
       callback.onResponse(TransportResponseImpl.<RestResponse>error(e, Collections.<String, String>emptyMap()));
     }
   }
+
+  /**
+   * handle a {@link StreamRequest}. The entity is streamed to the dispatcher if it is a
+   * {@link com.linkedin.r2.transport.common.bridge.server.StreamTransportDispatcher}, and
+   * aggregated otherwise. RPC requests are always aggregated.
+   * @see TransportDispatchers#handleStreamRequest
+   *
+   * @param req the request to be handled.
+   * @param callback the callback to be invoked with the response or error.
+   */
+  public void handleStreamRequest(StreamRequest req,
+                                  final TransportCallback<StreamResponse> callback)
+  {
+    final Map<String, String> headers = new HashMap<String, String>(req.getHeaders());
+    final Map<String, String> wireAttrs = WireAttributeHelper.removeWireAttributes(headers);
+
+    try
+    {
+      MessageType.Type msgType = MessageType.getMessageType(wireAttrs, MessageType.Type.REST);
+      switch (msgType)
+      {
+        case RPC:
+          Messages.toRestRequest(req, new Callback<RestRequest>()
+          {
+            @Override
+            public void onSuccess(RestRequest restRequest)
+            {
+              handleRequest(restRequest, TransportDispatchers.restToStreamCallback(callback));
+            }
+
+            @Override
+            public void onError(Throwable e)
+            {
+              callback.onResponse(TransportResponseImpl.<StreamResponse>error(e, Collections.<String, String>emptyMap()));
+            }
+          });
+          break;
+
+        // default is REST
+        default:
+        case REST:
+          StreamRequest streamRequest =
+              new StreamRequest(req.headBuilder().unsafeSetHeaders(headers).build(), req.getEntityStream());
+          TransportDispatchers.handleStreamRequest(_dispatcher,
+                                                   streamRequest,
+                                                   wireAttrs,
+                                                   new RequestContext(),
+                                                   HttpBridge.httpToStreamCallback(callback));
+      }
+    }
+    catch (Exception e)
+    {
+      callback.onResponse(TransportResponseImpl.<StreamResponse>error(e, Collections.<String, String>emptyMap()));
+    }
+  }
 }
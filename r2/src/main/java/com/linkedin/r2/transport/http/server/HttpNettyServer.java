@@ -22,6 +22,7 @@ package com.linkedin.r2.transport.http.server;
 
 import java.net.InetSocketAddress;
 import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.Executors;
 
 import org.jboss.netty.bootstrap.ServerBootstrap;
@@ -39,20 +40,31 @@ import org.jboss.netty.channel.group.ChannelGroup;
 import org.jboss.netty.channel.group.ChannelGroupFuture;
 import org.jboss.netty.channel.group.DefaultChannelGroup;
 import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
+import org.jboss.netty.handler.codec.http.DefaultHttpResponse;
 import org.jboss.netty.handler.codec.http.HttpChunkAggregator;
+import org.jboss.netty.handler.codec.http.HttpHeaders;
 import org.jboss.netty.handler.codec.http.HttpRequestDecoder;
+import org.jboss.netty.handler.codec.http.HttpResponse;
 import org.jboss.netty.handler.codec.http.HttpResponseEncoder;
+import org.jboss.netty.handler.codec.http.HttpResponseStatus;
+import org.jboss.netty.handler.codec.http.HttpVersion;
 import org.jboss.netty.handler.execution.ExecutionHandler;
 import org.jboss.netty.handler.execution.OrderedMemoryAwareThreadPoolExecutor;
 
+import com.linkedin.common.callback.Callback;
+import com.linkedin.common.util.None;
 import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.r2.message.rest.RestResponse;
 import com.linkedin.r2.message.rest.RestResponseBuilder;
 import com.linkedin.r2.message.rest.RestStatus;
+import com.linkedin.r2.message.streaming.Messages;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
 import com.linkedin.r2.transport.common.WireAttributeHelper;
 import com.linkedin.r2.transport.common.bridge.common.TransportCallback;
 import com.linkedin.r2.transport.common.bridge.common.TransportResponse;
 import com.linkedin.r2.transport.common.bridge.common.TransportResponseImpl;
+import com.linkedin.r2.transport.http.common.ChunkedEntityReader;
 
 /**
  * TODO: Do we still need this?
@@ -74,12 +86,24 @@ import com.linkedin.r2.transport.common.bridge.common.TransportResponseImpl;
   private final int _port;
   private final int _threadPoolSize;
   private final HttpDispatcher _dispatcher;
+  private final boolean _streaming;
 
   public HttpNettyServer(int port, int threadPoolSize, HttpDispatcher dispatcher)
+  {
+    this(port, threadPoolSize, dispatcher, false);
+  }
+
+  /**
+   * @param streaming if true, the entities of the requests and of the responses are streamed in
+   *          chunks instead of being aggregated, and the requests are dispatched as
+   *          {@link StreamRequest}s.
+   */
+  public HttpNettyServer(int port, int threadPoolSize, HttpDispatcher dispatcher, boolean streaming)
   {
     _port = port;
     _threadPoolSize = threadPoolSize;
     _dispatcher = dispatcher;
+    _streaming = streaming;
   }
 
   @Override
@@ -99,9 +123,17 @@ import com.linkedin.r2.transport.common.bridge.common.TransportResponseImpl;
       {
         ChannelPipeline pipeline = Channels.pipeline();
         pipeline.addLast("decoder", new HttpRequestDecoder());
-        pipeline.addLast("aggregator", new HttpChunkAggregator(1048576));
-        pipeline.addLast("encoder", new HttpResponseEncoder());
-        pipeline.addLast("rapi", new RAPServerCodec());
+        if (_streaming)
+        {
+          pipeline.addLast("encoder", new HttpResponseEncoder());
+          pipeline.addLast("rapi", new RAPStreamRequestDecoder());
+        }
+        else
+        {
+          pipeline.addLast("aggregator", new HttpChunkAggregator(1048576));
+          pipeline.addLast("encoder", new HttpResponseEncoder());
+          pipeline.addLast("rapi", new RAPServerCodec());
+        }
         pipeline.addLast("execution", _executionHandler);
         pipeline.addLast("handler", new Handler());
         return pipeline;
@@ -136,6 +168,11 @@ import com.linkedin.r2.transport.common.bridge.common.TransportResponseImpl;
     public void messageReceived(final ChannelHandlerContext ctx, final MessageEvent e) throws Exception
     {
       final Channel ch = e.getChannel();
+      if (e.getMessage() instanceof StreamRequest)
+      {
+        handleStreamRequest(ch, (StreamRequest) e.getMessage());
+        return;
+      }
       TransportCallback<RestResponse> writeResponseCallback = new TransportCallback<RestResponse>()
       {
         @Override
@@ -177,6 +214,68 @@ import com.linkedin.r2.transport.common.bridge.common.TransportResponseImpl;
       }
     }
 
+    private void handleStreamRequest(final Channel ch, StreamRequest request)
+    {
+      TransportCallback<StreamResponse> writeResponseCallback = new TransportCallback<StreamResponse>()
+      {
+        @Override
+        public void onResponse(TransportResponse<StreamResponse> response)
+        {
+          final StreamResponse streamResponse;
+          if (response.hasError())
+          {
+            // See messageReceived
+            streamResponse = Messages.toStreamResponse(
+                RestStatus.responseForError(RestStatus.INTERNAL_SERVER_ERROR, response.getError()));
+          }
+          else
+          {
+            streamResponse = response.getResponse();
+          }
+
+          HttpResponse nettyResponse =
+              new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.valueOf(streamResponse.getStatus()));
+          for (Map.Entry<String, String> header : streamResponse.getHeaders().entrySet())
+          {
+            nettyResponse.setHeader(header.getKey(), header.getValue());
+          }
+          for (Map.Entry<String, String> header : WireAttributeHelper.toWireAttributes(response.getWireAttributes()).entrySet())
+          {
+            nettyResponse.setHeader(header.getKey(), header.getValue());
+          }
+          // the entity follows in chunks, as it is read
+          nettyResponse.removeHeader(HttpHeaders.Names.CONTENT_LENGTH);
+          nettyResponse.setHeader(HttpHeaders.Names.TRANSFER_ENCODING, HttpHeaders.Values.CHUNKED);
+          nettyResponse.setChunked(true);
+
+          ch.write(nettyResponse);
+          streamResponse.getEntityStream().setReader(new ChunkedEntityReader(ch, new Callback<None>()
+          {
+            @Override
+            public void onSuccess(None none)
+            {
+            }
+
+            @Override
+            public void onError(Throwable e)
+            {
+              // the response cannot be completed, the client sees the connection close before its end
+              ch.close();
+            }
+          }));
+        }
+      };
+      try
+      {
+        _dispatcher.handleStreamRequest(request, writeResponseCallback);
+      }
+      catch (Exception ex)
+      {
+        writeResponseCallback.onResponse(TransportResponseImpl.<StreamResponse> error(ex,
+                                                                                      Collections.<String, String> emptyMap()));
+      }
+    }
+
     @Override
     public void channelOpen(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception
     {
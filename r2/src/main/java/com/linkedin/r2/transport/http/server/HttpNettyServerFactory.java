@@ -50,9 +50,23 @@ public class HttpNettyServerFactory
   }
 
   public HttpServer createServer(int port, int threadPoolSize, TransportDispatcher transportDispatcher)
+  {
+    return createServer(port, threadPoolSize, transportDispatcher, false);
+  }
+
+  /**
+   * @param streaming if true, the entities of the requests and of the responses are streamed
+   *          instead of being aggregated. They are streamed through the filters and to the
+   *          dispatcher if it is a
+   *          {@link com.linkedin.r2.transport.common.bridge.server.StreamTransportDispatcher}.
+   */
+  public HttpServer createServer(int port,
+                                 int threadPoolSize,
+                                 TransportDispatcher transportDispatcher,
+                                 boolean streaming)
   {
     final TransportDispatcher filterDispatcher = new FilterChainDispatcher(transportDispatcher, _filters);
     final HttpDispatcher dispatcher = new HttpDispatcher(filterDispatcher);
-    return new HttpNettyServer(port, threadPoolSize, dispatcher);
+    return new HttpNettyServer(port, threadPoolSize, dispatcher, streaming);
   }
 }
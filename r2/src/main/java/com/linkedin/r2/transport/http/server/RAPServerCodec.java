@@ -21,6 +21,8 @@
 package com.linkedin.r2.transport.http.server;
 
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.Map;
 
 import org.jboss.netty.buffer.ChannelBuffer;
@@ -78,14 +80,11 @@ class RAPServerCodec implements ChannelUpstreamHandler, ChannelDownstreamHandler
       {
         builder.unsafeAddHeaderValue(e.getKey(), e.getValue());
       }
+      // the aggregated content is owned by this request, wrap it instead of copying.
       ChannelBuffer buf = nettyRequest.getContent();
-      if (buf != null)
+      if (buf != null && buf.readable())
       {
-        if (buf.hasArray())
-        {
-          // TODO make a copy?
-          builder.setEntity(buf.array());
-        }
+        builder.setEntity(ByteString.unsafeWrap(buf.toByteBuffers()));
       }
 
       return builder.build();
@@ -109,7 +108,8 @@ class RAPServerCodec implements ChannelUpstreamHandler, ChannelDownstreamHandler
         nettyResponse.setHeader(e.getKey(), e.getValue());
       }
       final ByteString entity = response.getEntity();
-      ChannelBuffer buf = ChannelBuffers.wrappedBuffer(entity.asByteBuffer());
+      List<ByteBuffer> segments = entity.asByteBuffers();
+      ChannelBuffer buf = ChannelBuffers.wrappedBuffer(segments.toArray(new ByteBuffer[segments.size()]));
       nettyResponse.setContent(buf);
       nettyResponse.setHeader(HttpHeaders.Names.CONTENT_LENGTH, entity.length());
 
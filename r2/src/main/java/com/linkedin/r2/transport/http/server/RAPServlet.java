@@ -32,10 +32,24 @@ public class RAPServlet extends AbstractR2Servlet
   private static final long serialVersionUID = 0L;
 
   private final HttpDispatcher _dispatcher;
+  private final boolean _streaming;
 
   public RAPServlet(HttpDispatcher dispatcher)
+  {
+    this(dispatcher, false);
+  }
+
+  /**
+   * Initialize the RAPServlet.
+   *
+   * @param dispatcher the {@link HttpDispatcher} to which requests are delegated.
+   * @param streaming whether entities are streamed rather than read fully into memory.
+   * @see AbstractR2Servlet#isStreaming()
+   */
+  public RAPServlet(HttpDispatcher dispatcher, boolean streaming)
   {
     _dispatcher = dispatcher;
+    _streaming = streaming;
   }
 
   public RAPServlet(TransportDispatcher dispatcher)
@@ -52,7 +66,7 @@ public class RAPServlet extends AbstractR2Servlet
                     int timeOut,
                     int timeOutDelta)
   {
-    _dispatcher = dispatcher;
+    this(dispatcher, false);
   }
 
   /**
@@ -73,4 +87,10 @@ public class RAPServlet extends AbstractR2Servlet
   {
     return _dispatcher;
   }
+
+  @Override
+  protected boolean isStreaming()
+  {
+    return _streaming;
+  }
 }
@@ -0,0 +1,125 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.transport.http.server;
+
+import java.net.URI;
+import java.nio.channels.ClosedChannelException;
+import java.util.Map;
+
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.ExceptionEvent;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+import org.jboss.netty.handler.codec.http.DefaultHttpResponse;
+import org.jboss.netty.handler.codec.http.HttpChunk;
+import org.jboss.netty.handler.codec.http.HttpHeaders;
+import org.jboss.netty.handler.codec.http.HttpRequest;
+import org.jboss.netty.handler.codec.http.HttpResponseStatus;
+import org.jboss.netty.handler.codec.http.HttpVersion;
+
+import com.linkedin.r2.message.rest.RestRequestBuilder;
+import com.linkedin.r2.message.streaming.EntityStreams;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.transport.http.common.ChunkedEntityWriter;
+
+/**
+ * Decodes the requests received on a channel into {@link StreamRequest}s, which are passed upstream
+ * as soon as their heads are received. The chunks of a request are written to its entity as they
+ * arrive, by the I/O thread of the channel, instead of being aggregated.
+ */
+class RAPStreamRequestDecoder extends SimpleChannelUpstreamHandler
+{
+  // Holds the entity of the request being received, so it cannot be shared by several pipelines.
+  // Only the I/O thread of the channel accesses it.
+  private ChunkedEntityWriter _writer;
+
+  @Override
+  public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception
+  {
+    Object msg = e.getMessage();
+    if (msg instanceof HttpRequest)
+    {
+      HttpRequest nettyRequest = (HttpRequest) msg;
+      if (HttpHeaders.is100ContinueExpected(nettyRequest))
+      {
+        // the entity is read as the request is handled, so the client may send it right away
+        Channels.write(ctx, Channels.succeededFuture(e.getChannel()),
+                       new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.CONTINUE));
+      }
+
+      RestRequestBuilder builder = new RestRequestBuilder(new URI(nettyRequest.getUri()));
+      builder.setMethod(nettyRequest.getMethod().getName());
+      for (Map.Entry<String, String> entry : nettyRequest.getHeaders())
+      {
+        builder.unsafeAddHeaderValue(entry.getKey(), entry.getValue());
+      }
+
+      ChunkedEntityWriter writer = new ChunkedEntityWriter(e.getChannel());
+      StreamRequest request = new StreamRequest(builder.build(), EntityStreams.newEntityStream(writer));
+      if (nettyRequest.isChunked())
+      {
+        _writer = writer;
+      }
+      else
+      {
+        writer.add(nettyRequest.getContent());
+        writer.done();
+      }
+      Channels.fireMessageReceived(ctx, request, e.getRemoteAddress());
+    }
+    else if (msg instanceof HttpChunk && _writer != null)
+    {
+      HttpChunk chunk = (HttpChunk) msg;
+      _writer.add(chunk.getContent());
+      if (chunk.isLast())
+      {
+        _writer.done();
+        _writer = null;
+      }
+    }
+    else
+    {
+      super.messageReceived(ctx, e);
+    }
+  }
+
+  @Override
+  public void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e) throws Exception
+  {
+    fail(e.getCause());
+    super.exceptionCaught(ctx, e);
+  }
+
+  @Override
+  public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception
+  {
+    fail(new ClosedChannelException());
+    super.channelClosed(ctx, e);
+  }
+
+  private void fail(Throwable cause)
+  {
+    if (_writer != null)
+    {
+      _writer.error(cause);
+      _writer = null;
+    }
+  }
+}
@@ -0,0 +1,516 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.r2.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link ScheduledExecutorService} backed by a hashed timing wheel, for the many short lived
+ * timeouts of the r2 client, which are almost always cancelled before they expire.
+ *
+ * The tasks are hashed by deadline into the buckets of a wheel, which a single worker thread
+ * visits one tick at a time, running the tasks of the bucket which are due in the current
+ * round. Scheduling and cancelling a task only append it to a lock-free queue, which the worker
+ * drains into the wheel at each tick, so both are O(1) and never contend on a lock, unlike the
+ * heap of {@link java.util.concurrent.ScheduledThreadPoolExecutor}.
+ *
+ * The price is precision: a task runs up to one tick after its deadline, and tasks due in the
+ * same tick run in no particular order. The tasks run on the worker thread, so they must be
+ * short, as the timeout tasks of r2 are. {@link #execute(Runnable)} runs the task at the next
+ * tick. After {@link #shutdown()}, the delayed tasks still run but the periodic tasks do not.
+ */
+public class HashedWheelScheduledExecutor extends AbstractExecutorService implements ScheduledExecutorService
+{
+  public static final long DEFAULT_TICK_DURATION_MS = 10;
+  public static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
+  private static final int RUNNING = 0;
+  private static final int SHUTDOWN = 1;
+  private static final int STOP = 2;
+
+  private final long _tickNanos;
+  private final Bucket[] _wheel;
+  private final int _mask;
+  private final long _startNanos;
+  private final Queue<WheelTask<?>> _pending = new ConcurrentLinkedQueue<WheelTask<?>>();
+  private final Queue<WheelTask<?>> _cancelled = new ConcurrentLinkedQueue<WheelTask<?>>();
+  private final AtomicInteger _state = new AtomicInteger(RUNNING);
+  private final CountDownLatch _terminated = new CountDownLatch(1);
+  private final Thread _worker;
+
+  // All members below are only accessed by the worker thread
+  private long _tick = 0;
+  private int _size = 0;
+  private boolean _periodicCancelled = false;
+
+  /**
+   * Construct a new instance with a tick of {@link #DEFAULT_TICK_DURATION_MS} milliseconds and
+   * {@link #DEFAULT_TICKS_PER_WHEEL} ticks per wheel.
+   *
+   * @param threadFactory the factory of the worker thread.
+   */
+  public HashedWheelScheduledExecutor(ThreadFactory threadFactory)
+  {
+    this(threadFactory, DEFAULT_TICK_DURATION_MS, TimeUnit.MILLISECONDS, DEFAULT_TICKS_PER_WHEEL);
+  }
+
+  /**
+   * Construct a new instance and start its worker thread.
+   *
+   * @param threadFactory the factory of the worker thread.
+   * @param tickDuration the duration of a tick, which is the precision of the deadlines.
+   * @param unit the {@link TimeUnit} of the tickDuration parameter.
+   * @param ticksPerWheel the number of buckets of the wheel, rounded up to a power of two.
+   *          Tasks due more than one turn of the wheel later are kept in their bucket for
+   *          the following turns, so the wheel should span the usual timeouts.
+   */
+  public HashedWheelScheduledExecutor(ThreadFactory threadFactory, long tickDuration, TimeUnit unit, int ticksPerWheel)
+  {
+    if (tickDuration <= 0)
+    {
+      throw new IllegalArgumentException("tickDuration must be positive: " + tickDuration);
+    }
+    if (ticksPerWheel <= 0 || ticksPerWheel > 1 << 30)
+    {
+      throw new IllegalArgumentException("ticksPerWheel must be between 1 and 2^30: " + ticksPerWheel);
+    }
+    int wheelSize = 1;
+    while (wheelSize < ticksPerWheel)
+    {
+      wheelSize <<= 1;
+    }
+    _tickNanos = unit.toNanos(tickDuration);
+    _wheel = new Bucket[wheelSize];
+    for (int i = 0; i < wheelSize; i++)
+    {
+      _wheel[i] = new Bucket();
+    }
+    _mask = wheelSize - 1;
+    _startNanos = System.nanoTime();
+    _worker = threadFactory.newThread(new Worker());
+    _worker.start();
+  }
+
+  @Override
+  public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit)
+  {
+    if (command == null)
+    {
+      throw new NullPointerException();
+    }
+    return enqueue(new WheelTask<Void>(command, null, deadline(delay, unit), 0));
+  }
+
+  @Override
+  public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit)
+  {
+    if (callable == null)
+    {
+      throw new NullPointerException();
+    }
+    return enqueue(new WheelTask<V>(callable, deadline(delay, unit)));
+  }
+
+  @Override
+  public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit)
+  {
+    if (command == null)
+    {
+      throw new NullPointerException();
+    }
+    if (period <= 0)
+    {
+      throw new IllegalArgumentException("period must be positive: " + period);
+    }
+    return enqueue(new WheelTask<Void>(command, null, deadline(initialDelay, unit), unit.toNanos(period)));
+  }
+
+  @Override
+  public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit)
+  {
+    if (command == null)
+    {
+      throw new NullPointerException();
+    }
+    if (delay <= 0)
+    {
+      throw new IllegalArgumentException("delay must be positive: " + delay);
+    }
+    // a negative period stands for a fixed delay
+    return enqueue(new WheelTask<Void>(command, null, deadline(initialDelay, unit), -unit.toNanos(delay)));
+  }
+
+  @Override
+  public void execute(Runnable command)
+  {
+    schedule(command, 0, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void shutdown()
+  {
+    _state.compareAndSet(RUNNING, SHUTDOWN);
+  }
+
+  /**
+   * Stops the worker thread at its next tick and returns the tasks which did not run. If called
+   * from another thread than the worker, waits for the worker to stop.
+   */
+  @Override
+  public List<Runnable> shutdownNow()
+  {
+    _state.set(STOP);
+    LockSupport.unpark(_worker);
+    if (Thread.currentThread() != _worker)
+    {
+      try
+      {
+        _terminated.await();
+      }
+      catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+        return new ArrayList<Runnable>();
+      }
+    }
+    List<Runnable> tasks = new ArrayList<Runnable>();
+    for (WheelTask<?> task : _pending)
+    {
+      if (!task.isCancelled())
+      {
+        tasks.add(task);
+      }
+    }
+    for (Bucket bucket : _wheel)
+    {
+      for (WheelTask<?> task = bucket._head; task != null; task = task._next)
+      {
+        if (!task.isCancelled() && !task.isDone())
+        {
+          tasks.add(task);
+        }
+      }
+    }
+    return tasks;
+  }
+
+  @Override
+  public boolean isShutdown()
+  {
+    return _state.get() != RUNNING;
+  }
+
+  @Override
+  public boolean isTerminated()
+  {
+    return _terminated.getCount() == 0;
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException
+  {
+    return _terminated.await(timeout, unit);
+  }
+
+  private static long deadline(long delay, TimeUnit unit)
+  {
+    // bound the delay so that the deadline does not overflow
+    return System.nanoTime() + Math.min(unit.toNanos(Math.max(delay, 0)), Long.MAX_VALUE >> 1);
+  }
+
+  private <V> WheelTask<V> enqueue(WheelTask<V> task)
+  {
+    if (_state.get() != RUNNING)
+    {
+      throw new RejectedExecutionException("Executor is shut down");
+    }
+    _pending.add(task);
+    // the worker may have seen an empty queue after the shutdown and terminated
+    if (_state.get() != RUNNING && _pending.remove(task))
+    {
+      throw new RejectedExecutionException("Executor is shut down");
+    }
+    return task;
+  }
+
+  private class Worker implements Runnable
+  {
+    @Override
+    public void run()
+    {
+      try
+      {
+        for (;;)
+        {
+          waitForNextTick();
+          int state = _state.get();
+          if (state == STOP)
+          {
+            break;
+          }
+          if (state == SHUTDOWN && !_periodicCancelled)
+          {
+            cancelPeriodicTasks();
+          }
+          removeCancelledTasks();
+          transferPendingTasks();
+          expireTasks(_wheel[(int) (_tick & _mask)]);
+          _tick++;
+          if (state == SHUTDOWN && _size == 0 && _pending.isEmpty())
+          {
+            break;
+          }
+        }
+      }
+      finally
+      {
+        _terminated.countDown();
+      }
+    }
+
+    private void waitForNextTick()
+    {
+      long tickEnd = _startNanos + (_tick + 1) * _tickNanos;
+      for (;;)
+      {
+        long sleepNanos = tickEnd - System.nanoTime();
+        if (sleepNanos <= 0 || _state.get() == STOP)
+        {
+          return;
+        }
+        LockSupport.parkNanos(this, sleepNanos);
+        // the tasks must not leave the worker interrupted, or it would spin
+        Thread.interrupted();
+      }
+    }
+
+    private void cancelPeriodicTasks()
+    {
+      _periodicCancelled = true;
+      for (Bucket bucket : _wheel)
+      {
+        for (WheelTask<?> task = bucket._head; task != null; task = task._next)
+        {
+          if (task.isPeriodic())
+          {
+            task.cancel(false);
+          }
+        }
+      }
+    }
+
+    private void removeCancelledTasks()
+    {
+      WheelTask<?> task;
+      while ((task = _cancelled.poll()) != null)
+      {
+        // the task may not have been transferred to the wheel yet, or already removed
+        if (task._bucket != null)
+        {
+          task._bucket.remove(task);
+          _size--;
+        }
+      }
+    }
+
+    private void transferPendingTasks()
+    {
+      WheelTask<?> task;
+      while ((task = _pending.poll()) != null)
+      {
+        if (task.isCancelled())
+        {
+          continue;
+        }
+        // the task is due at the end of the tick which contains its deadline
+        long dueTick = Math.max((task._deadline - _startNanos - 1) / _tickNanos, _tick);
+        task._remainingRounds = (dueTick - _tick) >> Integer.numberOfTrailingZeros(_wheel.length);
+        _wheel[(int) (dueTick & _mask)].add(task);
+        _size++;
+      }
+    }
+
+    private void expireTasks(Bucket bucket)
+    {
+      WheelTask<?> task = bucket._head;
+      while (task != null && _state.get() != STOP)
+      {
+        WheelTask<?> next = task._next;
+        if (task.isCancelled())
+        {
+          bucket.remove(task);
+          _size--;
+        }
+        else if (task._remainingRounds <= 0)
+        {
+          bucket.remove(task);
+          _size--;
+          task.run();
+        }
+        else
+        {
+          task._remainingRounds--;
+        }
+        task = next;
+      }
+    }
+  }
+
+  /**
+   * A doubly linked list of tasks, so that a cancelled task is removed in constant time.
+   */
+  private static class Bucket
+  {
+    private WheelTask<?> _head;
+    private WheelTask<?> _tail;
+
+    private void add(WheelTask<?> task)
+    {
+      task._bucket = this;
+      task._prev = _tail;
+      if (_tail == null)
+      {
+        _head = task;
+      }
+      else
+      {
+        _tail._next = task;
+      }
+      _tail = task;
+    }
+
+    private void remove(WheelTask<?> task)
+    {
+      if (task._prev == null)
+      {
+        _head = task._next;
+      }
+      else
+      {
+        task._prev._next = task._next;
+      }
+      if (task._next == null)
+      {
+        _tail = task._prev;
+      }
+      else
+      {
+        task._next._prev = task._prev;
+      }
+      task._prev = null;
+      task._next = null;
+      task._bucket = null;
+    }
+  }
+
+  private class WheelTask<V> extends FutureTask<V> implements ScheduledFuture<V>
+  {
+    // positive for a fixed rate, negative for a fixed delay, 0 if not periodic
+    private final long _period;
+    private volatile long _deadline;
+
+    // All members below are only accessed by the worker thread
+    private long _remainingRounds;
+    private Bucket _bucket;
+    private WheelTask<?> _prev;
+    private WheelTask<?> _next;
+
+    private WheelTask(Runnable runnable, V result, long deadline, long period)
+    {
+      super(runnable, result);
+      _deadline = deadline;
+      _period = period;
+    }
+
+    private WheelTask(Callable<V> callable, long deadline)
+    {
+      super(callable);
+      _deadline = deadline;
+      _period = 0;
+    }
+
+    private boolean isPeriodic()
+    {
+      return _period != 0;
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit)
+    {
+      return unit.convert(_deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other)
+    {
+      if (other == this)
+      {
+        return 0;
+      }
+      long diff = getDelay(TimeUnit.NANOSECONDS) - other.getDelay(TimeUnit.NANOSECONDS);
+      return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning)
+    {
+      boolean cancelled = super.cancel(mayInterruptIfRunning);
+      if (cancelled)
+      {
+        _cancelled.add(this);
+      }
+      return cancelled;
+    }
+
+    @Override
+    public void run()
+    {
+      if (!isPeriodic())
+      {
+        super.run();
+      }
+      else if (runAndReset())
+      {
+        if (_state.get() == RUNNING)
+        {
+          _deadline = _period > 0 ? _deadline + _period : System.nanoTime() - _period;
+          // through the pending queue, so that the bucket being expired is not modified
+          _pending.add(this);
+        }
+        else
+        {
+          cancel(false);
+        }
+      }
+    }
+  }
+}
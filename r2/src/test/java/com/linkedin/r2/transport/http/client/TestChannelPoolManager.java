@@ -71,6 +71,37 @@ public class TestChannelPoolManager
     }
   }
 
+  @Test
+  public void testConcurrencyLimiter()
+  {
+    ChannelPoolFactory factory = new ChannelPoolFactory()
+    {
+      @Override
+      public AsyncPool<Channel> getPool(SocketAddress address)
+      {
+        return new FakePool<Channel>();
+      }
+    };
+    SocketAddress address = new InetSocketAddress(0);
+
+    ChannelPoolManager m = new ChannelPoolManager(factory, "test", 50);
+    m.getPoolForAddress(address);
+    ConcurrencyLimiter limiter = m.getConcurrencyLimiter(address);
+    Assert.assertNotNull(limiter);
+    Assert.assertSame(m.getConcurrencyLimiter(address), limiter);
+    Assert.assertTrue(limiter.tryAcquire());
+
+    ConcurrencyLimiterStats stats = (ConcurrencyLimiterStats) m.getPoolStats().get("fake pool");
+    Assert.assertEquals(stats.getConcurrencyLimit(), limiter.getLimit());
+    Assert.assertEquals(stats.getTotalConcurrencyRejected(), 0);
+
+    ChannelPoolManager unlimited = new ChannelPoolManager(factory);
+    unlimited.getPoolForAddress(address);
+    Assert.assertNull(unlimited.getConcurrencyLimiter(address));
+    stats = (ConcurrencyLimiterStats) unlimited.getPoolStats().get("fake pool");
+    Assert.assertEquals(stats.getConcurrencyLimit(), -1);
+  }
+
   private static class FakePool<T> implements AsyncPool<T>
   {
     @Override
@@ -118,7 +149,7 @@ public class TestChannelPoolManager
     @Override
     public AsyncPoolStats getStats()
     {
-      return null;
+      return new AsyncPoolStats(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
     }
   }
 }
@@ -166,6 +166,10 @@ public class TestHttpClientFactory
     String maxResponse = "3000";
     String idleTimeout = "8000";
     String shutdownTimeout = "14000";
+    String maxPipelinedRequests = "4";
+    String poolShards = "8";
+    String maxConcurrentRequests = "100";
+    String streamingTimeout = "20000";
     HttpNettyClient client;
 
     //test creation using default values
@@ -173,6 +177,10 @@ public class TestHttpClientFactory
     Assert.assertEquals(client.getMaxResponseSize(), HttpClientFactory.DEFAULT_MAX_RESPONSE_SIZE);
     Assert.assertEquals(client.getRequestTimeout(), HttpClientFactory.DEFAULT_REQUEST_TIMEOUT);
     Assert.assertEquals(client.getShutdownTimeout(), HttpClientFactory.DEFAULT_SHUTDOWN_TIMEOUT);
+    Assert.assertEquals(client.getMaxPipelinedRequests(), HttpClientFactory.DEFAULT_MAX_PIPELINED_REQUESTS);
+    Assert.assertEquals(client.getPoolShards(), HttpClientFactory.DEFAULT_POOL_SHARDS);
+    Assert.assertEquals(client.getMaxConcurrentRequests(), HttpClientFactory.DEFAULT_MAX_CONCURRENT_REQUESTS);
+    Assert.assertEquals(client.getStreamingTimeout(), HttpClientFactory.DEFAULT_STREAMING_TIMEOUT);
 
     //test using only new config keys
     properties.put(HttpClientFactory.HTTP_REQUEST_TIMEOUT, requestTimeout);
@@ -180,10 +188,18 @@ public class TestHttpClientFactory
     properties.put(HttpClientFactory.HTTP_IDLE_TIMEOUT, idleTimeout);
     properties.put(HttpClientFactory.HTTP_MAX_RESPONSE_SIZE, maxResponse);
     properties.put(HttpClientFactory.HTTP_SHUTDOWN_TIMEOUT, shutdownTimeout);
+    properties.put(HttpClientFactory.HTTP_MAX_PIPELINED_REQUESTS, maxPipelinedRequests);
+    properties.put(HttpClientFactory.HTTP_POOL_SHARDS, poolShards);
+    properties.put(HttpClientFactory.HTTP_MAX_CONCURRENT_REQUESTS, maxConcurrentRequests);
+    properties.put(HttpClientFactory.HTTP_STREAMING_TIMEOUT, streamingTimeout);
     client = factory.getRawClient(properties);
     Assert.assertEquals(client.getMaxResponseSize(), Integer.parseInt(maxResponse));
     Assert.assertEquals(client.getRequestTimeout(), Integer.parseInt(requestTimeout));
     Assert.assertEquals(client.getShutdownTimeout(), Integer.parseInt(shutdownTimeout));
+    Assert.assertEquals(client.getMaxPipelinedRequests(), Integer.parseInt(maxPipelinedRequests));
+    Assert.assertEquals(client.getPoolShards(), Integer.parseInt(poolShards));
+    Assert.assertEquals(client.getMaxConcurrentRequests(), Integer.parseInt(maxConcurrentRequests));
+    Assert.assertEquals(client.getStreamingTimeout(), Integer.parseInt(streamingTimeout));
   }
 
   @Test
@@ -23,6 +23,7 @@ package com.linkedin.r2.transport.http.client;
 import java.io.IOException;
 import java.net.SocketAddress;
 import java.net.URI;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.UnresolvedAddressException;
 import java.security.NoSuchAlgorithmException;
 import java.util.Collections;
@@ -53,6 +54,9 @@ import com.linkedin.r2.message.RequestContext;
 import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.r2.message.rest.RestRequestBuilder;
 import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.streaming.Messages;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
 import com.linkedin.r2.transport.common.bridge.client.TransportCallbackAdapter;
 import com.linkedin.r2.transport.common.bridge.client.TransportClient;
 import com.linkedin.r2.transport.common.bridge.common.TransportCallback;
@@ -212,6 +216,134 @@ public class TestHttpNettyClient
     testServer.shutdown();
   }
 
+  @Test
+  public void testStreamedResponseSize() throws InterruptedException, IOException, TimeoutException, ExecutionException
+  {
+    TestServer testServer = new TestServer();
+
+    HttpNettyClient client = new HttpNettyClient(_factory, _scheduler, 1, 50000, 10000, 500, TEST_MAX_RESPONSE_SIZE);
+
+    // The entity is received in several chunks, which are not aggregated
+    int responseSize = TEST_MAX_RESPONSE_SIZE;
+    StreamRequest r =
+        Messages.toStreamRequest(new RestRequestBuilder(testServer.getResponseOfSizeURI(responseSize)).build());
+    FutureCallback<StreamResponse> cb = new FutureCallback<StreamResponse>();
+    client.streamRequest(r, new RequestContext(), new HashMap<String, String>(),
+                         new TransportCallbackAdapter<StreamResponse>(cb));
+    StreamResponse response = cb.get(30, TimeUnit.SECONDS);
+
+    FutureCallback<RestResponse> entityCallback = new FutureCallback<RestResponse>();
+    Messages.toRestResponse(response, entityCallback);
+    Assert.assertEquals(entityCallback.get(30, TimeUnit.SECONDS).getEntity().length(), responseSize);
+
+    testServer.shutdown();
+  }
+
+  @Test
+  public void testStreamedResponseTooLarge() throws InterruptedException, IOException, TimeoutException
+  {
+    TestServer testServer = new TestServer();
+
+    HttpNettyClient client = new HttpNettyClient(_factory, _scheduler, 1, 50000, 10000, 500, TEST_MAX_RESPONSE_SIZE);
+
+    StreamRequest r = Messages.toStreamRequest(
+        new RestRequestBuilder(testServer.getResponseOfSizeURI(TEST_MAX_RESPONSE_SIZE + 1)).build());
+    FutureCallback<StreamResponse> cb = new FutureCallback<StreamResponse>();
+    client.streamRequest(r, new RequestContext(), new HashMap<String, String>(),
+                         new TransportCallbackAdapter<StreamResponse>(cb));
+    try
+    {
+      cb.get(30, TimeUnit.SECONDS);
+      Assert.fail("Max response size exceeded, expected exception.");
+    }
+    catch (ExecutionException e)
+    {
+      verifyCauseChain(e, RemoteInvocationException.class, TooLongFrameException.class);
+    }
+
+    testServer.shutdown();
+  }
+
+  @Test
+  public void testStreamedResponseIdleTimeout() throws InterruptedException, IOException, TimeoutException, ExecutionException
+  {
+    TestServer testServer = new TestServer();
+
+    // The entity must not stall for longer than the request timeout
+    HttpNettyClient client = new HttpNettyClient(_factory, _scheduler, 1, 500, 10000, 500, TEST_MAX_RESPONSE_SIZE);
+
+    FutureCallback<RestResponse> entityCallback = streamStalledResponse(client, testServer);
+    try
+    {
+      entityCallback.get(30, TimeUnit.SECONDS);
+      Assert.fail("Response stalled, expected timeout.");
+    }
+    catch (ExecutionException e)
+    {
+      verifyCauseChain(e, TimeoutException.class);
+      Assert.assertTrue(e.getCause().getMessage().contains("idle timeout"), e.getCause().getMessage());
+    }
+    // the server reads the request until the client disposes of the connection
+    testServer.getLastRequest();
+
+    testServer.shutdown();
+  }
+
+  @Test
+  public void testStreamedResponseStreamingTimeout() throws InterruptedException, IOException, TimeoutException, ExecutionException
+  {
+    TestServer testServer = new TestServer();
+
+    HttpNettyClient client = new HttpNettyClient(_factory,
+                                                 _scheduler,
+                                                 1,
+                                                 10000,
+                                                 10000,
+                                                 500,
+                                                 TEST_MAX_RESPONSE_SIZE,
+                                                 null,
+                                                 null,
+                                                 Integer.MAX_VALUE,
+                                                 _scheduler,
+                                                 Integer.MAX_VALUE,
+                                                 HttpClientFactory.DEFAULT_CLIENT_NAME,
+                                                 HttpClientFactory.NULL_JMX_MANAGER,
+                                                 1,
+                                                 1,
+                                                 0,
+                                                 500);
+
+    FutureCallback<RestResponse> entityCallback = streamStalledResponse(client, testServer);
+    try
+    {
+      entityCallback.get(5, TimeUnit.SECONDS);
+      Assert.fail("Response stalled, expected timeout.");
+    }
+    catch (ExecutionException e)
+    {
+      verifyCauseChain(e, TimeoutException.class);
+      Assert.assertTrue(e.getCause().getMessage().contains("streaming timeout"), e.getCause().getMessage());
+    }
+    testServer.getLastRequest();
+
+    testServer.shutdown();
+  }
+
+  private static FutureCallback<RestResponse> streamStalledResponse(HttpNettyClient client, TestServer testServer)
+      throws InterruptedException, TimeoutException, ExecutionException
+  {
+    StreamRequest r = Messages.toStreamRequest(new RestRequestBuilder(testServer.getStalledResponseURI()).build());
+    FutureCallback<StreamResponse> cb = new FutureCallback<StreamResponse>();
+    client.streamRequest(r, new RequestContext(), new HashMap<String, String>(),
+                         new TransportCallbackAdapter<StreamResponse>(cb));
+    // the head of the response is received, the entity is not
+    StreamResponse response = cb.get(30, TimeUnit.SECONDS);
+
+    FutureCallback<RestResponse> entityCallback = new FutureCallback<RestResponse>();
+    Messages.toRestResponse(response, entityCallback);
+    return entityCallback;
+  }
+
   @Test
   public void testShutdown() throws ExecutionException, TimeoutException, InterruptedException
   {
@@ -325,6 +457,74 @@ public class TestHttpNettyClient
     testServer.shutdown();
   }
 
+  @Test
+  public void testPipelinedRequestBehindTimeout()
+      throws InterruptedException, IOException
+  {
+    TestServer testServer = new TestServer();
+
+    HttpNettyClient client = new HttpNettyClient(_factory,
+                                                 _scheduler,
+                                                 1,
+                                                 500,
+                                                 10000,
+                                                 500,
+                                                 1024*1024*2,
+                                                 null,
+                                                 null,
+                                                 Integer.MAX_VALUE,
+                                                 _scheduler,
+                                                 Integer.MAX_VALUE,
+                                                 HttpClientFactory.DEFAULT_CLIENT_NAME,
+                                                 HttpClientFactory.NULL_JMX_MANAGER,
+                                                 2,
+                                                 1,
+                                                 0,
+                                                 HttpClientFactory.DEFAULT_STREAMING_TIMEOUT);
+
+    RestRequest r = new RestRequestBuilder(testServer.getNoResponseURI()).build();
+    FutureCallback<RestResponse> first = new FutureCallback<RestResponse>();
+    client.restRequest(r, new RequestContext(), new HashMap<String, String>(),
+                       new TransportCallbackAdapter<RestResponse>(first));
+    // The second request is pipelined on the connection of the first one, and would only time
+    // out 250ms after it
+    Thread.sleep(250);
+    FutureCallback<RestResponse> second = new FutureCallback<RestResponse>();
+    client.restRequest(r, new RequestContext(), new HashMap<String, String>(),
+                       new TransportCallbackAdapter<RestResponse>(second));
+
+    try
+    {
+      first.get(30, TimeUnit.SECONDS);
+      Assert.fail("Get was supposed to time out");
+    }
+    catch (TimeoutException e)
+    {
+      Assert.fail("Unexpected TimeoutException, should have been ExecutionException", e);
+    }
+    catch (ExecutionException e)
+    {
+      verifyCauseChain(e, RemoteInvocationException.class, TimeoutException.class);
+    }
+
+    // The connection is closed when the first request times out, which fails the second one
+    // instead of letting it time out too
+    try
+    {
+      second.get(30, TimeUnit.SECONDS);
+      Assert.fail("Get was supposed to fail");
+    }
+    catch (TimeoutException e)
+    {
+      Assert.fail("Unexpected TimeoutException, should have been ExecutionException", e);
+    }
+    catch (ExecutionException e)
+    {
+      verifyCauseChain(e, RemoteInvocationException.class, ClosedChannelException.class);
+    }
+    testServer.shutdown();
+  }
+
   private static void verifyCauseChain(Throwable throwable, Class<?>... causes)
   {
     Throwable t = throwable;
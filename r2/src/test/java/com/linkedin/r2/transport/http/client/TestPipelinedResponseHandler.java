@@ -0,0 +1,284 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.r2.transport.http.client;
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.common.callback.FutureCallback;
+import com.linkedin.common.util.None;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestRequestBuilder;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.rest.RestResponseBuilder;
+import com.linkedin.r2.transport.common.bridge.client.TransportCallbackAdapter;
+import com.linkedin.r2.util.Cancellable;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.ChannelUpstreamHandler;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.SimpleChannelHandler;
+import org.jboss.netty.handler.codec.embedder.DecoderEmbedder;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives a {@link PipelinedResponseHandler} through an embedded pipeline, whose writes are
+ * recorded instead of being sent to a server.
+ */
+public class TestPipelinedResponseHandler
+{
+  @Test
+  public void testResponsesMatchedInOrder() throws Exception
+  {
+    PipelinedResponseHandler handler = new PipelinedResponseHandler();
+    PipelineEmbedder embedder = new PipelineEmbedder(handler);
+    RecordingPool pool = new RecordingPool();
+
+    List<RestRequest> requests = new ArrayList<RestRequest>();
+    List<FutureCallback<RestResponse>> callbacks = new ArrayList<FutureCallback<RestResponse>>();
+    for (int i = 0; i < 3; i++)
+    {
+      requests.add(new RestRequestBuilder(URI.create("http://localhost/" + i)).build());
+      callbacks.add(writeRequest(handler, embedder.getChannel(), pool, requests.get(i)));
+    }
+
+    // the requests are written in the order of their callbacks
+    for (RestRequest request : requests)
+    {
+      Assert.assertSame(embedder.poll(), request);
+    }
+    Assert.assertNull(embedder.poll());
+
+    embedder.offer(new RestResponseBuilder().setStatus(200).build());
+    Assert.assertEquals(callbacks.get(0).get(30, TimeUnit.SECONDS).getStatus(), 200);
+    Assert.assertFalse(callbacks.get(1).isDone());
+    Assert.assertFalse(callbacks.get(2).isDone());
+    Assert.assertEquals(pool._puts, 1);
+
+    embedder.offer(new RestResponseBuilder().setStatus(201).build());
+    embedder.offer(new RestResponseBuilder().setStatus(202).build());
+    Assert.assertEquals(callbacks.get(1).get(30, TimeUnit.SECONDS).getStatus(), 201);
+    Assert.assertEquals(callbacks.get(2).get(30, TimeUnit.SECONDS).getStatus(), 202);
+    Assert.assertEquals(pool._puts, 3);
+
+    // a response without a request is dropped
+    embedder.offer(new RestResponseBuilder().setStatus(203).build());
+    Assert.assertEquals(pool._puts, 3);
+    Assert.assertEquals(pool._disposes, 0);
+    Assert.assertTrue(handler.removeCallbacks().isEmpty());
+  }
+
+  @Test
+  public void testExceptionFailsQueuedRequests() throws Exception
+  {
+    PipelinedResponseHandler handler = new PipelinedResponseHandler();
+    CloseRecorder closeRecorder = new CloseRecorder();
+    PipelineEmbedder embedder = new PipelineEmbedder(closeRecorder, handler);
+    RecordingPool pool = new RecordingPool();
+    Channel channel = embedder.getChannel();
+
+    FutureCallback<RestResponse> first = writeRequest(handler, channel, pool, newRequest());
+    FutureCallback<RestResponse> second = writeRequest(handler, channel, pool, newRequest());
+    FutureCallback<RestResponse> third = writeRequest(handler, channel, pool, newRequest());
+
+    embedder.offer(new RestResponseBuilder().setStatus(200).build());
+    Assert.assertEquals(first.get(30, TimeUnit.SECONDS).getStatus(), 200);
+
+    IOException exception = new IOException("Connection reset by peer");
+    Channels.fireExceptionCaught(channel, exception);
+
+    // the requests behind the failed one can not be answered on this channel any more
+    Assert.assertSame(getError(second), exception);
+    Assert.assertSame(getError(third), exception);
+    Assert.assertEquals(pool._puts, 1);
+    Assert.assertEquals(pool._disposes, 1);
+    Assert.assertEquals(closeRecorder._closes, 1);
+
+    // a request written on the failed channel fails right away
+    FutureCallback<RestResponse> late = writeRequest(handler, channel, pool, newRequest());
+    Assert.assertTrue(getError(late) instanceof ClosedChannelException);
+    Assert.assertEquals(pool._disposes, 2);
+
+    // only the three first requests were written
+    for (int i = 0; i < 3; i++)
+    {
+      Assert.assertNotNull(embedder.poll());
+    }
+    Assert.assertNull(embedder.poll());
+  }
+
+  @Test
+  public void testExceptionClosesIdleChannel() throws Exception
+  {
+    PipelinedResponseHandler handler = new PipelinedResponseHandler();
+    CloseRecorder closeRecorder = new CloseRecorder();
+    PipelineEmbedder embedder = new PipelineEmbedder(closeRecorder, handler);
+    RecordingPool pool = new RecordingPool();
+    Channel channel = embedder.getChannel();
+
+    FutureCallback<RestResponse> first = writeRequest(handler, channel, pool, newRequest());
+    embedder.offer(new RestResponseBuilder().setStatus(200).build());
+    Assert.assertEquals(first.get(30, TimeUnit.SECONDS).getStatus(), 200);
+
+    // any exception disposes of the channel, even without a request waiting for a response
+    Channels.fireExceptionCaught(channel, new IllegalStateException("Unexpected message"));
+    Assert.assertEquals(pool._puts, 1);
+    Assert.assertEquals(pool._disposes, 1);
+    Assert.assertEquals(closeRecorder._closes, 1);
+  }
+
+  @Test
+  public void testCloseFailsQueuedRequests() throws Exception
+  {
+    PipelinedResponseHandler handler = new PipelinedResponseHandler();
+    PipelineEmbedder embedder = new PipelineEmbedder(handler);
+    RecordingPool pool = new RecordingPool();
+    Channel channel = embedder.getChannel();
+
+    FutureCallback<RestResponse> first = writeRequest(handler, channel, pool, newRequest());
+    FutureCallback<RestResponse> second = writeRequest(handler, channel, pool, newRequest());
+
+    // the channel is closed, e.g. after a request timed out and the channel was disposed of
+    embedder.finish();
+
+    Assert.assertTrue(getError(first) instanceof ClosedChannelException);
+    Assert.assertTrue(getError(second) instanceof ClosedChannelException);
+    Assert.assertEquals(pool._puts, 0);
+    Assert.assertEquals(pool._disposes, 1);
+
+    // the responses still in flight are dropped
+    Assert.assertTrue(handler.removeCallbacks().isEmpty());
+  }
+
+  private static RestRequest newRequest()
+  {
+    return new RestRequestBuilder(URI.create("http://localhost/")).build();
+  }
+
+  private static FutureCallback<RestResponse> writeRequest(PipelinedResponseHandler handler,
+                                                           Channel channel,
+                                                           AsyncPool<Channel> pool,
+                                                           RestRequest request)
+  {
+    FutureCallback<RestResponse> callback = new FutureCallback<RestResponse>();
+    handler.writeRequest(channel, pool, request, new TransportCallbackAdapter<RestResponse>(callback));
+    return callback;
+  }
+
+  private static Throwable getError(FutureCallback<RestResponse> callback) throws Exception
+  {
+    try
+    {
+      callback.get(30, TimeUnit.SECONDS);
+      Assert.fail("Request was supposed to fail");
+      return null;
+    }
+    catch (ExecutionException e)
+    {
+      return e.getCause();
+    }
+  }
+
+  private static class PipelineEmbedder extends DecoderEmbedder<Object>
+  {
+    private PipelineEmbedder(ChannelUpstreamHandler... handlers)
+    {
+      super(handlers);
+    }
+
+    private Channel getChannel()
+    {
+      return getPipeline().getChannel();
+    }
+  }
+
+  private static class CloseRecorder extends SimpleChannelHandler
+  {
+    private int _closes;
+
+    @Override
+    public void closeRequested(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception
+    {
+      _closes++;
+      super.closeRequested(ctx, e);
+    }
+  }
+
+  private static class RecordingPool implements AsyncPool<Channel>
+  {
+    private int _puts;
+    private int _disposes;
+
+    @Override
+    public String getName()
+    {
+      return "recording pool";
+    }
+
+    @Override
+    public void start()
+    {
+
+    }
+
+    @Override
+    public void shutdown(Callback<None> callback)
+    {
+
+    }
+
+    @Override
+    public Collection<Callback<Channel>> cancelWaiters()
+    {
+      return null;
+    }
+
+    @Override
+    public Cancellable get(Callback<Channel> callback)
+    {
+      return null;
+    }
+
+    @Override
+    public void put(Channel obj)
+    {
+      _puts++;
+    }
+
+    @Override
+    public void dispose(Channel obj)
+    {
+      _disposes++;
+    }
+
+    @Override
+    public AsyncPoolStats getStats()
+    {
+      return new AsyncPoolStats(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+    }
+  }
+}
@@ -76,8 +76,11 @@ public class TestServer
               {
                 s.getOutputStream().write(response.getBytes());
 
-                // Close the server->client half of the connection
-                s.shutdownOutput();
+                // Close the server->client half of the connection, unless the response stalls
+                if (!line.contains("?stall"))
+                {
+                  s.shutdownOutput();
+                }
 
                 // Keep reading from the client->server half of the connection; if we close
                 // it prematurely (before client finishes writing the request) client may receive
@@ -132,6 +135,15 @@ public class TestServer
     return URI.create("http://localhost:" + getPort() + "/?responseSize="+size);
   }
 
+  /**
+   * @return A URI whose response stalls after its head and part of its entity, until the client
+   *         closes the connection
+   */
+  public URI getStalledResponseURI()
+  {
+    return URI.create("http://localhost:" + getPort() + "/?stall");
+  }
+
   /**
    * Resets the latch and returns a URI.  Requests directed to the URI will
    * not be answered until {@link #releaseResponseLatch()} is called count times.
@@ -201,6 +213,19 @@ public class TestServer
                 "\r\n" +
                 sb.substring(0,size);
       }
+      if ("stall".equals(q))
+      {
+        // larger than a chunk of the client, so that the client receives the head and a chunk
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 10000)
+        {
+          sb.append("Not all of the entity. ");
+        }
+        return "HTTP/1.0 200 OK\r\n" +
+                "Content-Length: 100000\r\n" +
+                "\r\n" +
+                sb;
+      }
       if (q != null && q.equals("latch"))
       {
         try
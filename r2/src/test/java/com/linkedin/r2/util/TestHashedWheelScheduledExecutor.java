@@ -0,0 +1,190 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package com.linkedin.r2.util;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class TestHashedWheelScheduledExecutor
+{
+  private HashedWheelScheduledExecutor _executor;
+
+  @BeforeMethod
+  public void startExecutor()
+  {
+    // a small wheel, so that the tests also cover the tasks due after several rounds
+    _executor = new HashedWheelScheduledExecutor(new NamedThreadFactory("wheel"), 1, TimeUnit.MILLISECONDS, 8);
+  }
+
+  @AfterMethod
+  public void stopExecutor()
+  {
+    _executor.shutdownNow();
+  }
+
+  @Test
+  public void testSchedule() throws Exception
+  {
+    long start = System.nanoTime();
+    ScheduledFuture<String> future = _executor.schedule(new Callable<String>()
+    {
+      @Override
+      public String call()
+      {
+        return "done";
+      }
+    }, 50, TimeUnit.MILLISECONDS);
+
+    Assert.assertEquals(future.get(30, TimeUnit.SECONDS), "done");
+    Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+  }
+
+  @Test
+  public void testCancel() throws Exception
+  {
+    final AtomicBoolean ran = new AtomicBoolean();
+    ScheduledFuture<?> future = _executor.schedule(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        ran.set(true);
+      }
+    }, 20, TimeUnit.MILLISECONDS);
+
+    Assert.assertTrue(future.cancel(false));
+    Assert.assertTrue(future.isCancelled());
+
+    // a later task runs after the cancelled one would have
+    _executor.schedule(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+      }
+    }, 40, TimeUnit.MILLISECONDS).get(30, TimeUnit.SECONDS);
+    Assert.assertFalse(ran.get());
+  }
+
+  @Test
+  public void testFixedRate() throws Exception
+  {
+    final CountDownLatch latch = new CountDownLatch(5);
+    ScheduledFuture<?> future = _executor.scheduleAtFixedRate(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        latch.countDown();
+      }
+    }, 0, 5, TimeUnit.MILLISECONDS);
+
+    Assert.assertTrue(latch.await(30, TimeUnit.SECONDS));
+    Assert.assertTrue(future.cancel(false));
+  }
+
+  @Test
+  public void testTimeout() throws Exception
+  {
+    final CountDownLatch timedOut = new CountDownLatch(1);
+    Timeout<Object> timeout = new Timeout<Object>(_executor, 10, TimeUnit.MILLISECONDS, new Object());
+    timeout.addTimeoutTask(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        timedOut.countDown();
+      }
+    });
+    Assert.assertTrue(timedOut.await(30, TimeUnit.SECONDS));
+    Assert.assertNull(timeout.getItem());
+
+    Object item = new Object();
+    timeout = new Timeout<Object>(_executor, 10, TimeUnit.SECONDS, item);
+    Assert.assertSame(timeout.getItem(), item);
+  }
+
+  @Test
+  public void testShutdown() throws Exception
+  {
+    final CountDownLatch ran = new CountDownLatch(1);
+    _executor.schedule(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        ran.countDown();
+      }
+    }, 20, TimeUnit.MILLISECONDS);
+    _executor.scheduleWithFixedDelay(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+      }
+    }, 1, 1, TimeUnit.MILLISECONDS);
+
+    _executor.shutdown();
+    Assert.assertTrue(_executor.isShutdown());
+    try
+    {
+      _executor.execute(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+        }
+      });
+      Assert.fail("Task should have been rejected");
+    }
+    catch (RejectedExecutionException e)
+    {
+      // expected
+    }
+
+    // the delayed task still runs, the periodic one does not hold the executor
+    Assert.assertTrue(_executor.awaitTermination(30, TimeUnit.SECONDS));
+    Assert.assertEquals(ran.getCount(), 0);
+  }
+
+  @Test
+  public void testShutdownNow() throws Exception
+  {
+    _executor.schedule(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        Assert.fail("Task should not run");
+      }
+    }, 10, TimeUnit.SECONDS);
+
+    List<Runnable> tasks = _executor.shutdownNow();
+    Assert.assertEquals(tasks.size(), 1);
+    Assert.assertTrue(_executor.isTerminated());
+  }
+}
@@ -0,0 +1,374 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package test.r2.filter;
+
+import com.linkedin.common.callback.FutureCallback;
+import com.linkedin.data.ByteString;
+import com.linkedin.r2.SizeLimitExceededException;
+import com.linkedin.r2.filter.NextStreamFilter;
+import com.linkedin.r2.filter.R2Constants;
+import com.linkedin.r2.filter.compression.ClientCompressionFilter;
+import com.linkedin.r2.filter.compression.CompressionDictionaries;
+import com.linkedin.r2.filter.compression.EncodingType;
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.rest.RestRequestBuilder;
+import com.linkedin.r2.message.rest.RestResponseBuilder;
+import com.linkedin.r2.message.streaming.ByteStringWriter;
+import com.linkedin.r2.message.streaming.EntityStream;
+import com.linkedin.r2.message.streaming.EntityStreams;
+import com.linkedin.r2.message.streaming.FullEntityReader;
+import com.linkedin.r2.message.streaming.ReadHandle;
+import com.linkedin.r2.message.streaming.Reader;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
+import com.linkedin.r2.message.streaming.WriteHandle;
+import com.linkedin.r2.message.streaming.Writer;
+import com.linkedin.r2.transport.http.common.HttpConstants;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class TestClientCompressionFilter
+{
+  private static final EncodingType[] ZLIB_ENCODINGS = { EncodingType.GZIP, EncodingType.DEFLATE };
+
+  @Test
+  public void testStreamRequestCompression() throws Exception
+  {
+    byte[] content = redundantContent(100000);
+    for (EncodingType encoding : ZLIB_ENCODINGS)
+    {
+      ClientCompressionFilter filter = new ClientCompressionFilter(encoding, ZLIB_ENCODINGS,
+                                                                   Collections.singletonList("*"));
+      StreamRequest request = new StreamRequest(new RestRequestBuilder(URI.create("http://test")).build(),
+          EntityStreams.newEntityStream(new ByteStringWriter(ByteString.copy(content))));
+
+      StreamCapture capture = new StreamCapture();
+      filter.onStreamRequest(request, newRequestContext(), Collections.<String, String>emptyMap(), capture);
+      Assert.assertEquals(capture._request.getHeader(HttpConstants.CONTENT_ENCODING), encoding.getHttpName());
+      Assert.assertNotNull(capture._request.getHeader(HttpConstants.ACCEPT_ENCODING));
+
+      ByteString compressed = readEntity(capture._request.getEntityStream());
+      Assert.assertTrue(compressed.length() < content.length);
+      Assert.assertEquals(encoding.getCompressor().inflate(compressed.asInputStream()), content);
+    }
+  }
+
+  @Test
+  public void testStreamRequestWithoutCompression() throws Exception
+  {
+    ClientCompressionFilter filter = new ClientCompressionFilter(EncodingType.IDENTITY, ZLIB_ENCODINGS,
+                                                                 Collections.singletonList("*"));
+    StreamRequest request = new StreamRequest(new RestRequestBuilder(URI.create("http://test")).build(),
+        EntityStreams.newEntityStream(new ByteStringWriter(ByteString.copy(new byte[] { 1, 2, 3 }))));
+
+    StreamCapture capture = new StreamCapture();
+    filter.onStreamRequest(request, newRequestContext(), Collections.<String, String>emptyMap(), capture);
+    Assert.assertNull(capture._request.getHeader(HttpConstants.CONTENT_ENCODING));
+    Assert.assertNotNull(capture._request.getHeader(HttpConstants.ACCEPT_ENCODING));
+    // the entity is not read by the filter
+    Assert.assertSame(capture._request.getEntityStream(), request.getEntityStream());
+  }
+
+  @Test
+  public void testStreamResponseDecompression() throws Exception
+  {
+    byte[] content = redundantContent(100000);
+    ClientCompressionFilter filter = new ClientCompressionFilter(EncodingType.IDENTITY, ZLIB_ENCODINGS,
+                                                                 Collections.singletonList("*"));
+    for (EncodingType encoding : ZLIB_ENCODINGS)
+    {
+      byte[] compressed = encoding.getCompressor().deflate(new ByteArrayInputStream(content));
+      StreamResponse response = new StreamResponse(
+          new RestResponseBuilder().setHeader(HttpConstants.CONTENT_ENCODING, encoding.getHttpName()).build(),
+          EntityStreams.newEntityStream(new ByteStringWriter(ByteString.copy(compressed))));
+
+      StreamCapture capture = new StreamCapture();
+      filter.onStreamResponse(response, newRequestContext(), Collections.<String, String>emptyMap(), capture);
+      Assert.assertEquals(readEntity(capture._response.getEntityStream()).copyBytes(), content);
+    }
+
+    // an uncompressed response is passed on as it is
+    StreamResponse response = new StreamResponse(new RestResponseBuilder().build(),
+        EntityStreams.newEntityStream(new ByteStringWriter(ByteString.copy(content))));
+    StreamCapture capture = new StreamCapture();
+    filter.onStreamResponse(response, newRequestContext(), Collections.<String, String>emptyMap(), capture);
+    Assert.assertSame(capture._response, response);
+  }
+
+  @Test
+  public void testStreamResponseDecompressedAsReceived() throws Exception
+  {
+    byte[] content = redundantContent(1024 * 1024);
+    ClientCompressionFilter filter = new ClientCompressionFilter(EncodingType.IDENTITY, ZLIB_ENCODINGS,
+                                                                 Collections.singletonList("*"));
+    for (EncodingType encoding : ZLIB_ENCODINGS)
+    {
+      byte[] compressed = encoding.getCompressor().deflate(new ByteArrayInputStream(content));
+      ChunkedWriter writer = new ChunkedWriter(compressed, 256);
+      StreamResponse response = new StreamResponse(
+          new RestResponseBuilder().setHeader(HttpConstants.CONTENT_ENCODING, encoding.getHttpName()).build(),
+          EntityStreams.newEntityStream(writer));
+
+      StreamCapture capture = new StreamCapture();
+      filter.onStreamResponse(response, newRequestContext(), Collections.<String, String>emptyMap(), capture);
+      // the response is passed on before its entity is read
+      Assert.assertEquals(writer._position, 0);
+
+      ChunkByChunkReader reader = new ChunkByChunkReader(writer);
+      capture._response.getEntityStream().setReader(reader);
+      Assert.assertEquals(reader._result.get(30, TimeUnit.SECONDS), content);
+      Assert.assertTrue(reader._writtenAtFirstChunk < compressed.length,
+                        "the first chunk was decompressed after " + reader._writtenAtFirstChunk + " bytes");
+    }
+  }
+
+  @Test
+  public void testStreamResponseGzipMembersSplitBetweenChunks() throws Exception
+  {
+    // two members, whose headers and trailers are split between the chunks
+    byte[] first = redundantContent(1000);
+    byte[] second = redundantContent(3000);
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    compressed.write(EncodingType.GZIP.getCompressor().deflate(new ByteArrayInputStream(first)));
+    compressed.write(EncodingType.GZIP.getCompressor().deflate(new ByteArrayInputStream(second)));
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    expected.write(first);
+    expected.write(second);
+
+    ClientCompressionFilter filter = new ClientCompressionFilter(EncodingType.IDENTITY, ZLIB_ENCODINGS,
+                                                                 Collections.singletonList("*"));
+    StreamResponse response = new StreamResponse(
+        new RestResponseBuilder().setHeader(HttpConstants.CONTENT_ENCODING, EncodingType.GZIP.getHttpName()).build(),
+        EntityStreams.newEntityStream(new ChunkedWriter(compressed.toByteArray(), 3)));
+    StreamCapture capture = new StreamCapture();
+    filter.onStreamResponse(response, newRequestContext(), Collections.<String, String>emptyMap(), capture);
+    Assert.assertEquals(readEntity(capture._response.getEntityStream()).copyBytes(), expected.toByteArray());
+  }
+
+  @Test
+  public void testStreamResponseTruncated() throws Exception
+  {
+    byte[] content = redundantContent(100000);
+    ClientCompressionFilter filter = new ClientCompressionFilter(EncodingType.IDENTITY, ZLIB_ENCODINGS,
+                                                                 Collections.singletonList("*"));
+    for (EncodingType encoding : ZLIB_ENCODINGS)
+    {
+      byte[] compressed = encoding.getCompressor().deflate(new ByteArrayInputStream(content));
+      byte[] truncated = Arrays.copyOf(compressed, compressed.length - 5);
+      StreamResponse response = new StreamResponse(
+          new RestResponseBuilder().setHeader(HttpConstants.CONTENT_ENCODING, encoding.getHttpName()).build(),
+          EntityStreams.newEntityStream(new ChunkedWriter(truncated, 256)));
+
+      StreamCapture capture = new StreamCapture();
+      filter.onStreamResponse(response, newRequestContext(), Collections.<String, String>emptyMap(), capture);
+      try
+      {
+        readEntity(capture._response.getEntityStream());
+        Assert.fail("The " + encoding.getHttpName() + " stream is truncated, expected an error");
+      }
+      catch (ExecutionException e)
+      {
+        Assert.assertTrue(e.getCause().getMessage().startsWith("Truncated"), e.getCause().getMessage());
+      }
+    }
+  }
+
+  @Test
+  public void testStreamResponseReadFullyUpToMaxResponseSize() throws Exception
+  {
+    byte[] content = redundantContent(100000);
+    byte[] compressed = EncodingType.BZIP2.getCompressor().deflate(new ByteArrayInputStream(content));
+    EncodingType[] acceptCompression = { EncodingType.BZIP2 };
+
+    ClientCompressionFilter filter = new ClientCompressionFilter(EncodingType.IDENTITY, acceptCompression,
+        Collections.singletonList("*"), 0, new CompressionDictionaries(), compressed.length);
+    StreamCapture capture = new StreamCapture();
+    filter.onStreamResponse(newBzip2Response(compressed), newRequestContext(),
+                            Collections.<String, String>emptyMap(), capture);
+    Assert.assertEquals(readEntity(capture._response.getEntityStream()).copyBytes(), content);
+
+    filter = new ClientCompressionFilter(EncodingType.IDENTITY, acceptCompression,
+        Collections.singletonList("*"), 0, new CompressionDictionaries(), compressed.length - 1);
+    capture = new StreamCapture();
+    filter.onStreamResponse(newBzip2Response(compressed), newRequestContext(),
+                            Collections.<String, String>emptyMap(), capture);
+    Assert.assertNull(capture._response);
+    Assert.assertTrue(capture._error instanceof SizeLimitExceededException, String.valueOf(capture._error));
+  }
+
+  private static StreamResponse newBzip2Response(byte[] compressed)
+  {
+    return new StreamResponse(
+        new RestResponseBuilder().setHeader(HttpConstants.CONTENT_ENCODING, EncodingType.BZIP2.getHttpName()).build(),
+        EntityStreams.newEntityStream(new ChunkedWriter(compressed, 256)));
+  }
+
+  private static RequestContext newRequestContext()
+  {
+    RequestContext requestContext = new RequestContext();
+    requestContext.putLocalAttr(R2Constants.OPERATION, "get");
+    return requestContext;
+  }
+
+  private static ByteString readEntity(EntityStream entityStream)
+      throws Exception
+  {
+    FutureCallback<ByteString> callback = new FutureCallback<ByteString>();
+    entityStream.setReader(new FullEntityReader(callback));
+    return callback.get(30, TimeUnit.SECONDS);
+  }
+
+  private static byte[] redundantContent(int length)
+  {
+    byte[] content = new byte[length];
+    for (int i = 0; i < length; i++)
+    {
+      content[i] = (byte) ('a' + (i / 7) % 13);
+    }
+    return content;
+  }
+
+  /**
+   * Writes an entity in chunks of a fixed size, as they are requested.
+   */
+  private static class ChunkedWriter implements Writer
+  {
+    private final byte[] _content;
+    private final int _chunkSize;
+    private WriteHandle _wh;
+    // the number of bytes written so far
+    private int _position = 0;
+    private boolean _done = false;
+
+    private ChunkedWriter(byte[] content, int chunkSize)
+    {
+      _content = content;
+      _chunkSize = chunkSize;
+    }
+
+    @Override
+    public void onInit(WriteHandle wh)
+    {
+      _wh = wh;
+    }
+
+    @Override
+    public void onWritePossible()
+    {
+      while (_position < _content.length && _wh.remaining() > 0)
+      {
+        int size = Math.min(_chunkSize, _content.length - _position);
+        ByteString chunk = ByteString.copy(Arrays.copyOfRange(_content, _position, _position + size));
+        _position += size;
+        _wh.write(chunk);
+      }
+      if (_position == _content.length && !_done)
+      {
+        _done = true;
+        _wh.done();
+      }
+    }
+
+    @Override
+    public void onAbort(Throwable e)
+    {
+    }
+  }
+
+  /**
+   * Reads an entity a chunk at a time, recording how much of the entity of a {@link ChunkedWriter}
+   * was written when the first chunk was read.
+   */
+  private static class ChunkByChunkReader implements Reader
+  {
+    private final ChunkedWriter _writer;
+    private final ByteArrayOutputStream _entity = new ByteArrayOutputStream();
+    private final FutureCallback<byte[]> _result = new FutureCallback<byte[]>();
+    private int _writtenAtFirstChunk = -1;
+    private ReadHandle _rh;
+
+    private ChunkByChunkReader(ChunkedWriter writer)
+    {
+      _writer = writer;
+    }
+
+    @Override
+    public void onInit(ReadHandle rh)
+    {
+      _rh = rh;
+      rh.request(1);
+    }
+
+    @Override
+    public void onDataAvailable(ByteString data)
+    {
+      if (_writtenAtFirstChunk < 0)
+      {
+        _writtenAtFirstChunk = _writer._position;
+      }
+      _entity.write(data.copyBytes(), 0, data.length());
+      _rh.request(1);
+    }
+
+    @Override
+    public void onDone()
+    {
+      _result.onSuccess(_entity.toByteArray());
+    }
+
+    @Override
+    public void onError(Throwable e)
+    {
+      _result.onError(e);
+    }
+  }
+
+  private static class StreamCapture implements NextStreamFilter
+  {
+    private StreamRequest _request;
+    private StreamResponse _response;
+    private Throwable _error;
+
+    @Override
+    public void onRequest(StreamRequest req, RequestContext requestContext, Map<String, String> wireAttrs)
+    {
+      _request = req;
+    }
+
+    @Override
+    public void onResponse(StreamResponse res, RequestContext requestContext, Map<String, String> wireAttrs)
+    {
+      _response = res;
+    }
+
+    @Override
+    public void onError(Throwable ex, RequestContext requestContext, Map<String, String> wireAttrs)
+    {
+      _error = ex;
+    }
+  }
+}
@@ -0,0 +1,201 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package test.r2.filter;
+
+import com.linkedin.data.ByteString;
+import com.linkedin.r2.caprep.db.DefaultMessageSerializer;
+import com.linkedin.r2.caprep.db.DirectoryDbSink;
+import com.linkedin.r2.filter.compression.AbstractCompressor;
+import com.linkedin.r2.filter.compression.AcceptEncoding;
+import com.linkedin.r2.filter.compression.ClientCompressionFilter;
+import com.linkedin.r2.filter.compression.CompressionDictionaries;
+import com.linkedin.r2.filter.compression.CompressionDictionaryTrainer;
+import com.linkedin.r2.filter.compression.CompressionException;
+import com.linkedin.r2.filter.compression.DictionaryDeflateCompressor;
+import com.linkedin.r2.filter.compression.EncodingType;
+import com.linkedin.r2.message.rest.RestRequestBuilder;
+import com.linkedin.r2.message.rest.RestResponseBuilder;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+public class TestDictionaryCompression
+{
+  private final Random _random = new Random(42);
+  private CompressionDictionaries _dictionaries;
+  private String _dictionaryId;
+
+  @BeforeMethod
+  public void trainDictionary()
+  {
+    byte[] dictionary = CompressionDictionaryTrainer.train(samples(200), 8 * 1024);
+    Assert.assertTrue(dictionary.length > 0 && dictionary.length <= 8 * 1024);
+    _dictionaries = new CompressionDictionaries();
+    _dictionaryId = _dictionaries.setCurrentDictionary(dictionary);
+  }
+
+  @Test
+  public void testCompressSmallEntity() throws Exception
+  {
+    ByteString entity = samples(1).get(0);
+    AbstractCompressor compressor = new DictionaryDeflateCompressor(_dictionaries);
+    ByteString withDictionary = compressor.deflate(entity, 1.0f);
+    ByteString withoutDictionary = AbstractCompressor.deflate(EncodingType.DEFLATE.getCompressor(), entity, 1.0f);
+
+    Assert.assertTrue(withDictionary.length() < withoutDictionary.length(),
+                      withDictionary.length() + " >= " + withoutDictionary.length());
+    Assert.assertEquals(compressor.inflate(withDictionary), entity);
+    Assert.assertEquals(compressor.inflate(withDictionary.asInputStream()), entity.copyBytes());
+  }
+
+  @Test(expectedExceptions = CompressionException.class)
+  public void testUnknownDictionary() throws Exception
+  {
+    byte[] input = "{\"unknown\":\"dictionary\"}".getBytes("UTF-8");
+    Deflater deflater = new Deflater();
+    deflater.setDictionary("not registered".getBytes("UTF-8"));
+    deflater.setInput(input);
+    deflater.finish();
+    byte[] output = new byte[1024];
+    int length = deflater.deflate(output);
+    deflater.end();
+
+    new DictionaryDeflateCompressor(_dictionaries).inflate(ByteString.copy(Arrays.copyOf(output, length)));
+  }
+
+  @Test
+  public void testIndependentDictionaries() throws Exception
+  {
+    ByteString compressed = new DictionaryDeflateCompressor(_dictionaries).deflate(samples(1).get(0), 1.0f);
+
+    CompressionDictionaries other = new CompressionDictionaries();
+    Assert.assertNull(other.getCurrentDictionaryId());
+    Assert.assertFalse(other.isCurrentDictionary(_dictionaryId));
+    try
+    {
+      new DictionaryDeflateCompressor(other).inflate(compressed);
+      Assert.fail("Inflated with a dictionary registered elsewhere");
+    }
+    catch (CompressionException e)
+    {
+      // expected
+    }
+    try
+    {
+      new DictionaryDeflateCompressor(other).deflate(samples(1).get(0), 1.0f);
+      Assert.fail("Deflated without a current dictionary");
+    }
+    catch (CompressionException e)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testNegotiation() throws Exception
+  {
+    Set<EncodingType> supported = new HashSet<EncodingType>(
+        Arrays.asList(EncodingType.DEFLATE_DICTIONARY, EncodingType.GZIP, EncodingType.IDENTITY));
+
+    List<AcceptEncoding> accepted = AcceptEncoding.parseAcceptEncodingHeader(
+        "x-deflate-dict;dict=" + _dictionaryId + ";q=1.0, gzip;q=0.5", supported, _dictionaries);
+    Assert.assertEquals(AcceptEncoding.chooseBest(accepted), EncodingType.DEFLATE_DICTIONARY);
+
+    // the client does not have the dictionary of the server
+    accepted = AcceptEncoding.parseAcceptEncodingHeader("x-deflate-dict;dict=00000000;q=1.0, gzip;q=0.5", supported,
+                                                       _dictionaries);
+    Assert.assertEquals(AcceptEncoding.chooseBest(accepted), EncodingType.GZIP);
+
+    // the server has no dictionaries
+    accepted = AcceptEncoding.parseAcceptEncodingHeader(
+        "x-deflate-dict;dict=" + _dictionaryId + ";q=1.0, gzip;q=0.5", supported);
+    Assert.assertEquals(AcceptEncoding.chooseBest(accepted), EncodingType.GZIP);
+
+    ClientCompressionFilter filter = new ClientCompressionFilter(EncodingType.IDENTITY,
+                                                                 new EncodingType[] { EncodingType.DEFLATE_DICTIONARY },
+                                                                 Collections.singletonList("*"), 0, _dictionaries);
+    Assert.assertEquals(filter.buildAcceptEncodingHeader(),
+                        "x-deflate-dict;dict=" + _dictionaryId + ";q=" + String.format("%.2f", 1.0f));
+  }
+
+  @Test
+  public void testReadCapturedSamples() throws Exception
+  {
+    File dir = File.createTempFile("caprep", null);
+    Assert.assertTrue(dir.delete());
+    try
+    {
+      DirectoryDbSink sink = new DirectoryDbSink(dir, new DefaultMessageSerializer());
+      List<ByteString> samples = samples(3);
+      for (ByteString sample : samples)
+      {
+        sink.record(new RestRequestBuilder(URI.create("/greetings")).build(),
+                    new RestResponseBuilder().setEntity(sample).build());
+      }
+
+      List<ByteString> read = CompressionDictionaryTrainer.readSamples(dir);
+      Assert.assertEquals(new HashSet<ByteString>(read), new HashSet<ByteString>(samples));
+    }
+    finally
+    {
+      for (File file : dir.listFiles())
+      {
+        Assert.assertTrue(file.delete());
+      }
+      Assert.assertTrue(dir.delete());
+    }
+  }
+
+  /**
+   * Small JSON entities sharing their field names, with random values.
+   */
+  private List<ByteString> samples(int count)
+  {
+    List<ByteString> samples = new ArrayList<ByteString>();
+    for (int i = 0; i < count; i++)
+    {
+      StringBuilder sb = new StringBuilder("{\"elements\":[");
+      for (int j = 0; j < 10; j++)
+      {
+        if (j > 0)
+        {
+          sb.append(',');
+        }
+        sb.append("{\"id\":").append(_random.nextInt(1000000))
+            .append(",\"message\":\"").append(Long.toHexString(_random.nextLong()))
+            .append("\",\"tone\":\"").append(_random.nextBoolean() ? "FRIENDLY" : "SINCERE")
+            .append("\",\"senderId\":").append(_random.nextInt(1000))
+            .append(",\"createdAt\":").append(_random.nextInt(1000000000)).append('}');
+      }
+      sb.append("],\"paging\":{\"count\":10,\"start\":0,\"links\":[]}}");
+      samples.add(ByteString.copyString(sb.toString(), "UTF-8"));
+    }
+    return samples;
+  }
+}
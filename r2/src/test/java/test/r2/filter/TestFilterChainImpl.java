@@ -19,11 +19,16 @@ package test.r2.filter;
 
 import com.linkedin.r2.filter.FilterChain;
 import com.linkedin.r2.filter.FilterChains;
+import com.linkedin.r2.filter.NextStreamFilter;
+import com.linkedin.r2.filter.message.stream.StreamFilter;
 import com.linkedin.r2.message.RequestContext;
 import com.linkedin.r2.message.rest.RestRequestBuilder;
 import com.linkedin.r2.message.rest.RestResponseBuilder;
 import com.linkedin.r2.message.rpc.RpcRequestBuilder;
 import com.linkedin.r2.message.rpc.RpcResponseBuilder;
+import com.linkedin.r2.message.streaming.Messages;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -232,6 +237,29 @@ public class TestFilterChainImpl
     assertMessageCounts(0, 0, 1, filter3);
   }
 
+  @Test
+  public void testStreamFiltersSkipOtherFilters()
+  {
+    final MessageCountFilter messageFilter = new MessageCountFilter();
+    final StreamCountFilter streamFilter1 = new StreamCountFilter();
+    final StreamCountFilter streamFilter2 = new StreamCountFilter();
+    final FilterChain fc = FilterChains.create(streamFilter1, messageFilter, streamFilter2);
+
+    fc.onStreamRequest(Messages.toStreamRequest(new RestRequestBuilder(URI.create("test")).build()),
+                       createRequestContext(), createWireAttributes());
+    fc.onStreamResponse(Messages.toStreamResponse(new RestResponseBuilder().build()),
+                        createRequestContext(), createWireAttributes());
+    fc.onStreamError(new Exception(), createRequestContext(), createWireAttributes());
+
+    assertMessageCounts(0, 0, 0, messageFilter);
+    assertStreamCounts(1, 1, 1, streamFilter1);
+    assertStreamCounts(1, 1, 1, streamFilter2);
+
+    fireRestRequest(fc);
+    assertMessageCounts(1, 0, 0, messageFilter);
+    assertStreamCounts(1, 1, 1, streamFilter1);
+  }
+
   private void fireRpcRequest(FilterChain fc)
   {
     fc.onRpcRequest(new RpcRequestBuilder(URI.create("test")).build(),
@@ -304,4 +332,42 @@ public class TestFilterChainImpl
     Assert.assertEquals(res, filter.getRestResCount());
     Assert.assertEquals(err, filter.getRestErrCount());
   }
+
+  private void assertStreamCounts(int req, int res, int err, StreamCountFilter filter)
+  {
+    Assert.assertEquals(filter._requests, req);
+    Assert.assertEquals(filter._responses, res);
+    Assert.assertEquals(filter._errors, err);
+  }
+
+  private static class StreamCountFilter implements StreamFilter
+  {
+    private int _requests;
+    private int _responses;
+    private int _errors;
+
+    @Override
+    public void onStreamRequest(StreamRequest req, RequestContext requestContext,
+                                Map<String, String> wireAttrs, NextStreamFilter nextFilter)
+    {
+      _requests++;
+      nextFilter.onRequest(req, requestContext, wireAttrs);
+    }
+
+    @Override
+    public void onStreamResponse(StreamResponse res, RequestContext requestContext,
+                                 Map<String, String> wireAttrs, NextStreamFilter nextFilter)
+    {
+      _responses++;
+      nextFilter.onResponse(res, requestContext, wireAttrs);
+    }
+
+    @Override
+    public void onStreamError(Throwable ex, RequestContext requestContext,
+                              Map<String, String> wireAttrs, NextStreamFilter nextFilter)
+    {
+      _errors++;
+      nextFilter.onError(ex, requestContext, wireAttrs);
+    }
+  }
 }
@@ -0,0 +1,234 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package test.r2.filter;
+
+import com.linkedin.common.callback.FutureCallback;
+import com.linkedin.data.ByteString;
+import com.linkedin.r2.filter.NextFilter;
+import com.linkedin.r2.filter.NextStreamFilter;
+import com.linkedin.r2.filter.compression.AbstractCompressor;
+import com.linkedin.r2.filter.compression.CompressionException;
+import com.linkedin.r2.filter.compression.EncodingType;
+import com.linkedin.r2.filter.compression.ServerCompressionFilter;
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.rest.RestResponseBuilder;
+import com.linkedin.r2.message.streaming.EntityStreams;
+import com.linkedin.r2.message.streaming.FullEntityReader;
+import com.linkedin.r2.message.streaming.InputStreamEntityWriter;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
+import com.linkedin.r2.transport.http.common.HttpConstants;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+public class TestServerCompressionFilter
+{
+  private static final EncodingType[] ZLIB_ENCODINGS = { EncodingType.GZIP, EncodingType.DEFLATE };
+
+  @Test
+  public void testByteStringRoundTrip() throws Exception
+  {
+    byte[] content = redundantContent(100000);
+    // several segments, as the entity of an aggregated stream
+    ByteString entity = ByteString.concat(ByteString.copy(content).slice(0, 30000),
+                                          ByteString.copy(content).slice(30000, content.length - 30000));
+
+    for (EncodingType encoding : EncodingType.values())
+    {
+      // the dictionary encoding is covered by TestDictionaryCompression
+      if (!encoding.hasCompressor() || encoding == EncodingType.DEFLATE_DICTIONARY)
+      {
+        continue;
+      }
+      AbstractCompressor compressor = (AbstractCompressor) encoding.getCompressor();
+      ByteString compressed = compressor.deflate(entity, 1.0f);
+      Assert.assertNotNull(compressed, encoding.getHttpName());
+      Assert.assertEquals(compressor.inflate(compressed), entity, encoding.getHttpName());
+      // the encoding is the standard one
+      Assert.assertEquals(compressor.inflate(compressed.asInputStream()), content, encoding.getHttpName());
+      Assert.assertEquals(compressor.inflate(ByteString.copy(compressor.deflate(entity.asInputStream()))),
+                          entity, encoding.getHttpName());
+    }
+  }
+
+  @Test
+  public void testAbandonsIncompressibleContent() throws Exception
+  {
+    byte[] content = new byte[100000];
+    new Random(42).nextBytes(content);
+    for (EncodingType encoding : ZLIB_ENCODINGS)
+    {
+      Assert.assertNull(AbstractCompressor.deflate(encoding.getCompressor(), ByteString.copy(content), 1.0f));
+    }
+  }
+
+  @Test
+  public void testCompressionThreshold()
+  {
+    ServerCompressionFilter filter = new ServerCompressionFilter(ZLIB_ENCODINGS, 1000);
+
+    RestResponse small = compressRestResponse(filter, redundantContent(999));
+    Assert.assertNull(small.getHeader(HttpConstants.CONTENT_ENCODING));
+    Assert.assertEquals(small.getEntity().length(), 999);
+
+    RestResponse large = compressRestResponse(filter, redundantContent(1000));
+    Assert.assertEquals(large.getHeader(HttpConstants.CONTENT_ENCODING), "gzip");
+    Assert.assertTrue(large.getEntity().length() < 1000);
+  }
+
+  @Test
+  public void testInflateMultipleGzipMembers() throws Exception
+  {
+    byte[] first = redundantContent(50000);
+    byte[] second = "second member".getBytes("UTF-8");
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (byte[] member : new byte[][] { first, second })
+    {
+      GZIPOutputStream gzip = new GZIPOutputStream(out);
+      gzip.write(member);
+      gzip.finish();
+    }
+    byte[] compressed = out.toByteArray();
+
+    byte[] expected = new byte[first.length + second.length];
+    System.arraycopy(first, 0, expected, 0, first.length);
+    System.arraycopy(second, 0, expected, first.length, second.length);
+    AbstractCompressor compressor = (AbstractCompressor) EncodingType.GZIP.getCompressor();
+    Assert.assertEquals(compressor.inflate(ByteString.copy(compressed)), ByteString.copy(expected));
+    // split inside the second member's header
+    ByteString segmented = ByteString.concat(ByteString.copy(compressed).slice(0, compressed.length - 30),
+                                             ByteString.copy(compressed).slice(compressed.length - 30, 30));
+    Assert.assertEquals(compressor.inflate(segmented), ByteString.copy(expected));
+  }
+
+  @Test(expectedExceptions = CompressionException.class)
+  public void testInflateTruncatedGzipMember() throws Exception
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    GZIPOutputStream gzip = new GZIPOutputStream(out);
+    gzip.write(redundantContent(1000));
+    gzip.finish();
+    byte[] compressed = out.toByteArray();
+    // a second member cut off after its header
+    byte[] truncated = Arrays.copyOf(compressed, compressed.length + 12);
+    System.arraycopy(compressed, 0, truncated, compressed.length, 12);
+
+    ((AbstractCompressor) EncodingType.GZIP.getCompressor()).inflate(ByteString.copy(truncated));
+  }
+
+  @Test
+  public void testStreamResponseCompression() throws Exception
+  {
+    byte[] content = redundantContent(100000);
+    ServerCompressionFilter filter = new ServerCompressionFilter(ZLIB_ENCODINGS);
+    for (EncodingType encoding : ZLIB_ENCODINGS)
+    {
+      RequestContext requestContext = new RequestContext();
+      requestContext.putLocalAttr(HttpConstants.ACCEPT_ENCODING, encoding.getHttpName());
+      StreamResponse response = new StreamResponse(new RestResponseBuilder().build(),
+          EntityStreams.newEntityStream(new InputStreamEntityWriter(new ByteArrayInputStream(content), 1000)));
+
+      StreamCapture capture = new StreamCapture();
+      filter.onStreamResponse(response, requestContext, Collections.<String, String>emptyMap(), capture);
+      Assert.assertEquals(capture._response.getHeader(HttpConstants.CONTENT_ENCODING), encoding.getHttpName());
+
+      FutureCallback<ByteString> callback = new FutureCallback<ByteString>();
+      capture._response.getEntityStream().setReader(new FullEntityReader(callback));
+      ByteString compressed = callback.get(30, TimeUnit.SECONDS);
+      Assert.assertTrue(compressed.length() < content.length);
+      Assert.assertEquals(encoding.getCompressor().inflate(compressed.asInputStream()), content);
+    }
+  }
+
+  private static RestResponse compressRestResponse(ServerCompressionFilter filter, byte[] content)
+  {
+    RequestContext requestContext = new RequestContext();
+    requestContext.putLocalAttr(HttpConstants.ACCEPT_ENCODING, "gzip");
+    final RestResponse[] captured = new RestResponse[1];
+    filter.onRestResponse(new RestResponseBuilder().setEntity(content).build(), requestContext,
+                          Collections.<String, String>emptyMap(),
+                          new NextFilter<RestRequest, RestResponse>()
+                          {
+                            @Override
+                            public void onRequest(RestRequest restRequest, RequestContext requestContext,
+                                                  Map<String, String> wireAttrs)
+                            {
+                              Assert.fail("Unexpected request");
+                            }
+
+                            @Override
+                            public void onResponse(RestResponse restResponse, RequestContext requestContext,
+                                                   Map<String, String> wireAttrs)
+                            {
+                              captured[0] = restResponse;
+                            }
+
+                            @Override
+                            public void onError(Throwable ex, RequestContext requestContext,
+                                                Map<String, String> wireAttrs)
+                            {
+                              Assert.fail("Unexpected error", ex);
+                            }
+                          });
+    return captured[0];
+  }
+
+  private static byte[] redundantContent(int length)
+  {
+    byte[] content = new byte[length];
+    for (int i = 0; i < length; i++)
+    {
+      content[i] = (byte) ('a' + (i / 7) % 13);
+    }
+    return content;
+  }
+
+  private static class StreamCapture implements NextStreamFilter
+  {
+    private StreamResponse _response;
+
+    @Override
+    public void onRequest(StreamRequest req, RequestContext requestContext, Map<String, String> wireAttrs)
+    {
+      Assert.fail("Unexpected request");
+    }
+
+    @Override
+    public void onResponse(StreamResponse res, RequestContext requestContext, Map<String, String> wireAttrs)
+    {
+      _response = res;
+    }
+
+    @Override
+    public void onError(Throwable ex, RequestContext requestContext, Map<String, String> wireAttrs)
+    {
+      Assert.fail("Unexpected error", ex);
+    }
+  }
+}
@@ -0,0 +1,250 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package test.r2.message;
+
+import com.linkedin.common.callback.FutureCallback;
+import com.linkedin.common.util.None;
+import com.linkedin.data.ByteString;
+import com.linkedin.r2.SizeLimitExceededException;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestRequestBuilder;
+import com.linkedin.r2.message.streaming.EntityStream;
+import com.linkedin.r2.message.streaming.EntityStreams;
+import com.linkedin.r2.message.streaming.FullEntityReader;
+import com.linkedin.r2.message.streaming.InputStreamEntityWriter;
+import com.linkedin.r2.message.streaming.Messages;
+import com.linkedin.r2.message.streaming.OutputStreamEntityReader;
+import com.linkedin.r2.message.streaming.ReadHandle;
+import com.linkedin.r2.message.streaming.Reader;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.WriteHandle;
+import com.linkedin.r2.message.streaming.Writer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class TestEntityStreams
+{
+  @Test
+  public void testReaderControlsFlow()
+  {
+    CountingWriter writer = new CountingWriter(10);
+    EntityStream stream = EntityStreams.newEntityStream(writer);
+    RecordingReader reader = new RecordingReader();
+    stream.setReader(reader);
+
+    Assert.assertEquals(reader._chunks.size(), 0);
+    reader._rh.request(3);
+    Assert.assertEquals(reader._chunks.size(), 3);
+    reader._rh.request(10);
+    Assert.assertEquals(reader._chunks.size(), 10);
+    Assert.assertTrue(reader._done);
+    Assert.assertEquals(reader._chunks.get(9), ByteString.copyString("9", "UTF-8"));
+  }
+
+  @Test
+  public void testSynchronousReaderDoesNotRecurse()
+  {
+    // a reader requesting one chunk at a time from a synchronous writer would overflow the
+    // stack if each request called the writer again
+    final int chunks = 100000;
+    EntityStream stream = EntityStreams.newEntityStream(new CountingWriter(chunks));
+    RecordingReader reader = new RecordingReader()
+    {
+      @Override
+      public void onInit(ReadHandle rh)
+      {
+        super.onInit(rh);
+        rh.request(1);
+      }
+
+      @Override
+      public void onDataAvailable(ByteString data)
+      {
+        super.onDataAvailable(data);
+        _rh.request(1);
+      }
+    };
+    stream.setReader(reader);
+    Assert.assertEquals(reader._chunks.size(), chunks);
+    Assert.assertTrue(reader._done);
+  }
+
+  @Test
+  public void testCancel()
+  {
+    CountingWriter writer = new CountingWriter(10);
+    EntityStream stream = EntityStreams.newEntityStream(writer);
+    RecordingReader reader = new RecordingReader();
+    stream.setReader(reader);
+
+    reader._rh.request(2);
+    reader._rh.cancel();
+    Assert.assertNotNull(writer._abort);
+    reader._rh.request(2);
+    Assert.assertEquals(reader._chunks.size(), 2);
+    Assert.assertFalse(reader._done);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void testSingleReader()
+  {
+    EntityStream stream = EntityStreams.emptyStream();
+    stream.setReader(new RecordingReader());
+    stream.setReader(new RecordingReader());
+  }
+
+  @Test
+  public void testFullEntityReader() throws Exception
+  {
+    FutureCallback<ByteString> callback = new FutureCallback<ByteString>();
+    EntityStreams.newEntityStream(new CountingWriter(3)).setReader(new FullEntityReader(callback));
+    Assert.assertEquals(callback.get(30, TimeUnit.SECONDS), ByteString.copyString("012", "UTF-8"));
+
+    callback = new FutureCallback<ByteString>();
+    EntityStreams.emptyStream().setReader(new FullEntityReader(callback));
+    Assert.assertEquals(callback.get(30, TimeUnit.SECONDS), ByteString.empty());
+
+    CountingWriter writer = new CountingWriter(10);
+    callback = new FutureCallback<ByteString>();
+    EntityStreams.newEntityStream(writer).setReader(new FullEntityReader(5, callback));
+    try
+    {
+      callback.get(30, TimeUnit.SECONDS);
+      Assert.fail("Entity should have exceeded the limit");
+    }
+    catch (ExecutionException e)
+    {
+      Assert.assertTrue(e.getCause() instanceof SizeLimitExceededException);
+    }
+    Assert.assertNotNull(writer._abort);
+  }
+
+  @Test
+  public void testInputToOutputStream() throws Exception
+  {
+    byte[] content = new byte[100000];
+    for (int i = 0; i < content.length; i++)
+    {
+      content[i] = (byte) i;
+    }
+    InputStreamEntityWriter writer = new InputStreamEntityWriter(new ByteArrayInputStream(content), 1000);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    FutureCallback<None> callback = new FutureCallback<None>();
+    EntityStreams.newEntityStream(writer).setReader(new OutputStreamEntityReader(out, callback));
+
+    callback.get(30, TimeUnit.SECONDS);
+    Assert.assertEquals(out.toByteArray(), content);
+  }
+
+  @Test
+  public void testMessagesConversion() throws Exception
+  {
+    RestRequest request = new RestRequestBuilder(URI.create("/foo"))
+        .setMethod("PUT")
+        .setHeader("k", "v")
+        .setEntity(ByteString.copyString("entity", "UTF-8"))
+        .build();
+    StreamRequest streamRequest = Messages.toStreamRequest(request);
+    Assert.assertEquals(streamRequest.getURI(), request.getURI());
+    Assert.assertEquals(streamRequest.getMethod(), "PUT");
+    Assert.assertEquals(streamRequest.getHeader("k"), "v");
+
+    FutureCallback<RestRequest> callback = new FutureCallback<RestRequest>();
+    Messages.toRestRequest(streamRequest, callback);
+    Assert.assertEquals(callback.get(30, TimeUnit.SECONDS), request);
+  }
+
+  /**
+   * Writes the given number of chunks, each the string of its index, synchronously.
+   */
+  private static class CountingWriter implements Writer
+  {
+    private final int _chunks;
+    private int _written = 0;
+    private WriteHandle _wh;
+    private Throwable _abort;
+
+    private CountingWriter(int chunks)
+    {
+      _chunks = chunks;
+    }
+
+    @Override
+    public void onInit(WriteHandle wh)
+    {
+      _wh = wh;
+    }
+
+    @Override
+    public void onWritePossible()
+    {
+      while (_wh.remaining() > 0 && _written < _chunks)
+      {
+        _wh.write(ByteString.copyString(String.valueOf(_written++), "UTF-8"));
+      }
+      if (_written == _chunks)
+      {
+        _wh.done();
+      }
+    }
+
+    @Override
+    public void onAbort(Throwable e)
+    {
+      _abort = e;
+    }
+  }
+
+  private static class RecordingReader implements Reader
+  {
+    protected final List<ByteString> _chunks = new ArrayList<ByteString>();
+    protected ReadHandle _rh;
+    protected boolean _done = false;
+
+    @Override
+    public void onInit(ReadHandle rh)
+    {
+      _rh = rh;
+    }
+
+    @Override
+    public void onDataAvailable(ByteString data)
+    {
+      _chunks.add(data);
+    }
+
+    @Override
+    public void onDone()
+    {
+      _done = true;
+    }
+
+    @Override
+    public void onError(Throwable e)
+    {
+      Assert.fail("Unexpected error", e);
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package test.r2.transport.http.client;
+
+import com.linkedin.r2.transport.http.client.ConcurrencyLimiter;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class TestConcurrencyLimiter
+{
+  private static final long LOW_RTT = TimeUnit.MILLISECONDS.toNanos(10);
+  private static final long HIGH_RTT = TimeUnit.MILLISECONDS.toNanos(100);
+
+  @Test
+  public void testRejectsBeyondLimit()
+  {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(5, 1, 100);
+    for (int i = 0; i < 5; i++)
+    {
+      Assert.assertTrue(limiter.tryAcquire());
+    }
+    Assert.assertFalse(limiter.tryAcquire());
+    Assert.assertEquals(limiter.getInFlight(), 5);
+    Assert.assertEquals(limiter.getTotalRejected(), 1);
+
+    limiter.abort();
+    Assert.assertTrue(limiter.tryAcquire());
+  }
+
+  @Test
+  public void testGrowsWhileLatencyIsLow()
+  {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 1, 1000);
+    saturate(limiter, LOW_RTT, 20);
+    Assert.assertTrue(limiter.getLimit() > 10, "limit " + limiter.getLimit());
+  }
+
+  @Test
+  public void testShrinksWhenLatencyGrows()
+  {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(100, 1, 1000);
+    saturate(limiter, LOW_RTT, 1);
+    int limit = limiter.getLimit();
+    saturate(limiter, HIGH_RTT, 5);
+    Assert.assertTrue(limiter.getLimit() < limit, "limit " + limiter.getLimit() + " was " + limit);
+  }
+
+  @Test
+  public void testDoesNotGrowWhenUnused()
+  {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(20, 1, 1000);
+    for (int i = 0; i < 100; i++)
+    {
+      Assert.assertTrue(limiter.tryAcquire());
+      limiter.release(LOW_RTT, false);
+    }
+    Assert.assertEquals(limiter.getLimit(), 20);
+  }
+
+  @Test
+  public void testTimeoutHalvesLimit()
+  {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(40, 1, 100);
+    Assert.assertTrue(limiter.tryAcquire());
+    limiter.release(HIGH_RTT, true);
+    Assert.assertEquals(limiter.getLimit(), 20);
+  }
+
+  @Test
+  public void testBounds()
+  {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(8, 4, 16);
+    saturate(limiter, LOW_RTT, 100);
+    Assert.assertEquals(limiter.getLimit(), 16);
+
+    for (int i = 0; i < 10; i++)
+    {
+      Assert.assertTrue(limiter.tryAcquire());
+      limiter.release(HIGH_RTT, true);
+    }
+    Assert.assertEquals(limiter.getLimit(), 4);
+    Assert.assertEquals(limiter.getInFlight(), 0);
+  }
+
+  /**
+   * Sends as many requests as the limit allows, then completes them all with the round trip time.
+   */
+  private static void saturate(ConcurrencyLimiter limiter, long rttNanos, int rounds)
+  {
+    for (int round = 0; round < rounds; round++)
+    {
+      int acquired = 0;
+      while (limiter.tryAcquire())
+      {
+        acquired++;
+      }
+      for (int i = 0; i < acquired; i++)
+      {
+        limiter.release(rttNanos, false);
+      }
+    }
+  }
+}
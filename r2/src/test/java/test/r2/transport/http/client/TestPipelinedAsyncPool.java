@@ -0,0 +1,148 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package test.r2.transport.http.client;
+
+import com.linkedin.common.callback.FutureCallback;
+import com.linkedin.common.util.None;
+import com.linkedin.r2.transport.http.client.AsyncPool;
+import com.linkedin.r2.transport.http.client.AsyncPoolStats;
+import com.linkedin.r2.transport.http.client.PipelinedAsyncPool;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class TestPipelinedAsyncPool
+{
+  private ScheduledExecutorService _executor = Executors.newSingleThreadScheduledExecutor();
+
+  @AfterClass
+  public void stopExecutor()
+  {
+    _executor.shutdown();
+  }
+
+  private AsyncPool<Object> createPool(TestAsyncPool.SynchronousLifecycle lifecycle, int maxSize, int maxOutstanding)
+  {
+    AsyncPool<Object> pool = new PipelinedAsyncPool<Object>("object pool",
+                                                            lifecycle,
+                                                            maxSize,
+                                                            maxOutstanding,
+                                                            100,
+                                                            _executor,
+                                                            _executor,
+                                                            Integer.MAX_VALUE);
+    pool.start();
+    return pool;
+  }
+
+  private static Object get(AsyncPool<Object> pool) throws Exception
+  {
+    FutureCallback<Object> cb = new FutureCallback<Object>();
+    pool.get(cb);
+    return cb.get(30, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testSharedObjects() throws Exception
+  {
+    TestAsyncPool.SynchronousLifecycle lifecycle = new TestAsyncPool.SynchronousLifecycle();
+    AsyncPool<Object> pool = createPool(lifecycle, 2, 3);
+
+    Object first = get(pool);
+    Assert.assertSame(get(pool), first);
+    Assert.assertSame(get(pool), first);
+    Assert.assertEquals(lifecycle.getLive(), 1);
+
+    // the first object is full, a second one is created
+    Object second = get(pool);
+    Assert.assertNotSame(second, first);
+    Assert.assertEquals(lifecycle.getLive(), 2);
+
+    // the least loaded object is picked
+    Assert.assertSame(get(pool), second);
+    pool.put(first);
+    pool.put(first);
+    Assert.assertSame(get(pool), first);
+
+    AsyncPoolStats stats = pool.getStats();
+    Assert.assertEquals(stats.getCheckedOut(), 4);
+    Assert.assertEquals(stats.getPoolSize(), 2);
+    Assert.assertEquals(stats.getTotalCreated(), 2);
+  }
+
+  @Test
+  public void testWaiterServedOnPut() throws Exception
+  {
+    TestAsyncPool.SynchronousLifecycle lifecycle = new TestAsyncPool.SynchronousLifecycle();
+    AsyncPool<Object> pool = createPool(lifecycle, 1, 2);
+
+    Object obj = get(pool);
+    Assert.assertSame(get(pool), obj);
+
+    FutureCallback<Object> waiter = new FutureCallback<Object>();
+    pool.get(waiter);
+    Assert.assertFalse(waiter.isDone());
+
+    pool.put(obj);
+    Assert.assertSame(waiter.get(30, TimeUnit.SECONDS), obj);
+    Assert.assertEquals(lifecycle.getHighWaterMark(), 1);
+  }
+
+  @Test
+  public void testDisposeForgetsObject() throws Exception
+  {
+    TestAsyncPool.SynchronousLifecycle lifecycle = new TestAsyncPool.SynchronousLifecycle();
+    AsyncPool<Object> pool = createPool(lifecycle, 1, 2);
+
+    Object obj = get(pool);
+    Assert.assertSame(get(pool), obj);
+
+    pool.dispose(obj);
+    Assert.assertEquals(lifecycle.getLive(), 0);
+    // the other user of the disposed object is ignored
+    pool.put(obj);
+    pool.dispose(obj);
+
+    Object newObj = get(pool);
+    Assert.assertNotSame(newObj, obj);
+    AsyncPoolStats stats = pool.getStats();
+    Assert.assertEquals(stats.getCheckedOut(), 1);
+    Assert.assertEquals(stats.getPoolSize(), 1);
+    Assert.assertEquals(stats.getTotalBadDestroyed(), 1);
+  }
+
+  @Test
+  public void testShutdownWaitsForUsers() throws Exception
+  {
+    TestAsyncPool.SynchronousLifecycle lifecycle = new TestAsyncPool.SynchronousLifecycle();
+    AsyncPool<Object> pool = createPool(lifecycle, 1, 2);
+
+    Object obj = get(pool);
+    Assert.assertSame(get(pool), obj);
+
+    FutureCallback<None> shutdown = new FutureCallback<None>();
+    pool.shutdown(shutdown);
+    pool.put(obj);
+    Assert.assertFalse(shutdown.isDone());
+    pool.put(obj);
+    shutdown.get(30, TimeUnit.SECONDS);
+  }
+}
@@ -0,0 +1,176 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+package test.r2.transport.http.client;
+
+import com.linkedin.common.callback.FutureCallback;
+import com.linkedin.common.util.None;
+import com.linkedin.r2.SizeLimitExceededException;
+import com.linkedin.r2.transport.http.client.AsyncPool;
+import com.linkedin.r2.transport.http.client.AsyncPoolStats;
+import com.linkedin.r2.transport.http.client.ShardedAsyncPool;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class TestShardedAsyncPool
+{
+  private ScheduledExecutorService _executor = Executors.newSingleThreadScheduledExecutor();
+
+  @AfterClass
+  public void stopExecutor()
+  {
+    _executor.shutdown();
+  }
+
+  @Test
+  public void testSameThreadReusesObject() throws Exception
+  {
+    TestAsyncPool.SynchronousLifecycle lifecycle = new TestAsyncPool.SynchronousLifecycle();
+    AsyncPool<Object> pool = new ShardedAsyncPool<Object>("object pool", lifecycle, 4, 8, 100, _executor, _executor, Integer.MAX_VALUE);
+    pool.start();
+
+    FutureCallback<Object> cb = new FutureCallback<Object>();
+    pool.get(cb);
+    Object obj = cb.get(30, TimeUnit.SECONDS);
+    pool.put(obj);
+
+    cb = new FutureCallback<Object>();
+    pool.get(cb);
+    Assert.assertSame(cb.get(30, TimeUnit.SECONDS), obj);
+    Assert.assertEquals(lifecycle.getLive(), 1);
+
+    AsyncPoolStats stats = pool.getStats();
+    Assert.assertEquals(stats.getCheckedOut(), 1);
+    Assert.assertEquals(stats.getPoolSize(), 1);
+    Assert.assertEquals(stats.getMaxPoolSize(), 8);
+
+    pool.dispose(obj);
+    Assert.assertEquals(lifecycle.getLive(), 0);
+    Assert.assertEquals(pool.getStats().getCheckedOut(), 0);
+
+    FutureCallback<None> shutdown = new FutureCallback<None>();
+    pool.shutdown(shutdown);
+    shutdown.get(30, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testGetFromOtherShards() throws Exception
+  {
+    final int SHARDS = 4;
+    TestAsyncPool.SynchronousLifecycle lifecycle = new TestAsyncPool.SynchronousLifecycle();
+    AsyncPool<Object> pool = new ShardedAsyncPool<Object>("object pool", lifecycle, SHARDS, SHARDS, 100, _executor, _executor, SHARDS);
+    pool.start();
+
+    // the shard of this thread holds a single object, so the others come from the other shards
+    List<Object> objects = new ArrayList<Object>();
+    for (int i = 0; i < SHARDS; i++)
+    {
+      FutureCallback<Object> cb = new FutureCallback<Object>();
+      pool.get(cb);
+      objects.add(cb.get(30, TimeUnit.SECONDS));
+    }
+    Assert.assertEquals(lifecycle.getLive(), SHARDS);
+
+    // and so do the waiters, until the waiters of every shard are full
+    List<FutureCallback<Object>> waiters = new ArrayList<FutureCallback<Object>>();
+    for (int i = 0; i < SHARDS; i++)
+    {
+      FutureCallback<Object> cb = new FutureCallback<Object>();
+      pool.get(cb);
+      Assert.assertFalse(cb.isDone());
+      waiters.add(cb);
+    }
+    FutureCallback<Object> rejected = new FutureCallback<Object>();
+    pool.get(rejected);
+    try
+    {
+      rejected.get(30, TimeUnit.SECONDS);
+      Assert.fail("Should be rejected once the waiters of every shard are full");
+    }
+    catch (ExecutionException e)
+    {
+      Assert.assertTrue(e.getCause() instanceof SizeLimitExceededException);
+    }
+
+    for (Object obj : objects)
+    {
+      pool.put(obj);
+    }
+    for (FutureCallback<Object> cb : waiters)
+    {
+      pool.put(cb.get(30, TimeUnit.SECONDS));
+    }
+    Assert.assertEquals(lifecycle.getLive(), SHARDS);
+    Assert.assertEquals(pool.getStats().getCheckedOut(), 0);
+
+    FutureCallback<None> shutdown = new FutureCallback<None>();
+    pool.shutdown(shutdown);
+    shutdown.get(30, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testMaxSize() throws Exception
+  {
+    final int ITERATIONS = 1000;
+    final int THREADS = 100;
+    final int POOL_SIZE = 24;
+    TestAsyncPool.SynchronousLifecycle lifecycle = new TestAsyncPool.SynchronousLifecycle();
+    final AsyncPool<Object> pool = new ShardedAsyncPool<Object>("object pool", lifecycle, 4, POOL_SIZE, 100, _executor, _executor, Integer.MAX_VALUE);
+    pool.start();
+
+    Runnable r = new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        for (int i = 0; i < ITERATIONS; i++)
+        {
+          FutureCallback<Object> cb = new FutureCallback<Object>();
+          pool.get(cb);
+          try
+          {
+            pool.put(cb.get());
+          }
+          catch (Exception e)
+          {
+            Assert.fail("Unexpected failure", e);
+          }
+        }
+      }
+    };
+    List<Thread> threads = new ArrayList<Thread>(THREADS);
+    for (int i = 0; i < THREADS; i++)
+    {
+      Thread t = new Thread(r);
+      t.start();
+      threads.add(t);
+    }
+    for (Thread t : threads)
+    {
+      t.join();
+    }
+    Assert.assertTrue(lifecycle.getHighWaterMark() <= POOL_SIZE, "High water mark exceeded " + POOL_SIZE);
+    Assert.assertEquals(pool.getStats().getCheckedOut(), 0);
+  }
+}
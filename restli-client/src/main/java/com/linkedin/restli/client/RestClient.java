@@ -30,7 +30,10 @@ import com.linkedin.r2.message.RequestContext;
 import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.r2.message.rest.RestRequestBuilder;
 import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.streaming.Messages;
+import com.linkedin.r2.message.streaming.StreamResponse;
 import com.linkedin.r2.transport.common.Client;
+import com.linkedin.r2.transport.common.StreamClient;
 import com.linkedin.restli.client.uribuilders.RestliUriBuilderUtil;
 import com.linkedin.restli.common.CollectionRequest;
 import com.linkedin.restli.common.HttpMethod;
@@ -110,6 +113,7 @@ public class RestClient
   private final String _uriPrefix;
   private final List<AcceptType> _acceptTypes;
   private final ContentType _contentType;
+  private final boolean _streamResponses;
   // Maps service names to the version of Rest.li running on that service. This is used to decide which wire protocol
   // to use while communicating with the service.
   private final Map<String, String> _serviceToVersionMapping;
@@ -125,12 +129,29 @@ public class RestClient
   }
 
   public RestClient(Client client, String uriPrefix, ContentType contentType, List<AcceptType> acceptTypes)
+  {
+    this(client, uriPrefix, contentType, acceptTypes, false);
+  }
+
+  /**
+   * @param streamResponses if true and the client is a {@link StreamClient}, type-bound requests are sent
+   *                        as {@link com.linkedin.r2.message.streaming.StreamRequest}s and the entity of
+   *                        the response is decoded chunk by chunk while it is received, without being
+   *                        aggregated first. Streamed messages only go through the stream filters of the
+   *                        filter chain of the client, see {@link com.linkedin.r2.filter.FilterChain}.
+   */
+  public RestClient(Client client,
+                    String uriPrefix,
+                    ContentType contentType,
+                    List<AcceptType> acceptTypes,
+                    boolean streamResponses)
   {
     this(client,
          uriPrefix,
          contentType,
          acceptTypes,
-         Collections.<String, String>emptyMap());
+         Collections.<String, String>emptyMap(),
+         streamResponses);
   }
 
   RestClient(Client client,
@@ -138,11 +159,22 @@ public class RestClient
                     ContentType contentType,
                     List<AcceptType> acceptTypes,
                     Map<String, String> serviceToVersionMapping)
+  {
+    this(client, uriPrefix, contentType, acceptTypes, serviceToVersionMapping, false);
+  }
+
+  RestClient(Client client,
+                    String uriPrefix,
+                    ContentType contentType,
+                    List<AcceptType> acceptTypes,
+                    Map<String, String> serviceToVersionMapping,
+                    boolean streamResponses)
   {
     _client = client;
     _uriPrefix = (uriPrefix == null) ? null : uriPrefix.trim();
     _acceptTypes = acceptTypes;
     _contentType = contentType;
+    _streamResponses = streamResponses && client instanceof StreamClient;
     _serviceToVersionMapping = (serviceToVersionMapping == null)
         ? Collections.<String, String>emptyMap() : Collections.unmodifiableMap(serviceToVersionMapping);
   }
@@ -236,7 +268,17 @@ public class RestClient
                               RequestContext requestContext,
                               Callback<Response<T>> callback)
   {
-    sendRestRequest(request, requestContext, new RestLiCallbackAdapter<T>(request.getResponseDecoder(), callback));
+    if (_streamResponses)
+    {
+      sendRequestImpl(request,
+                      requestContext,
+                      null,
+                      new RestLiStreamCallbackAdapter<T>(request.getResponseDecoder(), callback));
+    }
+    else
+    {
+      sendRestRequest(request, requestContext, new RestLiCallbackAdapter<T>(request.getResponseDecoder(), callback));
+    }
   }
 
 /**
@@ -246,10 +288,23 @@ public class RestClient
    * @param requestContext context for the request
    * @param callback to call on request completion
    */
-  @SuppressWarnings("deprecation")
   public <T> void sendRestRequest(final Request<T> request,
                                   RequestContext requestContext,
                                   Callback<RestResponse> callback)
+  {
+    sendRequestImpl(request, requestContext, callback, null);
+  }
+
+  /**
+   * Sends the request as a {@link RestRequest} to the callback of the {@link RestResponse}, or
+   * as a {@link com.linkedin.r2.message.streaming.StreamRequest} to the callback of the
+   * {@link StreamResponse} if it is not null.
+   */
+  @SuppressWarnings("deprecation")
+  private <T> void sendRequestImpl(final Request<T> request,
+                                   RequestContext requestContext,
+                                   Callback<RestResponse> callback,
+                                   Callback<StreamResponse> streamCallback)
   {
     RecordTemplate input = request.getInputRecord();
     String serviceName = request.getServiceName();
@@ -280,7 +335,8 @@ public class RestClient
                     request.getHeaders(),
                     request.getMethodName(),
                     protocolVersion,
-                    callback);
+                    callback,
+                    streamCallback);
   }
 
   /**
@@ -527,6 +583,8 @@ public class RestClient
    *                 will receive a {@link com.linkedin.r2.RemoteInvocationException}. If a valid
    *                 error response was received from the remote server, the callback will receive
    *                 a {@link com.linkedin.r2.message.rest.RestException} containing the error details.
+   * @param streamCallback if not null, the request is streamed and this callback is called instead of
+   *                       {@code callback}.
    */
   private void sendRequestImpl(RequestContext requestContext,
                                URI uri,
@@ -536,19 +594,34 @@ public class RestClient
                                Map<String, String> headers,
                                String methodName,
                                ProtocolVersion protocolVersion,
-                               Callback<RestResponse> callback)
+                               Callback<RestResponse> callback,
+                               Callback<StreamResponse> streamCallback)
   {
     try
     {
       RestRequest request = buildRequest(uri, hasPrefix, method, dataMap, headers, protocolVersion);
       String operation = OperationNameGenerator.generate(method, methodName);
       requestContext.putLocalAttr(R2Constants.OPERATION, operation);
-      _client.restRequest(request, requestContext, callback);
+      if (streamCallback != null)
+      {
+        ((StreamClient) _client).streamRequest(Messages.toStreamRequest(request), requestContext, streamCallback);
+      }
+      else
+      {
+        _client.restRequest(request, requestContext, callback);
+      }
     }
     catch (Exception e)
     {
       // No need to wrap the exception; RestLiCallbackAdapter.onError() will take care of that
-      callback.onError(e);
+      if (streamCallback != null)
+      {
+        streamCallback.onError(e);
+      }
+      else
+      {
+        callback.onError(e);
+      }
     }
   }
 
@@ -658,4 +731,45 @@ public class RestClient
       return ExceptionUtil.exceptionForThrowable(error, _decoder);
     }
   }
+
+  /**
+   * Decodes the entity of a streamed response while it is received, see
+   * {@link RestResponseDecoder#decodeResponse(StreamResponse, Callback)}.
+   */
+  private static class RestLiStreamCallbackAdapter<T> implements Callback<StreamResponse>
+  {
+    private final RestResponseDecoder<T> _decoder;
+    private final Callback<Response<T>> _callback;
+
+    private RestLiStreamCallbackAdapter(RestResponseDecoder<T> decoder, Callback<Response<T>> callback)
+    {
+      _decoder = decoder;
+      _callback = callback;
+    }
+
+    @Override
+    public void onSuccess(StreamResponse response)
+    {
+      _decoder.decodeResponse(response, new Callback<Response<T>>()
+      {
+        @Override
+        public void onSuccess(Response<T> result)
+        {
+          _callback.onSuccess(result);
+        }
+
+        @Override
+        public void onError(Throwable e)
+        {
+          RestLiStreamCallbackAdapter.this.onError(e);
+        }
+      });
+    }
+
+    @Override
+    public void onError(Throwable e)
+    {
+      _callback.onError(ExceptionUtil.exceptionForThrowable(e, _decoder));
+    }
+  }
 }
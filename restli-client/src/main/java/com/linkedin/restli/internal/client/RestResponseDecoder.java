@@ -23,12 +23,19 @@ package com.linkedin.restli.internal.client;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
 
+import com.linkedin.common.callback.Callback;
 import com.linkedin.data.ByteString;
 import com.linkedin.data.DataMap;
 import com.linkedin.data.codec.JacksonDataCodec;
+import com.linkedin.data.codec.NonBlockingDataCodec;
+import com.linkedin.data.codec.NonBlockingDataDecoder;
 import com.linkedin.data.codec.PsonDataCodec;
 import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.streaming.ReadHandle;
+import com.linkedin.r2.message.streaming.Reader;
+import com.linkedin.r2.message.streaming.StreamResponse;
 import com.linkedin.restli.client.Response;
 import com.linkedin.restli.client.RestLiDecodingException;
 import com.linkedin.restli.common.RestConstants;
@@ -47,21 +54,18 @@ public abstract class RestResponseDecoder<T>
 
   public Response<T> decodeResponse(RestResponse restResponse) throws RestLiDecodingException
   {
-    ResponseImpl<T> response = new ResponseImpl<T>(restResponse.getStatus(), restResponse.getHeaders());
-
     ByteString entity = restResponse.builder().getEntity();
     if (entity.length() == 0)
     {
-      return response;
+      return toResponse(restResponse, null);
     }
 
     InputStream inputStream = entity.asInputStream();
 
+    DataMap dataMap;
     try
     {
-      DataMap dataMap;
-      if ((RestConstants.HEADER_VALUE_APPLICATION_PSON)
-              .equalsIgnoreCase(restResponse.getHeader(RestConstants.HEADER_CONTENT_TYPE)))
+      if (isPson(restResponse))
       {
         dataMap = PSON_DATA_CODEC.readMap(inputStream);
       }
@@ -69,6 +73,40 @@ public abstract class RestResponseDecoder<T>
       {
         dataMap = JACKSON_DATA_CODEC.readMap(inputStream);
       }
+    }
+    catch (IOException e)
+    {
+      throw new RestLiDecodingException("Could not decode REST response", e);
+    }
+    return toResponse(restResponse, dataMap);
+  }
+
+  /**
+   * Reads the entity of a streamed response and de-serializes it chunk by chunk as the chunks
+   * arrive, with the {@link NonBlockingDataDecoder} of the codec of the response content type,
+   * then invokes the callback with the type-bound response. The entity is not aggregated.
+   *
+   * @param streamResponse provides the status, the headers and the entity of the response.
+   * @param callback is invoked with the type-bound response, or with a {@link RestLiDecodingException}
+   *                 if the entity cannot be decoded, or with the error of the entity stream.
+   */
+  public void decodeResponse(StreamResponse streamResponse, Callback<Response<T>> callback)
+  {
+    RestResponse head = streamResponse.getHead();
+    NonBlockingDataCodec codec = isPson(head) ? PSON_DATA_CODEC : JACKSON_DATA_CODEC;
+    streamResponse.getEntityStream().setReader(new EntityReader(head, codec.createMapDecoder(), callback));
+  }
+
+  private Response<T> toResponse(RestResponse restResponse, DataMap dataMap) throws RestLiDecodingException
+  {
+    ResponseImpl<T> response = new ResponseImpl<T>(restResponse.getStatus(), restResponse.getHeaders());
+    if (dataMap == null)
+    {
+      return response;
+    }
+
+    try
+    {
       response.setEntity(wrapResponse(dataMap));
       return response;
     }
@@ -94,8 +132,108 @@ public abstract class RestResponseDecoder<T>
     }
   }
 
+  private static boolean isPson(RestResponse restResponse)
+  {
+    return (RestConstants.HEADER_VALUE_APPLICATION_PSON)
+        .equalsIgnoreCase(restResponse.getHeader(RestConstants.HEADER_CONTENT_TYPE));
+  }
+
   public abstract Class<?> getEntityClass();
 
   public abstract T wrapResponse(DataMap dataMap)
                   throws InstantiationException, IllegalAccessException, InvocationTargetException, NoSuchMethodException, IOException;
+
+  /**
+   * Feeds the chunks of the entity to a {@link NonBlockingDataDecoder}, one chunk at a time.
+   */
+  private class EntityReader implements Reader
+  {
+    private final RestResponse _head;
+    private final NonBlockingDataDecoder<DataMap> _dataDecoder;
+    private final Callback<Response<T>> _callback;
+    private ReadHandle _rh;
+    private boolean _empty = true;
+    private boolean _failed = false;
+
+    private EntityReader(RestResponse head, NonBlockingDataDecoder<DataMap> dataDecoder, Callback<Response<T>> callback)
+    {
+      _head = head;
+      _dataDecoder = dataDecoder;
+      _callback = callback;
+    }
+
+    @Override
+    public void onInit(ReadHandle rh)
+    {
+      _rh = rh;
+      rh.request(1);
+    }
+
+    @Override
+    public void onDataAvailable(ByteString data)
+    {
+      if (_failed)
+      {
+        return;
+      }
+      try
+      {
+        for (ByteBuffer buffer : data.asByteBuffers())
+        {
+          if (buffer.hasRemaining())
+          {
+            _empty = false;
+            _dataDecoder.feed(buffer);
+          }
+        }
+      }
+      catch (IOException e)
+      {
+        _failed = true;
+        _rh.cancel();
+        _callback.onError(new RestLiDecodingException("Could not decode REST response", e));
+        return;
+      }
+      _rh.request(1);
+    }
+
+    @Override
+    public void onDone()
+    {
+      if (_failed)
+      {
+        return;
+      }
+      Response<T> response;
+      try
+      {
+        response = toResponse(_head, _empty ? null : _dataDecoder.complete());
+      }
+      catch (IOException e)
+      {
+        _callback.onError(new RestLiDecodingException("Could not decode REST response", e));
+        return;
+      }
+      catch (RestLiDecodingException e)
+      {
+        _callback.onError(e);
+        return;
+      }
+      catch (RuntimeException e)
+      {
+        _callback.onError(e);
+        return;
+      }
+      _callback.onSuccess(response);
+    }
+
+    @Override
+    public void onError(Throwable e)
+    {
+      if (!_failed)
+      {
+        _callback.onError(e);
+      }
+    }
+  }
 }
@@ -26,6 +26,7 @@ import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.restli.common.ResourceSpecImpl;
 import java.io.IOException;
 import java.net.URI;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -42,6 +43,7 @@ import org.testng.annotations.Test;
 import com.linkedin.common.callback.Callback;
 import com.linkedin.common.callback.FutureCallback;
 import com.linkedin.common.util.None;
+import com.linkedin.data.ByteString;
 import com.linkedin.data.DataMap;
 import com.linkedin.data.codec.JacksonDataCodec;
 import com.linkedin.data.template.RecordTemplate;
@@ -49,7 +51,16 @@ import com.linkedin.r2.RemoteInvocationException;
 import com.linkedin.r2.message.rest.RestException;
 import com.linkedin.r2.message.rest.RestResponse;
 import com.linkedin.r2.message.rest.RestResponseBuilder;
+import com.linkedin.r2.message.streaming.EntityStreams;
+import com.linkedin.r2.message.streaming.StreamRequest;
+import com.linkedin.r2.message.streaming.StreamResponse;
+import com.linkedin.r2.message.streaming.WriteHandle;
+import com.linkedin.r2.message.streaming.Writer;
 import com.linkedin.r2.transport.common.Client;
+import com.linkedin.r2.transport.common.StreamClient;
+import com.linkedin.r2.transport.common.bridge.client.TransportCallbackAdapter;
+import com.linkedin.r2.transport.common.bridge.common.TransportResponseImpl;
+import com.linkedin.r2.transport.http.common.HttpBridge;
 import com.linkedin.restli.common.EmptyRecord;
 import com.linkedin.restli.common.ErrorResponse;
 import com.linkedin.restli.common.RestConstants;
@@ -374,6 +385,93 @@ public class RestClientTest
     }
   }
 
+  @Test
+  public void testStreamedResponse()
+    throws ExecutionException, RemoteInvocationException, InterruptedException, IOException
+  {
+    ErrorResponse er = new ErrorResponse();
+    er.setMessage("streamed");
+    er.setServiceErrorCode(42);
+    byte[] bytes = new JacksonDataCodec().mapToBytes(er.data());
+
+    StreamMockClient mockClient = new StreamMockClient(200, Collections.<String, String>emptyMap(), bytes);
+    RestClient client = new RestClient(mockClient,
+                                       "http://localhost",
+                                       RestClient.ContentType.JSON,
+                                       Collections.<RestClient.AcceptType>emptyList(),
+                                       true);
+    Response<ErrorResponse> response = client.sendRequest(mockRequest(ErrorResponse.class)).getResponse();
+
+    Assert.assertEquals(mockClient._streamedRequests, 1);
+    Assert.assertEquals(response.getStatus(), 200);
+    Assert.assertEquals(response.getEntity(), er);
+  }
+
+  @Test
+  public void testStreamedErrorResponse() throws InterruptedException
+  {
+    StreamMockClient mockClient = new StreamMockClient(200, Collections.<String, String>emptyMap(), "{\"message\": ".getBytes());
+    RestClient client = new RestClient(mockClient,
+                                       "http://localhost",
+                                       RestClient.ContentType.JSON,
+                                       Collections.<RestClient.AcceptType>emptyList(),
+                                       true);
+    try
+    {
+      client.sendRequest(mockRequest(ErrorResponse.class)).get();
+      Assert.fail("Should have thrown");
+    }
+    catch (ExecutionException e)
+    {
+      Assert.assertTrue(e.getCause() instanceof RestLiDecodingException, e.getCause().toString());
+    }
+  }
+
+  @Test(dataProvider = "sendRequestOptions")
+  public void testStreamedRestLiResponseExceptionCallback(SendRequestOption option, TimeoutOption timeoutOption)
+    throws InterruptedException, TimeoutException
+  {
+    ErrorResponse er = new ErrorResponse();
+    er.setMessage("whoops");
+    er.setServiceErrorCode(666);
+    byte[] bytes;
+    try
+    {
+      bytes = new JacksonDataCodec().mapToBytes(er.data());
+    }
+    catch (IOException e)
+    {
+      throw new RuntimeException(e);
+    }
+    Map<String, String> headers = new HashMap<String, String>();
+    headers.put(RestConstants.HEADER_LINKEDIN_ERROR_RESPONSE, RestConstants.HEADER_VALUE_ERROR_APPLICATION);
+    RestClient client = new RestClient(new StreamMockClient(400, headers, bytes),
+                                       "http://localhost",
+                                       RestClient.ContentType.JSON,
+                                       Collections.<RestClient.AcceptType>emptyList(),
+                                       true);
+    Request<EmptyRecord> request = mockRequest(EmptyRecord.class);
+
+    FutureCallback<Response<EmptyRecord>> callback = new FutureCallback<Response<EmptyRecord>>();
+    sendRequest(option, client, request, mockRequestBuilder(request), callback);
+    try
+    {
+      Long l = timeoutOption._l;
+      TimeUnit timeUnit = timeoutOption._timeUnit;
+      Response<EmptyRecord> response = l == null ? callback.get() : callback.get(l, timeUnit);
+      Assert.fail("Should have thrown");
+    }
+    catch (ExecutionException e)
+    {
+      Throwable cause = e.getCause();
+      Assert.assertTrue(cause instanceof RestLiResponseException, "Expected RestLiResponseException not " + cause.getClass().getName());
+      RestLiResponseException rlre = (RestLiResponseException) cause;
+      Assert.assertEquals(rlre.getStatus(), 400);
+      Assert.assertEquals(rlre.getServiceErrorCode(), 666);
+      Assert.assertEquals(rlre.getServiceErrorMessage(), "whoops");
+    }
+  }
+
   private ErrorHandlingBehavior determineErrorHandlingBehavior(GetResponseOption getResponseOption)
   {
     switch (getResponseOption)
@@ -630,6 +728,67 @@ public class RestClientTest
     }
   }
 
+  /**
+   * Streams the body of the response in chunks of a few bytes.
+   */
+  private static class StreamMockClient extends MockClient implements StreamClient
+  {
+    private int _streamedRequests;
+
+    private StreamMockClient(int httpCode, Map<String, String> headers, byte[] bytes)
+    {
+      super(httpCode, headers, bytes);
+    }
+
+    @Override
+    public void streamRequest(StreamRequest request, Callback<StreamResponse> callback)
+    {
+      streamRequest(request, new RequestContext(), callback);
+    }
+
+    @Override
+    public void streamRequest(StreamRequest request, RequestContext requestContext, Callback<StreamResponse> callback)
+    {
+      _streamedRequests++;
+      final byte[] body = body();
+      RestResponse head = new RestResponseBuilder().setStatus(status()).setHeaders(headers()).build();
+      StreamResponse response = new StreamResponse(head, EntityStreams.newEntityStream(new Writer()
+      {
+        private WriteHandle _wh;
+        private int _offset;
+
+        @Override
+        public void onInit(WriteHandle wh)
+        {
+          _wh = wh;
+        }
+
+        @Override
+        public void onWritePossible()
+        {
+          while (_offset < body.length && _wh.remaining() > 0)
+          {
+            int length = Math.min(3, body.length - _offset);
+            _wh.write(ByteString.copy(Arrays.copyOfRange(body, _offset, _offset + length)));
+            _offset += length;
+          }
+          if (_offset == body.length)
+          {
+            _offset++;
+            _wh.done();
+          }
+        }
+
+        @Override
+        public void onAbort(Throwable e)
+        {
+        }
+      }));
+      HttpBridge.streamToHttpCallback(new TransportCallbackAdapter<StreamResponse>(callback), request)
+          .onResponse(TransportResponseImpl.success(response));
+    }
+  }
+
   private RestClient mockClient(String errKey, String errValue, String errMsg, int httpCode, int appCode)
   {
     ErrorResponse er = new ErrorResponse();
@@ -22,8 +22,10 @@ package com.linkedin.restli.client;
 
 
 import com.linkedin.common.callback.Callback;
+import com.linkedin.d2.balancer.AbstractKeyMapper;
 import com.linkedin.d2.balancer.KeyMapper;
 import com.linkedin.d2.balancer.ServiceUnavailableException;
+import com.linkedin.d2.balancer.util.MapKeyIndexResult;
 import com.linkedin.d2.balancer.util.MapKeyResult;
 import com.linkedin.data.schema.PathSpec;
 import com.linkedin.data.template.RecordTemplate;
@@ -37,9 +39,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * @author Josh Walker
@@ -69,19 +71,18 @@ public class ScatterGatherBuilder<T extends RecordTemplate>
   public ScatterGatherResult<T> buildRequestsV2(BatchGetRequest<T> request, RequestContext requestContext) throws
           ServiceUnavailableException
   {
-    Set<Object> idObjects = request.getObjectIds();
+    List<Object> keys = toDistinctKeys(request.getObjectIds());
 
-    MapKeyResult<URI, Object> mapKeyResult = mapKeys(request, idObjects);
+    MapKeyIndexResult<URI> mapKeyResult = mapKeys(request, keys);
 
-    Map<URI, Collection<Object>> batches = mapKeyResult.getMapResult();
-    Collection<RequestInfo<T>> scatterGatherRequests = new ArrayList<RequestInfo<T>>(batches.size());
+    Collection<RequestInfo<T>> scatterGatherRequests = new ArrayList<RequestInfo<T>>(mapKeyResult.getHostCount());
 
-    for (Map.Entry<URI, Collection<Object>> batch : batches.entrySet())
+    for (int hostIndex = 0; hostIndex < mapKeyResult.getHostCount(); hostIndex++)
     {
       BatchGetRequestBuilder<Object, T> builder = new BatchGetRequestBuilder<Object, T>(request.getBaseUriTemplate(),
                                                                                         request.getResponseDecoder(),
                                                                                         request.getResourceSpec());
-      builder.ids(batch.getValue());
+      builder.ids(getHostKeys(mapKeyResult, hostIndex, keys));
       builder.fields(request.getFields().toArray(new PathSpec[0]));
       for (Map.Entry<String,String> header : request.getHeaders().entrySet())
       {
@@ -89,31 +90,24 @@ public class ScatterGatherBuilder<T extends RecordTemplate>
       }
 
       RequestContext context = requestContext.clone();
-      KeyMapper.TargetHostHints.setRequestContextTargetHost(context, batch.getKey());
+      KeyMapper.TargetHostHints.setRequestContextTargetHost(context, mapKeyResult.getHost(hostIndex));
 
       scatterGatherRequests.add(new RequestInfo<T>(builder.build(), context));
     }
 
-    return new ScatterGatherResult<T>(scatterGatherRequests, mapKeyResult.getUnmappedKeys());
+    return new ScatterGatherResult<T>(scatterGatherRequests, getUnmappedKeys(mapKeyResult, keys));
   }
 
   public <K> KVScatterGatherResult<K, UpdateStatus> buildRequests(BatchUpdateRequest<K, T> request, RequestContext requestContext) throws
     ServiceUnavailableException
   {
-    Set<Object> idObjects = request.getObjectIds();
-    Collection<K> ids = new HashSet<K>(idObjects.size());
-    for (Object o : idObjects)
-    {
-      @SuppressWarnings("unchecked")
-      K k = (K) o;
-      ids.add(k);
-    }
+    List<K> keys = toDistinctKeys(request.getObjectIds());
 
-    MapKeyResult<URI, K> mapKeyResult = mapKeys(request, ids);
+    MapKeyIndexResult<URI> mapKeyResult = mapKeys(request, keys);
 
     @SuppressWarnings("unchecked")
     Class<T> tClass = (Class<T>) request.getResourceSpec().getValueClass();
-    Map<URI, Map<K, T>> batches = keyMapToInput(mapKeyResult, request, tClass);
+    Map<URI, Map<K, T>> batches = keyMapToInput(mapKeyResult, keys, request);
     Collection<KVRequestInfo<K, UpdateStatus>> scatterGatherRequests = new ArrayList<KVRequestInfo<K, UpdateStatus>>(batches.size());
 
     for (Map.Entry<URI, Map<K, T>> batch : batches.entrySet())
@@ -134,10 +128,10 @@ public class ScatterGatherBuilder<T extends RecordTemplate>
       scatterGatherRequests.add(new KVRequestInfo<K, UpdateStatus>(builder.build(), context));
     }
 
-    return new KVScatterGatherResult<K, UpdateStatus>(scatterGatherRequests, mapKeyResult.getUnmappedKeys());
+    return new KVScatterGatherResult<K, UpdateStatus>(scatterGatherRequests, getUnmappedKeys(mapKeyResult, keys));
   }
 
-  private <K> MapKeyResult<URI, K> mapKeys(BatchRequest<?> request, Collection<K> ids)
+  private MapKeyIndexResult<URI> mapKeys(BatchRequest<?> request, List<?> keys)
     throws ServiceUnavailableException
   {
     URI serviceUri;
@@ -150,26 +144,54 @@ public class ScatterGatherBuilder<T extends RecordTemplate>
       throw new IllegalArgumentException(e);
     }
 
-    return _mapper.mapKeysV2(serviceUri, ids);
+    return AbstractKeyMapper.mapKeyIndexes(_mapper, serviceUri, keys.toArray());
+  }
+
+  // keys are mapped by their index, so each id must appear only once in the key list
+  @SuppressWarnings("unchecked")
+  private static <K> List<K> toDistinctKeys(Collection<?> ids)
+  {
+    // the ids of a request on keys of type K are all K
+    return new ArrayList<K>(new LinkedHashSet<K>((Collection<K>) ids));
+  }
+
+  private static <K> List<K> getHostKeys(MapKeyIndexResult<URI> mapKeyResult, int hostIndex, List<K> keys)
+  {
+    int keyCount = mapKeyResult.getKeyCount(hostIndex);
+    List<K> hostKeys = new ArrayList<K>(keyCount);
+    for (int i = 0; i < keyCount; i++)
+    {
+      hostKeys.add(keys.get(mapKeyResult.getKeyIndex(hostIndex, i)));
+    }
+    return hostKeys;
+  }
+
+  private static <K> Collection<MapKeyResult.UnmappedKey<K>> getUnmappedKeys(MapKeyIndexResult<URI> mapKeyResult, List<K> keys)
+  {
+    int unmappedKeyCount = mapKeyResult.getUnmappedKeyCount();
+    List<MapKeyResult.UnmappedKey<K>> unmappedKeys = new ArrayList<MapKeyResult.UnmappedKey<K>>(unmappedKeyCount);
+    for (int i = 0; i < unmappedKeyCount; i++)
+    {
+      unmappedKeys.add(new MapKeyResult.UnmappedKey<K>(keys.get(mapKeyResult.getUnmappedKeyIndex(i)),
+                                                       mapKeyResult.getUnmappedKeyErrorType(i)));
+    }
+    return unmappedKeys;
   }
 
   /**
-   * Helper function to map services to inputs, rather than services to ids.
+   * Helper function to map hosts to inputs, rather than hosts to ids.
    * Each input is represented by a Map from keys to {@link RecordTemplate}s.
    *
-   * Essentially, instead of calling {@link com.linkedin.d2.balancer.util.MapKeyResult#getMapResult()}
-   * to get a map from services to keys, you would instead call this to get a map from services to inputs.
    * You can then use this input to create a new BatchRequest by calling
    * {@link BatchUpdateRequestBuilder#inputs(java.util.Map)} or similar function.
    *
-   * @param mapKeyResult {@link MapKeyResult} of mapping U to keys.
+   * @param mapKeyResult {@link MapKeyIndexResult} of mapping the keys to hosts.
+   * @param keys the keys that were mapped.
    * @param batchRequest the {@link BatchRequest}.
-   * @param tClass the {@link RecordTemplate} type of the entities in the input of the request.
-   * @param <U> the service that will handle each set of inputs; Generally {@link URI}, for a host that will handle the request.
    * @param <K> the key type.
-   * @return a map from U to request input, where request input is a map from keys to {@link RecordTemplate}s.
+   * @return a map from host to request input, where request input is a map from keys to {@link RecordTemplate}s.
    */
-  private <U, K> Map<U, Map<K, T>> keyMapToInput(MapKeyResult<U, K> mapKeyResult, BatchUpdateRequest<K, T> batchRequest, Class<T> tClass)
+  private <K> Map<URI, Map<K, T>> keyMapToInput(MapKeyIndexResult<URI> mapKeyResult, List<K> keys, BatchUpdateRequest<K, T> batchRequest)
   {
     Map<K, T> updateInput = batchRequest.getUpdateInputMap();
 
@@ -178,14 +200,14 @@ public class ScatterGatherBuilder<T extends RecordTemplate>
       throw new IllegalArgumentException("given BatchRequest must have input data");
     }
 
-    Map<U, Collection<K>> map = mapKeyResult.getMapResult();
-    Map<U, Map<K, T>> result = new HashMap<U, Map<K, T>>(map.size());
-    for(Map.Entry<U, Collection<K>> entry : map.entrySet())
+    Map<URI, Map<K, T>> result = new HashMap<URI, Map<K, T>>(mapKeyResult.getHostCount() * 2);
+    for (int hostIndex = 0; hostIndex < mapKeyResult.getHostCount(); hostIndex++)
     {
-      Collection<K> keyList = entry.getValue();
-      Map<K, T> keyRecordMap = new HashMap<K, T>(keyList.size());
-      for(K key : keyList)
+      int keyCount = mapKeyResult.getKeyCount(hostIndex);
+      Map<K, T> keyRecordMap = new HashMap<K, T>(keyCount * 2);
+      for (int i = 0; i < keyCount; i++)
       {
+        K key = keys.get(mapKeyResult.getKeyIndex(hostIndex, i));
         T record = updateInput.get(key);
         if (record == null)
         {
@@ -193,7 +215,7 @@ public class ScatterGatherBuilder<T extends RecordTemplate>
         }
         keyRecordMap.put(key, record);
       }
-      result.put(entry.getKey(), keyRecordMap);
+      result.put(mapKeyResult.getHost(hostIndex), keyRecordMap);
     }
     return result;
   }
@@ -201,20 +223,12 @@ public class ScatterGatherBuilder<T extends RecordTemplate>
   public <K> KVScatterGatherResult<K, UpdateStatus> buildRequests(BatchDeleteRequest<K, T> request, RequestContext requestContext) throws
     ServiceUnavailableException
   {
-    Set<Object> idObjects = request.getObjectIds();
-    Collection<K> ids = new HashSet<K>(idObjects.size());
-    for (Object o : idObjects)
-    {
-      @SuppressWarnings("unchecked")
-      K k = (K) o;
-      ids.add(k);
-    }
+    List<K> keys = toDistinctKeys(request.getObjectIds());
 
-    MapKeyResult<URI, K> mapKeyResult = mapKeys(request, ids);
-    Map<URI, Collection<K>> batches = mapKeyResult.getMapResult();
-    Collection<KVRequestInfo<K, UpdateStatus>> scatterGatherRequests = new ArrayList<KVRequestInfo<K, UpdateStatus>>(batches.size());
+    MapKeyIndexResult<URI> mapKeyResult = mapKeys(request, keys);
+    Collection<KVRequestInfo<K, UpdateStatus>> scatterGatherRequests = new ArrayList<KVRequestInfo<K, UpdateStatus>>(mapKeyResult.getHostCount());
 
-    for (Map.Entry<URI, Collection<K>> batch : batches.entrySet())
+    for (int hostIndex = 0; hostIndex < mapKeyResult.getHostCount(); hostIndex++)
     {
       @SuppressWarnings("unchecked")
       Class<T> keyClass = (Class<T>) request.getResourceSpec().getValueClass();
@@ -222,20 +236,20 @@ public class ScatterGatherBuilder<T extends RecordTemplate>
         new BatchDeleteRequestBuilder<K, T>(request.getBaseUriTemplate(),
                                             keyClass,
                                             request.getResourceSpec());
-      builder.ids(batch.getValue());
+      builder.ids(getHostKeys(mapKeyResult, hostIndex, keys));
       for (Map.Entry<String,String> header : request.getHeaders().entrySet())
       {
         builder.setHeader(header.getKey(), header.getValue());
       }
 
       RequestContext context = requestContext.clone();
-      KeyMapper.TargetHostHints.setRequestContextTargetHost(context, batch.getKey());
+      KeyMapper.TargetHostHints.setRequestContextTargetHost(context, mapKeyResult.getHost(hostIndex));
 
       BatchRequest<BatchKVResponse<K, UpdateStatus>> build = builder.build();
       scatterGatherRequests.add(new KVRequestInfo<K, UpdateStatus>(build, context));
     }
 
-    return new KVScatterGatherResult<K, UpdateStatus>(scatterGatherRequests, mapKeyResult.getUnmappedKeys());
+    return new KVScatterGatherResult<K, UpdateStatus>(scatterGatherRequests, getUnmappedKeys(mapKeyResult, keys));
   }
 
   /**
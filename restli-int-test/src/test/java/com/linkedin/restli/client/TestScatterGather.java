@@ -104,6 +104,49 @@ public class TestScatterGather extends RestLiIntegrationTest
     testBuildSGRequests(12, 3);
   }
 
+  @Test
+  public static void testBuildSGRequestsWithDuplicateIds() throws URISyntaxException, ServiceUnavailableException
+  {
+    ScatterGatherBuilder<Greeting> sg = new ScatterGatherBuilder<Greeting>(getKeyToHostMapper(12, 3));
+
+    // each id is given twice, and the ids are spread over the hosts of all the partitions
+    Long[] distinctIds = generateIds(30);
+    Long[] ids = new Long[distinctIds.length * 2];
+    System.arraycopy(distinctIds, 0, ids, 0, distinctIds.length);
+    System.arraycopy(distinctIds, 0, ids, distinctIds.length, distinctIds.length);
+
+    ScatterGatherBuilder.ScatterGatherResult<Greeting> getResult =
+      sg.buildRequestsV2(new GreetingsBuilders().batchGet().ids(ids).build(), new RequestContext());
+    Assert.assertTrue(getResult.getUnmappedKeys().isEmpty());
+    List<Object> getIds = new ArrayList<Object>();
+    for (ScatterGatherBuilder.RequestInfo<Greeting> requestInfo : getResult.getRequestInfo())
+    {
+      getIds.addAll(requestInfo.getBatchRequest().getObjectIds());
+    }
+    assertDistinctIds(getIds, distinctIds);
+
+    ScatterGatherBuilder.KVScatterGatherResult<Long, UpdateStatus> deleteResult =
+      sg.buildRequests(new GreetingsBuilders().batchDelete().ids(ids).build(), new RequestContext());
+    Assert.assertTrue(deleteResult.getUnmappedKeys().isEmpty());
+    List<Object> deleteIds = new ArrayList<Object>();
+    for (ScatterGatherBuilder.KVRequestInfo<Long, UpdateStatus> requestInfo : deleteResult.getRequestInfo())
+    {
+      deleteIds.addAll(requestInfo.getRequest().getObjectIds());
+    }
+    assertDistinctIds(deleteIds, distinctIds);
+  }
+
+  private static void assertDistinctIds(List<Object> requestIds, Long[] distinctIds)
+  {
+    // each id is sent once, to a single host, with its original type
+    Assert.assertEquals(requestIds.size(), distinctIds.length);
+    Assert.assertEquals(new HashSet<Object>(requestIds), new HashSet<Object>(Arrays.asList(distinctIds)));
+    for (Object id : requestIds)
+    {
+      Assert.assertTrue(id instanceof Long);
+    }
+  }
+
   public static void testBuildSGRequests(int endPointsNum, int partitionNum) throws URISyntaxException, RestException, ServiceUnavailableException
   {
     final int NUM_ENDPOINTS = endPointsNum;
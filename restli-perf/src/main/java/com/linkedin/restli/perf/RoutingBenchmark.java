@@ -0,0 +1,110 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.restli.perf;
+
+
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestRequestBuilder;
+import com.linkedin.restli.common.RestConstants;
+import com.linkedin.restli.internal.server.RestLiRouter;
+import com.linkedin.restli.internal.server.RoutingResult;
+import com.linkedin.restli.internal.server.model.ResourceModel;
+import com.linkedin.restli.internal.server.model.RestLiApiBuilder;
+import com.linkedin.restli.server.RestLiConfig;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link RestLiRouter#process} over the resources of restli-int-test-server, for
+ * the main kinds of requests.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoutingBenchmark
+{
+  public enum Route
+  {
+    GET("GET", null, "/greetings/1"),
+    BATCH_GET("GET", null, "/greetings?ids=1&ids=2&ids=3"),
+    FINDER("GET", null, "/greetings?q=search&tone=FRIENDLY"),
+    ACTION("POST", "ACTION", "/greetings?action=purge"),
+    ASSOCIATION_GET("GET", null, "/associations/src=a&dest=b"),
+    COMPLEX_KEY_GET("GET", null, "/complexKeys/major=a&minor=b"),
+    SUB_RESOURCE_GET("GET", null, "/stringKeys/parent/stringKeysSub/child");
+
+    private final String _httpMethod;
+    private final String _restliMethod;
+    private final String _uri;
+
+    Route(String httpMethod, String restliMethod, String uri)
+    {
+      _httpMethod = httpMethod;
+      _restliMethod = restliMethod;
+      _uri = uri;
+    }
+  }
+
+  @Param
+  public Route route;
+
+  private RestLiRouter _router;
+  private RestRequest _request;
+
+  @Setup
+  public void setup()
+  {
+    RestLiConfig config = new RestLiConfig();
+    config.addResourcePackageNames("com.linkedin.restli.examples.greetings.server");
+    Map<String, ResourceModel> rootResources = new RestLiApiBuilder(config).build();
+    _router = new RestLiRouter(rootResources);
+
+    RestRequestBuilder builder = new RestRequestBuilder(URI.create(route._uri)).setMethod(route._httpMethod);
+    if (route._restliMethod != null)
+    {
+      builder.setHeader(RestConstants.HEADER_RESTLI_REQUEST_METHOD, route._restliMethod);
+    }
+    _request = builder.build();
+
+    // fails the setup rather than measuring the routing exception
+    process();
+  }
+
+  @Benchmark
+  public RoutingResult process()
+  {
+    return _router.process(_request, new RequestContext());
+  }
+}
@@ -18,7 +18,12 @@ package com.linkedin.restli.internal.server;
 
 import com.linkedin.restli.internal.server.methods.response.ErrorResponseBuilder;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import com.linkedin.common.callback.Callback;
 import com.linkedin.parseq.BaseTask;
@@ -34,6 +39,7 @@ import com.linkedin.restli.internal.server.methods.MethodAdapterRegistry;
 import com.linkedin.restli.internal.server.methods.arguments.RestLiArgumentBuilder;
 import com.linkedin.restli.internal.server.model.Parameter.ParamType;
 import com.linkedin.restli.internal.server.model.ResourceMethodDescriptor;
+import com.linkedin.restli.internal.server.model.ResourceMethodInvoker;
 import com.linkedin.restli.server.RestLiServiceException;
 import com.linkedin.restli.server.resources.BaseResource;
 import com.linkedin.restli.server.resources.ResourceFactory;
@@ -50,6 +56,20 @@ public class RestLiMethodInvoker
   private final Engine _engine;
   private final ErrorResponseBuilder _errorResponseBuilder;
   private final MethodAdapterRegistry _methodAdapterRegistry;
+  private final Map<String, ? extends Executor> _syncExecutors;
+  private final Executor _defaultSyncExecutor;
+  // the executor of each synchronous method, or CALLING_THREAD
+  private final ConcurrentMap<ResourceMethodDescriptor, Executor> _resolvedSyncExecutors =
+      new ConcurrentHashMap<ResourceMethodDescriptor, Executor>();
+
+  private static final Executor CALLING_THREAD = new Executor()
+  {
+    @Override
+    public void execute(Runnable command)
+    {
+      command.run();
+    }
+  };
 
   /**
    * Constructor.
@@ -70,11 +90,33 @@ public class RestLiMethodInvoker
    * @param errorResponseBuilder {@link ErrorResponseBuilder}
    */
   public RestLiMethodInvoker(final ResourceFactory resourceFactory, final Engine engine, final ErrorResponseBuilder errorResponseBuilder)
+  {
+    this(resourceFactory, engine, errorResponseBuilder, Collections.<String, Executor>emptyMap(), null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param resourceFactory {@link ResourceFactory}
+   * @param engine {@link Engine}
+   * @param errorResponseBuilder {@link ErrorResponseBuilder}
+   * @param syncExecutors executors of the synchronous methods, by resource or method name as
+   *                      described in {@link com.linkedin.restli.server.RestLiConfig#addSyncResourceExecutor}
+   * @param defaultSyncExecutor executor of the other synchronous methods, or null to run them
+   *                            on the calling thread
+   */
+  public RestLiMethodInvoker(final ResourceFactory resourceFactory,
+                             final Engine engine,
+                             final ErrorResponseBuilder errorResponseBuilder,
+                             final Map<String, ? extends Executor> syncExecutors,
+                             final Executor defaultSyncExecutor)
   {
     _resourceFactory = resourceFactory;
     _engine = engine;
     _errorResponseBuilder = errorResponseBuilder;
     _methodAdapterRegistry = new MethodAdapterRegistry(errorResponseBuilder);
+    _syncExecutors = syncExecutors;
+    _defaultSyncExecutor = defaultSyncExecutor;
   }
 
   /**
@@ -125,7 +167,7 @@ public class RestLiMethodInvoker
                         final Object resource,
                         final Object... arguments) throws IllegalAccessException
   {
-    Method method = descriptor.getMethod();
+    ResourceMethodInvoker methodInvoker = descriptor.getMethodInvoker();
     try
     {
       switch (descriptor.getInterfaceType())
@@ -133,13 +175,21 @@ public class RestLiMethodInvoker
       case CALLBACK:
         int callbackIndex = descriptor.indexOfParameterType(ParamType.CALLBACK);
         arguments[callbackIndex] = callback;
-        method.invoke(resource, arguments);
+        methodInvoker.invoke(resource, arguments);
         // App code should use the callback
         break;
 
       case SYNC:
-        Object applicationResult = method.invoke(resource, arguments);
-        callback.onSuccess(applicationResult);
+        final Executor executor = getSyncExecutor(descriptor);
+        if (executor == CALLING_THREAD)
+        {
+          Object applicationResult = methodInvoker.invoke(resource, arguments);
+          callback.onSuccess(applicationResult);
+        }
+        else
+        {
+          invokeSync(executor, descriptor, callback, resource, arguments);
+        }
         break;
 
       case PROMISE:
@@ -151,7 +201,7 @@ public class RestLiMethodInvoker
             descriptor.indexOfParameterType(ParamType.PARSEQ_CONTEXT);
         // run through the engine to get the context
         Task<Object> restliTask =
-            new RestLiParSeqTask(arguments, contextIndex, method, resource);
+            new RestLiParSeqTask(arguments, contextIndex, methodInvoker, resource);
 
         // propagate the result to the callback
         restliTask.addListener(new CallbackPromiseAdapter<Object>(callback));
@@ -166,7 +216,7 @@ public class RestLiMethodInvoker
 
         //addListener requires Task<Object> in this case
         @SuppressWarnings("unchecked")
-        Task<Object> task = (Task<Object>) method.invoke(resource, arguments);
+        Task<Object> task = (Task<Object>) methodInvoker.invoke(resource, arguments);
         if (task == null)
         {
             callback.onErrorApp(new RestLiServiceException(HttpStatus.S_500_INTERNAL_SERVER_ERROR,
@@ -186,19 +236,115 @@ public class RestLiMethodInvoker
     }
     catch (InvocationTargetException e)
     {
-      if (RestLiServiceException.class.isAssignableFrom(e.getCause().getClass()))
+      onInvocationError(callback, e);
+    }
+  }
+
+  private void onInvocationError(final RestLiCallback<Object> callback, final InvocationTargetException e)
+  {
+    if (RestLiServiceException.class.isAssignableFrom(e.getCause().getClass()))
+    {
+      RestLiServiceException restLiServiceException =
+          (RestLiServiceException) e.getCause();
+      callback.onErrorApp(restLiServiceException);
+    }
+    else
+    {
+      callback.onErrorApp(new RestLiServiceException(HttpStatus.S_500_INTERNAL_SERVER_ERROR,
+                                                     _errorResponseBuilder.getInternalErrorMessage(),
+                                                     e.getCause()));
+    }
+  }
+
+  /**
+   * Runs a synchronous method on the given executor, answering with 503 if the executor
+   * rejects it.
+   */
+  private void invokeSync(final Executor executor,
+                          final ResourceMethodDescriptor descriptor,
+                          final RestLiCallback<Object> callback,
+                          final Object resource,
+                          final Object[] arguments)
+  {
+    final ResourceMethodInvoker methodInvoker = descriptor.getMethodInvoker();
+    try
+    {
+      executor.execute(new Runnable()
       {
-        RestLiServiceException restLiServiceException =
-            (RestLiServiceException) e.getCause();
-        callback.onErrorApp(restLiServiceException);
+        @Override
+        public void run()
+        {
+          final Object applicationResult;
+          try
+          {
+            applicationResult = methodInvoker.invoke(resource, arguments);
+          }
+          catch (InvocationTargetException e)
+          {
+            onInvocationError(callback, e);
+            return;
+          }
+          catch (Exception e)
+          {
+            callback.onErrorApp(new RestLiServiceException(HttpStatus.S_500_INTERNAL_SERVER_ERROR,
+                                                           _errorResponseBuilder.getInternalErrorMessage(),
+                                                           e));
+            return;
+          }
+          callback.onSuccess(applicationResult);
+        }
+      });
+    }
+    catch (RejectedExecutionException e)
+    {
+      callback.onErrorApp(new RestLiServiceException(HttpStatus.S_503_SERVICE_UNAVAILABLE,
+                                                     "Too many pending requests for resource "
+                                                         + descriptor.getResourceName(),
+                                                     e));
+    }
+  }
+
+  /**
+   * @return the executor of the given synchronous method, looked up by method, then by resource,
+   *         or {@link #CALLING_THREAD} if it has none
+   */
+  private Executor getSyncExecutor(final ResourceMethodDescriptor descriptor)
+  {
+    if (_syncExecutors.isEmpty() && _defaultSyncExecutor == null)
+    {
+      return CALLING_THREAD;
+    }
+
+    Executor executor = _resolvedSyncExecutors.get(descriptor);
+    if (executor == null)
+    {
+      final String resourceName = descriptor.getResourceName();
+      final String methodName;
+      if (descriptor.getFinderName() != null)
+      {
+        methodName = "finder:" + descriptor.getFinderName();
+      }
+      else if (descriptor.getActionName() != null)
+      {
+        methodName = "action:" + descriptor.getActionName();
       }
       else
       {
-        callback.onErrorApp(new RestLiServiceException(HttpStatus.S_500_INTERNAL_SERVER_ERROR,
-                                                       _errorResponseBuilder.getInternalErrorMessage(),
-                                                       e.getCause()));
+        methodName = descriptor.getType().toString();
+      }
+
+      executor = _syncExecutors.get(resourceName + ":" + methodName);
+      if (executor == null)
+      {
+        executor = _syncExecutors.get(resourceName);
+      }
+      if (executor == null)
+      {
+        executor = _defaultSyncExecutor != null ? _defaultSyncExecutor : CALLING_THREAD;
       }
+      _resolvedSyncExecutors.put(descriptor, executor);
     }
+    return executor;
   }
 
   private boolean checkEngine(final Callback<Object> callback,
@@ -231,17 +377,17 @@ public class RestLiMethodInvoker
   private static class RestLiParSeqTask extends BaseTask<Object> {
     private final Object[] _arguments;
     private final int _contextIndex;
-    private final Method _method;
+    private final ResourceMethodInvoker _methodInvoker;
     private final Object _resource;
 
     public RestLiParSeqTask(final Object[] arguments,
                             final int contextIndex,
-                            final Method method,
+                            final ResourceMethodInvoker methodInvoker,
                             final Object resource)
     {
       this._arguments = arguments;
       this._contextIndex = contextIndex;
-      this._method = method;
+      this._methodInvoker = methodInvoker;
       this._resource = resource;
     }
 
@@ -255,7 +401,7 @@ public class RestLiMethodInvoker
           // we can now supply the context
           _arguments[_contextIndex] = context;
         }
-        Object applicationResult = _method.invoke(_resource, _arguments);
+        Object applicationResult = _methodInvoker.invoke(_resource, _arguments);
         if (applicationResult == null)
         {
           return Promises.error(new RestLiServiceException(HttpStatus.S_500_INTERNAL_SERVER_ERROR,
@@ -17,6 +17,7 @@
 package com.linkedin.restli.internal.server;
 
 
+import com.linkedin.data.Data;
 import com.linkedin.data.DataMap;
 import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.r2.message.rest.RestResponse;
@@ -166,7 +167,7 @@ public class RestLiResponseHandler
     {
       DataMap dataMap = partialResponse.getDataMap();
       String acceptTypes = request.getHeader(RestConstants.HEADER_ACCEPT);
-      builder = encodeResult(builder, dataMap, acceptTypes);
+      builder = encodeResult(builder, dataMap, partialResponse.getTraverser(), acceptTypes);
     }
 
     return builder.build();
@@ -180,19 +181,22 @@ public class RestLiResponseHandler
     return _errorResponseBuilder.buildResponse(request, routingResult, object, headers);
   }
 
-  private RestResponseBuilder encodeResult(RestResponseBuilder builder, DataMap dataMap, String acceptTypes)
+  private RestResponseBuilder encodeResult(RestResponseBuilder builder,
+                                           DataMap dataMap,
+                                           Data.Traverser traverser,
+                                           String acceptTypes)
   {
     String bestType = RestUtils.pickBestEncoding(acceptTypes);
 
     if (RestConstants.HEADER_VALUE_APPLICATION_PSON.equalsIgnoreCase(bestType))
     {
       builder.setHeader(RestConstants.HEADER_CONTENT_TYPE, RestConstants.HEADER_VALUE_APPLICATION_PSON);
-      builder.setEntity(DataMapUtils.mapToPsonBytes(dataMap));
+      builder.setEntity(DataMapUtils.mapToPsonBytes(dataMap, traverser));
     }
     else if (RestConstants.HEADER_VALUE_APPLICATION_JSON.equalsIgnoreCase(bestType))
     {
       builder.setHeader(RestConstants.HEADER_CONTENT_TYPE, RestConstants.HEADER_VALUE_APPLICATION_JSON);
-      builder.setEntity(DataMapUtils.mapToBytes(dataMap, _permissiveEncoding));
+      builder.setEntity(DataMapUtils.mapToBytes(dataMap, traverser, _permissiveEncoding));
     }
     else
     {
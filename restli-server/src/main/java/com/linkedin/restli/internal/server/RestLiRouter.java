@@ -20,13 +20,11 @@ import com.linkedin.r2.filter.R2Constants;
 import com.linkedin.restli.common.OperationNameGenerator;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -58,8 +56,8 @@ import com.linkedin.restli.server.RoutingException;
 public class RestLiRouter
 {
   private static final Logger log = LoggerFactory.getLogger(RestLiRouter.class);
-  private static final Map<ResourceMethodMatchKey, ResourceMethod> _resourceMethodLookup = setupResourceMethodLookup();
-  private final Map<String, ResourceModel> _pathRootResourceMap;
+  private static final Map<String, Map<String, ResourceMethod[]>> _resourceMethodLookup = setupResourceMethodLookup();
+  private final Map<String, ResourceRoute> _rootRoutes;
 
   /**
    * Constructor.
@@ -70,11 +68,17 @@ public class RestLiRouter
   public RestLiRouter(final Map<String, ResourceModel> pathRootResourceMap)
   {
     super();
-    _pathRootResourceMap = pathRootResourceMap;
+    _rootRoutes = new HashMap<String, ResourceRoute>();
+    for (Map.Entry<String, ResourceModel> entry : pathRootResourceMap.entrySet())
+    {
+      // requests are matched on the first segment of their path, without the leading slash
+      if (entry.getKey().startsWith("/"))
+      {
+        _rootRoutes.put(entry.getKey().substring(1), new ResourceRoute(entry.getValue()));
+      }
+    }
   }
 
-  private static final Pattern SLASH_PATTERN = Pattern.compile(Pattern.quote("/"));
-
   /**
    * Processes provided {@link RestRequest}.
    *
@@ -94,27 +98,14 @@ public class RestLiRouter
       path = path.substring(1);
     }
 
-    Queue<String> remainingPath =
-        new LinkedList<String>(Arrays.asList(SLASH_PATTERN.split(path)));
-
-    String rootPath = "/" + remainingPath.poll();
+    List<String> pathSegments = splitPath(path);
 
-    ResourceModel currentResource;
-    try
-    {
-      currentResource =
-          _pathRootResourceMap.get(URLDecoder.decode(rootPath,
-                                                     RestConstants.DEFAULT_CHARSET_NAME));
-    }
-    catch (UnsupportedEncodingException e)
-    {
-      throw new RestLiInternalException("UnsupportedEncodingException while trying to decode the root path",
-                                        e);
-    }
-    if (currentResource == null)
+    String rootSegment = pathSegments.isEmpty() ? "" : pathSegments.get(0);
+    ResourceRoute rootRoute = pathSegments.isEmpty() ? null : _rootRoutes.get(decode(rootSegment, "root path"));
+    if (rootRoute == null)
     {
       throw new RoutingException(String.format("No root resource defined for path '%s'",
-                                               rootPath),
+                                               "/" + rootSegment),
                                  HttpStatus.S_404_NOT_FOUND.getCode());
     }
     ServerResourceContext context;
@@ -128,92 +119,116 @@ public class RestLiRouter
       throw new RoutingException(e.getMessage(), HttpStatus.S_400_BAD_REQUEST.getCode());
     }
 
-    return processResourceTree(currentResource, context, remainingPath);
+    return processResourceTree(rootRoute, context, pathSegments);
   }
 
-  private RoutingResult processResourceTree(final ResourceModel resource,
+  /**
+   * Splits a path on slashes without a regular expression, dropping the trailing empty segments
+   * like {@link String#split(String)} does.
+   */
+  private static List<String> splitPath(final String path)
+  {
+    List<String> segments = new ArrayList<String>(4);
+    int start = 0;
+    int end;
+    while ((end = path.indexOf('/', start)) >= 0)
+    {
+      segments.add(path.substring(start, end));
+      start = end + 1;
+    }
+    segments.add(path.substring(start));
+
+    int size = segments.size();
+    while (size > 0 && segments.get(size - 1).isEmpty())
+    {
+      segments.remove(--size);
+    }
+    return segments;
+  }
+
+  /**
+   * URL-decodes a path segment, returning it as is if it has nothing to decode.
+   */
+  private static String decode(final String segment, final String description)
+  {
+    if (segment.indexOf('%') < 0 && segment.indexOf('+') < 0)
+    {
+      return segment;
+    }
+
+    try
+    {
+      return URLDecoder.decode(segment, RestConstants.DEFAULT_CHARSET_NAME);
+    }
+    catch (UnsupportedEncodingException e)
+    {
+      throw new RestLiInternalException("UnsupportedEncodingException while trying to decode the " + description, e);
+    }
+  }
+
+  private RoutingResult processResourceTree(final ResourceRoute rootRoute,
                                             final ServerResourceContext context,
-                                            final Queue<String> remainingPath)
+                                            final List<String> pathSegments)
   {
-    ResourceModel currentResource = resource;
+    ResourceRoute currentRoute = rootRoute;
 
     // iterate through all path segments, simultaneously descending the resource hierarchy
     // and parsing path keys where applicable;
     // the goal of this loop is to locate the leaf resource, which will be set in
-    // currentResource, and to parse the necessary information into the context
-    ResourceLevel currentLevel = currentResource.getResourceLevel();
+    // currentRoute, and to parse the necessary information into the context
+    ResourceLevel currentLevel = currentRoute._resource.getResourceLevel();
 
-    while (remainingPath.peek() != null)
+    for (int i = 1; i < pathSegments.size(); i++)
     {
-      String currentPathSegment = remainingPath.poll();
+      String currentPathSegment = pathSegments.get(i);
 
       if (currentLevel.equals(ResourceLevel.ENTITY))
       {
-        currentResource =
-            currentResource.getSubResource(parseSubresourceName(currentPathSegment));
-        currentLevel = currentResource == null ?
-            ResourceLevel.ANY : currentResource.getResourceLevel();
+        currentRoute = currentRoute._subResources.get(decode(currentPathSegment, "subresource name"));
+        currentLevel = currentRoute == null ?
+            ResourceLevel.ANY : currentRoute._resource.getResourceLevel();
       }
       else
       {
-        ResourceModel currentCollectionResource = currentResource;
-        if (currentResource.getKeys().isEmpty())
+        ResourceModel currentResource = currentRoute._resource;
+        switch (currentRoute._keyType)
         {
-          throw new RoutingException(String.format("Path key not supported on resource '%s' for URI '%s'",
-                                                   currentResource.getName(),
-                                                   context.getRequestURI()),
-                                     HttpStatus.S_400_BAD_REQUEST.getCode());
-        }
-        else if (currentResource.getKeyClass() == ComplexResourceKey.class)
-        {
-          parseComplexKey(currentResource, context, currentPathSegment);
-          currentLevel = ResourceLevel.ENTITY;
-        }
-
-        else if (currentResource.getKeyClass() == CompoundKey.class)
-        {
-          CompoundKey compoundKey =
-              parseCompoundKey(currentCollectionResource, context, currentPathSegment);
-          if (compoundKey != null
-              && compoundKey.getPartKeys().containsAll(currentResource.getKeyNames()))
-          {
-            // full match on key parts means that we are targeting a unique entity
+          case NONE:
+            throw new RoutingException(String.format("Path key not supported on resource '%s' for URI '%s'",
+                                                     currentResource.getName(),
+                                                     context.getRequestURI()),
+                                       HttpStatus.S_400_BAD_REQUEST.getCode());
+          case COMPLEX:
+            parseComplexKey(currentResource, context, currentPathSegment);
+            currentLevel = ResourceLevel.ENTITY;
+            break;
+          case COMPOUND:
+            CompoundKey compoundKey = parseCompoundKey(currentResource, context, currentPathSegment);
+            if (compoundKey != null
+                && compoundKey.getPartKeys().containsAll(currentRoute._keyNames))
+            {
+              // full match on key parts means that we are targeting a unique entity
+              currentLevel = ResourceLevel.ENTITY;
+            }
+            break;
+          default:
+            parseSimpleKey(currentResource, context, currentPathSegment);
             currentLevel = ResourceLevel.ENTITY;
-          }
-        }
-
-        // Must be a simple key then
-        else
-        {
-          parseSimpleKey(currentResource, context, currentPathSegment);
-          currentLevel = ResourceLevel.ENTITY;
         }
       }
 
-      if (currentResource == null)
+      if (currentRoute == null)
       {
         throw new RoutingException(HttpStatus.S_404_NOT_FOUND.getCode());
       }
     }
 
+    ResourceModel currentResource = currentRoute._resource;
     parseBatchKeysParameter(currentResource, context); //now we know the key type, look for batch parameter
 
     return findMethodDescriptor(currentResource, currentLevel, context);
   }
 
-  /** given path segment, parses subresource name out of it */
-  private static String parseSubresourceName(final String pathSegment)
-  {
-    try
-    {
-      return URLDecoder.decode(pathSegment, RestConstants.DEFAULT_CHARSET_NAME);
-    }
-    catch (UnsupportedEncodingException e)
-    {
-      throw new RestLiInternalException("UnsupportedEncodingException while trying to decode the subresource name", e);
-    }
-  }
-
   private RoutingResult findMethodDescriptor(final ResourceModel resource,
                                              final ResourceLevel resourceLevel,
                                              final ServerResourceContext context)
@@ -266,9 +281,12 @@ public class RestLiRouter
   // Currently only POST requests set RMETHOD header (HEADER_RESTLI_REQUEST_METHOD), however we include
   // a table entry for GET methods as well to make sure the routing doesn't fail if the client sets the header
   // when it's not necessary, as long as it doesn't conflict with the rest of the parameters.
-  private static Map<ResourceMethodMatchKey, ResourceMethod> setupResourceMethodLookup()
+  //
+  // The table is flattened into arrays indexed by the flags of the request, keyed by the HTTP method and
+  // the RMETHOD header, so that a request is matched without allocating a key.
+  private static Map<String, Map<String, ResourceMethod[]>> setupResourceMethodLookup()
   {
-    HashMap<ResourceMethodMatchKey, ResourceMethod> result = new HashMap<ResourceMethodMatchKey, ResourceMethod>();
+    Map<String, Map<String, ResourceMethod[]>> result = new HashMap<String, Map<String, ResourceMethod[]>>();
     //                                 METHOD    RMETHOD                    ACTION   QUERY   BATCH   ENTITY
     Object[] config =
     {
@@ -310,7 +328,23 @@ public class RestLiRouter
     {
       ResourceMethodMatchKey key = (ResourceMethodMatchKey) config[ii];
       ResourceMethod method = (ResourceMethod) config[ii + 1];
-      ResourceMethod prevValue = result.put(key, method);
+
+      Map<String, ResourceMethod[]> byRestLiMethod = result.get(key.getHttpMethod());
+      if (byRestLiMethod == null)
+      {
+        byRestLiMethod = new HashMap<String, ResourceMethod[]>();
+        result.put(key.getHttpMethod(), byRestLiMethod);
+      }
+      ResourceMethod[] byFlags = byRestLiMethod.get(key.getRestliMethod());
+      if (byFlags == null)
+      {
+        byFlags = new ResourceMethod[FLAG_COMBINATIONS];
+        byRestLiMethod.put(key.getRestliMethod(), byFlags);
+      }
+
+      int index = flagsIndex(key.hasActionParam(), key.hasQueryParam(), key.hasBatchKeys(), key.hasEntitySegment());
+      ResourceMethod prevValue = byFlags[index];
+      byFlags[index] = method;
       if (prevValue != null)
       {
         throw new RestLiInternalException("Routing Configuration conflict: "
@@ -321,20 +355,33 @@ public class RestLiRouter
     return result;
   }
 
+  private static final int FLAG_COMBINATIONS = 16;
+
+  private static int flagsIndex(final boolean hasActionParam,
+                                final boolean hasQueryParam,
+                                final boolean hasBatchKeys,
+                                final boolean hasEntitySegment)
+  {
+    return (hasActionParam ? 8 : 0) | (hasQueryParam ? 4 : 0) | (hasBatchKeys ? 2 : 0) | (hasEntitySegment ? 1 : 0);
+  }
+
   private ResourceMethod mapResourceMethod(final ServerResourceContext context,
                                            final ResourceLevel resourceLevel)
   {
-    ResourceMethodMatchKey key =
-        new ResourceMethodMatchKey(context.getRequestMethod(),
-                                   context.getRestLiRequestMethod(),
-                                   context.getRequestActionName() != null,
-                                   context.getRequestFinderName() != null,
-                                   context.getPathKeys().getBatchKeys().size() > 0,
-                                   resourceLevel.equals(ResourceLevel.ENTITY));
-
-    if (_resourceMethodLookup.containsKey(key))
+    Map<String, ResourceMethod[]> byRestLiMethod =
+        _resourceMethodLookup.get(context.getRequestMethod().toUpperCase());
+    ResourceMethod[] byFlags =
+        byRestLiMethod == null ? null : byRestLiMethod.get(context.getRestLiRequestMethod().toUpperCase());
+    if (byFlags != null)
     {
-      return _resourceMethodLookup.get(key);
+      ResourceMethod method = byFlags[flagsIndex(context.getRequestActionName() != null,
+                                                 context.getRequestFinderName() != null,
+                                                 context.getPathKeys().getBatchKeys().size() > 0,
+                                                 resourceLevel.equals(ResourceLevel.ENTITY))];
+      if (method != null)
+      {
+        return method;
+      }
     }
 
     if (context.hasParameter(RestConstants.ACTION_PARAM)
@@ -466,18 +513,52 @@ public class RestLiRouter
                               final ServerResourceContext context,
                               final String pathSegment)
   {
-    try
-    {
-      context.getPathKeys()
-             .append(resource.getKeyName(),
-                     ArgumentUtils.parseKeyIntoCorrectType(URLDecoder.decode(pathSegment,
-                                                                             RestConstants.DEFAULT_CHARSET_NAME),
-                                                           resource));
-    }
-    catch (UnsupportedEncodingException e)
+    context.getPathKeys()
+           .append(resource.getKeyName(),
+                   ArgumentUtils.parseKeyIntoCorrectType(decode(pathSegment, "key"), resource));
+  }
+
+  private static enum KeyType
+  {
+    NONE, SIMPLE, COMPOUND, COMPLEX
+  }
+
+  /**
+   * A node of the routing trie, compiled from a {@link ResourceModel} when the router is created:
+   * its sub-resources by path segment and the kind of key it parses.
+   */
+  private static final class ResourceRoute
+  {
+    private final ResourceModel _resource;
+    private final KeyType _keyType;
+    private final Set<String> _keyNames;
+    private final Map<String, ResourceRoute> _subResources = new HashMap<String, ResourceRoute>();
+
+    private ResourceRoute(final ResourceModel resource)
     {
-      throw new RestLiInternalException("UnsupportedEncodingException while trying to decode the key", e);
+      _resource = resource;
+      if (resource.getKeys().isEmpty())
+      {
+        _keyType = KeyType.NONE;
+      }
+      else if (resource.getKeyClass() == ComplexResourceKey.class)
+      {
+        _keyType = KeyType.COMPLEX;
+      }
+      else if (resource.getKeyClass() == CompoundKey.class)
+      {
+        _keyType = KeyType.COMPOUND;
+      }
+      else
+      {
+        _keyType = KeyType.SIMPLE;
+      }
+      _keyNames = resource.getKeyNames();
+
+      for (ResourceModel subResource : resource.getSubResources())
+      {
+        _subResources.put(subResource.getName(), new ResourceRoute(subResource));
+      }
     }
   }
-
 }
\ No newline at end of file
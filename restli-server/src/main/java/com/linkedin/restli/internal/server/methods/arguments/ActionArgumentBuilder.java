@@ -25,8 +25,8 @@ import java.util.List;
 import com.linkedin.data.DataMap;
 import com.linkedin.data.schema.validation.CoercionMode;
 import com.linkedin.data.schema.validation.RequiredMode;
-import com.linkedin.data.schema.validation.ValidateDataAgainstSchema;
 import com.linkedin.data.schema.validation.ValidationOptions;
+import com.linkedin.data.schema.validation.ValidationPlan;
 import com.linkedin.data.schema.validation.ValidationResult;
 import com.linkedin.data.template.DynamicRecordTemplate;
 import com.linkedin.data.template.TemplateOutputCastException;
@@ -63,11 +63,8 @@ public class ActionArgumentBuilder implements RestLiArgumentBuilder
     DynamicRecordTemplate template =
             new DynamicRecordTemplate(data, resourceMethodDescriptor.getRequestDataSchema());
 
-    ValidationResult result =
-            ValidateDataAgainstSchema.validate(data,
-                                               template.schema(),
-                                               new ValidationOptions(RequiredMode.IGNORE,
-                                                                     CoercionMode.NORMAL));
+    ValidationOptions options = new ValidationOptions(RequiredMode.IGNORE, CoercionMode.NORMAL);
+    ValidationResult result = ValidationPlan.forSchema(template.schema(), options).validate(data, options);
 
     if (!result.isValid())
     {
@@ -25,8 +25,8 @@ import com.linkedin.data.DataList;
 import com.linkedin.data.schema.ArrayDataSchema;
 import com.linkedin.data.schema.validation.CoercionMode;
 import com.linkedin.data.schema.validation.RequiredMode;
-import com.linkedin.data.schema.validation.ValidateDataAgainstSchema;
 import com.linkedin.data.schema.validation.ValidationOptions;
+import com.linkedin.data.schema.validation.ValidationPlan;
 import com.linkedin.data.template.AbstractArrayTemplate;
 import com.linkedin.data.template.DataTemplate;
 import com.linkedin.data.template.DataTemplateUtil;
@@ -307,10 +307,9 @@ public class ArgumentBuilder
     }
     // Validate against the class schema with FixupMode.STRING_TO_PRIMITIVE to parse the
     // strings into the corresponding primitive types.
-    ValidateDataAgainstSchema.validate(paramRecordTemplate.data(),
-                                       paramRecordTemplate.schema(),
-                                       new ValidationOptions(RequiredMode.CAN_BE_ABSENT_IF_HAS_DEFAULT,
-                                                             CoercionMode.STRING_TO_PRIMITIVE));
+    ValidationOptions options = new ValidationOptions(RequiredMode.CAN_BE_ABSENT_IF_HAS_DEFAULT,
+                                                      CoercionMode.STRING_TO_PRIMITIVE);
+    ValidationPlan.forSchema(paramRecordTemplate.schema(), options).validate(paramRecordTemplate.data(), options);
     return paramRecordTemplate;
   }
 }
@@ -27,6 +27,8 @@ import com.linkedin.data.DataMap;
 import com.linkedin.data.collections.CheckedUtil;
 import com.linkedin.data.template.DataTemplateUtil;
 import com.linkedin.data.template.RecordTemplate;
+import com.linkedin.data.transform.filter.MaskProjector;
+import com.linkedin.data.transform.filter.ProjectingTraverser;
 import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.restli.common.BatchResponse;
 import com.linkedin.restli.common.ComplexResourceKey;
@@ -36,6 +38,7 @@ import com.linkedin.restli.common.RestConstants;
 import com.linkedin.restli.internal.common.URLEscaper;
 import com.linkedin.restli.internal.server.RoutingResult;
 import com.linkedin.restli.internal.server.ServerResourceContext;
+import com.linkedin.restli.internal.server.util.RestUtils;
 import com.linkedin.restli.server.ResourceContext;
 import com.linkedin.restli.server.RestLiServiceException;
 
@@ -84,13 +87,16 @@ public abstract class AbstractBatchResponseBuilder<V>
                                  final Map<?, ? extends V> resultsMap,
                                  final Map<String, String> headers,
                                  final Class<? extends RecordTemplate> valueClass,
-                                 final ResourceContext resourceContext)
+                                 final ResourceContext resourceContext,
+                                 final ProjectingTraverser traverser)
   {
     DataMap dataMap = (DataMap) response.data().get(BatchResponse.RESULTS);
+    // the projection is the same for all the results
+    MaskProjector projector = traverser == null ? null : RestUtils.getProjector(resourceContext);
 
     for (Map.Entry<?, ? extends V> entry: resultsMap.entrySet())
     {
-      DataMap data = buildResultRecord(entry.getValue(), resourceContext);
+      DataMap data = buildResultRecord(entry.getValue(), resourceContext, projector, traverser);
       CheckedUtil.putWithoutChecking(dataMap, keyToString(entry.getKey()), data);
     }
 
@@ -112,9 +118,16 @@ public abstract class AbstractBatchResponseBuilder<V>
    * This method is called by populateResults for each value in the resultsMap
    *
    * @param o - the object to be converted
+   * @param projector - the projector of the results, looked up once per response;
+   *                    null if the results are not projected
+   * @param traverser - the traverser encoding the response, to register projections with;
+   *                    null if the results are not projected
    * @return a RecordTemplate representation of the converted object
    */
-  protected abstract DataMap buildResultRecord(V o, ResourceContext resourceContext);
+  protected abstract DataMap buildResultRecord(V o,
+                                               ResourceContext resourceContext,
+                                               MaskProjector projector,
+                                               ProjectingTraverser traverser);
 
   private static String keyToString(Object key)
   {
@@ -22,8 +22,11 @@ import java.util.Map;
 
 import com.linkedin.data.DataMap;
 import com.linkedin.data.template.RecordTemplate;
+import com.linkedin.data.transform.filter.MaskProjector;
+import com.linkedin.data.transform.filter.ProjectingTraverser;
 import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.restli.common.BatchResponse;
+import com.linkedin.restli.common.HttpStatus;
 import com.linkedin.restli.internal.server.RoutingResult;
 import com.linkedin.restli.internal.server.ServerResourceContext;
 import com.linkedin.restli.internal.server.methods.AnyRecord;
@@ -72,11 +75,13 @@ public class BatchGetResponseBuilder extends AbstractBatchResponseBuilder<Record
     BatchResponse<AnyRecord> batchResponse =
         createBatchResponse(AnyRecord.class, map.size(), numErrors);
 
+    ProjectingTraverser traverser = new ProjectingTraverser();
     populateResults(batchResponse,
                     map,
                     headers,
                     valueClass,
-                    routingResult.getContext());
+                    routingResult.getContext(),
+                    traverser);
 
     populateErrors(request,
                    routingResult,
@@ -84,14 +89,15 @@ public class BatchGetResponseBuilder extends AbstractBatchResponseBuilder<Record
                    headers,
                    batchResponse);
 
-    return new PartialRestResponse(batchResponse);
+    return new PartialRestResponse(HttpStatus.S_200_OK, batchResponse, traverser);
   }
 
   @Override
   protected DataMap buildResultRecord(final RecordTemplate o,
-                                      final ResourceContext resourceContext)
+                                      final ResourceContext resourceContext,
+                                      final MaskProjector projector,
+                                      final ProjectingTraverser traverser)
   {
-    DataMap data = RestUtils.projectFields(o.data(), resourceContext);
-    return data;
+    return RestUtils.projectFields(o.data(), projector, traverser);
   }
 }
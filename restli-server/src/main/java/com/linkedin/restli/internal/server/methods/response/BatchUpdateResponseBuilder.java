@@ -24,6 +24,8 @@ import java.io.IOException;
 import java.util.Map;
 
 import com.linkedin.data.DataMap;
+import com.linkedin.data.transform.filter.MaskProjector;
+import com.linkedin.data.transform.filter.ProjectingTraverser;
 import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.restli.common.BatchResponse;
 import com.linkedin.restli.common.UpdateStatus;
@@ -74,7 +76,8 @@ public final class BatchUpdateResponseBuilder extends
                     resultsMap,
                     headers,
                     UpdateStatus.class,
-                    routingResult.getContext());
+                    routingResult.getContext(),
+                    null);
 
 
     return new PartialRestResponse(batchResponse);
@@ -82,7 +85,9 @@ public final class BatchUpdateResponseBuilder extends
 
   @Override
   protected DataMap buildResultRecord(final UpdateResponse o,
-                                      final ResourceContext resourceContext)
+                                      final ResourceContext resourceContext,
+                                      final MaskProjector projector,
+                                      final ProjectingTraverser traverser)
   {
     UpdateStatus output = new UpdateStatus();
     output.setStatus(o.getStatus().getCode());
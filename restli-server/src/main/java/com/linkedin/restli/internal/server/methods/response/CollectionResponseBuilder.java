@@ -24,9 +24,12 @@ import com.linkedin.data.DataList;
 import com.linkedin.data.DataMap;
 import com.linkedin.data.collections.CheckedUtil;
 import com.linkedin.data.template.RecordTemplate;
+import com.linkedin.data.transform.filter.MaskProjector;
+import com.linkedin.data.transform.filter.ProjectingTraverser;
 import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.restli.common.CollectionMetadata;
 import com.linkedin.restli.common.CollectionResponse;
+import com.linkedin.restli.common.HttpStatus;
 import com.linkedin.restli.common.RestConstants;
 import com.linkedin.restli.internal.server.RoutingResult;
 import com.linkedin.restli.internal.server.methods.AnyRecord;
@@ -102,9 +105,11 @@ public class CollectionResponseBuilder implements RestLiResponseBuilder
 
     DataList elementsMap =
         (DataList) collectionResponse.data().get(CollectionResponse.ELEMENTS);
+    ProjectingTraverser traverser = new ProjectingTraverser();
+    MaskProjector projector = RestUtils.getProjector(routingResult.getContext());
     for (RecordTemplate entry : elements)
     {
-      DataMap data = RestUtils.projectFields(entry.data(), routingResult.getContext());
+      DataMap data = RestUtils.projectFields(entry.data(), projector, traverser);
 
       CheckedUtil.addWithoutChecking(elementsMap, data);
     }
@@ -116,7 +121,7 @@ public class CollectionResponseBuilder implements RestLiResponseBuilder
     headers.put(RestConstants.HEADER_RESTLI_TYPE, CollectionResponse.class.getName());
     headers.put(RestConstants.HEADER_RESTLI_SUB_TYPE, valueClass.getName());
 
-    return new PartialRestResponse(collectionResponse);
+    return new PartialRestResponse(HttpStatus.S_200_OK, collectionResponse, traverser);
   }
 
 
@@ -24,6 +24,7 @@ import java.util.Map;
 
 import com.linkedin.data.DataMap;
 import com.linkedin.data.template.RecordTemplate;
+import com.linkedin.data.transform.filter.ProjectingTraverser;
 import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.restli.common.HttpStatus;
 import com.linkedin.restli.common.RestConstants;
@@ -57,8 +58,9 @@ public class GetResponseBuilder implements RestLiResponseBuilder
     }
 
     headers.put(RestConstants.HEADER_RESTLI_TYPE, record.getClass().getName());
+    final ProjectingTraverser traverser = new ProjectingTraverser();
     final DataMap data =
-        RestUtils.projectFields(record.data(), routingResult.getContext());
-    return new PartialRestResponse(status, new AnyRecord(data));
+        RestUtils.projectFields(record.data(), RestUtils.getProjector(routingResult.getContext()), traverser);
+    return new PartialRestResponse(status, new AnyRecord(data), traverser);
   }
 }
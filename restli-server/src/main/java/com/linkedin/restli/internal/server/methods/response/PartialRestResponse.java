@@ -20,6 +20,7 @@
 
 package com.linkedin.restli.internal.server.methods.response;
 
+import com.linkedin.data.Data;
 import com.linkedin.data.DataMap;
 import com.linkedin.data.template.RecordTemplate;
 import com.linkedin.restli.common.HttpStatus;
@@ -30,8 +31,9 @@ import com.linkedin.restli.common.HttpStatus;
  */
 public class PartialRestResponse
 {
-  private final HttpStatus _status;
-  private final DataMap    _data;
+  private final HttpStatus     _status;
+  private final DataMap        _data;
+  private final Data.Traverser _traverser;
 
   /**
    * @param record response data. The status is set to 200.
@@ -54,6 +56,17 @@ public class PartialRestResponse
    * @param record response data
    */
   public PartialRestResponse(final HttpStatus status, final RecordTemplate record)
+  {
+    this(status, record, Data.DEFAULT_TRAVERSER);
+  }
+
+  /**
+   * @param status http response status
+   * @param record response data
+   * @param traverser {@link Data.Traverser} to encode the response data with, e.g. to apply
+   *                  the projection of the response while encoding it
+   */
+  public PartialRestResponse(final HttpStatus status, final RecordTemplate record, final Data.Traverser traverser)
   {
     if (record != null)
     {
@@ -65,6 +78,7 @@ public class PartialRestResponse
     }
 
     _status = status;
+    _traverser = traverser;
   }
 
   /**
@@ -75,11 +89,23 @@ public class PartialRestResponse
     return _data != null;
   }
 
+  /**
+   * @return the response data, which is not projected: the projection of the response, if any,
+   *         is applied by {@link #getTraverser()} while the data is encoded.
+   */
   public DataMap getDataMap()
   {
     return _data;
   }
 
+  /**
+   * @return {@link Data.Traverser} to encode the response data with.
+   */
+  public Data.Traverser getTraverser()
+  {
+    return _traverser;
+  }
+
   public HttpStatus getStatus()
   {
     return _status;
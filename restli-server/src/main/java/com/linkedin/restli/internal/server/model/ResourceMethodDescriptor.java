@@ -42,6 +42,7 @@ public final class ResourceMethodDescriptor implements RestLiMethodContext
   private ResourceModel                                 _resourceModel;
   private final ResourceMethod                          _type;
   private final Method                                  _method;
+  private final ResourceMethodInvoker                   _methodInvoker;
   private final List<Parameter<?>>                      _parameters;
   private final String                                  _finderName;
   private final Class<? extends RecordTemplate>         _finderMetadataType;
@@ -191,6 +192,7 @@ public final class ResourceMethodDescriptor implements RestLiMethodContext
     super();
     _type = type;
     _method = method;
+    _methodInvoker = method == null ? null : ResourceMethodInvoker.create(method);
     _parameters = parameters;
     _finderName = finderName;
     _actionName = actionName;
@@ -243,6 +245,16 @@ public final class ResourceMethodDescriptor implements RestLiMethodContext
     return _method;
   }
 
+  /**
+   * Get the invoker of the resource {@link Method}, bound when the descriptor was created.
+   *
+   * @return {@link ResourceMethodInvoker}
+   */
+  public ResourceMethodInvoker getMethodInvoker()
+  {
+    return _methodInvoker;
+  }
+
   /**
    * Get the list of the method {@link Parameter}s.
    *
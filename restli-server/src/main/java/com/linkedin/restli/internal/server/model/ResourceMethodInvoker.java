@@ -0,0 +1,116 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.restli.internal.server.model;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import net.sf.cglib.reflect.FastClass;
+import net.sf.cglib.reflect.FastMethod;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Invokes a resource method, bound once when its {@link ResourceMethodDescriptor} is created.<p/>
+ *
+ * Public methods of public resource classes are invoked through a generated cglib
+ * {@link FastClass}, which calls the method directly instead of going through
+ * {@link Method#invoke}; the other methods, or the methods of classes for which no fast class
+ * can be generated, are invoked reflectively without access checks.
+ */
+public abstract class ResourceMethodInvoker
+{
+  private static final Logger log = LoggerFactory.getLogger(ResourceMethodInvoker.class);
+
+  /**
+   * Invokes the method.
+   *
+   * @param resource the resource to invoke the method on
+   * @param arguments the arguments of the method
+   * @return the value returned by the method
+   * @throws InvocationTargetException if the method threw an exception
+   * @throws IllegalAccessException if the method is not accessible
+   */
+  public abstract Object invoke(Object resource, Object[] arguments)
+      throws InvocationTargetException, IllegalAccessException;
+
+  /**
+   * @param method resource {@link Method}
+   * @return an invoker of the method
+   */
+  public static ResourceMethodInvoker create(final Method method)
+  {
+    if (Modifier.isPublic(method.getModifiers()) &&
+        Modifier.isPublic(method.getDeclaringClass().getModifiers()))
+    {
+      try
+      {
+        return new FastMethodInvoker(FastClass.create(method.getDeclaringClass()).getMethod(method));
+      }
+      catch (RuntimeException e)
+      {
+        log.debug("Unable to generate a fast class for resource method " + method
+                      + ", invoking it reflectively", e);
+      }
+    }
+    return new ReflectiveMethodInvoker(method);
+  }
+
+  private static class FastMethodInvoker extends ResourceMethodInvoker
+  {
+    private final FastMethod _method;
+
+    private FastMethodInvoker(final FastMethod method)
+    {
+      _method = method;
+    }
+
+    @Override
+    public Object invoke(final Object resource, final Object[] arguments) throws InvocationTargetException
+    {
+      return _method.invoke(resource, arguments);
+    }
+  }
+
+  private static class ReflectiveMethodInvoker extends ResourceMethodInvoker
+  {
+    private final Method _method;
+
+    private ReflectiveMethodInvoker(final Method method)
+    {
+      _method = method;
+      try
+      {
+        // skips the access check done on every invocation otherwise
+        _method.setAccessible(true);
+      }
+      catch (SecurityException e)
+      {
+        log.debug("Unable to suppress access checks for resource method " + method, e);
+      }
+    }
+
+    @Override
+    public Object invoke(final Object resource, final Object[] arguments)
+        throws InvocationTargetException, IllegalAccessException
+    {
+      return _method.invoke(resource, arguments);
+    }
+  }
+}
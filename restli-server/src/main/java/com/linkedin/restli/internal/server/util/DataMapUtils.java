@@ -345,10 +345,24 @@ public class DataMapUtils
   }
 
   public static byte[] mapToBytes(final DataMap dataMap, boolean permissive)
+  {
+    return mapToBytes(dataMap, Data.DEFAULT_TRAVERSER, permissive);
+  }
+
+  /**
+   * Encode {@link DataMap} as a byte array using {@link JacksonDataCodec}, with the given
+   * {@link Data.Traverser}, e.g. one applying a projection while the map is encoded.
+   *
+   * @param dataMap input {@link DataMap}
+   * @param traverser traversing the {@link DataMap} to encode it
+   * @param permissive whether encoding errors in strings are fixed by replacing the malformed characters
+   * @return byte array
+   */
+  public static byte[] mapToBytes(final DataMap dataMap, final Data.Traverser traverser, boolean permissive)
   {
     try
     {
-      return CODEC.mapToBytes(dataMap);
+      return CODEC.mapToBytes(dataMap, traverser);
     }
     catch (IOException e)
     {
@@ -357,7 +371,7 @@ public class DataMapUtils
         LOG.info("Failed to serialize dataMap due to encoding error. Attempt to fix by replacing.");
         try
         {
-          return PERMISSIVE_JACKSON_DATA_CODEC.mapToBytes(dataMap);
+          return PERMISSIVE_JACKSON_DATA_CODEC.mapToBytes(dataMap, traverser);
         }
         catch (IOException innerEx)
         {
@@ -405,10 +419,23 @@ public class DataMapUtils
    * @return byte array
    */
   public static byte[] mapToPsonBytes(final DataMap dataMap)
+  {
+    return mapToPsonBytes(dataMap, Data.DEFAULT_TRAVERSER);
+  }
+
+  /**
+   * Encode the {@link DataMap} as a byte array using {@link PsonDataCodec}, with the given
+   * {@link Data.Traverser}, e.g. one applying a projection while the map is encoded.
+   *
+   * @param dataMap input {@link DataMap}
+   * @param traverser traversing the {@link DataMap} to encode it
+   * @return byte array
+   */
+  public static byte[] mapToPsonBytes(final DataMap dataMap, final Data.Traverser traverser)
   {
     try
     {
-      return PSON_DATA_CODEC.mapToBytes(dataMap);
+      return PSON_DATA_CODEC.mapToBytes(dataMap, traverser);
     }
     catch (IOException e)
     {
@@ -436,10 +463,10 @@ public class DataMapUtils
     }
 
     @Override
-    protected void writeObject(Object object, JsonGenerator generator) throws IOException
+    protected void writeObject(Object object, JsonGenerator generator, Data.Traverser traverser) throws IOException
     {
       JsonTraverseCallback callback = new PermissiveJsonTraverseCallback(generator);
-      Data.traverse(object, callback);
+      traverser.traverse(object, callback);
       generator.flush();
       generator.close();
     }
@@ -18,14 +18,16 @@ package com.linkedin.restli.internal.server.util;
 
 
 import com.linkedin.data.DataMap;
-import com.linkedin.data.transform.filter.CopyFilter;
+import com.linkedin.data.transform.filter.FilterConstants;
+import com.linkedin.data.transform.filter.MaskProjector;
+import com.linkedin.data.transform.filter.MaskProjectorCache;
+import com.linkedin.data.transform.filter.ProjectingTraverser;
 import com.linkedin.data.transform.filter.request.MaskTree;
 import com.linkedin.jersey.api.uri.UriBuilder;
 import com.linkedin.restli.common.CollectionMetadata;
 import com.linkedin.restli.common.Link;
 import com.linkedin.restli.common.LinkArray;
 import com.linkedin.restli.common.RestConstants;
-import com.linkedin.restli.internal.server.RestLiInternalException;
 import com.linkedin.restli.internal.server.model.Parameter;
 import com.linkedin.restli.internal.server.model.ResourceMethodDescriptor;
 import com.linkedin.restli.server.CollectionResult.PageIncrement;
@@ -207,47 +209,78 @@ public class RestUtils
   }
 
   /**
-   * Filter input {@link DataMap} by the projection mask from the input
-   * {@link ResourceContext}.
+   * Look up the projector of the projection mask from the input {@link ResourceContext}, to be
+   * passed to {@link #projectFields(DataMap, MaskProjector, ProjectingTraverser)} for each record
+   * of a response.
    *
-   * @param dataMap {@link DataMap} to filter
    * @param resourceContext {@link ResourceContext} to get the projection mask from
-   * @return filtered DataMap. Empty one if the projection mast specifies no fields.
+   * @return the projector of the mask, or null if the records are not projected by rest.li.
    */
-  public static DataMap projectFields(final DataMap dataMap,
-                                      final ResourceContext resourceContext)
+  public static MaskProjector getProjector(final ResourceContext resourceContext)
   {
     if (resourceContext.getProjectionMode() == ProjectionMode.MANUAL)
     {
-      return dataMap;
+      return null;
     }
 
     final MaskTree filter = resourceContext.getProjectionMask();
     if (filter == null)
     {
-      return dataMap;
+      return null;
     }
 
-    final DataMap filterMap = filter.getDataMap();
     //Special-case: when present, an empty filter should not return any fields.
     if (filter.getDataMap().isEmpty())
     {
-      return EMPTY_DATAMAP;
+      return EMPTY_MASK_PROJECTOR;
     }
 
-    try
+    return PROJECTORS.getProjector(filter.getDataMap());
+  }
+
+  /**
+   * Register input {@link DataMap} to be filtered by the given projector when the response is
+   * encoded with the given {@link ProjectingTraverser}.
+   * The {@link DataMap} is not copied: the fields not selected by the projector are skipped when
+   * the response is encoded.
+   *
+   * @param dataMap {@link DataMap} to filter
+   * @param projector projector returned by {@link #getProjector(ResourceContext)}
+   * @param traverser {@link ProjectingTraverser} encoding the response
+   * @return DataMap to put in the response. Empty one if the projection mask specifies no fields.
+   */
+  public static DataMap projectFields(final DataMap dataMap,
+                                      final MaskProjector projector,
+                                      final ProjectingTraverser traverser)
+  {
+    if (projector == null)
     {
-      return (DataMap) CopyFilter.INSTANCE.filter(dataMap, filterMap);
+      return dataMap;
     }
-    catch (Exception e)
+
+    if (projector == EMPTY_MASK_PROJECTOR)
     {
-      throw new RestLiInternalException("Error projecting fields", e);
+      return EMPTY_DATAMAP;
     }
+
+    traverser.project(dataMap, projector);
+    return dataMap;
   }
 
+  /**
+   * Maximum number of projection masks whose compiled projectors are kept.
+   */
+  public static final int MAX_CACHED_PROJECTORS = 1024;
+
+  private static final MaskProjectorCache PROJECTORS = new MaskProjectorCache(MAX_CACHED_PROJECTORS);
   private static final DataMap EMPTY_DATAMAP = new DataMap();
+  private static final MaskProjector EMPTY_MASK_PROJECTOR;
   static
   {
     EMPTY_DATAMAP.makeReadOnly();
+
+    final DataMap hideAll = new DataMap();
+    hideAll.put(FilterConstants.WILDCARD, FilterConstants.NEGATIVE);
+    EMPTY_MASK_PROJECTOR = MaskProjector.compile(hideAll);
   }
 }
@@ -21,6 +21,7 @@ import java.net.URI;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -39,6 +40,8 @@ public class RestLiConfig
   private ErrorResponseFormat _errorResponseFormat = ErrorResponseFormat.FULL;
   private String _internalErrorMessage = ErrorResponseBuilder.DEFAULT_INTERNAL_ERROR_MESSAGE;
   private boolean _permissiveEncoding = false;
+  private final Map<String, SyncResourceExecutor> _syncResourceExecutors = new HashMap<String, SyncResourceExecutor>();
+  private SyncResourceExecutor _defaultSyncResourceExecutor = null;
 
   /**
    * Constructor.
@@ -183,4 +186,37 @@ public class RestLiConfig
   {
     _permissiveEncoding = permissiveEncoding;
   }
+
+  public Map<String, SyncResourceExecutor> getSyncResourceExecutors()
+  {
+    return Collections.unmodifiableMap(_syncResourceExecutors);
+  }
+
+  /**
+   * Runs the synchronous methods of a resource, or a single one of them, on the given executor
+   * instead of the thread handling the request.
+   *
+   * @param key the name of the resource, e.g. "statuses", or of one of its methods:
+   *            "statuses:get" for a restful method, "statuses:finder:search" for a finder and
+   *            "statuses:action:purge" for an action
+   * @param executor the executor of the methods
+   */
+  public void addSyncResourceExecutor(final String key, final SyncResourceExecutor executor)
+  {
+    _syncResourceExecutors.put(key, executor);
+  }
+
+  public SyncResourceExecutor getDefaultSyncResourceExecutor()
+  {
+    return _defaultSyncResourceExecutor;
+  }
+
+  /**
+   * @param executor the executor of the synchronous methods which have no executor of their own,
+   *                 or null to run them on the thread handling the request
+   */
+  public void setDefaultSyncResourceExecutor(final SyncResourceExecutor executor)
+  {
+    _defaultSyncResourceExecutor = executor;
+  }
 }
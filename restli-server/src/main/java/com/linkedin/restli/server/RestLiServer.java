@@ -90,7 +90,11 @@ public class RestLiServer extends BaseRestServer
     _rootResources = new RestLiApiBuilder(config).build();
     _resourceFactory.setRootResources(_rootResources);
     _router = new RestLiRouter(_rootResources);
-    _methodInvoker = new RestLiMethodInvoker(_resourceFactory, engine, _errorResponseBuilder);
+    _methodInvoker = new RestLiMethodInvoker(_resourceFactory,
+                                             engine,
+                                             _errorResponseBuilder,
+                                             config.getSyncResourceExecutors(),
+                                             config.getDefaultSyncResourceExecutor());
     _responseHandler = new RestLiResponseHandler.Builder()
                                                 .setErrorResponseBuilder(_errorResponseBuilder)
                                                 .setPermissiveEncoding(config.getPermissiveEncoding())
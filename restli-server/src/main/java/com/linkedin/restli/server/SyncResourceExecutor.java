@@ -0,0 +1,172 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.restli.server;
+
+import com.linkedin.r2.util.NamedThreadFactory;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the synchronous resource methods of the resources it is registered for in
+ * {@link RestLiConfig}, off the threads of the server.<p/>
+ *
+ * The underlying executor should be bounded: a request rejected by it is answered with
+ * 503 Service Unavailable instead of waiting, so that a slow or hot resource sheds its own
+ * load rather than holding the threads shared with the other resources.<p/>
+ *
+ * The time the methods spent queued and running is recorded for monitoring.
+ *
+ * @see RestLiConfig#addSyncResourceExecutor(String, SyncResourceExecutor)
+ */
+public class SyncResourceExecutor implements Executor
+{
+  private final Executor _executor;
+
+  private final AtomicLong _executedCount = new AtomicLong();
+  private final AtomicLong _rejectedCount = new AtomicLong();
+  private final AtomicLong _totalQueueTimeNanos = new AtomicLong();
+  private final AtomicLong _maxQueueTimeNanos = new AtomicLong();
+  private final AtomicLong _totalExecutionTimeNanos = new AtomicLong();
+  private final AtomicLong _maxExecutionTimeNanos = new AtomicLong();
+
+  /**
+   * @param executor the executor running the resource methods, which should reject them with a
+   *                 {@link RejectedExecutionException} when it is full
+   */
+  public SyncResourceExecutor(Executor executor)
+  {
+    _executor = executor;
+  }
+
+  /**
+   * Creates an executor running the resource methods on a fixed number of threads, with a
+   * queue of the given size in front of them.
+   *
+   * @param name the prefix of the thread names
+   * @param threads the number of threads
+   * @param queueSize the number of methods which may wait for a thread before the next ones
+   *                  are rejected
+   */
+  public static SyncResourceExecutor newBoundedExecutor(String name, int threads, int queueSize)
+  {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                                                         60, TimeUnit.SECONDS,
+                                                         new ArrayBlockingQueue<Runnable>(queueSize),
+                                                         new NamedThreadFactory(name),
+                                                         new ThreadPoolExecutor.AbortPolicy());
+    executor.allowCoreThreadTimeOut(true);
+    return new SyncResourceExecutor(executor);
+  }
+
+  /**
+   * @throws RejectedExecutionException if the underlying executor is full or shut down
+   */
+  @Override
+  public void execute(final Runnable command)
+  {
+    final long queued = System.nanoTime();
+    try
+    {
+      _executor.execute(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          final long started = System.nanoTime();
+          record(started - queued, _totalQueueTimeNanos, _maxQueueTimeNanos);
+          try
+          {
+            command.run();
+          }
+          finally
+          {
+            _executedCount.incrementAndGet();
+            record(System.nanoTime() - started, _totalExecutionTimeNanos, _maxExecutionTimeNanos);
+          }
+        }
+      });
+    }
+    catch (RejectedExecutionException e)
+    {
+      _rejectedCount.incrementAndGet();
+      throw e;
+    }
+  }
+
+  private static void record(long nanos, AtomicLong total, AtomicLong max)
+  {
+    total.addAndGet(nanos);
+    long current = max.get();
+    while (nanos > current && !max.compareAndSet(current, nanos))
+    {
+      current = max.get();
+    }
+  }
+
+  /**
+   * Shuts the underlying executor down, if it is an {@link ExecutorService}.
+   */
+  public void shutdown()
+  {
+    if (_executor instanceof ExecutorService)
+    {
+      ((ExecutorService) _executor).shutdown();
+    }
+  }
+
+  /**
+   * @return the number of resource methods which have run
+   */
+  public long getExecutedCount()
+  {
+    return _executedCount.get();
+  }
+
+  /**
+   * @return the number of resource methods rejected by the underlying executor
+   */
+  public long getRejectedCount()
+  {
+    return _rejectedCount.get();
+  }
+
+  public long getTotalQueueTimeNanos()
+  {
+    return _totalQueueTimeNanos.get();
+  }
+
+  public long getMaxQueueTimeNanos()
+  {
+    return _maxQueueTimeNanos.get();
+  }
+
+  public long getTotalExecutionTimeNanos()
+  {
+    return _totalExecutionTimeNanos.get();
+  }
+
+  public long getMaxExecutionTimeNanos()
+  {
+    return _maxExecutionTimeNanos.get();
+  }
+}
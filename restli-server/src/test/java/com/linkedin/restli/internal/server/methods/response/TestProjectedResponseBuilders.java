@@ -0,0 +1,220 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.restli.internal.server.methods.response;
+
+
+import com.linkedin.data.Data;
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestRequestBuilder;
+import com.linkedin.restli.common.BatchResponse;
+import com.linkedin.restli.common.CollectionResponse;
+import com.linkedin.restli.common.ResourceMethod;
+import com.linkedin.restli.internal.server.PathKeysImpl;
+import com.linkedin.restli.internal.server.ResourceContextImpl;
+import com.linkedin.restli.internal.server.RoutingResult;
+import com.linkedin.restli.internal.server.model.ResourceMethodDescriptor;
+import com.linkedin.restli.internal.server.model.ResourceMethodDescriptor.InterfaceType;
+import com.linkedin.restli.internal.server.model.ResourceModel;
+import com.linkedin.restli.internal.server.util.DataMapUtils;
+import com.linkedin.restli.server.BasicCollectionResult;
+import com.linkedin.restli.server.annotations.RestLiCollection;
+import com.linkedin.restli.server.resources.CollectionResourceTemplate;
+import com.linkedin.restli.server.test.RestLiTestHelper;
+import com.linkedin.restli.server.twitter.StatusCollectionResource;
+import com.linkedin.restli.server.twitter.TwitterTestDataModels.Status;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+
+/**
+ * Checks that the get, finder and batch get response builders leave the records of the response
+ * as they are, and that the {@link PartialRestResponse#getTraverser()} of the response projects
+ * them when the response is encoded.
+ */
+public class TestProjectedResponseBuilders
+{
+  @DataProvider(name = "encodings")
+  public Object[][] encodings()
+  {
+    return new Object[][] { { Boolean.FALSE }, { Boolean.TRUE } };
+  }
+
+  @Test(dataProvider = "encodings")
+  public void testGet(Boolean pson) throws Exception
+  {
+    final Status status = buildStatus(1);
+    final RestRequest request = buildRequest("/test/1?fields=f1,f2:(f3)");
+    final PartialRestResponse response = new GetResponseBuilder().buildResponse(
+        request, buildRoutingResult(ResourceMethod.GET, "batchGet", request), status, new HashMap<String, String>());
+
+    assertSame(response.getDataMap(), status.data());
+    checkProjected(encode(response.getDataMap(), response.getTraverser(), pson));
+    assertEquals(encode(response.getDataMap(), Data.DEFAULT_TRAVERSER, pson), status.data());
+  }
+
+  @Test(dataProvider = "encodings")
+  public void testGetWithEmptyMask(Boolean pson) throws Exception
+  {
+    final RestRequest request = buildRequest("/test/1?fields=");
+    final PartialRestResponse response = new GetResponseBuilder().buildResponse(
+        request, buildRoutingResult(ResourceMethod.GET, "batchGet", request), buildStatus(1), new HashMap<String, String>());
+
+    assertEquals(encode(response.getDataMap(), response.getTraverser(), pson), new DataMap());
+  }
+
+  @Test(dataProvider = "encodings")
+  public void testFinder(Boolean pson) throws Exception
+  {
+    final List<Status> statuses = new ArrayList<Status>();
+    for (int i = 0; i < 5; ++i)
+    {
+      statuses.add(buildStatus(i));
+    }
+    final RestRequest request = buildRequest("/test?q=find&fields=f1,f2:(f3)");
+    final PartialRestResponse response = new CollectionResponseBuilder().buildResponse(
+        request, buildRoutingResult(ResourceMethod.FINDER, "find", request), statuses, new HashMap<String, String>());
+
+    final DataList elements = (DataList) response.getDataMap().get(CollectionResponse.ELEMENTS);
+    assertEquals(elements.size(), statuses.size());
+    for (int i = 0; i < elements.size(); ++i)
+    {
+      assertSame(elements.get(i), statuses.get(i).data());
+    }
+
+    final DataMap encoded = encode(response.getDataMap(), response.getTraverser(), pson);
+    final DataList encodedElements = (DataList) encoded.get(CollectionResponse.ELEMENTS);
+    assertEquals(encodedElements.size(), statuses.size());
+    for (Object element : encodedElements)
+    {
+      checkProjected((DataMap) element);
+    }
+    assertTrue(encoded.containsKey(CollectionResponse.PAGING));
+  }
+
+  @Test(dataProvider = "encodings")
+  public void testBatchGet(Boolean pson) throws Exception
+  {
+    final Map<Integer, Status> statuses = new HashMap<Integer, Status>();
+    for (int i = 0; i < 5; ++i)
+    {
+      statuses.put(i, buildStatus(i));
+    }
+    final RestRequest request = buildRequest("/test?ids=0,1,2,3,4&fields=f1,f2:(f3)");
+    final PartialRestResponse response = new BatchGetResponseBuilder(new ErrorResponseBuilder()).buildResponse(
+        request, buildRoutingResult(ResourceMethod.BATCH_GET, "batchGet", request), statuses, new HashMap<String, String>());
+
+    final DataMap results = (DataMap) response.getDataMap().get(BatchResponse.RESULTS);
+    assertEquals(results.size(), statuses.size());
+    for (Map.Entry<Integer, Status> entry : statuses.entrySet())
+    {
+      assertSame(results.get(String.valueOf(entry.getKey())), entry.getValue().data());
+    }
+
+    final DataMap encoded = encode(response.getDataMap(), response.getTraverser(), pson);
+    final DataMap encodedResults = (DataMap) encoded.get(BatchResponse.RESULTS);
+    assertEquals(encodedResults.size(), statuses.size());
+    for (Object result : encodedResults.values())
+    {
+      checkProjected((DataMap) result);
+    }
+  }
+
+  private static Status buildStatus(int id)
+  {
+    final DataMap nested = new DataMap();
+    nested.put("f3", "value3");
+    nested.put("f4", "value4");
+
+    final DataMap data = new DataMap();
+    data.put("id", id);
+    data.put("f1", "value1");
+    data.put("f2", nested);
+    data.put("f5", "value5");
+    return new Status(data);
+  }
+
+  private static void checkProjected(DataMap data)
+  {
+    final DataMap nested = new DataMap();
+    nested.put("f3", "value3");
+
+    final DataMap expected = new DataMap();
+    expected.put("f1", "value1");
+    expected.put("f2", nested);
+    assertEquals(data, expected);
+  }
+
+  private static DataMap encode(DataMap data, Data.Traverser traverser, Boolean pson)
+  {
+    if (pson)
+    {
+      return DataMapUtils.readMapPson(new ByteArrayInputStream(DataMapUtils.mapToPsonBytes(data, traverser)));
+    }
+    return DataMapUtils.readMap(new ByteArrayInputStream(DataMapUtils.mapToBytes(data, traverser, false)));
+  }
+
+  private static RestRequest buildRequest(String uri) throws Exception
+  {
+    return new RestRequestBuilder(new URI(uri)).setMethod("DONT_CARE").build();
+  }
+
+  private static RoutingResult buildRoutingResult(ResourceMethod resourceMethod, String methodName, RestRequest request)
+      throws Exception
+  {
+    final Method method = methodName.equals("find") ?
+        ProjectionTestFixture.class.getMethod(methodName) :
+        ProjectionTestFixture.class.getMethod(methodName, Set.class);
+    final ResourceModel model = RestLiTestHelper.buildResourceModel(StatusCollectionResource.class);
+    final ResourceMethodDescriptor methodDescriptor =
+        ResourceMethodDescriptor.createForRestful(resourceMethod, method, InterfaceType.SYNC);
+    model.addResourceMethodDescriptor(methodDescriptor);
+
+    return new RoutingResult(new ResourceContextImpl(new PathKeysImpl(), request, new RequestContext()),
+                             methodDescriptor);
+  }
+
+  @RestLiCollection(name = "test")
+  private static class ProjectionTestFixture extends CollectionResourceTemplate<Long, Status>
+  {
+    public Map<Long, Status> batchGet(Set<Long> ids)
+    {
+      return null;
+    }
+
+    public BasicCollectionResult<Status> find()
+    {
+      return null;
+    }
+  }
+}
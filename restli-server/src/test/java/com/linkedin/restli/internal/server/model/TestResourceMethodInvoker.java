@@ -0,0 +1,88 @@
+/*
+   Copyright (c) 2014 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+
+
+package com.linkedin.restli.internal.server.model;
+
+import java.lang.reflect.InvocationTargetException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestResourceMethodInvoker
+{
+  @Test
+  public void testInvoke() throws Exception
+  {
+    ResourceMethodInvoker invoker =
+        ResourceMethodInvoker.create(PublicResource.class.getMethod("concat", String.class, int.class));
+    Assert.assertEquals(invoker.invoke(new PublicResource(), new Object[] { "a", 1 }), "a1");
+
+    invoker = ResourceMethodInvoker.create(PackagePrivateResource.class.getMethod("concat", String.class, int.class));
+    Assert.assertEquals(invoker.invoke(new PackagePrivateResource(), new Object[] { "b", 2 }), "b2");
+  }
+
+  @Test
+  public void testInvokeOverridden() throws Exception
+  {
+    ResourceMethodInvoker invoker =
+        ResourceMethodInvoker.create(PublicResource.class.getMethod("concat", String.class, int.class));
+    PublicResource resource = new PublicResource()
+    {
+      @Override
+      public String concat(String s, int i)
+      {
+        return i + s;
+      }
+    };
+    Assert.assertEquals(invoker.invoke(resource, new Object[] { "a", 1 }), "1a");
+  }
+
+  @Test
+  public void testException() throws Exception
+  {
+    ResourceMethodInvoker invoker = ResourceMethodInvoker.create(PublicResource.class.getMethod("fail"));
+    try
+    {
+      invoker.invoke(new PublicResource(), new Object[0]);
+      Assert.fail("expected InvocationTargetException");
+    }
+    catch (InvocationTargetException e)
+    {
+      Assert.assertTrue(e.getCause() instanceof UnsupportedOperationException);
+    }
+  }
+
+  public static class PublicResource
+  {
+    public String concat(String s, int i)
+    {
+      return s + i;
+    }
+
+    public void fail()
+    {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  static class PackagePrivateResource
+  {
+    public String concat(String s, int i)
+    {
+      return s + i;
+    }
+  }
+}
@@ -39,6 +39,7 @@ import com.linkedin.r2.message.rest.RestRequestBuilder;
 import com.linkedin.r2.message.rest.RestResponse;
 import com.linkedin.restli.common.ComplexResourceKey;
 import com.linkedin.restli.common.CompoundKey;
+import com.linkedin.restli.common.HttpStatus;
 import com.linkedin.restli.common.PatchRequest;
 import com.linkedin.restli.common.ResourceMethod;
 import com.linkedin.restli.common.RestConstants;
@@ -66,7 +67,9 @@ import com.linkedin.restli.server.PagingContext;
 import com.linkedin.restli.server.ResourceContext;
 import com.linkedin.restli.server.ResourceLevel;
 import com.linkedin.restli.internal.server.RestLiCallback;
+import com.linkedin.restli.server.RestLiServiceException;
 import com.linkedin.restli.server.RoutingException;
+import com.linkedin.restli.server.SyncResourceExecutor;
 import com.linkedin.restli.server.TestRecord;
 import com.linkedin.restli.server.UpdateResponse;
 import com.linkedin.restli.server.combined.CombinedResources;
@@ -109,13 +112,18 @@ import org.testng.annotations.Test;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static com.linkedin.restli.server.test.RestLiTestHelper.buildResourceModel;
 import static com.linkedin.restli.server.test.RestLiTestHelper.buildResourceModels;
@@ -1707,6 +1715,90 @@ public class TestRestLiMethodInvocation
     checkInvocation(discoveredItemsResource, methodDescriptor, "GET", "/discovereditems?q=user&userId=1");
   }
 
+  @Test
+  public void testSyncResourceExecutor() throws Exception
+  {
+    Map<String, ResourceModel> resourceModelMap = buildResourceModels(
+        StatusCollectionResource.class,
+        LocationResource.class,
+        DiscoveredItemsResource.class);
+    ResourceModel statusResourceModel = resourceModelMap.get("/statuses");
+    ResourceMethodDescriptor methodDescriptor = statusResourceModel.findMethod(ResourceMethod.GET);
+
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    SyncResourceExecutor executor = new SyncResourceExecutor(executorService);
+    RestLiMethodInvoker invoker = new RestLiMethodInvoker(_resourceFactory,
+                                                          _engine,
+                                                          new ErrorResponseBuilder(),
+                                                          Collections.singletonMap("statuses", executor),
+                                                          null);
+
+    final Thread callingThread = Thread.currentThread();
+    StatusCollectionResource statusResource = getMockResource(StatusCollectionResource.class);
+    EasyMock.expect(statusResource.get(eq(1L))).andAnswer(new IAnswer<Status>()
+    {
+      @Override
+      public Status answer() throws Throwable
+      {
+        Assert.assertNotSame(Thread.currentThread(), callingThread);
+        return null;
+      }
+    }).once();
+    EasyMock.replay(statusResource);
+
+    RestRequest request = new RestRequestBuilder(new URI("/statuses/1")).setMethod("GET").build();
+    RoutingResult routingResult = new RoutingResult(new ResourceContextImpl(buildPathKeys("statusID", 1L),
+                                                                            request,
+                                                                            new RequestContext()),
+                                                    methodDescriptor);
+    RestLiCallback<Object> callback = getCallback();
+    invoker.invoke(routingResult, request, callback);
+
+    executorService.shutdown();
+    Assert.assertTrue(executorService.awaitTermination(30, TimeUnit.SECONDS));
+    EasyMock.verify(statusResource, callback);
+    Assert.assertEquals(executor.getExecutedCount(), 1);
+    Assert.assertEquals(executor.getRejectedCount(), 0);
+
+    // a full executor sheds the method with 503, without running it
+    SyncResourceExecutor fullExecutor = new SyncResourceExecutor(new Executor()
+    {
+      @Override
+      public void execute(Runnable command)
+      {
+        throw new RejectedExecutionException();
+      }
+    });
+    invoker = new RestLiMethodInvoker(_resourceFactory,
+                                      _engine,
+                                      new ErrorResponseBuilder(),
+                                      Collections.singletonMap("statuses:get", fullExecutor),
+                                      executor);
+
+    statusResource = getMockResource(StatusCollectionResource.class);
+    EasyMock.replay(statusResource);
+
+    @SuppressWarnings("unchecked")
+    RestLiCallback<Object> rejectedCallback = (RestLiCallback<Object>) EasyMock.createMock(RestLiCallback.class);
+    rejectedCallback.onErrorApp(EasyMock.<Throwable>anyObject());
+    EasyMock.expectLastCall().andAnswer(new IAnswer<Object>()
+    {
+      @Override
+      public Object answer() throws Throwable
+      {
+        RestLiServiceException e = (RestLiServiceException) EasyMock.getCurrentArguments()[0];
+        Assert.assertEquals(e.getStatus(), HttpStatus.S_503_SERVICE_UNAVAILABLE);
+        return null;
+      }
+    }).once();
+    EasyMock.replay(rejectedCallback);
+
+    invoker.invoke(routingResult, request, rejectedCallback);
+    EasyMock.verify(statusResource, rejectedCallback);
+    Assert.assertEquals(fullExecutor.getRejectedCount(), 1);
+    Assert.assertEquals(executor.getExecutedCount(), 1);
+  }
+
   @Test
   public void testGetAssociativeResource() throws Exception
   {
@@ -319,6 +319,11 @@ public class TestRestLiRouting
     expectRoutingException("/statuses%2F1", "GET");
     checkResult("/statuses/-1", "GET",
                 ResourceMethod.GET, StatusCollectionResource.class, "get", false, "statusID");
+    checkResult("/statuses/1/", "GET",
+                ResourceMethod.GET, StatusCollectionResource.class, "get", false, "statusID");
+    checkResult("/statuses/1", "get", "get",
+                ResourceMethod.GET, StatusCollectionResource.class, "get", false, "statusID");
+    expectRoutingException("/statuses/1", "GET", "BATCH_GET");
     checkResult("/statuses?ids=1&ids=2&ids3", "GET",
                 ResourceMethod.BATCH_GET, StatusCollectionResource.class, "batchGet", true);
     checkResult("/statuses?ids=1&ids=2&ids=3", "GET", "BATCH_GET",
@@ -738,6 +743,24 @@ public class TestRestLiRouting
     expectRoutingException(uri, httpMethod, null);
   }
 
+  @Test
+  public void testEmptyRootPath() throws Exception
+  {
+    _router = new RestLiRouter(buildResourceModels(StatusCollectionResource.class));
+
+    RestRequest request = new RestRequestBuilder(new URI("http://localhost//")).setMethod("GET").build();
+    try
+    {
+      _router.process(request, new RequestContext());
+      fail("Expected RoutingException");
+    }
+    catch (RoutingException e)
+    {
+      assertEquals(e.getMessage(), "No root resource defined for path '/'");
+      assertEquals(e.getStatus(), 404);
+    }
+  }
+
   /**
    * Tests routing on a more complicated resource hierarchy
    */